@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.*;
+import org.openjdk.jmh.runner.options.*;
+
+import java.io.*;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Runs WorldWind's JMH benchmarks headless and writes their results as JSON, so runs against different commits can be
+ * compared. Accepts the standard JMH command line, for example <code>java -jar benchmarks.jar LatLon -f 1</code>.
+ * Unless the command line specifies <code>-rf</code> or <code>-rff</code>, results are written to
+ * <code>target/jmh-&lt;label&gt;.json</code>, where the label is the <code>worldwind.benchmark.label</code> system
+ * property if set, or else the abbreviated hash of the git commit being measured, or the current time outside a git
+ * work tree.
+ * <p>
+ * No suite retrieves data from the network. Suites that build globes, elevation models or caches load WorldWind's
+ * {@link gov.nasa.worldwind.Configuration}, which reads the bundled configuration, opens the local file store and
+ * creates the default globe. The runner names <code>config/benchmarks.xml</code> as the application configuration,
+ * which makes the default globe a {@link SyntheticEarth}, so the default Earth and its WMS elevations are never
+ * created.
+ */
+public class BenchmarkRunner {
+    public static final String LABEL_PROPERTY = "worldwind.benchmark.label";
+    public static final String HEADLESS_ARG = "-Djava.awt.headless=true";
+    public static final String APP_CONFIG_PROPERTY = "gov.nasa.worldwind.app.config.document";
+    public static final String APP_CONFIG_DOCUMENT = "config/benchmarks.xml";
+
+    public static void main(String[] args) throws IOException, RunnerException {
+        System.setProperty("java.awt.headless", "true");
+        System.setProperty(BenchmarkRunner.APP_CONFIG_PROPERTY, BenchmarkRunner.APP_CONFIG_DOCUMENT);
+
+        CommandLineOptions commandLine;
+        try {
+            commandLine = new CommandLineOptions(args);
+        }
+        catch (CommandLineOptionException e) {
+            System.err.println("Error parsing command line: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        if (commandLine.shouldHelp()) {
+            commandLine.showHelp();
+            return;
+        }
+
+        if (commandLine.shouldList()) {
+            new Runner(commandLine).list();
+            return;
+        }
+
+        String appConfigArg = "-D" + BenchmarkRunner.APP_CONFIG_PROPERTY + '=' + BenchmarkRunner.APP_CONFIG_DOCUMENT;
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(commandLine).jvmArgsAppend(
+            BenchmarkRunner.HEADLESS_ARG, appConfigArg).shouldFailOnError(true);
+
+        if (!commandLine.getResultFormat().hasValue())
+            builder.resultFormat(ResultFormatType.JSON);
+
+        if (!commandLine.getResult().hasValue()) {
+            File file = BenchmarkRunner.resultFile(commandLine.getResultFormat().orElse(ResultFormatType.JSON));
+            file.getParentFile().mkdirs();
+            builder.result(file.getPath());
+        }
+
+        new Runner(builder.build()).run();
+    }
+
+    protected static File resultFile(ResultFormatType format) {
+        String label = System.getProperty(BenchmarkRunner.LABEL_PROPERTY);
+        if (label == null || label.isBlank())
+            label = BenchmarkRunner.gitCommit();
+        if (label == null || label.isBlank())
+            label = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+
+        return new File("target", "jmh-" + label.replaceAll("[^A-Za-z0-9._-]", "_") + '.'
+            + format.name().toLowerCase());
+    }
+
+    /**
+     * Returns the abbreviated hash of the git commit checked out in the working directory, marked as dirty when the
+     * work tree has uncommitted changes.
+     *
+     * @return the commit's hash, or null if git is not available or the working directory is not in a git work tree.
+     */
+    protected static String gitCommit() {
+        try {
+            Process process = new ProcessBuilder("git", "describe", "--always", "--dirty").redirectErrorStream(
+                true).start();
+            String output;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                output = reader.readLine();
+            }
+            return process.waitFor() == 0 ? output : null;
+        }
+        catch (IOException e) {
+            return null;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.benchmarks;
+
+import gov.nasa.worldwind.formats.dds.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.nio.*;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures DXT compression of tile-sized images, as performed when imagery is converted to DDS before it is cached.
+ * The images are smooth gradients with noise, which exercise the compressors' color selection the way imagery does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DXTBenchmarks {
+    @Param({"256", "512"})
+    public int size;
+
+    protected BufferedImage opaqueImage;
+    protected BufferedImage translucentImage;
+    protected DXTCompressionAttributes attributes;
+    protected DXT1Compressor dxt1Compressor;
+    protected ByteBuffer dxt1Buffer;
+
+    @Setup
+    public void setUp() {
+        this.opaqueImage = DXTBenchmarks.createImage(this.size, BufferedImage.TYPE_INT_RGB);
+        this.translucentImage = DXTBenchmarks.createImage(this.size, BufferedImage.TYPE_INT_ARGB);
+        this.attributes = new DXTCompressionAttributes();
+        this.dxt1Compressor = new DXT1Compressor();
+        this.dxt1Buffer = ByteBuffer.allocateDirect(this.dxt1Compressor.getCompressedSize(this.opaqueImage,
+            this.attributes)).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    protected static BufferedImage createImage(int size, int type) {
+        Random random = new Random(1);
+        BufferedImage image = new BufferedImage(size, size, type);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int r = Math.min(255, 255 * x / size + random.nextInt(16));
+                int g = Math.min(255, 255 * y / size + random.nextInt(16));
+                int b = Math.min(255, 128 + random.nextInt(32));
+                int a = 255 * (x + y) / (2 * size);
+                image.setRGB(x, y, a << 24 | r << 16 | g << 8 | b);
+            }
+        }
+        return image;
+    }
+
+    @Benchmark
+    public ByteBuffer compressDXT1() {
+        this.dxt1Buffer.clear();
+        this.dxt1Compressor.compressImage(this.opaqueImage, this.attributes, this.dxt1Buffer);
+        return this.dxt1Buffer;
+    }
+
+    @Benchmark
+    public ByteBuffer compressDDSWithMipmaps() {
+        DXTCompressionAttributes attributes = new DXTCompressionAttributes();
+        attributes.setBuildMipmaps(true);
+        return DDSCompressor.compressImage(this.opaqueImage, attributes);
+    }
+
+    @Benchmark
+    public ByteBuffer compressDXT3() {
+        return DDSCompressor.compressImageDXT3(this.translucentImage, this.attributes);
+    }
+}
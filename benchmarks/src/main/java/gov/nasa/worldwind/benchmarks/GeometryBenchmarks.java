@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.benchmarks;
+
+import gov.nasa.worldwind.geom.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link Vec4}, {@link Matrix} and {@link Angle} operations performed for every vertex and every frame.
+ * Each benchmark operates on {@link #COUNT} pseudo-random operands so that results are not constant folded.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeometryBenchmarks {
+    public static final int COUNT = 1024;
+
+    protected Vec4[] points;
+    protected Vec4[] normals;
+    protected Matrix[] matrices;
+    protected Angle[] angles;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        this.points = new Vec4[COUNT];
+        this.normals = new Vec4[COUNT];
+        this.matrices = new Matrix[COUNT];
+        this.angles = new Angle[COUNT];
+
+        for (int i = 0; i < COUNT; i++) {
+            this.points[i] = new Vec4(random.nextDouble() * 1.0e7, random.nextDouble() * 1.0e7,
+                random.nextDouble() * 1.0e7, 1);
+            this.normals[i] = new Vec4(random.nextDouble() - 0.5, random.nextDouble() - 0.5,
+                random.nextDouble() - 0.5).normalize3();
+            this.angles[i] = new Angle(random.nextDouble() * 360 - 180);
+            this.matrices[i] = Matrix.fromRotationXYZ(new Angle(random.nextDouble() * 360),
+                new Angle(random.nextDouble() * 360), new Angle(random.nextDouble() * 360)).multiply(
+                Matrix.fromTranslation(random.nextDouble() * 1.0e6, random.nextDouble() * 1.0e6,
+                    random.nextDouble() * 1.0e6));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void vec4CrossAndNormalize(Blackhole blackhole) {
+        for (int i = 0; i < COUNT; i++) {
+            blackhole.consume(this.points[i].cross3(this.normals[i]).normalize3());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public double vec4Dot() {
+        double sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            sum += this.points[i].dot3(this.normals[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void vec4TransformBy4(Blackhole blackhole) {
+        for (int i = 0; i < COUNT; i++) {
+            blackhole.consume(this.points[i].transformBy4(this.matrices[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void matrixMultiply(Blackhole blackhole) {
+        for (int i = 0; i < COUNT; i++) {
+            blackhole.consume(this.matrices[i].multiply(this.matrices[(i + 1) % COUNT]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void matrixInverse(Blackhole blackhole) {
+        for (int i = 0; i < COUNT; i++) {
+            blackhole.consume(this.matrices[i].getInverse());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public double angleTrigonometry() {
+        double sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            sum += this.angles[i].sin() * this.angles[i].cos();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void angleNormalize(Blackhole blackhole) {
+        for (int i = 0; i < COUNT; i++) {
+            blackhole.consume(this.angles[i].add(this.angles[(i + 1) % COUNT]).normalize());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.benchmarks;
+
+import gov.nasa.worldwind.geom.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link LatLon} great circle and rhumb line functions used by measurement, path tessellation and
+ * navigation. Each benchmark operates on {@link #COUNT} pseudo-random location pairs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LatLonBenchmarks {
+    public static final int COUNT = 1024;
+
+    protected LatLon[] begin;
+    protected LatLon[] end;
+    protected double[] azimuths;
+    protected double[] distances;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        this.begin = new LatLon[COUNT];
+        this.end = new LatLon[COUNT];
+        this.azimuths = new double[COUNT];
+        this.distances = new double[COUNT];
+
+        for (int i = 0; i < COUNT; i++) {
+            this.begin[i] = LatLon.fromDegrees(random.nextDouble() * 170 - 85, random.nextDouble() * 360 - 180);
+            this.end[i] = LatLon.fromDegrees(random.nextDouble() * 170 - 85, random.nextDouble() * 360 - 180);
+            this.azimuths[i] = random.nextDouble() * 2 * Math.PI;
+            this.distances[i] = random.nextDouble() * 0.5;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void greatCircleDistance(Blackhole blackhole) {
+        for (int i = 0; i < COUNT; i++) {
+            blackhole.consume(LatLon.greatCircleDistance(this.begin[i], this.end[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void greatCircleAzimuth(Blackhole blackhole) {
+        for (int i = 0; i < COUNT; i++) {
+            blackhole.consume(LatLon.greatCircleAzimuth(this.begin[i], this.end[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void greatCircleEndPosition(Blackhole blackhole) {
+        for (int i = 0; i < COUNT; i++) {
+            blackhole.consume(LatLon.greatCircleEndPosition(this.begin[i], this.azimuths[i], this.distances[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void interpolateGreatCircle(Blackhole blackhole) {
+        for (int i = 0; i < COUNT; i++) {
+            blackhole.consume(LatLon.interpolateGreatCircle(0.5, this.begin[i], this.end[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void rhumbDistance(Blackhole blackhole) {
+        for (int i = 0; i < COUNT; i++) {
+            blackhole.consume(LatLon.rhumbDistance(this.begin[i], this.end[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void rhumbAzimuth(Blackhole blackhole) {
+        for (int i = 0; i < COUNT; i++) {
+            blackhole.consume(LatLon.rhumbAzimuth(this.begin[i], this.end[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void rhumbEndPosition(Blackhole blackhole) {
+        for (int i = 0; i < COUNT; i++) {
+            blackhole.consume(LatLon.rhumbEndPosition(this.begin[i], this.azimuths[i], this.distances[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void interpolateRhumb(Blackhole blackhole) {
+        for (int i = 0; i < COUNT; i++) {
+            blackhole.consume(LatLon.interpolateRhumb(0.5, this.begin[i], this.end[i]));
+        }
+    }
+}
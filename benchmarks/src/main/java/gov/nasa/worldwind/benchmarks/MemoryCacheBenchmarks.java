@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.benchmarks;
+
+import gov.nasa.worldwind.cache.BasicMemoryCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.*;
+
+/**
+ * Measures {@link BasicMemoryCache} lookups and insertions under contention, as when the rendering thread reads tiles
+ * while retrieval threads add them. The cache holds {@link #CAPACITY} unit-size entries drawn from a key space twice
+ * that size, so about half of the lookups miss and insertions evict. The cache is deprecated but still backs the
+ * place name layer's tile cache, so it is measured regardless.
+ */
+@SuppressWarnings("deprecation")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MemoryCacheBenchmarks {
+    public static final int CAPACITY = 4096;
+    public static final int KEY_COUNT = 2 * CAPACITY;
+
+    protected BasicMemoryCache cache;
+    protected Integer[] keys;
+    protected Object value;
+
+    @Setup
+    public void setUp() {
+        this.cache = new BasicMemoryCache((long) (0.8 * CAPACITY), CAPACITY);
+        this.keys = new Integer[KEY_COUNT];
+        this.value = new Object();
+
+        for (int i = 0; i < KEY_COUNT; i++) {
+            this.keys[i] = i;
+        }
+
+        for (int i = 0; i < CAPACITY; i++) {
+            this.cache.add(this.keys[i], this.value, 1);
+        }
+    }
+
+    protected Integer nextKey() {
+        return this.keys[ThreadLocalRandom.current().nextInt(KEY_COUNT)];
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object get() {
+        return this.cache.getObject(this.nextKey());
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public Object readWriteGet() {
+        return this.cache.getObject(this.nextKey());
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public boolean readWriteAdd() {
+        return this.cache.add(this.nextKey(), this.value, 1);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean add() {
+        return this.cache.add(this.nextKey(), this.value, 1);
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.benchmarks;
+
+import gov.nasa.worldwind.Keys;
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.formats.geojson.*;
+import gov.nasa.worldwind.formats.shapefile.*;
+import gov.nasa.worldwind.layers.ogc.kml.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading Shapefile, GeoJSON and KML documents. Each document holds {@link #POLYGON_COUNT} polygons of
+ * {@link #POLYGON_SIZE} vertices, generated in memory so the benchmarks need no data files or network access.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParsingBenchmarks {
+    public static final int POLYGON_COUNT = 1000;
+    public static final int POLYGON_SIZE = 64;
+
+    protected double[][] polygons;
+    protected byte[] shp;
+    protected byte[] shx;
+    protected byte[] geoJSON;
+    protected byte[] kml;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        this.polygons = new double[POLYGON_COUNT][];
+        for (int i = 0; i < POLYGON_COUNT; i++) {
+            this.polygons[i] = ParsingBenchmarks.createPolygon(random);
+        }
+
+        this.writeShapefile();
+        this.geoJSON = this.createGeoJSON().getBytes(StandardCharsets.UTF_8);
+        this.kml = this.createKML().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates a closed ring of <code>POLYGON_SIZE</code> vertices around a random center.
+     *
+     * @param random the random number generator.
+     * @return the ring's coordinates as packed longitude, latitude pairs.
+     */
+    protected static double[] createPolygon(Random random) {
+        double lat = random.nextDouble() * 160 - 80;
+        double lon = random.nextDouble() * 350 - 175;
+        double[] coords = new double[2 * POLYGON_SIZE];
+
+        for (int i = 0; i < POLYGON_SIZE - 1; i++) {
+            double angle = -2 * Math.PI * i / (POLYGON_SIZE - 1); // clockwise, as shapefile outer rings are
+            double radius = 0.5 + 0.25 * random.nextDouble();
+            coords[2 * i] = lon + radius * Math.cos(angle);
+            coords[2 * i + 1] = lat + radius * Math.sin(angle);
+        }
+
+        coords[2 * POLYGON_SIZE - 2] = coords[0];
+        coords[2 * POLYGON_SIZE - 1] = coords[1];
+        return coords;
+    }
+
+    @Benchmark
+    public void readShapefile(Blackhole blackhole) {
+        KV params = new KVMap();
+        params.set(Keys.COORDINATE_SYSTEM, Keys.COORDINATE_SYSTEM_GEOGRAPHIC);
+        Shapefile shapefile = new Shapefile(new ByteArrayInputStream(this.shp), new ByteArrayInputStream(this.shx),
+            null, params);
+        try {
+            while (shapefile.hasNext()) {
+                blackhole.consume(shapefile.nextRecord());
+            }
+        }
+        finally {
+            shapefile.close();
+        }
+    }
+
+    @Benchmark
+    public GeoJSONBatch readGeoJSONBatch() {
+        return new GeoJSONStreamReader().read(new ByteArrayInputStream(this.geoJSON));
+    }
+
+    @Benchmark
+    public Object readGeoJSONDocument() throws Exception {
+        return new GeoJSONDoc(new ByteArrayInputStream(this.geoJSON)).getRoot();
+    }
+
+    @Benchmark
+    public KMLRoot readKML() throws Exception {
+        KMLRoot root = new KMLRoot(new ByteArrayInputStream(this.kml), KMLConstants.KML_MIME_TYPE);
+        return root.parse();
+    }
+
+    protected String createGeoJSON() {
+        StringBuilder sb = new StringBuilder("{\"type\":\"FeatureCollection\",\"features\":[");
+        for (int i = 0; i < POLYGON_COUNT; i++) {
+            if (i > 0)
+                sb.append(',');
+
+            sb.append("{\"type\":\"Feature\",\"properties\":{\"id\":").append(i);
+            sb.append("},\"geometry\":{\"type\":\"Polygon\",\"coordinates\":[[");
+            double[] coords = this.polygons[i];
+            for (int j = 0; j < coords.length; j += 2) {
+                if (j > 0)
+                    sb.append(',');
+                sb.append('[').append(coords[j]).append(',').append(coords[j + 1]).append(']');
+            }
+            sb.append("]]}}");
+        }
+        return sb.append("]}").toString();
+    }
+
+    protected String createKML() {
+        StringBuilder sb = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+        sb.append("<kml xmlns=\"http://www.opengis.net/kml/2.2\"><Document>");
+        for (int i = 0; i < POLYGON_COUNT; i++) {
+            sb.append("<Placemark><name>").append(i).append("</name>");
+            sb.append("<Polygon><outerBoundaryIs><LinearRing><coordinates>");
+            double[] coords = this.polygons[i];
+            for (int j = 0; j < coords.length; j += 2) {
+                sb.append(coords[j]).append(',').append(coords[j + 1]).append(",0 ");
+            }
+            sb.append("</coordinates></LinearRing></outerBoundaryIs></Polygon></Placemark>");
+        }
+        return sb.append("</Document></kml>").toString();
+    }
+
+    /**
+     * Writes the polygons as the main and index files of a polygon shapefile, following the ESRI Shapefile Technical
+     * Description.
+     */
+    protected void writeShapefile() {
+        int headerLength = 100;
+        int contentLength = 4 + 32 + 4 + 4 + 4 + 16 * POLYGON_SIZE; // type, box, parts, points, part index, points
+        int recordLength = 8 + contentLength;
+
+        ByteBuffer shp = ByteBuffer.allocate(headerLength + POLYGON_COUNT * recordLength);
+        ByteBuffer shx = ByteBuffer.allocate(headerLength + POLYGON_COUNT * 8);
+        ParsingBenchmarks.writeHeader(shp, shp.capacity());
+        ParsingBenchmarks.writeHeader(shx, shx.capacity());
+
+        for (int i = 0; i < POLYGON_COUNT; i++) {
+            shx.order(ByteOrder.BIG_ENDIAN);
+            shx.putInt(shp.position() / 2);
+            shx.putInt(contentLength / 2);
+
+            shp.order(ByteOrder.BIG_ENDIAN);
+            shp.putInt(i + 1);
+            shp.putInt(contentLength / 2);
+            shp.order(ByteOrder.LITTLE_ENDIAN);
+            shp.putInt(5); // polygon
+
+            double[] coords = this.polygons[i];
+            double[] box = ParsingBenchmarks.boundingBox(coords);
+            for (double d : box) {
+                shp.putDouble(d);
+            }
+
+            shp.putInt(1);
+            shp.putInt(POLYGON_SIZE);
+            shp.putInt(0);
+            for (double d : coords) {
+                shp.putDouble(d);
+            }
+        }
+
+        this.shp = shp.array();
+        this.shx = shx.array();
+    }
+
+    protected static void writeHeader(ByteBuffer buffer, int fileLength) {
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        buffer.putInt(9994);
+        buffer.position(24);
+        buffer.putInt(fileLength / 2);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(1000);
+        buffer.putInt(5); // polygon
+        buffer.putDouble(-180);
+        buffer.putDouble(-90);
+        buffer.putDouble(180);
+        buffer.putDouble(90);
+        buffer.position(100); // z and m ranges are unused
+    }
+
+    protected static double[] boundingBox(double[] coords) {
+        double[] box = {Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+        for (int j = 0; j < coords.length; j += 2) {
+            box[0] = Math.min(box[0], coords[j]);
+            box[1] = Math.min(box[1], coords[j + 1]);
+            box[2] = Math.max(box[2], coords[j]);
+            box[3] = Math.max(box[3], coords[j + 1]);
+        }
+        return box;
+    }
+}
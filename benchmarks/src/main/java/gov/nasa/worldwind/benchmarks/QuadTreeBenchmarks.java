@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.benchmarks;
+
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.util.BasicQuadTree;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Measures {@link BasicQuadTree} region and location queries, bulk loading, and searches running concurrently with
+ * writers. The tree holds {@link #ITEM_COUNT} small regions scattered over the globe.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuadTreeBenchmarks {
+    public static final int ITEM_COUNT = 50000;
+    public static final int NUM_LEVELS = 8;
+    public static final int QUERY_COUNT = 256;
+
+    protected List<Integer> items;
+    protected double[] coords;
+    protected BasicQuadTree<Integer> tree;
+    protected Sector[] regions;
+    protected LatLon[] locations;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        this.items = new ArrayList<>(ITEM_COUNT);
+        this.coords = new double[4 * ITEM_COUNT];
+
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            double lat = random.nextDouble() * 178 - 89;
+            double lon = random.nextDouble() * 358 - 179;
+            double size = random.nextDouble() * 0.5;
+            this.items.add(i);
+            this.coords[4 * i] = lat;
+            this.coords[4 * i + 1] = lat + size;
+            this.coords[4 * i + 2] = lon;
+            this.coords[4 * i + 3] = lon + size;
+        }
+
+        this.tree = new BasicQuadTree<>(NUM_LEVELS, Sector.FULL_SPHERE);
+        this.tree.addAll(this.items, this.coords, 4);
+
+        this.regions = new Sector[QUERY_COUNT];
+        this.locations = new LatLon[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            double lat = random.nextDouble() * 170 - 85;
+            double lon = random.nextDouble() * 350 - 175;
+            this.regions[i] = Sector.fromDegrees(lat, lat + 5, lon, lon + 5);
+            this.locations[i] = LatLon.fromDegrees(lat, lon);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERY_COUNT)
+    public int getItemsInRegion() {
+        int count = 0;
+        Set<Integer> result = new HashSet<>();
+        for (Sector region : this.regions) {
+            result.clear();
+            count += this.tree.getItemsInRegion(region, result).size();
+        }
+        return count;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERY_COUNT)
+    public int getItemsAtLocation() {
+        int count = 0;
+        Set<Integer> result = new HashSet<>();
+        for (LatLon location : this.locations) {
+            result.clear();
+            count += this.tree.getItemsAtLocation(location, result).size();
+        }
+        return count;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public BasicQuadTree<Integer> addAll() {
+        BasicQuadTree<Integer> tree = new BasicQuadTree<>(NUM_LEVELS, Sector.FULL_SPHERE);
+        tree.addAll(this.items, this.coords, 4);
+        return tree;
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public int readWriteSearch() {
+        Sector region = this.regions[ThreadLocalRandom.current().nextInt(QUERY_COUNT)];
+        return this.tree.getItemsInRegion(region, new HashSet<>()).size();
+    }
+
+    /**
+     * Removes a random item and adds it back at the same place, so the tree's contents are stable across iterations.
+     */
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public void readWriteUpdate() {
+        int i = ThreadLocalRandom.current().nextInt(ITEM_COUNT);
+        Integer item = this.items.get(i);
+        this.tree.remove(item);
+        this.tree.add(item, Arrays.copyOfRange(this.coords, 4 * i, 4 * i + 4));
+    }
+}
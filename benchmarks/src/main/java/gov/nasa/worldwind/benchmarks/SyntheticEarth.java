@@ -0,0 +1,19 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.benchmarks;
+
+import gov.nasa.worldwind.globes.*;
+
+/**
+ * A WGS84 globe whose elevations come from a {@link SyntheticElevationModel}. The benchmarks' configuration names this
+ * class as the default globe, so loading the configuration does not retrieve the default Earth's elevations from a
+ * WMS server.
+ */
+public class SyntheticEarth extends EllipsoidalGlobe {
+    public SyntheticEarth() {
+        super(Earth.WGS84_EQUATORIAL_RADIUS, Earth.WGS84_POLAR_RADIUS, Earth.WGS84_ES, new SyntheticElevationModel());
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.benchmarks;
+
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.terrain.ZeroElevationModel;
+
+import java.util.List;
+
+/**
+ * An elevation model computing rolling terrain from a sum of sinusoids, so benchmarks can build terrain without
+ * elevation data or network access.
+ */
+public class SyntheticElevationModel extends ZeroElevationModel {
+    public static final double AMPLITUDE = 2000;
+
+    public SyntheticElevationModel() {
+    }
+
+    protected static double elevation(double latRadians, double lonRadians) {
+        return AMPLITUDE * (1 + Math.sin(40 * latRadians) * Math.cos(60 * lonRadians)
+            + 0.25 * Math.sin(400 * latRadians + 300 * lonRadians));
+    }
+
+    @Override
+    public double getMaxElevation() {
+        return 2.25 * AMPLITUDE;
+    }
+
+    @Override
+    public double getMinElevation() {
+        return -0.25 * AMPLITUDE;
+    }
+
+    @Override
+    public double[] getExtremeElevations(Angle latitude, Angle longitude) {
+        return new double[] {this.getMinElevation(), this.getMaxElevation()};
+    }
+
+    @Override
+    public double[] getExtremeElevations(Sector sector) {
+        return new double[] {this.getMinElevation(), this.getMaxElevation()};
+    }
+
+    @Override
+    public double getUnmappedElevation(Angle latitude, Angle longitude) {
+        return SyntheticElevationModel.elevation(latitude.radians(), longitude.radians());
+    }
+
+    @Override
+    public double getElevations(Sector sector, List<? extends LatLon> latlons, double targetResolution,
+        double[] buffer) {
+        for (int i = 0; i < latlons.size(); i++) {
+            LatLon ll = latlons.get(i);
+            buffer[i] = SyntheticElevationModel.elevation(Math.toRadians(ll.lat), Math.toRadians(ll.lon));
+        }
+
+        return targetResolution;
+    }
+}
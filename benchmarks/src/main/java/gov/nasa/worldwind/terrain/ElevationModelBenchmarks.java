@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.Keys;
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.util.*;
+import gov.nasa.worldwind.util.Level;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ShortBuffer;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link BasicElevationModel} lookups against tiles held in its memory cache: single location lookups, as
+ * performed by picking and placemarks, and the bulk lookups performed when building terrain tiles. The model's tiles
+ * are generated in memory before the benchmarks run, so no elevation data is read or retrieved. This class is in the
+ * terrain package because the model's tiles and memory cache are protected.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ElevationModelBenchmarks {
+    public static final Sector SECTOR = Sector.fromDegrees(30, 32, -120, -118);
+    public static final int NUM_LEVELS = 3;
+    public static final int TILE_SIZE = 150;
+    public static final int LOCATION_COUNT = 1024;
+    /**
+     * The number of locations on a side of a bulk lookup's grid, the grid of a terrain tile with skirts.
+     */
+    public static final int GRID_SIZE = RectangularTessellator.DEFAULT_DENSITY + 3;
+
+    protected BasicElevationModel model;
+    protected Angle[] latitudes;
+    protected Angle[] longitudes;
+    protected Sector gridSector;
+    protected List<LatLon> grid;
+    protected double[] gridElevations;
+    protected double gridResolution;
+
+    @Setup
+    public void setUp() {
+        KV params = new KVMap();
+        params.set(Keys.SECTOR, SECTOR);
+        params.set(Keys.LEVEL_ZERO_TILE_DELTA, LatLon.fromDegrees(1, 1));
+        params.set(Keys.NUM_LEVELS, NUM_LEVELS);
+        params.set(Keys.TILE_WIDTH, TILE_SIZE);
+        params.set(Keys.TILE_HEIGHT, TILE_SIZE);
+        params.set(Keys.DATA_CACHE_NAME, "Benchmarks/SyntheticElevations");
+        params.set(Keys.DATASET_NAME, "SyntheticElevations");
+        params.set(Keys.FORMAT_SUFFIX, ".bil");
+        params.set(Keys.NETWORK_RETRIEVAL_ENABLED, false);
+        params.set(Keys.ELEVATION_MIN, -500.0);
+        params.set(Keys.ELEVATION_MAX, 4500.0);
+
+        this.model = new BasicElevationModel(params);
+        for (int level = 0; level < NUM_LEVELS; level++) {
+            this.loadLevel(level);
+        }
+
+        Random random = new Random(1);
+        this.latitudes = new Angle[LOCATION_COUNT];
+        this.longitudes = new Angle[LOCATION_COUNT];
+        for (int i = 0; i < LOCATION_COUNT; i++) {
+            this.latitudes[i] = new Angle(30.01 + 1.98 * random.nextDouble());
+            this.longitudes[i] = new Angle(-119.99 + 1.98 * random.nextDouble());
+        }
+
+        // The grid of a level 8 terrain tile, queried at the model's best resolution.
+        double delta = 0.2;
+        this.gridSector = Sector.fromDegrees(30.9, 30.9 + delta, -119.1, -119.1 + delta);
+        this.grid = new ArrayList<>(GRID_SIZE * GRID_SIZE);
+        for (int j = 0; j < GRID_SIZE; j++) {
+            for (int i = 0; i < GRID_SIZE; i++) {
+                this.grid.add(LatLon.fromDegrees(30.9 + delta * j / (GRID_SIZE - 1),
+                    -119.1 + delta * i / (GRID_SIZE - 1)));
+            }
+        }
+        this.gridElevations = new double[this.grid.size()];
+        this.gridResolution = this.model.getBestResolution(this.gridSector);
+    }
+
+    /**
+     * Adds every tile of a level that intersects the model's sector to the model's memory cache.
+     *
+     * @param levelNumber the level number.
+     */
+    protected void loadLevel(int levelNumber) {
+        LevelSet levels = this.model.getLevels();
+        Level level = levels.getLevel(levelNumber);
+        LatLon delta = level.getTileDelta();
+        int firstRow = Tile.computeRow(delta.lat, SECTOR.latMin, levels.tileOrigin.lat);
+        int lastRow = Tile.computeRow(delta.lat, SECTOR.latMax, levels.tileOrigin.lat);
+        int firstCol = Tile.computeColumn(delta.lon, SECTOR.lonMin, levels.tileOrigin.lon);
+        int lastCol = Tile.computeColumn(delta.lon, SECTOR.lonMax, levels.tileOrigin.lon);
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                TileKey key = new TileKey(levelNumber, row, col, level.getCacheName());
+                BasicElevationModel.ElevationTile tile = this.model.createTile(key);
+                BufferWrapper elevations = ElevationModelBenchmarks.createElevations(tile.sector);
+                tile.setElevations(elevations, this.model);
+                this.model.memoryCache.add(key, tile, elevations.getSizeInBytes());
+            }
+        }
+    }
+
+    protected static BufferWrapper createElevations(Sector sector) {
+        ShortBuffer buffer = ShortBuffer.allocate(TILE_SIZE * TILE_SIZE);
+        for (int j = 0; j < TILE_SIZE; j++) {
+            // Rows are ordered from north to south.
+            double lat = Math.toRadians(sector.latMax - sector.latDelta * j / (TILE_SIZE - 1));
+            for (int i = 0; i < TILE_SIZE; i++) {
+                double lon = Math.toRadians(sector.lonMin + sector.lonDelta * i / (TILE_SIZE - 1));
+                buffer.put((short) (2000 + 1000 * Math.sin(400 * lat) * Math.cos(300 * lon)));
+            }
+        }
+        buffer.rewind();
+        return new BufferWrapper.ShortBufferWrapper(buffer);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOCATION_COUNT)
+    public double getElevation() {
+        double sum = 0;
+        for (int i = 0; i < LOCATION_COUNT; i++) {
+            sum += this.model.getUnmappedElevation(this.latitudes[i], this.longitudes[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double[] getElevations() {
+        this.model.getElevations(this.gridSector, this.grid, this.gridResolution, this.gridElevations);
+        return this.gridElevations;
+    }
+}
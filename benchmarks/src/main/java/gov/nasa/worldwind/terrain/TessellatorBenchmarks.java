@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.BasicModel;
+import gov.nasa.worldwind.benchmarks.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.Globe;
+import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.video.LayerList;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link RectangularTessellator} tile building: querying a tile's elevations and computing its vertices. The
+ * globe uses a {@link SyntheticElevationModel} and the draw context has no OpenGL context, so only the CPU side of
+ * tessellation is measured. This class is in the terrain package because tiles are protected members of the
+ * tessellator.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TessellatorBenchmarks {
+    /**
+     * The number of tiles on a side of the square of tiles built at {@link DetailTiles#level}.
+     */
+    public static final int TILES_PER_SIDE = 4;
+
+    protected DrawContextImpl dc;
+    protected RectangularTessellator tessellator;
+    protected List<RectangularTessellator.RectTile> topLevelTiles;
+
+    @Setup
+    public void setUp() {
+        Globe globe = new SyntheticEarth();
+
+        this.dc = new DrawContextImpl();
+        this.dc.setModel(new BasicModel(globe, new LayerList()));
+        this.dc.setVerticalExaggeration(1);
+        this.dc.setGLRuntimeCapabilities(new GLRuntimeCapabilities());
+
+        this.tessellator = new RectangularTessellator();
+        this.topLevelTiles = this.tessellator.createTopLevelTiles(this.dc);
+    }
+
+    /**
+     * A square of tiles at one level, as the tessellator would select when looking down at them.
+     */
+    @State(Scope.Thread)
+    public static class DetailTiles {
+        @Param({"4", "10"})
+        public int level;
+
+        protected List<RectangularTessellator.RectTile> tiles;
+
+        @Setup
+        public void setUp(TessellatorBenchmarks benchmarks) {
+            double delta = 180.0 / RectangularTessellator.DEFAULT_NUM_LAT_SUBDIVISIONS / (1 << this.level);
+            this.tiles = new ArrayList<>();
+            for (int row = 0; row < TILES_PER_SIDE; row++) {
+                for (int col = 0; col < TILES_PER_SIDE; col++) {
+                    Sector sector = Sector.fromDegrees(30 + row * delta, 30 + (row + 1) * delta, -120 + col * delta,
+                        -120 + (col + 1) * delta);
+                    this.tiles.add(benchmarks.tessellator.createTile(benchmarks.dc, sector, this.level));
+                }
+            }
+        }
+    }
+
+    protected void buildTiles(List<RectangularTessellator.RectTile> tiles, Blackhole blackhole) {
+        for (RectangularTessellator.RectTile tile : tiles) {
+            tile.ri = null; // build new vertices rather than updating the previous invocation's
+            blackhole.consume(this.tessellator.buildVerts(this.dc, tile, true));
+        }
+    }
+
+    @Benchmark
+    public void buildTopLevelTiles(Blackhole blackhole) {
+        this.buildTiles(this.topLevelTiles, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TILES_PER_SIDE * TILES_PER_SIDE)
+    public void buildTile(DetailTiles detailTiles, Blackhole blackhole) {
+        this.buildTiles(detailTiles.tiles, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TILES_PER_SIDE * TILES_PER_SIDE)
+    public void createTile(DetailTiles detailTiles, Blackhole blackhole) {
+        for (RectangularTessellator.RectTile tile : detailTiles.tiles) {
+            blackhole.consume(this.tessellator.createTile(this.dc, tile.sector, detailTiles.level));
+        }
+    }
+}
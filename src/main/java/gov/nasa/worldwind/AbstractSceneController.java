@@ -14,6 +14,7 @@ import gov.nasa.worldwind.pick.*;
 import gov.nasa.worldwind.render.*;
 import gov.nasa.worldwind.terrain.*;
 import gov.nasa.worldwind.util.*;
+import gov.nasa.worldwind.util.instrument.*;
 
 import java.awt.*;
 import java.util.List;
@@ -49,6 +50,15 @@ public abstract class AbstractSceneController extends WWObjectImpl implements Sc
      * keeping a reference to it does not leak memory.
      */
     protected final SurfaceObjectTileBuilder surfaceObjectTileBuilder = new SurfaceObjectTileBuilder();
+    /**
+     * Records per-layer timings and per-frame allocation and GPU upload measurements for instrumentation.
+     */
+    protected final FrameRecorder frameRecorder = new FrameRecorder();
+    /**
+     * The measurements of this controller's most recent frame, or <code>null</code> if instrumentation was disabled
+     * during that frame.
+     */
+    protected FrameSnapshot lastFrame;
     public boolean pickDeep;
     protected Model model;
     protected View view;
@@ -166,12 +176,19 @@ public abstract class AbstractSceneController extends WWObjectImpl implements Sc
     }
 
     protected static void pickLayers(DrawContext dc) {
+        AbstractSceneController.pickLayers(dc, null);
+    }
+
+    protected static void pickLayers(DrawContext dc, FrameRecorder recorder) {
         if (dc.getLayers() != null) {
             for (Layer layer : dc.getLayers()) {
                 try {
                     if (layer != null && layer.isPickEnabled()) {
                         dc.setCurrentLayer(layer);
+                        long start = recorder != null ? recorder.start() : 0;
                         layer.pick(dc, dc.getPickPoint());
+                        if (recorder != null)
+                            recorder.record(layer, FrameRecorder.Phase.PICK, start);
                     }
                 }
                 catch (RuntimeException e) {
@@ -411,6 +428,18 @@ public abstract class AbstractSceneController extends WWObjectImpl implements Sc
         return this.beforePaint;
     }
 
+    /**
+     * Returns the measurements of this controller's most recent frame. Unlike {@link
+     * gov.nasa.worldwind.util.instrument.Instrumentation#getLastFrame()}, the result is not affected by frames rendered
+     * by other scene controllers.
+     *
+     * @return the most recent frame's measurements, or <code>null</code> if instrumentation was disabled during that
+     * frame.
+     */
+    public FrameSnapshot getLastFrame() {
+        return this.lastFrame;
+    }
+
     public void setPerFrameStatisticsKeys(Set<String> keys) {
         this.perFrameStatisticsKeys.clear();
         if (keys == null)
@@ -484,7 +513,9 @@ public abstract class AbstractSceneController extends WWObjectImpl implements Sc
         this.renderingExceptions.clear(); // Clear the rendering exceptions accumulated during the last frame.
         this.glRuntimeCaps.initialize(GLContext.getCurrent());
         this.initializeDrawContext(this.dc);
+        this.frameRecorder.beginFrame();
         this.doRepaint(this.dc);
+        this.lastFrame = this.frameRecorder.endFrame();
 
         ++this.frame;
         long afterPaint = System.nanoTime();
@@ -521,6 +552,25 @@ public abstract class AbstractSceneController extends WWObjectImpl implements Sc
             this.dc.setPerFrameStatistic(PerformanceStatistic.JVM_HEAP_USED,
                 "JVM used memory (Kb)", (totalMemory - Runtime.getRuntime().freeMemory()) / 1000);
         }
+
+        if (this.lastFrame != null) {
+            if (perfKeys.contains(PerformanceStatistic.LAYER_TIME) || perfKeys.contains(PerformanceStatistic.ALL)) {
+                for (LayerTiming timing : this.lastFrame.getLayerTimings()) {
+                    this.dc.setPerFrameStatistic(PerformanceStatistic.LAYER_TIME,
+                        "Layer Time (us): " + timing.getLayerName(), timing.getTotalNanos() / 1000);
+                }
+            }
+
+            if (perfKeys.contains(PerformanceStatistic.FRAME_ALLOCATION) || perfKeys.contains(PerformanceStatistic.ALL)) {
+                this.dc.setPerFrameStatistic(PerformanceStatistic.FRAME_ALLOCATION,
+                    "Frame Allocation (Kb)", this.lastFrame.getAllocatedBytes() / 1000);
+            }
+
+            if (perfKeys.contains(PerformanceStatistic.GPU_UPLOAD) || perfKeys.contains(PerformanceStatistic.ALL)) {
+                this.dc.setPerFrameStatistic(PerformanceStatistic.GPU_UPLOAD,
+                    "GPU Upload (Kb)", this.lastFrame.getGpuUploadBytes() / 1000);
+            }
+        }
     }
 
     abstract protected void doRepaint(DrawContext dc);
@@ -559,7 +609,9 @@ public abstract class AbstractSceneController extends WWObjectImpl implements Sc
         if (dc.getLayers() != null) {
             for (Layer layer : dc.getLayers()) {
                 dc.setCurrentLayer(layer);
+                long start = this.frameRecorder.start();
                 layer.preRender(dc);
+                this.frameRecorder.record(layer, FrameRecorder.Phase.PRE_RENDER, start);
             }
 
             dc.setCurrentLayer(null);
@@ -696,7 +748,7 @@ public abstract class AbstractSceneController extends WWObjectImpl implements Sc
             return;
 
         // Pick against the layers.
-        AbstractSceneController.pickLayers(dc);
+        AbstractSceneController.pickLayers(dc, this.frameRecorder);
 
         // Pick against the deferred/ordered surface renderables.
         AbstractSceneController.pickOrderedSurfaceRenderables(dc);
@@ -744,7 +796,9 @@ public abstract class AbstractSceneController extends WWObjectImpl implements Sc
 //                    try {
 //                        if (layer != null) {
                 dc.setCurrentLayer(layer);
+                long start = this.frameRecorder.start();
                 layer.render(dc);
+                this.frameRecorder.record(layer, FrameRecorder.Phase.RENDER, start);
 //                        }
 //                    }
 //                    catch (Exception e) {
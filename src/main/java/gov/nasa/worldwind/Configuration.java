@@ -299,7 +299,9 @@ public class Configuration // Singleton
         // specified there precedence.
         Configuration.initializeCustom();
 
-        globe = new Earth();
+        // Create the globe named by the configuration. The default Earth retrieves its elevations' capabilities from a
+        // WMS server, so applications that must not contact the server name another globe in their configuration.
+        globe = (Globe) WorldWind.create(Configuration.getStringValue(Keys.GLOBE_CLASS_NAME, Earth.class.getName()));
     }
 
     /**
@@ -57,6 +57,7 @@ public interface Keys // TODO: Eliminate unused constants, if any
 
     String CLOCKWISE = "gov.nasa.worldwind.avkey.ClockWise";
     String CLOSE = "gov.nasa.worldwind.avkey.Close";
+    String COLLADA_MESH_CACHE_SIZE = "gov.nasa.worldwind.avkey.ColladaMeshCacheSize";
     String COLOR = "gov.nasa.worldwind.avkey.Color";
     String COMPRESS_TEXTURES = "gov.nasa.worldwind.avkey.CompressTextures";
     String CONSTRUCTION_PARAMETERS = "gov.nasa.worldwind.avkey.ConstructionParameters";
@@ -158,6 +159,8 @@ public interface Keys // TODO: Eliminate unused constants, if any
     String GET_COVERAGE_URL = "gov.nasa.worldwind.avkey.GetCoverageURL";
     String GET_MAP_URL = "gov.nasa.worldwind.avkey.GetMapURL";
     String GEOGRAPHIC_PROJECTION_CLASS_NAME = "gov.nasa.worldwind.globes.GeographicProjectionClassName";
+    String GEOTIFF_BLOCK_CACHE_SIZE = "gov.nasa.worldwind.avkey.GeotiffBlockCacheSize";
+    String GEOMETRY_REGENERATION_BUDGET = "gov.nasa.worldwind.avkey.GeometryRegenerationBudget";
     String GLOBE = "gov.nasa.worldwind.avkey.GlobeObject";
     String GLOBE_CLASS_NAME = "gov.nasa.worldwind.avkey.GlobeClassName";
     String GRAYSCALE = "gov.nasa.worldwind.avkey.Grayscale";
@@ -189,6 +192,8 @@ public interface Keys // TODO: Eliminate unused constants, if any
     String INITIAL_PITCH = "gov.nasa.worldwind.avkey.InitialPitch";
     String INPUT_HANDLER_CLASS_NAME = "gov.nasa.worldwind.avkey.InputHandlerClassName";
     String INSET_PIXELS = "gov.nasa.worldwind.avkey.InsetPixels";
+    String INSTRUMENTATION_ENABLED = "gov.nasa.worldwind.avkey.InstrumentationEnabled";
+    String INSTRUMENTATION_MBEAN_ENABLED = "gov.nasa.worldwind.avkey.InstrumentationMBeanEnabled";
     String INT8 = "gov.nasa.worldwind.avkey.Int8";
     String INT16 = "gov.nasa.worldwind.avkey.Int16";
     String INT32 = "gov.nasa.worldwind.avkey.Int32";
@@ -375,6 +380,9 @@ public interface Keys // TODO: Eliminate unused constants, if any
     String RETRIEVE_PROPERTIES_FROM_SERVICE = "gov.nasa.worldwind.avkey.RetrievePropertiesFromService";
     String RETRIEVAL_QUEUE_SIZE = "gov.nasa.worldwind.avkey.RetrievalQueueSize";
     String RETRIEVAL_QUEUE_STALE_REQUEST_LIMIT = "gov.nasa.worldwind.avkey.RetrievalStaleRequestLimit";
+    String RPF_SUBFRAME_CACHE_SIZE = "gov.nasa.worldwind.avkey.RPFSubframeCacheSize";
+    String VPF_TABLE_CACHE_SIZE = "gov.nasa.worldwind.avkey.VPFTableCacheSize";
+    String VPF_TILE_CACHE_SIZE = "gov.nasa.worldwind.avkey.VPFTileCacheSize";
     String RETRIEVAL_SERVICE_CLASS_NAME = "gov.nasa.worldwind.avkey.RetrievalServiceClassName";
     String RETRIEVER_FACTORY_LOCAL = "gov.nasa.worldwind.avkey.RetrieverFactoryLocal";
 String RETRIEVER_STATE = "gov.nasa.worldwind.avkey.RetrieverState";
@@ -441,6 +449,7 @@ String RETRIEVER_STATE = "gov.nasa.worldwind.avkey.RetrieverState";
     String STYLE_NAMES = "gov.nasa.worldwind.avkey.StyleNames";
     String SURFACE_TILE_DRAW_CONTEXT = "gov.nasa.worldwind.avkey.SurfaceTileDrawContext";
 
+    String SYMBOL_ICON_CACHE_SIZE = "gov.nasa.worldwind.avkey.SymbolIconCacheSize";
     String TESSELLATOR_CLASS_NAME = "gov.nasa.worldwind.avkey.TessellatorClassName";
     String TEXTURE = "gov.nasa.worldwind.avkey.Texture";
     String TEXTURE_CACHE_SIZE = "gov.nasa.worldwind.avkey.TextureCacheSize";
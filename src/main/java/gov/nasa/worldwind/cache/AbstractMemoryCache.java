@@ -1,13 +1,19 @@
 package gov.nasa.worldwind.cache;
 
+import gov.nasa.worldwind.util.instrument.CacheCounters;
+
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.*;
 
 abstract public class AbstractMemoryCache implements MemoryCache {
     protected final CopyOnWriteArrayList<CacheListener> listeners;
     protected final AtomicLong capacity = new AtomicLong();
     protected final AtomicLong currentUsedCapacity = new AtomicLong();
     protected final Object lock = new Object();
+    // Lookup and eviction counters, reported by gov.nasa.worldwind.util.instrument.Instrumentation
+    protected final LongAdder hitCount = new LongAdder();
+    protected final LongAdder missCount = new LongAdder();
+    protected final LongAdder evictionCount = new LongAdder();
     protected String name = "";
 
     public AbstractMemoryCache(long capacity) {
@@ -54,6 +60,37 @@ abstract public class AbstractMemoryCache implements MemoryCache {
         return name;
     }
 
+    /**
+     * @return the number of <code>getObject</code> calls that found their object in the cache.
+     */
+    public long getHitCount() {
+        return this.hitCount.sum();
+    }
+
+    /**
+     * @return the number of <code>getObject</code> calls that did not find their object in the cache.
+     */
+    public long getMissCount() {
+        return this.missCount.sum();
+    }
+
+    /**
+     * @return the number of objects removed from the cache to make room for others or to free memory.
+     */
+    public long getEvictionCount() {
+        return this.evictionCount.sum();
+    }
+
+    /**
+     * Returns a snapshot of this cache's lookup and eviction counters.
+     *
+     * @return the cache's counters.
+     */
+    public CacheCounters getCounters() {
+        return new CacheCounters(this.getName(), this.getHitCount(), this.getMissCount(), this.getEvictionCount(),
+            this.getNumObjects(), this.getUsedCapacity());
+    }
+
     public void setName(String name) {
         this.name = name != null ? name : "";
     }
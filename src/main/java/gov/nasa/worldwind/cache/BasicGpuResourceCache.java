@@ -9,6 +9,7 @@ package gov.nasa.worldwind.cache;
 import com.jogamp.opengl.*;
 import com.jogamp.opengl.util.texture.Texture;
 import gov.nasa.worldwind.util.Logging;
+import gov.nasa.worldwind.util.instrument.Instrumentation;
 
 import java.util.logging.Level;
 
@@ -108,11 +109,13 @@ public class BasicGpuResourceCache implements GpuResourceCache {
     public void put(Object key, Texture texture) {
         CacheEntry te = BasicGpuResourceCache.createCacheEntry(texture, GpuResourceCache.TEXTURE);
         this.cache.add(key, te);
+        Instrumentation.recordGpuUpload(te.resourceSize);
     }
 
     public void put(Object key, Object resource, String resourceType, long size) {
         CacheEntry te = BasicGpuResourceCache.createCacheEntry(resource, resourceType, size);
         this.cache.add(key, te);
+        Instrumentation.recordGpuUpload(size);
     }
 
     public Object get(Object key) {
@@ -136,8 +136,12 @@ public class BasicMemoryCache extends AbstractMemoryCache {
 
         entry = this.entries.get(key);
 
-        if (entry == null)
+        if (entry == null) {
+            this.missCount.increment();
             return null;
+        }
+
+        this.hitCount.increment();
 
         entry.lastUsed = System.nanoTime(); // nanoTime overflows once every 292 years
         // which will result in a slowing of the cache
@@ -199,6 +203,7 @@ public class BasicMemoryCache extends AbstractMemoryCache {
         while (this.getFreeCapacity() < spaceRequired || this.getUsedCapacity() > this.lowWater) {
             if (i < timeOrderedEntries.length) {
                 this.removeEntry(timeOrderedEntries[i++]);
+                this.evictionCount.increment();
             }
         }
     }
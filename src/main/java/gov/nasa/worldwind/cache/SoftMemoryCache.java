@@ -10,12 +10,7 @@ public class SoftMemoryCache extends AbstractMemoryCache
     final Cache<Object, CacheEntry> cache;
 
     public SoftMemoryCache() {
-        super(Long.MAX_VALUE);
-
-        cache = Caffeine.newBuilder().softValues()
-            .removalListener(this)
-            .executor(MoreExecutors.directExecutor())
-            .build();
+        this(Long.MAX_VALUE);
     }
 
     public SoftMemoryCache(String name) {
@@ -23,16 +18,80 @@ public class SoftMemoryCache extends AbstractMemoryCache
         setName(name);
     }
 
+    /**
+     * Creates a cache whose entries' sizes total at most a specified capacity. When an entry would exceed the capacity,
+     * the entries least likely to be used again are evicted. Entries may also be collected earlier, when memory is low.
+     *
+     * @param capacity the capacity of the cache, in the units of the sizes passed to {@link #add(Object, Object,
+     *                 long)}. A capacity of <code>Long.MAX_VALUE</code> does not bound the cache.
+     */
+    public SoftMemoryCache(long capacity) {
+        this(capacity, true);
+    }
+
+    /**
+     * Creates a cache whose entries' sizes total at most a specified capacity, optionally holding its entries
+     * strongly. A cache of strongly held entries evicts them only to stay within its capacity, or when they are
+     * removed, so its listeners are notified of every entry leaving the cache. Caches of objects that must be disposed
+     * should hold their entries strongly.
+     *
+     * @param capacity   the capacity of the cache, in the units of the sizes passed to {@link #add(Object, Object,
+     *                   long)}. A capacity of <code>Long.MAX_VALUE</code> does not bound the cache.
+     * @param softValues true to let the garbage collector collect entries when memory is low, otherwise false.
+     */
+    public SoftMemoryCache(long capacity, boolean softValues) {
+        super(capacity);
+
+        Caffeine<Object, Object> builder = Caffeine.newBuilder();
+        if (softValues)
+            builder = builder.softValues();
+        if (capacity == Long.MAX_VALUE) {
+            cache = builder
+                .removalListener(this)
+                .executor(MoreExecutors.directExecutor())
+                .build();
+        }
+        else {
+            cache = builder
+                .maximumWeight(capacity)
+                .weigher((Object key, CacheEntry entry) -> (int) Math.min(entry.clientObjectSize, Integer.MAX_VALUE))
+                .removalListener(this)
+                .executor(MoreExecutors.directExecutor())
+                .build();
+        }
+    }
+
+    public SoftMemoryCache(String name, long capacity) {
+        this(capacity);
+        setName(name);
+    }
+
+    @Override
+    public void setCapacity(long newCapacity) {
+        super.setCapacity(newCapacity);
+        cache.policy().eviction().ifPresent(eviction -> eviction.setMaximum(newCapacity));
+    }
+
+    /**
+     * @return the sum of the sizes of the cache's entries if the cache has a capacity, otherwise 0.
+     */
+    @Override
+    public long getUsedCapacity() {
+        return cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L);
+    }
+
     @Override
     public boolean contains(Object key) {
         return cache.asMap().containsKey(key);
     }
 
+    /**
+     * Adds an object to the cache, replacing any object already cached under the same key. Listeners are notified of
+     * the replaced object, unless the same object is added again.
+     */
     @Override
     public boolean add(Object key, Object clientObject, long objectSize) {
-
-        CacheEntry e = cache.get(key, k -> new CacheEntry(k, clientObject, objectSize));
-
+        cache.put(key, new CacheEntry(key, clientObject, objectSize));
         return true;
     }
 
@@ -44,7 +103,13 @@ public class SoftMemoryCache extends AbstractMemoryCache
     @Override
     public Object getObject(Object key) {
         final CacheEntry e = cache.getIfPresent(key);
-        return e != null ? e.clientObject : null;
+        if (e == null) {
+            missCount.increment();
+            return null;
+        }
+
+        hitCount.increment();
+        return e.clientObject;
     }
 
     @Override
@@ -60,8 +125,20 @@ public class SoftMemoryCache extends AbstractMemoryCache
     @Override
     public void onRemoval(@Nullable Object key, @Nullable CacheEntry value, RemovalCause cause) {
 
-        if (!listeners.isEmpty()) {
-            listeners.forEach(l -> l.entryRemoved(key, value));
+        if (cause.wasEvicted()) {
+            evictionCount.increment();
+        }
+
+        // An object added again under its own key is still in the cache.
+        if (cause == RemovalCause.REPLACED && value != null) {
+            CacheEntry current = cache.getIfPresent(key);
+            if (current != null && current.clientObject == value.clientObject)
+                return;
+        }
+
+        // Values collected by the garbage collector are no longer available to the listeners.
+        if (value != null && !listeners.isEmpty()) {
+            listeners.forEach(l -> l.entryRemoved(key, value.clientObject));
         }
     }
 }
\ No newline at end of file
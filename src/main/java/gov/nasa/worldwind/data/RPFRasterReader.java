@@ -32,8 +32,10 @@ public class RPFRasterReader extends AbstractDataRasterReader {
         File file = (File) source;
         RPFImageFile rpfFile = RPFImageFile.load(file);
 
-        BufferedImage image = rpfFile.getBufferedImage();
-        image = ImageUtil.toCompatibleImage(image);
+        BufferedImage frameImage = rpfFile.getPooledBufferedImage();
+        BufferedImage image = ImageUtil.toCompatibleImage(frameImage);
+        if (image != frameImage)
+            RPFImageFile.releaseBufferedImage(frameImage); // The raster holds a compatible copy of the frame image.
 
         // If the data source doesn't already have all the necessary metadata, then we attempt to read the metadata.
         Object o = (params != null) ? params.get(Keys.SECTOR) : null;
@@ -51,13 +53,20 @@ public class RPFRasterReader extends AbstractDataRasterReader {
         File file = (File) source;
         RPFImageFile rpfFile = RPFImageFile.load(file);
 
-        BufferedImage image = rpfFile.getBufferedImage();
+        BufferedImage image = rpfFile.getPooledBufferedImage();
 
         // This is a polar image. We must project it's raster and bounding sector into Geographic/WGS84.
         RPFDataSeries ds = RPFDataSeries.dataSeriesFor(filename.getDataSeriesCode());
         RPFFrameTransform tx = RPFFrameTransform.createFrameTransform(filename.getZoneCode(),
             ds.rpfDataType, ds.scaleOrGSD);
-        RPFFrameTransform.RPFImage[] images = tx.deproject(filename.getFrameNumber(), image);
+        RPFFrameTransform.RPFImage[] images;
+        try {
+            images = tx.deproject(filename.getFrameNumber(), image);
+        }
+        finally {
+            // Polar deprojection resamples the frame into new images.
+            RPFImageFile.releaseBufferedImage(image);
+        }
 
         DataRaster[] rasters = new DataRaster[images.length];
         for (int i = 0; i < images.length; i++) {
@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.formats.geojson;
+
+import com.jogamp.common.nio.Buffers;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.util.*;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+
+/**
+ * Holds the geometry of many GeoJSON features in columnar form, one {@link VecBufferSequence} per geometry type. Each
+ * Point or MultiPoint is a sub-buffer of the point sequence, each LineString and each line of a MultiLineString is a
+ * sub-buffer of the line sequence, and each polygon ring is a sub-buffer of the polygon sequence. Polygon rings are
+ * grouped into polygons by {@link #getPolygonRingGroups()}, in the form used by {@link
+ * gov.nasa.worldwind.render.SurfacePolygons}.
+ * <p>
+ * Coordinates are stored as longitude, latitude pairs in degrees. Altitudes and feature properties are not kept. A
+ * batch is filled by {@link GeoJSONStreamReader} and is not safe for concurrent modification.
+ */
+public class GeoJSONBatch {
+    protected static final int INITIAL_CAPACITY = 1024;
+
+    protected final VecBufferSequence points = GeoJSONBatch.createSequence();
+    protected final VecBufferSequence lines = GeoJSONBatch.createSequence();
+    protected final VecBufferSequence polygons = GeoJSONBatch.createSequence();
+    protected int[] ringGroups = new int[16];
+    protected int numRingGroups;
+    protected int shapeCount;
+    // The bounds of each geometry type as minLat, maxLat, minLon, maxLon, in degrees.
+    protected final double[] pointBounds = GeoJSONBatch.emptyBounds();
+    protected final double[] lineBounds = GeoJSONBatch.emptyBounds();
+    protected final double[] polygonBounds = GeoJSONBatch.emptyBounds();
+
+    public GeoJSONBatch() {
+    }
+
+    protected static VecBufferSequence createSequence() {
+        DoubleBuffer buffer = Buffers.newDirectDoubleBuffer(2 * INITIAL_CAPACITY);
+        return new VecBufferSequence(new VecBuffer(2, new BufferWrapper.DoubleBufferWrapper(buffer)));
+    }
+
+    protected static double[] emptyBounds() {
+        return new double[] {Double.MAX_VALUE, -Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE};
+    }
+
+    protected static Sector toSector(double[] bounds) {
+        return bounds[0] <= bounds[1] ? Sector.fromDegrees(bounds) : null;
+    }
+
+    /**
+     * Returns the point geometry, one sub-buffer per Point or MultiPoint.
+     *
+     * @return the point sequence.
+     */
+    public VecBufferSequence getPoints() {
+        return this.points;
+    }
+
+    /**
+     * Returns the line geometry, one sub-buffer per line.
+     *
+     * @return the line sequence.
+     */
+    public VecBufferSequence getLines() {
+        return this.lines;
+    }
+
+    /**
+     * Returns the polygon geometry, one sub-buffer per ring.
+     *
+     * @return the polygon ring sequence.
+     */
+    public VecBufferSequence getPolygons() {
+        return this.polygons;
+    }
+
+    /**
+     * Returns the index of each polygon's first ring in the polygon sequence.
+     *
+     * @return a copy of the polygon ring groups.
+     */
+    public int[] getPolygonRingGroups() {
+        return Arrays.copyOf(this.ringGroups, this.numRingGroups);
+    }
+
+    /**
+     * Returns the sector bounding the point geometry.
+     *
+     * @return the bounding sector, or null if the batch has no points.
+     */
+    public Sector getPointSector() {
+        return GeoJSONBatch.toSector(this.pointBounds);
+    }
+
+    /**
+     * Returns the sector bounding the line geometry.
+     *
+     * @return the bounding sector, or null if the batch has no lines.
+     */
+    public Sector getLineSector() {
+        return GeoJSONBatch.toSector(this.lineBounds);
+    }
+
+    /**
+     * Returns the sector bounding the polygon geometry.
+     *
+     * @return the bounding sector, or null if the batch has no polygons.
+     */
+    public Sector getPolygonSector() {
+        return GeoJSONBatch.toSector(this.polygonBounds);
+    }
+
+    /**
+     * Returns the number of shapes in this batch: each Point or MultiPoint, each line, and each polygon counts once.
+     *
+     * @return the number of shapes.
+     */
+    public int getShapeCount() {
+        return this.shapeCount;
+    }
+
+    protected void addPoints(double[] coords, int start, int end) {
+        this.append(this.points, this.pointBounds, coords, start, end);
+        this.shapeCount++;
+    }
+
+    protected void addLine(double[] coords, int start, int end) {
+        this.append(this.lines, this.lineBounds, coords, start, end);
+        this.shapeCount++;
+    }
+
+    protected void startPolygon() {
+        if (this.numRingGroups == this.ringGroups.length)
+            this.ringGroups = Arrays.copyOf(this.ringGroups, 2 * this.numRingGroups);
+
+        this.ringGroups[this.numRingGroups++] = this.polygons.size();
+        this.shapeCount++;
+    }
+
+    protected void addRing(double[] coords, int start, int end) {
+        this.append(this.polygons, this.polygonBounds, coords, start, end);
+    }
+
+    protected void append(VecBufferSequence sequence, double[] bounds, double[] coords, int start, int end) {
+        // The coordinates hold longitude, latitude pairs; start and end are position indices.
+        for (int i = start; i < end; i++) {
+            double lon = coords[2 * i];
+            double lat = coords[2 * i + 1];
+            bounds[0] = Math.min(bounds[0], lat);
+            bounds[1] = Math.max(bounds[1], lat);
+            bounds[2] = Math.min(bounds[2], lon);
+            bounds[3] = Math.max(bounds[3], lon);
+        }
+
+        DoubleBuffer buffer = DoubleBuffer.wrap(coords, 2 * start, 2 * (end - start)).slice();
+        sequence.append(new VecBuffer(2, new BufferWrapper.DoubleBufferWrapper(buffer)));
+    }
+}
@@ -0,0 +1,387 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.formats.geojson;
+
+import com.fasterxml.jackson.core.*;
+import gov.nasa.worldwind.exception.WWRuntimeException;
+import gov.nasa.worldwind.util.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+
+/**
+ * Reads GeoJSON geometry directly from the Jackson token stream into {@link GeoJSONBatch} instances, without building
+ * the {@link GeoJSONObject} tree that {@link GeoJSONDoc} builds. Memory use is proportional to the number of
+ * coordinates rather than the number of features, and the document is never held in memory.
+ * <p>
+ * {@link #read(Object)} reads a GeoJSON document, or any sequence of GeoJSON documents separated by whitespace, into
+ * one batch. {@link #readLines(Object)} reads newline-delimited GeoJSON in parallel: the text is split into chunks of
+ * whole lines, and each chunk is read into its own batch on the common fork-join pool.
+ * <p>
+ * Only geometry is read. Feature properties, bounding boxes, coordinate reference systems and altitudes are skipped.
+ * Coordinates appearing before a geometry's type are handled; a geometry without a type is classified by the nesting
+ * depth of its coordinates.
+ */
+public class GeoJSONStreamReader {
+    protected static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024; // 8 megabytes of text per parallel chunk
+    protected static final JsonFactory jsonFactory = new JsonFactory();
+
+    protected int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    public GeoJSONStreamReader() {
+    }
+
+    /**
+     * Returns the approximate number of characters of newline-delimited GeoJSON read by each parallel task.
+     *
+     * @return the chunk size, in characters.
+     */
+    public int getChunkSize() {
+        return this.chunkSize;
+    }
+
+    /**
+     * Specifies the approximate number of characters of newline-delimited GeoJSON read by each parallel task. Chunks
+     * always end on a line boundary.
+     *
+     * @param chunkSize the chunk size, in characters.
+     * @throws IllegalArgumentException if the chunk size is less than one.
+     */
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "chunkSize=" + chunkSize);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Reads the geometry of a GeoJSON source into one batch.
+     *
+     * @param source the source. May be a file path {@link String}, {@link File}, {@link java.net.URL}, {@link
+     *               java.net.URI} or {@link InputStream}.
+     * @return the batch.
+     * @throws IllegalArgumentException if the source is null or empty.
+     * @throws WWRuntimeException       if the source cannot be read or is not valid JSON.
+     */
+    public GeoJSONBatch read(Object source) {
+        if (WWUtil.isEmpty(source)) {
+            String message = Logging.getMessage("nullValue.SourceIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        try (InputStream stream = WWIO.openStream(source);
+             JsonParser parser = jsonFactory.createParser(stream)) {
+            return this.readBatch(parser);
+        }
+        catch (Exception e) {
+            String message = Logging.getMessage("generic.ExceptionAttemptingToReadGeoJSON", source);
+            Logging.logger().log(Level.SEVERE, message, e);
+            throw new WWRuntimeException(message, e);
+        }
+    }
+
+    /**
+     * Reads the geometry of a newline-delimited GeoJSON source, one GeoJSON object per line, in parallel. The returned
+     * batches are in source order.
+     *
+     * @param source the source. May be a file path {@link String}, {@link File}, {@link java.net.URL}, {@link
+     *               java.net.URI} or {@link InputStream}.
+     * @return one batch per chunk of the source.
+     * @throws IllegalArgumentException if the source is null or empty.
+     * @throws WWRuntimeException       if the source cannot be read or a line is not valid JSON.
+     */
+    public List<GeoJSONBatch> readLines(Object source) {
+        if (WWUtil.isEmpty(source)) {
+            String message = Logging.getMessage("nullValue.SourceIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        List<GeoJSONBatch> batches = new ArrayList<>();
+        int parallelism = ForkJoinPool.commonPool().getParallelism();
+
+        try (BufferedReader reader = new BufferedReader(
+            new InputStreamReader(WWIO.openStream(source), StandardCharsets.UTF_8))) {
+            // Read at most one chunk per worker ahead of the parser, so the text held in memory stays bounded.
+            List<Callable<GeoJSONBatch>> tasks = new ArrayList<>(parallelism);
+            String chunk;
+            while ((chunk = this.readChunk(reader)) != null) {
+                String text = chunk;
+                tasks.add(() -> this.readBatch(text));
+
+                if (tasks.size() == parallelism) {
+                    this.invokeAll(tasks, batches);
+                    tasks.clear();
+                }
+            }
+
+            this.invokeAll(tasks, batches);
+        }
+        catch (Exception e) {
+            String message = Logging.getMessage("generic.ExceptionAttemptingToReadGeoJSON", source);
+            Logging.logger().log(Level.SEVERE, message, e);
+            throw new WWRuntimeException(message, e);
+        }
+
+        return batches;
+    }
+
+    protected String readChunk(BufferedReader reader) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        String line;
+        while (sb.length() < this.chunkSize && (line = reader.readLine()) != null) {
+            sb.append(line).append('\n');
+        }
+
+        return sb.length() > 0 ? sb.toString() : null;
+    }
+
+    protected void invokeAll(List<Callable<GeoJSONBatch>> tasks, List<GeoJSONBatch> batches) throws Exception {
+        for (Future<GeoJSONBatch> future : ForkJoinPool.commonPool().invokeAll(tasks)) {
+            try {
+                batches.add(future.get());
+            }
+            catch (ExecutionException e) {
+                throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+            }
+        }
+    }
+
+    protected GeoJSONBatch readBatch(String text) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(text)) {
+            return this.readBatch(parser);
+        }
+    }
+
+    protected GeoJSONBatch readBatch(JsonParser parser) throws IOException {
+        GeoJSONBatch batch = new GeoJSONBatch();
+        Coordinates coords = new Coordinates();
+
+        JsonToken token;
+        while ((token = parser.nextToken()) != null) {
+            if (token == JsonToken.START_OBJECT)
+                this.readObject(parser, coords, batch);
+            else if (token == JsonToken.START_ARRAY)
+                this.readObjectArray(parser, coords, batch);
+        }
+
+        return batch;
+    }
+
+    //**************************************************************//
+    //********************  Object Parsing  ************************//
+    //**************************************************************//
+
+    /**
+     * Reads a GeoJSON object of any type and adds its geometry to a batch. The parser is positioned at the object's
+     * start and is left at its end.
+     *
+     * @param parser the parser.
+     * @param coords scratch storage for the object's coordinates.
+     * @param batch  the batch to receive the object's geometry.
+     * @throws IOException if the object cannot be read.
+     */
+    protected void readObject(JsonParser parser, Coordinates coords, GeoJSONBatch batch) throws IOException {
+        String type = null;
+        boolean hasCoordinates = false;
+
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_OBJECT) {
+            if (token == null)
+                throw new EOFException();
+
+            String field = parser.getCurrentName();
+            token = parser.nextToken();
+
+            if (GeoJSONConstants.FIELD_TYPE.equals(field) && token == JsonToken.VALUE_STRING) {
+                type = parser.getText();
+            } else if (GeoJSONConstants.FIELD_COORDINATES.equals(field) && token == JsonToken.START_ARRAY) {
+                coords.clear();
+                coords.depth = this.readCoordinates(parser, coords);
+                hasCoordinates = true;
+            } else if (GeoJSONConstants.FIELD_GEOMETRY.equals(field) && token == JsonToken.START_OBJECT) {
+                this.readObject(parser, coords, batch);
+            } else if ((GeoJSONConstants.FIELD_GEOMETRIES.equals(field)
+                || GeoJSONConstants.FIELD_FEATURES.equals(field)) && token == JsonToken.START_ARRAY) {
+                this.readObjectArray(parser, coords, batch);
+            } else {
+                parser.skipChildren(); // Properties, bounding boxes and foreign members.
+            }
+        }
+
+        // A geometry's type may follow its coordinates, so the coordinates are added when the object ends.
+        if (hasCoordinates)
+            this.addGeometry(type, coords, batch);
+    }
+
+    protected void readObjectArray(JsonParser parser, Coordinates coords, GeoJSONBatch batch) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null)
+                throw new EOFException();
+
+            if (token == JsonToken.START_OBJECT)
+                this.readObject(parser, coords, batch);
+            else
+                parser.skipChildren();
+        }
+    }
+
+    /**
+     * Reads a coordinates array. Positions are appended to the scratch coordinates; the end of each array of positions
+     * is recorded as a part, and the end of each array of parts is recorded as a group. The parser is positioned at
+     * the array's start and is left at its end.
+     *
+     * @param parser the parser.
+     * @param coords the scratch coordinates.
+     * @return the array's nesting depth: 1 for a position, 2 for an array of positions, and so on.
+     * @throws IOException if the array cannot be read.
+     */
+    protected int readCoordinates(JsonParser parser, Coordinates coords) throws IOException {
+        JsonToken token = parser.nextToken();
+
+        if (token != null && token.isNumeric()) {
+            // A position is longitude, latitude and optional altitude. Altitudes and extra values are ignored.
+            double lon = parser.getDoubleValue();
+            int count = 1;
+            double lat = 0;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null)
+                    throw new EOFException();
+
+                if (count == 1 && token.isNumeric())
+                    lat = parser.getDoubleValue();
+                parser.skipChildren();
+                count++;
+            }
+
+            if (count >= 2)
+                coords.addPosition(lon, lat);
+            return 1;
+        }
+
+        int childDepth = 0;
+        for (; token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+            if (token == null)
+                throw new EOFException();
+
+            if (token == JsonToken.START_ARRAY)
+                childDepth = Math.max(childDepth, this.readCoordinates(parser, coords));
+            else
+                parser.skipChildren();
+        }
+
+        if (childDepth == 1)
+            coords.endPart();
+        else if (childDepth == 2)
+            coords.endGroup();
+
+        return childDepth + 1;
+    }
+
+    //**************************************************************//
+    //********************  Geometry Assembly  *********************//
+    //**************************************************************//
+
+    protected void addGeometry(String type, Coordinates coords, GeoJSONBatch batch) {
+        if (type == null)
+            type = GeoJSONStreamReader.typeForDepth(coords.depth);
+
+        if (GeoJSONConstants.TYPE_POINT.equals(type) || GeoJSONConstants.TYPE_MULTI_POINT.equals(type)) {
+            if (coords.numPositions > 0)
+                batch.addPoints(coords.coords, 0, coords.numPositions);
+        } else if (GeoJSONConstants.TYPE_LINE_STRING.equals(type)
+            || GeoJSONConstants.TYPE_MULTI_LINE_STRING.equals(type)) {
+            for (int i = 0; i < coords.numParts; i++) {
+                int start = (i > 0) ? coords.partEnds[i - 1] : 0;
+                if (coords.partEnds[i] - start >= 2)
+                    batch.addLine(coords.coords, start, coords.partEnds[i]);
+            }
+        } else if (GeoJSONConstants.TYPE_POLYGON.equals(type) || GeoJSONConstants.TYPE_MULTI_POLYGON.equals(type)) {
+            // A Polygon's rings are one group; a MultiPolygon has one group per polygon.
+            int numGroups = (coords.depth == 3) ? 1 : coords.numGroups;
+            int part = 0;
+            for (int g = 0; g < numGroups; g++) {
+                int groupEnd = (coords.depth == 3) ? coords.numParts : coords.groupEnds[g];
+                if (part < groupEnd)
+                    batch.startPolygon();
+
+                for (; part < groupEnd; part++) {
+                    int start = (part > 0) ? coords.partEnds[part - 1] : 0;
+                    batch.addRing(coords.coords, start, coords.partEnds[part]);
+                }
+            }
+        } else {
+            Logging.logger().warning(Logging.getMessage("generic.UnrecognizedObjectType", type));
+        }
+    }
+
+    protected static String typeForDepth(int depth) {
+        switch (depth) {
+            case 1:
+                return GeoJSONConstants.TYPE_POINT;
+            case 2:
+                return GeoJSONConstants.TYPE_LINE_STRING;
+            case 3:
+                return GeoJSONConstants.TYPE_POLYGON;
+            case 4:
+                return GeoJSONConstants.TYPE_MULTI_POLYGON;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Scratch storage for one geometry's coordinates, reused from geometry to geometry. Positions are stored as
+     * longitude, latitude pairs; parts and groups are stored by the index of their end.
+     */
+    protected static class Coordinates {
+        protected double[] coords = new double[64];
+        protected int numPositions;
+        protected int[] partEnds = new int[8];
+        protected int numParts;
+        protected int[] groupEnds = new int[8];
+        protected int numGroups;
+        protected int depth;
+
+        public void clear() {
+            this.numPositions = 0;
+            this.numParts = 0;
+            this.numGroups = 0;
+            this.depth = 0;
+        }
+
+        public void addPosition(double lon, double lat) {
+            if (2 * this.numPositions + 2 > this.coords.length)
+                this.coords = Arrays.copyOf(this.coords, 2 * this.coords.length);
+
+            this.coords[2 * this.numPositions] = lon;
+            this.coords[2 * this.numPositions + 1] = lat;
+            this.numPositions++;
+        }
+
+        public void endPart() {
+            if (this.numParts == this.partEnds.length)
+                this.partEnds = Arrays.copyOf(this.partEnds, 2 * this.numParts);
+
+            this.partEnds[this.numParts++] = this.numPositions;
+        }
+
+        public void endGroup() {
+            if (this.numGroups == this.groupEnds.length)
+                this.groupEnds = Arrays.copyOf(this.groupEnds, 2 * this.numGroups);
+
+            this.groupEnds[this.numGroups++] = this.numParts;
+        }
+    }
+}
@@ -155,10 +155,68 @@ public class NITFSImageSegment extends NITFSSegment {
 
     public int[] getImagePixelsAsArray(int[] pixels, RPFImageType imageType) throws NITFSRuntimeException {
         RPFFrameFileComponents rpfComponents = this.getRPFFrameFileComponents();
-        RPFLocationSection componentLocationTable = rpfComponents.componentLocationTable;
+        int subframeWidth = (int) rpfComponents.numOfOutputColumnsPerSubframe;
+        int subframeHeight = (int) rpfComponents.numOfOutputRowsPerSubframe;
+
+        for (int subFrameIdx = 0; subFrameIdx < this.getNumSubframes(); subFrameIdx++) {
+            int blockY = (subFrameIdx / this.numOfBlocksPerRow) * subframeHeight;
+            int blockX = (subFrameIdx % this.numOfBlocksPerRow) * subframeWidth;
+            this.getSubframePixels(subFrameIdx, pixels, blockY * this.numSignificantCols + blockX,
+                this.numSignificantCols, imageType);
+        }
+
+        return pixels;
+    }
+
+    /**
+     * Returns the number of subframes in the image. Subframes are numbered row by row, starting with the upper left
+     * subframe.
+     *
+     * @return the number of subframes.
+     */
+    public int getNumSubframes() {
+        return this.numOfBlocksPerRow * this.numOfBlocksPerCol;
+    }
+
+    /**
+     * Indicates whether a subframe is masked, meaning that it has no image data and all its pixels are transparent.
+     *
+     * @param subframeIndex the subframe index.
+     * @return true if the subframe is masked.
+     */
+    public boolean isSubframeMasked(int subframeIndex) {
+        return this.hasMaskedSubframes && -1 == this.subFrameOffsets[subframeIndex];
+    }
+
+    /**
+     * Decompresses one subframe into an array of pixels. Each subframe is decompressed independently of the others, and
+     * the image data is read through a view of the segment's buffer, so subframes may be decompressed concurrently.
+     * Transparent pixels, and every pixel of a masked subframe, are left unchanged in the array.
+     *
+     * @param subframeIndex the subframe index.
+     * @param pixels        the array receiving the pixels.
+     * @param offset        the index of the subframe's upper left pixel in the array.
+     * @param scanline      the distance between rows of pixels in the array.
+     * @param imageType     the pixel format.
+     * @throws NITFSRuntimeException if the subframe index is out of range.
+     */
+    public void getSubframePixels(int subframeIndex, int[] pixels, int offset, int scanline, RPFImageType imageType)
+        throws NITFSRuntimeException {
+        if (subframeIndex < 0 || subframeIndex >= this.getNumSubframes())
+            throw new NITFSRuntimeException("NITFSReader.InvalidSubframeIndex", ": " + subframeIndex);
+
+        if (this.isSubframeMasked(subframeIndex)) // this is a masked / empty subframe
+            return;
 
+        RPFLocationSection componentLocationTable = this.getRPFFrameFileComponents().componentLocationTable;
         int spatialDataSubsectionLocation = componentLocationTable.getSpatialDataSubsectionLocation();
-        super.buffer.position(spatialDataSubsectionLocation);
+        int rowSize = (int) ((this.numOfImageCodesPerRow * this.imageCodeBitLength) / 8L);
+
+        ByteBuffer data = super.buffer.duplicate();
+        if (this.hasMaskedSubframes)
+            data.position(spatialDataSubsectionLocation + this.subFrameOffsets[subframeIndex]);
+        else
+            data.position(spatialDataSubsectionLocation + subframeIndex * rowSize * (int) this.numOfImageRows);
 
         int band = 0; // for(int band = 0; band < rpfComponents.numOfSpectralBandTables;  band++)
         NITFSImageBand imageBand = this.imageBands[band];
@@ -167,82 +225,61 @@ public class NITFSImageSegment extends NITFSSegment {
         short aa, ab, bb;
         short[] codes = new short[(int) this.numOfImageCodesPerRow];
         byte[][] block4x4 = new byte[4][4];
-        int rowSize = (short) ((this.numOfImageCodesPerRow * this.imageCodeBitLength) / 8L);
         byte[] rowBytes = new byte[rowSize];
-        int subFrameOffset;
-        short subFrameIdx = 0;
 
-        for (int subFrameH = 0; subFrameH < this.numOfBlocksPerCol; subFrameH++) {
-            for (int subFrameW = 0; subFrameW < this.numOfBlocksPerRow; subFrameW++, subFrameIdx++) {
-                int blockY = (int) (subFrameH * rpfComponents.numOfOutputRowsPerSubframe);
-                int blockX = (int) (subFrameW * rpfComponents.numOfOutputColumnsPerSubframe);
+        for (int row = 0; row < this.numOfImageRows; row++) {
+            int qy = row * 4;
+
+            data.get(rowBytes, 0, rowSize);
+
+            for (int i = 0, cidx = 0, bidx = 0; i < (int) this.numOfImageCodesPerRow / 2; i++) {
+                aa = (short) ((0x00FF & (short) rowBytes[bidx++]) << 4);
+                ab = (short) (0x00FF & (short) rowBytes[bidx++]);
+                bb = (short) (0x00FF & (short) rowBytes[bidx++]);
+
+                codes[cidx++] = (short) (aa | ((0x00F0 & ab) >> 4));
+                codes[cidx++] = (short) (bb | ((0x000F & ab) << 8));
+            }
 
-                if (hasMaskedSubframes) {
-                    subFrameOffset = this.subFrameOffsets[subFrameIdx];
-                    if (-1 == subFrameOffset) {   // this is a masked / empty subframe
+            for (int col = 0; col < this.numOfImageCodesPerRow; col++) {
+                if (hasTransparentPixels) {
+                    if (4095 == codes[col]) {   // this is a transparent kernel
                         continue;
-                    } else {
-                        super.buffer.position(spatialDataSubsectionLocation + subFrameOffset);
                     }
                 }
 
-                for (int row = 0; row < this.numOfImageRows; row++) {
-                    int qy = blockY + row * 4;
+                this.decompressBlock4x4(block4x4, codes[col]);
 
-                    super.buffer.get(rowBytes, 0, rowSize);
+                int qx = col * 4;
 
-                    for (int i = 0, cidx = 0, bidx = 0; i < (int) this.numOfImageCodesPerRow / 2; i++) {
-                        aa = (short) ((0x00FF & (short) rowBytes[bidx++]) << 4);
-                        ab = (short) (0x00FF & (short) rowBytes[bidx++]);
-                        bb = (short) (0x00FF & (short) rowBytes[bidx++]);
+                for (int h = 0; h < 4; h++) {
+                    for (int w = 0; w < 4; w++) {
+                        colorCode = 0x00FF & block4x4[h][w];
 
-                        codes[cidx++] = (short) (aa | ((0x00F0 & ab) >> 4));
-                        codes[cidx++] = (short) (bb | ((0x000F & ab) << 8));
-                    }
-
-                    for (int col = 0; col < this.numOfImageCodesPerRow; col++) {
                         if (hasTransparentPixels) {
-                            if (4095 == codes[col]) {   // this is a transparent kernel
+                            if (this.transparentOutputPixelCode == colorCode) {   // this is a transparent pixel
                                 continue;
                             }
                         }
 
-                        this.decompressBlock4x4(block4x4, codes[col]);
-
-                        int qx = blockX + col * 4;
-
-                        for (int h = 0; h < 4; h++) {
-                            for (int w = 0; w < 4; w++) {
-                                colorCode = 0x00FF & block4x4[h][w];
-
-                                if (hasTransparentPixels) {
-                                    if (this.transparentOutputPixelCode == colorCode) {   // this is a transparent pixel
-                                        continue;
-                                    }
-                                }
-
-                                if (imageBand.isReservedApplicationCode(colorCode)) {
-                                    // This is a reserved color code used to define an application-specific overlay. We
-                                    // don't know the meaning of application overlay codes, therefore we treat them as
-                                    // transparent or background pixels.
-                                    continue;
-                                }
-
-                                rgbColor = imageBand.lookupRGB(colorCode);
-                                rgbColor = switch (imageType) {
-                                    case IMAGE_TYPE_ALPHA_RGB -> 0xFF000000 + rgbColor;
-                                    case IMAGE_TYPE_GRAY_ALPHA, IMAGE_TYPE_RGB_ALPHA -> (rgbColor << 8) + 0xFF;
-                                    default -> rgbColor;
-                                };
-                                pixels[(qy + h) * this.numSignificantCols + (qx + w)] = rgbColor;
-                            }
+                        if (imageBand.isReservedApplicationCode(colorCode)) {
+                            // This is a reserved color code used to define an application-specific overlay. We
+                            // don't know the meaning of application overlay codes, therefore we treat them as
+                            // transparent or background pixels.
+                            continue;
                         }
-                    } // end of column loop
-                } // end of row loop
-            } // end of subFrameW loop
-        } // end of subFrameH loop
 
-        return pixels;
+                        rgbColor = imageBand.lookupRGB(colorCode);
+                        rgbColor = switch (imageType) {
+                            case IMAGE_TYPE_ALPHA_RGB -> 0xFF000000 + rgbColor;
+                            case IMAGE_TYPE_GRAY_ALPHA, IMAGE_TYPE_RGB_ALPHA -> (rgbColor << 8) + 0xFF;
+                            default -> rgbColor;
+                        };
+                        pixels[offset + (qy + h) * scanline + (qx + w)] = rgbColor;
+                    }
+                }
+            } // end of column loop
+        } // end of row loop
     }
 
     private void validateImage() throws NITFSRuntimeException {
@@ -7,7 +7,7 @@
 package gov.nasa.worldwind.formats.nitfs;
 
 import gov.nasa.worldwind.formats.rpf.RPFUserDefinedHeaderSegment;
-import gov.nasa.worldwind.util.Logging;
+import gov.nasa.worldwind.util.*;
 
 import java.io.*;
 import java.nio.ByteBuffer;
@@ -33,7 +33,9 @@ public class NITFSMessage {
     public static NITFSMessage load(File file) throws IOException {
         NITFSMessage.validateImageFile(file);
 
-        ByteBuffer roBuffer = NITFSUtil.readEntireFile(file).asReadOnlyBuffer();
+        // Map the file rather than reading it, so that only the pages holding the headers and the subframes actually
+        // decoded are read, and the image data does not occupy the Java heap.
+        ByteBuffer roBuffer = WWIO.mapFile(file);
 
         // check if it is a NITFS format file (NITF or NSIF - for NATO Secondary Imagery Format)
         String fmtId = NITFSUtil.getString(roBuffer, 0, 4);
@@ -1 +1,276 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.formats.rpf;
 
+import gov.nasa.worldwind.formats.nitfs.*;
+import gov.nasa.worldwind.util.Logging;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+
+/**
+ * Finds the RPF frame files in a directory tree. Directories are listed in parallel on a pool of worker threads, one
+ * task per directory, and the name of each file is parsed on the thread that lists it. A file is an RPF frame file if
+ * its name is a valid RPF frame filename, see {@link RPFFrameFilename}. When {@link #setReadHeaders(boolean)} is set,
+ * the crawler also reads the NITF header of each such file on the worker thread that found it, and skips files whose
+ * header cannot be read or that have no image segment.
+ * <p>
+ * A crawl either runs to completion on the calling thread with {@link #crawl(File)} or {@link #crawl(File,
+ * RPFCrawlerListener)}, or runs in the background with {@link #start(File, RPFCrawlerListener)}, reporting each frame
+ * file to a listener as it is found.
+ */
+public class RPFCrawler {
+    private final int numThreads;
+    private volatile boolean stopped;
+    private volatile boolean readHeaders;
+    private Thread thread;
+
+    /** Creates a crawler that lists directories on one thread per available processor. */
+    public RPFCrawler() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a crawler that lists directories on a specified number of threads. Listing directories is mostly waiting
+     * on the file system, so more threads than processors may crawl faster, particularly on network file systems.
+     *
+     * @param numThreads the number of worker threads.
+     * @throws IllegalArgumentException if the number of threads is less than one.
+     */
+    public RPFCrawler(int numThreads) {
+        if (numThreads < 1) {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "numThreads=" + numThreads);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.numThreads = numThreads;
+    }
+
+    /**
+     * Indicates whether the crawler reads the NITF header of each file whose name is a frame filename.
+     *
+     * @return true if headers are read, otherwise false.
+     */
+    public boolean isReadHeaders() {
+        return this.readHeaders;
+    }
+
+    /**
+     * Specifies whether the crawler reads the NITF header of each file whose name is a frame filename, and skips files
+     * whose header cannot be read or that have no image segment. Headers are read on the crawler's worker threads.
+     * Reading headers is off by default, since the coverage of a frame follows from its filename alone.
+     *
+     * @param readHeaders true to read headers, otherwise false.
+     */
+    public void setReadHeaders(boolean readHeaders) {
+        this.readHeaders = readHeaders;
+    }
+
+    /**
+     * Finds the RPF frame files in a directory tree, returning when the whole tree has been searched or the crawler
+     * is stopped.
+     *
+     * @param directory the root of the directory tree.
+     * @return the frame files found, in no particular order.
+     * @throws IllegalArgumentException if the directory is null.
+     */
+    public List<File> crawl(File directory) {
+        Queue<File> files = new ConcurrentLinkedQueue<>();
+        this.crawl(directory, new RPFCrawlerListener() {
+            public void fileFound(File rpfFile, RPFFrameFilename filename) {
+                files.add(rpfFile);
+            }
+
+            public void finished() {
+            }
+        });
+
+        return new ArrayList<>(files);
+    }
+
+    /**
+     * Finds the RPF frame files in a directory tree, notifying a listener of each frame file found, from the
+     * crawler's worker threads. Returns when the whole tree has been searched or the crawler is stopped, after the
+     * listener has been notified that the crawl finished.
+     *
+     * @param directory the root of the directory tree.
+     * @param listener  the listener to notify.
+     * @throws IllegalArgumentException if the directory or the listener is null.
+     */
+    public void crawl(File directory, RPFCrawlerListener listener) {
+        if (directory == null) {
+            String message = Logging.getMessage("nullValue.FileIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (listener == null) {
+            String message = Logging.getMessage("nullValue.ListenerIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.stopped = false;
+        this.doCrawl(directory, listener);
+    }
+
+    /**
+     * Starts finding the RPF frame files in a directory tree on a background thread. The listener is notified of each
+     * frame file found, from the crawler's worker threads, and is notified once when the crawl finishes or is stopped.
+     * A crawler runs one crawl at a time.
+     *
+     * @param directory the root of the directory tree.
+     * @param listener  the listener to notify.
+     * @throws IllegalArgumentException if the directory or the listener is null.
+     * @throws IllegalStateException    if the crawler is already running.
+     */
+    public synchronized void start(File directory, RPFCrawlerListener listener) {
+        if (directory == null) {
+            String message = Logging.getMessage("nullValue.FileIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (listener == null) {
+            String message = Logging.getMessage("nullValue.ListenerIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (this.isRunning()) {
+            String message = Logging.getMessage("RPFCrawler.BadStart");
+            Logging.logger().severe(message);
+            throw new IllegalStateException(message);
+        }
+
+        // Reset before the thread starts, so that a stop() issued right after start() is not lost.
+        this.stopped = false;
+        this.thread = new Thread(() -> this.doCrawl(directory, listener));
+        this.thread.setName("RPFCrawler");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /** Stops the crawl in progress. Directories already being listed are finished; no further directories are listed. */
+    public void stop() {
+        this.stopped = true;
+    }
+
+    /**
+     * Indicates whether a background crawl is in progress.
+     *
+     * @return true if the crawler is running.
+     */
+    public synchronized boolean isRunning() {
+        return this.thread != null && this.thread.isAlive();
+    }
+
+    protected void doCrawl(File directory, RPFCrawlerListener listener) {
+        ForkJoinPool pool = new ForkJoinPool(this.numThreads);
+        try {
+            pool.invoke(new CrawlTask(directory, listener));
+        }
+        catch (RuntimeException e) {
+            String message = Logging.getMessage("generic.ExceptionWhileReading", directory);
+            Logging.logger().log(Level.SEVERE, message, e);
+        }
+        finally {
+            pool.shutdown();
+            listener.finished();
+        }
+    }
+
+    /**
+     * Returns the parsed filename of a file if the file is an RPF frame file.
+     *
+     * @param file the file to test.
+     * @return the parsed filename, or null if the file is not a frame file.
+     */
+    protected RPFFrameFilename parseFrameFilename(File file) {
+        String filename = file.getName().toUpperCase();
+        if (!RPFFrameFilename.isFilename(filename))
+            return null;
+
+        try {
+            return RPFFrameFilename.parseFilename(filename);
+        }
+        catch (RuntimeException e) {
+            String message = Logging.getMessage("RPFCrawler.ExceptionParsingFilename", file);
+            Logging.logger().log(Level.FINE, message, e);
+            return null;
+        }
+    }
+
+    /**
+     * Indicates whether a file whose name is a frame filename has a readable NITF header with an image segment.
+     *
+     * @param file the file to test.
+     * @return true if the file's header is readable and describes an image, otherwise false.
+     */
+    protected boolean readFrameHeader(File file) {
+        try {
+            NITFSMessage message = NITFSMessage.load(file);
+            return message.getSegment(NITFSSegmentType.IMAGE_SEGMENT) != null;
+        }
+        catch (IOException | RuntimeException e) {
+            String message = Logging.getMessage("generic.ExceptionWhileReading", file);
+            Logging.logger().log(Level.FINE, message, e);
+            return false;
+        }
+    }
+
+    /** The listener notified of the frame files found by a background crawl. */
+    public interface RPFCrawlerListener {
+        /**
+         * Called for each frame file found. Called concurrently from the crawler's worker threads.
+         *
+         * @param rpfFile  the frame file.
+         * @param filename the frame file's parsed filename.
+         */
+        void fileFound(File rpfFile, RPFFrameFilename filename);
+
+        /** Called once when the crawl finishes or is stopped. */
+        void finished();
+    }
+
+    protected class CrawlTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        protected final File directory;
+        protected final RPFCrawlerListener listener;
+
+        public CrawlTask(File directory, RPFCrawlerListener listener) {
+            this.directory = directory;
+            this.listener = listener;
+        }
+
+        @Override
+        protected void compute() {
+            if (RPFCrawler.this.stopped)
+                return;
+
+            File[] files = this.directory.listFiles();
+            if (files == null)
+                return;
+
+            List<CrawlTask> subtasks = new ArrayList<>();
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    subtasks.add(new CrawlTask(file, this.listener));
+                } else {
+                    RPFFrameFilename filename = RPFCrawler.this.parseFrameFilename(file);
+                    if (filename != null && (!RPFCrawler.this.readHeaders || RPFCrawler.this.readFrameHeader(file)))
+                        this.listener.fileFound(file, filename);
+                }
+            }
+
+            ForkJoinTask.invokeAll(subtasks);
+        }
+    }
+}
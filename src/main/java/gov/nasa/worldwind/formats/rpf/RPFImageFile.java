@@ -5,23 +5,61 @@
  */
 package gov.nasa.worldwind.formats.rpf;
 
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.cache.*;
 import gov.nasa.worldwind.formats.nitfs.*;
 
 import java.awt.image.*;
 import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
 
 /**
+ * An RPF frame file. The file is memory-mapped when loaded, and its image is decompressed one subframe at a time as
+ * the subframes are needed. Decompressed subframes are kept in a memory cache shared by every frame file, so a frame
+ * file loaded again, for example by another layer reading the same RPF table of contents, does not decompress the
+ * subframes it has already decompressed.
+ * <p>
+ * Frame images can be drawn from a small pool of images that callers have finished with, so that a process reading many
+ * frames of the same size does not allocate an image for each frame. See {@link #getPooledBufferedImage()} and {@link
+ * #releaseBufferedImage(BufferedImage)}.
+ *
  * @author lado
  * @version $Id: RPFImageFile.java 1171 2013-02-11 21:45:02Z dcollins $
  */
 public class RPFImageFile extends RPFFile {
+    protected static final String SUBFRAME_CACHE_KEY = RPFImageFile.class.getName();
+    protected static final String SUBFRAME_CACHE_NAME = "RPF Subframes";
+    protected static final long DEFAULT_SUBFRAME_CACHE_SIZE = 67108864L; // 64 megabytes
+    /**
+     * The maximum number of released frame images kept for reuse. A 1536x1536 frame image occupies 9 megabytes.
+     */
+    protected static final int MAX_POOLED_IMAGES = 4;
+    protected static final BlockingQueue<BufferedImage> imagePool = new ArrayBlockingQueue<>(
+        RPFImageFile.MAX_POOLED_IMAGES);
+
+    static {
+        if (!WorldWind.getMemoryCacheSet().containsCache(RPFImageFile.SUBFRAME_CACHE_KEY)) {
+            long size = Configuration.getLongValue(Keys.RPF_SUBFRAME_CACHE_SIZE,
+                RPFImageFile.DEFAULT_SUBFRAME_CACHE_SIZE);
+            MemoryCache cache = new SoftMemoryCache(size);
+            cache.setName(RPFImageFile.SUBFRAME_CACHE_NAME);
+            WorldWind.getMemoryCacheSet().addCache(RPFImageFile.SUBFRAME_CACHE_KEY, cache);
+        }
+    }
+
     private final NITFSImageSegment imageSegment;
     private final UserDefinedImageSubheader imageSubheader;
     private final RPFFrameFileComponents rpfFrameFileComponents;
+    private final String fileKey;
 
     private RPFImageFile(File rpfFile) throws IOException, NITFSRuntimeException {
         super(rpfFile);
 
+        // Identify the file's content by its path, modification time and length, so that a modified file's subframes
+        // are not read from the cache.
+        this.fileKey = rpfFile.getAbsolutePath() + '@' + rpfFile.lastModified() + '@' + rpfFile.length();
+
         this.imageSegment = (NITFSImageSegment) this.getNITFSSegment(NITFSSegmentType.IMAGE_SEGMENT);
         this.validateRPFImage();
 
@@ -61,26 +99,148 @@ public class RPFImageFile extends RPFFile {
     }
 
     public BufferedImage getBufferedImage() {
+        return this.getBufferedImage(null);
+    }
+
+    /**
+     * Returns the frame's image, assembled from the frame's decompressed subframes. An image from a previous call may
+     * be passed in to be filled with this frame's image, so that a caller reading many frames of the same size does
+     * not allocate an image for each frame.
+     *
+     * @param reuse an image to fill, or null to allocate a new image. The image is used only if it is a {@link
+     *              BufferedImage#TYPE_INT_ARGB} image of the frame's size.
+     * @return the frame's image, or null if the frame has no image.
+     */
+    public BufferedImage getBufferedImage(BufferedImage reuse) {
         if (null == this.imageSegment)
             return null;
 
-        BufferedImage bimage = new BufferedImage(
-            this.getImageSegment().numSignificantCols,
-            this.getImageSegment().numSignificantRows,
-            BufferedImage.TYPE_INT_ARGB);
+        int width = this.getImageSegment().numSignificantCols;
+        int height = this.getImageSegment().numSignificantRows;
+
+        BufferedImage bimage;
+        if (reuse != null && reuse.getType() == BufferedImage.TYPE_INT_ARGB && reuse.getWidth() == width
+            && reuse.getHeight() == height) {
+            bimage = reuse;
+        } else {
+            bimage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
 
         WritableRaster raster = bimage.getRaster();
         DataBufferInt dataBuffer = (DataBufferInt) raster.getDataBuffer();
-
         int[] buffer = dataBuffer.getData();
-        this.getImageSegment().getImagePixelsAsArray(buffer, RPFImageType.IMAGE_TYPE_ALPHA_RGB);
+        int subframeWidth = (int) this.rpfFrameFileComponents.numOfOutputColumnsPerSubframe;
+        int subframeHeight = (int) this.rpfFrameFileComponents.numOfOutputRowsPerSubframe;
+        int subframesPerRow = this.imageSegment.numOfBlocksPerRow;
+
+        for (int i = 0; i < this.imageSegment.getNumSubframes(); i++) {
+            int x = (i % subframesPerRow) * subframeWidth;
+            int y = (i / subframesPerRow) * subframeHeight;
+            int[] subframe = this.getSubframePixels(i);
+
+            // Subframes at the frame's edge may extend beyond the frame's significant rows and columns.
+            int rowLength = Math.min(subframeWidth, width - x);
+            for (int row = 0; row < subframeHeight && y + row < height; row++) {
+                if (subframe != null)
+                    System.arraycopy(subframe, row * subframeWidth, buffer, (y + row) * width + x, rowLength);
+                else
+                    Arrays.fill(buffer, (y + row) * width + x, (y + row) * width + x + rowLength, 0);
+            }
+        }
+
         return bimage;
     }
 
+    /**
+     * Returns the frame's image, filling an image taken from the pool of released frame images when the pool holds an
+     * image of the frame's size. Callers should pass the image to {@link #releaseBufferedImage(BufferedImage)} once they
+     * no longer reference it, including through images that share its pixels.
+     *
+     * @return the frame's image, or null if the frame has no image.
+     */
+    public BufferedImage getPooledBufferedImage() {
+        return this.getBufferedImage(RPFImageFile.takePooledImage());
+    }
+
+    /**
+     * Returns a frame image to the pool, so that a later call to {@link #getPooledBufferedImage()} may fill it instead
+     * of allocating a new image. The image must not be used after it is released. Images that are not {@link
+     * BufferedImage#TYPE_INT_ARGB} images, and images released while the pool is full, are left to the garbage
+     * collector.
+     *
+     * @param image the image to release. May be null.
+     */
+    public static void releaseBufferedImage(BufferedImage image) {
+        if (image != null && image.getType() == BufferedImage.TYPE_INT_ARGB)
+            RPFImageFile.imagePool.offer(image);
+    }
+
+    /**
+     * Removes an image from the pool of released frame images.
+     *
+     * @return a released image, or null if the pool is empty.
+     */
+    protected static BufferedImage takePooledImage() {
+        return RPFImageFile.imagePool.poll();
+    }
+
+    /**
+     * Returns the ARGB pixels of one subframe, decompressing the subframe if it is not in the subframe cache. The
+     * returned array is shared with the cache and other callers, and must not be modified.
+     *
+     * @param subframeIndex the subframe index. Subframes are numbered row by row, starting with the upper left
+     *                      subframe.
+     * @return the subframe's pixels, row by row, or null if the subframe is masked and therefore transparent.
+     */
+    public int[] getSubframePixels(int subframeIndex) {
+        if (this.imageSegment.isSubframeMasked(subframeIndex))
+            return null;
+
+        MemoryCache cache = WorldWind.getMemoryCacheSet().getCache(RPFImageFile.SUBFRAME_CACHE_KEY);
+        SubframeKey key = new SubframeKey(this.fileKey, subframeIndex);
+        int[] pixels = (int[]) cache.getObject(key);
+        if (pixels == null) {
+            int subframeWidth = (int) this.rpfFrameFileComponents.numOfOutputColumnsPerSubframe;
+            int subframeHeight = (int) this.rpfFrameFileComponents.numOfOutputRowsPerSubframe;
+            pixels = new int[subframeWidth * subframeHeight];
+            this.imageSegment.getSubframePixels(subframeIndex, pixels, 0, subframeWidth,
+                RPFImageType.IMAGE_TYPE_ALPHA_RGB);
+            cache.add(key, pixels, (long) pixels.length * Integer.BYTES);
+        }
+
+        return pixels;
+    }
+
     public boolean hasTransparentAreas() {
         //noinspection SimplifiableIfStatement
         if (null != this.imageSegment)
             return (this.imageSegment.hasTransparentPixels() || this.imageSegment.hasMaskedSubframes());
         return false;
     }
+
+    protected static class SubframeKey {
+        protected final String fileKey;
+        protected final int subframeIndex;
+
+        public SubframeKey(String fileKey, int subframeIndex) {
+            this.fileKey = fileKey;
+            this.subframeIndex = subframeIndex;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (o == null || this.getClass() != o.getClass())
+                return false;
+
+            SubframeKey that = (SubframeKey) o;
+            return this.subframeIndex == that.subframeIndex && this.fileKey.equals(that.fileKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.fileKey.hashCode() + this.subframeIndex;
+        }
+    }
 }
@@ -35,6 +35,8 @@ public class GeotiffReader implements Disposable {
     private final TIFFReader tiffReader;
     private ArrayList<TiffIFDEntry[]> tiffIFDs;
     private ArrayList<KV> metadata;
+    private Map<Integer, TiffImageBlocks> imageBlocks;
+    private String fileKey;
 
     public GeotiffReader(String sourceFilename) throws IOException {
         this.sourceFilename = sourceFilename;
@@ -110,11 +112,26 @@ public class GeotiffReader implements Disposable {
             return null;
         }
 
-        DataRaster[] rasters = new DataRaster[num];
+        // Reduced-resolution overviews are read through readDataRaster(int, Rectangle, int), not as separate images.
+        List<DataRaster> rasters = new ArrayList<>(num);
         for (int i = 0; i < num; i++) {
-            rasters[i] = this.doRead(i);
+            if (!this.isOverview(i)) {
+                rasters.add(this.doRead(i));
+            }
         }
-        return rasters;
+        return rasters.toArray(new DataRaster[0]);
+    }
+
+    /**
+     * Indicates whether an image is a reduced-resolution overview, or a transparency mask, of the image preceding it.
+     *
+     * @param imageIndex the image index.
+     * @return true if the image is an overview or a mask.
+     */
+    protected boolean isOverview(int imageIndex) {
+        TiffIFDEntry entry = GeotiffReader.getByTag(this.tiffIFDs.get(imageIndex), Tiff.Tag.NEW_SUBFILE_TYPE);
+        return entry != null && (entry.asLong()
+            & (Tiff.NewSubfileType.REDUCED_RESOLUTION | Tiff.NewSubfileType.TRANSPARENCY_MASK)) != 0;
     }
 
     public DataRaster readDataRaster(int imageIndex) throws IOException {
@@ -122,6 +139,328 @@ public class GeotiffReader implements Disposable {
         return this.doRead(imageIndex);
     }
 
+    /**
+     * Reads the part of an image within a geographic sector. See {@link #readDataRaster(int, Rectangle, int)}.
+     *
+     * @param imageIndex the index of the full-resolution image.
+     * @param sector     the sector to read. The sector is expanded to whole pixels and clipped to the image.
+     * @param subsample  the sub-sampling factor, 1 or greater.
+     * @return a raster covering the sector, or null if the sector does not intersect the image.
+     * @throws IOException              if the image is not georeferenced in a geographic coordinate system, or if its
+     *                                  data cannot be read.
+     * @throws IllegalArgumentException if the sector is null, the sub-sampling factor is less than 1, or the image index
+     *                                  is invalid.
+     */
+    public DataRaster readDataRaster(int imageIndex, Sector sector, int subsample) throws IOException {
+        if (sector == null) {
+            String message = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        checkImageIndex(imageIndex);
+        KV values = this.metadata.get(imageIndex);
+
+        if (!Keys.COORDINATE_SYSTEM_GEOGRAPHIC.equals(values.get(Keys.COORDINATE_SYSTEM))
+            || !values.hasKey(Keys.SECTOR)) {
+            String message = Logging.getMessage("GeotiffReader.NotGeographic", this.sourceFilename);
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+
+        Sector imageSector = (Sector) values.get(Keys.SECTOR);
+        double pixelWidth = imageSector.lonDelta / this.getWidth(imageIndex);
+        double pixelHeight = imageSector.latDelta / this.getHeight(imageIndex);
+
+        int x0 = (int) Math.floor((sector.lonMin - imageSector.lonMin) / pixelWidth);
+        int x1 = (int) Math.ceil((sector.lonMax - imageSector.lonMin) / pixelWidth);
+        int y0 = (int) Math.floor((imageSector.latMax - sector.latMax) / pixelHeight);
+        int y1 = (int) Math.ceil((imageSector.latMax - sector.latMin) / pixelHeight);
+
+        return this.readDataRaster(imageIndex, new Rectangle(x0, y0, x1 - x0, y1 - y0), subsample);
+    }
+
+    /**
+     * Reads a window of an image, reading and decoding only the strips or tiles that intersect the window. Strips and
+     * tiles are decoded in parallel, and decoded strips and tiles are kept in a memory cache shared by every reader of
+     * the same file, so overlapping windows read successively do not decode the same data again.
+     * <p>
+     * The returned raster has one pixel for every <code>subsample</code> pixels of the window in each dimension. When
+     * the file contains reduced-resolution overviews of the image, the window is read from the coarsest overview that
+     * still provides the sub-sampled resolution. The raster's metadata describes the window: its width, height and
+     * georeferencing are those of the returned pixels.
+     *
+     * @param imageIndex the index of the full-resolution image.
+     * @param window     the window to read, in the image's pixel coordinates. The window is clipped to the image.
+     * @param subsample  the sub-sampling factor, 1 or greater.
+     * @return a raster covering the window, or null if the window does not intersect the image.
+     * @throws IOException              if the image's data type is not supported, or its data cannot be read.
+     * @throws IllegalArgumentException if the window is null, the sub-sampling factor is less than 1, or the image index
+     *                                  is invalid.
+     */
+    public DataRaster readDataRaster(int imageIndex, Rectangle window, int subsample) throws IOException {
+        if (window == null) {
+            String message = Logging.getMessage("nullValue.RectangleIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (subsample < 1) {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "subsample=" + subsample);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        checkImageIndex(imageIndex);
+        int width = this.getWidth(imageIndex);
+        int height = this.getHeight(imageIndex);
+
+        Rectangle clipped = window.intersection(new Rectangle(0, 0, width, height));
+        if (clipped.isEmpty()) {
+            return null;
+        }
+
+        int overviewIndex = this.selectOverview(imageIndex, subsample);
+        TiffImageBlocks blocks = this.getImageBlocks(overviewIndex);
+
+        // Map each returned pixel to the overview pixel containing the upper left corner of the window pixels it
+        // represents.
+        int rasterWidth = (clipped.width + subsample - 1) / subsample;
+        int rasterHeight = (clipped.height + subsample - 1) / subsample;
+        double scaleX = blocks.getWidth() / (double) width;
+        double scaleY = blocks.getHeight() / (double) height;
+
+        int[] cols = new int[rasterWidth];
+        for (int i = 0; i < rasterWidth; i++) {
+            cols[i] = Math.min(blocks.getWidth() - 1, (int) ((clipped.x + i * subsample) * scaleX));
+        }
+
+        int[] rows = new int[rasterHeight];
+        for (int j = 0; j < rasterHeight; j++) {
+            rows[j] = Math.min(blocks.getHeight() - 1, (int) ((clipped.y + j * subsample) * scaleY));
+        }
+
+        ByteBuffer[] data = blocks.readBlocks(new Rectangle(cols[0], rows[0],
+            cols[rasterWidth - 1] - cols[0] + 1, rows[rasterHeight - 1] - rows[0] + 1));
+
+        KV values = this.getMetadata(imageIndex);
+        this.setWindowMetadata(values, clipped, subsample, rasterWidth, rasterHeight);
+        Object dataType = values.get(Keys.DATA_TYPE);
+
+        if (values.get(Keys.PIXEL_FORMAT) == Keys.ELEVATION) {
+            if (dataType != Keys.INT8 && dataType != Keys.INT16 && dataType != Keys.INT32
+                && dataType != Keys.FLOAT32) {
+                String message = Logging.getMessage("Geotiff.UnsupportedDataTypeRaster", dataType);
+                Logging.logger().severe(message);
+                throw new IOException(message);
+            }
+
+            ByteBufferRaster raster = new ByteBufferRaster(rasterWidth, rasterHeight,
+                (Sector) values.get(Keys.SECTOR), values);
+
+            for (int j = 0; j < rasterHeight; j++) {
+                for (int i = 0; i < rasterWidth; i++) {
+                    raster.setDoubleAtPosition(j, i, GeotiffReader.readSample(blocks, data, cols[i], rows[j], 0,
+                        dataType));
+                }
+            }
+
+            ElevationsUtil.rectify(raster);
+
+            return raster;
+        } else if (values.get(Keys.PIXEL_FORMAT) == Keys.IMAGE
+            && values.get(Keys.IMAGE_COLOR_FORMAT) == Keys.GRAYSCALE
+            && (dataType == Keys.INT8 || dataType == Keys.INT16)) {
+            BufferedImage grayImage = new BufferedImage(rasterWidth, rasterHeight,
+                (dataType == Keys.INT8) ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_USHORT_GRAY);
+            WritableRaster wrRaster = grayImage.getRaster();
+            int mask = (dataType == Keys.INT8) ? 0xFF : 0xFFFF;
+
+            for (int j = 0; j < rasterHeight; j++) {
+                for (int i = 0; i < rasterWidth; i++) {
+                    int sample = (int) GeotiffReader.readSample(blocks, data, cols[i], rows[j], 0, dataType);
+                    wrRaster.setSample(i, j, 0, mask & sample);
+                }
+            }
+
+            grayImage = ImageUtil.toCompatibleImage(grayImage);
+            return BufferedImageRaster.wrap(grayImage, values);
+        } else if (values.get(Keys.PIXEL_FORMAT) == Keys.IMAGE
+            && values.get(Keys.IMAGE_COLOR_FORMAT) == Keys.COLOR && dataType == Keys.INT8) {
+            BufferedImage colorImage = this.createColorImage(overviewIndex, rasterWidth, rasterHeight);
+            WritableRaster wrRaster = colorImage.getRaster();
+            int numBands = wrRaster.getNumBands();
+
+            for (int j = 0; j < rasterHeight; j++) {
+                for (int i = 0; i < rasterWidth; i++) {
+                    for (int b = 0; b < numBands; b++) {
+                        int sample = (int) GeotiffReader.readSample(blocks, data, cols[i], rows[j], b, dataType);
+                        wrRaster.setSample(i, j, b, 0xFF & sample);
+                    }
+                }
+            }
+
+            colorImage = ImageUtil.toCompatibleImage(colorImage);
+            return BufferedImageRaster.wrap(colorImage, values);
+        }
+
+        String message = Logging.getMessage("Geotiff.UnsupportedDataTypeRaster", dataType);
+        Logging.logger().severe(message);
+        throw new IOException(message);
+    }
+
+    /*
+     * Returns the index of the image to read a sub-sampled window of an image from: the coarsest reduced-resolution
+     * overview of the image whose resolution is no less than the sub-sampled resolution, or the image itself. Overviews
+     * are the reduced-resolution images that follow the image in the file.
+     *
+     */
+    protected int selectOverview(int imageIndex, int subsample) {
+        int width = this.getWidth(imageIndex);
+        KV values = this.metadata.get(imageIndex);
+        int bestIndex = imageIndex;
+        double bestFactor = 1;
+
+        for (int i = imageIndex + 1; i < this.getNumImages(); i++) {
+            TiffIFDEntry entry = GeotiffReader.getByTag(this.tiffIFDs.get(i), Tiff.Tag.NEW_SUBFILE_TYPE);
+            long type = (entry != null) ? entry.asLong() : 0;
+
+            if ((type & Tiff.NewSubfileType.TRANSPARENCY_MASK) != 0) {
+                continue; // Skip masks interleaved with the overviews.
+            }
+            if ((type & Tiff.NewSubfileType.REDUCED_RESOLUTION) == 0) {
+                break; // The next full-resolution image.
+            }
+
+            KV overview = this.metadata.get(i);
+            int overviewWidth = this.getWidth(i);
+            if (overviewWidth <= 0 || overview.get(Keys.PIXEL_FORMAT) != values.get(Keys.PIXEL_FORMAT)
+                || overview.get(Keys.DATA_TYPE) != values.get(Keys.DATA_TYPE)) {
+                continue;
+            }
+
+            double factor = width / (double) overviewWidth;
+            if (factor <= subsample && factor > bestFactor) {
+                bestIndex = i;
+                bestFactor = factor;
+            }
+        }
+
+        return bestIndex;
+    }
+
+    protected TiffImageBlocks getImageBlocks(int imageIndex) throws IOException {
+        if (this.imageBlocks == null) {
+            this.imageBlocks = new HashMap<>();
+            // Identify the file by its path and modification state, so readers of the same file share decoded blocks
+            // and a modified file does not use the blocks of its previous content.
+            File file = new File(this.sourceFilename);
+            this.fileKey = file.getAbsolutePath() + '@' + file.lastModified() + '@' + file.length();
+        }
+
+        TiffImageBlocks blocks = this.imageBlocks.get(imageIndex);
+        if (blocks == null) {
+            TiffIFDEntry[] ifd = this.tiffIFDs.get(imageIndex);
+            BaselineTiff tiff = BaselineTiff.extract(ifd, this.tiffReader);
+
+            if (null == tiff || tiff.width <= 0 || tiff.height <= 0) {
+                String message = Logging.getMessage("GeotiffReader.BadGeotiff");
+                Logging.logger().severe(message);
+                throw new IOException(message);
+            }
+
+            blocks = new TiffImageBlocks(ifd, tiff, this.theChannel, this.tiffReader.getByteOrder(), this.fileKey,
+                imageIndex);
+            this.imageBlocks.put(imageIndex, blocks);
+        }
+
+        return blocks;
+    }
+
+    protected BufferedImage createColorImage(int imageIndex, int width, int height) throws IOException {
+        TiffIFDEntry[] ifd = this.tiffIFDs.get(imageIndex);
+        BaselineTiff tiff = BaselineTiff.extract(ifd, this.tiffReader);
+
+        if (tiff.photometric == Tiff.Photometric.Color_RGB && tiff.samplesPerPixel == Tiff.SamplesPerPixel.RGB) {
+            ColorModel colorModel = new ComponentColorModel(ColorSpace.getInstance(ColorSpace.CS_sRGB),
+                false, false, Transparency.OPAQUE, DataBuffer.TYPE_BYTE);
+            return new BufferedImage(colorModel, colorModel.createCompatibleWritableRaster(width, height), false,
+                null);
+        } else if (tiff.photometric == Tiff.Photometric.Color_RGB
+            && tiff.samplesPerPixel == Tiff.SamplesPerPixel.RGBA) {
+            ColorModel colorModel = new ComponentColorModel(ColorSpace.getInstance(ColorSpace.CS_sRGB),
+                true, false, Transparency.TRANSLUCENT, DataBuffer.TYPE_BYTE);
+            return new BufferedImage(colorModel, colorModel.createCompatibleWritableRaster(width, height), false,
+                null);
+        } else if (tiff.photometric == Tiff.Photometric.Color_Palette) {
+            byte[][] cmap = this.tiffReader.readColorMap(GeotiffReader.getByTag(ifd, Tiff.Tag.COLORMAP));
+            IndexColorModel colorModel = new IndexColorModel(Byte.SIZE, cmap[0].length, cmap[0], cmap[1], cmap[2]);
+            return new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED, colorModel);
+        }
+
+        String message = Logging.getMessage("Geotiff.UnsupportedDataTypeRaster", tiff.toString());
+        Logging.logger().severe(message);
+        throw new IOException(message);
+    }
+
+    /*
+     * Updates the width, height and georeferencing of an image's metadata to describe a sub-sampled window of the
+     * image.
+     *
+     */
+    protected void setWindowMetadata(KV values, Rectangle window, int subsample, int width, int height)
+        throws IOException {
+        int imageWidth = (Integer) values.get(Keys.WIDTH);
+        int imageHeight = (Integer) values.get(Keys.HEIGHT);
+        values.set(Keys.WIDTH, width);
+        values.set(Keys.HEIGHT, height);
+
+        if (Keys.COORDINATE_SYSTEM_GEOGRAPHIC.equals(values.get(Keys.COORDINATE_SYSTEM))
+            && values.hasKey(Keys.SECTOR)) {
+            Sector sector = (Sector) values.get(Keys.SECTOR);
+            double pixelWidth = sector.lonDelta / imageWidth;
+            double pixelHeight = sector.latDelta / imageHeight;
+
+            double minLon = sector.lonMin + window.x * pixelWidth;
+            double maxLat = sector.latMax - window.y * pixelHeight;
+            double maxLon = minLon + width * subsample * pixelWidth;
+            double minLat = maxLat - height * subsample * pixelHeight;
+
+            values.set(Keys.SECTOR, Sector.fromDegrees(minLat, maxLat, minLon, maxLon));
+            values.set(Keys.ORIGIN, LatLon.fromDegrees(maxLat, minLon));
+        } else if (values.hasKey(WorldFile.WORLD_FILE_X_LOCATION) && values.hasKey(WorldFile.WORLD_FILE_Y_LOCATION)) {
+            // World file locations are the center of the upper left pixel.
+            double pixelSizeX = KVMap.getDoubleValue(values, WorldFile.WORLD_FILE_X_PIXEL_SIZE);
+            double pixelSizeY = KVMap.getDoubleValue(values, WorldFile.WORLD_FILE_Y_PIXEL_SIZE);
+            double cornerX = KVMap.getDoubleValue(values, WorldFile.WORLD_FILE_X_LOCATION) - pixelSizeX / 2
+                + window.x * pixelSizeX;
+            double cornerY = KVMap.getDoubleValue(values, WorldFile.WORLD_FILE_Y_LOCATION) - pixelSizeY / 2
+                + window.y * pixelSizeY;
+
+            values.set(WorldFile.WORLD_FILE_X_PIXEL_SIZE, pixelSizeX * subsample);
+            values.set(WorldFile.WORLD_FILE_Y_PIXEL_SIZE, pixelSizeY * subsample);
+            values.set(WorldFile.WORLD_FILE_X_LOCATION, cornerX + pixelSizeX * subsample / 2);
+            values.set(WorldFile.WORLD_FILE_Y_LOCATION, cornerY + pixelSizeY * subsample / 2);
+            values.set(Keys.SECTOR, ImageUtil.calcBoundingBoxForUTM(values));
+        }
+    }
+
+    protected static double readSample(TiffImageBlocks blocks, ByteBuffer[] data, int x, int y, int band,
+        Object dataType) {
+        ByteBuffer block = data[blocks.getBlockIndex(x, y, band)];
+        int position = blocks.getSamplePosition(x, y, band);
+
+        if (dataType == Keys.INT8) {
+            return block.get(position);
+        } else if (dataType == Keys.INT16) {
+            return block.getShort(position);
+        } else if (dataType == Keys.INT32) {
+            return block.getInt(position);
+        } else {
+            return block.getFloat(position);
+        }
+    }
+
     public BufferedImage read() throws IOException {
         return this.read(0);
     }
@@ -212,6 +551,14 @@ public class GeotiffReader implements Disposable {
             throw new IOException(msg);
         }
 
+        // Tiled and deflate compressed images are read by decoding their blocks.
+        TiffIFDEntry compression = GeotiffReader.getByTag(ifd, Tiff.Tag.COMPRESSION);
+        if (GeotiffReader.getByTag(ifd, Tiff.Tag.TILE_WIDTH) != null || (compression != null
+            && (compression.asLong() == Tiff.Compression.DEFLATE
+            || compression.asLong() == Tiff.Compression.ADOBE_DEFLATE))) {
+            return this.readDataRaster(imageIndex, new Rectangle(0, 0, tiff.width, tiff.height), 1);
+        }
+
         for (TiffIFDEntry entry : ifd) {
             try {
                 switch (entry.tag) {
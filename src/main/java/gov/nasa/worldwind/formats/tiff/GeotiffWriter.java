@@ -17,6 +17,7 @@ import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * @author Lado Garakanidze
@@ -30,6 +31,9 @@ public class GeotiffWriter {
     private static final int BufferedImage_TYPE_ELEVATION_FLOAT32 = 9002;
     private RandomAccessFile targetFile;
     private FileChannel theChannel;
+    private int tileSize;
+    private int compression = Tiff.Compression.NONE;
+    private boolean createOverviews = true;
 
     public GeotiffWriter(String filename) throws FileNotFoundException {
         if (null == filename || filename.trim().isEmpty()) {
@@ -52,6 +56,87 @@ public class GeotiffWriter {
         commonInitializer(file);
     }
 
+    /**
+     * Indicates the width and height of the tiles of internally tiled images written by this writer.
+     *
+     * @return the tile size in pixels, or 0 if images are written in strips.
+     * @see #setTileSize(int)
+     */
+    public int getTileSize() {
+        return this.tileSize;
+    }
+
+    /**
+     * Specifies whether images are written internally tiled, and the width and height of the tiles. A tiled image
+     * can be read a window at a time by reading only the tiles the window intersects. Tiled images are written as
+     * cloud-optimized GeoTIFFs: the IFDs precede the image data, the image is followed by reduced-resolution overviews
+     * unless overviews are disabled, and the tiles of the smallest overview are written first. The default is 0,
+     * which writes images in strips of one row.
+     *
+     * @param tileSize the tile size in pixels, a multiple of 16, or 0 to write images in strips.
+     * @throws IllegalArgumentException if the tile size is negative or not a multiple of 16.
+     */
+    public void setTileSize(int tileSize) {
+        if (tileSize < 0 || tileSize % 16 != 0) {
+            String msg = Logging.getMessage("generic.ArgumentOutOfRange", "tileSize=" + tileSize);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.tileSize = tileSize;
+    }
+
+    /**
+     * Indicates the compression applied to the tiles of tiled images.
+     *
+     * @return the TIFF compression type.
+     * @see #setCompression(int)
+     */
+    public int getCompression() {
+        return this.compression;
+    }
+
+    /**
+     * Specifies the compression applied to the tiles of tiled images. Tiles are compressed in parallel. Integer
+     * samples are compressed with the horizontal differencing predictor. Images written in strips are not compressed.
+     * The default is {@link Tiff.Compression#NONE}.
+     *
+     * @param compression the TIFF compression type: {@link Tiff.Compression#NONE}, {@link Tiff.Compression#LZW} or
+     *                    {@link Tiff.Compression#ADOBE_DEFLATE}.
+     * @throws IllegalArgumentException if the compression type is not supported.
+     */
+    public void setCompression(int compression) {
+        if (compression != Tiff.Compression.NONE && compression != Tiff.Compression.LZW
+            && compression != Tiff.Compression.ADOBE_DEFLATE) {
+            String msg = Logging.getMessage("GeotiffWriter.FeatureNotImplemented", "compression=" + compression);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.compression = compression;
+    }
+
+    /**
+     * Indicates whether tiled images are followed by reduced-resolution overviews.
+     *
+     * @return true if overviews are written.
+     */
+    public boolean isCreateOverviews() {
+        return this.createOverviews;
+    }
+
+    /**
+     * Specifies whether tiled images are followed by reduced-resolution overviews. Each overview is half the size of
+     * the previous one, and overviews are added until an overview fits in one tile. Image overviews average each 2x2
+     * block of pixels; elevation overviews take the block's upper left value, so they contain only source values. The
+     * default is true.
+     *
+     * @param createOverviews true to write overviews.
+     */
+    public void setCreateOverviews(boolean createOverviews) {
+        this.createOverviews = createOverviews;
+    }
+
     //
     // Merely consolidates the error checking for the ctors in one place.
     //
@@ -489,6 +574,12 @@ public class GeotiffWriter {
     }
 
     private void writeColorImage(BufferedImage image, KV params) throws IOException {
+        if (this.tileSize > 0) {
+            this.writeTiledImage(TiffTileEncoder.Samples.fromRaster(image.getRaster(), Byte.SIZE),
+                Tiff.Photometric.Color_RGB, params, true);
+            return;
+        }
+
         int numBands = image.getRaster().getNumBands();
         long offset;
 
@@ -573,6 +664,12 @@ public class GeotiffWriter {
 
         int bytesPerSample = numBands * bitsPerSample / Byte.SIZE;
 
+        if (this.tileSize > 0) {
+            this.writeTiledImage(TiffTileEncoder.Samples.fromRaster(image.getRaster(), bitsPerSample),
+                Tiff.Photometric.Grayscale_BlackIsZero, params, true);
+            return;
+        }
+
         this.writeTiffHeader();
 
         // write the image data...
@@ -641,6 +738,193 @@ public class GeotiffWriter {
         this.writeIFDs(ifds);
     }
 
+    /*
+     * Writes an internally tiled image, and its overviews, as a cloud-optimized GeoTIFF. Data referenced by the IFD
+     * entries is written first, followed by every IFD, followed by the tiles. The tile offsets and byte counts are
+     * filled in after the tiles are written. Overviews of images average each 2x2 block of pixels; overviews of
+     * elevations take the block's upper left value.
+     *
+     */
+    private void writeTiledImage(TiffTileEncoder.Samples samples, int photometric, KV params, boolean average)
+        throws IOException {
+        this.writeTiffHeader();
+
+        List<TiffTileEncoder.Samples> levels = new ArrayList<>();
+        levels.add(samples);
+        if (this.createOverviews) {
+            TiffTileEncoder.Samples level = samples;
+            while (level.width > this.tileSize || level.height > this.tileSize) {
+                level = level.reduce(average);
+                levels.add(level);
+            }
+        }
+
+        TiffTileEncoder encoder = new TiffTileEncoder(this.tileSize, this.compression);
+        int numLevels = levels.size();
+        List<List<TiffIFDEntry>> ifds = new ArrayList<>(numLevels);
+        long[] offsetsPositions = new long[numLevels];
+        long[] countsPositions = new long[numLevels];
+
+        for (int i = 0; i < numLevels; i++) {
+            TiffTileEncoder.Samples level = levels.get(i);
+            List<TiffIFDEntry> ifd = new ArrayList<>(20);
+
+            if (i > 0) {
+                ifd.add(new TiffIFDEntry(Tiff.Tag.NEW_SUBFILE_TYPE, Tiff.Type.LONG, 1,
+                    Tiff.NewSubfileType.REDUCED_RESOLUTION));
+            }
+            ifd.add(new TiffIFDEntry(Tiff.Tag.IMAGE_WIDTH, Tiff.Type.LONG, 1, level.width));
+            ifd.add(new TiffIFDEntry(Tiff.Tag.IMAGE_LENGTH, Tiff.Type.LONG, 1, level.height));
+            ifd.add(this.createShortsEntry(Tiff.Tag.BITS_PER_SAMPLE, level.bitsPerSample, level.samplesPerPixel));
+            ifd.add(new TiffIFDEntry(Tiff.Tag.COMPRESSION, Tiff.Type.SHORT, 1, this.compression));
+            ifd.add(new TiffIFDEntry(Tiff.Tag.PHOTO_INTERPRETATION, Tiff.Type.SHORT, 1, photometric));
+            ifd.add(new TiffIFDEntry(Tiff.Tag.SAMPLES_PER_PIXEL, Tiff.Type.SHORT, 1, level.samplesPerPixel));
+            ifd.add(new TiffIFDEntry(Tiff.Tag.PLANAR_CONFIGURATION, Tiff.Type.SHORT, 1,
+                Tiff.PlanarConfiguration.CHUNKY));
+            ifd.add(this.createShortsEntry(Tiff.Tag.SAMPLE_FORMAT, level.sampleFormat, level.samplesPerPixel));
+            ifd.add(new TiffIFDEntry(Tiff.Tag.TILE_WIDTH, Tiff.Type.LONG, 1, this.tileSize));
+            ifd.add(new TiffIFDEntry(Tiff.Tag.TILE_LENGTH, Tiff.Type.LONG, 1, this.tileSize));
+            if (encoder.usesPredictor(level)) {
+                ifd.add(new TiffIFDEntry(Tiff.Tag.TIFF_PREDICTOR, Tiff.Type.SHORT, 1, Tiff.Predictor.HORIZONTAL));
+            }
+
+            if (i == 0) {
+                ifd.add(new TiffIFDEntry(Tiff.Tag.ORIENTATION, Tiff.Type.SHORT, 1, Tiff.Orientation.DEFAULT));
+                this.appendGeoTiff(ifd, params);
+            }
+
+            // Reserve room for the tile offsets and byte counts, unless there is a single tile, in which case they
+            // are held in the IFD entries.
+            int numTiles = this.getNumTiles(level);
+            if (numTiles > 1) {
+                offsetsPositions[i] = this.theChannel.position();
+                countsPositions[i] = offsetsPositions[i] + (long) numTiles * GeotiffWriter.INTEGER_SIZEOF;
+                this.theChannel.write(ByteBuffer.allocate(2 * numTiles * GeotiffWriter.INTEGER_SIZEOF));
+            }
+
+            ifds.add(ifd);
+        }
+
+        // Reserve room for the IFDs, which precede the tiles so that a reader finds every IFD at the start of the file.
+        // Each IFD also has entries for the tile offsets and byte counts.
+        long[] ifdOffsets = new long[numLevels];
+        long position = this.theChannel.position();
+        for (int i = 0; i < numLevels; i++) {
+            position += (position % 4L == 0) ? 0 : (4L - position % 4L);
+            ifdOffsets[i] = position;
+            position += 2 + 12L * (ifds.get(i).size() + 2) + 4;
+        }
+        this.theChannel.position(position);
+
+        // Write the tiles of the smallest overview first, and those of the full resolution image last.
+        long[][] tileOffsets = new long[numLevels][];
+        long[][] tileCounts = new long[numLevels][];
+        for (int i = numLevels - 1; i >= 0; i--) {
+            int numTiles = this.getNumTiles(levels.get(i));
+            tileOffsets[i] = new long[numTiles];
+            tileCounts[i] = new long[numTiles];
+            this.writeTiles(encoder, levels.get(i), tileOffsets[i], tileCounts[i]);
+        }
+        long end = this.theChannel.position();
+
+        for (int i = 0; i < numLevels; i++) {
+            List<TiffIFDEntry> ifd = ifds.get(i);
+            int numTiles = tileOffsets[i].length;
+
+            if (numTiles == 1) {
+                ifd.add(new TiffIFDEntry(Tiff.Tag.TILE_OFFSETS, Tiff.Type.LONG, 1, tileOffsets[i][0]));
+                ifd.add(new TiffIFDEntry(Tiff.Tag.TILE_COUNTS, Tiff.Type.LONG, 1, tileCounts[i][0]));
+            } else {
+                this.writeLongs(tileOffsets[i], offsetsPositions[i]);
+                this.writeLongs(tileCounts[i], countsPositions[i]);
+                ifd.add(new TiffIFDEntry(Tiff.Tag.TILE_OFFSETS, Tiff.Type.LONG, numTiles, offsetsPositions[i]));
+                ifd.add(new TiffIFDEntry(Tiff.Tag.TILE_COUNTS, Tiff.Type.LONG, numTiles, countsPositions[i]));
+            }
+
+            this.writeIFD(ifd, ifdOffsets[i], (i < numLevels - 1) ? ifdOffsets[i + 1] : 0);
+        }
+
+        this.writeFirstIFDOffset(ifdOffsets[0]);
+        this.theChannel.position(end);
+    }
+
+    private int getNumTiles(TiffTileEncoder.Samples samples) {
+        int tilesAcross = (samples.width + this.tileSize - 1) / this.tileSize;
+        int tilesDown = (samples.height + this.tileSize - 1) / this.tileSize;
+        return tilesAcross * tilesDown;
+    }
+
+    /*
+     * Encodes the tiles of an image in parallel, a batch at a time to bound the memory held by encoded tiles, and
+     * writes them in order at the channel's position.
+     *
+     */
+    private void writeTiles(TiffTileEncoder encoder, TiffTileEncoder.Samples samples, long[] offsets, long[] counts)
+        throws IOException {
+        int tilesAcross = (samples.width + this.tileSize - 1) / this.tileSize;
+        int batchSize = 4 * Runtime.getRuntime().availableProcessors();
+
+        for (int start = 0; start < offsets.length; start += batchSize) {
+            List<Callable<byte[]>> tasks = new ArrayList<>(batchSize);
+            for (int t = start; t < Math.min(start + batchSize, offsets.length); t++) {
+                int col = t % tilesAcross;
+                int row = t / tilesAcross;
+                tasks.add(() -> encoder.encodeTile(samples, col, row));
+            }
+
+            try {
+                List<Future<byte[]>> results = ForkJoinPool.commonPool().invokeAll(tasks);
+                for (int i = 0; i < results.size(); i++) {
+                    byte[] tile = results.get(i).get();
+                    offsets[start + i] = this.theChannel.position();
+                    counts[start + i] = tile.length;
+                    this.theChannel.write(ByteBuffer.wrap(tile));
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+            }
+
+            if (this.theChannel.position() > 0xFFFFFFFFL) {
+                String msg = Logging.getMessage("GeotiffWriter.FileTooLarge", this.theChannel.position());
+                Logging.logger().severe(msg);
+                throw new IOException(msg);
+            }
+        }
+    }
+
+    /*
+     * Returns an entry holding one SHORT value for each sample of a pixel. One or two values are held in the entry;
+     * more are written at the channel's position.
+     *
+     */
+    private TiffIFDEntry createShortsEntry(int tag, int value, int count) throws IOException {
+        if (count == 1) {
+            return new TiffIFDEntry(tag, Tiff.Type.SHORT, 1, value);
+        } else if (count == 2) {
+            return new TiffIFDEntry(tag, Tiff.Type.SHORT, 2, ((long) value << 16) | value);
+        }
+
+        long offset = this.theChannel.position();
+        short[] values = new short[count];
+        Arrays.fill(values, (short) value);
+        this.theChannel.write(ByteBuffer.wrap(GeotiffWriter.getBytes(values)));
+        return new TiffIFDEntry(tag, Tiff.Type.SHORT, count, offset);
+    }
+
+    private void writeLongs(long[] values, long offset) throws IOException {
+        ByteBuffer dataBuff = ByteBuffer.allocate(values.length * GeotiffWriter.INTEGER_SIZEOF);
+        for (long value : values) {
+            GeotiffWriter.putUnsignedInt(dataBuff, value);
+        }
+        dataBuff.flip();
+        this.theChannel.write(dataBuff, offset);
+    }
+
     private void writeTiffHeader() throws IOException {
         // A TIFF file begins with an 8-byte image file header, containing the following information:
         //
@@ -877,6 +1161,17 @@ public class GeotiffWriter {
         long adjust = offset % 4L;
         offset += (adjust == 0) ? 0 : (4L - adjust);
 
+        this.writeIFD(ifds, offset, 0);
+
+        // go back and patch up the ifd offset in header...
+        this.writeFirstIFDOffset(offset);
+    }
+
+    /*
+     * Writes an IFD at the specified position, followed by the offset of the next IFD (zero if this is the last IFD).
+     *
+     */
+    private void writeIFD(List<TiffIFDEntry> ifds, long offset, long nextIFDOffset) throws IOException {
         this.theChannel.position(offset);
 
         Collections.sort(ifds);
@@ -903,15 +1198,16 @@ public class GeotiffWriter {
         dataBuff.flip();
         this.theChannel.write(dataBuff);
 
-        // The spec requires 4 bytes of zeros at the end...
+        // The spec requires 4 bytes of zeros at the end of the last IFD...
         dataBuff.clear();
-        dataBuff.putInt(0);
+        GeotiffWriter.putUnsignedInt(dataBuff, nextIFDOffset);
         dataBuff.flip();
         this.theChannel.write(dataBuff);
+    }
 
-        // go back and patch up the ifd offset in header...
+    private void writeFirstIFDOffset(long offset) throws IOException {
+        ByteBuffer dataBuff = ByteBuffer.allocate(GeotiffWriter.INTEGER_SIZEOF);
         this.theChannel.position(4);
-        dataBuff.clear();
         GeotiffWriter.putUnsignedInt(dataBuff, offset);
         dataBuff.flip();
         this.theChannel.write(dataBuff);
@@ -985,6 +1281,14 @@ public class GeotiffWriter {
 
         int bytesPerSample = numBands * bitsPerSample / Byte.SIZE;
 
+        if (this.tileSize > 0) {
+            boolean rgb = (Tiff.BitsPerSample.RGB == bitsPerSample);
+            this.writeTiledImage(TiffTileEncoder.Samples.fromBuffer(raster.getBuffer(), raster.getWidth(),
+                raster.getHeight(), rgb ? Byte.SIZE : bitsPerSample, sampleFormat, rgb), photometric, raster,
+                GeotiffWriter.isImage(raster));
+            return;
+        }
+
         this.writeTiffHeader();
 
         // write the image data...
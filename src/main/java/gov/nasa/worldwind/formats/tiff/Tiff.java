@@ -29,6 +29,7 @@ public interface Tiff {
 
     interface Tag {
         // Baseline Tiff 6.0 tags...
+        int NEW_SUBFILE_TYPE = 254;
         int IMAGE_WIDTH = 256;
         int IMAGE_LENGTH = 257;
         int BITS_PER_SAMPLE = 258;
@@ -183,7 +184,24 @@ public interface Tiff {
         int NONE = 1;
         int LZW = 5;
         int JPEG = 6;
+        int ADOBE_DEFLATE = 8;
         int PACKBITS = 32773;
+        int DEFLATE = 32946;
+    }
+
+    interface Predictor {
+        int NONE = 1;
+        // Each sample is stored as the difference from the same component of the previous pixel in the row.
+        int HORIZONTAL = 2;
+        int FLOATING_POINT = 3;
+    }
+
+    interface NewSubfileType {
+        // The image is a reduced-resolution version of another image in the file (an overview).
+        int REDUCED_RESOLUTION = 1;
+        int PAGE = 2;
+        // The image defines a transparency mask for another image in the file.
+        int TRANSPARENCY_MASK = 4;
     }
 
     interface PlanarConfiguration {
@@ -0,0 +1,376 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.formats.tiff;
+
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.cache.*;
+import gov.nasa.worldwind.util.Logging;
+
+import java.awt.*;
+import java.io.IOException;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+
+/**
+ * This is a package private class that reads the strips or tiles of one TIFF image independently of each other, so
+ * that a window of the image can be read without reading the whole image. Both a stripped image and a tiled image are
+ * treated as a grid of blocks: a strip is a block as wide as the image. Each block is read with a positional read of
+ * the file channel, so blocks may be read and decoded concurrently, and decoded blocks are kept in a memory cache shared
+ * by every reader of the same file.
+ * <p>
+ * A decoded block contains the block's samples in the file's byte order, row by row, with the samples of each pixel
+ * interleaved for a chunky image, or a single sample per pixel for one plane of a planar image.
+ */
+class TiffImageBlocks {
+    protected static final String BLOCK_CACHE_KEY = TiffImageBlocks.class.getName();
+    protected static final String BLOCK_CACHE_NAME = "GeoTIFF Blocks";
+    protected static final long DEFAULT_BLOCK_CACHE_SIZE = 67108864L; // 64 megabytes
+
+    static {
+        if (!WorldWind.getMemoryCacheSet().containsCache(TiffImageBlocks.BLOCK_CACHE_KEY)) {
+            long size = Configuration.getLongValue(Keys.GEOTIFF_BLOCK_CACHE_SIZE,
+                TiffImageBlocks.DEFAULT_BLOCK_CACHE_SIZE);
+            MemoryCache cache = new SoftMemoryCache(size);
+            cache.setName(TiffImageBlocks.BLOCK_CACHE_NAME);
+            WorldWind.getMemoryCacheSet().addCache(TiffImageBlocks.BLOCK_CACHE_KEY, cache);
+        }
+    }
+
+    protected final FileChannel channel;
+    protected final ByteOrder byteOrder;
+    protected final String fileKey;
+    protected final int imageIndex;
+    protected final int width;
+    protected final int height;
+    protected final int blockWidth;
+    protected final int blockHeight;
+    protected final int blocksAcross;
+    protected final int blocksDown;
+    protected final int samplesPerPixel;
+    protected final int bytesPerSample;
+    protected final boolean planar;
+    protected final int compression;
+    protected final int predictor;
+    protected final long[] offsets;
+    protected final long[] counts;
+
+    /**
+     * Creates the block layout of a TIFF image from the image's IFD.
+     *
+     * @param ifd        the image's IFD entries.
+     * @param tiff       the image's baseline tags.
+     * @param channel    the channel of the file containing the image.
+     * @param byteOrder  the file's byte order.
+     * @param fileKey    a key identifying the file's content, used to share decoded blocks between readers.
+     * @param imageIndex the index of the image in the file.
+     * @throws IOException if the image's block tags are missing or inconsistent.
+     */
+    TiffImageBlocks(TiffIFDEntry[] ifd, BaselineTiff tiff, FileChannel channel, ByteOrder byteOrder, String fileKey,
+        int imageIndex) throws IOException {
+        this.channel = channel;
+        this.byteOrder = byteOrder;
+        this.fileKey = fileKey;
+        this.imageIndex = imageIndex;
+        this.width = tiff.width;
+        this.height = tiff.height;
+        this.samplesPerPixel = Math.max(tiff.samplesPerPixel, 1);
+        this.planar = tiff.planarConfig == Tiff.PlanarConfiguration.PLANAR && this.samplesPerPixel > 1;
+
+        int bitsPerSample = (tiff.bitsPerSample != null) ? tiff.bitsPerSample[0] : Byte.SIZE;
+        if (bitsPerSample % Byte.SIZE != 0) {
+            String message = Logging.getMessage("GeotiffReader.Not8bit", bitsPerSample);
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+        this.bytesPerSample = bitsPerSample / Byte.SIZE;
+
+        long tileWidth = 0;
+        long tileHeight = 0;
+        long[] blockOffsets = null;
+        long[] blockCounts = null;
+        int compressionType = Tiff.Compression.NONE;
+        int predictorType = Tiff.Predictor.NONE;
+
+        for (TiffIFDEntry entry : ifd) {
+            switch (entry.tag) {
+                case Tiff.Tag.TILE_WIDTH -> tileWidth = entry.asLong();
+                case Tiff.Tag.TILE_LENGTH -> tileHeight = entry.asLong();
+                case Tiff.Tag.STRIP_OFFSETS, Tiff.Tag.TILE_OFFSETS -> blockOffsets = entry.getAsLongs();
+                case Tiff.Tag.STRIP_BYTE_COUNTS, Tiff.Tag.TILE_COUNTS -> blockCounts = entry.getAsLongs();
+                case Tiff.Tag.COMPRESSION -> compressionType = (int) entry.asLong();
+                case Tiff.Tag.TIFF_PREDICTOR -> predictorType = (int) entry.asLong();
+            }
+        }
+
+        if (tileWidth > 0 && tileHeight > 0) {
+            this.blockWidth = (int) tileWidth;
+            this.blockHeight = (int) tileHeight;
+        } else {
+            this.blockWidth = this.width;
+            this.blockHeight = (tiff.rowsPerStrip > 0) ? Math.min(tiff.rowsPerStrip, this.height) : this.height;
+        }
+
+        this.blocksAcross = (this.width + this.blockWidth - 1) / this.blockWidth;
+        this.blocksDown = (this.height + this.blockHeight - 1) / this.blockHeight;
+
+        int numBlocks = this.blocksAcross * this.blocksDown * (this.planar ? this.samplesPerPixel : 1);
+        if (blockOffsets == null || blockOffsets.length < numBlocks) {
+            String message = Logging.getMessage("GeotiffReader.MissingRequiredTag",
+                (tileWidth > 0) ? "TileOffsets" : "StripOffsets");
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+
+        if (blockCounts == null || blockCounts.length < numBlocks) {
+            String message = Logging.getMessage("GeotiffReader.MissingRequiredTag",
+                (tileWidth > 0) ? "TileByteCounts" : "StripByteCounts");
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+
+        if (compressionType != Tiff.Compression.NONE && compressionType != Tiff.Compression.LZW
+            && compressionType != Tiff.Compression.DEFLATE && compressionType != Tiff.Compression.ADOBE_DEFLATE) {
+            String message = Logging.getMessage("GeotiffReader.CompressionFormatNotSupported");
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+
+        if (predictorType != Tiff.Predictor.NONE && predictorType != Tiff.Predictor.HORIZONTAL) {
+            String message = Logging.getMessage("GeotiffReader.InvalidIFDEntryValue", predictorType, "Predictor",
+                Tiff.Tag.TIFF_PREDICTOR);
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+
+        this.offsets = blockOffsets;
+        this.counts = blockCounts;
+        this.compression = compressionType;
+        this.predictor = predictorType;
+    }
+
+    protected static MemoryCache getBlockCache() {
+        return WorldWind.cache(TiffImageBlocks.BLOCK_CACHE_KEY);
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * Indicates the index of the block containing a sample.
+     *
+     * @param x    the sample's column.
+     * @param y    the sample's row.
+     * @param band the sample's band.
+     * @return the index of the block containing the sample.
+     */
+    public int getBlockIndex(int x, int y, int band) {
+        int index = (y / this.blockHeight) * this.blocksAcross + (x / this.blockWidth);
+        return this.planar ? band * this.blocksAcross * this.blocksDown + index : index;
+    }
+
+    /**
+     * Indicates the byte position of a sample within its decoded block.
+     *
+     * @param x    the sample's column.
+     * @param y    the sample's row.
+     * @param band the sample's band.
+     * @return the position of the sample's first byte in the block returned by {@link #readBlocks(Rectangle)}.
+     */
+    public int getSamplePosition(int x, int y, int band) {
+        int pixel = (y % this.blockHeight) * this.blockWidth + (x % this.blockWidth);
+        int sample = this.planar ? pixel : pixel * this.samplesPerPixel + band;
+        return sample * this.bytesPerSample;
+    }
+
+    /**
+     * Reads the blocks intersecting a window of the image, in every band. Blocks that are not in the block cache are
+     * read and decoded in parallel.
+     *
+     * @param window the window, in image pixels. The window must be within the image.
+     * @return an array indexed by block index, containing the decoded blocks that intersect the window, in the file's
+     * byte order. Entries for other blocks are null.
+     * @throws IOException if a block cannot be read or decoded.
+     */
+    public ByteBuffer[] readBlocks(Rectangle window) throws IOException {
+        int numPlanes = this.planar ? this.samplesPerPixel : 1;
+        ByteBuffer[] blocks = new ByteBuffer[this.blocksAcross * this.blocksDown * numPlanes];
+        List<Integer> missing = new ArrayList<>();
+
+        MemoryCache cache = TiffImageBlocks.getBlockCache();
+        int firstCol = window.x / this.blockWidth;
+        int lastCol = (window.x + window.width - 1) / this.blockWidth;
+        int firstRow = window.y / this.blockHeight;
+        int lastRow = (window.y + window.height - 1) / this.blockHeight;
+
+        for (int plane = 0; plane < numPlanes; plane++) {
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int col = firstCol; col <= lastCol; col++) {
+                    int index = (plane * this.blocksDown + row) * this.blocksAcross + col;
+                    byte[] data = (byte[]) cache.getObject(new BlockKey(this.fileKey, this.imageIndex, index));
+                    if (data != null)
+                        blocks[index] = ByteBuffer.wrap(data).order(this.byteOrder);
+                    else
+                        missing.add(index);
+                }
+            }
+        }
+
+        if (missing.size() == 1) {
+            int index = missing.get(0);
+            blocks[index] = ByteBuffer.wrap(this.readBlock(index)).order(this.byteOrder);
+        } else if (missing.size() > 1) {
+            List<Callable<byte[]>> tasks = new ArrayList<>(missing.size());
+            for (int index : missing) {
+                tasks.add(() -> this.readBlock(index));
+            }
+
+            try {
+                List<Future<byte[]>> results = ForkJoinPool.commonPool().invokeAll(tasks);
+                for (int i = 0; i < results.size(); i++) {
+                    blocks[missing.get(i)] = ByteBuffer.wrap(results.get(i).get()).order(this.byteOrder);
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException)
+                    throw (IOException) e.getCause();
+                throw new IOException(e.getCause());
+            }
+        }
+
+        return blocks;
+    }
+
+    /**
+     * Reads, decodes and caches one block.
+     *
+     * @param index the block index.
+     * @return the decoded block.
+     * @throws IOException if the block cannot be read or decoded.
+     */
+    protected byte[] readBlock(int index) throws IOException {
+        int samplesInRow = this.blockWidth * (this.planar ? 1 : this.samplesPerPixel);
+        int rowBytes = samplesInRow * this.bytesPerSample;
+        byte[] data = new byte[rowBytes * this.blockHeight];
+
+        // Read the encoded block with a positional read, which leaves the channel's position unchanged and so may be
+        // performed concurrently with other reads.
+        ByteBuffer encoded = ByteBuffer.allocate((int) this.counts[index]);
+        long position = this.offsets[index];
+        while (encoded.hasRemaining()) {
+            int numRead = this.channel.read(encoded, position + encoded.position());
+            if (numRead < 0)
+                break;
+        }
+        byte[] bytes = encoded.array();
+
+        if (this.compression == Tiff.Compression.LZW) {
+            byte[] decoded = TIFFReader.lzwUncompress(bytes, data.length);
+            System.arraycopy(decoded, 0, data, 0, Math.min(decoded.length, data.length));
+        } else if (this.compression == Tiff.Compression.DEFLATE
+            || this.compression == Tiff.Compression.ADOBE_DEFLATE) {
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(bytes);
+                int length = 0;
+                while (length < data.length && !inflater.finished() && !inflater.needsInput()) {
+                    length += inflater.inflate(data, length, data.length - length);
+                }
+            }
+            catch (DataFormatException e) {
+                throw new IOException(e);
+            }
+            finally {
+                inflater.end();
+            }
+        } else {
+            System.arraycopy(bytes, 0, data, 0, Math.min(bytes.length, data.length));
+        }
+
+        if (this.predictor == Tiff.Predictor.HORIZONTAL)
+            this.undoHorizontalDifferencing(data, samplesInRow, rowBytes);
+
+        TiffImageBlocks.getBlockCache().add(new BlockKey(this.fileKey, this.imageIndex, index), data, data.length);
+
+        return data;
+    }
+
+    /**
+     * Reverses the horizontal differencing predictor, which stores each sample as the difference from the same
+     * component of the previous pixel in the row.
+     *
+     * @param data         the decompressed block.
+     * @param samplesInRow the number of samples in a block row.
+     * @param rowBytes     the number of bytes in a block row.
+     */
+    protected void undoHorizontalDifferencing(byte[] data, int samplesInRow, int rowBytes) {
+        int stride = this.planar ? 1 : this.samplesPerPixel;
+        ByteBuffer buffer = ByteBuffer.wrap(data).order(this.byteOrder);
+
+        for (int row = 0; row < this.blockHeight; row++) {
+            int base = row * rowBytes;
+            for (int i = stride; i < samplesInRow; i++) {
+                int pos = base + i * this.bytesPerSample;
+                int prev = pos - stride * this.bytesPerSample;
+                switch (this.bytesPerSample) {
+                    case 1 -> data[pos] += data[prev];
+                    case 2 -> buffer.putShort(pos, (short) (buffer.getShort(pos) + buffer.getShort(prev)));
+                    case 4 -> buffer.putInt(pos, buffer.getInt(pos) + buffer.getInt(prev));
+                    case 8 -> buffer.putLong(pos, buffer.getLong(pos) + buffer.getLong(prev));
+                }
+            }
+        }
+    }
+
+    /**
+     * Key identifying a decoded block in the block cache.
+     */
+    protected static class BlockKey {
+        protected final String fileKey;
+        protected final int imageIndex;
+        protected final int blockIndex;
+
+        public BlockKey(String fileKey, int imageIndex, int blockIndex) {
+            this.fileKey = fileKey;
+            this.imageIndex = imageIndex;
+            this.blockIndex = blockIndex;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (o == null || this.getClass() != o.getClass())
+                return false;
+
+            BlockKey that = (BlockKey) o;
+            return this.imageIndex == that.imageIndex
+                && this.blockIndex == that.blockIndex
+                && this.fileKey.equals(that.fileKey);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = this.fileKey.hashCode();
+            result = 31 * result + this.imageIndex;
+            result = 31 * result + this.blockIndex;
+            return result;
+        }
+    }
+}
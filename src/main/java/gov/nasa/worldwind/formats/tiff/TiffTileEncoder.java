@@ -0,0 +1,367 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.formats.tiff;
+
+import gov.nasa.worldwind.util.BufferWrapper;
+
+import java.awt.image.Raster;
+import java.io.ByteArrayOutputStream;
+import java.nio.*;
+import java.util.*;
+import java.util.zip.Deflater;
+
+/**
+ * This is a package private class that encodes the tiles of an internally tiled TIFF image. Each tile is encoded
+ * independently of the others, so tiles may be encoded concurrently. Samples are written in big-endian byte order, the
+ * order of the file header written by {@link GeotiffWriter}. Tiles at the right and bottom edges of the image are
+ * padded to the full tile size by repeating the last column and row of the image.
+ */
+class TiffTileEncoder {
+    protected static final int LZW_CLEAR_CODE = 256;
+    protected static final int LZW_EOI_CODE = 257;
+    protected static final int LZW_FIRST_CODE = 258;
+    protected static final int LZW_MIN_BITS = 9;
+    protected static final int LZW_MAX_CODE = 4095;
+
+    protected final int tileSize;
+    protected final int compression;
+
+    /**
+     * Creates an encoder for square tiles.
+     *
+     * @param tileSize    the tile width and height, in pixels.
+     * @param compression the compression applied to each tile: {@link Tiff.Compression#NONE}, {@link
+     *                    Tiff.Compression#LZW} or {@link Tiff.Compression#ADOBE_DEFLATE}.
+     */
+    TiffTileEncoder(int tileSize, int compression) {
+        this.tileSize = tileSize;
+        this.compression = compression;
+    }
+
+    public int getTileSize() {
+        return this.tileSize;
+    }
+
+    public int getCompression() {
+        return this.compression;
+    }
+
+    /**
+     * Indicates whether tiles of an image are encoded with the horizontal differencing predictor. The predictor is
+     * applied to compressed integer samples, for which it usually improves the compression ratio.
+     *
+     * @param samples the image.
+     * @return true if the image's tiles use the horizontal differencing predictor.
+     */
+    public boolean usesPredictor(Samples samples) {
+        return this.compression != Tiff.Compression.NONE && samples.sampleFormat != Tiff.SampleFormat.IEEEFLOAT;
+    }
+
+    /**
+     * Encodes one tile of an image.
+     *
+     * @param samples the image.
+     * @param col     the tile's column.
+     * @param row     the tile's row.
+     * @return the encoded tile.
+     */
+    public byte[] encodeTile(Samples samples, int col, int row) {
+        int rowSamples = this.tileSize * samples.samplesPerPixel;
+        ByteBuffer buffer = ByteBuffer.allocate(rowSamples * this.tileSize * samples.bytesPerSample);
+
+        for (int j = 0; j < this.tileSize; j++) {
+            int y = Math.min(row * this.tileSize + j, samples.height - 1);
+            for (int i = 0; i < this.tileSize; i++) {
+                int x = Math.min(col * this.tileSize + i, samples.width - 1);
+                for (int b = 0; b < samples.samplesPerPixel; b++) {
+                    samples.putSample(buffer, samples.getSample(x, y, b));
+                }
+            }
+        }
+
+        byte[] data = buffer.array();
+        if (this.usesPredictor(samples))
+            TiffTileEncoder.applyHorizontalDifferencing(buffer, samples, rowSamples, this.tileSize);
+
+        if (this.compression == Tiff.Compression.ADOBE_DEFLATE)
+            return TiffTileEncoder.deflate(data);
+        else if (this.compression == Tiff.Compression.LZW)
+            return TiffTileEncoder.lzwCompress(data);
+        else
+            return data;
+    }
+
+    /*
+     * Replaces each sample with the difference from the same component of the previous pixel in its row, working from
+     * the end of the row so that each difference uses the original previous value.
+     */
+    protected static void applyHorizontalDifferencing(ByteBuffer buffer, Samples samples, int rowSamples,
+        int numRows) {
+        int stride = samples.samplesPerPixel;
+        int size = samples.bytesPerSample;
+
+        for (int row = 0; row < numRows; row++) {
+            int base = row * rowSamples * size;
+            for (int i = rowSamples - 1; i >= stride; i--) {
+                int pos = base + i * size;
+                int prev = pos - stride * size;
+                switch (size) {
+                    case 1 -> buffer.put(pos, (byte) (buffer.get(pos) - buffer.get(prev)));
+                    case 2 -> buffer.putShort(pos, (short) (buffer.getShort(pos) - buffer.getShort(prev)));
+                    case 4 -> buffer.putInt(pos, buffer.getInt(pos) - buffer.getInt(prev));
+                }
+            }
+        }
+    }
+
+    protected static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 64);
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(chunk);
+                out.write(chunk, 0, length);
+            }
+            return out.toByteArray();
+        }
+        finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Compresses data with the TIFF variant of LZW: codes are packed most significant bit first, and the code width
+     * increases one code earlier than in other LZW variants. This is the inverse of {@link
+     * TIFFReader#lzwUncompress(byte[], int)}.
+     *
+     * @param data the data to compress.
+     * @return the compressed data.
+     */
+    protected static byte[] lzwCompress(byte[] data) {
+        CodeWriter out = new CodeWriter(data.length / 2 + 16);
+        Map<Integer, Integer> table = new HashMap<>();
+        int bits = TiffTileEncoder.LZW_MIN_BITS;
+        int nextCode = TiffTileEncoder.LZW_FIRST_CODE;
+
+        out.write(TiffTileEncoder.LZW_CLEAR_CODE, bits);
+        if (data.length == 0) {
+            out.write(TiffTileEncoder.LZW_EOI_CODE, bits);
+            return out.toByteArray();
+        }
+
+        int prefix = 0xFF & data[0];
+        for (int i = 1; i < data.length; i++) {
+            int b = 0xFF & data[i];
+            int key = (prefix << 8) | b;
+            Integer code = table.get(key);
+            if (code != null) {
+                prefix = code;
+                continue;
+            }
+
+            out.write(prefix, bits);
+            table.put(key, nextCode++);
+            prefix = b;
+
+            if (nextCode == TiffTileEncoder.LZW_MAX_CODE - 1) {
+                // The table is full; start a new table.
+                out.write(TiffTileEncoder.LZW_CLEAR_CODE, bits);
+                table.clear();
+                bits = TiffTileEncoder.LZW_MIN_BITS;
+                nextCode = TiffTileEncoder.LZW_FIRST_CODE;
+            } else if (nextCode > (1 << bits) - 1) {
+                bits++;
+            }
+        }
+
+        out.write(prefix, bits);
+        // The decoder adds a table entry for the last code before reading the end of information code, so the code
+        // width may change here too.
+        nextCode++;
+        if (nextCode == TiffTileEncoder.LZW_MAX_CODE - 1) {
+            out.write(TiffTileEncoder.LZW_CLEAR_CODE, bits);
+            bits = TiffTileEncoder.LZW_MIN_BITS;
+        } else if (nextCode > (1 << bits) - 1) {
+            bits++;
+        }
+        out.write(TiffTileEncoder.LZW_EOI_CODE, bits);
+
+        return out.toByteArray();
+    }
+
+    protected static class CodeWriter {
+        protected final ByteArrayOutputStream out;
+        protected int bitBuffer;
+        protected int numBits;
+
+        public CodeWriter(int capacity) {
+            this.out = new ByteArrayOutputStream(capacity);
+        }
+
+        public void write(int code, int bits) {
+            this.bitBuffer = (this.bitBuffer << bits) | code;
+            this.numBits += bits;
+            while (this.numBits >= 8) {
+                this.out.write(this.bitBuffer >>> (this.numBits - 8));
+                this.numBits -= 8;
+            }
+            this.bitBuffer &= (1 << this.numBits) - 1;
+        }
+
+        public byte[] toByteArray() {
+            if (this.numBits > 0) {
+                this.out.write(this.bitBuffer << (8 - this.numBits));
+                this.numBits = 0;
+                this.bitBuffer = 0;
+            }
+            return this.out.toByteArray();
+        }
+    }
+
+    /**
+     * The samples of an image written as a TIFF image: the image dimensions, the sample type and the sample values.
+     */
+    abstract static class Samples {
+        protected final int width;
+        protected final int height;
+        protected final int samplesPerPixel;
+        protected final int bitsPerSample;
+        protected final int bytesPerSample;
+        protected final int sampleFormat;
+
+        protected Samples(int width, int height, int samplesPerPixel, int bitsPerSample, int sampleFormat) {
+            this.width = width;
+            this.height = height;
+            this.samplesPerPixel = samplesPerPixel;
+            this.bitsPerSample = bitsPerSample;
+            this.bytesPerSample = bitsPerSample / Byte.SIZE;
+            this.sampleFormat = sampleFormat;
+        }
+
+        /**
+         * Creates samples that read the bands of an image raster.
+         *
+         * @param raster        the raster.
+         * @param bitsPerSample the number of bits written for each sample: 8 or 16.
+         * @return the raster's samples.
+         */
+        public static Samples fromRaster(Raster raster, int bitsPerSample) {
+            return new Samples(raster.getWidth(), raster.getHeight(), raster.getNumBands(), bitsPerSample,
+                Tiff.SampleFormat.UNSIGNED) {
+                public double getSample(int x, int y, int band) {
+                    return raster.getSample(raster.getMinX() + x, raster.getMinY() + y, band);
+                }
+            };
+        }
+
+        /**
+         * Creates samples that read a buffer of single-band values, or of packed RGB colors.
+         *
+         * @param buffer        the buffer, with one element for each pixel, in row-major order.
+         * @param width         the image width.
+         * @param height        the image height.
+         * @param bitsPerSample the number of bits written for each sample: 8, 16 or 32 for a single band, or 8 for
+         *                      packed RGB colors.
+         * @param sampleFormat  the TIFF sample format.
+         * @param rgb           true if each element is an RGB color packed in an integer.
+         * @return the buffer's samples.
+         */
+        public static Samples fromBuffer(BufferWrapper buffer, int width, int height, int bitsPerSample,
+            int sampleFormat, boolean rgb) {
+            return new Samples(width, height, rgb ? Tiff.SamplesPerPixel.RGB : 1, bitsPerSample, sampleFormat) {
+                public double getSample(int x, int y, int band) {
+                    if (rgb)
+                        return 0xFF & (buffer.getInt(x + y * width) >> (16 - 8 * band));
+                    else if (sampleFormat == Tiff.SampleFormat.UNSIGNED && bitsPerSample == Byte.SIZE)
+                        return 0xFF & buffer.getByte(x + y * width);
+                    else if (sampleFormat == Tiff.SampleFormat.UNSIGNED && bitsPerSample == Short.SIZE)
+                        return 0xFFFF & buffer.getShort(x + y * width);
+                    else
+                        return buffer.getDouble(x + y * width);
+                }
+            };
+        }
+
+        public abstract double getSample(int x, int y, int band);
+
+        /**
+         * Creates the next reduced-resolution overview of these samples, half as wide and half as high, rounded up.
+         *
+         * @param average true to average each 2x2 block of pixels; false to take the block's upper left pixel, which
+         *                keeps the exact values of data such as elevations and their missing data signal.
+         * @return the overview's samples.
+         */
+        public Samples reduce(boolean average) {
+            int reducedWidth = (this.width + 1) / 2;
+            int reducedHeight = (this.height + 1) / 2;
+            ArraySamples reduced = new ArraySamples(reducedWidth, reducedHeight, this.samplesPerPixel,
+                this.bitsPerSample, this.sampleFormat);
+
+            for (int y = 0; y < reducedHeight; y++) {
+                int y0 = 2 * y;
+                int y1 = Math.min(y0 + 1, this.height - 1);
+                for (int x = 0; x < reducedWidth; x++) {
+                    int x0 = 2 * x;
+                    int x1 = Math.min(x0 + 1, this.width - 1);
+                    for (int b = 0; b < this.samplesPerPixel; b++) {
+                        double value = this.getSample(x0, y0, b);
+                        if (average) {
+                            value = (value + this.getSample(x1, y0, b) + this.getSample(x0, y1, b)
+                                + this.getSample(x1, y1, b)) / 4;
+                            if (this.sampleFormat != Tiff.SampleFormat.IEEEFLOAT)
+                                value = Math.round(value);
+                        }
+                        reduced.putSample(reduced.buffer, value);
+                    }
+                }
+            }
+
+            return reduced;
+        }
+
+        protected void putSample(ByteBuffer buffer, double value) {
+            if (this.bytesPerSample == 1)
+                buffer.put((byte) (long) value);
+            else if (this.bytesPerSample == 2)
+                buffer.putShort((short) (long) value);
+            else if (this.sampleFormat == Tiff.SampleFormat.IEEEFLOAT)
+                buffer.putFloat((float) value);
+            else
+                buffer.putInt((int) (long) value);
+        }
+    }
+
+    /**
+     * Samples held in memory in the encoded sample type.
+     */
+    protected static class ArraySamples extends Samples {
+        protected final ByteBuffer buffer;
+
+        public ArraySamples(int width, int height, int samplesPerPixel, int bitsPerSample, int sampleFormat) {
+            super(width, height, samplesPerPixel, bitsPerSample, sampleFormat);
+            this.buffer = ByteBuffer.allocate(width * height * samplesPerPixel * this.bytesPerSample);
+        }
+
+        public double getSample(int x, int y, int band) {
+            int position = ((y * this.width + x) * this.samplesPerPixel + band) * this.bytesPerSample;
+            if (this.bytesPerSample == 1)
+                return (this.sampleFormat == Tiff.SampleFormat.SIGNED) ? this.buffer.get(position)
+                    : 0xFF & this.buffer.get(position);
+            else if (this.bytesPerSample == 2)
+                return (this.sampleFormat == Tiff.SampleFormat.SIGNED) ? this.buffer.getShort(position)
+                    : 0xFFFF & this.buffer.getShort(position);
+            else if (this.sampleFormat == Tiff.SampleFormat.IEEEFLOAT)
+                return this.buffer.getFloat(position);
+            else
+                return this.buffer.getInt(position);
+        }
+    }
+}
@@ -5,7 +5,9 @@
  */
 package gov.nasa.worldwind.formats.vpf;
 
+import gov.nasa.worldwind.*;
 import gov.nasa.worldwind.avlist.KV;
+import gov.nasa.worldwind.cache.*;
 import gov.nasa.worldwind.util.Logging;
 
 import java.io.File;
@@ -16,6 +18,18 @@ import java.util.*;
  * @version $Id: VPFBasicFeatureFactory.java 1171 2013-02-11 21:45:02Z dcollins $
  */
 public class VPFBasicFeatureFactory implements VPFFeatureFactory {
+    protected static final String TABLE_CACHE_NAME = VPFBasicFeatureFactory.class.getName();
+    protected static final long DEFAULT_TABLE_CACHE_SIZE = 16000000L;
+
+    static {
+        if (!WorldWind.getMemoryCacheSet().containsCache(TABLE_CACHE_NAME)) {
+            long size = Configuration.getLongValue(Keys.VPF_TABLE_CACHE_SIZE, DEFAULT_TABLE_CACHE_SIZE);
+            MemoryCache cache = new SoftMemoryCache(size);
+            cache.setName("VPF Feature Tables");
+            WorldWind.getMemoryCacheSet().addCache(TABLE_CACHE_NAME, cache);
+        }
+    }
+
     private final VPFTile tile;
     private final VPFPrimitiveData primitiveData;
 
@@ -108,7 +122,7 @@ public class VPFBasicFeatureFactory implements VPFFeatureFactory {
         sb.append(File.separator);
         sb.append(featureClass.getFeatureTableName());
 
-        return VPFUtils.readTable(new File(sb.toString()));
+        return VPFBasicFeatureFactory.readCachedTable(new File(sb.toString()));
     }
 
     protected static VPFBufferedRecordData createJoinTable(VPFFeatureClass featureClass) {
@@ -119,7 +133,28 @@ public class VPFBasicFeatureFactory implements VPFFeatureFactory {
         sb.append(File.separator);
         sb.append(featureClass.getJoinTableName());
 
-        return VPFUtils.readTable(new File(sb.toString()));
+        return VPFBasicFeatureFactory.readCachedTable(new File(sb.toString()));
+    }
+
+    /**
+     * Returns a coverage-level table from the shared table cache, reading it if it is not in the cache. The feature and
+     * join tables of a coverage are used by every tile of the coverage, so caching them avoids reading them once per
+     * tile. The tables are read only after they are loaded and may be shared between threads.
+     *
+     * @param file the table file.
+     * @return the table, or null if the table cannot be read.
+     */
+    protected static VPFBufferedRecordData readCachedTable(File file) {
+        String key = file.getPath();
+        MemoryCache cache = WorldWind.getMemoryCacheSet().getCache(TABLE_CACHE_NAME);
+        VPFBufferedRecordData table = (VPFBufferedRecordData) cache.getObject(key);
+        if (table == null) {
+            table = VPFUtils.readTable(file);
+            if (table != null)
+                cache.add(key, table, Math.max(1, file.length()));
+        }
+
+        return table;
     }
 
     protected static VPFRelation getFeatureToPrimitiveRelation(VPFFeatureClass featureClass) {
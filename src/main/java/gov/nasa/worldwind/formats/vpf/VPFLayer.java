@@ -6,16 +6,25 @@
 package gov.nasa.worldwind.formats.vpf;
 
 import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.cache.*;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.layers.AbstractLayer;
 import gov.nasa.worldwind.render.*;
 import gov.nasa.worldwind.util.*;
 
+import java.io.File;
 import java.util.*;
 import java.util.concurrent.*;
 
 /**
  * Renders elements from a VPF database.
+ * <p>
+ * The features of tiled coverages are loaded one tile at a time, and only for the tiles near the eye point whose
+ * bounding boxes intersect the visible sector. Tiles are loaded on background threads, so rendering never waits on
+ * reading VPF tables. Loaded tiles are kept in a memory cache shared by all VPF layers and registered with {@link
+ * WorldWind#getMemoryCacheSet()}. The cache is bounded in bytes by {@link Keys#VPF_TILE_CACHE_SIZE}. It holds its
+ * tiles strongly, so the garbage collector never collects a tile before it is disposed; tiles evicted to stay within
+ * the bound or removed from the cache are disposed on the rendering thread.
  *
  * @author Patrick Murris
  * @version $Id: VPFLayer.java 1171 2013-02-11 21:45:02Z dcollins $
@@ -23,7 +32,36 @@ import java.util.concurrent.*;
 public class VPFLayer extends AbstractLayer {
     public static final String LIBRARY_CHANGED = "VPFLayer.LibraryChanged";
     public static final String COVERAGE_CHANGED = "VPFLayer.CoverageChanged";
+    protected static final String TILE_CACHE_NAME = VPFLayer.class.getName();
+    protected static final long DEFAULT_TILE_CACHE_SIZE = 67108864L; // 64 megabytes
+    // The memory estimated for each symbol, in addition to the size of the tile's primitive tables.
+    protected static final long SYMBOL_SIZE_ESTIMATE = 256;
     protected static final VPFTile NULL_TILE = new VPFTile(-1, "NullTile", new VPFBoundingBox(0, 0, 0, 0));
+    // Tiles evicted from the shared tile cache, disposed by the next layer to render.
+    protected static final Queue<Disposable> evictedTiles = new ConcurrentLinkedQueue<>();
+    // The size of each tile's primitive tables, listed once per tile.
+    protected static final Map<TileKey, Long> tileFileSizes = new ConcurrentHashMap<>();
+
+    static {
+        if (!WorldWind.getMemoryCacheSet().containsCache(VPFLayer.TILE_CACHE_NAME)) {
+            long size = Configuration.getLongValue(Keys.VPF_TILE_CACHE_SIZE, VPFLayer.DEFAULT_TILE_CACHE_SIZE);
+            // Hold tiles strongly: the cache's listeners never see tiles collected from a soft-valued cache.
+            MemoryCache cache = new SoftMemoryCache(size, false);
+            cache.setName("VPF Tiles");
+            cache.addCacheListener(new MemoryCache.CacheListener() {
+                public void entryRemoved(Object key, Object clientObject) {
+                    // Dispose of evicted tiles on the rendering thread.
+                    if (clientObject instanceof Disposable)
+                        VPFLayer.evictedTiles.add((Disposable) clientObject);
+                }
+
+                public void removalException(Throwable e, Object key, Object clientObject) {
+                }
+            });
+            WorldWind.getMemoryCacheSet().addCache(VPFLayer.TILE_CACHE_NAME, cache);
+        }
+    }
+
     // Renderables
     protected final double drawDistance = 1.0e6;
     protected final int maxTilesToDraw = 4;
@@ -37,6 +75,7 @@ public class VPFLayer extends AbstractLayer {
     // Threaded requests
     protected final Queue<Runnable> requestQ = new PriorityBlockingQueue<>(4);
     protected final Queue<Disposable> disposalQ = new ConcurrentLinkedQueue<>();
+    protected final MemoryCache tileCache;
     // Reference
     protected VPFDatabase db;
 
@@ -55,6 +94,8 @@ public class VPFLayer extends AbstractLayer {
 
         this.textRenderer.setCullTextEnabled(true);
         this.textRenderer.setEffect(Keys.TEXT_EFFECT_OUTLINE);
+
+        this.tileCache = WorldWind.getMemoryCacheSet().getCache(VPFLayer.TILE_CACHE_NAME);
     }
 
     protected static void sortSymbols(List<VPFSymbol> list) {
@@ -88,6 +129,43 @@ public class VPFLayer extends AbstractLayer {
         return new VPFSymbolCollection(list);
     }
 
+    /**
+     * Estimates the memory used by the symbols of one coverage tile, from the size of the tile's primitive tables and
+     * the number of symbols. The tile's directory is listed the first time the tile is loaded, and its size is reused
+     * when the tile is loaded again after eviction.
+     *
+     * @param coverage the coverage.
+     * @param tile     the tile, or null if the coverage is not tiled.
+     * @param symbols  the tile's symbols.
+     * @return the estimated size in bytes.
+     */
+    protected long estimateTileSize(VPFCoverage coverage, VPFTile tile, VPFSymbolCollection symbols) {
+        long size = VPFLayer.SYMBOL_SIZE_ESTIMATE * (1 + symbols.getSymbols().size());
+
+        if (tile != null)
+            size += VPFLayer.tileFileSizes.computeIfAbsent(new TileKey(coverage, tile), VPFLayer::computeTileFileSize);
+
+        return size;
+    }
+
+    /**
+     * Computes the size of the files in a tile's directory.
+     *
+     * @param key the tile's key.
+     * @return the size of the tile's files in bytes, or 0 if the directory cannot be listed.
+     */
+    protected static long computeTileFileSize(TileKey key) {
+        long size = 0;
+        File[] files = new File(key.coveragePath, key.tile.getName()).listFiles();
+        if (files != null) {
+            for (File file : files) {
+                size += file.length();
+            }
+        }
+
+        return size;
+    }
+
     public VPFDatabase getVPFDatabase() {
         return this.db;
     }
@@ -201,6 +279,10 @@ public class VPFLayer extends AbstractLayer {
         while ((disposable = this.disposalQ.poll()) != null) {
             disposable.dispose();
         }
+
+        while ((disposable = VPFLayer.evictedTiles.poll()) != null) {
+            disposable.dispose();
+        }
     }
 
     protected void sendRequests() {
@@ -283,8 +365,13 @@ public class VPFLayer extends AbstractLayer {
 
             Frustum frustum = dc.view().getFrustumInModelCoordinates();
             Vec4 eyePoint = dc.view().getEyePoint();
+            Sector visibleSector = dc.getVisibleSector();
 
             for (VPFTile tile : this.library.getTiles()) {
+                // Reject tiles outside the visible sector before computing their extents.
+                if (visibleSector != null && !visibleSector.intersects(tile.getBounds().toSector()))
+                    continue;
+
                 Extent extent = tile.getExtent(dc.getGlobe(), dc.getVerticalExaggeration());
                 double d = extent.getCenter().distanceTo3(eyePoint) - extent.getRadius();
 
@@ -312,21 +399,11 @@ public class VPFLayer extends AbstractLayer {
     protected static class VPFCoverageRenderable {
         protected final VPFLayer layer;
         protected final VPFCoverage coverage;
-        protected final Map<VPFTile, VPFSymbolCollection> tileCache;
         protected boolean enabled;
 
         public VPFCoverageRenderable(VPFLayer layer, VPFCoverage coverage) {
             this.layer = layer;
             this.coverage = coverage;
-            this.tileCache = Collections.synchronizedMap(new BoundedHashMap<>(6, true) {
-                protected boolean removeEldestEntry(Map.Entry<VPFTile, VPFSymbolCollection> eldest) {
-                    if (!super.removeEldestEntry(eldest))
-                        return false;
-
-                    dispose(eldest.getValue());
-                    return true;
-                }
-            });
         }
 
         public void assembleSymbols(Iterable<? extends VPFTile> tiles) {
@@ -344,7 +421,8 @@ public class VPFLayer extends AbstractLayer {
         }
 
         protected void doAssembleSymbols(VPFTile tile) {
-            VPFSymbolCollection symbolCollection = this.tileCache.get(tile);
+            VPFSymbolCollection symbolCollection = (VPFSymbolCollection) this.layer.tileCache.getObject(
+                new TileKey(this.coverage, tile));
             if (symbolCollection != null) {
                 this.layer.symbols.addAll(symbolCollection.getSymbols());
             } else {
@@ -357,6 +435,30 @@ public class VPFLayer extends AbstractLayer {
         }
     }
 
+    protected static class TileKey {
+        protected final String coveragePath;
+        protected final VPFTile tile;
+
+        public TileKey(VPFCoverage coverage, VPFTile tile) {
+            this.coveragePath = coverage.getFilePath();
+            this.tile = tile;
+        }
+
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (o == null || getClass() != o.getClass())
+                return false;
+
+            TileKey that = (TileKey) o;
+            return this.coveragePath.equals(that.coveragePath) && this.tile.equals(that.tile);
+        }
+
+        public int hashCode() {
+            return 31 * this.coveragePath.hashCode() + this.tile.hashCode();
+        }
+    }
+
     protected static class VPFSymbolCollection implements Disposable {
         public static final VPFSymbolCollection EMPTY_SYMBOL_COLLECTION = new VPFSymbolCollection(null);
 
@@ -395,10 +497,16 @@ public class VPFLayer extends AbstractLayer {
         }
 
         public void run() {
-            VPFSymbolCollection symbols = this.coverageRenderable.layer.loadTileSymbols(
-                this.coverageRenderable.coverage, (this.tile == VPFLayer.NULL_TILE) ? null : this.tile);
+            VPFLayer layer = this.coverageRenderable.layer;
+            VPFCoverage coverage = this.coverageRenderable.coverage;
+            TileKey key = new TileKey(coverage, this.tile);
+            if (layer.tileCache.contains(key))
+                return; // Loaded by an earlier request.
+
+            VPFTile tile = (this.tile == VPFLayer.NULL_TILE) ? null : this.tile;
+            VPFSymbolCollection symbols = layer.loadTileSymbols(coverage, tile);
 
-            this.coverageRenderable.tileCache.put(this.tile, symbols);
+            layer.tileCache.add(key, symbols, layer.estimateTileSize(coverage, tile, symbols));
             this.coverageRenderable.layer.emit(Keys.LAYER, null, this.coverageRenderable.layer);
         }
 
@@ -75,7 +75,8 @@ public class VPFTableReader {
     //**************************************************************//
 
     protected static ByteBuffer readFileToBuffer(File file) throws IOException {
-        ByteBuffer buffer = WWIO.readFileToBuffer(file, true); // Read VPF table to a direct ByteBuffer.
+        // Map the VPF table into memory rather than copying it, so only the pages holding the records read are loaded.
+        ByteBuffer buffer = WWIO.mapFile(file);
         buffer.order(ByteOrder.LITTLE_ENDIAN); // Default to least significant byte first order.
         return buffer;
     }
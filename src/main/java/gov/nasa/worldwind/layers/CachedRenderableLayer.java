@@ -8,39 +8,57 @@ package gov.nasa.worldwind.layers;
 
 import com.jogamp.opengl.GL2;
 import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.avlist.KV;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.pick.PickSupport;
 import gov.nasa.worldwind.render.*;
 import gov.nasa.worldwind.util.*;
 
 import java.awt.*;
-import java.util.Collection;
+import java.beans.PropertyChangeEvent;
+import java.util.List;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
- * Holds a collection of Renderables and manages local caching of them. Provides searching for Renderables by sector,
+ * Holds a collection of Renderables in a spatial index, and each frame pre-renders, renders and picks only the
+ * Renderables whose regions intersect the current visible sector. Provides searching for Renderables by sector,
  * location or name.
  * <p>
- * NOTE: This class is experimental and not fully implemented. You should not use it now.
+ * Renderables implementing {@link GeographicExtent} are indexed by their sector, and Renderables implementing {@link
+ * Locatable} are indexed by their position. Other Renderables, and Renderables whose sector is not yet known, are not
+ * indexed and are drawn every frame. The index is a {@link LooseQuadTree}, so adding, moving and removing a Renderable
+ * costs time proportional to the tree depth, and the visible set is found without visiting Renderables far from the
+ * view.
+ * <p>
+ * A Renderable that moves must be re-indexed by calling {@link #update(Renderable)}. Renderables implementing {@link
+ * KV} are also re-indexed whenever they send the layer a property change event. Renderables extending above the
+ * terrain, such as tall extruded shapes, may be visible from beyond the visible sector; add them to a {@link
+ * RenderableLayer} instead, or give them a sector that includes the region they are visible from.
  *
  * @author tag
  * @version $Id: CachedRenderableLayer.java 1171 2013-02-11 21:45:02Z dcollins $
  */
 public class CachedRenderableLayer extends AbstractLayer {
-    protected static final int DEFAULT_DEPTH = 4;
+    protected static final int DEFAULT_DEPTH = 12;
 
-    protected final BasicQuadTree<Renderable> extentTree;
-    // this is used until we work out the caching and retrieval scheme
+    protected final LooseQuadTree<Renderable> extentTree;
+    // Renderables without a known region, which are drawn every frame.
+    protected final List<Renderable> unindexed = new CopyOnWriteArrayList<>();
+    protected final Map<String, Renderable> nameMap = new HashMap<>();
     protected final PickSupport pickSupport = new PickSupport();
+    // The Renderables intersecting the visible sector, assembled once per frame.
+    protected final List<Renderable> visibleRenderables = new ArrayList<>();
+    protected long visibleFrameTimeStamp = -1;
 
     /**
      * Constructs a layer instance.
      *
-     * @param coverage the geographic area covered by the layer's Renderables.
-     * @throws IllegalArgumentException if the coverage sector is null.
+     * @param coverage the geographic area covered by the layer's Renderables. May be null, in which case the layer
+     *                 covers the full sphere.
      */
     public CachedRenderableLayer(Sector coverage) {
-        // Extent tree checks args
-        this.extentTree = new BasicQuadTree<>(CachedRenderableLayer.DEFAULT_DEPTH, coverage, null);
+        this(coverage, CachedRenderableLayer.DEFAULT_DEPTH);
     }
 
     public CachedRenderableLayer() {
@@ -50,75 +68,86 @@ public class CachedRenderableLayer extends AbstractLayer {
     /**
      * Constructs a layer instance.
      *
-     * @param coverage  the geographic area covered by the layer's Renderables.
-     * @param numLevels the depth of the tree used to sort the Renderables.
-     * @throws IllegalArgumentException if the coverage sector is null or the number of levels is less than 1;
+     * @param coverage  the geographic area covered by the layer's Renderables. May be null, in which case the layer
+     *                  covers the full sphere.
+     * @param numLevels the maximum depth of the tree used to sort the Renderables.
+     * @throws IllegalArgumentException if the number of levels is less than 0.
      */
     public CachedRenderableLayer(Sector coverage, int numLevels) {
         // Extent tree checks args
-        this.extentTree = new BasicQuadTree<>(numLevels, coverage, null);
+        this.extentTree = new LooseQuadTree<>(numLevels, coverage != null ? coverage : Sector.FULL_SPHERE);
     }
 
-    public CachedRenderableLayer(RenderableLayer l) {
-//        this(Sector.union(l.renderables.stream()
-//            .flatMap(z -> ((AbstractSurfaceRenderable)z).getSectors(dc))::iterator))
+    /**
+     * Constructs a layer holding the Renderables of a {@link RenderableLayer}.
+     *
+     * @param layer the layer whose Renderables to add.
+     */
+    public CachedRenderableLayer(RenderableLayer layer) {
         this();
-        for (Renderable x : l.renderables) {
-            if (x instanceof GeographicExtent)
-                this.add(x);
+        for (Renderable renderable : layer.all()) {
+            this.add(renderable);
         }
     }
 
     protected static void doPreRender(DrawContext dc, Iterable<? extends Renderable> renderables) {
         for (Renderable renderable : renderables) {
-//            try {
-            // If the caller has specified their own Iterable,
-            // then we cannot make any guarantees about its contents.
             if (renderable instanceof PreRenderable)
                 ((PreRenderable) renderable).preRender(dc);
-//            }
-//            catch (Exception e) {
-//                String msg = Logging.getMessage("generic.ExceptionWhilePrerenderingRenderable");
-//                Logging.logger().severe(msg);
-//                // continue to next renderable
-//            }
         }
     }
 
     protected static void doRender(DrawContext dc, Iterable<? extends Renderable> renderables) {
         for (Renderable renderable : renderables) {
-//            try {
-            // If the caller has specified their own Iterable,
-            // then we cannot make any guarantees about its contents.
-//                if (renderable != null)
             renderable.render(dc);
-//            }
-//            catch (Exception e) {
-//                String msg = Logging.getMessage("generic.ExceptionWhileRenderingRenderable");
-//                Logging.logger().log(Level.SEVERE, msg, e);
-//                // continue to next renderable
-//            }
         }
     }
 
+    /**
+     * Returns the region used to index a Renderable.
+     *
+     * @param renderable the Renderable.
+     * @return the Renderable's sector, or null if the Renderable has no known region.
+     */
+    protected static Sector computeSector(Renderable renderable) {
+        if (renderable instanceof GeographicExtent)
+            return ((GeographicExtent) renderable).getSector();
+
+        if (renderable instanceof Locatable) {
+            Position position = ((Locatable) renderable).getPosition();
+            return (position != null) ? Sector.fromDegrees(position.lat, position.lat, position.lon, position.lon) : null;
+        }
+
+        return null;
+    }
+
     /**
      * Indictes whether the layer contains Renderables.
      *
      * @return true if the layer contains Renderables, otherwise false.
      */
     public boolean hasItems() {
-        return this.extentTree.hasItems();
+        return this.extentTree.size() > 0 || !this.unindexed.isEmpty();
+    }
+
+    /**
+     * Returns the number of Renderables in the layer.
+     *
+     * @return the number of Renderables.
+     */
+    public int size() {
+        return this.extentTree.size() + this.unindexed.size();
     }
 
     /**
      * Add a Renderable to the layer.
      *
      * @param item the Renderable to add.
-     * @throws IllegalArgumentException if the item is null or does not implement {@link GeographicExtent}.
+     * @throws IllegalArgumentException if the item is null.
      * @see #add(Renderable, String)
      */
     public void add(Renderable item) {
-        this.add(item, null); // extent tree checks args
+        this.add(item, null);
     }
 
     /**
@@ -126,18 +155,61 @@ public class CachedRenderableLayer extends AbstractLayer {
      *
      * @param item the Renderable to add.
      * @param name a name for the Renderable. May be null, in which case the item has no name.
-     * @throws IllegalArgumentException if the item is null or does not implement {@link GeographicExtent}.
+     * @throws IllegalArgumentException if the item is null.
      * @see #add(Renderable)
      */
     public void add(Renderable item, String name) {
-        if (!(item instanceof GeographicExtent)) {
-            String message = Logging.getMessage("GeographicTree.NotGeometricExtent");
+        if (item == null) {
+            String message = Logging.getMessage("nullValue.RenderableIsNull");
             Logging.logger().severe(message);
             throw new IllegalArgumentException(message);
         }
 
-        // extent tree checks args
-        this.extentTree.add(item, ((GeographicExtent) item).getSector().asDegreesArray(), name);
+        this.index(item);
+
+        if (name != null) {
+            synchronized (this.nameMap) {
+                this.nameMap.put(name, item);
+            }
+        }
+
+        // Attach the layer as a property change listener of the renderable. This forwards property change events from
+        // the renderable to the SceneController, and re-indexes the renderable when it changes.
+        if (item instanceof KV)
+            ((KV) item).addPropertyChangeListener(this);
+    }
+
+    /**
+     * Re-indexes a Renderable after its region changes, for example after it is moved. Does nothing if the Renderable
+     * is not in the layer.
+     *
+     * @param item the Renderable to re-index.
+     */
+    public void update(Renderable item) {
+        if (this.contains(item))
+            this.index(item);
+    }
+
+    /**
+     * Indicates whether a Renderable is in the layer.
+     *
+     * @param item the Renderable to check.
+     * @return true if the Renderable is in the layer, otherwise false.
+     */
+    public boolean contains(Renderable item) {
+        return this.extentTree.contains(item) || this.unindexed.contains(item);
+    }
+
+    protected void index(Renderable item) {
+        Sector sector = CachedRenderableLayer.computeSector(item);
+        if (sector != null) {
+            this.unindexed.remove(item);
+            this.extentTree.add(item, sector); // Adds or moves the item.
+        } else {
+            this.extentTree.remove(item);
+            if (!this.unindexed.contains(item))
+                this.unindexed.add(item);
+        }
     }
 
     /**
@@ -147,8 +219,19 @@ public class CachedRenderableLayer extends AbstractLayer {
      * @see #removeByName(String)
      */
     public void remove(Renderable item) {
-        // extent tree checks args
-        this.extentTree.remove(item);
+        if (item == null)
+            return;
+
+        boolean removed = this.extentTree.remove(item) | this.unindexed.remove(item);
+        if (!removed)
+            return;
+
+        synchronized (this.nameMap) {
+            this.nameMap.values().removeIf(value -> value == item);
+        }
+
+        if (item instanceof KV)
+            ((KV) item).removePropertyChangeListener(this);
     }
 
     /**
@@ -158,7 +241,7 @@ public class CachedRenderableLayer extends AbstractLayer {
      * @see #remove(Renderable)
      */
     public void removeByName(String name) {
-        this.extentTree.removeByName(name);
+        this.remove(this.getByName(name));
     }
 
     /**
@@ -170,12 +253,11 @@ public class CachedRenderableLayer extends AbstractLayer {
      * @see #getAllRenderables()
      */
     public Collection<? extends Renderable> getRenderables(LatLon location) {
-        // extent tree checks args
-        return this.extentTree.getItemsAtLocation(location, null);
+        return this.getRenderables(Sector.fromDegrees(location.lat, location.lat, location.lon, location.lon));
     }
 
     /**
-     * Returns all Renderables within or intersecting a specified sector.
+     * Returns all indexed Renderables within or intersecting a specified sector.
      *
      * @param extent the location of interest.
      * @return the Collection of Renderables within or intersecting the boundary of the sector.
@@ -193,7 +275,12 @@ public class CachedRenderableLayer extends AbstractLayer {
      * @return an Iterable over all the Renderables in the layer.
      */
     public Iterable<? extends Renderable> getAllRenderables() {
-        return this.extentTree; // the tree is an Iterable
+        List<Renderable> all = new ArrayList<>(this.size());
+        for (Renderable renderable : this.extentTree) {
+            all.add(renderable);
+        }
+        all.addAll(this.unindexed);
+        return all;
     }
 
     /**
@@ -203,7 +290,12 @@ public class CachedRenderableLayer extends AbstractLayer {
      * @return the Renderable of the given name, or null if no Renderable with the name is in the layer.
      */
     public Renderable getByName(String name) {
-        return this.extentTree.getByName(name);
+        if (name == null)
+            return null;
+
+        synchronized (this.nameMap) {
+            return this.nameMap.get(name);
+        }
     }
 
     /**
@@ -215,30 +307,71 @@ public class CachedRenderableLayer extends AbstractLayer {
 
     protected void disposeRenderables() {
         for (Renderable renderable : this.getAllRenderables()) {
-//            try {
+            if (renderable instanceof KV)
+                ((KV) renderable).removePropertyChangeListener(this);
+
             if (renderable instanceof Disposable)
                 ((Disposable) renderable).dispose();
-//            }
-//            catch (Exception e) {
-//                String msg = Logging.getMessage("generic.ExceptionAttemptingToDisposeRenderable");
-//                Logging.logger().severe(msg);
-//                // continue to next renderable
-//            }
         }
 
         this.extentTree.clear();
+        this.unindexed.clear();
+        synchronized (this.nameMap) {
+            this.nameMap.clear();
+        }
+    }
+
+    /**
+     * Returns the Renderables to draw in the current frame: the indexed Renderables intersecting the visible sector,
+     * and every Renderable without a known region. The set is assembled once per frame and shared by pre-rendering,
+     * picking and rendering.
+     *
+     * @param dc the current draw context.
+     * @return the Renderables to draw.
+     */
+    protected List<Renderable> assembleVisibleRenderables(DrawContext dc) {
+        if (this.visibleFrameTimeStamp == dc.getFrameTimeStamp())
+            return this.visibleRenderables;
+
+        this.visibleRenderables.clear();
+        Sector visibleSector = dc.getVisibleSector();
+        if (visibleSector != null) {
+            this.extentTree.getItemsInRegion(visibleSector, this.visibleRenderables);
+        } else {
+            for (Renderable renderable : this.extentTree) {
+                this.visibleRenderables.add(renderable);
+            }
+        }
+        this.visibleRenderables.addAll(this.unindexed);
+        this.visibleFrameTimeStamp = dc.getFrameTimeStamp();
+
+        return this.visibleRenderables;
     }
 
     protected void doPreRender(DrawContext dc) {
-        CachedRenderableLayer.doPreRender(dc, this.getAllRenderables());
+        CachedRenderableLayer.doPreRender(dc, this.assembleVisibleRenderables(dc));
     }
 
     protected void doPick(DrawContext dc, Point pickPoint) {
-        this.doPick(dc, this.getAllRenderables(), pickPoint);
+        this.doPick(dc, this.assembleVisibleRenderables(dc), pickPoint);
     }
 
     protected void doRender(DrawContext dc) {
-        CachedRenderableLayer.doRender(dc, this.getAllRenderables());
+        CachedRenderableLayer.doRender(dc, this.assembleVisibleRenderables(dc));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation re-indexes a Renderable in the layer that sends a property change event, then forwards the
+     * event to the layer's listeners.
+     */
+    @Override
+    public void propertyChange(PropertyChangeEvent event) {
+        if (event != null && event.getSource() instanceof Renderable)
+            this.update((Renderable) event.getSource());
+
+        super.propertyChange(event);
     }
 
     protected void doPick(DrawContext dc, Iterable<? extends Renderable> renderables, Point pickPoint) {
@@ -13,6 +13,8 @@ import gov.nasa.worldwind.geom.Position;
 import gov.nasa.worldwind.render.*;
 import gov.nasa.worldwind.util.*;
 
+import java.awt.Color;
+import java.awt.Dimension;
 import java.util.logging.Level;
 
 /**
@@ -89,6 +91,44 @@ public class GeoJSON {
         return layer;
     }
 
+    /**
+     * Stream a GeoJSON document into a layer without building a GeoJSON object tree or one renderable per feature. The
+     * document's geometry is read into columnar batches by a {@link GeoJSONStreamReader} and added to the layer as one
+     * batched renderable per geometry type. Newline-delimited GeoJSON, identified by its file suffix, is read in
+     * parallel chunks. Feature properties and altitudes are not kept; use {@link #load(Object, RenderableLayer)} when
+     * they are needed.
+     *
+     * @param docSource GeoJSON document. May be a file path {@link String}, {@link java.io.File}, {@link java.net.URL},
+     *                  or {@link java.net.URI}.
+     * @param layer     layer to receive the new Renderables.
+     * @return the layer.
+     */
+    public RenderableLayer loadStreaming(Object docSource, RenderableLayer layer) {
+        if (WWUtil.isEmpty(docSource)) {
+            String message = Logging.getMessage("nullValue.SourceIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        GeoJSONStreamReader reader = new GeoJSONStreamReader();
+        if (GeoJSON.isNewlineDelimited(docSource)) {
+            for (GeoJSONBatch batch : reader.readLines(docSource)) {
+                geoJSONRenderer.addRenderablesForBatch(batch, layer);
+            }
+        } else {
+            geoJSONRenderer.addRenderablesForBatch(reader.read(docSource), layer);
+        }
+
+        return layer;
+    }
+
+    protected static boolean isNewlineDelimited(Object docSource) {
+        String path = WWIO.getSourcePath(docSource);
+        String suffix = (path != null) ? WWIO.getSuffix(path) : null;
+        return suffix != null && (suffix.equalsIgnoreCase("ndjson") || suffix.equalsIgnoreCase("geojsonl")
+            || suffix.equalsIgnoreCase("geojsons") || suffix.equalsIgnoreCase("jsonl"));
+    }
+
     /**
      * Create a layer from a GeoJSON document.
      *
@@ -206,6 +246,39 @@ public class GeoJSON {
             }
         }
 
+        /**
+         * Adds one batched renderable per geometry type in a batch: {@link SurfaceIcons} for points, {@link
+         * SurfacePolylines} for lines and {@link SurfacePolygons} for polygons. The renderables draw directly from the
+         * batch's buffers.
+         *
+         * @param batch the batch.
+         * @param layer the layer to receive the renderables.
+         */
+        protected void addRenderablesForBatch(GeoJSONBatch batch, RenderableLayer layer) {
+            if (batch.getPoints().size() > 0) {
+                PointPlacemarkAttributes attrs = createPointAttributes(null, layer);
+                Color color = (attrs.getLineMaterial() != null) ? attrs.getLineMaterial().getDiffuse() : Color.WHITE;
+                SurfaceIcons icons = new SurfaceIcons(
+                    PatternFactory.createPattern(PatternFactory.PATTERN_CIRCLE, new Dimension(16, 16), 0.8f, color),
+                    batch.getPoints().getLocations());
+                icons.setMaintainSize(true);
+                layer.add(icons);
+            }
+
+            if (batch.getLines().size() > 0) {
+                SurfacePolylines lines = new SurfacePolylines(batch.getLineSector(), batch.getLines());
+                lines.setAttributes(createPolylineAttributes(null, layer));
+                layer.add(lines);
+            }
+
+            if (batch.getPolygons().size() > 0) {
+                SurfacePolygons polygons = new SurfacePolygons(batch.getPolygonSector(), batch.getPolygons());
+                polygons.setPolygonRingGroups(batch.getPolygonRingGroups());
+                polygons.setAttributes(createPolygonAttributes(null, layer));
+                layer.add(polygons);
+            }
+        }
+
         protected void addRenderableForGeometry(GeoJSONGeometry geom, RenderableLayer layer, KV properties) {
             if (geom.isPoint())
                 addRenderableForPoint(geom.asPoint(), layer, properties);
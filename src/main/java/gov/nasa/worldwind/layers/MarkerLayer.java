@@ -68,6 +68,14 @@ public class MarkerLayer extends AbstractLayer {
         this.getMarkerRenderer().setEnablePickSizeReturn(enablePickSizeReturn);
     }
 
+    public boolean isEnableBatching() {
+        return this.getMarkerRenderer().isEnableBatching();
+    }
+
+    public void setEnableBatching(boolean enableBatching) {
+        this.getMarkerRenderer().setEnableBatching(enableBatching);
+    }
+
     protected MarkerRenderer getMarkerRenderer() {
         return markerRenderer;
     }
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.layers;
+
+import gov.nasa.worldwind.Keys;
+import gov.nasa.worldwind.render.DrawContext;
+import gov.nasa.worldwind.symbology.*;
+import gov.nasa.worldwind.util.Logging;
+
+import java.awt.*;
+import java.beans.PropertyChangeEvent;
+
+/**
+ * A layer that draws large numbers of tactical symbols with a {@link TacticalSymbolBatchRenderer}. Symbols that do not
+ * display modifiers are drawn as a single batch, which is substantially faster than adding the same symbols to a
+ * {@link RenderableLayer}. See {@link TacticalSymbolBatchRenderer} for the symbols eligible for batching.
+ */
+public class TacticalSymbolLayer extends AbstractLayer {
+    protected TacticalSymbolBatchRenderer symbolRenderer = new TacticalSymbolBatchRenderer();
+    protected Iterable<? extends TacticalSymbol> symbols;
+
+    public TacticalSymbolLayer() {
+        this.symbolRenderer.setListener(this);
+    }
+
+    public TacticalSymbolLayer(Iterable<? extends TacticalSymbol> symbols) {
+        this();
+        this.symbols = symbols;
+    }
+
+    public Iterable<? extends TacticalSymbol> getSymbols() {
+        return this.symbols;
+    }
+
+    /**
+     * Specifies the symbols drawn by this layer. The layer reads the iterable each frame, so changes to the underlying
+     * collection are reflected on the next frame. The collection must not be modified while the layer is rendering.
+     *
+     * @param symbols the symbols to draw. May be <code>null</code>.
+     */
+    public void setSymbols(Iterable<? extends TacticalSymbol> symbols) {
+        this.symbols = symbols;
+    }
+
+    public boolean isDrawModifiers() {
+        return this.getSymbolRenderer().isDrawModifiers();
+    }
+
+    public void setDrawModifiers(boolean drawModifiers) {
+        this.getSymbolRenderer().setDrawModifiers(drawModifiers);
+    }
+
+    /**
+     * Returns the renderer that draws this layer's symbols. Applications may use it to query the number of symbols
+     * drawn and the time spent drawing them during the most recent frame.
+     *
+     * @return this layer's symbol renderer.
+     */
+    public TacticalSymbolBatchRenderer getSymbolRenderer() {
+        return this.symbolRenderer;
+    }
+
+    protected void setSymbolRenderer(TacticalSymbolBatchRenderer symbolRenderer) {
+        if (symbolRenderer == null) {
+            String msg = Logging.getMessage("nullValue.RendererIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.symbolRenderer.setListener(null);
+        this.symbolRenderer = symbolRenderer;
+        this.symbolRenderer.setListener(this);
+    }
+
+    @Override
+    protected void doRender(DrawContext dc) {
+        this.draw(dc);
+    }
+
+    @Override
+    protected void doPick(DrawContext dc, Point pickPoint) {
+        this.draw(dc);
+    }
+
+    protected void draw(DrawContext dc) {
+        if (this.symbols == null)
+            return;
+
+        // Adds the batch to the draw context's ordered renderable queue, and renders symbols that cannot be batched.
+        this.getSymbolRenderer().render(dc, this.symbols, this);
+    }
+
+    /**
+     * Forwards the renderer's repaint notifications to this layer's listeners, causing the scene to be redrawn when a
+     * symbol icon becomes available.
+     *
+     * @param propertyChangeEvent the event to forward.
+     */
+    @Override
+    public void propertyChange(PropertyChangeEvent propertyChangeEvent) {
+        if (propertyChangeEvent != null && Keys.REPAINT.equals(propertyChangeEvent.getPropertyName()))
+            this.emit(Keys.LAYER, null, this);
+        else
+            super.propertyChange(propertyChangeEvent);
+    }
+
+    @Override
+    public String toString() {
+        return Logging.getMessage("layers.TacticalSymbolLayer.Name");
+    }
+}
@@ -208,11 +208,13 @@ public class ColladaNode extends ColladaAbstractObject implements ColladaRendera
 
         ColladaBindMaterial bindMaterial = geomInstance.getBindMaterial();
         ColladaRoot root = this.getRoot();
+        String geometryId = (String) geometry.getField("id");
 
         List<ColladaTriangles> triangles = mesh.getTriangles();
         if (!WWUtil.isEmpty(triangles)) {
             ColladaMeshShape newShape = ColladaMeshShape.createTriangleMesh(triangles, bindMaterial);
             newShape.setDelegateOwner(root);
+            newShape.setGeometryId(geometryId);
 
             shapes.add(newShape);
         }
@@ -221,6 +223,7 @@ public class ColladaNode extends ColladaAbstractObject implements ColladaRendera
         if (!WWUtil.isEmpty(lines)) {
             ColladaMeshShape newShape = ColladaMeshShape.createLineMesh(lines, bindMaterial);
             newShape.setDelegateOwner(root);
+            newShape.setGeometryId(geometryId);
 
             shapes.add(newShape);
         }
@@ -110,6 +110,16 @@ public class ColladaRoot extends ColladaAbstractObject
      * Resource resolver to resolve relative file paths.
      */
     protected ColladaResourceResolver resourceResolver;
+    /**
+     * Key identifying the document's source file and modification time, used to cache meshes converted from the
+     * document. Null if the document is not read from a local file.
+     */
+    protected String meshCacheKey;
+    /**
+     * Name identifying the document's source file regardless of its modification time, used to replace the cached
+     * meshes of a modified document. Null if the document is not read from a local file.
+     */
+    protected String meshCacheName;
 
     /**
      * Create a new <code>ColladaRoot</code> for a {@link XMLDoc} instance. A XMLDoc represents COLLADA files from
@@ -149,6 +159,7 @@ public class ColladaRoot extends ColladaAbstractObject
         }
 
         this.colladaDoc = new ColladaFile(docSource);
+        this.setMeshCacheSource(docSource);
 
         this.initialize();
     }
@@ -171,6 +182,7 @@ public class ColladaRoot extends ColladaAbstractObject
 
         URLConnection conn = docSource.openConnection();
         this.colladaDoc = new ColladaInputStream(conn.getInputStream(), WWIO.makeURI(docSource));
+        this.setMeshCacheSource(WWIO.convertURLToFile(docSource));
 
         this.initialize();
     }
@@ -288,6 +300,7 @@ public class ColladaRoot extends ColladaAbstractObject
 
         try {
             ColladaRoot refRoot = new ColladaRoot(colladaDoc);
+            refRoot.setMeshCacheSource(WWIO.convertURLToFile(url));
             refRoot.parse(); // also closes the URL's stream
             return refRoot;
         }
@@ -297,6 +310,22 @@ public class ColladaRoot extends ColladaAbstractObject
         }
     }
 
+    /**
+     * Specifies the document file this document is read from, which determines its mesh cache name and key.
+     *
+     * @param file the document file. May be null, in which case meshes converted from this document are not cached.
+     */
+    protected void setMeshCacheSource(File file) {
+        if (file == null || !file.isFile()) {
+            this.meshCacheName = null;
+            this.meshCacheKey = null;
+            return;
+        }
+
+        this.meshCacheName = file.getAbsolutePath();
+        this.meshCacheKey = this.meshCacheName + '@' + file.lastModified() + '@' + file.length();
+    }
+
     /**
      * Creates the event reader. Called from the constructor.
      *
@@ -324,6 +353,40 @@ public class ColladaRoot extends ColladaAbstractObject
         this.parserContext = this.createParserContext(this.eventReader);
     }
 
+    /**
+     * Indicates the key identifying this document's source file and modification time. Meshes converted from this
+     * document are cached on disk under keys derived from this key, so that later loads of an unmodified document map
+     * the converted meshes rather than converting the document's geometry again.
+     *
+     * @return the document's mesh cache key, or null if the document is not read from a local file.
+     */
+    public String getMeshCacheKey() {
+        return this.meshCacheKey;
+    }
+
+    /**
+     * Indicates the name identifying this document's source file regardless of its modification time. Meshes converted
+     * from this document are stored on disk under names derived from this name, so that the meshes of a modified
+     * document replace its earlier meshes.
+     *
+     * @return the document's mesh cache name, or null if the document is not read from a local file.
+     */
+    public String getMeshCacheName() {
+        return this.meshCacheName;
+    }
+
+    /**
+     * Creates the meshes for this document's scene, converting the document's COLLADA geometry to vertex data. Meshes
+     * are otherwise created when the document is first rendered. This method may be called on a thread other than the
+     * rendering thread before the document is rendered, which enables loaders to convert documents in parallel and
+     * keeps the conversion off the rendering thread.
+     */
+    public void createMeshes() {
+        ColladaScene scene = this.getScene();
+        if (scene != null)
+            scene.getLocalExtent(new ColladaTraversalContext());
+    }
+
     /**
      * Indicates the document that is the source of this root.
      *
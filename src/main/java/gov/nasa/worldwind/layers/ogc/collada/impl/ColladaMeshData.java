@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.layers.ogc.collada.impl;
+
+import com.jogamp.common.nio.Buffers;
+import gov.nasa.worldwind.cache.Cacheable;
+import gov.nasa.worldwind.geom.Box;
+import gov.nasa.worldwind.layers.ogc.collada.ColladaAbstractGeometry;
+import gov.nasa.worldwind.util.BufferWrapper;
+
+import java.nio.FloatBuffer;
+import java.util.*;
+
+/**
+ * Vertex data for a COLLADA mesh, shared by every {@link ColladaMeshShape} that draws an identical mesh. Meshes are
+ * identical when they have the same element type, the same geometry partitioning and the same vertex, normal and
+ * texture coordinate content. Shared mesh data is uploaded to the GPU once, under a VBO cache key that is the mesh data
+ * itself, and each frame's placements of the mesh are collected into instance batches that are drawn together.
+ * <p>
+ * The vertex data and bounds are immutable once created, and may be shared between threads: mesh data is created and
+ * looked up on the threads that load COLLADA documents as well as on the rendering thread. The instance batches are
+ * used only on the rendering thread.
+ */
+public class ColladaMeshData implements Cacheable {
+    /**
+     * The vertex data buffer. The first part contains vertex coordinates, the second part contains normals, and the
+     * third part contains texture coordinates.
+     */
+    protected final FloatBuffer coordBuffer;
+    /**
+     * The index of the first normal in the {@link #coordBuffer}, or -1 if the mesh has no normals.
+     */
+    protected final int normalBufferPosition;
+    /**
+     * The index of the first texture coordinate in the {@link #coordBuffer}, or -1 if the mesh has no texture
+     * coordinates.
+     */
+    protected final int texCoordBufferPosition;
+    /**
+     * Offset (in vertices) of each geometry's vertices in the mesh.
+     */
+    protected final int[] offsets;
+    /**
+     * Bounding box of the mesh vertices in model coordinates.
+     */
+    protected final Box localBounds;
+    /**
+     * Instance batches for the current frame, keyed by the appearance of the instances they contain.
+     */
+    protected final Map<Object, ColladaMeshShape.InstanceBatch> batches = new HashMap<>();
+    /**
+     * The frame the instance batches were collected for.
+     */
+    protected long batchFrameTimeStamp = -1;
+
+    /**
+     * Creates mesh data from a filled vertex buffer.
+     *
+     * @param coordBuffer            the vertex, normal and texture coordinates, with its limit at the end of the data.
+     * @param normalBufferPosition   the index of the first normal, or -1 if the mesh has no normals.
+     * @param texCoordBufferPosition the index of the first texture coordinate, or -1 if the mesh has no texture
+     *                               coordinates.
+     * @param offsets                the offset (in vertices) of each geometry's vertices.
+     */
+    public ColladaMeshData(FloatBuffer coordBuffer, int normalBufferPosition, int texCoordBufferPosition,
+        int[] offsets) {
+        this.coordBuffer = coordBuffer;
+        this.normalBufferPosition = normalBufferPosition;
+        this.texCoordBufferPosition = texCoordBufferPosition;
+        this.offsets = offsets;
+
+        int vertexEnd = normalBufferPosition >= 0 ? normalBufferPosition
+            : texCoordBufferPosition >= 0 ? texCoordBufferPosition : coordBuffer.limit();
+        FloatBuffer vertices = coordBuffer.duplicate();
+        vertices.position(0).limit(vertexEnd);
+        this.localBounds = Box.computeBoundingBox(new BufferWrapper.FloatBufferWrapper(vertices.slice()),
+            ColladaAbstractGeometry.COORDS_PER_VERTEX);
+    }
+
+    /**
+     * Indicates the vertex data buffer. The buffer is shared; callers must not modify its contents.
+     *
+     * @return the vertex, normal and texture coordinate buffer.
+     */
+    public FloatBuffer getCoordBuffer() {
+        return this.coordBuffer;
+    }
+
+    /**
+     * Returns the normal section of the vertex data buffer.
+     *
+     * @return a view of the normals, or null if the mesh has no normals.
+     */
+    public FloatBuffer getNormalBuffer() {
+        return this.slice(this.normalBufferPosition);
+    }
+
+    public int getNormalBufferPosition() {
+        return this.normalBufferPosition;
+    }
+
+    /**
+     * Returns the texture coordinate section of the vertex data buffer.
+     *
+     * @return a view of the texture coordinates, or null if the mesh has no texture coordinates.
+     */
+    public FloatBuffer getTexCoordBuffer() {
+        return this.slice(this.texCoordBufferPosition);
+    }
+
+    public int getTexCoordBufferPosition() {
+        return this.texCoordBufferPosition;
+    }
+
+    /**
+     * Indicates the offset (in vertices) of a geometry's vertices in the mesh.
+     *
+     * @param index the index of the geometry in the mesh.
+     * @return the geometry's vertex offset.
+     */
+    public int getOffset(int index) {
+        return this.offsets[index];
+    }
+
+    /**
+     * Indicates the bounding box of the mesh vertices in model coordinates. Shapes compute the extent of each placement
+     * by transforming this box, rather than visiting the mesh vertices.
+     *
+     * @return the mesh bounding box, or null if the mesh has no vertices.
+     */
+    public Box getLocalBounds() {
+        return this.localBounds;
+    }
+
+    public long getSizeInBytes() {
+        return (long) this.coordBuffer.capacity() * Buffers.SIZEOF_FLOAT + 4L * this.offsets.length;
+    }
+
+    protected FloatBuffer slice(int position) {
+        if (position < 0)
+            return null;
+
+        FloatBuffer buffer = this.coordBuffer.duplicate();
+        buffer.position(position);
+        return buffer.slice();
+    }
+
+    /**
+     * Key identifying mesh data by content. Computing the key's hash visits every element of the vertex buffer, so
+     * the hash is computed once.
+     */
+    public static class MeshKey {
+        protected final int elementType;
+        protected final int[] counts;
+        protected final FloatBuffer coordBuffer;
+        protected final int hashCode;
+
+        /**
+         * Creates a key for a filled vertex buffer.
+         *
+         * @param elementType the OpenGL element type of the mesh.
+         * @param counts      the number of vertices in each geometry of the mesh.
+         * @param coordBuffer the vertex, normal and texture coordinates. The key uses the buffer's elements from zero
+         *                    to its limit, and must not be modified afterwards.
+         */
+        public MeshKey(int elementType, int[] counts, FloatBuffer coordBuffer) {
+            this.elementType = elementType;
+            this.counts = counts;
+            this.coordBuffer = coordBuffer.duplicate();
+            this.coordBuffer.rewind();
+
+            int result = elementType;
+            result = 31 * result + Arrays.hashCode(counts);
+            result = 31 * result + this.coordBuffer.hashCode();
+            this.hashCode = result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (o == null || this.getClass() != o.getClass())
+                return false;
+
+            MeshKey that = (MeshKey) o;
+            return this.hashCode == that.hashCode
+                && this.elementType == that.elementType
+                && Arrays.equals(this.counts, that.counts)
+                && this.coordBuffer.equals(that.coordBuffer);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+    }
+}
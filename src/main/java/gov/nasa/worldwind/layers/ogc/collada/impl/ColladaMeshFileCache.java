@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.layers.ogc.collada.impl;
+
+import com.jogamp.common.nio.Buffers;
+import gov.nasa.worldwind.Configuration;
+import gov.nasa.worldwind.util.*;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.*;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Level;
+
+/**
+ * Persists COLLADA mesh data converted from COLLADA documents in the WorldWind file store, so that later loads of the
+ * same document map the converted vertex data from disk rather than converting the document's geometry again. Each
+ * mesh is stored in its own file, named by a hash of the mesh's name, and the file records the mesh's key. The name
+ * identifies the mesh within its source document, and the key also identifies the document's modification time. A
+ * mesh is read only if its recorded key matches the requested key, so a file named by a colliding hash is never read
+ * as another mesh, and the mesh of a modified document is replaced by the next mesh written with its name.
+ * <p>
+ * A mesh file contains a header of 32-bit integers (a magic number, the format version, the position of the normals
+ * and texture coordinates, the number of geometries, the number of floats and the length of the key) followed by the
+ * key in UTF-8, padded to a multiple of four bytes, the vertex offset of each geometry and the vertex data, all in the
+ * platform's native byte order. Files written with another byte order are ignored. Reading a mesh maps the file into
+ * memory, so the vertex data does not occupy the Java heap.
+ */
+public class ColladaMeshFileCache {
+    protected static final String DEFAULT_CACHE_PATH = "COLLADA/Meshes";
+    protected static final String MESH_SUFFIX = ".mesh";
+    protected static final int MAGIC_NUMBER = 0x57574D48; // "WWMH"
+    protected static final int FORMAT_VERSION = 2;
+    protected static final int HEADER_INTS = 7;
+
+    protected final String cachePath;
+
+    public ColladaMeshFileCache() {
+        this(ColladaMeshFileCache.DEFAULT_CACHE_PATH);
+    }
+
+    /**
+     * Creates a mesh file cache that stores meshes under the specified path in the WorldWind file store.
+     *
+     * @param cachePath the file store path for mesh files.
+     * @throws IllegalArgumentException if the path is null.
+     */
+    public ColladaMeshFileCache(String cachePath) {
+        if (cachePath == null) {
+            String message = Logging.getMessage("nullValue.FilePathIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.cachePath = cachePath;
+    }
+
+    /**
+     * Reads the mesh with the specified name and key. A mesh file with the specified name but a different key is
+     * removed from the file store.
+     *
+     * @param name the mesh name.
+     * @param key  the mesh key.
+     * @return the mesh data, or null if the mesh is not in the cache or cannot be read.
+     * @throws IllegalArgumentException if either the name or the key is null.
+     */
+    public ColladaMeshData read(String name, String key) {
+        if (name == null) {
+            String message = Logging.getMessage("nullValue.NameIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (key == null) {
+            String message = Logging.getMessage("nullValue.KeyIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        URL url = Configuration.data.findFile(this.createMeshPath(name), false);
+        if (url == null)
+            return null;
+
+        File file = WWIO.convertURLToFile(url);
+        if (file == null)
+            return null;
+
+        try {
+            ByteBuffer buffer = WWIO.mapFile(file);
+            ColladaMeshData data = ColladaMeshFileCache.decode(buffer, key);
+            if (data == null)
+                Configuration.data.removeFile(url); // Discard the unusable or stale file so that it is written again.
+
+            return data;
+        }
+        catch (IOException | RuntimeException e) {
+            String msg = Logging.getMessage("generic.ExceptionAttemptingToReadFile", file);
+            Logging.logger().log(Level.WARNING, msg, e);
+            Configuration.data.removeFile(url);
+            return null;
+        }
+    }
+
+    /**
+     * Writes mesh data under the specified name and key, replacing any mesh previously written with that name.
+     *
+     * @param name the mesh name.
+     * @param key  the mesh key.
+     * @param data the mesh data to write.
+     * @throws IllegalArgumentException if the name, the key or the data is null.
+     */
+    public void write(String name, String key, ColladaMeshData data) {
+        if (name == null) {
+            String message = Logging.getMessage("nullValue.NameIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (key == null) {
+            String message = Logging.getMessage("nullValue.KeyIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (data == null) {
+            String message = Logging.getMessage("nullValue.ObjectIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        File file = Configuration.data.newFile(this.createMeshPath(name));
+        if (file == null)
+            return;
+
+        // Write to a temporary file in the same directory and then rename it, so that a concurrent reader never sees a
+        // partially written mesh.
+        File tmpFile = new File(file.getParentFile(), file.getName() + '.' + Thread.currentThread().getId() + ".tmp");
+        try {
+            if (WWIO.saveBuffer(ColladaMeshFileCache.encode(data, key), tmpFile) && !tmpFile.renameTo(file))
+                tmpFile.delete();
+        }
+        catch (IOException | RuntimeException e) {
+            String msg = Logging.getMessage("generic.ExceptionAttemptingToWriteTo", file);
+            Logging.logger().log(Level.WARNING, msg, e);
+            tmpFile.delete();
+        }
+    }
+
+    /**
+     * Returns the file store path of a mesh, formed from a 64-bit hash of the mesh name.
+     *
+     * @param name the mesh name.
+     * @return the mesh's path in the file store.
+     */
+    protected String createMeshPath(String name) {
+        return WWIO.formPath(this.cachePath, String.format("%016x", WWUtil.hash64(name)) + MESH_SUFFIX);
+    }
+
+    /**
+     * Returns the number of bytes a key occupies in a mesh file, which keeps the vertex data aligned to four bytes.
+     *
+     * @param keyLength the length of the key in bytes.
+     * @return the padded length of the key.
+     */
+    protected static int paddedKeyLength(int keyLength) {
+        return (keyLength + Buffers.SIZEOF_INT - 1) / Buffers.SIZEOF_INT * Buffers.SIZEOF_INT;
+    }
+
+    protected static ByteBuffer encode(ColladaMeshData data, String key) {
+        FloatBuffer coords = data.getCoordBuffer().duplicate();
+        coords.rewind();
+        int numGeometries = data.offsets.length;
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(
+            (ColladaMeshFileCache.HEADER_INTS + numGeometries) * Buffers.SIZEOF_INT
+                + ColladaMeshFileCache.paddedKeyLength(keyBytes.length)
+                + coords.remaining() * Buffers.SIZEOF_FLOAT);
+        buffer.order(ByteOrder.nativeOrder());
+
+        buffer.putInt(ColladaMeshFileCache.MAGIC_NUMBER);
+        buffer.putInt(ColladaMeshFileCache.FORMAT_VERSION);
+        buffer.putInt(data.getNormalBufferPosition());
+        buffer.putInt(data.getTexCoordBufferPosition());
+        buffer.putInt(numGeometries);
+        buffer.putInt(coords.remaining());
+        buffer.putInt(keyBytes.length);
+        buffer.put(keyBytes);
+        buffer.position(buffer.position() + ColladaMeshFileCache.paddedKeyLength(keyBytes.length) - keyBytes.length);
+        for (int offset : data.offsets) {
+            buffer.putInt(offset);
+        }
+        buffer.asFloatBuffer().put(coords);
+
+        buffer.rewind();
+        return buffer;
+    }
+
+    /**
+     * Decodes mesh data written with the specified key.
+     *
+     * @param buffer the encoded mesh.
+     * @param key    the mesh key.
+     * @return the mesh data, or null if the buffer does not contain a valid mesh written with the key.
+     */
+    protected static ColladaMeshData decode(ByteBuffer buffer, String key) {
+        buffer.order(ByteOrder.nativeOrder());
+        if (buffer.remaining() < ColladaMeshFileCache.HEADER_INTS * Buffers.SIZEOF_INT
+            || buffer.getInt() != ColladaMeshFileCache.MAGIC_NUMBER
+            || buffer.getInt() != ColladaMeshFileCache.FORMAT_VERSION) {
+            return null;
+        }
+
+        int normalPosition = buffer.getInt();
+        int texCoordPosition = buffer.getInt();
+        int numGeometries = buffer.getInt();
+        int numFloats = buffer.getInt();
+        int keyLength = buffer.getInt();
+        if (numGeometries < 0 || numFloats < 0 || keyLength < 0 || keyLength > buffer.remaining()
+            || buffer.remaining() != ColladaMeshFileCache.paddedKeyLength(keyLength)
+            + (long) numGeometries * Buffers.SIZEOF_INT + (long) numFloats * Buffers.SIZEOF_FLOAT)
+            return null;
+
+        byte[] keyBytes = new byte[keyLength];
+        buffer.get(keyBytes);
+        if (!key.equals(new String(keyBytes, StandardCharsets.UTF_8)))
+            return null; // The file holds a different mesh whose name has the same hash, or a stale mesh.
+        buffer.position(buffer.position() + ColladaMeshFileCache.paddedKeyLength(keyLength) - keyLength);
+
+        int[] offsets = new int[numGeometries];
+        for (int i = 0; i < numGeometries; i++) {
+            offsets[i] = buffer.getInt();
+        }
+
+        FloatBuffer coords = buffer.slice().order(ByteOrder.nativeOrder()).asFloatBuffer();
+        return new ColladaMeshData(coords, normalPosition, texCoordPosition, offsets);
+    }
+}
@@ -8,10 +8,11 @@ package gov.nasa.worldwind.layers.ogc.collada.impl;
 
 import com.jogamp.common.nio.Buffers;
 import com.jogamp.opengl.*;
-import gov.nasa.worldwind.cache.GpuResourceCache;
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.cache.*;
 import gov.nasa.worldwind.geom.Box;
 import gov.nasa.worldwind.geom.*;
-import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.globes.Globe;
 import gov.nasa.worldwind.layers.ogc.collada.*;
 import gov.nasa.worldwind.pick.PickSupport;
 import gov.nasa.worldwind.render.*;
@@ -19,6 +20,7 @@ import gov.nasa.worldwind.terrain.Terrain;
 import gov.nasa.worldwind.util.*;
 
 import java.awt.*;
+import java.lang.ref.*;
 import java.nio.FloatBuffer;
 import java.util.List;
 import java.util.*;
@@ -30,15 +32,48 @@ import java.util.*;
  * {@link #createLineMesh(java.util.List, ColladaBindMaterial) createLineMesh}.
  * <p>
  * This shape supports only COLLADA line and triangle geometries.
+ * <p>
+ * Shapes that draw identical meshes share a single copy of the mesh vertex data, which is uploaded to the GPU once. When
+ * instancing is enabled, every opaque placement of a shared mesh drawn during a frame is collected into a single
+ * ordered renderable that configures the OpenGL state for the mesh once and draws each placement with its own
+ * transform. See {@link #setEnableInstancing(boolean)}.
  *
  * @author pabercrombie
  * @version $Id: ColladaMeshShape.java 2216 2014-08-11 20:29:24Z tgaskins $
  */
 public class ColladaMeshShape extends AbstractGeneralShape {
+    protected static final String MESH_CACHE_KEY = ColladaMeshData.class.getName();
+    protected static final String MESH_CACHE_NAME = "COLLADA Meshes";
+    protected static final long DEFAULT_MESH_CACHE_SIZE = 16777216L; // 16 megabytes
+
+    static {
+        if (!WorldWind.getMemoryCacheSet().containsCache(ColladaMeshShape.MESH_CACHE_KEY)) {
+            long size = Configuration.getLongValue(Keys.COLLADA_MESH_CACHE_SIZE,
+                ColladaMeshShape.DEFAULT_MESH_CACHE_SIZE);
+            MemoryCache cache = new SoftMemoryCache(size);
+            cache.setName(ColladaMeshShape.MESH_CACHE_NAME);
+            WorldWind.getMemoryCacheSet().addCache(ColladaMeshShape.MESH_CACHE_KEY, cache);
+        }
+    }
+
     /**
-     * Cache of shape extents computed for different transform matrices.
+     * Disk cache of converted meshes, shared by all shapes.
      */
-    protected final Map<ExtentCacheKey, Extent> extentCache = new HashMap<>();
+    protected static final ColladaMeshFileCache meshFileCache = new ColladaMeshFileCache();
+
+    /**
+     * Indicates whether opaque placements of this shape's mesh are drawn as part of an instance batch.
+     */
+    protected boolean enableInstancing = true;
+    /**
+     * Vertex data for this shape's mesh, shared with other shapes that draw an identical mesh.
+     */
+    protected ColladaMeshData meshData;
+    /**
+     * Identifier of the COLLADA <i>geometry</i> element this shape's mesh is created from. Used to identify the mesh in
+     * the disk cache of converted meshes. May be null.
+     */
+    protected String geometryId;
     /**
      * OpenGL element type for this shape (GL.GL_LINES or GL.GL_TRIANGLES).
      */
@@ -61,11 +96,11 @@ public class ColladaMeshShape extends AbstractGeneralShape {
     protected List<Geometry> geometries;
     /**
      * The vertex data buffer for this shape data. The first part contains vertex coordinates, the second part contains
-     * normals, and the third part contains texture coordinates.
+     * normals, and the third part contains texture coordinates. Shared with other shapes through {@link #meshData}.
      */
     protected FloatBuffer coordBuffer;
     /**
-     * The slice of the {@link #coordBuffer} that contains normals.
+     * The slice of the {@link #coordBuffer} that contains normals. Null if the mesh has no normals.
      */
     protected FloatBuffer normalBuffer;
     /**
@@ -73,7 +108,7 @@ public class ColladaMeshShape extends AbstractGeneralShape {
      */
     protected int normalBufferPosition;
     /**
-     * Texture coordinates for all geometries in this shape.
+     * Texture coordinates for all geometries in this shape. Null if the mesh has no texture coordinates.
      */
     protected FloatBuffer textureCoordsBuffer;
     /**
@@ -189,6 +224,50 @@ public class ColladaMeshShape extends AbstractGeneralShape {
         return null;
     }
 
+    /**
+     * Indicates whether opaque placements of this shape's mesh are drawn together with other placements of the same
+     * mesh. See {@link #setEnableInstancing(boolean)}.
+     *
+     * @return true if instancing is enabled, otherwise false.
+     */
+    public boolean isEnableInstancing() {
+        return this.enableInstancing;
+    }
+
+    /**
+     * Specifies whether opaque placements of this shape's mesh are drawn together with other placements of the same
+     * mesh. When enabled, the placements drawn during a frame that share the same mesh and appearance are drawn by a
+     * single ordered renderable, which binds the mesh and applies its materials and textures once, then draws each
+     * placement with its own transform. Instanced placements are not sorted by eye distance relative to each other,
+     * so translucent placements are always drawn individually. Picking always draws placements individually.
+     * Instancing is enabled by default.
+     *
+     * @param enableInstancing true to draw opaque placements as part of an instance batch, otherwise false.
+     */
+    public void setEnableInstancing(boolean enableInstancing) {
+        this.enableInstancing = enableInstancing;
+    }
+
+    /**
+     * Indicates the identifier of the COLLADA <i>geometry</i> element this shape's mesh is created from.
+     *
+     * @return the geometry identifier. May be null.
+     */
+    public String getGeometryId() {
+        return this.geometryId;
+    }
+
+    /**
+     * Specifies the identifier of the COLLADA <i>geometry</i> element this shape's mesh is created from. When the
+     * identifier is specified and the COLLADA document is read from a local file, the converted mesh is cached on disk
+     * and later loads of the document read the mesh from the cache. See {@link ColladaRoot#getMeshCacheKey()}.
+     *
+     * @param geometryId the geometry identifier. May be null.
+     */
+    public void setGeometryId(String geometryId) {
+        this.geometryId = geometryId;
+    }
+
     /**
      * {@inheritDoc} Overridden to invalidate cached geometry when the model position is changed.
      */
@@ -236,17 +315,11 @@ public class ColladaMeshShape extends AbstractGeneralShape {
         ShapeData current = (ShapeData) this.currentData;
         current.renderMatrix = matrix;
 
-        // Update current extent from cached extents. This must be done on each call to render because the same shape
-        // may be drawn multiple times during a single frame with different transforms. Attempt to calculate the extent
-        // if not available in the cache. It may not be possible to calculate the extent if the shape geometry has not
-        // been built, in which case the extent will be computed by createMinimalGeometry.
-        ExtentCacheKey extentCacheKey = new ExtentCacheKey(dc.getGlobe(), matrix);
-        Extent extent = this.extentCache.get(extentCacheKey);
-        if (extent == null) {
-            extent = this.computeExtent(dc);
-            this.extentCache.put(extentCacheKey, extent);
-        }
-        current.setExtent(extent);
+        // Update the current extent. This must be done on each call to render because the same shape may be drawn
+        // multiple times during a single frame with different transforms. The extent is the mesh bounds transformed by
+        // the render matrix, so it's inexpensive to compute. It may not be possible to calculate the extent if the shape
+        // geometry has not been built, in which case the extent will be computed by createMinimalGeometry.
+        current.setExtent(this.computeExtent(dc));
 
         try {
             this.render(dc);
@@ -331,9 +404,6 @@ public class ColladaMeshShape extends AbstractGeneralShape {
      * {@inheritDoc}
      */
     protected boolean doMakeOrderedRenderable(DrawContext dc) {
-        // Clear cached extents because we are creating new geometry.
-        this.extentCache.clear();
-
         // Do the minimum necessary to determine the model's reference point, extent and eye distance.
         this.createMinimalGeometry(dc, (ShapeData) this.getCurrent());
 
@@ -358,10 +428,111 @@ public class ColladaMeshShape extends AbstractGeneralShape {
         ShapeData current = (ShapeData) this.getCurrent();
 
         double eyeDistance = this.computeEyeDistance(dc);
+        if (this.mustDrawInstanced(dc)) {
+            this.addInstance(dc, current.renderMatrix, eyeDistance);
+            return;
+        }
+
         OrderedRenderable or = new OrderedMeshShape(this, current.renderMatrix, eyeDistance);
         dc.addOrderedRenderable(or);
     }
 
+    /**
+     * Indicates whether the current placement of this shape is drawn as part of an instance batch.
+     *
+     * @param dc the current draw context.
+     * @return true if the placement must be added to an instance batch, otherwise false.
+     */
+    protected boolean mustDrawInstanced(DrawContext dc) {
+        return this.isEnableInstancing()
+            && !dc.isPickingMode()
+            && this.meshData != null
+            && this.getActiveAttributes().getInteriorOpacity() >= 1;
+    }
+
+    /**
+     * Adds a placement of this shape to the current frame's instance batch for this shape's mesh and appearance. The
+     * first placement added to a batch during a frame adds the batch to the ordered renderable list.
+     *
+     * @param dc           the current draw context.
+     * @param renderMatrix the transform applied to this placement.
+     * @param eyeDistance  the distance from the eye to this placement.
+     */
+    protected void addInstance(DrawContext dc, Matrix renderMatrix, double eyeDistance) {
+        ColladaMeshData data = this.meshData;
+        if (data.batchFrameTimeStamp != dc.getFrameTimeStamp()) {
+            data.batches.clear();
+            data.batchFrameTimeStamp = dc.getFrameTimeStamp();
+        }
+
+        Object key = this.createInstanceKey();
+        InstanceBatch batch = data.batches.get(key);
+        if (batch == null || batch.drawn) {
+            batch = new InstanceBatch(eyeDistance);
+            data.batches.put(key, batch);
+            dc.addOrderedRenderable(batch);
+        }
+
+        batch.add(this, renderMatrix);
+    }
+
+    /**
+     * Creates a key identifying this shape's mesh and the appearance it's drawn with. Placements with equal keys can be
+     * drawn with the same OpenGL state.
+     *
+     * @return a key identifying this shape's mesh and appearance.
+     */
+    protected Object createInstanceKey() {
+        ShapeAttributes attrs = this.getActiveAttributes();
+
+        List<Object> key = new ArrayList<>(3 + 3 * this.geometries.size());
+        key.add(this.meshData);
+        key.add(attrs.getInteriorMaterial());
+        key.add(attrs.isEnableLighting());
+        for (Geometry geometry : this.geometries) {
+            key.add(geometry.material);
+            key.add(geometry.texture);
+            key.add(geometry.doubleSided);
+        }
+
+        return key;
+    }
+
+    /**
+     * Draws the placements in an instance batch. The mesh is bound and each geometry's material and texture are applied
+     * once, then every placement is drawn with its own transform. This shape must be the first shape in the batch.
+     *
+     * @param dc    the current draw context.
+     * @param batch the batch to draw.
+     */
+    protected void drawInstances(DrawContext dc, InstanceBatch batch) {
+        Matrix modelview = dc.view().getModelviewMatrix();
+        List<Matrix> matrices = new ArrayList<>(batch.shapes.size());
+        for (int i = 0; i < batch.shapes.size(); i++) {
+            ColladaMeshShape shape = batch.shapes.get(i);
+            shape.currentData = (AbstractShapeData) shape.shapeDataCache.getEntry(dc.getGlobe());
+            if (shape.currentData == null)
+                continue;
+
+            ((ShapeData) shape.currentData).renderMatrix = batch.renderMatrices.get(i);
+            matrices.add(modelview.multiply(shape.computeRenderMatrix(dc)));
+        }
+
+        this.currentData = (AbstractShapeData) this.shapeDataCache.getEntry(dc.getGlobe());
+        if (this.currentData == null || matrices.isEmpty())
+            return;
+
+        this.beginDrawing(dc, 0);
+        try {
+            dc.view().setReferenceCenter(dc, this.getCurrentData().getReferencePoint());
+            this.prepareToDrawInterior(dc, this.getActiveAttributes(), AbstractShape.defaultAttributes);
+            this.drawMesh(dc, matrices);
+        }
+        finally {
+            this.endDrawing(dc);
+        }
+    }
+
     /**
      * Draw the shape as an OrderedRenderable, using the specified transform matrix.
      *
@@ -389,6 +560,17 @@ public class ColladaMeshShape extends AbstractGeneralShape {
      */
     @Override
     protected void doDrawInterior(DrawContext dc) {
+        this.drawMesh(dc, Collections.singletonList(this.computeModelviewMatrix(dc)));
+    }
+
+    /**
+     * Draws this shape's mesh once for each of the specified modelview matrices. The OpenGL state for each geometry in
+     * the mesh is established once, then the geometry is drawn with each matrix.
+     *
+     * @param dc         Current draw context.
+     * @param modelviews Modelview matrices to draw the mesh with.
+     */
+    protected void drawMesh(DrawContext dc, List<Matrix> modelviews) {
         GL2 gl = dc.getGL2(); // GL initialization checks for GL2 compatibility.
 
         // Create an OpenGL stack handler to handle matrix stack push/pop. Explicitly track changes to the OpenGL
@@ -398,7 +580,7 @@ public class ColladaMeshShape extends AbstractGeneralShape {
         boolean cullingEnabled = false;
         try {
             stackHandler.pushModelview(gl);
-            this.setModelViewMatrix(dc);
+            gl.glMatrixMode(GL2.GL_MODELVIEW);
 
             Material defaultMaterial = this.activeAttributes.getInteriorMaterial();
 
@@ -468,9 +650,9 @@ public class ColladaMeshShape extends AbstractGeneralShape {
                 }
 
                 if (vboIds != null)
-                    this.doDrawInteriorVBO(dc, geometry, vboIds);
+                    this.doDrawInteriorVBO(dc, geometry, vboIds, modelviews);
                 else
-                    this.doDrawInteriorVA(dc, geometry);
+                    this.doDrawInteriorVA(dc, geometry, modelviews);
             }
         }
         finally {
@@ -495,10 +677,11 @@ public class ColladaMeshShape extends AbstractGeneralShape {
     /**
      * Draw one geometry in the mesh interior using vertex arrays.
      *
-     * @param dc       Current draw context.
-     * @param geometry Geometry to draw.
+     * @param dc         Current draw context.
+     * @param geometry   Geometry to draw.
+     * @param modelviews Modelview matrices to draw the geometry with.
      */
-    protected void doDrawInteriorVA(DrawContext dc, Geometry geometry) {
+    protected void doDrawInteriorVA(DrawContext dc, Geometry geometry, List<Matrix> modelviews) {
         GL2 gl = dc.getGL2(); // GL initialization checks for GL2 compatibility.
         if (geometry.offset == -1)
             return;
@@ -506,18 +689,19 @@ public class ColladaMeshShape extends AbstractGeneralShape {
         if (!dc.isPickingMode() && this.mustApplyLighting(dc, null) && this.normalBuffer != null)
             gl.glNormalPointer(GL.GL_FLOAT, 0, this.normalBuffer.rewind());
 
-        gl.glDrawArrays(this.elementType, geometry.offset, geometry.colladaGeometry.getCount() * this.vertsPerShape);
+        this.drawArrays(dc, geometry, modelviews);
     }
 
     /**
      * Draw one geometry in the mesh interior using vertex buffer objects.
      *
-     * @param dc       Current draw context.
-     * @param geometry Geometry to draw.
-     * @param vboIds   Array of vertex buffer identifiers. The first element of the array identifies the buffer that
-     *                 contains vertex coordinates and normal vectors.
+     * @param dc         Current draw context.
+     * @param geometry   Geometry to draw.
+     * @param vboIds     Array of vertex buffer identifiers. The first element of the array identifies the buffer that
+     *                   contains vertex coordinates and normal vectors.
+     * @param modelviews Modelview matrices to draw the geometry with.
      */
-    protected void doDrawInteriorVBO(DrawContext dc, Geometry geometry, int[] vboIds) {
+    protected void doDrawInteriorVBO(DrawContext dc, Geometry geometry, int[] vboIds, List<Matrix> modelviews) {
         GL2 gl = dc.getGL2(); // GL initialization checks for GL2 compatibility.
         if (geometry.offset == -1)
             return;
@@ -530,14 +714,33 @@ public class ColladaMeshShape extends AbstractGeneralShape {
                 gl.glNormalPointer(GL.GL_FLOAT, 0, this.normalBufferPosition * Buffers.SIZEOF_FLOAT);
             }
 
-            gl.glDrawArrays(this.elementType, geometry.offset,
-                geometry.colladaGeometry.getCount() * this.vertsPerShape);
+            this.drawArrays(dc, geometry, modelviews);
         }
         finally {
             gl.glBindBuffer(GL.GL_ARRAY_BUFFER, 0);
         }
     }
 
+    /**
+     * Draws one geometry in the mesh with each of the specified modelview matrices. The geometry's vertex state must be
+     * established before this method is called.
+     *
+     * @param dc         Current draw context.
+     * @param geometry   Geometry to draw.
+     * @param modelviews Modelview matrices to draw the geometry with.
+     */
+    protected void drawArrays(DrawContext dc, Geometry geometry, List<Matrix> modelviews) {
+        GL2 gl = dc.getGL2(); // GL initialization checks for GL2 compatibility.
+        int count = geometry.colladaGeometry.getCount() * this.vertsPerShape;
+
+        double[] matrixArray = new double[16];
+        for (Matrix modelview : modelviews) {
+            modelview.toArray(matrixArray, 0, false);
+            gl.glLoadMatrixd(matrixArray, 0);
+            gl.glDrawArrays(this.elementType, geometry.offset, count);
+        }
+    }
+
     /**
      * Called during drawing to set the modelview matrix to apply the correct position, scale and orientation for this
      * shape.
@@ -552,8 +755,7 @@ public class ColladaMeshShape extends AbstractGeneralShape {
             throw new IllegalStateException(message);
         }
 
-        Matrix matrix = dc.view().getModelviewMatrix();
-        matrix = matrix.multiply(this.computeRenderMatrix(dc));
+        Matrix matrix = this.computeModelviewMatrix(dc);
 
         GL2 gl = dc.getGL2(); // GL initialization checks for GL2 compatibility.
         gl.glMatrixMode(GL2.GL_MODELVIEW);
@@ -563,11 +765,22 @@ public class ColladaMeshShape extends AbstractGeneralShape {
         gl.glLoadMatrixd(matrixArray, 0);
     }
 
+    /**
+     * Computes the modelview matrix that applies the correct position, scale and orientation for the current placement
+     * of this shape.
+     *
+     * @param dc the current DrawContext
+     * @return the modelview matrix for the current placement.
+     */
+    protected Matrix computeModelviewMatrix(DrawContext dc) {
+        return dc.view().getModelviewMatrix().multiply(this.computeRenderMatrix(dc));
+    }
+
     /**
      * {@inheritDoc}
      */
     protected boolean isOrderedRenderableValid(DrawContext dc) {
-        return this.coordBuffer != null;
+        return this.meshData != null;
     }
 
     /**
@@ -595,14 +808,11 @@ public class ColladaMeshShape extends AbstractGeneralShape {
         shapeData.setGlobeStateKey(dc.getGlobe().getGlobeStateKey(dc));
         shapeData.setVerticalExaggeration(dc.getVerticalExaggeration());
 
-        if (this.coordBuffer == null)
+        if (this.meshData == null)
             this.createVertexCoords(dc);
 
-        if (shapeData.getExtent() == null) {
-            Extent extent = this.computeExtent(dc);
-            this.extentCache.put(new ExtentCacheKey(dc.getGlobe(), shapeData.renderMatrix), extent);
-            shapeData.setExtent(extent);
-        }
+        if (shapeData.getExtent() == null)
+            shapeData.setExtent(this.computeExtent(dc));
     }
 
     //////////////////////////////////////////////////////////////////////
@@ -615,12 +825,6 @@ public class ColladaMeshShape extends AbstractGeneralShape {
      * @param dc Current draw context.
      */
     protected void createFullGeometry(DrawContext dc) {
-        if (this.normalBuffer == null && this.mustApplyLighting(dc, null))
-            this.createNormals();
-
-        if (this.textureCoordsBuffer == null && this.mustApplyTexture(dc))
-            this.createTexCoords();
-
         for (Geometry geometry : this.geometries) {
             if (geometry.material == null)
                 geometry.material = this.getMaterial(geometry);
@@ -636,13 +840,11 @@ public class ColladaMeshShape extends AbstractGeneralShape {
      * @return The spatial extent of the shape, or null if the extent cannot be determined.
      */
     protected Extent computeExtent(DrawContext dc) {
-        if (this.coordBuffer == null)
+        if (this.meshData == null || this.meshData.getLocalBounds() == null)
             return null;
 
-        // Compute a bounding box around the vertices in this shape.
-        this.coordBuffer.rewind();
-        Box box = Box.computeBoundingBox(new BufferWrapper.FloatBufferWrapper(this.coordBuffer),
-            ColladaAbstractGeometry.COORDS_PER_VERTEX);
+        // Transform the bounds of the shared mesh rather than visiting the mesh vertices.
+        Box box = this.meshData.getLocalBounds();
 
         Matrix matrix = this.computeRenderMatrix(dc);
 
@@ -667,17 +869,13 @@ public class ColladaMeshShape extends AbstractGeneralShape {
             throw new IllegalArgumentException(message);
         }
 
-        int size = this.shapeCount * this.vertsPerShape * ColladaAbstractGeometry.COORDS_PER_VERTEX;
-        FloatBuffer vertexBuffer = WWBufferUtil.newFloatBuffer(size, true);
-
-        for (Geometry geometry : this.geometries) {
-            geometry.colladaGeometry.getVertices(vertexBuffer);
-        }
+        // Use the bounds of the shared mesh, creating the mesh if necessary.
+        if (this.meshData == null)
+            this.createMeshData();
 
-        // Compute a bounding box around the vertices in this shape.
-        vertexBuffer.rewind();
-        Box box = Box.computeBoundingBox(new BufferWrapper.FloatBufferWrapper(vertexBuffer),
-            ColladaAbstractGeometry.COORDS_PER_VERTEX);
+        Box box = this.meshData.getLocalBounds();
+        if (box == null)
+            return null;
 
         // Compute the corners of the bounding box and transform with the active transform matrix.
         Collection<Vec4> extrema = new ArrayList<>();
@@ -697,91 +895,308 @@ public class ColladaMeshShape extends AbstractGeneralShape {
      * Create the shape's vertex coordinates. The coordinates are stored in {@link #coordBuffer}.
      *
      * @param dc Current draw context.
+     * @see #createMeshData()
      */
     protected void createVertexCoords(DrawContext dc) {
-        int size = this.shapeCount * this.vertsPerShape * ColladaAbstractGeometry.COORDS_PER_VERTEX;
+        this.createMeshData();
+    }
+
+    /**
+     * Creates or finds the shared mesh data for this shape, and points this shape's vertex buffers at it. The mesh data
+     * is found in the following order: the in-memory mesh cache, the disk cache of converted meshes, and finally by
+     * converting this shape's COLLADA geometry. A converted mesh that is identical to a mesh already in memory is
+     * discarded in favor of the existing mesh. This method does not require a draw context, and may be called on a
+     * thread other than the rendering thread before the shape is rendered.
+     */
+    public void createMeshData() {
+        String fileKey = this.createMeshFileKey();
+        String fileName = this.createMeshFileName();
+        ColladaMeshData data = null;
+
+        if (fileKey != null && fileName != null) {
+            data = ColladaMeshShape.getMeshDataByFileKey(fileKey);
+            if (data == null) {
+                data = ColladaMeshShape.meshFileCache.read(fileName, fileKey);
+                if (data != null && data.offsets.length != this.geometries.size())
+                    data = null; // The cached mesh does not match this shape's geometry; convert it again.
+                if (data != null) {
+                    data = this.shareMeshData(data);
+                    ColladaMeshShape.addMeshDataFileKey(fileKey, data);
+                }
+            }
+        }
+
+        if (data == null) {
+            data = this.shareMeshData(this.convertMesh());
+            if (fileKey != null && fileName != null) {
+                ColladaMeshShape.meshFileCache.write(fileName, fileKey, data);
+                ColladaMeshShape.addMeshDataFileKey(fileKey, data);
+            }
+        }
+
+        this.setMeshData(data);
+    }
 
-        // Capture the position at which normals buffer starts (in case there are normals)
-        this.normalBufferPosition = size;
-        if (this.mustApplyLighting(dc, null)) {
-            size += (this.shapeCount * this.vertsPerShape * ColladaAbstractGeometry.COORDS_PER_VERTEX);
+    /**
+     * Creates the key identifying this shape's mesh in the disk cache of converted meshes. The key combines the source
+     * document's key, the geometry identifier, the element type and the material and texture coordinates of each part
+     * of the mesh, which determine the converted vertex data.
+     *
+     * @return the mesh key, or null if the mesh cannot be identified across loads.
+     */
+    protected String createMeshFileKey() {
+        ColladaRoot root = this.geometries.get(0).colladaGeometry.getRoot();
+        if (this.geometryId == null || root == null || root.getMeshCacheKey() == null)
+            return null;
+
+        return root.getMeshCacheKey() + this.createMeshDescriptor();
+    }
+
+    /**
+     * Creates the name under which this shape's mesh is stored in the disk cache of converted meshes. The name is
+     * formed like the mesh key, but from the source document's name rather than its key, so that it does not change
+     * when the document is modified.
+     *
+     * @return the mesh name, or null if the mesh cannot be identified across loads.
+     * @see #createMeshFileKey()
+     */
+    protected String createMeshFileName() {
+        ColladaRoot root = this.geometries.get(0).colladaGeometry.getRoot();
+        if (this.geometryId == null || root == null || root.getMeshCacheName() == null)
+            return null;
+
+        return root.getMeshCacheName() + this.createMeshDescriptor();
+    }
+
+    /**
+     * Creates the part of this shape's mesh key and mesh name that identifies the mesh within its source document.
+     *
+     * @return the geometry identifier, the element type and the material and texture coordinates of each part of the
+     * mesh.
+     */
+    protected String createMeshDescriptor() {
+        StringBuilder sb = new StringBuilder();
+        sb.append('#').append(this.geometryId).append('#').append(this.elementType);
+        for (Geometry geometry : this.geometries) {
+            sb.append('#').append(geometry.colladaGeometry.getMaterial());
+            sb.append(':').append(geometry.colladaGeometry.getCount());
+            sb.append(':').append(this.mustApplyTexture(geometry) ? this.getTexCoordSemantic(geometry) : "-");
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Returns the mesh data in memory that is identical to the specified mesh data, or adds the specified mesh data to
+     * the in-memory mesh cache if there is none.
+     *
+     * @param data the mesh data to share.
+     * @return the shared mesh data.
+     */
+    protected ColladaMeshData shareMeshData(ColladaMeshData data) {
+        int[] counts = new int[this.geometries.size()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = this.geometries.get(i).colladaGeometry.getCount() * this.vertsPerShape;
+        }
+
+        ColladaMeshData.MeshKey key = new ColladaMeshData.MeshKey(this.elementType, counts, data.getCoordBuffer());
+        ColladaMeshData existing = (ColladaMeshData) ColladaMeshShape.getMeshCache().getObject(key);
+        if (existing != null)
+            return existing;
+
+        // Another thread may have added an identical mesh since the lookup above. The cache keeps the first mesh added
+        // under a key, so return whichever mesh the cache holds.
+        ColladaMeshShape.getMeshCache().add(key, data);
+        existing = (ColladaMeshData) ColladaMeshShape.getMeshCache().getObject(key);
+        return existing != null ? existing : data;
+    }
+
+    /**
+     * Returns the in-memory mesh data converted from the source identified by a disk cache key. See {@link
+     * #addMeshDataFileKey(String, ColladaMeshData)}.
+     *
+     * @param fileKey the mesh's key in the disk cache of converted meshes.
+     * @return the mesh data, or null if no mesh data in memory is known by the key.
+     */
+    protected static ColladaMeshData getMeshDataByFileKey(String fileKey) {
+        Object entry = ColladaMeshShape.getMeshCache().getObject(fileKey);
+        if (!(entry instanceof Reference))
+            return null;
+
+        ColladaMeshData data = (ColladaMeshData) ((Reference<?>) entry).get();
+        if (data == null)
+            ColladaMeshShape.getMeshCache().remove(fileKey); // The mesh data is no longer in memory.
+
+        return data;
+    }
+
+    /**
+     * Records that shared mesh data was converted from the source identified by a disk cache key, so that later shapes
+     * created from the same source find the mesh data without reading the disk cache or comparing the mesh content.
+     * The mesh data itself is cached and counted under its content key by {@link #shareMeshData(ColladaMeshData)}; the
+     * mesh cache holds only a weak reference to it under the disk cache key, counted at the size of the key.
+     *
+     * @param fileKey the mesh's key in the disk cache of converted meshes.
+     * @param data    the shared mesh data.
+     */
+    protected static void addMeshDataFileKey(String fileKey, ColladaMeshData data) {
+        ColladaMeshShape.getMeshCache().add(fileKey, new WeakReference<>(data), 2L * fileKey.length());
+    }
+
+    /**
+     * Converts this shape's COLLADA geometry to mesh data. The vertex coordinates are followed by the normals, if any
+     * geometry defines normals, and the texture coordinates, if any geometry is textured.
+     *
+     * @return the converted mesh data.
+     */
+    protected ColladaMeshData convertMesh() {
+        int vertexCount = this.shapeCount * this.vertsPerShape;
+        int size = vertexCount * ColladaAbstractGeometry.COORDS_PER_VERTEX;
+
+        // Capture the position at which normals buffer starts (in case there are normals). Normals are included if any
+        // geometry defines them, so that the shared mesh does not depend on the lighting state of the shape that
+        // created it.
+        int normalPosition = -1;
+        if (this.hasNormals()) {
+            normalPosition = size;
+            size += vertexCount * ColladaAbstractGeometry.COORDS_PER_VERTEX;
         }
 
         // Capture the position at which texture coordinate buffer starts (in case that textures are applied)
-        this.texCoordBufferPosition = size;
-        if (this.mustApplyTexture(dc)) {
-            size += (this.shapeCount * this.vertsPerShape * ColladaAbstractGeometry.TEX_COORDS_PER_VERTEX);
+        int texCoordPosition = -1;
+        if (this.hasTexture()) {
+            texCoordPosition = size;
+            size += vertexCount * ColladaAbstractGeometry.TEX_COORDS_PER_VERTEX;
+        }
+
+        FloatBuffer buffer = Buffers.newDirectFloatBuffer(size);
+        int[] offsets = new int[this.geometries.size()];
+        for (int i = 0; i < this.geometries.size(); i++) {
+            offsets[i] = buffer.position() / ColladaAbstractGeometry.COORDS_PER_VERTEX;
+            this.geometries.get(i).colladaGeometry.getVertices(buffer);
         }
 
-        if (this.coordBuffer != null && this.coordBuffer.capacity() >= size)
-            this.coordBuffer.clear();
-        else
-            this.coordBuffer = Buffers.newDirectFloatBuffer(size);
+        if (normalPosition >= 0)
+            this.createNormals(buffer, normalPosition);
+
+        if (texCoordPosition >= 0)
+            this.createTexCoords(buffer, texCoordPosition);
+
+        buffer.rewind();
+        return new ColladaMeshData(buffer, normalPosition, texCoordPosition, offsets);
+    }
+
+    /**
+     * Specifies the shared mesh data drawn by this shape, and points this shape's vertex buffers at it.
+     *
+     * @param data the mesh data to draw.
+     */
+    protected void setMeshData(ColladaMeshData data) {
+        this.meshData = data;
+        this.coordBuffer = data.getCoordBuffer();
+        this.normalBuffer = data.getNormalBuffer();
+        this.normalBufferPosition = data.getNormalBufferPosition();
+        this.textureCoordsBuffer = data.getTexCoordBuffer();
+        this.texCoordBufferPosition = data.getTexCoordBufferPosition();
+
+        for (int i = 0; i < this.geometries.size(); i++) {
+            this.geometries.get(i).offset = data.getOffset(i);
+        }
+    }
 
+    /**
+     * Indicates whether any geometry in this shape defines vertex normals.
+     *
+     * @return true if any geometry defines normals, otherwise false.
+     */
+    protected boolean hasNormals() {
         for (Geometry geometry : this.geometries) {
-            geometry.offset = this.coordBuffer.position() / this.vertsPerShape;
-            geometry.colladaGeometry.getVertices(this.coordBuffer);
+            if (geometry.colladaGeometry.getNormalAccessor() != null)
+                return true;
         }
+        return false;
     }
 
     /**
-     * Create this shape's vertex normals. The normals are stored in {@link #normalBuffer}.
+     * Create this shape's vertex normals.
+     *
+     * @param buffer   Buffer to receive the normals.
+     * @param position Index of the first normal in the buffer.
      */
-    protected void createNormals() {
-        this.coordBuffer.position(this.normalBufferPosition);
-        this.normalBuffer = this.coordBuffer.slice();
+    protected void createNormals(FloatBuffer buffer, int position) {
+        buffer.position(position);
+        FloatBuffer normalBuffer = buffer.slice();
 
         for (Geometry geometry : this.geometries) {
             if (geometry.colladaGeometry.getNormalAccessor() != null) {
-                geometry.colladaGeometry.getNormals(this.normalBuffer);
+                geometry.colladaGeometry.getNormals(normalBuffer);
             } else {
                 int thisSize = geometry.colladaGeometry.getCount() * this.vertsPerShape
                     * ColladaAbstractGeometry.COORDS_PER_VERTEX;
-                this.normalBuffer.position(this.normalBuffer.position() + thisSize);
+                normalBuffer.position(normalBuffer.position() + thisSize);
             }
         }
     }
 
     /**
-     * Create this shape's texture coordinates. The texture coordinates are stored in {@link #textureCoordsBuffer}.
+     * Create this shape's texture coordinates.
+     *
+     * @param buffer   Buffer to receive the texture coordinates.
+     * @param position Index of the first texture coordinate in the buffer.
      */
-    protected void createTexCoords() {
-        this.coordBuffer.position(this.texCoordBufferPosition);
-        this.textureCoordsBuffer = this.coordBuffer.slice();
+    protected void createTexCoords(FloatBuffer buffer, int position) {
+        buffer.position(position);
+        FloatBuffer texCoordBuffer = buffer.slice();
 
         for (Geometry geometry : this.geometries) {
             if (this.mustApplyTexture(geometry)) {
                 String semantic = this.getTexCoordSemantic(geometry);
-                geometry.colladaGeometry.getTextureCoordinates(this.textureCoordsBuffer, semantic);
+                geometry.colladaGeometry.getTextureCoordinates(texCoordBuffer, semantic);
             } else {
                 int thisSize = geometry.colladaGeometry.getCount() * this.vertsPerShape
                     * ColladaAbstractGeometry.TEX_COORDS_PER_VERTEX;
-                this.textureCoordsBuffer.position(this.textureCoordsBuffer.position() + thisSize);
+                texCoordBuffer.position(texCoordBuffer.position() + thisSize);
             }
         }
     }
 
     /**
-     * {@inheritDoc}
+     * Retrieve the cache of shared mesh data. Shapes that create identical meshes find each other's mesh data in this
+     * cache.
+     *
+     * @return the mesh cache.
+     */
+    protected static MemoryCache getMeshCache() {
+        return WorldWind.cache(ColladaMeshShape.MESH_CACHE_KEY);
+    }
+
+    /**
+     * {@inheritDoc} Overridden because the VBO belongs to the shared mesh data, and is shared by every shape that draws
+     * the mesh.
+     */
+    @Override
+    protected int[] getVboIds(DrawContext dc) {
+        return this.meshData != null ? (int[]) dc.gpuCache().get(this.meshData) : null;
+    }
+
+    /**
+     * {@inheritDoc} The mesh data is uploaded once, and shared by every shape that draws the mesh.
      */
     protected void fillVBO(DrawContext dc) {
-        GL gl = dc.getGL();
-        ShapeData shapeData = (ShapeData) getCurrentData();
+        if (this.meshData == null || this.getVboIds(dc) != null)
+            return;
 
-        int[] vboIds = this.getVboIds(dc);
-        if (vboIds == null) {
-            int size = this.coordBuffer.limit() * Buffers.SIZEOF_FLOAT;
+        GL gl = dc.getGL();
+        FloatBuffer vb = this.meshData.getCoordBuffer();
+        int size = vb.limit() * Buffers.SIZEOF_FLOAT;
 
-            vboIds = new int[1];
-            gl.glGenBuffers(vboIds.length, vboIds, 0);
-            dc.gpuCache().put(shapeData.getVboCacheKey(), vboIds, GpuResourceCache.VBO_BUFFERS,
-                size);
-        }
+        int[] vboIds = new int[1];
+        gl.glGenBuffers(vboIds.length, vboIds, 0);
+        dc.gpuCache().put(this.meshData, vboIds, GpuResourceCache.VBO_BUFFERS, size);
 
         try {
-            FloatBuffer vb = this.coordBuffer;
             gl.glBindBuffer(GL.GL_ARRAY_BUFFER, vboIds[0]);
-            gl.glBufferData(GL.GL_ARRAY_BUFFER, vb.limit() * Buffers.SIZEOF_FLOAT, vb.rewind(), GL.GL_STATIC_DRAW);
+            gl.glBufferData(GL.GL_ARRAY_BUFFER, size, vb.rewind(), GL.GL_STATIC_DRAW);
         }
         finally {
             gl.glBindBuffer(GL.GL_ARRAY_BUFFER, 0);
@@ -845,6 +1260,15 @@ public class ColladaMeshShape extends AbstractGeneralShape {
      */
     @Override
     protected boolean mustApplyTexture(DrawContext dc) {
+        return this.hasTexture();
+    }
+
+    /**
+     * Indicates whether any geometry in this shape includes a texture.
+     *
+     * @return True if any geometry in this shape includes a texture.
+     */
+    protected boolean hasTexture() {
         for (Geometry geometry : this.geometries) {
             if (this.mustApplyTexture(geometry))
                 return true;
@@ -1253,37 +1677,68 @@ public class ColladaMeshShape extends AbstractGeneralShape {
         }
     }
 
-    protected static class ExtentCacheKey {
-        protected final GlobeStateKey globeStateKey;
-        protected final Matrix matrix;
+    /**
+     * Ordered renderable that draws the opaque placements of a shared mesh collected during a frame. The placements
+     * share the mesh and appearance of the first shape added to the batch, so the batch is drawn by that shape. See
+     * {@link ColladaMeshShape#setEnableInstancing(boolean)}.
+     */
+    public static class InstanceBatch implements OrderedRenderable {
+        /**
+         * Shapes drawn by this batch, one for each placement. A shape may appear more than once.
+         */
+        protected final List<ColladaMeshShape> shapes = new ArrayList<>();
+        /**
+         * Transform applied to each placement.
+         */
+        protected final List<Matrix> renderMatrices = new ArrayList<>();
+        /**
+         * Distance from the eye to the first placement added to the batch.
+         */
+        protected final double eyeDistance;
+        /**
+         * Indicates whether the batch has been drawn. Placements added after the batch is drawn start a new batch.
+         */
+        protected boolean drawn;
 
-        public ExtentCacheKey(Globe globe, Matrix matrix) {
-            this.globeStateKey = globe.getGlobeStateKey();
-            this.matrix = matrix;
+        /**
+         * Create a new instance batch.
+         *
+         * @param eyeDistance Distance from the eye position to the first placement in the batch.
+         */
+        public InstanceBatch(double eyeDistance) {
+            this.eyeDistance = eyeDistance;
         }
 
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) {
-                return true;
-            }
-            if (o == null || getClass() != o.getClass()) {
-                return false;
-            }
+        /**
+         * Adds a placement to this batch.
+         *
+         * @param shape        Shape to draw.
+         * @param renderMatrix Transform matrix to apply when drawing the shape.
+         */
+        public void add(ColladaMeshShape shape, Matrix renderMatrix) {
+            this.shapes.add(shape);
+            this.renderMatrices.add(renderMatrix);
+        }
+
+        public int size() {
+            return this.shapes.size();
+        }
 
-            ExtentCacheKey that = (ExtentCacheKey) o;
+        public double getDistanceFromEye() {
+            return this.eyeDistance;
+        }
 
-            if (!Objects.equals(globeStateKey, that.globeStateKey)) {
-                return false;
+        public void pick(DrawContext dc, Point pickPoint) {
+            for (int i = 0; i < this.shapes.size(); i++) {
+                this.shapes.get(i).pick(dc, pickPoint, this.renderMatrices.get(i));
             }
-            return Objects.equals(matrix, that.matrix);
         }
 
-        @Override
-        public int hashCode() {
-            int result = globeStateKey != null ? globeStateKey.hashCode() : 0;
-            result = 31 * result + (matrix != null ? matrix.hashCode() : 0);
-            return result;
+        public void render(DrawContext dc) {
+            this.drawn = true;
+
+            if (!this.shapes.isEmpty())
+                this.shapes.get(0).drawInstances(dc, this);
         }
     }
-}
\ No newline at end of file
+}
@@ -128,8 +128,14 @@ public class KMLModelPlacemarkImpl extends WWObjectImpl implements KMLRenderable
      * @param root the Collada resource referenced by this placemark. May be <code>null</code>.
      */
     protected void setColladaRoot(ColladaRoot root) {
-        if (root != null)
+        if (root != null) {
             this.configureColladaRoot(root);
+            // Convert the model's geometry on the calling thread, which is a task service thread when the model is
+            // retrieved, rather than on the rendering thread when the model is first drawn. Models requested by
+            // different placemarks load and convert in parallel. The root must be configured first so that its
+            // textures resolve.
+            root.createMeshes();
+        }
 
         this.colladaRoot.set(root);
     }
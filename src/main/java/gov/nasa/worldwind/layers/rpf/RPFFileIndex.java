@@ -13,12 +13,16 @@ import java.nio.ByteBuffer;
 import java.util.*;
 
 /**
+ * An index of the RPF frame files of one data series, and of the wavelet files made from them. Frame file records
+ * are indexed by their sectors in an R-tree, so the frames covering a region are found without visiting every record.
+ * The R-tree is saved with the index, so it is not rebuilt when a saved index is loaded.
+ *
  * @author dcollins
  * @version $Id: RPFFileIndex.java 1171 2013-02-11 21:45:02Z dcollins $
  */
 public class RPFFileIndex {
     private static final String FILE_ID = "RPF_FILE_INDEX";
-    private static final String VERSION = "VERSION_0_1";
+    private static final String VERSION = "VERSION_0_2";
     private static final int FILE_ID_LENGTH = 16;
     private static final int VERSION_LENGTH = 16;
     private static final String CHARACTER_ENCODING = "UTF-8";
@@ -26,6 +30,8 @@ public class RPFFileIndex {
     private final Table waveletTable;
     private final Table directoryTable;
     private final IndexProperties properties;
+    private final Map<String, Record> directoryRecords = new HashMap<>();
+    private volatile RPFSectorTree sectorTree;
 
     public RPFFileIndex() {
         this.rpfFileTable = new Table();
@@ -189,21 +195,81 @@ public class RPFFileIndex {
     private synchronized Record createDirectoryRecord(String path) {
         Record record = null;
         if (path != null) {
-            for (Record rec : this.directoryTable.getRecords()) {
-                if (((DirectoryRecord) rec).path.equals(path)) {
-                    record = rec;
-                    break;
+            // Index the directories by path, rather than searching the directory table for each file. The table may
+            // have been loaded or modified since the directories were last indexed.
+            if (this.directoryRecords.size() != this.directoryTable.getRecords().size()) {
+                this.directoryRecords.clear();
+                for (Record rec : this.directoryTable.getRecords()) {
+                    this.directoryRecords.put(((DirectoryRecord) rec).path, rec);
                 }
             }
 
+            record = this.directoryRecords.get(path);
             if (record == null) {
                 record = this.directoryTable.createRecord();
                 ((DirectoryRecord) record).path = path;
+                this.directoryRecords.put(path, record);
             }
         }
         return record;
     }
 
+    /**
+     * Returns the RPF file records whose sectors intersect a specified sector, in the order they appear in the RPF file
+     * table. The records are found with the index's spatial index, which is built if it does not exist. Records
+     * without a sector are never returned.
+     *
+     * @param sector the sector to search.
+     * @return the intersecting records.
+     * @throws IllegalArgumentException if the sector is null.
+     * @see #updateSpatialIndex()
+     */
+    public List<RPFFileRecord> findRPFFileRecords(Sector sector) {
+        if (sector == null) {
+            String message = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        RPFSectorTree tree = this.sectorTree;
+        if (tree == null) {
+            this.updateSpatialIndex();
+            tree = this.sectorTree;
+        }
+
+        long[] keys = tree.intersect(sector);
+        Arrays.sort(keys); // Keys increase in table order.
+
+        List<RPFFileRecord> records = new ArrayList<>(keys.length);
+        for (long key : keys) {
+            Record record = this.rpfFileTable.getRecord(key);
+            if (record != null)
+                records.add((RPFFileRecord) record);
+        }
+        return records;
+    }
+
+    /**
+     * Rebuilds the spatial index of the RPF file records' sectors. Call this after adding RPF file records or changing
+     * their sectors; {@link #updateBoundingSector()} also rebuilds the spatial index.
+     */
+    public void updateSpatialIndex() {
+        List<Record> records = this.rpfFileTable.getRecords();
+        long[] keys = new long[records.size()];
+        Sector[] sectors = new Sector[records.size()];
+        int count = 0;
+        for (Record rec : records) {
+            Sector sector = ((RPFFileRecord) rec).getSector();
+            if (sector != null) {
+                keys[count] = rec.getKey();
+                sectors[count] = sector;
+                count++;
+            }
+        }
+
+        this.sectorTree = RPFSectorTree.build(Arrays.copyOf(keys, count), Arrays.copyOf(sectors, count));
+    }
+
     public void updateBoundingSector() {
         Sector bs = null;
         for (Record rec : this.rpfFileTable.getRecords()) {
@@ -222,6 +288,7 @@ public class RPFFileIndex {
                 RPFFileIndex.clamp(bs.lonMax, -180.0d, 180.0d));
         }
         this.properties.setBoundingSector(bs);
+        this.updateSpatialIndex();
     }
 
     public void load(ByteBuffer buffer) throws IOException {
@@ -245,6 +312,15 @@ public class RPFFileIndex {
         this.rpfFileTable.load(buffer, locationSection.getRPFFileTableSectionLocation());
         this.waveletTable.load(buffer, locationSection.getWaveletTableSectionLocation());
         this.directoryTable.load(buffer, locationSection.getDirectoryTableSectionLocation());
+
+        // Indexes saved before the spatial index was added don't have one; it is then built on first use.
+        this.sectorTree = null;
+        int treeLocation = locationSection.getSpatialIndexSectionLocation();
+        if (treeLocation > 0) {
+            ByteBuffer treeBuffer = buffer.duplicate();
+            treeBuffer.position(treeLocation);
+            this.sectorTree = RPFSectorTree.load(treeBuffer);
+        }
     }
 
     public ByteBuffer save() throws IOException {
@@ -252,6 +328,9 @@ public class RPFFileIndex {
         ByteBuffer rpfFileTableBuffer = this.rpfFileTable.save();
         ByteBuffer waveletTableBuffer = this.waveletTable.save();
         ByteBuffer directoryTableBuffer = this.directoryTable.save();
+        if (this.sectorTree == null)
+            this.updateSpatialIndex();
+        ByteBuffer spatialIndexBuffer = this.sectorTree.save();
 
         int location = RPFFileIndex.FILE_ID_LENGTH + RPFFileIndex.VERSION_LENGTH;
         LocationSection locationSection = new LocationSection();
@@ -264,6 +343,8 @@ public class RPFFileIndex {
         location += waveletTableBuffer.limit();
         locationSection.setDirectoryTableSection(directoryTableBuffer.limit(), location);
         location += directoryTableBuffer.limit();
+        locationSection.setSpatialIndexSection(spatialIndexBuffer.limit(), location);
+        location += spatialIndexBuffer.limit();
 
         ByteBuffer locationSectionBuffer = locationSection.save();
 
@@ -273,7 +354,8 @@ public class RPFFileIndex {
                 + informationSectionBuffer.limit()
                 + rpfFileTableBuffer.limit()
                 + waveletTableBuffer.limit()
-                + directoryTableBuffer.limit();
+                + directoryTableBuffer.limit()
+                + spatialIndexBuffer.limit();
         ByteBuffer buffer = ByteBuffer.allocate(length);
 
         RPFFileIndex.putString(buffer, RPFFileIndex.FILE_ID, RPFFileIndex.FILE_ID_LENGTH);
@@ -283,6 +365,7 @@ public class RPFFileIndex {
         buffer.put(rpfFileTableBuffer);
         buffer.put(waveletTableBuffer);
         buffer.put(directoryTableBuffer);
+        buffer.put(spatialIndexBuffer);
 
         buffer.flip();
         return buffer;
@@ -744,7 +827,7 @@ public class RPFFileIndex {
             new HashMap<>();
 
         public LocationSection() {
-            for (int i = 1; i <= 4; i++) {
+            for (int i = 1; i <= 5; i++) {
                 this.table.put(i, new ComponentLocationRecord(i, -1, -1));
             }
             this.locationSectionLength = (3 * Integer.SIZE / 8) + (this.table.size() * 3 * Integer.SIZE / 8);
@@ -841,6 +924,18 @@ public class RPFFileIndex {
             set(4, length, location);
         }
 
+        public int getSpatialIndexSectionLocation() {
+            return getLocation(5);
+        }
+
+        public int getSpatialIndexSectionLength() {
+            return getLength(5);
+        }
+
+        public void setSpatialIndexSection(int length, int location) {
+            set(5, length, location);
+        }
+
         private int getLocation(int componentID) {
             ComponentLocationRecord rec = this.getRecord(componentID);
             return (null != rec) ? rec.getLocation() : 0;
@@ -17,6 +17,7 @@ import java.awt.image.*;
 import java.io.*;
 import java.net.URL;
 import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.*;
 import java.util.logging.Level;
 
@@ -29,9 +30,8 @@ class RPFGenerator {
     public static final String RPF_FILE_INDEX = "RPFGenerator.RPFFileIndex";
     public static final String WAVELET_IMAGE_THRESHOLD = "RPFGenerator.WaveletImageThreshold";
     public static final String WAVELET_PRELOAD_SIZE = "RPFGenerator.WaveletPreloadSize";
-    @SuppressWarnings("FieldCanBeLocal")
     private final RPFFileIndex fileIndex;
-    private final FrameFile[] frameFiles;
+    private final Map<Long, FrameFile> frameFiles;
     private final Sector globalBounds;
     private final AbsentResourceList absentFrames;
     // Wavelet parameters.
@@ -80,8 +80,8 @@ class RPFGenerator {
         return params;
     }
 
-    private static FrameFile[] loadFrameFiles(RPFFileIndex fileIndex) {
-        Collection<FrameFile> list = new ArrayList<>();
+    private static Map<Long, FrameFile> loadFrameFiles(RPFFileIndex fileIndex) {
+        Map<Long, FrameFile> map = new HashMap<>();
 
         long frameId = -1;
         RPFFileIndex.Table fileTable = fileIndex.getRPFFileTable();
@@ -95,7 +95,7 @@ class RPFGenerator {
                 if (rpfKey != -1 && waveletKey != -1 && sector != null) {
                     File rpfFile = fileIndex.getRPFFile(rpfKey);
                     File waveletFile = fileIndex.getWaveletFile(waveletKey);
-                    list.add(new FrameFile(frameId, rpfFile, waveletFile, sector));
+                    map.put(rpfKey, new FrameFile(frameId, rpfFile, waveletFile, sector));
                 } else {
                     String message = "Ignoring frame file: " + (rpfKey == -1 ? "?"
                         : fileIndex.getRPFFile(rpfKey).getPath());
@@ -104,9 +104,20 @@ class RPFGenerator {
             }
         }
 
-        FrameFile[] array = new FrameFile[list.size()];
-        list.toArray(array);
-        return array;
+        return map;
+    }
+
+    //
+    // Returns the frame files intersecting a sector, found with the file index's spatial index.
+    //
+    private List<FrameFile> findFrameFiles(Sector sector) {
+        List<FrameFile> list = new ArrayList<>();
+        for (RPFFileIndex.RPFFileRecord record : this.fileIndex.findRPFFileRecords(sector)) {
+            FrameFile frame = this.frameFiles.get(record.getKey());
+            if (frame != null)
+                list.add(frame);
+        }
+        return list;
     }
 
     //
@@ -207,7 +218,7 @@ class RPFGenerator {
                 BufferedImage reqImage = new BufferedImage(reqWidth, reqHeight, BufferedImage.TYPE_4BYTE_ABGR);
                 int numFramesInRequest = 0;
 
-                for (FrameFile frame : RPFGenerator.this.frameFiles) {
+                for (FrameFile frame : RPFGenerator.this.findFrameFiles(reqSector)) {
                     try {
                         // The call to getSector() can throw an exception if the file is
                         // named with an inappropriate frameNumber for the dataseries/zone.
@@ -239,13 +250,22 @@ class RPFGenerator {
                     // it from a wavelet encoding.
                     BufferedImage sourceImage;
                     if (footprintX > smallImageSize || footprintY > smallImageSize) {
-                        RPFFrameTransform.RPFImage[] images = getImageFromRPFSource(frame);
-                        if (images == null)
+                        BufferedImage frameImage = getImageFromRPFSource(frame);
+                        if (frameImage == null)
                             continue;
-                        for (RPFFrameTransform.RPFImage image : images) {
-                            if (image.getSector() == null || image.getImage() == null)
+                        try {
+                            RPFFrameTransform.RPFImage[] images = deprojectFrameImage(frame, frameImage);
+                            if (images == null)
                                 continue;
-                            drawImageIntoRequest(reqImage, reqSector, image.getImage(), image.getSector());
+                            for (RPFFrameTransform.RPFImage image : images) {
+                                if (image.getSector() == null || image.getImage() == null)
+                                    continue;
+                                drawImageIntoRequest(reqImage, reqSector, image.getImage(), image.getSector());
+                            }
+                        }
+                        finally {
+                            // The frame has been drawn into the request, and the deprojected images are discarded.
+                            RPFImageFile.releaseBufferedImage(frameImage);
                         }
                     } else {
                         int maxRes = footprintX;
@@ -394,13 +414,29 @@ class RPFGenerator {
         }
 
         //
-        // Attempts to return the specified FrameFile as a BufferedImage. Returns null on failure.
+        // Attempts to return the specified FrameFile as a BufferedImage drawn from the RPFImageFile image pool. The
+        // caller releases the image to the pool when finished with it. Returns null on failure.
         //
-        private RPFFrameTransform.RPFImage[] getImageFromRPFSource(FrameFile frame) {
+        private BufferedImage getImageFromRPFSource(FrameFile frame) {
             try {
                 File file = frame.rpfFile;
                 RPFImageFile sourceFile = RPFImageFile.load(file);
-                BufferedImage image = sourceFile.getBufferedImage();
+                return sourceFile.getPooledBufferedImage();
+            }
+            catch (Exception e) {
+                String message = "Exception while reading frame file: " + frame.rpfFile;
+                Logging.logger().log(Level.SEVERE, message, e);
+                RPFGenerator.this.markFrameFileAbsent(frame);
+                return null;
+            }
+        }
+
+        //
+        // Attempts to deproject the specified FrameFile's image into geographic images. The images may share the
+        // frame image's pixels. Returns null on failure.
+        //
+        private RPFFrameTransform.RPFImage[] deprojectFrameImage(FrameFile frame, BufferedImage image) {
+            try {
                 return frame.getFrameTransform().deproject(frame.getFrameNumber(), image);
             }
             catch (Exception e) {
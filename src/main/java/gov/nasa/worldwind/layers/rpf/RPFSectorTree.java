@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.layers.rpf;
+
+import gov.nasa.worldwind.geom.Sector;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * This is a package private class that indexes the sectors of RPF frame files in a packed R-tree, so that the frames
+ * intersecting a sector are found in logarithmic time. The tree is bulk loaded with the Sort-Tile-Recursive algorithm
+ * and is immutable; it is rebuilt when the frames change.
+ * <p>
+ * The tree is stored level by level. The first level holds the indexed items, sorted so that runs of consecutive items
+ * are close together. Each node of a higher level bounds a run of {@link #NODE_SIZE} consecutive entries of the level
+ * below it, so a node's children are found by their position rather than by stored references. The last level holds
+ * the root.
+ */
+class RPFSectorTree {
+    protected static final int NODE_SIZE = 16;
+
+    // The keys of the items, in tree order.
+    protected final long[] keys;
+    // The bounds of each level's entries as minLat, maxLat, minLon, maxLon, in degrees.
+    protected final double[][] levels;
+
+    protected RPFSectorTree(long[] keys, double[][] levels) {
+        this.keys = keys;
+        this.levels = levels;
+    }
+
+    /**
+     * Creates a tree of items identified by keys.
+     *
+     * @param keys    the item keys.
+     * @param sectors the item sectors, in the same order as the keys.
+     * @return the tree.
+     */
+    static RPFSectorTree build(long[] keys, Sector[] sectors) {
+        int count = keys.length;
+
+        // Sort-Tile-Recursive: sort the items by longitude, cut them into vertical slices of about sqrt(count/NODE_SIZE)
+        // nodes each, and sort each slice by latitude.
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i -> sectors[i].lonMin + sectors[i].lonMax));
+
+        int numNodes = (count + NODE_SIZE - 1) / NODE_SIZE;
+        int sliceSize = NODE_SIZE * (int) Math.ceil(Math.sqrt(numNodes));
+        for (int start = 0; start < count; start += sliceSize) {
+            Arrays.sort(order, start, Math.min(start + sliceSize, count),
+                Comparator.comparingDouble(i -> sectors[i].latMin + sectors[i].latMax));
+        }
+
+        long[] sortedKeys = new long[count];
+        double[] items = new double[4 * count];
+        for (int i = 0; i < count; i++) {
+            Sector sector = sectors[order[i]];
+            sortedKeys[i] = keys[order[i]];
+            items[4 * i] = sector.latMin;
+            items[4 * i + 1] = sector.latMax;
+            items[4 * i + 2] = sector.lonMin;
+            items[4 * i + 3] = sector.lonMax;
+        }
+
+        List<double[]> levels = new ArrayList<>();
+        levels.add(items);
+        double[] level = items;
+        while (level.length > 4) {
+            level = RPFSectorTree.buildParentLevel(level);
+            levels.add(level);
+        }
+
+        return new RPFSectorTree(sortedKeys, levels.toArray(new double[0][]));
+    }
+
+    protected static double[] buildParentLevel(double[] level) {
+        int count = level.length / 4;
+        int parentCount = (count + NODE_SIZE - 1) / NODE_SIZE;
+        double[] parents = new double[4 * parentCount];
+
+        for (int p = 0; p < parentCount; p++) {
+            double minLat = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE;
+            double minLon = Double.MAX_VALUE, maxLon = -Double.MAX_VALUE;
+            for (int i = p * NODE_SIZE; i < Math.min((p + 1) * NODE_SIZE, count); i++) {
+                minLat = Math.min(minLat, level[4 * i]);
+                maxLat = Math.max(maxLat, level[4 * i + 1]);
+                minLon = Math.min(minLon, level[4 * i + 2]);
+                maxLon = Math.max(maxLon, level[4 * i + 3]);
+            }
+            parents[4 * p] = minLat;
+            parents[4 * p + 1] = maxLat;
+            parents[4 * p + 2] = minLon;
+            parents[4 * p + 3] = maxLon;
+        }
+
+        return parents;
+    }
+
+    int size() {
+        return this.keys.length;
+    }
+
+    /**
+     * Returns the keys of the items whose sectors intersect a sector, in tree order.
+     *
+     * @param sector the sector to search.
+     * @return the keys of the intersecting items.
+     */
+    long[] intersect(Sector sector) {
+        if (this.keys.length == 0)
+            return new long[0];
+
+        long[] result = new long[16];
+        int resultCount = 0;
+
+        // Each stack entry is a level and the index of an entry in that level.
+        int[] stack = new int[2 * (NODE_SIZE * this.levels.length + 1)];
+        int top = 0;
+        stack[top++] = this.levels.length - 1;
+        stack[top++] = 0;
+
+        while (top > 0) {
+            int index = stack[--top];
+            int level = stack[--top];
+            double[] bounds = this.levels[level];
+
+            if (bounds[4 * index] > sector.latMax || bounds[4 * index + 1] < sector.latMin
+                || bounds[4 * index + 2] > sector.lonMax || bounds[4 * index + 3] < sector.lonMin)
+                continue;
+
+            if (level == 0) {
+                if (resultCount == result.length)
+                    result = Arrays.copyOf(result, 2 * resultCount);
+                result[resultCount++] = this.keys[index];
+                continue;
+            }
+
+            // Push the children in reverse so that they are visited in tree order.
+            int childCount = this.levels[level - 1].length / 4;
+            for (int i = Math.min((index + 1) * NODE_SIZE, childCount) - 1; i >= index * NODE_SIZE; i--) {
+                stack[top++] = level - 1;
+                stack[top++] = i;
+            }
+        }
+
+        return Arrays.copyOf(result, resultCount);
+    }
+
+    /**
+     * Returns the tree in binary form: the number of items, the number of levels, each item's key, and then each
+     * level's bounds.
+     *
+     * @return a buffer holding the tree, positioned at its start.
+     */
+    ByteBuffer save() {
+        int length = 2 * Integer.BYTES + this.keys.length * Long.BYTES;
+        for (double[] level : this.levels) {
+            length += level.length * Double.BYTES;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(this.keys.length);
+        buffer.putInt(this.levels.length);
+        for (long key : this.keys) {
+            buffer.putLong(key);
+        }
+        for (double[] level : this.levels) {
+            for (double value : level) {
+                buffer.putDouble(value);
+            }
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Reads a tree written by {@link #save()}.
+     *
+     * @param buffer the buffer holding the tree, positioned at its start.
+     * @return the tree.
+     * @throws IOException if the buffer does not hold a valid tree.
+     */
+    static RPFSectorTree load(ByteBuffer buffer) throws IOException {
+        int count = buffer.getInt();
+        int numLevels = buffer.getInt();
+        if (count < 0 || numLevels < 0 || numLevels > 32 || (long) count * Long.BYTES > buffer.remaining())
+            throw new IOException("RPF sector tree is invalid");
+
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = buffer.getLong();
+        }
+
+        double[][] levels = new double[numLevels][];
+        int levelCount = count;
+        for (int l = 0; l < numLevels; l++) {
+            if ((long) 4 * levelCount * Double.BYTES > buffer.remaining())
+                throw new IOException("RPF sector tree is invalid");
+
+            levels[l] = new double[4 * levelCount];
+            for (int i = 0; i < levels[l].length; i++) {
+                levels[l][i] = buffer.getDouble();
+            }
+            levelCount = (levelCount + NODE_SIZE - 1) / NODE_SIZE;
+        }
+
+        return new RPFSectorTree(keys, levels);
+    }
+}
@@ -386,17 +386,19 @@ public class RPFTiledImageProcessor {
             // then create a new wavelet file.
             if (waveletFile != null && (file != null && file.lastModified() > waveletFile.lastModified())) {
                 // Get the RPF image file as a BufferedImage.
-                BufferedImage bi = rpfImageFile.getBufferedImage();
-
-                // Must deproject it...
-                bi = RPFTiledImageProcessor.deproject(file, bi);
-
-                // Get coverage information from the transform.
-                // Create the wavelet from the RPF BufferedImage.
-                if (bi != null) {
-                    wavelet = RPFTiledImageProcessor.createWavelet(bi, waveletWidth, waveletHeight);
-                    //noinspection UnusedAssignment
-                    bi = null;
+                BufferedImage frameImage = rpfImageFile.getPooledBufferedImage();
+                try {
+                    // Must deproject it...
+                    BufferedImage bi = RPFTiledImageProcessor.deproject(file, frameImage);
+
+                    // Get coverage information from the transform.
+                    // Create the wavelet from the RPF BufferedImage. The wavelet is encoded from a scaled copy, so the
+                    // frame image is no longer needed afterwards.
+                    if (bi != null)
+                        wavelet = RPFTiledImageProcessor.createWavelet(bi, waveletWidth, waveletHeight);
+                }
+                finally {
+                    RPFImageFile.releaseBufferedImage(frameImage);
                 }
             }
             //noinspection UnusedAssignment
@@ -12,6 +12,7 @@ import gov.nasa.worldwind.util.wizard.*;
 import java.beans.*;
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.logging.Level;
 
 /**
@@ -22,6 +23,7 @@ public class FileSearchPanelDescriptor extends DefaultPanelDescriptor {
     public static final String IDENTIFIER = "gov.nasa.worldwind.rpf.wizard.FileSearchPanel";
     private final ProgressPanel panelComponent;
     private final PropertyEvents propertyEvents;
+    private final RPFCrawler crawler = new RPFCrawler();
     private Thread workerThread;
 
     public FileSearchPanelDescriptor() {
@@ -32,22 +34,35 @@ public class FileSearchPanelDescriptor extends DefaultPanelDescriptor {
         setPanelComponent(this.panelComponent);
     }
 
-    private static List<File> searchSelectedFile(File fileToSearch, FileFilter fileFilter) {
+    private static List<File> searchSelectedFile(RPFCrawler crawler, File fileToSearch, ProgressPanel panel) {
         if (Thread.interrupted())
             return null;
 
-        List<File> fileList;
+        Queue<File> files = new ConcurrentLinkedQueue<>();
         try {
-            FileTree fileTree = new FileTree(fileToSearch);
-            fileTree.setMode(FileTree.FILES_ONLY);
-            fileList = fileTree.asList(fileFilter);
+            crawler.crawl(fileToSearch, new RPFCrawler.RPFCrawlerListener() {
+                public void fileFound(File rpfFile, RPFFrameFilename filename) {
+                    String description = rpfFile.getParent();
+                    if (panel != null && !Objects.equals(description, panel.getProgressDescription1()))
+                        panel.setProgressDescription1(description);
+                    files.add(rpfFile);
+                }
+
+                public void finished() {
+                }
+            });
         }
         catch (Throwable t) {
             String message = String.format("Exception while searching file: %s", fileToSearch);
             Logging.logger().log(Level.SEVERE, message, t);
-            fileList = null;
+            return null;
         }
-        return fileList;
+
+        // The search was cancelled.
+        if (Thread.interrupted())
+            return null;
+
+        return new ArrayList<>(files);
     }
 
     private static List<FileSet> makeFileSetList(Iterable<File> fileList) {
@@ -231,9 +246,8 @@ public class FileSearchPanelDescriptor extends DefaultPanelDescriptor {
 
             // Search for any RPF files under the selected file.
             File selectedFile = RPFWizardUtil.getSelectedFile(model);
-            FileFilter rpfFilter = new AcceptRPFFilter();
-            FileFilter updateUIFilter = new UpdateDescriptionFilter(rpfFilter, this.panelComponent);
-            List<File> fileList = FileSearchPanelDescriptor.searchSelectedFile(selectedFile, updateUIFilter);
+            List<File> fileList = FileSearchPanelDescriptor.searchSelectedFile(this.crawler, selectedFile,
+                this.panelComponent);
             RPFWizardUtil.setFileList(model, fileList);
 
             // Create FileSets from the search results (if any).
@@ -260,44 +274,11 @@ public class FileSearchPanelDescriptor extends DefaultPanelDescriptor {
     }
 
     private void killWorkerThread() {
-        if (this.workerThread != null && this.workerThread.isAlive())
+        if (this.workerThread != null && this.workerThread.isAlive()) {
+            this.crawler.stop();
             this.workerThread.interrupt();
-        this.workerThread = null;
-    }
-
-    private static class UpdateDescriptionFilter implements FileFilter {
-        private final FileFilter delegate;
-        private final ProgressPanel panel;
-
-        private UpdateDescriptionFilter(FileFilter delegate, ProgressPanel panel) {
-            this.delegate = delegate;
-            this.panel = panel;
-        }
-
-        public boolean accept(File pathname) {
-            if (!Thread.interrupted()) {
-                if (this.panel != null && pathname != null) {
-                    String oldDescription = this.panel.getProgressDescription2();
-                    String newDescription = pathname.getParent();
-                    if (!Objects.equals(newDescription, oldDescription)) {
-                        this.panel.setProgressDescription1(newDescription);
-                    }
-                }
-                return this.delegate != null && this.delegate.accept(pathname);
-            }
-            return false;
-        }
-    }
-
-    private static class AcceptRPFFilter implements FileFilter {
-        public boolean accept(File pathname) {
-            if (pathname != null) {
-                pathname.getName();
-                String filename = pathname.getName().toUpperCase();
-                return RPFFrameFilename.isFilename(filename);
-            }
-            return false;
         }
+        this.workerThread = null;
     }
 
     private class PropertyEvents implements PropertyChangeListener {
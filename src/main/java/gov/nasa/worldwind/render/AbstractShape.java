@@ -16,13 +16,16 @@ import gov.nasa.worldwind.layers.Layer;
 import gov.nasa.worldwind.layers.ogc.kml.KMLConstants;
 import gov.nasa.worldwind.layers.ogc.kml.impl.KMLExportUtil;
 import gov.nasa.worldwind.pick.*;
-import gov.nasa.worldwind.terrain.Terrain;
+import gov.nasa.worldwind.terrain.*;
 import gov.nasa.worldwind.util.*;
+import gov.nasa.worldwind.view.ViewSnapshot;
 
 import javax.xml.stream.*;
 import java.awt.*;
 import java.io.*;
 import java.util.List;
+import java.util.concurrent.*;
+import java.util.logging.Level;
 
 /**
  * Provides a base class form several geometric {@link Renderable}s. Implements common attribute handling and rendering
@@ -66,6 +69,31 @@ public abstract class AbstractShape extends WWObjectImpl
      * Indicates the number of vertices that must be present in order for VBOs to be used to render this shape.
      */
     protected static final int VBO_THRESHOLD = Configuration.getIntegerValue(Keys.VBO_THRESHOLD, 30);
+    /**
+     * The default maximum number of asynchronously regenerated geometries swapped in per frame, across all shapes.
+     */
+    protected static final int DEFAULT_REGENERATION_BUDGET = 32;
+    /**
+     * Limits the number of asynchronously regenerated geometries swapped in per frame, so that a burst of completed
+     * regenerations is spread over several frames. Shared by all shapes derived from this class; surface shapes have
+     * their own budget.
+     */
+    protected static final FrameBudget regenerationBudget = new FrameBudget(
+        Configuration.getIntegerValue(Keys.GEOMETRY_REGENERATION_BUDGET, DEFAULT_REGENERATION_BUDGET));
+    /**
+     * The shape data being regenerated on the current thread, if any. Overrides the shape's current data for the
+     * duration of an asynchronous regeneration. See {@link #getCurrentData()}.
+     */
+    protected static final ThreadLocal<AbstractShapeData> regenerationData = new ThreadLocal<>();
+    /**
+     * The maximum number of idle draw contexts kept for asynchronous regeneration.
+     */
+    protected static final int MAX_POOLED_REGENERATION_CONTEXTS = 8;
+    /**
+     * Idle draw contexts used by asynchronous regenerations, reused so that each request need not construct one.
+     */
+    protected static final BlockingQueue<DrawContextImpl> regenerationContexts = new ArrayBlockingQueue<>(
+        MAX_POOLED_REGENERATION_CONTEXTS);
 
     /**
      * The attributes used if attributes are not specified.
@@ -154,6 +182,12 @@ public abstract class AbstractShape extends WWObjectImpl
      * data is drawn from this shape's data cache at the beginning of the <code>render</code> method.
      */
     protected AbstractShapeData currentData;
+    protected boolean enableAsyncRegeneration = true;
+    // Asynchronous regeneration state. The data being replaced is accessed only by the rendering thread; the flag and
+    // the regenerated data are written by the worker thread.
+    protected AbstractShapeData regenerationSource;
+    protected volatile boolean regenerating;
+    protected volatile AbstractShapeData regeneratedData;
 
     /**
      * Invokes {@link #initialize()} during construction and sets the data cache's expiration time to a default value.
@@ -163,11 +197,12 @@ public abstract class AbstractShape extends WWObjectImpl
     }
 
     protected AbstractShape(AbstractShape source) {
-        this.normalAttrs = new BasicShapeAttributes(source.normalAttrs);
-        this.highlightAttrs = new BasicShapeAttributes(source.highlightAttrs);
+        this.normalAttrs = source.normalAttrs != null ? new BasicShapeAttributes(source.normalAttrs) : null;
+        this.highlightAttrs = source.highlightAttrs != null ? new BasicShapeAttributes(source.highlightAttrs) : null;
         this.highlighted = source.highlighted;
         this.visible = source.visible;
         this.altitudeMode = source.altitudeMode;
+        this.enableAsyncRegeneration = source.enableAsyncRegeneration;
         this.enableBatchRendering = source.enableBatchRendering;
         this.enableBatchPicking = source.enableBatchPicking;
         this.enableDepthOffset = source.enableDepthOffset;
@@ -313,7 +348,9 @@ public abstract class AbstractShape extends WWObjectImpl
      * @return the data cache entry for the current rendering.
      */
     protected final AbstractShapeData getCurrentData() {
-        return this.currentData;
+        // A worker thread regenerating this shape's geometry sees the data it's regenerating.
+        AbstractShapeData data = AbstractShape.regenerationData.get();
+        return data != null ? data : this.currentData;
     }
 
     /**
@@ -553,6 +590,44 @@ public abstract class AbstractShape extends WWObjectImpl
         }
     }
 
+    /**
+     * Indicates whether this shape regenerates its geometry on a worker thread. See {@link
+     * #setEnableAsyncRegeneration(boolean)}.
+     *
+     * @return true if geometry is regenerated on a worker thread, otherwise false.
+     */
+    public boolean isEnableAsyncRegeneration() {
+        return this.enableAsyncRegeneration;
+    }
+
+    /**
+     * Specifies whether this shape regenerates its geometry on a worker thread rather than the rendering thread. When
+     * enabled, geometry that expires or becomes invalid is regenerated on a worker thread while the shape continues to
+     * draw its previous geometry, and the new geometry is swapped in when it's ready. A shape's first geometry, and
+     * geometry invalidated by changes to the shape itself, is always generated on the rendering thread. Only shapes
+     * whose geometry generation is independent of the rendering thread support asynchronous regeneration; see {@link
+     * #isAsyncRegenerationSupported()}. Asynchronous regeneration is enabled by default.
+     *
+     * @param enableAsyncRegeneration true to regenerate geometry on a worker thread, false to regenerate it on the
+     *                                rendering thread.
+     */
+    public void setEnableAsyncRegeneration(boolean enableAsyncRegeneration) {
+        this.enableAsyncRegeneration = enableAsyncRegeneration;
+    }
+
+    /**
+     * Indicates whether this shape's {@link #doMakeOrderedRenderable(DrawContext)} can run on a worker thread. It must
+     * store its results only in the current shape data, must access the draw context only for its globe, view,
+     * terrain, vertical exaggeration and frame time stamp, and must not make OpenGL calls when vertex buffer objects
+     * are disabled. Shapes that support it must also override {@link #createRegenerationCopy()}. The default
+     * implementation returns false.
+     *
+     * @return true if this shape's geometry can be regenerated on a worker thread, otherwise false.
+     */
+    protected boolean isAsyncRegenerationSupported() {
+        return false;
+    }
+
     /**
      * Specifies the position to use as a reference position for computed geometry. This value should typically left to
      * the default value of the first position in the polygon's outer boundary.
@@ -854,8 +929,9 @@ public abstract class AbstractShape extends WWObjectImpl
             if (this.getActiveAttributes() == null)
                 return;
 
-            // Regenerate the positions and shape at a specified frequency.
-            if (this.mustRegenerateGeometry(dc)) {
+            // Regenerate the positions and shape at a specified frequency. Geometry regenerated on a worker thread is
+            // swapped in when it's ready; until then the shape draws its previous geometry.
+            if (!this.swapRegeneratedData(dc) && this.mustRegenerateGeometry(dc) && !this.requestRegeneration(dc)) {
                 if (!this.doMakeOrderedRenderable(dc))
                     return;
 
@@ -863,6 +939,7 @@ public abstract class AbstractShape extends WWObjectImpl
                     this.fillVBO(dc);
 
                 this.getCurrentData().restartTimer(dc);
+                this.getCurrentData().hasGeometry = true;
             }
 
             this.getCurrentData().setFrameNumber(dc.getFrameTimeStamp());
@@ -877,6 +954,169 @@ public abstract class AbstractShape extends WWObjectImpl
         this.addOrderedRenderable(dc);
     }
 
+    /**
+     * Queues a task to regenerate this shape's geometry on a worker thread, if asynchronous regeneration is enabled and
+     * supported and the shape has previous geometry to draw in the meantime. The task regenerates the geometry of a
+     * copy of this shape, made by {@link #createRegenerationCopy()}, into a new shape data entry, using a draw context
+     * that captures the current frame's globe, view, terrain and vertical exaggeration. Changes made to this shape
+     * while the task runs therefore don't affect the geometry being generated; they reset the shape, which discards
+     * the regenerated geometry. Requests made while a regeneration is in progress are coalesced with it.
+     * <p>
+     * A {@link AbstractShape.AbstractShapeData} must be current when this method is called.
+     *
+     * @param dc the current draw context.
+     * @return true if the shape continues to draw its current geometry while new geometry is regenerated, false if the
+     * geometry must be regenerated on the rendering thread.
+     */
+    protected boolean requestRegeneration(DrawContext dc) {
+        if (!this.isEnableAsyncRegeneration() || !this.isAsyncRegenerationSupported())
+            return false;
+
+        AbstractShapeData source = this.getCurrentData();
+        if (!source.hasGeometry || dc.getModel() == null || dc.getSurfaceGeometry() == null)
+            return false;
+
+        if (this.regenerating || this.regeneratedData != null)
+            return true; // The geometry is already being regenerated.
+
+        if (WorldWind.tasks().isFull())
+            return true; // Draw the current geometry and try again next frame.
+
+        AbstractShape copy = this.createRegenerationCopy();
+        if (copy == null)
+            return false;
+
+        copy.activeAttributes.copy(this.activeAttributes);
+        AbstractShapeData target = this.createCacheEntry(dc);
+        target.setReferenceDistance(source.getReferenceDistance());
+        DrawContextImpl snapshot = AbstractShape.acquireRegenerationContext(dc);
+
+        this.regenerationSource = source;
+        this.regenerating = true;
+        WorldWind.tasks().addTask(() -> {
+            AbstractShape.regenerationData.set(target);
+            try {
+                target.hasGeometry = copy.doMakeOrderedRenderable(snapshot);
+            }
+            catch (Throwable e) {
+                String message = Logging.getMessage("generic.ExceptionWhileTessellating", this);
+                Logging.logger().log(Level.SEVERE, message, e);
+            }
+            finally {
+                AbstractShape.regenerationData.remove();
+                AbstractShape.releaseRegenerationContext(snapshot);
+                this.regeneratedData = target;
+                this.regenerating = false;
+                this.emit(Keys.REPAINT, null, this);
+            }
+        });
+
+        return true;
+    }
+
+    /**
+     * Creates the copy of this shape whose geometry is regenerated on a worker thread. The copy must hold its own copy
+     * of every property its {@link #doMakeOrderedRenderable(DrawContext)} reads, such as its positions, so that the
+     * regeneration is unaffected by changes made to this shape on the rendering thread. The copy's active attributes
+     * are set to this shape's current active attributes after this method returns. Subclasses that support
+     * asynchronous regeneration must override this method to return an instance of their own class. The default
+     * implementation returns null, which causes the geometry to be regenerated on the rendering thread.
+     *
+     * @return a copy of this shape, or null if this shape cannot be copied.
+     */
+    protected AbstractShape createRegenerationCopy() {
+        return null;
+    }
+
+    /**
+     * Returns a draw context used to regenerate geometry on a worker thread, configured with the current frame's
+     * model, vertical exaggeration and frame time stamp, a copy of the frame's surface geometry list and an immutable
+     * snapshot of its view. The context disables vertex buffer objects so that geometry generation makes no OpenGL
+     * calls. Contexts are taken from a pool when one is idle; return the context with {@link
+     * #releaseRegenerationContext(DrawContextImpl)} when the regeneration is done.
+     *
+     * @param dc the current draw context.
+     * @return a draw context independent of the current frame.
+     */
+    protected static DrawContextImpl acquireRegenerationContext(DrawContext dc) {
+        DrawContextImpl snapshot = AbstractShape.regenerationContexts.poll();
+        if (snapshot == null) {
+            GLRuntimeCapabilities caps = new GLRuntimeCapabilities();
+            caps.setVertexBufferObjectEnabled(false);
+
+            snapshot = new DrawContextImpl();
+            snapshot.setGLRuntimeCapabilities(caps);
+        }
+
+        snapshot.setModel(dc.getModel());
+        snapshot.setView(new ViewSnapshot(dc.view()));
+        snapshot.setVerticalExaggeration(dc.getVerticalExaggeration());
+        snapshot.setSurfaceGeometry(new SectorGeometryList(dc.getSurfaceGeometry()));
+        snapshot.setFrameTimeStamp(dc.getFrameTimeStamp());
+
+        return snapshot;
+    }
+
+    /**
+     * Returns a draw context obtained from {@link #acquireRegenerationContext(DrawContext)} to the pool, releasing its
+     * references to the frame it captured.
+     *
+     * @param snapshot the draw context to release.
+     */
+    protected static void releaseRegenerationContext(DrawContextImpl snapshot) {
+        snapshot.setModel(null);
+        snapshot.setView(null);
+        snapshot.setSurfaceGeometry(null);
+        AbstractShape.regenerationContexts.offer(snapshot);
+    }
+
+    /**
+     * Replaces this shape's current data with geometry regenerated on a worker thread, if any is ready and the frame's
+     * regeneration budget allows it. Regenerated geometry is discarded if the shape has been reset since the
+     * regeneration was requested. If the regeneration failed, the shape's next regeneration runs on the rendering
+     * thread.
+     * <p>
+     * A {@link AbstractShape.AbstractShapeData} must be current when this method is called.
+     *
+     * @param dc the current draw context.
+     * @return true if regenerated geometry was swapped in, otherwise false.
+     */
+    protected boolean swapRegeneratedData(DrawContext dc) {
+        AbstractShapeData data = this.regeneratedData;
+        if (data == null)
+            return false;
+
+        AbstractShapeData source = this.regenerationSource;
+        if (source != this.currentData) { // the shape has been reset or the globe has changed
+            this.regenerationSource = null;
+            this.regeneratedData = null;
+            return false;
+        }
+
+        if (!data.hasGeometry) {
+            source.hasGeometry = false;
+            this.regenerationSource = null;
+            this.regeneratedData = null;
+            return false;
+        }
+
+        if (!AbstractShape.regenerationBudget.tryAcquire(dc.getFrameTimeStamp()))
+            return false; // Draw the current geometry and swap next frame.
+
+        this.regenerationSource = null;
+        this.regeneratedData = null;
+
+        this.clearCachedVbos(dc);
+        this.shapeDataCache.addEntry(data);
+        this.currentData = data;
+
+        if (this.shouldUseVBOs(dc))
+            this.fillVBO(dc);
+
+        data.restartTimer(dc);
+        return true;
+    }
+
     /**
      * Adds this shape to the draw context's ordered renderable list.
      *
@@ -1593,6 +1833,10 @@ public abstract class AbstractShape extends WWObjectImpl
          * The GPU-resource cache key to use for this entry's VBOs, if VBOs are used.
          */
         protected Object vboCacheKey = new Object();
+        /**
+         * Indicates whether this entry holds geometry that can be drawn while new geometry is regenerated.
+         */
+        protected boolean hasGeometry;
 
         /**
          * Constructs a data cache entry and initializes its globe-dependent state key for the globe in the specified
@@ -78,6 +78,23 @@ public abstract class AbstractSurfaceShape extends AbstractSurfaceObject
      * The attributes used if attributes are not specified.
      */
     protected static final ShapeAttributes defaultAttrs;
+    /**
+     * The default maximum number of geometries generated on worker threads that are added to surface shapes per frame,
+     * across all surface shapes.
+     */
+    protected static final int DEFAULT_REGENERATION_BUDGET = 32;
+    /**
+     * Limits the number of geometries generated on worker threads that are added to surface shapes per frame, so that
+     * a burst of completed geometries is spread over several frames. Shared by all surface shapes, and separate from
+     * the budget of {@link AbstractShape}.
+     */
+    protected static final FrameBudget regenerationBudget = new FrameBudget(
+        Configuration.getIntegerValue(Keys.GEOMETRY_REGENERATION_BUDGET, DEFAULT_REGENERATION_BUDGET));
+    /**
+     * The time in milliseconds to wait before generating a geometry on a worker thread again after generating it
+     * failed.
+     */
+    protected static final long GEOMETRY_RETRY_DELAY = 5000L;
     protected static FloatBuffer vertexBuffer;
 
     static {
@@ -104,6 +121,14 @@ public abstract class AbstractSurfaceShape extends AbstractSurfaceObject
     protected int minEdgeIntervals = AbstractSurfaceShape.DEFAULT_MIN_EDGE_INTERVALS;
     protected int maxEdgeIntervals = AbstractSurfaceShape.DEFAULT_MAX_EDGE_INTERVALS;
     protected WWTexture texture; // An optional texture.
+    protected boolean enableAsyncRegeneration = true;
+    // Asynchronous geometry state. The flag and the regenerated geometry are written by the worker thread.
+    protected volatile boolean regenerating;
+    protected volatile RegeneratedGeometry regeneratedGeometry;
+    // The most recent geometry that failed to generate on a worker thread, and the time to try it again. Accessed only
+    // by the rendering thread.
+    protected RegeneratedGeometry failedGeometry;
+    protected long geometryRetryTime;
     // Measurement properties.
 
     /**
@@ -137,6 +162,7 @@ public abstract class AbstractSurfaceShape extends AbstractSurfaceObject
         this.texelsPerEdgeInterval = source.texelsPerEdgeInterval;
         this.minEdgeIntervals = source.minEdgeIntervals;
         this.maxEdgeIntervals = source.maxEdgeIntervals;
+        this.enableAsyncRegeneration = source.enableAsyncRegeneration;
     }
 
     protected static boolean isSectorEmpty(Sector sector) {
@@ -411,6 +437,30 @@ public abstract class AbstractSurfaceShape extends AbstractSurfaceObject
         this.onShapeChanged();
     }
 
+    /**
+     * Indicates whether this shape generates geometry on a worker thread. See {@link
+     * #setEnableAsyncRegeneration(boolean)}.
+     *
+     * @return true if geometry is generated on a worker thread, otherwise false.
+     */
+    public boolean isEnableAsyncRegeneration() {
+        return this.enableAsyncRegeneration;
+    }
+
+    /**
+     * Specifies whether this shape generates geometry on a worker thread rather than the rendering thread. Surface
+     * shape geometry depends on the resolution of the surface tiles it's drawn into. When enabled and geometry for a
+     * new resolution is needed, the shape draws its cached geometry of the nearest resolution while the new geometry
+     * is generated on a worker thread, and redraws itself when the new geometry is ready. A shape's first geometry is
+     * always generated on the rendering thread. Asynchronous regeneration is enabled by default.
+     *
+     * @param enableAsyncRegeneration true to generate geometry on a worker thread, false to generate it on the
+     *                                rendering thread.
+     */
+    public void setEnableAsyncRegeneration(boolean enableAsyncRegeneration) {
+        this.enableAsyncRegeneration = enableAsyncRegeneration;
+    }
+
     /**
      * {@inheritDoc}
      * <p>
@@ -655,6 +705,7 @@ public abstract class AbstractSurfaceShape extends AbstractSurfaceObject
         super.clearCaches();
         this.sectorCache.clear();
         this.geometryCache.clear();
+        this.failedGeometry = null;
     }
 
     /**
@@ -910,9 +961,136 @@ public abstract class AbstractSurfaceShape extends AbstractSurfaceObject
     }
 
     protected List<List<LatLon>> getCachedGeometry(DrawContext dc, SurfaceTileDrawContext sdc) {
-        return this.geometryCache.computeIfAbsent(
-            createGeometryKey(dc, sdc),
-            K -> this.createGeometry(K.globe, sdc));
+        this.swapRegeneratedGeometry(dc);
+
+        GeometryKey key = this.createGeometryKey(dc, sdc);
+        List<List<LatLon>> geom = this.geometryCache.get(key);
+        if (geom != null)
+            return geom;
+
+        if (this.isEnableAsyncRegeneration()) {
+            List<List<LatLon>> nearest = this.getNearestCachedGeometry(key);
+            if (nearest != null && (this.isGeometryRetryPending(key) || this.requestGeometry(key)))
+                return nearest;
+        }
+
+        geom = this.createGeometry(key.globe, sdc);
+        if (geom != null)
+            this.geometryCache.put(key, geom);
+
+        return geom;
+    }
+
+    /**
+     * Returns the cached geometry for the same globe as a specified key whose edge interval density is closest to the
+     * key's.
+     *
+     * @param key the key of the geometry needed.
+     * @return the nearest cached geometry, or null if there is no geometry cached for the key's globe.
+     */
+    protected List<List<LatLon>> getNearestCachedGeometry(GeometryKey key) {
+        List<List<LatLon>> nearest = null;
+        double nearestRatio = Double.MAX_VALUE;
+
+        for (Map.Entry<GeometryKey, List<List<LatLon>>> entry : this.geometryCache.entrySet()) {
+            GeometryKey k = entry.getKey();
+            if (!k.globe.equals(key.globe) || k.edgeIntervalsPerDegree <= 0 || key.edgeIntervalsPerDegree <= 0)
+                continue;
+
+            double ratio = Math.abs(Math.log(k.edgeIntervalsPerDegree / key.edgeIntervalsPerDegree));
+            if (ratio < nearestRatio) {
+                nearestRatio = ratio;
+                nearest = entry.getValue();
+            }
+        }
+
+        return nearest;
+    }
+
+    /**
+     * Queues a task to generate the geometry for a specified key on a worker thread. Only one geometry is generated at
+     * a time per shape; requests made while a geometry is being generated are coalesced, and are made again when the
+     * shape is redrawn with the new geometry.
+     *
+     * @param key the key of the geometry to generate.
+     * @return true if the geometry is being generated, false if it must be generated on the rendering thread.
+     */
+    protected boolean requestGeometry(GeometryKey key) {
+        if (this.regenerating || this.regeneratedGeometry != null)
+            return true; // A geometry is already being generated.
+
+        if (WorldWind.tasks().isFull())
+            return false;
+
+        long modifiedTime = this.lastModifiedTime;
+        this.regenerating = true;
+        WorldWind.tasks().addTask(() -> {
+            List<List<LatLon>> geom = null;
+            try {
+                geom = this.createGeometry(key.globe, key.edgeIntervalsPerDegree);
+            }
+            catch (Throwable e) {
+                String message = Logging.getMessage("generic.ExceptionWhileTessellating", this);
+                Logging.logger().log(Level.SEVERE, message, e);
+            }
+            finally {
+                this.regeneratedGeometry = new RegeneratedGeometry(key, geom, modifiedTime);
+                this.regenerating = false;
+                this.emit(Keys.REPAINT, null, this);
+            }
+        });
+
+        return true;
+    }
+
+    /**
+     * Indicates whether the geometry for a specified key failed to generate on a worker thread less than {@link
+     * #GEOMETRY_RETRY_DELAY} milliseconds ago. Until the delay passes or the shape changes, the shape draws its nearest
+     * cached geometry instead of requesting the geometry again.
+     *
+     * @param key the key of the geometry needed.
+     * @return true if the geometry must not be requested yet, otherwise false.
+     */
+    protected boolean isGeometryRetryPending(GeometryKey key) {
+        RegeneratedGeometry failed = this.failedGeometry;
+        if (failed == null)
+            return false;
+
+        if (System.currentTimeMillis() >= this.geometryRetryTime) {
+            this.failedGeometry = null;
+            return false;
+        }
+
+        return failed.key.equals(key);
+    }
+
+    /**
+     * Adds geometry generated on a worker thread to this shape's geometry cache, if any is ready and the frame's
+     * regeneration budget allows it. The shape's modified time is updated so that surface tiles drawn with the
+     * geometry it replaces are drawn again. Geometry is discarded if the shape has changed since it was requested. If
+     * the geometry failed to generate it is not requested again for {@link #GEOMETRY_RETRY_DELAY} milliseconds.
+     *
+     * @param dc the current draw context.
+     */
+    protected void swapRegeneratedGeometry(DrawContext dc) {
+        RegeneratedGeometry regenerated = this.regeneratedGeometry;
+        if (regenerated == null)
+            return;
+
+        if (regenerated.modifiedTime == this.lastModifiedTime) {
+            if (regenerated.geometry == null) {
+                this.failedGeometry = regenerated;
+                this.geometryRetryTime = System.currentTimeMillis() + AbstractSurfaceShape.GEOMETRY_RETRY_DELAY;
+            } else {
+                if (!AbstractSurfaceShape.regenerationBudget.tryAcquire(dc.getFrameTimeStamp()))
+                    return; // Add the geometry next frame.
+
+                this.geometryCache.put(regenerated.key, regenerated.geometry);
+                this.updateModifiedTime();
+            }
+        }
+
+        this.regeneratedGeometry = null;
     }
 
     //**************************************************************//
@@ -1492,6 +1670,18 @@ public abstract class AbstractSurfaceShape extends AbstractSurfaceObject
         }
     }
 
+    protected static class RegeneratedGeometry {
+        protected final GeometryKey key;
+        protected final List<List<LatLon>> geometry;
+        protected final long modifiedTime;
+
+        public RegeneratedGeometry(GeometryKey key, List<List<LatLon>> geometry, long modifiedTime) {
+            this.key = key;
+            this.geometry = geometry;
+            this.modifiedTime = modifiedTime;
+        }
+    }
+
     protected static class GeometryKey {
         protected final Globe globe;
         protected final double edgeIntervalsPerDegree;
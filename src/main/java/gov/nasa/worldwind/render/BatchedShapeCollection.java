@@ -0,0 +1,1114 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.render;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.*;
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.cache.GpuResourceCache;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.Globe;
+import gov.nasa.worldwind.layers.Layer;
+import gov.nasa.worldwind.pick.*;
+import gov.nasa.worldwind.util.*;
+
+import java.awt.*;
+import java.nio.*;
+import java.util.List;
+import java.util.*;
+
+/**
+ * Draws many paths and polygons as one renderable. Shapes are stored as a structure of arrays: each shape is a slot
+ * identified by an integer, and each of its properties is an element of a parallel array. The tessellated vertices of
+ * all shapes are packed into a single shared vertex buffer, relative to a common reference point, which is copied to
+ * one vertex buffer object. Each shape owns a range of the buffer holding its outline vertices followed by its interior
+ * triangle vertices.
+ * <p>
+ * Changing a shape's positions marks only that shape dirty. When drawn, dirty shapes are re-tessellated and written
+ * back into their own range when the new vertices fit, or appended to the buffer when they do not; only the modified
+ * part of the buffer is copied to the GPU. The buffer is compacted when more than half of it is unused. Changing the
+ * globe or the vertical exaggeration re-tessellates every shape, as do terrain elevation changes for shapes that are not
+ * drawn at absolute altitudes.
+ * <p>
+ * Shapes whose bounding spheres intersect the view frustum are grouped by their attributes, and each group's interiors
+ * and outlines are drawn with one <code>glMultiDrawArrays</code> call each. When picking, each visible shape is drawn
+ * in its own color from a single pick color range. The collection is drawn as one ordered renderable at the distance
+ * of its nearest visible shape, so translucent interiors of shapes in the collection are not sorted relative to one
+ * another.
+ * <p>
+ * Shapes are not extruded and are not lit. Instances are not safe for concurrent use.
+ */
+public class BatchedShapeCollection implements Renderable {
+    /** The default outline pick width. */
+    protected static final int DEFAULT_OUTLINE_PICK_WIDTH = 10;
+    /** The default number of sub-segments between each pair of shape positions. */
+    protected static final int DEFAULT_NUM_SUBSEGMENTS = 10;
+    /** The default interval in milliseconds after which terrain-relative shapes are re-tessellated. */
+    protected static final long DEFAULT_EXPIRY_TIME = 3000;
+    protected static final int INITIAL_SHAPE_CAPACITY = 64;
+    protected static final int INITIAL_VERTEX_CAPACITY = 1024;
+    protected static final int VERTEX_STRIDE = 3;
+
+    protected boolean visible = true;
+    protected int altitudeMode = WorldWind.ABSOLUTE;
+    protected String pathType = Keys.GREAT_CIRCLE;
+    protected int numSubsegments = DEFAULT_NUM_SUBSEGMENTS;
+    protected int outlinePickWidth = DEFAULT_OUTLINE_PICK_WIDTH;
+    protected Object delegateOwner;
+
+    // Per-shape properties, indexed by shape id. Slots of removed shapes are reused by subsequently added shapes.
+    protected int slotCount;
+    protected int shapeCount;
+    protected final IntArrayStack freeSlots = new IntArrayStack();
+    protected boolean[] live = new boolean[INITIAL_SHAPE_CAPACITY];
+    protected boolean[] closed = new boolean[INITIAL_SHAPE_CAPACITY];
+    protected boolean[] shapeVisible = new boolean[INITIAL_SHAPE_CAPACITY];
+    protected boolean[] dirty = new boolean[INITIAL_SHAPE_CAPACITY];
+    protected Position[][] positions = new Position[INITIAL_SHAPE_CAPACITY][];
+    protected Object[] userObjects = new Object[INITIAL_SHAPE_CAPACITY];
+    protected int[] attributeIndices = new int[INITIAL_SHAPE_CAPACITY];
+    protected Sphere[] extents = new Sphere[INITIAL_SHAPE_CAPACITY];
+    // Each shape's range of the shared vertex buffer, and the parts of that range holding its outline and interior.
+    protected int[] rangeFirst = new int[INITIAL_SHAPE_CAPACITY];
+    protected int[] rangeCapacity = new int[INITIAL_SHAPE_CAPACITY];
+    protected int[] outlineCount = new int[INITIAL_SHAPE_CAPACITY];
+    protected int[] interiorCount = new int[INITIAL_SHAPE_CAPACITY];
+
+    // Distinct attributes, shared by the shapes that refer to them by index.
+    protected final List<ShapeAttributes> attributes = new ArrayList<>();
+    protected final Map<ShapeAttributes, Integer> attributeIndexMap = new IdentityHashMap<>();
+
+    // The shared vertex buffer, and the range of it modified since it was last copied to the GPU.
+    protected FloatBuffer vertices = Buffers.newDirectFloatBuffer(VERTEX_STRIDE * INITIAL_VERTEX_CAPACITY);
+    protected int vertexCount;
+    protected int unusedVertexCount;
+    protected int uploadFirst = Integer.MAX_VALUE;
+    protected int uploadLast = -1;
+    protected int vboCapacity;
+    protected final Object vboKey = new Object();
+    protected Vec4 referencePoint;
+    protected int dirtyCount;
+
+    // Values identifying the state the shapes were last tessellated for.
+    protected Object globeStateKey;
+    protected double verticalExaggeration;
+    protected long expiryTime = DEFAULT_EXPIRY_TIME;
+    protected long tessellationTime;
+
+    // Reused data structures supporting tessellation.
+    protected final PolygonTessellator2 tess = new PolygonTessellator2();
+    protected double[] points = new double[VERTEX_STRIDE * INITIAL_VERTEX_CAPACITY];
+
+    // Per-frame data structures supporting drawing and picking. Visible shapes are sorted by attribute index.
+    protected int[] visibleShapes = new int[INITIAL_SHAPE_CAPACITY];
+    protected int visibleCount;
+    protected int[] groupStarts = new int[1];
+    protected int[] drawFirsts = new int[INITIAL_SHAPE_CAPACITY];
+    protected int[] drawCounts = new int[INITIAL_SHAPE_CAPACITY];
+    protected double eyeDistance;
+    protected final float[] colorArray = new float[4];
+    protected final double[] matrixArray = new double[16];
+    protected final PickSupport pickSupport = new PickSupport();
+    protected ByteBuffer pickColors;
+    protected Layer pickLayer;
+    protected final OrderedShapes orderedShapes = new OrderedShapes();
+
+    public BatchedShapeCollection() {
+    }
+
+    protected static boolean haveMultiDrawArrays(DrawContext dc) {
+        return dc.getGL().isFunctionAvailable("glMultiDrawArrays");
+    }
+
+    /**
+     * Indicates whether the collection is drawn.
+     *
+     * @return true if the collection is drawn, otherwise false.
+     */
+    public boolean isVisible() {
+        return this.visible;
+    }
+
+    /**
+     * Specifies whether the collection is drawn.
+     *
+     * @param visible true if the collection is drawn, otherwise false.
+     */
+    public void setVisible(boolean visible) {
+        this.visible = visible;
+    }
+
+    /**
+     * Returns the altitude mode of all shapes in the collection.
+     *
+     * @return the altitude mode.
+     */
+    public int getAltitudeMode() {
+        return this.altitudeMode;
+    }
+
+    /**
+     * Specifies the altitude mode of all shapes in the collection. Recognized values are {@link WorldWind#ABSOLUTE},
+     * {@link WorldWind#CLAMP_TO_GROUND} and {@link WorldWind#RELATIVE_TO_GROUND}. The default is absolute.
+     *
+     * @param altitudeMode the altitude mode.
+     */
+    public void setAltitudeMode(int altitudeMode) {
+        if (this.altitudeMode == altitudeMode)
+            return;
+
+        this.altitudeMode = altitudeMode;
+        this.invalidateAll();
+    }
+
+    /**
+     * Returns the path type used to interpolate between shape positions.
+     *
+     * @return the path type.
+     */
+    public String getPathType() {
+        return this.pathType;
+    }
+
+    /**
+     * Specifies the path type used to interpolate between shape positions. Recognized values are {@link
+     * Keys#GREAT_CIRCLE}, {@link Keys#RHUMB_LINE} and {@link Keys#LINEAR}. The default is great circle.
+     *
+     * @param pathType the path type.
+     * @throws IllegalArgumentException if the path type is null.
+     */
+    public void setPathType(String pathType) {
+        if (pathType == null) {
+            String message = Logging.getMessage("nullValue.PathTypeIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (this.pathType.equals(pathType))
+            return;
+
+        this.pathType = pathType;
+        this.invalidateAll();
+    }
+
+    /**
+     * Returns the number of sub-segments generated between each pair of shape positions.
+     *
+     * @return the number of sub-segments.
+     */
+    public int getNumSubsegments() {
+        return this.numSubsegments;
+    }
+
+    /**
+     * Specifies the number of sub-segments generated between each pair of shape positions. The default is 10.
+     *
+     * @param numSubsegments the number of sub-segments.
+     * @throws IllegalArgumentException if the number is less than 1.
+     */
+    public void setNumSubsegments(int numSubsegments) {
+        if (numSubsegments < 1) {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "numSubsegments < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (this.numSubsegments == numSubsegments)
+            return;
+
+        this.numSubsegments = numSubsegments;
+        this.invalidateAll();
+    }
+
+    /**
+     * Indicates the outline line width to use during picking. A larger width than normal typically makes the outline
+     * easier to pick.
+     *
+     * @return the outline line width used during picking.
+     */
+    public int getOutlinePickWidth() {
+        return this.outlinePickWidth;
+    }
+
+    /**
+     * Specifies the outline line width to use during picking. The default is 10.
+     *
+     * @param outlinePickWidth the outline pick width.
+     * @throws IllegalArgumentException if the width is less than 0.
+     */
+    public void setOutlinePickWidth(int outlinePickWidth) {
+        if (outlinePickWidth < 0) {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "width < 0");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.outlinePickWidth = outlinePickWidth;
+    }
+
+    /**
+     * Returns the interval after which shapes drawn relative to the terrain are re-tessellated.
+     *
+     * @return the interval, in milliseconds.
+     */
+    public long getExpiryTime() {
+        return this.expiryTime;
+    }
+
+    /**
+     * Specifies the interval after which shapes drawn relative to the terrain are re-tessellated, so that they follow
+     * terrain elevations as they are loaded. The default is 3 seconds.
+     *
+     * @param expiryTime the interval, in milliseconds.
+     */
+    public void setExpiryTime(long expiryTime) {
+        this.expiryTime = expiryTime;
+    }
+
+    /**
+     * Returns the object reported as picked when a shape without a user object is picked.
+     *
+     * @return the delegate owner, or null to report this collection.
+     */
+    public Object getDelegateOwner() {
+        return this.delegateOwner;
+    }
+
+    /**
+     * Specifies the object reported as picked when a shape without a user object is picked.
+     *
+     * @param owner the delegate owner. May be null to report this collection.
+     */
+    public void setDelegateOwner(Object owner) {
+        this.delegateOwner = owner;
+    }
+
+    /**
+     * Returns the number of shapes in the collection.
+     *
+     * @return the number of shapes.
+     */
+    public int getShapeCount() {
+        return this.shapeCount;
+    }
+
+    /**
+     * Adds an open path.
+     *
+     * @param positions  the path's positions.
+     * @param attributes the path's attributes. Only the outline attributes are used.
+     * @return the new shape's id.
+     * @throws IllegalArgumentException if the positions or the attributes are null.
+     */
+    public int addPath(Iterable<? extends Position> positions, ShapeAttributes attributes) {
+        return this.addShape(positions, attributes, false);
+    }
+
+    /**
+     * Adds a polygon. The polygon's boundary is closed automatically; the last position need not repeat the first.
+     *
+     * @param positions  the polygon's boundary positions.
+     * @param attributes the polygon's attributes.
+     * @return the new shape's id.
+     * @throws IllegalArgumentException if the positions or the attributes are null.
+     */
+    public int addPolygon(Iterable<? extends Position> positions, ShapeAttributes attributes) {
+        return this.addShape(positions, attributes, true);
+    }
+
+    /**
+     * Replaces a shape's positions. Only this shape is re-tessellated when the collection is next drawn.
+     *
+     * @param id        the shape's id.
+     * @param positions the new positions.
+     * @throws IllegalArgumentException if the id does not identify a shape in the collection, or if the positions are
+     *                                  null.
+     */
+    public void setPositions(int id, Iterable<? extends Position> positions) {
+        this.checkId(id);
+        this.positions[id] = BatchedShapeCollection.toArray(positions);
+        this.markDirty(id);
+    }
+
+    /**
+     * Returns a shape's positions.
+     *
+     * @param id the shape's id.
+     * @return the shape's positions.
+     * @throws IllegalArgumentException if the id does not identify a shape in the collection.
+     */
+    public Iterable<Position> getPositions(int id) {
+        this.checkId(id);
+        return Collections.unmodifiableList(Arrays.asList(this.positions[id]));
+    }
+
+    /**
+     * Replaces a shape's attributes. Changing attributes does not re-tessellate the shape. Changes made to an
+     * attributes instance apply to every shape that uses it.
+     *
+     * @param id         the shape's id.
+     * @param attributes the new attributes.
+     * @throws IllegalArgumentException if the id does not identify a shape in the collection, or if the attributes are
+     *                                  null.
+     */
+    public void setAttributes(int id, ShapeAttributes attributes) {
+        this.checkId(id);
+        this.attributeIndices[id] = this.indexOf(attributes);
+    }
+
+    /**
+     * Returns a shape's attributes.
+     *
+     * @param id the shape's id.
+     * @return the shape's attributes.
+     * @throws IllegalArgumentException if the id does not identify a shape in the collection.
+     */
+    public ShapeAttributes getAttributes(int id) {
+        this.checkId(id);
+        return this.attributes.get(this.attributeIndices[id]);
+    }
+
+    /**
+     * Specifies whether a shape is drawn.
+     *
+     * @param id      the shape's id.
+     * @param visible true if the shape is drawn, otherwise false.
+     * @throws IllegalArgumentException if the id does not identify a shape in the collection.
+     */
+    public void setVisible(int id, boolean visible) {
+        this.checkId(id);
+        this.shapeVisible[id] = visible;
+    }
+
+    /**
+     * Indicates whether a shape is drawn.
+     *
+     * @param id the shape's id.
+     * @return true if the shape is drawn, otherwise false.
+     * @throws IllegalArgumentException if the id does not identify a shape in the collection.
+     */
+    public boolean isVisible(int id) {
+        this.checkId(id);
+        return this.shapeVisible[id];
+    }
+
+    /**
+     * Specifies the object reported as picked when a shape is picked.
+     *
+     * @param id         the shape's id.
+     * @param userObject the picked object. May be null to report the delegate owner or this collection.
+     * @throws IllegalArgumentException if the id does not identify a shape in the collection.
+     */
+    public void setUserObject(int id, Object userObject) {
+        this.checkId(id);
+        this.userObjects[id] = userObject;
+    }
+
+    /**
+     * Returns the object reported as picked when a shape is picked.
+     *
+     * @param id the shape's id.
+     * @return the picked object, or null if none has been specified.
+     * @throws IllegalArgumentException if the id does not identify a shape in the collection.
+     */
+    public Object getUserObject(int id) {
+        this.checkId(id);
+        return this.userObjects[id];
+    }
+
+    /**
+     * Removes a shape. The shape's id may be reused by shapes added later.
+     *
+     * @param id the shape's id.
+     * @throws IllegalArgumentException if the id does not identify a shape in the collection.
+     */
+    public void remove(int id) {
+        this.checkId(id);
+
+        if (this.dirty[id])
+            this.dirtyCount--;
+
+        this.live[id] = false;
+        this.dirty[id] = false;
+        this.positions[id] = null;
+        this.userObjects[id] = null;
+        this.extents[id] = null;
+        this.unusedVertexCount += this.outlineCount[id] + this.interiorCount[id];
+        this.rangeCapacity[id] = 0;
+        this.outlineCount[id] = 0;
+        this.interiorCount[id] = 0;
+        this.freeSlots.push(id);
+        this.shapeCount--;
+    }
+
+    /** Removes all shapes. */
+    public void clear() {
+        Arrays.fill(this.live, false);
+        Arrays.fill(this.positions, null);
+        Arrays.fill(this.userObjects, null);
+        Arrays.fill(this.extents, null);
+        this.slotCount = 0;
+        this.shapeCount = 0;
+        this.dirtyCount = 0;
+        this.freeSlots.clear();
+        this.attributes.clear();
+        this.attributeIndexMap.clear();
+        this.vertexCount = 0;
+        this.unusedVertexCount = 0;
+        // The buffer is rebuilt from the start, so ranges modified before the clear no longer need uploading.
+        this.uploadFirst = Integer.MAX_VALUE;
+        this.uploadLast = -1;
+        this.referencePoint = null;
+        this.visibleCount = 0;
+    }
+
+    protected int addShape(Iterable<? extends Position> positions, ShapeAttributes attributes, boolean closed) {
+        Position[] array = BatchedShapeCollection.toArray(positions);
+        int attributeIndex = this.indexOf(attributes);
+
+        int id = this.freeSlots.isEmpty() ? this.slotCount++ : this.freeSlots.pop();
+        if (id == this.live.length)
+            this.growSlots(2 * id);
+
+        this.live[id] = true;
+        this.closed[id] = closed;
+        this.shapeVisible[id] = true;
+        this.dirty[id] = false;
+        this.positions[id] = array;
+        this.userObjects[id] = null;
+        this.attributeIndices[id] = attributeIndex;
+        this.extents[id] = null;
+        this.rangeCapacity[id] = 0;
+        this.outlineCount[id] = 0;
+        this.interiorCount[id] = 0;
+        this.markDirty(id);
+        this.shapeCount++;
+
+        return id;
+    }
+
+    protected static Position[] toArray(Iterable<? extends Position> positions) {
+        if (positions == null) {
+            String message = Logging.getMessage("nullValue.PositionsListIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        ArrayList<Position> list = new ArrayList<>();
+        for (Position position : positions) {
+            list.add(position);
+        }
+
+        return list.toArray(new Position[0]);
+    }
+
+    protected int indexOf(ShapeAttributes attributes) {
+        if (attributes == null) {
+            String message = Logging.getMessage("nullValue.AttributesIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        Integer index = this.attributeIndexMap.get(attributes);
+        if (index == null) {
+            index = this.attributes.size();
+            this.attributes.add(attributes);
+            this.attributeIndexMap.put(attributes, index);
+        }
+
+        return index;
+    }
+
+    protected void checkId(int id) {
+        if (id < 0 || id >= this.slotCount || !this.live[id]) {
+            String message = Logging.getMessage("generic.indexOutOfRange", id);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    protected void markDirty(int id) {
+        if (!this.dirty[id]) {
+            this.dirty[id] = true;
+            this.dirtyCount++;
+        }
+    }
+
+    protected void invalidateAll() {
+        // Tessellating every shape rewrites every range, so the buffer is rebuilt from the start.
+        for (int id = 0; id < this.slotCount; id++) {
+            if (this.live[id]) {
+                this.markDirty(id);
+                this.rangeCapacity[id] = 0;
+                this.outlineCount[id] = 0;
+                this.interiorCount[id] = 0;
+            }
+        }
+
+        this.vertexCount = 0;
+        this.unusedVertexCount = 0;
+        this.uploadFirst = Integer.MAX_VALUE;
+        this.uploadLast = -1;
+        this.referencePoint = null;
+    }
+
+    protected void growSlots(int capacity) {
+        this.live = Arrays.copyOf(this.live, capacity);
+        this.closed = Arrays.copyOf(this.closed, capacity);
+        this.shapeVisible = Arrays.copyOf(this.shapeVisible, capacity);
+        this.dirty = Arrays.copyOf(this.dirty, capacity);
+        this.positions = Arrays.copyOf(this.positions, capacity);
+        this.userObjects = Arrays.copyOf(this.userObjects, capacity);
+        this.attributeIndices = Arrays.copyOf(this.attributeIndices, capacity);
+        this.extents = Arrays.copyOf(this.extents, capacity);
+        this.rangeFirst = Arrays.copyOf(this.rangeFirst, capacity);
+        this.rangeCapacity = Arrays.copyOf(this.rangeCapacity, capacity);
+        this.outlineCount = Arrays.copyOf(this.outlineCount, capacity);
+        this.interiorCount = Arrays.copyOf(this.interiorCount, capacity);
+    }
+
+    @Override
+    public void render(DrawContext dc) {
+        if (dc == null) {
+            String message = Logging.getMessage("nullValue.DrawContextIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (!this.visible || this.shapeCount == 0)
+            return;
+
+        this.tessellate(dc);
+        this.assembleVisibleShapes(dc);
+
+        if (this.visibleCount > 0) {
+            this.pickLayer = dc.getCurrentLayer();
+            dc.addOrderedRenderable(this.orderedShapes);
+        }
+    }
+
+    protected void tessellate(DrawContext dc) {
+        Object key = dc.getGlobe().getGlobeStateKey(dc);
+        double ve = dc.getVerticalExaggeration();
+        if (!key.equals(this.globeStateKey) || ve != this.verticalExaggeration
+            || (this.altitudeMode != WorldWind.ABSOLUTE
+            && dc.getFrameTimeStamp() - this.tessellationTime > this.expiryTime)) {
+            this.invalidateAll();
+            this.globeStateKey = key;
+            this.verticalExaggeration = ve;
+            this.tessellationTime = dc.getFrameTimeStamp();
+        }
+
+        if (this.dirtyCount == 0)
+            return;
+
+        for (int id = 0; id < this.slotCount; id++) {
+            if (this.dirty[id]) {
+                this.tessellateShape(dc, id);
+                this.dirty[id] = false;
+            }
+        }
+
+        this.dirtyCount = 0;
+
+        if (this.unusedVertexCount > this.vertexCount / 2)
+            this.compact();
+    }
+
+    protected void tessellateShape(DrawContext dc, int id) {
+        Position[] array = this.positions[id];
+        if (array.length < 2) {
+            this.unusedVertexCount += this.outlineCount[id] + this.interiorCount[id];
+            this.extents[id] = null;
+            this.outlineCount[id] = 0;
+            this.interiorCount[id] = 0;
+            return;
+        }
+
+        int numPoints = this.computeOutlinePoints(dc, array, this.closed[id]);
+        if (this.referencePoint == null)
+            this.referencePoint = new Vec4(this.points[0], this.points[1], this.points[2]);
+
+        // Compute a bounding sphere centered on the average point. Interior triangles lie within the boundary's convex
+        // hull, and therefore within the sphere.
+        double[] p = this.points;
+        double cx = 0, cy = 0, cz = 0;
+        for (int i = 0; i < numPoints; i++) {
+            cx += p[3 * i];
+            cy += p[3 * i + 1];
+            cz += p[3 * i + 2];
+        }
+        cx /= numPoints;
+        cy /= numPoints;
+        cz /= numPoints;
+
+        double r2 = 0;
+        for (int i = 0; i < numPoints; i++) {
+            double dx = p[3 * i] - cx, dy = p[3 * i + 1] - cy, dz = p[3 * i + 2] - cz;
+            r2 = Math.max(r2, dx * dx + dy * dy + dz * dz);
+        }
+        this.extents[id] = new Sphere(new Vec4(cx, cy, cz), Math.max(Math.sqrt(r2), 1));
+
+        FloatBuffer interior = null;
+        IntBuffer indices = null;
+        if (this.closed[id] && numPoints > 3)
+            indices = this.tessellateInterior(dc, numPoints, new Vec4(cx, cy, cz));
+        if (indices != null)
+            interior = this.tess.getVertices(FloatBuffer.allocate(VERTEX_STRIDE * this.tess.getVertexCount())).flip();
+
+        int numInterior = indices != null ? indices.remaining() : 0;
+        int first = this.allocateRange(id, numPoints + numInterior);
+
+        Vec4 rp = this.referencePoint;
+        FloatBuffer buffer = this.vertices;
+        buffer.position(VERTEX_STRIDE * first);
+        for (int i = 0; i < numPoints; i++) {
+            buffer.put((float) (p[3 * i] - rp.x));
+            buffer.put((float) (p[3 * i + 1] - rp.y));
+            buffer.put((float) (p[3 * i + 2] - rp.z));
+        }
+        for (int i = 0; i < numInterior; i++) {
+            int index = VERTEX_STRIDE * indices.get(i);
+            buffer.put(interior.get(index));
+            buffer.put(interior.get(index + 1));
+            buffer.put(interior.get(index + 2));
+        }
+        buffer.rewind();
+
+        this.outlineCount[id] = numPoints;
+        this.interiorCount[id] = numInterior;
+        this.markModified(first, numPoints + numInterior);
+    }
+
+    protected int computeOutlinePoints(DrawContext dc, Position[] array, boolean closed) {
+        int numSegments = closed ? array.length : array.length - 1;
+        int numPoints = numSegments * this.numSubsegments + 1;
+        if (this.points.length < VERTEX_STRIDE * numPoints)
+            this.points = new double[VERTEX_STRIDE * numPoints];
+
+        int count = 0;
+        for (int i = 0; i < numSegments; i++) {
+            Position a = array[i];
+            Position b = array[(i + 1) % array.length];
+
+            for (int j = 0; j < this.numSubsegments; j++) {
+                double amount = (double) j / this.numSubsegments;
+                LatLon location = j == 0 ? a : LatLon.interpolate(this.pathType, amount, a, b);
+                double elevation = a.getElevation() + amount * (b.getElevation() - a.getElevation());
+                this.computePoint(dc, location, elevation, count++);
+            }
+        }
+
+        Position last = closed ? array[0] : array[array.length - 1];
+        this.computePoint(dc, last, last.getElevation(), count++);
+
+        return count;
+    }
+
+    protected void computePoint(DrawContext dc, LatLon location, double elevation, int index) {
+        Globe globe = dc.getGlobe();
+        double height;
+        if (this.altitudeMode == WorldWind.CLAMP_TO_GROUND)
+            height = globe.elevation(new Angle(location.lat), new Angle(location.lon));
+        else if (this.altitudeMode == WorldWind.RELATIVE_TO_GROUND)
+            height = globe.elevation(new Angle(location.lat), new Angle(location.lon)) + elevation;
+        else
+            height = elevation;
+
+        Vec4 point = globe.computePointFromPosition(location,
+            height * dc.getVerticalExaggeration());
+        this.points[3 * index] = point.x;
+        this.points[3 * index + 1] = point.y;
+        this.points[3 * index + 2] = point.z;
+    }
+
+    protected IntBuffer tessellateInterior(DrawContext dc, int numPoints, Vec4 center) {
+        Vec4 normal = dc.getGlobe().computeSurfaceNormalAtPoint(center);
+        Vec4 rp = this.referencePoint;
+        double[] p = this.points;
+
+        this.tess.reset();
+        this.tess.setPolygonNormal(normal.x, normal.y, normal.z);
+        this.tess.setVertexOffset(-rp.x, -rp.y, -rp.z);
+        this.tess.beginPolygon();
+        this.tess.beginContour();
+        for (int i = 0; i < numPoints - 1; i++) { // the last point repeats the first
+            this.tess.addVertex(p[3 * i], p[3 * i + 1], p[3 * i + 2]);
+        }
+        this.tess.endContour();
+        this.tess.endPolygon();
+
+        int count = this.tess.getInteriorIndexCount();
+        return count > 0 ? this.tess.getInteriorIndices(IntBuffer.allocate(count)).flip() : null;
+    }
+
+    protected int allocateRange(int id, int count) {
+        // Rewrite the shape in place when its vertices fit in its current range, otherwise move it to the end. The
+        // unused vertex count includes both abandoned ranges and the unused tails of ranges.
+        int used = this.outlineCount[id] + this.interiorCount[id];
+        if (count <= this.rangeCapacity[id]) {
+            this.unusedVertexCount += used - count;
+            return this.rangeFirst[id];
+        }
+
+        this.unusedVertexCount += used;
+        this.ensureVertexCapacity(this.vertexCount + count);
+        this.rangeFirst[id] = this.vertexCount;
+        this.rangeCapacity[id] = count;
+        this.vertexCount += count;
+
+        return this.rangeFirst[id];
+    }
+
+    protected void ensureVertexCapacity(int count) {
+        int capacity = this.vertices.capacity() / VERTEX_STRIDE;
+        if (count <= capacity)
+            return;
+
+        FloatBuffer buffer = Buffers.newDirectFloatBuffer(VERTEX_STRIDE * Math.max(count, 2 * capacity));
+        this.vertices.rewind().limit(VERTEX_STRIDE * this.vertexCount);
+        buffer.put(this.vertices).rewind();
+        this.vertices = buffer;
+    }
+
+    protected void compact() {
+        FloatBuffer buffer = Buffers.newDirectFloatBuffer(this.vertices.capacity());
+        int count = 0;
+
+        for (int id = 0; id < this.slotCount; id++) {
+            if (!this.live[id])
+                continue;
+
+            int used = this.outlineCount[id] + this.interiorCount[id];
+            this.vertices.limit(VERTEX_STRIDE * (this.rangeFirst[id] + used));
+            this.vertices.position(VERTEX_STRIDE * this.rangeFirst[id]);
+            buffer.put(this.vertices);
+
+            this.rangeFirst[id] = count;
+            this.rangeCapacity[id] = used;
+            count += used;
+        }
+
+        this.vertices = buffer.rewind();
+        this.vertexCount = count;
+        this.unusedVertexCount = 0;
+        // Every range moved, and ranges modified before compaction may lie past the new end of the buffer.
+        this.uploadFirst = 0;
+        this.uploadLast = count;
+    }
+
+    protected void markModified(int first, int count) {
+        this.uploadFirst = Math.min(this.uploadFirst, first);
+        this.uploadLast = Math.max(this.uploadLast, first + count);
+    }
+
+    protected void assembleVisibleShapes(DrawContext dc) {
+        Frustum frustum = dc.view().getFrustumInModelCoordinates();
+        Vec4 eyePoint = dc.view().getEyePoint();
+        int numGroups = this.attributes.size();
+
+        if (this.groupStarts.length < numGroups + 1)
+            this.groupStarts = new int[numGroups + 1];
+        Arrays.fill(this.groupStarts, 0, numGroups + 1, 0);
+
+        if (this.visibleShapes.length < this.slotCount) {
+            this.visibleShapes = new int[this.live.length];
+            this.drawFirsts = new int[this.live.length];
+            this.drawCounts = new int[this.live.length];
+        }
+
+        // Collect the visible shapes, counting the number in each attribute group.
+        int count = 0;
+        double minDistance = Double.MAX_VALUE;
+        for (int id = 0; id < this.slotCount; id++) {
+            Sphere extent = this.extents[id];
+            if (!this.live[id] || !this.shapeVisible[id] || extent == null || !extent.intersects(frustum))
+                continue;
+
+            this.drawFirsts[count++] = id;
+            this.groupStarts[this.attributeIndices[id] + 1]++;
+            minDistance = Math.min(minDistance, extent.getCenter().distanceTo3(eyePoint) - extent.getRadius());
+        }
+
+        // Sort the visible shapes by attribute group.
+        for (int i = 0; i < numGroups; i++) {
+            this.groupStarts[i + 1] += this.groupStarts[i];
+        }
+        int[] cursors = Arrays.copyOf(this.groupStarts, numGroups);
+        for (int i = 0; i < count; i++) {
+            int id = this.drawFirsts[i];
+            this.visibleShapes[cursors[this.attributeIndices[id]]++] = id;
+        }
+
+        this.visibleCount = count;
+        this.eyeDistance = Math.max(minDistance, 0);
+    }
+
+    protected void drawOrderedShapes(DrawContext dc) {
+        GL2 gl = dc.getGL2(); // GL initialization checks for GL2 compatibility.
+        OGLStackHandler ogsh = new OGLStackHandler();
+        boolean useVbo = dc.getGLRuntimeCapabilities().isUseVertexBufferObject();
+
+        ogsh.pushAttrib(gl, GL2.GL_CURRENT_BIT | GL2.GL_COLOR_BUFFER_BIT | GL2.GL_LINE_BIT | GL2.GL_POLYGON_BIT
+            | GL2.GL_ENABLE_BIT | GL2.GL_DEPTH_BUFFER_BIT);
+        ogsh.pushClientAttrib(gl, GL2.GL_CLIENT_VERTEX_ARRAY_BIT);
+        ogsh.pushModelview(gl);
+        try {
+            gl.glDisable(GL2.GL_LIGHTING);
+            gl.glDisable(GL.GL_TEXTURE_2D);
+            gl.glDisable(GL.GL_CULL_FACE);
+            gl.glEnable(GL.GL_DEPTH_TEST);
+            gl.glDepthFunc(GL.GL_LEQUAL);
+            gl.glEnableClientState(GL2.GL_VERTEX_ARRAY);
+
+            if (!dc.isPickingMode()) {
+                gl.glEnable(GL.GL_BLEND);
+                gl.glBlendFunc(GL.GL_SRC_ALPHA, GL.GL_ONE_MINUS_SRC_ALPHA);
+            }
+
+            Matrix modelview = dc.view().getModelviewMatrix().multiply(
+                Matrix.fromTranslation(this.referencePoint));
+            modelview.toArray(this.matrixArray, 0, false);
+            gl.glLoadMatrixd(this.matrixArray, 0);
+
+            this.bindVertices(dc, useVbo);
+
+            if (dc.isPickingMode())
+                this.drawInUniqueColors(dc, useVbo);
+            else
+                this.drawGroups(dc);
+        }
+        finally {
+            if (useVbo)
+                gl.glBindBuffer(GL.GL_ARRAY_BUFFER, 0);
+            ogsh.pop(gl);
+        }
+    }
+
+    protected void bindVertices(DrawContext dc, boolean useVbo) {
+        GL2 gl = dc.getGL2(); // GL initialization checks for GL2 compatibility.
+
+        if (!useVbo) {
+            gl.glVertexPointer(VERTEX_STRIDE, GL.GL_FLOAT, 0, this.vertices.rewind());
+            return;
+        }
+
+        int[] vboId = (int[]) dc.gpuCache().get(this.vboKey);
+        int capacity = this.vertices.capacity();
+        if (vboId == null || this.vboCapacity != capacity) {
+            // Allocate a buffer object matching the shared vertex buffer's capacity, and copy the whole buffer.
+            if (vboId != null)
+                dc.gpuCache().remove(this.vboKey);
+
+            long vboSize = 4L * capacity; // 4 bytes for each float vertex component
+            vboId = new int[1];
+            gl.glGenBuffers(1, vboId, 0);
+            gl.glBindBuffer(GL.GL_ARRAY_BUFFER, vboId[0]);
+            gl.glBufferData(GL.GL_ARRAY_BUFFER, vboSize, this.vertices.rewind(), GL.GL_DYNAMIC_DRAW);
+            dc.gpuCache().put(this.vboKey, vboId, GpuResourceCache.VBO_BUFFERS, vboSize);
+            this.vboCapacity = capacity;
+        } else {
+            gl.glBindBuffer(GL.GL_ARRAY_BUFFER, vboId[0]);
+
+            // Copy only the range of the buffer modified since the last copy.
+            if (this.uploadLast > this.uploadFirst) {
+                FloatBuffer range = this.vertices.duplicate();
+                range.limit(VERTEX_STRIDE * this.uploadLast).position(VERTEX_STRIDE * this.uploadFirst);
+                gl.glBufferSubData(GL.GL_ARRAY_BUFFER, 4L * VERTEX_STRIDE * this.uploadFirst,
+                    4L * range.remaining(), range);
+            }
+        }
+
+        this.uploadFirst = Integer.MAX_VALUE;
+        this.uploadLast = -1;
+        gl.glVertexPointer(VERTEX_STRIDE, GL.GL_FLOAT, 0, 0);
+    }
+
+    protected void drawGroups(DrawContext dc) {
+        GL2 gl = dc.getGL2(); // GL initialization checks for GL2 compatibility.
+        boolean picking = dc.isPickingMode();
+        float[] color = this.colorArray;
+
+        for (int group = 0; group < this.attributes.size(); group++) {
+            int start = this.groupStarts[group];
+            int end = this.groupStarts[group + 1];
+            if (start == end)
+                continue;
+
+            ShapeAttributes attrs = this.attributes.get(group);
+
+            if (attrs.isDrawInterior()) {
+                if (!picking) {
+                    attrs.getInteriorMaterial().getDiffuse().getRGBComponents(color);
+                    gl.glColor4f(color[0], color[1], color[2], (float) attrs.getInteriorOpacity());
+                }
+
+                // Offset interiors away from the eye so that outlines drawn at the same depth are not obscured.
+                gl.glEnable(GL.GL_POLYGON_OFFSET_FILL);
+                gl.glPolygonOffset(1, 1);
+                this.multiDraw(dc, GL.GL_TRIANGLES, start, end, true);
+                gl.glDisable(GL.GL_POLYGON_OFFSET_FILL);
+            }
+
+            if (attrs.isDrawOutline()) {
+                if (!picking) {
+                    attrs.getOutlineMaterial().getDiffuse().getRGBComponents(color);
+                    gl.glColor4f(color[0], color[1], color[2], (float) attrs.getOutlineOpacity());
+                }
+
+                if (picking && attrs.getOutlineWidth() < this.getOutlinePickWidth())
+                    gl.glLineWidth(this.getOutlinePickWidth());
+                else
+                    gl.glLineWidth((float) attrs.getOutlineWidth());
+
+                this.multiDraw(dc, GL.GL_LINE_STRIP, start, end, false);
+            }
+        }
+    }
+
+    protected void multiDraw(DrawContext dc, int mode, int start, int end, boolean interior) {
+        GL2 gl = dc.getGL2(); // GL initialization checks for GL2 compatibility.
+
+        int count = 0;
+        for (int i = start; i < end; i++) {
+            int id = this.visibleShapes[i];
+            int n = interior ? this.interiorCount[id] : this.outlineCount[id];
+            if (n == 0)
+                continue;
+
+            this.drawFirsts[count] = interior ? this.rangeFirst[id] + this.outlineCount[id] : this.rangeFirst[id];
+            this.drawCounts[count] = n;
+            count++;
+        }
+
+        if (count == 0)
+            return;
+
+        if (BatchedShapeCollection.haveMultiDrawArrays(dc)) {
+            gl.glMultiDrawArrays(mode, this.drawFirsts, 0, this.drawCounts, 0, count);
+        } else {
+            for (int i = 0; i < count; i++) {
+                gl.glDrawArrays(mode, this.drawFirsts[i], this.drawCounts[i]);
+            }
+        }
+    }
+
+    protected void drawInUniqueColors(DrawContext dc, boolean useVbo) {
+        GL2 gl = dc.getGL2(); // GL initialization checks for GL2 compatibility.
+
+        Color pickColor = dc.getUniquePickColorRange(this.visibleCount);
+        if (pickColor == null)
+            return;
+
+        int pickColorCode = pickColor.getRGB() & 0xFFFFFF;
+        this.pickSupport.addPickableObjectRange(pickColorCode, this.visibleCount,
+            new ShapePickedObjectFactory(pickColorCode, Arrays.copyOf(this.visibleShapes, this.visibleCount)));
+
+        // Assign each visible shape's vertices its shape's color. Vertices of other shapes are never drawn.
+        int pickColorsSize = 3 * this.vertexCount; // 1 RGB color for each vertex
+        if (this.pickColors == null || this.pickColors.capacity() < pickColorsSize)
+            this.pickColors = Buffers.newDirectByteBuffer(this.vertices.capacity()); // 3 bytes for 3 floats
+        this.pickColors.clear();
+
+        for (int k = 0; k < this.visibleCount; k++) {
+            int id = this.visibleShapes[k];
+            int code = pickColorCode + k;
+            byte r = (byte) ((code >> 16) & 0xFF), g = (byte) ((code >> 8) & 0xFF), b = (byte) (code & 0xFF);
+
+            int first = this.rangeFirst[id];
+            int last = first + this.outlineCount[id] + this.interiorCount[id];
+            for (int i = first; i < last; i++) {
+                this.pickColors.put(3 * i, r).put(3 * i + 1, g).put(3 * i + 2, b);
+            }
+        }
+
+        try {
+            PickSupport.beginPicking(dc);
+            gl.glEnableClientState(GL2.GL_COLOR_ARRAY);
+
+            if (useVbo)
+                gl.glBindBuffer(GL.GL_ARRAY_BUFFER, 0); // the color array is read from client memory
+            gl.glColorPointer(3, GL.GL_UNSIGNED_BYTE, 0, this.pickColors.rewind());
+
+            this.drawGroups(dc);
+        }
+        finally {
+            gl.glDisableClientState(GL2.GL_COLOR_ARRAY);
+            PickSupport.endPicking(dc);
+        }
+    }
+
+    protected static class IntArrayStack {
+        protected int[] array = new int[16];
+        protected int size;
+
+        public boolean isEmpty() {
+            return this.size == 0;
+        }
+
+        public void push(int value) {
+            if (this.size == this.array.length)
+                this.array = Arrays.copyOf(this.array, 2 * this.size);
+
+            this.array[this.size++] = value;
+        }
+
+        public int pop() {
+            return this.array[--this.size];
+        }
+
+        public void clear() {
+            this.size = 0;
+        }
+    }
+
+    protected class ShapePickedObjectFactory implements PickedObjectFactory {
+        protected final int firstColorCode;
+        protected final int[] ids;
+
+        public ShapePickedObjectFactory(int firstColorCode, int[] ids) {
+            this.firstColorCode = firstColorCode;
+            this.ids = ids;
+        }
+
+        public PickedObject createPickedObject(int colorCode) {
+            BatchedShapeCollection collection = BatchedShapeCollection.this;
+            int id = this.ids[colorCode - this.firstColorCode];
+
+            Object userObject = collection.userObjects[id];
+            if (userObject == null)
+                userObject = collection.delegateOwner != null ? collection.delegateOwner : collection;
+
+            PickedObject po = new PickedObject(colorCode, userObject);
+            po.set(Keys.PICKED_OBJECT_ID, id);
+            return po;
+        }
+    }
+
+    protected class OrderedShapes implements OrderedRenderable {
+        @Override
+        public double getDistanceFromEye() {
+            return BatchedShapeCollection.this.eyeDistance;
+        }
+
+        @Override
+        public void pick(DrawContext dc, Point pickPoint) {
+            BatchedShapeCollection collection = BatchedShapeCollection.this;
+            collection.pickSupport.clearPickList();
+            try {
+                collection.drawOrderedShapes(dc);
+            }
+            finally {
+                collection.pickSupport.resolvePick(dc, pickPoint, collection.pickLayer);
+            }
+        }
+
+        @Override
+        public void render(DrawContext dc) {
+            BatchedShapeCollection.this.drawOrderedShapes(dc);
+        }
+    }
+}
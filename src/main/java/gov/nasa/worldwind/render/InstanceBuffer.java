@@ -0,0 +1,583 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.render;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.util.OGLStackHandler;
+
+import java.nio.*;
+import java.util.Arrays;
+
+/**
+ * Holds the placements of many copies of a unit shape, and draws them with a single draw call. Each instance has a
+ * model coordinate point and an orientation, which are computed when the instances' positions change, and a scale,
+ * which is typically computed each frame from the instance's distance to the eye. Points are stored relative to a
+ * reference point, the point of the first instance, so instances far from the origin are drawn without loss of
+ * precision.
+ * <p>
+ * When an instance is added its orientation is applied to the unit shape's vertices and normals, and the rotated
+ * vertices and normals are kept until the instances are cleared. {@link #draw(DrawContext, int[], int, int)} scales
+ * the drawn instances' rotated vertices, translates them to the instances' points relative to the eye, writes them to
+ * vertex arrays in the order drawn and draws them with one <code>glDrawElements</code>, so no OpenGL calls are made
+ * per instance. When picking, consecutive instances are drawn in consecutive pick colors, so a single pick color range
+ * identifies them.
+ * <p>
+ * Instances are not safe for concurrent use.
+ */
+public class InstanceBuffer {
+    protected static final int INITIAL_CAPACITY = 256;
+
+    protected Mesh mesh;
+    protected Vec4 referencePoint;
+    // Each instance's point relative to the reference point.
+    protected double[] points = new double[3 * INITIAL_CAPACITY];
+    protected double[] scales = new double[INITIAL_CAPACITY];
+    // The offset of each instance's rotated vertices and normals in rotatedMesh, or -1 if the instance is not rotated.
+    protected int[] rotatedOffsets = new int[INITIAL_CAPACITY];
+    // The rotated vertices and normals, as vertex triples followed by normal triples for each rotated instance.
+    protected float[] rotatedMesh = new float[0];
+    protected int rotatedSize;
+    protected int size;
+    // Vertex arrays of the drawn instances, reused from frame to frame and grown as needed. The index buffer holds
+    // the mesh's indices repeated for each instance in the order drawn, so it changes only when it grows.
+    protected FloatBuffer vertexBuffer;
+    protected FloatBuffer normalBuffer;
+    protected ByteBuffer pickColorBuffer;
+    protected IntBuffer indexBuffer;
+    protected int indexedInstances;
+    protected final OGLStackHandler stackHandler = new OGLStackHandler();
+    // Reused by draw to hold the modelview matrix translated to the eye point, in column-major order.
+    protected final double[] matrix = new double[16];
+
+    public InstanceBuffer() {
+    }
+
+    /**
+     * Creates an instance buffer that draws a specified unit shape.
+     *
+     * @param mesh the unit shape drawn for each instance.
+     */
+    public InstanceBuffer(Mesh mesh) {
+        this.mesh = mesh;
+    }
+
+    /**
+     * Returns the unit shape drawn for each instance.
+     *
+     * @return the unit shape, or null if none has been specified.
+     */
+    public Mesh getMesh() {
+        return this.mesh;
+    }
+
+    /**
+     * Specifies the unit shape drawn for each instance. Removes all instances if the shape differs from the current
+     * one.
+     *
+     * @param mesh the unit shape.
+     */
+    public void setMesh(Mesh mesh) {
+        if (mesh != this.mesh) {
+            this.clear();
+            this.mesh = mesh;
+            this.indexedInstances = 0;
+        }
+    }
+
+    /**
+     * Returns the number of instances.
+     *
+     * @return the number of instances.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /** Removes all instances. */
+    public void clear() {
+        this.size = 0;
+        this.rotatedSize = 0;
+        this.referencePoint = null;
+    }
+
+    /**
+     * Adds an instance.
+     *
+     * @param point       the instance's point, in model coordinates.
+     * @param orientation the instance's orientation. Only the upper 3x3 rotation is used. If null, the instance is not
+     *                    rotated.
+     * @return the instance's index.
+     */
+    public int add(Vec4 point, Matrix orientation) {
+        if (this.referencePoint == null)
+            this.referencePoint = point;
+
+        if (this.size == this.scales.length) {
+            this.points = Arrays.copyOf(this.points, 6 * this.size);
+            this.scales = Arrays.copyOf(this.scales, 2 * this.size);
+            this.rotatedOffsets = Arrays.copyOf(this.rotatedOffsets, 2 * this.size);
+        }
+
+        int offset = 3 * this.size;
+        this.points[offset] = point.x - this.referencePoint.x;
+        this.points[offset + 1] = point.y - this.referencePoint.y;
+        this.points[offset + 2] = point.z - this.referencePoint.z;
+        this.scales[this.size] = 1;
+        this.rotatedOffsets[this.size] = orientation != null && this.mesh != null ? this.rotateMesh(orientation) : -1;
+
+        return this.size++;
+    }
+
+    /**
+     * Applies a rotation to this buffer's mesh, and appends the rotated vertices and normals to the rotated mesh
+     * array.
+     *
+     * @param m the rotation.
+     * @return the offset of the rotated vertices in the rotated mesh array.
+     */
+    protected int rotateMesh(Matrix m) {
+        float[] vertices = this.mesh.vertices;
+        float[] normals = this.mesh.normals;
+        int length = vertices.length + normals.length;
+        if (this.rotatedSize + length > this.rotatedMesh.length)
+            this.rotatedMesh = Arrays.copyOf(this.rotatedMesh, Math.max(2 * this.rotatedMesh.length, 16 * length));
+
+        int offset = this.rotatedSize;
+        float[] r = this.rotatedMesh;
+        int j = offset;
+        for (float[] src : new float[][] {vertices, normals}) {
+            for (int i = 0; i < src.length; i += 3) {
+                double x = src[i], y = src[i + 1], z = src[i + 2];
+                r[j++] = (float) (m.m11 * x + m.m12 * y + m.m13 * z);
+                r[j++] = (float) (m.m21 * x + m.m22 * y + m.m23 * z);
+                r[j++] = (float) (m.m31 * x + m.m32 * y + m.m33 * z);
+            }
+        }
+
+        this.rotatedSize = j;
+        return offset;
+    }
+
+    /**
+     * Returns an instance's point.
+     *
+     * @param index the instance's index.
+     * @return the instance's point, in model coordinates.
+     */
+    public Vec4 getPoint(int index) {
+        int offset = 3 * index;
+        return new Vec4(this.referencePoint.x + this.points[offset],
+            this.referencePoint.y + this.points[offset + 1],
+            this.referencePoint.z + this.points[offset + 2]);
+    }
+
+    /**
+     * Returns the distance from an instance's point to a specified point.
+     *
+     * @param index the instance's index.
+     * @param point the point to measure to.
+     * @return the distance between the points.
+     */
+    public double distanceTo(int index, Vec4 point) {
+        int offset = 3 * index;
+        double dx = this.referencePoint.x + this.points[offset] - point.x;
+        double dy = this.referencePoint.y + this.points[offset + 1] - point.y;
+        double dz = this.referencePoint.z + this.points[offset + 2] - point.z;
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    /**
+     * Specifies the uniform scale applied to an instance.
+     *
+     * @param index the instance's index.
+     * @param scale the scale.
+     */
+    public void setScale(int index, double scale) {
+        this.scales[index] = scale;
+    }
+
+    /**
+     * Returns the uniform scale applied to an instance.
+     *
+     * @param index the instance's index.
+     * @return the scale.
+     */
+    public double getScale(int index) {
+        return this.scales[index];
+    }
+
+    /**
+     * Draws instances of this buffer's mesh with one draw call. The current matrix mode must be the modelview mode;
+     * the modelview matrix is replaced and is not restored. The client vertex array state is restored. The caller
+     * configures lighting, material and other OpenGL state before calling this method.
+     *
+     * @param dc            the current draw context.
+     * @param indices       the indices of the instances to draw, in the order to draw them.
+     * @param count         the number of indices to draw.
+     * @param pickColorCode the pick color code of the first instance drawn when picking. The instance drawn
+     *                      <code>k</code>-th is drawn in the color <code>pickColorCode + k</code>. Ignored when not
+     *                      picking.
+     */
+    public void draw(DrawContext dc, int[] indices, int count, int pickColorCode) {
+        if (count == 0 || this.referencePoint == null || this.mesh == null)
+            return;
+
+        Vec4 eye = dc.view().getEyePoint();
+        this.fillBuffers(dc, eye, indices, count, pickColorCode);
+
+        GL2 gl = dc.getGL2(); // GL initialization checks for GL2 compatibility.
+        this.loadModelview(gl, dc.view().getModelviewMatrix(), eye);
+
+        this.stackHandler.clear();
+        this.stackHandler.pushClientAttrib(gl, GL2.GL_CLIENT_VERTEX_ARRAY_BIT);
+        try {
+            gl.glEnableClientState(GL2.GL_VERTEX_ARRAY);
+            gl.glVertexPointer(3, GL.GL_FLOAT, 0, this.vertexBuffer.rewind());
+            gl.glEnableClientState(GL2.GL_NORMAL_ARRAY);
+            gl.glNormalPointer(GL.GL_FLOAT, 0, this.normalBuffer.rewind());
+
+            if (dc.isPickingMode()) {
+                gl.glEnableClientState(GL2.GL_COLOR_ARRAY);
+                gl.glColorPointer(3, GL.GL_UNSIGNED_BYTE, 0, this.pickColorBuffer.rewind());
+            }
+
+            gl.glDrawElements(GL.GL_TRIANGLES, count * this.mesh.indices.length, GL.GL_UNSIGNED_INT,
+                this.indexBuffer.rewind());
+        }
+        finally {
+            this.stackHandler.pop(gl);
+        }
+    }
+
+    /**
+     * Writes the drawn instances' vertices and normals to the vertex arrays, relative to the eye point and in the
+     * order drawn, and their pick colors when picking. Grows the vertex arrays and the index buffer as needed.
+     *
+     * @param dc            the current draw context.
+     * @param eye           the eye point.
+     * @param indices       the indices of the instances to draw.
+     * @param count         the number of indices to draw.
+     * @param pickColorCode the pick color code of the first instance drawn.
+     */
+    protected void fillBuffers(DrawContext dc, Vec4 eye, int[] indices, int count, int pickColorCode) {
+        float[] meshVertices = this.mesh.vertices;
+        float[] meshNormals = this.mesh.normals;
+        int length = meshVertices.length;
+        boolean picking = dc.isPickingMode();
+
+        if (this.vertexBuffer == null || this.vertexBuffer.capacity() < count * length) {
+            int capacity = Math.max(count, this.size);
+            this.vertexBuffer = Buffers.newDirectFloatBuffer(capacity * length);
+            this.normalBuffer = Buffers.newDirectFloatBuffer(capacity * length);
+            this.pickColorBuffer = null;
+        }
+
+        if (picking && (this.pickColorBuffer == null || this.pickColorBuffer.capacity() < count * length))
+            this.pickColorBuffer = Buffers.newDirectByteBuffer(this.vertexBuffer.capacity());
+
+        if (this.indexedInstances < count)
+            this.fillIndexBuffer(Math.max(count, this.size));
+
+        FloatBuffer vb = this.vertexBuffer.clear();
+        FloatBuffer nb = this.normalBuffer.clear();
+        ByteBuffer cb = picking ? this.pickColorBuffer.clear() : null;
+        double rx = this.referencePoint.x - eye.x;
+        double ry = this.referencePoint.y - eye.y;
+        double rz = this.referencePoint.z - eye.z;
+
+        for (int k = 0; k < count; k++) {
+            int index = indices[k];
+            double s = this.scales[index];
+            double x = rx + this.points[3 * index];
+            double y = ry + this.points[3 * index + 1];
+            double z = rz + this.points[3 * index + 2];
+
+            float[] v = meshVertices, n = meshNormals;
+            int vOffset = 0, nOffset = 0;
+            int rotatedOffset = this.rotatedOffsets[index];
+            if (rotatedOffset >= 0) {
+                v = n = this.rotatedMesh;
+                vOffset = rotatedOffset;
+                nOffset = rotatedOffset + length;
+            }
+
+            for (int i = 0; i < length; i += 3) {
+                vb.put((float) (x + s * v[vOffset + i]))
+                    .put((float) (y + s * v[vOffset + i + 1]))
+                    .put((float) (z + s * v[vOffset + i + 2]));
+            }
+            nb.put(n, nOffset, length);
+
+            if (cb != null) {
+                int code = pickColorCode + k;
+                byte r = (byte) ((code >> 16) & 0xFF), g = (byte) ((code >> 8) & 0xFF), b = (byte) (code & 0xFF);
+                for (int i = 0; i < length; i += 3) {
+                    cb.put(r).put(g).put(b);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fills the index buffer with the mesh's indices for a specified number of instances.
+     *
+     * @param instances the number of instances.
+     */
+    protected void fillIndexBuffer(int instances) {
+        int[] meshIndices = this.mesh.indices;
+        int vertexCount = this.mesh.vertices.length / 3;
+
+        this.indexBuffer = Buffers.newDirectIntBuffer(instances * meshIndices.length);
+        for (int k = 0; k < instances; k++) {
+            int base = k * vertexCount;
+            for (int i : meshIndices) {
+                this.indexBuffer.put(base + i);
+            }
+        }
+
+        this.indexedInstances = instances;
+    }
+
+    /**
+     * Loads the modelview matrix translated to the eye point, so that vertices relative to the eye point are drawn in
+     * place.
+     *
+     * @param gl  the current GL.
+     * @param mv  the modelview matrix.
+     * @param eye the eye point.
+     */
+    protected void loadModelview(GL2 gl, Matrix mv, Vec4 eye) {
+        double[] m = this.matrix;
+        m[0] = mv.m11;
+        m[1] = mv.m21;
+        m[2] = mv.m31;
+        m[3] = mv.m41;
+        m[4] = mv.m12;
+        m[5] = mv.m22;
+        m[6] = mv.m32;
+        m[7] = mv.m42;
+        m[8] = mv.m13;
+        m[9] = mv.m23;
+        m[10] = mv.m33;
+        m[11] = mv.m43;
+        m[12] = mv.m11 * eye.x + mv.m12 * eye.y + mv.m13 * eye.z + mv.m14;
+        m[13] = mv.m21 * eye.x + mv.m22 * eye.y + mv.m23 * eye.z + mv.m24;
+        m[14] = mv.m31 * eye.x + mv.m32 * eye.y + mv.m33 * eye.z + mv.m34;
+        m[15] = mv.m41 * eye.x + mv.m42 * eye.y + mv.m43 * eye.z + mv.m44;
+        gl.glLoadMatrixd(m, 0);
+    }
+
+    /**
+     * A unit shape drawn as indexed triangles, with one normal per vertex. Meshes are immutable and may be shared by
+     * any number of instance buffers.
+     */
+    public static class Mesh {
+        protected final float[] vertices;
+        protected final float[] normals;
+        protected final int[] indices;
+
+        /**
+         * Creates a mesh.
+         *
+         * @param vertices the vertices, as x, y, z triples.
+         * @param normals  the normals, one x, y, z triple for each vertex.
+         * @param indices  the vertex indices of the triangles, three per triangle.
+         */
+        public Mesh(float[] vertices, float[] normals, int[] indices) {
+            this.vertices = vertices;
+            this.normals = normals;
+            this.indices = indices;
+        }
+
+        public int getVertexCount() {
+            return this.vertices.length / 3;
+        }
+
+        public int getTriangleCount() {
+            return this.indices.length / 3;
+        }
+
+        /**
+         * Creates a sphere of radius 1 centered on the origin.
+         *
+         * @param slices the number of subdivisions around the z axis.
+         * @param stacks the number of subdivisions along the z axis.
+         * @return the sphere.
+         */
+        public static Mesh createSphere(int slices, int stacks) {
+            float[] vertices = new float[3 * (slices + 1) * (stacks + 1)];
+            int[] indices = new int[6 * slices * (stacks - 1)];
+
+            int v = 0;
+            for (int i = 0; i <= stacks; i++) {
+                double phi = Math.PI * i / stacks;
+                for (int j = 0; j <= slices; j++) {
+                    double theta = 2 * Math.PI * j / slices;
+                    vertices[v++] = (float) (Math.sin(phi) * Math.cos(theta));
+                    vertices[v++] = (float) (Math.sin(phi) * Math.sin(theta));
+                    vertices[v++] = (float) Math.cos(phi);
+                }
+            }
+
+            // Omit the degenerate triangles at the poles.
+            int t = 0;
+            for (int i = 0; i < stacks; i++) {
+                for (int j = 0; j < slices; j++) {
+                    int a = i * (slices + 1) + j, b = a + slices + 1;
+                    if (i > 0) {
+                        indices[t++] = a;
+                        indices[t++] = b;
+                        indices[t++] = a + 1;
+                    }
+                    if (i < stacks - 1) {
+                        indices[t++] = a + 1;
+                        indices[t++] = b;
+                        indices[t++] = b + 1;
+                    }
+                }
+            }
+
+            // A unit sphere's normals are its vertices.
+            return new Mesh(vertices, vertices, indices);
+        }
+
+        /**
+         * Creates a cone of radius 1 and height 2, with its base centered on the origin and its apex on the positive z
+         * axis.
+         *
+         * @param slices the number of subdivisions around the z axis.
+         * @return the cone.
+         */
+        public static Mesh createCone(int slices) {
+            MeshBuilder builder = new MeshBuilder(3 * slices + 3, 2 * slices);
+            float nz = (float) (1 / Math.sqrt(5)), nr = 2 * nz;
+
+            for (int j = 0; j <= slices; j++) {
+                double theta = 2 * Math.PI * j / slices;
+                float cos = (float) Math.cos(theta), sin = (float) Math.sin(theta);
+                builder.addVertex(cos, sin, 0, nr * cos, nr * sin, nz);
+                builder.addVertex(0, 0, 2, nr * cos, nr * sin, nz);
+                if (j > 0)
+                    builder.addTriangle(2 * j - 2, 2 * j, 2 * j - 1);
+            }
+
+            builder.addDisk(slices, 0, false);
+            return builder.build();
+        }
+
+        /**
+         * Creates a closed cylinder of radius 1 and height 2, with its base centered on the origin and its axis along
+         * the positive z axis.
+         *
+         * @param slices the number of subdivisions around the z axis.
+         * @return the cylinder.
+         */
+        public static Mesh createCylinder(int slices) {
+            MeshBuilder builder = new MeshBuilder(4 * slices + 4, 4 * slices);
+
+            for (int j = 0; j <= slices; j++) {
+                double theta = 2 * Math.PI * j / slices;
+                float cos = (float) Math.cos(theta), sin = (float) Math.sin(theta);
+                builder.addVertex(cos, sin, 0, cos, sin, 0);
+                builder.addVertex(cos, sin, 2, cos, sin, 0);
+                if (j > 0) {
+                    builder.addTriangle(2 * j - 2, 2 * j, 2 * j - 1);
+                    builder.addTriangle(2 * j - 1, 2 * j, 2 * j + 1);
+                }
+            }
+
+            builder.addDisk(slices, 0, false);
+            builder.addDisk(slices, 2, true);
+            return builder.build();
+        }
+
+        /**
+         * Creates a mesh from quadrilateral faces, each with a single normal.
+         *
+         * @param corners the corner vertices, as x, y, z triples.
+         * @param faces   the indices of each face's four corners.
+         * @param normals each face's normal.
+         * @return the mesh.
+         */
+        public static Mesh createFaces(float[][] corners, int[][] faces, float[][] normals) {
+            MeshBuilder builder = new MeshBuilder(4 * faces.length, 2 * faces.length);
+
+            for (int i = 0; i < faces.length; i++) {
+                int first = builder.vertexCount;
+                for (int corner : faces[i]) {
+                    float[] c = corners[corner];
+                    builder.addVertex(c[0], c[1], c[2], normals[i][0], normals[i][1], normals[i][2]);
+                }
+                builder.addTriangle(first, first + 1, first + 2);
+                builder.addTriangle(first, first + 2, first + 3);
+            }
+
+            return builder.build();
+        }
+    }
+
+    protected static class MeshBuilder {
+        protected final float[] vertices;
+        protected final float[] normals;
+        protected final int[] indices;
+        protected int vertexCount;
+        protected int indexCount;
+
+        public MeshBuilder(int vertexCount, int triangleCount) {
+            this.vertices = new float[3 * vertexCount];
+            this.normals = new float[3 * vertexCount];
+            this.indices = new int[3 * triangleCount];
+        }
+
+        public void addVertex(float x, float y, float z, float nx, float ny, float nz) {
+            int i = 3 * this.vertexCount++;
+            this.vertices[i] = x;
+            this.vertices[i + 1] = y;
+            this.vertices[i + 2] = z;
+            this.normals[i] = nx;
+            this.normals[i + 1] = ny;
+            this.normals[i + 2] = nz;
+        }
+
+        public void addTriangle(int a, int b, int c) {
+            this.indices[this.indexCount++] = a;
+            this.indices[this.indexCount++] = b;
+            this.indices[this.indexCount++] = c;
+        }
+
+        /**
+         * Adds a disk of radius 1 centered on the z axis, facing up or down the z axis.
+         *
+         * @param slices the number of subdivisions around the z axis.
+         * @param z      the disk's z coordinate.
+         * @param up     true if the disk faces the positive z axis, false if it faces the negative z axis.
+         */
+        public void addDisk(int slices, float z, boolean up) {
+            float nz = up ? 1 : -1;
+            int center = this.vertexCount;
+            this.addVertex(0, 0, z, 0, 0, nz);
+            for (int j = 0; j < slices; j++) {
+                double theta = 2 * Math.PI * j / slices;
+                this.addVertex((float) Math.cos(theta), (float) Math.sin(theta), z, 0, 0, nz);
+            }
+
+            for (int j = 0; j < slices; j++) {
+                int a = center + 1 + j, b = center + 1 + (j + 1) % slices;
+                if (up)
+                    this.addTriangle(center, a, b);
+                else
+                    this.addTriangle(center, b, a);
+            }
+        }
+
+        public Mesh build() {
+            return new Mesh(Arrays.copyOf(this.vertices, 3 * this.vertexCount),
+                Arrays.copyOf(this.normals, 3 * this.vertexCount), Arrays.copyOf(this.indices, this.indexCount));
+        }
+    }
+}
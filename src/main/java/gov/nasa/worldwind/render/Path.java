@@ -793,6 +793,36 @@ public class Path extends AbstractShape {
         return super.mustRegenerateGeometry(dc);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Overridden to indicate that Path geometry can be regenerated on a worker thread. Path stores all generated
+     * geometry in its {@link PathData}. Subclasses are regenerated on the rendering thread unless they override this
+     * method and {@link #createRegenerationCopy()}.
+     */
+    @Override
+    protected boolean isAsyncRegenerationSupported() {
+        return this.getClass() == Path.class;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Overridden to copy this path, including a copy of its positions.
+     */
+    @Override
+    protected AbstractShape createRegenerationCopy() {
+        Path copy = new Path(this);
+        if (this.positions != null) {
+            List<Position> positions = new ArrayList<>(this.numPositions);
+            for (Position position : this.positions) {
+                positions.add(position);
+            }
+            copy.setPositions(positions);
+        }
+        return copy;
+    }
+
     @Override
     protected boolean shouldUseVBOs(DrawContext dc) {
         return this.getCurrentPathData().tessellatedPositions.size() > AbstractShape.VBO_THRESHOLD && super.shouldUseVBOs(dc);
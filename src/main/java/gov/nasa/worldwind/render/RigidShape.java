@@ -8,7 +8,7 @@ package gov.nasa.worldwind.render;
 
 import com.jogamp.common.nio.Buffers;
 import com.jogamp.opengl.*;
-import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.*;
 import gov.nasa.worldwind.cache.*;
 import gov.nasa.worldwind.geom.Box;
 import gov.nasa.worldwind.geom.*;
@@ -82,7 +82,11 @@ public abstract class RigidShape extends AbstractShape {
      */
     protected static void setUpGeometryCache() {
         if (!WorldWind.getMemoryCacheSet().containsCache(RigidShape.GEOMETRY_CACHE_KEY)) {
-            MemoryCache cache = new SoftMemoryCache();
+            // This is the airspace geometry cache: whichever of RigidShape and AbstractAirspace is initialized first
+            // creates it, so both bound it by the same configuration property.
+            long size = Configuration.getLongValue(Keys.AIRSPACE_GEOMETRY_CACHE_SIZE,
+                RigidShape.DEFAULT_GEOMETRY_CACHE_SIZE);
+            MemoryCache cache = new SoftMemoryCache(size);
             cache.setName(RigidShape.GEOMETRY_CACHE_NAME);
             WorldWind.getMemoryCacheSet().addCache(RigidShape.GEOMETRY_CACHE_KEY, cache);
         }
@@ -33,6 +33,12 @@ import java.util.*;
  * during the preRender method of a WorldWind layer. See the {@link PreRenderable} interface for details. Once built,
  * the surface tiles can be rendered by a {@link SurfaceTileRenderer}.
  * <p>
+ * Tiles are built incrementally. The builder keeps a spatial index of the surface renderables across calls to
+ * buildTiles, and compares each renderable's state key with the key from the previous call. A renderable whose state
+ * key changes marks its old and new sectors as changed; only tiles intersecting a changed region reassemble their
+ * list of renderables and compare their state, and only those whose state differs are drawn again. Tiles at every
+ * level keep their list of renderables in the tile cache between calls.
+ * <p>
  * By default, SurfaceObjectTileBuilder creates texture tiles with a width and height of 512 pixels, and with internal
  * format <code>GL_RGBA</code>. These parameters are configurable by calling {@link #setTileDimension(Dimension)} or
  * {@link #setTileTextureFormat(int)}.
@@ -92,6 +98,11 @@ public class SurfaceObjectTileBuilder {
      * equator.
      */
     protected static final int DEFAULT_NUM_LEVELS = 17;
+    /**
+     * The maximum number of changed regions retained by each TileInfo. When more regions change, the oldest are
+     * discarded and tiles assembled before them are considered out of date.
+     */
+    protected static final int MAX_DIRTY_REGIONS = 512;
     /**
      * Map associating a tile texture dimension to its corresponding LevelSet. This map is a class property in order to
      * share LevelSets across all instances of SurfaceObjectTileBuilder.
@@ -144,6 +155,10 @@ public class SurfaceObjectTileBuilder {
      * The currently active TileInfo. Valid only during the execution of {@link #buildTiles(DrawContext, Iterable)}.
      */
     protected TileInfo currentInfo;
+    /**
+     * List of indexed sectors intersecting a tile. Reused by {@link #assembleTileContents(SurfaceObjectTile)}.
+     */
+    protected final List<ObjectSector> indexResults = new ArrayList<>();
 
     /**
      * Constructs a new SurfaceObjectTileBuilder with a tile width and height of <code>512</code>, with the default tile
@@ -598,16 +613,16 @@ public class SurfaceObjectTileBuilder {
         if (this.currentSurfaceObjects.isEmpty() || !SurfaceObjectTileBuilder.canAssembleTiles(dc))
             return;
 
-        // Assemble the current visible tiles and update their associated textures if necessary.
+        // Bring the spatial index up to date with the current surface renderables, then assemble the current visible
+        // tiles and update their associated textures if necessary.
+        this.updateObjectIndex(dc);
         this.assembleTiles(dc);
         this.updateTiles(dc);
 
         // Clear references to surface renderables to avoid dangling references. The surface renderable list is no
-        // longer needed, no are the lists held by each tile.
+        // longer needed. The lists held by each tile are retained for the next call, and are released when a change
+        // to the renderables they contain causes the tile to be reassembled.
         this.currentSurfaceObjects.clear();
-        for (SurfaceObjectTile tile : this.currentInfo.tiles) {
-            tile.clearObjectList();
-        }
     }
 
     //**************************************************************//
@@ -741,10 +756,17 @@ public class SurfaceObjectTileBuilder {
         // * The tile has no state.
         // * The list of intersecting objects has changed.
         // * An intersecting object's state key is different than one stored in the tile's previous state key.
+        // The last two conditions can only be true if the tile's object list has been reassembled since the texture
+        // was last checked, so the state key is computed only for tiles intersecting a changed region.
         if (!this.isForceTileUpdates()) {
+            if (texture != null && tile.updateGeneration == tile.contentsGeneration)
+                return;
+
             Object tileStateKey = tile.getStateKey(dc);
-            if (texture != null && tileStateKey.equals(tile.lastUpdateStateKey))
+            if (texture != null && tileStateKey.equals(tile.lastUpdateStateKey)) {
+                tile.updateGeneration = tile.contentsGeneration;
                 return;
+            }
 
             // If the tile needs to be updated, then assign its lastUpdateStateKey before its texture is created. This
             // ensures that the lastUpdateStateKey is current when the tile is added to the cache.
@@ -777,6 +799,8 @@ public class SurfaceObjectTileBuilder {
                     so.render(dc);
                 }
             }
+
+            tile.updateGeneration = tile.contentsGeneration;
         }
         finally {
             this.rttSupport.setColorTarget(dc, null);
@@ -888,6 +912,187 @@ public class SurfaceObjectTileBuilder {
         }
     }
 
+    /**
+     * Brings the spatial index of the {@link #currentInfo} up to date with the surface renderables in {@link
+     * #currentSurfaceObjects}. Each renderable's state key is compared with the key recorded during the previous call.
+     * Renderables that are new, whose state key has changed, or whose order relative to the other renderables has
+     * changed are indexed again, and their old and new sectors are recorded as changed regions. Renderables that are no
+     * longer present are removed from the index, and their sectors are recorded as changed regions.
+     * <p>
+     * The index and all tile contents are discarded when the globe's state key changes, since a renderable's sectors
+     * may depend on the globe.
+     *
+     * @param dc the current DrawContext.
+     */
+    protected void updateObjectIndex(DrawContext dc) {
+        TileInfo info = this.currentInfo;
+        info.generation++;
+
+        Object globeStateKey = dc.getGlobe().getGlobeStateKey(dc);
+        if (!globeStateKey.equals(info.globeStateKey)) {
+            info.objectEntries.clear();
+            info.objectIndex.clear();
+            info.dirtyRegions.clear();
+            info.minValidGeneration = info.generation;
+            info.globeStateKey = globeStateKey;
+        }
+
+        // Track the largest order a renderable had during the previous call. A renderable whose previous order is less
+        // than that of a renderable preceding it has moved in front of it, and must be redrawn in any tile they share.
+        int order = 0;
+        int maxPreviousOrder = -1;
+
+        for (SurfaceRenderable so : this.currentSurfaceObjects) {
+            ObjectEntry entry = info.objectEntries.get(so);
+            if (entry == null) {
+                entry = new ObjectEntry(so);
+                info.objectEntries.put(so, entry);
+            } else if (entry.generation == info.generation) {
+                continue; // The renderable appears more than once; it's drawn at its first position.
+            }
+
+            boolean reordered = entry.order >= 0 && entry.order < maxPreviousOrder;
+            maxPreviousOrder = Math.max(maxPreviousOrder, entry.order);
+
+            Object stateKey = so.getStateKey(dc);
+            if (entry.order < 0 || reordered || !Objects.equals(stateKey, entry.stateKey)) {
+                this.markDirty(info, entry.sectors);
+                entry.stateKey = stateKey;
+                this.indexObject(dc, info, entry);
+                this.markDirty(info, entry.sectors);
+            }
+
+            entry.order = order++;
+            entry.generation = info.generation;
+        }
+
+        // Remove the renderables that were not present during this call.
+        Iterator<ObjectEntry> iterator = info.objectEntries.values().iterator();
+        while (iterator.hasNext()) {
+            ObjectEntry entry = iterator.next();
+            if (entry.generation != info.generation) {
+                this.markDirty(info, entry.sectors);
+                for (ObjectSector os : entry.indexedSectors) {
+                    info.objectIndex.remove(os);
+                }
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Replaces a renderable's sectors in the spatial index of the specified TileInfo with its current sectors.
+     *
+     * @param dc    the current DrawContext.
+     * @param info  the TileInfo whose index contains the renderable.
+     * @param entry the renderable's index entry.
+     */
+    protected void indexObject(DrawContext dc, TileInfo info, ObjectEntry entry) {
+        for (ObjectSector os : entry.indexedSectors) {
+            info.objectIndex.remove(os);
+        }
+        entry.indexedSectors.clear();
+
+        entry.sectors = entry.object.getSectors(dc);
+        if (entry.sectors == null)
+            return;
+
+        for (Sector s : entry.sectors) {
+            ObjectSector os = new ObjectSector(entry, s);
+            info.objectIndex.add(os, s);
+            entry.indexedSectors.add(os);
+        }
+    }
+
+    /**
+     * Records regions of the specified TileInfo that changed during the current call to {@link
+     * #buildTiles(DrawContext, Iterable)}. When the number of recorded regions exceeds <code>MAX_DIRTY_REGIONS</code>,
+     * the oldest are discarded, and tiles assembled before the discarded regions were recorded are considered out of
+     * date.
+     *
+     * @param info    the TileInfo to record changes in.
+     * @param sectors the changed regions. May be null.
+     */
+    protected void markDirty(TileInfo info, List<Sector> sectors) {
+        if (sectors == null)
+            return;
+
+        for (Sector s : sectors) {
+            info.dirtyRegions.addLast(new DirtyRegion(info.generation, s));
+        }
+
+        while (info.dirtyRegions.size() > SurfaceObjectTileBuilder.MAX_DIRTY_REGIONS) {
+            info.minValidGeneration = info.dirtyRegions.removeFirst().generation;
+        }
+    }
+
+    /**
+     * Indicates whether a tile's list of surface renderables reflects the current spatial index. This returns false if
+     * the tile's list was never assembled, or if a region that intersects the tile has changed since the list was
+     * assembled.
+     *
+     * @param info the TileInfo the tile belongs to.
+     * @param tile the tile to test.
+     * @return true if the tile's list of surface renderables is current; false otherwise.
+     */
+    protected boolean isTileContentsCurrent(TileInfo info, SurfaceObjectTile tile) {
+        if (tile.contentsGeneration < info.minValidGeneration)
+            return false;
+
+        // Regions are recorded in order, so visit them from newest to oldest and stop at the first region recorded
+        // before the tile's list was assembled.
+        Iterator<DirtyRegion> iterator = info.dirtyRegions.descendingIterator();
+        while (iterator.hasNext()) {
+            DirtyRegion region = iterator.next();
+            if (region.generation <= tile.contentsGeneration)
+                break;
+
+            if (region.sector.intersects(tile.sector))
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Assembles the specified tile's list of surface renderables from the spatial index of the {@link #currentInfo}.
+     * The list contains each renderable with a sector intersecting the tile once, in the order the renderables were
+     * specified to {@link #buildTiles(DrawContext, Iterable)}. The tile's object sector becomes the union of the
+     * intersecting sectors. The tile is added to the TextureTile memory cache so its list is retained across calls.
+     *
+     * @param tile the tile to assemble.
+     */
+    protected void assembleTileContents(SurfaceObjectTile tile) {
+        tile.clearObjectList();
+        tile.contentsGeneration = this.currentInfo.generation;
+
+        List<ObjectSector> results = this.indexResults;
+        try {
+            this.currentInfo.objectIndex.getItemsInRegion(tile.sector, results);
+            if (results.isEmpty())
+                return;
+
+            results.sort(Comparator.comparingInt(os -> os.entry.order));
+
+            ObjectEntry last = null;
+            for (ObjectSector os : results) {
+                // A renderable spanning the anti-meridian has two sectors that may both intersect the tile. Add the
+                // renderable once.
+                if (os.entry != last)
+                    tile.intersectingObjects.add(os.entry.object);
+                tile.objectSector = (tile.objectSector != null) ? tile.objectSector.union(os.sector) : os.sector;
+                last = os.entry;
+            }
+        }
+        finally {
+            results.clear();
+        }
+
+        MemoryCache memoryCache = TextureTile.getMemoryCache();
+        if (!memoryCache.contains(tile.key))
+            memoryCache.add(tile.key, tile);
+    }
+
     /**
      * Assembles a set of surface tiles that are visible in the specified DrawContext and meet the tile builder's
      * resolution criteria. Tiles are culled against the current surface renderable list, against the DrawContext's view
@@ -895,11 +1100,9 @@ public class SurfaceObjectTileBuilder {
      * not meet the tile builder's resolution criteria, it's split into four sub-tiles and the process recursively
      * repeated on the sub-tiles. Visible leaf tiles are added to the {@link #currentInfo}.
      * <p>
-     * During assembly each surface renderable in {@link #currentSurfaceObjects} is sorted into the tiles they
-     * intersect. The top level tiles are used as an index to quickly determine which tiles each renderable intersects.
-     * Surface renderables are sorted into sub-tiles by simple intersection tests, and are added to each tile's surface
-     * renderable list at most once. See {@link SurfaceObjectTileBuilder.SurfaceObjectTile#addSurfaceObject(SurfaceRenderable,
-     * Sector)}. Tiles that don't intersect any surface renderables are discarded.
+     * Each tile's list of surface renderables is retained from the previous call unless a region intersecting the tile
+     * has changed, in which case the list is assembled from the spatial index. See {@link
+     * #assembleTileContents(SurfaceObjectTile)}. Tiles that don't intersect any surface renderables are discarded.
      *
      * @param dc the DrawContext to assemble tiles for.
      */
@@ -912,82 +1115,48 @@ public class SurfaceObjectTileBuilder {
         Angle dLon = level.getTileDelta().getLon();
         Angle latOrigin = levelSet.tileOrigin.getLat();
         Angle lonOrigin = levelSet.tileOrigin.getLon();
+        Sector sector = levelSet.sector;
 
-        // Store the top level tiles in a set to ensure that each top level tile is added only once. Store the tiles
-        // that intersect each surface renderable in a set to ensure that each object is added to a tile at most once.
-        Collection<SurfaceObjectTile> topLevelTiles = new HashSet<>();
-        Collection<Object> intersectingTileKeys = new HashSet<>();
-
-        // Iterate over the current surface renderables, adding each surface renderable to the top level tiles that it
-        // intersects. This produces a set of top level tiles containing the surface renderables that intersect each
-        // tile. We use the tile structure as an index to quickly determine the tiles a surface renderable intersects,
-        // and add object to those tiles. This has the effect of quickly sorting the objects into the top level tiles.
-        // We collect the top level tiles in a HashSet to ensure there are no duplicates when multiple objects intersect
-        // the same top level tiles.
+        int firstRow = Tile.computeRow(dLat, sector.latMin(), latOrigin);
+        int firstCol = Tile.computeColumn(dLon, sector.lonMin(), lonOrigin);
+        int lastRow = Tile.computeRow(dLat, sector.latMax(), latOrigin);
+        int lastCol = Tile.computeColumn(dLon, sector.lonMax(), lonOrigin);
 
         final MemoryCache memoryCache = TextureTile.getMemoryCache();
 
-        for (SurfaceRenderable so : this.currentSurfaceObjects) {
-            List<Sector> sectors = so.getSectors(dc);
-            if (sectors == null)
-                continue;
-
-            for (Sector s : sectors) {
-                // Use the LevelSets tiling scheme to index the surface renderable's sector into the top level tiles.
-                // This index operation is faster than computing an intersection test between each tile and the list of
-                // surface renderables.
-                int firstRow = Tile.computeRow(dLat, s.latMin(), latOrigin);
-                int firstCol = Tile.computeColumn(dLon, s.lonMin(), lonOrigin);
-                int lastRow = Tile.computeRow(dLat, s.latMax(), latOrigin);
-                int lastCol = Tile.computeColumn(dLon, s.lonMax(), lonOrigin);
-
-                Angle p1 = Tile.rowLat(firstRow, dLat, latOrigin);
-                for (int row = firstRow; row <= lastRow; row++) {
-                    Angle p2;
-                    p2 = p1.add(dLat);
-
-                    Angle t1 = Tile.columnLon(firstCol, dLon, lonOrigin);
-                    for (int col = firstCol; col <= lastCol; col++) {
-                        Angle t2;
-                        t2 = t1.add(dLon);
-
-                        Object tileKey = SurfaceObjectTileBuilder.createTileKey(level, row, col, tileCacheName);
-
-                        // Ignore this tile if the surface renderable has already been added to it. This handles
-                        // dateline spanning surface renderables which have two sectors that share a common boundary.
-                        if (!intersectingTileKeys.add(tileKey))
-                            continue;
-
-                        SurfaceObjectTile tile = (SurfaceObjectTile) memoryCache.getObject(tileKey);
-                        if (tile == null) {
-                            tile = SurfaceObjectTileBuilder.createTile(new Sector(p1, p2, t1, t2), level, row, col,
-                                tileCacheName);
-                            memoryCache.add(tileKey, tile);
-                        }
-
-                        topLevelTiles.add(tile); // Set of top level tiles ensures no duplicates tiles.
-                        tile.intersectingObjects.add(so);
-                        tile.objectSector = (tile.objectSector != null) ? tile.objectSector.union(s) : s;
+        // Visit each top level tile that intersects a surface renderable. The top level tiles retain their lists of
+        // surface renderables in the memory cache, so a top level tile is assembled from the spatial index only when
+        // it's new or a region intersecting it has changed.
+        Angle p1 = Tile.rowLat(firstRow, dLat, latOrigin);
+        for (int row = firstRow; row <= lastRow; row++) {
+            Angle p2 = p1.add(dLat);
 
-                        t1 = t2;
-                    }
-                    p1 = p2;
-                }
-            }
+            Angle t1 = Tile.columnLon(firstCol, dLon, lonOrigin);
+            for (int col = firstCol; col <= lastCol; col++) {
+                Angle t2 = t1.add(dLon);
 
-            intersectingTileKeys.clear(); // Clear the intersecting tile keys for the next surface renderable.
-        }
+                Object tileKey = SurfaceObjectTileBuilder.createTileKey(level, row, col, tileCacheName);
+                SurfaceObjectTile tile = (SurfaceObjectTile) memoryCache.getObject(tileKey);
+                if (tile == null)
+                    tile = SurfaceObjectTileBuilder.createTile(new Sector(p1, p2, t1, t2), level, row, col,
+                        tileCacheName);
+
+                if (!this.isTileContentsCurrent(this.currentInfo, tile))
+                    this.assembleTileContents(tile);
 
-        // Add each top level tile or its descendants to the current tile list.
-        topLevelTiles.forEach(
-            //topLevelTiles.parallelStream().forEach(
-            tile -> this.addTileOrDescendants(dc, levelSet, null, tile));
+                if (tile.hasObjects())
+                    this.addTileOrDescendants(dc, levelSet, null, tile);
+
+                t1 = t2;
+            }
+            p1 = p2;
+        }
     }
 
     /**
      * Potentially adds the specified tile or its descendants to the tile builder's {@link #currentInfo}. The tile and
-     * its descendants are discarded if the tile is not visible or does not intersect any surface renderables in the
-     * parent's surface renderable list. See {@link SurfaceObjectTileBuilder.SurfaceObjectTile#getObjectList()}.
+     * its descendants are discarded if the tile is not visible or does not intersect any surface renderables. See
+     * {@link SurfaceObjectTileBuilder.SurfaceObjectTile#getObjectList()}.
      * <p>
      * If the tile meet the tile builder's resolution criteria it's added to the tile builder's
      * <code>currentTiles</code> list. Otherwise, it's split into four sub-tiles and each tile is recursively
@@ -1006,15 +1175,16 @@ public class SurfaceObjectTileBuilder {
             return;
         }
 
-        // If the parent tile is not null, add any parent surface renderables that intersect this tile.
-        if (parent != null)
-            SurfaceObjectTileBuilder.addIntersectingObjects(dc, parent, tile);
+        // Reassemble the tile's surface renderables if a region intersecting the tile has changed since they were
+        // assembled. Since a tile's renderables are a subset of its parent's, there's nothing to do if the parent has
+        // none.
+        if ((parent == null || parent.hasObjects()) && !this.isTileContentsCurrent(this.currentInfo, tile))
+            this.assembleTileContents(tile);
 
         // Ignore tiles that do not intersect any surface renderables.
         if (tile.hasObjects()) {
 
-            // If this tile meets the current rendering criteria, add it to the current tile list. This tile's object list
-            // is cleared after the tile update operation.
+            // If this tile meets the current rendering criteria, add it to the current tile list.
             if (this.meetsRenderCriteria(dc, levelSet, tile)) {
                 this.addTile(tile);
             } else {
@@ -1023,10 +1193,6 @@ public class SurfaceObjectTileBuilder {
                 for (TextureTile subTile : tile.subTiles(nextLevel)) {
                     this.addTileOrDescendants(dc, levelSet, tile, (SurfaceObjectTile) subTile);
                 }
-
-                // This tile is not added to the current tile list, so we clear it's object list to prepare it for use during
-                // the next frame.
-                tile.clearObjectList();
             }
         }
     }
@@ -1219,6 +1385,30 @@ public class SurfaceObjectTileBuilder {
         public final String cacheName;
         public final int tileWidth;
         public final int tileHeight;
+        /**
+         * The index entries of the surface renderables specified during the last call to buildTiles.
+         */
+        public final Map<SurfaceRenderable, ObjectEntry> objectEntries = new IdentityHashMap<>();
+        /**
+         * Spatial index of the sectors of the surface renderables in {@link #objectEntries}.
+         */
+        public final LooseQuadTree<ObjectSector> objectIndex = new LooseQuadTree<>();
+        /**
+         * Regions that changed during recent calls to buildTiles, in the order they were recorded.
+         */
+        public final Deque<DirtyRegion> dirtyRegions = new ArrayDeque<>();
+        /**
+         * The globe state key during the last call to buildTiles.
+         */
+        public Object globeStateKey;
+        /**
+         * Counts the calls to buildTiles using this TileInfo.
+         */
+        public long generation;
+        /**
+         * Tiles whose contents were assembled before this generation are out of date.
+         */
+        public long minValidGeneration;
 
         public TileInfo(LevelSet levelSet, String cacheName, int tileWidth, int tileHeight) {
             this.levelSet = levelSet;
@@ -1228,6 +1418,55 @@ public class SurfaceObjectTileBuilder {
         }
     }
 
+    /**
+     * The state of a surface renderable recorded in a TileInfo's spatial index.
+     */
+    protected static class ObjectEntry {
+        public final SurfaceRenderable object;
+        public final List<ObjectSector> indexedSectors = new ArrayList<>(1);
+        public Object stateKey;
+        public List<Sector> sectors;
+        /**
+         * The renderable's position among the renderables specified to buildTiles, or -1 if it has not been indexed.
+         */
+        public int order = -1;
+        /**
+         * The TileInfo generation in which the renderable was last specified to buildTiles.
+         */
+        public long generation = -1;
+
+        public ObjectEntry(SurfaceRenderable object) {
+            this.object = object;
+        }
+    }
+
+    /**
+     * One of a surface renderable's sectors, as stored in a TileInfo's spatial index. Instances use identity equality,
+     * so a renderable's sectors are distinct items in the index.
+     */
+    protected static class ObjectSector {
+        public final ObjectEntry entry;
+        public final Sector sector;
+
+        public ObjectSector(ObjectEntry entry, Sector sector) {
+            this.entry = entry;
+            this.sector = sector;
+        }
+    }
+
+    /**
+     * A region that changed in a specified TileInfo generation.
+     */
+    protected static class DirtyRegion {
+        public final long generation;
+        public final Sector sector;
+
+        public DirtyRegion(long generation, Sector sector) {
+            this.generation = generation;
+            this.sector = sector;
+        }
+    }
+
     /**
      * Represents a {@link TextureTile} who's contents is constructed by a set of surface objects. The tile maintains a
      * collection of surface renderables that intersect the tile, and provides methods for to modify and retrieve that
@@ -1247,6 +1486,15 @@ public class SurfaceObjectTileBuilder {
          * The state key that was valid when the tile was last updated.
          */
         protected Object lastUpdateStateKey;
+        /**
+         * The TileInfo generation in which the list of intersecting surface renderables was assembled, or -1 if it has
+         * never been assembled.
+         */
+        protected long contentsGeneration = -1;
+        /**
+         * The value of {@link #contentsGeneration} when the tile's texture was last drawn or found to be current.
+         */
+        protected long updateGeneration = -1;
 
         /**
          * Constructs a tile for a given sector, level, row and column of the tile's containing tile set.
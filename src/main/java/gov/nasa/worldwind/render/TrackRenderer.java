@@ -17,9 +17,15 @@ import gov.nasa.worldwind.tracks.TrackPoint;
 import gov.nasa.worldwind.util.Logging;
 
 import java.awt.*;
-import java.util.Iterator;
+import java.util.List;
+import java.util.*;
 
 /**
+ * Draws the points of a track as markers. When batching is enabled, the track's marker placements are kept in an
+ * {@link InstanceBuffer} that is rebuilt only when the track's points, the shape or the globe change, and each frame
+ * the visible markers are drawn with one draw call and picked with a single pick color range. See {@link
+ * #setEnableBatching(boolean)}.
+ *
  * @author tag
  * @version $Id: TrackRenderer.java 1181 2013-02-15 22:27:10Z dcollins $
  */
@@ -38,6 +44,16 @@ public class TrackRenderer implements Disposable {
     private Material material = Material.WHITE;
     private Shape shape = SPHERE;
     private boolean keepSeparated = true;
+    private boolean enableBatching = true;
+    // Batch state: the instance placements, the track points they were computed from, each point's index in the track,
+    // and the points' positions as latitude, longitude and elevation triples.
+    protected final InstanceBuffer instances = new InstanceBuffer();
+    protected List<TrackPoint> batchPoints = new ArrayList<>();
+    protected int[] batchIndices = new int[0];
+    protected double[] batchPositions = new double[0];
+    protected Shape batchShape;
+    protected Object batchGlobeStateKey;
+    protected int[] visible = new int[0];
 
     public TrackRenderer() {
     }
@@ -152,6 +168,25 @@ public class TrackRenderer implements Disposable {
         this.keepSeparated = keepSeparated;
     }
 
+    /**
+     * Indicates whether track points are drawn in a batch.
+     *
+     * @return true if batching is enabled, otherwise false.
+     */
+    public boolean isEnableBatching() {
+        return this.enableBatching;
+    }
+
+    /**
+     * Specifies whether track points are drawn in a batch. Batching applies only when the marker elevation is not
+     * overridden. Enabled by default.
+     *
+     * @param enableBatching true to draw track points in a batch, otherwise false.
+     */
+    public void setEnableBatching(boolean enableBatching) {
+        this.enableBatching = enableBatching;
+    }
+
     protected Vec4 draw(DrawContext dc, Iterator<TrackPoint> trackPositions) {
         if (dc.getVisibleSector() == null)
             return null;
@@ -163,6 +198,9 @@ public class TrackRenderer implements Disposable {
         if (!this.shape.isInitialized)
             this.shape.initialize(dc);
 
+        if (this.enableBatching && !this.overrideMarkerElevation)
+            return this.drawBatched(dc, trackPositions);
+
         GL2 gl = dc.getGL2(); // GL initialization checks for GL2 compatibility.
         Vec4 lastPointDrawn = null;
 
@@ -227,6 +265,124 @@ public class TrackRenderer implements Disposable {
         return lastPointDrawn;
     }
 
+    protected Vec4 drawBatched(DrawContext dc, Iterator<TrackPoint> trackPositions) {
+        if (this.mustRebuildBatch(dc, trackPositions))
+            this.rebuildBatch(dc);
+
+        // Select the points to draw, keeping them separated if necessary, and cull them against the view frustum.
+        Frustum frustum = dc.view().getFrustumInModelCoordinates();
+        Vec4 lastPointDrawn = null;
+        int count = 0;
+        for (int i = 0; i < this.instances.size(); i++) {
+            Vec4 point = this.instances.getPoint(i);
+            double radius = this.computeMarkerRadius(dc, point);
+
+            if (this.keepSeparated && lastPointDrawn != null && point.distanceTo3(lastPointDrawn) <= 4.0d * radius)
+                continue;
+
+            lastPointDrawn = point;
+            if (!frustum.contains(point))
+                continue;
+
+            this.instances.setScale(i, radius);
+            this.visible[count++] = i;
+        }
+
+        if (count == 0)
+            return lastPointDrawn;
+
+        int pickColorCode = 0;
+        if (dc.isPickingMode()) {
+            Color pickColor = dc.getUniquePickColorRange(count);
+            if (pickColor == null)
+                return lastPointDrawn;
+
+            pickColorCode = pickColor.getRGB() & 0xFFFFFF;
+            this.pickSupport.addPickableObjectRange(pickColorCode, count,
+                new BatchPickedObjectFactory(pickColorCode, new ArrayList<>(this.batchPoints),
+                    Arrays.copyOf(this.batchIndices, this.batchPoints.size()), Arrays.copyOf(this.visible, count)));
+        }
+
+        TrackRenderer.begin(dc);
+        try {
+            if (!dc.isPickingMode())
+                this.material.apply(dc.getGL2(), GL2.GL_FRONT);
+
+            this.instances.draw(dc, this.visible, count, pickColorCode);
+        }
+        finally {
+            TrackRenderer.end(dc);
+        }
+
+        return lastPointDrawn;
+    }
+
+    /**
+     * Reads the track points within the lower and upper limits, and indicates whether the batch must be rebuilt: when
+     * the shape or the globe has changed, or when any point's latitude, longitude or elevation has changed.
+     *
+     * @param dc             the current draw context.
+     * @param trackPositions the track points.
+     * @return true if the batch must be rebuilt, otherwise false.
+     */
+    protected boolean mustRebuildBatch(DrawContext dc, Iterator<TrackPoint> trackPositions) {
+        Object globeStateKey = dc.getGlobe().getGlobeStateKey(dc);
+        boolean changed = this.shape != this.batchShape || !globeStateKey.equals(this.batchGlobeStateKey);
+        this.batchShape = this.shape;
+        this.batchGlobeStateKey = globeStateKey;
+
+        List<TrackPoint> points = new ArrayList<>(this.batchPoints.size());
+        int[] indices = this.batchIndices;
+        double[] positions = this.batchPositions;
+        int count = 0;
+
+        for (int index = 0; trackPositions.hasNext(); index++) {
+            TrackPoint tp = trackPositions.next();
+
+            if (index < this.lowerLimit)
+                continue;
+
+            if (index > this.upperLimit)
+                break;
+
+            if (count == indices.length) {
+                indices = Arrays.copyOf(indices, Math.max(16, 2 * count));
+                positions = Arrays.copyOf(positions, 3 * indices.length);
+            }
+
+            double lat = tp.getLatitude(), lon = tp.getLongitude(), elevation = tp.getElevation();
+            if (changed || count >= this.batchPoints.size() || indices[count] != index
+                || positions[3 * count] != lat || positions[3 * count + 1] != lon
+                || positions[3 * count + 2] != elevation)
+                changed = true;
+
+            points.add(tp);
+            indices[count] = index;
+            positions[3 * count] = lat;
+            positions[3 * count + 1] = lon;
+            positions[3 * count + 2] = elevation;
+            count++;
+        }
+
+        this.batchPoints = points;
+        this.batchIndices = indices;
+        this.batchPositions = positions;
+
+        return changed || count != this.instances.size();
+    }
+
+    protected void rebuildBatch(DrawContext dc) {
+        this.instances.setMesh(this.shape.getUnitMesh());
+        this.instances.clear();
+        for (TrackPoint tp : this.batchPoints) {
+            Vec4 point = this.computeSurfacePoint(dc, tp);
+            this.instances.add(point, this.shape.computeOrientation(point));
+        }
+
+        if (this.visible.length < this.instances.size())
+            this.visible = new int[this.instances.size()];
+    }
+
     private double computeMarkerRadius(DrawContext dc, Vec4 point) {
         double d = point.distanceTo3(dc.view().getEyePoint());
         double radius = this.markerPixels * dc.view().computePixelSizeAtDistance(d);
@@ -304,6 +460,32 @@ public class TrackRenderer implements Disposable {
         return this.draw(dc, trackPositions);
     }
 
+    protected class BatchPickedObjectFactory implements PickedObjectFactory {
+        protected final int firstColorCode;
+        protected final List<TrackPoint> points;
+        protected final int[] pointIndices;
+        protected final int[] visible;
+
+        public BatchPickedObjectFactory(int firstColorCode, List<TrackPoint> points, int[] pointIndices,
+            int[] visible) {
+            this.firstColorCode = firstColorCode;
+            this.points = points;
+            this.pointIndices = pointIndices;
+            this.visible = visible;
+        }
+
+        public PickedObject createPickedObject(int colorCode) {
+            int i = this.visible[colorCode - this.firstColorCode];
+            TrackPoint tp = this.points.get(i);
+
+            Object client = TrackRenderer.this.getClient();
+            PickedObject po = new PickedObject(colorCode, client != null ? client : tp.getPosition(),
+                tp.getPosition(), false);
+            po.set(Keys.PICKED_OBJECT_ID, this.pointIndices[i]);
+            return po;
+        }
+    }
+
     protected static abstract class Shape {
         protected String name;
         protected int glListId;
@@ -312,6 +494,30 @@ public class TrackRenderer implements Disposable {
 
         abstract protected void doRender(DrawContext dc, Vec4 point, double radius);
 
+        /**
+         * Returns the unit shape drawn for track points drawn in a batch.
+         *
+         * @return the unit shape.
+         */
+        abstract protected InstanceBuffer.Mesh getUnitMesh();
+
+        /**
+         * Computes the rotation this shape applies to a marker drawn at a specified point.
+         *
+         * @param point the marker's point, in model coordinates.
+         * @return the rotation, or null if the shape is not rotated.
+         */
+        protected Matrix computeOrientation(Vec4 point) {
+            return null;
+        }
+
+        protected static Matrix computePolarOrientation(Vec4 point) {
+            PolarPoint p = PolarPoint.fromCartesian(point);
+            double lat = p.getLatitude().degrees;
+            return Matrix.fromAxisAngle(p.getLongitude(), 0, 1, 0).multiply(
+                Matrix.fromAxisAngle(new Angle(Math.abs(lat)), -Math.signum(lat), 0, 0));
+        }
+
         protected void initialize(DrawContext dc) {
             GL2 gl = dc.getGL2(); // GL initialization checks for GL2 compatibility.
             GLU glu = dc.getGLU();
@@ -349,6 +555,8 @@ public class TrackRenderer implements Disposable {
     }
 
     private static class Sphere extends Shape {
+        protected static final InstanceBuffer.Mesh MESH = InstanceBuffer.Mesh.createSphere(8, 4);
+
         protected void initialize(DrawContext dc) {
             super.initialize(dc);
 
@@ -367,6 +575,11 @@ public class TrackRenderer implements Disposable {
             this.isInitialized = true;
         }
 
+        @Override
+        protected InstanceBuffer.Mesh getUnitMesh() {
+            return MESH;
+        }
+
         protected void doRender(DrawContext dc, Vec4 point, double radius) {
             GL2 gl = dc.getGL2(); // GL initialization checks for GL2 compatibility.
             gl.glScaled(radius, radius, radius);
@@ -375,6 +588,8 @@ public class TrackRenderer implements Disposable {
     }
 
     private static class Cone extends Shape {
+        protected static final InstanceBuffer.Mesh MESH = InstanceBuffer.Mesh.createCone(8);
+
         protected void initialize(DrawContext dc) {
             super.initialize(dc);
 
@@ -395,6 +610,16 @@ public class TrackRenderer implements Disposable {
             this.isInitialized = true;
         }
 
+        @Override
+        protected Matrix computeOrientation(Vec4 point) {
+            return Shape.computePolarOrientation(point);
+        }
+
+        @Override
+        protected InstanceBuffer.Mesh getUnitMesh() {
+            return MESH;
+        }
+
         protected void doRender(DrawContext dc, Vec4 point, double size) {
             PolarPoint p = PolarPoint.fromCartesian(point);
 
@@ -408,6 +633,8 @@ public class TrackRenderer implements Disposable {
     }
 
     protected static class Cylinder extends Shape {
+        protected static final InstanceBuffer.Mesh MESH = InstanceBuffer.Mesh.createCylinder(8);
+
         protected void initialize(DrawContext dc) {
             super.initialize(dc);
 
@@ -430,6 +657,16 @@ public class TrackRenderer implements Disposable {
             this.isInitialized = true;
         }
 
+        @Override
+        protected Matrix computeOrientation(Vec4 point) {
+            return Shape.computePolarOrientation(point);
+        }
+
+        @Override
+        protected InstanceBuffer.Mesh getUnitMesh() {
+            return MESH;
+        }
+
         protected void doRender(DrawContext dc, Vec4 point, double size) {
             PolarPoint p = PolarPoint.fromCartesian(point);
 
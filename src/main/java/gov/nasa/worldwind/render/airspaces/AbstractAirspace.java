@@ -15,12 +15,17 @@ import gov.nasa.worldwind.globes.*;
 import gov.nasa.worldwind.layers.Layer;
 import gov.nasa.worldwind.pick.*;
 import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.terrain.*;
 import gov.nasa.worldwind.util.*;
 
 import java.awt.*;
+import java.lang.ref.SoftReference;
 import java.nio.Buffer;
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.logging.Level;
 
 /**
  * @author dcollins
@@ -29,6 +34,7 @@ import java.util.*;
 public abstract class AbstractAirspace extends WWObjectImpl
     implements Airspace, OrderedRenderable, PreRenderable, Movable, Movable2, Draggable {
     protected static final String ARC_SLICES = "ArcSlices";
+    protected static final String REFERENCE_CENTER = "ReferenceCenter";
     protected static final String DISABLE_TERRAIN_CONFORMANCE = "DisableTerrainConformance";
     protected static final String EXPIRY_TIME = "ExpiryTime";
     protected static final String GEOMETRY_CACHE_NAME = "Airspace Geometry";
@@ -63,6 +69,15 @@ public abstract class AbstractAirspace extends WWObjectImpl
      */
     protected static final AirspaceAttributes defaultAttributes;
     protected static final Random rand = new Random();
+    /**
+     * The cache keys of geometry currently being built on a worker thread. Used to avoid queuing the same geometry more
+     * than once while it's being built.
+     */
+    protected static final Set<Object> pendingGeometry = ConcurrentHashMap.newKeySet();
+    /**
+     * The time in milliseconds to wait before building geometry again after building it on a worker thread failed.
+     */
+    protected static final long GEOMETRY_RETRY_DELAY = 5000L;
     private static final long DEFAULT_GEOMETRY_CACHE_SIZE = 16777216L; // 16 megabytes
 
     static {
@@ -97,6 +112,7 @@ public abstract class AbstractAirspace extends WWObjectImpl
     // Rendering properties.
     protected boolean enableBatchRendering = true;
     protected boolean enableBatchPicking = true;
+    protected boolean enableAsyncGeometry = true;
     protected boolean enableDepthOffset;
     protected int outlinePickWidth = AbstractAirspace.DEFAULT_OUTLINE_PICK_WIDTH;
     // Implements the the interface used by the draw context's outlined-shape renderer.
@@ -139,6 +155,13 @@ public abstract class AbstractAirspace extends WWObjectImpl
     protected AirspaceInfo currentInfo;
     protected Layer pickLayer;
     protected GeometryBuilder geometryBuilder = new GeometryBuilder();
+    // The most recently drawn geometry for each tessellation, drawn while replacement geometry is built. Softly
+    // referenced so that geometry evicted from the geometry cache does not stay in memory indefinitely.
+    protected final Map<Object, SoftReference<Cacheable>> previousGeometry = new HashMap<>();
+    // The times at which geometry that failed to build on a worker thread may be requested again, by cache key.
+    protected final Map<Object, Long> failedGeometry = new ConcurrentHashMap<>();
+    // An OutOfMemoryError thrown while building geometry on a worker thread, rethrown on the rendering thread.
+    protected volatile OutOfMemoryError geometryError;
     // Geometry update support.
     protected long expiryTime = -1L;
     protected long minExpiryTime = 2000L;
@@ -156,7 +179,9 @@ public abstract class AbstractAirspace extends WWObjectImpl
         this.attributes = attributes;
 
         if (!WorldWind.getMemoryCacheSet().containsCache(AbstractAirspace.GEOMETRY_CACHE_KEY)) {
-            MemoryCache cache = new SoftMemoryCache();
+            long size = Configuration.getLongValue(Keys.AIRSPACE_GEOMETRY_CACHE_SIZE,
+                AbstractAirspace.DEFAULT_GEOMETRY_CACHE_SIZE);
+            MemoryCache cache = new SoftMemoryCache(size);
             cache.setName(AbstractAirspace.GEOMETRY_CACHE_NAME);
             WorldWind.getMemoryCacheSet().addCache(AbstractAirspace.GEOMETRY_CACHE_KEY, cache);
         }
@@ -178,6 +203,7 @@ public abstract class AbstractAirspace extends WWObjectImpl
         this.enableLevelOfDetail = source.enableLevelOfDetail;
         this.enableBatchPicking = source.enableBatchPicking;
         this.enableBatchRendering = source.enableBatchRendering;
+        this.enableAsyncGeometry = source.enableAsyncGeometry;
         this.enableDepthOffset = source.enableDepthOffset;
         this.outlinePickWidth = source.outlinePickWidth;
         this.delegateOwner = source.delegateOwner;
@@ -424,6 +450,28 @@ public abstract class AbstractAirspace extends WWObjectImpl
         this.enableBatchPicking = enableBatchPicking;
     }
 
+    /**
+     * Indicates whether this airspace builds its geometry on a worker thread. See {@link
+     * #setEnableAsyncGeometry(boolean)}.
+     *
+     * @return true if geometry is built on a worker thread, otherwise false.
+     */
+    public boolean isEnableAsyncGeometry() {
+        return this.enableAsyncGeometry;
+    }
+
+    /**
+     * Specifies whether this airspace builds its geometry on a worker thread rather than the rendering thread. When
+     * enabled, the airspace continues to draw its previous geometry until the new geometry is ready, and draws nothing
+     * until its first geometry is ready. Terrain conforming geometry depends on the terrain of the current frame and is
+     * always built on the rendering thread. Asynchronous geometry is enabled by default.
+     *
+     * @param enableAsyncGeometry true to build geometry on a worker thread, false to build it on the rendering thread.
+     */
+    public void setEnableAsyncGeometry(boolean enableAsyncGeometry) {
+        this.enableAsyncGeometry = enableAsyncGeometry;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -1088,6 +1136,32 @@ public abstract class AbstractAirspace extends WWObjectImpl
         this.doRenderGeometry(dc, Airspace.DRAW_STYLE_OUTLINE);
     }
 
+    /**
+     * Draws geometry whose vertices are relative to the specified reference center, which the caller has pushed onto
+     * the model-view stack. Vertex geometry returned by {@link #getVertexGeometry(DrawContext, Object, Object, boolean,
+     * Vec4, GeometryFactory)} may be previous geometry drawn while the current geometry is built, so it's drawn relative
+     * to the reference center it was built with when that differs from the current one.
+     *
+     * @param dc              the current draw context.
+     * @param indices         the index geometry.
+     * @param vertices        the vertex geometry.
+     * @param referenceCenter the current reference center.
+     */
+    protected void drawGeometry(DrawContext dc, Geometry indices, Geometry vertices, Vec4 referenceCenter) {
+        Object o = vertices.get(AbstractAirspace.REFERENCE_CENTER);
+        if (o instanceof Vec4 && !o.equals(referenceCenter)) {
+            try {
+                dc.view().pushReferenceCenter(dc, (Vec4) o);
+                this.drawGeometry(dc, indices, vertices);
+            }
+            finally {
+                dc.view().popReferenceCenter(dc);
+            }
+        } else {
+            this.drawGeometry(dc, indices, vertices);
+        }
+    }
+
     protected void drawGeometry(DrawContext dc, Geometry indices, Geometry vertices) {
         GL2 gl = dc.getGL2(); // GL initialization checks for GL2 compatibility.
         AirspaceAttributes attrs = this.getActiveAttributes();
@@ -1113,8 +1187,213 @@ public abstract class AbstractAirspace extends WWObjectImpl
         type = indices.getGLType(Geometry.ELEMENT);
         int minElementIndex = 0;
         int maxElementIndex = vertices.getCount(Geometry.VERTEX) - 1;
-        buffer = indices.getBuffer(Geometry.ELEMENT);
-        gl.glDrawRangeElements(mode, minElementIndex, maxElementIndex, count, type, buffer);
+        // Index geometry that depends only on the tessellation is shared by all airspaces with that tessellation.
+        // Keep one copy of it in a GPU buffer rather than sending it to the GPU on every draw.
+        int[] vboId = this.getElementBufferObject(dc, indices);
+        if (vboId != null) {
+            gl.glBindBuffer(GL.GL_ELEMENT_ARRAY_BUFFER, vboId[0]);
+            gl.glDrawRangeElements(mode, minElementIndex, maxElementIndex, count, type, 0L);
+            gl.glBindBuffer(GL.GL_ELEMENT_ARRAY_BUFFER, 0);
+        } else {
+            buffer = indices.getBuffer(Geometry.ELEMENT);
+            gl.glDrawRangeElements(mode, minElementIndex, maxElementIndex, count, type, buffer);
+        }
+    }
+
+    /**
+     * Returns the GPU buffer containing the specified geometry's shared element indices, creating it if necessary.
+     * Returns null if the geometry's indices are not shared, or if the GPU does not support buffer objects.
+     *
+     * @param dc      the current draw context.
+     * @param indices the index geometry.
+     * @return the buffer object ID, or null if the indices must be sent from client memory.
+     */
+    protected int[] getElementBufferObject(DrawContext dc, Geometry indices) {
+        Object bufferKey = indices.getElementBufferKey();
+        if (bufferKey == null || indices.getGLType(Geometry.ELEMENT) != GL.GL_UNSIGNED_INT
+            || !dc.getGLRuntimeCapabilities().isUseVertexBufferObject())
+            return null;
+
+        int[] vboId = (int[]) dc.gpuCache().get(bufferKey);
+        if (vboId == null) {
+            GL2 gl = dc.getGL2(); // GL initialization checks for GL2 compatibility.
+            Buffer buffer = indices.getBuffer(Geometry.ELEMENT);
+            long size = 4L * indices.getCount(Geometry.ELEMENT); // 4 bytes for each unsigned int index
+            vboId = new int[1];
+            gl.glGenBuffers(1, vboId, 0);
+            gl.glBindBuffer(GL.GL_ELEMENT_ARRAY_BUFFER, vboId[0]);
+            gl.glBufferData(GL.GL_ELEMENT_ARRAY_BUFFER, size, buffer.rewind(), GL.GL_STATIC_DRAW);
+            gl.glBindBuffer(GL.GL_ELEMENT_ARRAY_BUFFER, 0);
+            dc.gpuCache().put(bufferKey, vboId, GpuResourceCache.VBO_BUFFERS, size);
+        }
+
+        return vboId;
+    }
+
+    /**
+     * Returns the element indices for a tessellation, creating and caching them if necessary. Index geometry depends
+     * only on the tessellation parameters in its cache key, so it's shared by every airspace using that tessellation,
+     * and is uploaded to the GPU once.
+     *
+     * @param cacheKey the tessellation's cache key. Must not depend on the globe or on the airspace's location.
+     * @param factory  creates the index geometry.
+     * @return the index geometry.
+     */
+    protected Geometry getIndexGeometry(Object cacheKey, Function<GeometryBuilder, Geometry> factory) {
+        Geometry indexGeom = (Geometry) AbstractAirspace.getGeometryCache().getObject(cacheKey);
+        if (indexGeom == null) {
+            indexGeom = factory.apply(this.getGeometryBuilder());
+            indexGeom.setElementBufferKey(cacheKey);
+            AbstractAirspace.getGeometryCache().add(cacheKey, indexGeom);
+        }
+
+        return indexGeom;
+    }
+
+    /**
+     * Returns vertex geometry from the geometry cache, creating it if it's not in the cache or has expired. See {@link
+     * #getGeometry(DrawContext, Object, Object, boolean, Function, GeometryFactory)}. The returned geometry records the
+     * reference center it was built relative to, and is drawn relative to that reference center by {@link
+     * #drawGeometry(DrawContext, Geometry, Geometry, Vec4)}.
+     *
+     * @param dc                the current draw context.
+     * @param cacheKey          the geometry's cache key.
+     * @param tessellationKey   identifies the geometry's role and tessellation within this airspace.
+     * @param terrainConformant true if the geometry conforms to the terrain.
+     * @param referenceCenter   the reference center the vertices are relative to.
+     * @param factory           creates the geometry.
+     * @return the vertex geometry, or null if no geometry is available yet.
+     */
+    protected Geometry getVertexGeometry(DrawContext dc, Object cacheKey, Object tessellationKey,
+        boolean terrainConformant, Vec4 referenceCenter, GeometryFactory<Geometry> factory) {
+        return this.getGeometry(dc, cacheKey, tessellationKey, terrainConformant, geom -> geom,
+            (terrain, gb) -> {
+                Geometry geom = factory.createGeometry(terrain, gb);
+                geom.set(AbstractAirspace.REFERENCE_CENTER, referenceCenter);
+                return geom;
+            });
+    }
+
+    /**
+     * Returns geometry from the geometry cache, creating it if it's not in the cache or has expired.
+     * <p>
+     * If asynchronous geometry is enabled and the geometry does not conform to the terrain, the geometry is built on a
+     * worker thread and this returns the geometry most recently drawn for the same tessellation until the new geometry
+     * is ready. The airspace requests a repaint when the geometry is ready. The tessellation key identifies geometry
+     * that can stand in for another: geometry drawn with shared indices must include every parameter of the index
+     * geometry in its tessellation key. Otherwise the geometry is built on the rendering thread.
+     * <p>
+     * Geometry that fails to build on a worker thread is not requested again for {@link #GEOMETRY_RETRY_DELAY}
+     * milliseconds. If the worker thread ran out of memory, this rethrows its OutOfMemoryError on the rendering thread,
+     * so that callers handle it as they would when building the geometry on the rendering thread.
+     *
+     * @param dc                the current draw context.
+     * @param cacheKey          the geometry's cache key.
+     * @param tessellationKey   identifies the geometry's role and tessellation within this airspace.
+     * @param terrainConformant true if the geometry conforms to the terrain.
+     * @param expiryData        returns the attributes in which the geometry's expiry criteria is stored.
+     * @param factory           creates the geometry.
+     * @param <T>               the geometry type.
+     * @return the geometry, or null if no geometry is available yet.
+     */
+    @SuppressWarnings("unchecked")
+    protected <T extends Cacheable> T getGeometry(DrawContext dc, Object cacheKey, Object tessellationKey,
+        boolean terrainConformant, Function<T, KV> expiryData, GeometryFactory<T> factory) {
+        OutOfMemoryError error = this.geometryError;
+        if (error != null) {
+            this.geometryError = null;
+            throw error;
+        }
+
+        T geom = (T) AbstractAirspace.getGeometryCache().getObject(cacheKey);
+        if (geom != null && !AbstractAirspace.isExpired(dc, expiryData.apply(geom))) {
+            this.setPreviousGeometry(tessellationKey, geom);
+            return geom;
+        }
+
+        if (this.isEnableAsyncGeometry() && !terrainConformant
+            && this.requestGeometry(dc, cacheKey, expiryData, factory)) {
+            if (geom != null)
+                return geom;
+
+            SoftReference<Cacheable> previous = this.previousGeometry.get(tessellationKey);
+            return previous != null ? (T) previous.get() : null;
+        }
+
+        geom = factory.createGeometry(dc.getTerrain(), this.getGeometryBuilder());
+        this.updateExpiryCriteria(dc, expiryData.apply(geom));
+        AbstractAirspace.getGeometryCache().add(cacheKey, geom);
+        this.setPreviousGeometry(tessellationKey, geom);
+
+        return geom;
+    }
+
+    protected void setPreviousGeometry(Object tessellationKey, Cacheable geom) {
+        SoftReference<Cacheable> previous = this.previousGeometry.get(tessellationKey);
+        if (previous == null || previous.get() != geom)
+            this.previousGeometry.put(tessellationKey, new SoftReference<>(geom));
+    }
+
+    /**
+     * Queues a task to build geometry on a worker thread and add it to the geometry cache. The task builds the geometry
+     * with a terrain independent of the draw context and its own geometry builder, so the factory must not use either
+     * the draw context or this airspace's geometry builder.
+     *
+     * @param dc         the current draw context.
+     * @param cacheKey   the geometry's cache key.
+     * @param expiryData returns the attributes in which the geometry's expiry criteria is stored.
+     * @param factory    creates the geometry.
+     * @param <T>        the geometry type.
+     * @return true if the geometry is being built or recently failed to build, false if the task service is full.
+     */
+    protected <T extends Cacheable> boolean requestGeometry(DrawContext dc, Object cacheKey,
+        Function<T, KV> expiryData, GeometryFactory<T> factory) {
+        Long retryTime = this.failedGeometry.get(cacheKey);
+        if (retryTime != null) {
+            if (System.currentTimeMillis() < retryTime)
+                return true; // Building the geometry recently failed; keep drawing the previous geometry.
+            this.failedGeometry.remove(cacheKey);
+        }
+
+        if (!AbstractAirspace.pendingGeometry.add(cacheKey))
+            return true; // The geometry is already being built.
+
+        if (WorldWind.tasks().isFull()) {
+            AbstractAirspace.pendingGeometry.remove(cacheKey);
+            return false;
+        }
+
+        // Capture the frame state the geometry depends on. Geometry that doesn't conform to the terrain uses the
+        // terrain only for its globe.
+        Terrain terrain = new HighResTerrain(dc.getGlobe(), null, null, dc.getVerticalExaggeration());
+        long expiryTime = this.getExpiryTime();
+        Object globeStateKey = dc.getGlobe().getStateKey(dc);
+
+        WorldWind.tasks().addTask(() -> {
+            try {
+                T geom = factory.createGeometry(terrain, new GeometryBuilder());
+                KV kv = expiryData.apply(geom);
+                kv.set(AbstractAirspace.EXPIRY_TIME, (expiryTime >= 0L) ? expiryTime : null);
+                kv.set(AbstractAirspace.GLOBE_KEY, globeStateKey);
+                AbstractAirspace.getGeometryCache().add(cacheKey, geom);
+                this.emit(Keys.REPAINT, null, this);
+            }
+            catch (OutOfMemoryError e) {
+                this.failedGeometry.put(cacheKey, System.currentTimeMillis() + AbstractAirspace.GEOMETRY_RETRY_DELAY);
+                this.geometryError = e;
+                this.emit(Keys.REPAINT, null, this);
+            }
+            catch (Throwable e) {
+                String message = Logging.getMessage("generic.ExceptionWhileTessellating", this);
+                Logging.logger().log(Level.SEVERE, message, e);
+                this.failedGeometry.put(cacheKey, System.currentTimeMillis() + AbstractAirspace.GEOMETRY_RETRY_DELAY);
+            }
+            finally {
+                AbstractAirspace.pendingGeometry.remove(cacheKey);
+            }
+        });
+
+        return true;
     }
 
     protected GeometryBuilder getGeometryBuilder() {
@@ -1482,6 +1761,17 @@ public abstract class AbstractAirspace extends WWObjectImpl
             this.getHighlightAttributes().restoreState(rs, so);
     }
 
+    /**
+     * Creates airspace geometry. Factories passed to {@link #getGeometry(DrawContext, Object, Object, boolean, Function,
+     * GeometryFactory)} may run on a worker thread, and must build the geometry from the specified terrain and geometry
+     * builder, and from parameters captured on the rendering thread.
+     *
+     * @param <T> the geometry type.
+     */
+    protected interface GeometryFactory<T> {
+        T createGeometry(Terrain terrain, GeometryBuilder gb);
+    }
+
     protected static class AirspaceInfo {
         // The extent depends on the state of the globe used to compute it, and the vertical exaggeration.
         protected final Extent extent;
@@ -482,6 +482,9 @@ public class Box extends AbstractAirspace {
     private void drawBox(DrawContext dc, double[] altitudes, boolean[] terrainConformant, int lengthSegments,
         int widthSegments) {
         BoxGeometry geom = this.getBoxGeometry(dc, altitudes, terrainConformant, lengthSegments, widthSegments);
+        if (geom == null)
+            return;
+
         try {
             dc.view().pushReferenceCenter(dc, geom.referencePoint);
             this.drawGeometry(dc, geom.sideGeometry, geom.sideGeometry);
@@ -495,6 +498,9 @@ public class Box extends AbstractAirspace {
     private void drawBoxOutline(DrawContext dc, double[] altitudes, boolean[] terrainConformant, int lengthSegments,
         int widthSegments) {
         BoxGeometry geom = this.getBoxGeometry(dc, altitudes, terrainConformant, lengthSegments, widthSegments);
+        if (geom == null)
+            return;
+
         try {
             dc.view().pushReferenceCenter(dc, geom.referencePoint);
             this.drawGeometry(dc, geom.outlineIndices, geom.sideGeometry);
@@ -507,6 +513,9 @@ public class Box extends AbstractAirspace {
     private void drawBoxCenterLine(DrawContext dc, double[] altitudes, boolean[] terrainConformant, int lengthSegments,
         int widthSegments) {
         BoxGeometry geom = this.getBoxGeometry(dc, altitudes, terrainConformant, lengthSegments, widthSegments);
+        if (geom == null)
+            return;
+
         try {
             dc.view().pushReferenceCenter(dc, geom.referencePoint);
             dc.pushProjectionOffest(Box.DEFAULT_CENTER_LINE_OFFSET); // move center line depth slightly in front of fill
@@ -523,26 +532,21 @@ public class Box extends AbstractAirspace {
         int lengthSegments, int widthSegments) {
         Object cacheKey = new Geometry.CacheKey(dc.getGlobe(), this.getClass(), "Box.Geometry", this.geometryCacheKey,
             altitudes, terrainConformant, lengthSegments, widthSegments);
-        BoxGeometry geom = (BoxGeometry) AbstractAirspace.getGeometryCache().getObject(cacheKey);
-
-        if (geom != null && !AbstractAirspace.isExpired(dc, geom.sideGeometry))
-            return geom;
+        Vec4 referencePoint = this.computeReferenceCenter(dc);
 
-        if (geom == null)
-            geom = new BoxGeometry();
-
-        this.makeBoxGeometry(dc, altitudes, terrainConformant, lengthSegments, widthSegments, geom);
-        this.updateExpiryCriteria(dc, geom.sideGeometry);
-        AbstractAirspace.getGeometryCache().add(cacheKey, geom);
-
-        return geom;
+        // Box geometry contains its own indices and reference point, so any previous box geometry can stand in for it.
+        return this.getGeometry(dc, cacheKey, "Box.Geometry", terrainConformant[0] || terrainConformant[1],
+            geom -> geom.sideGeometry, (terrain, gb) -> this.makeBoxGeometry(terrain, referencePoint, altitudes,
+                terrainConformant, lengthSegments, widthSegments));
     }
 
-    private void makeBoxGeometry(DrawContext dc, double[] altitudes, boolean[] terrainConformant, int lengthSegments,
-        int widthSegments, BoxGeometry geom) {
-        geom.referencePoint = this.computeReferenceCenter(dc);
-        this.makeSideGeometry(dc.getTerrain(), altitudes, terrainConformant, lengthSegments, widthSegments, geom);
-        this.makeCapGeometry(dc.getTerrain(), altitudes, terrainConformant, lengthSegments, widthSegments, geom);
+    private BoxGeometry makeBoxGeometry(Terrain terrain, Vec4 referencePoint, double[] altitudes,
+        boolean[] terrainConformant, int lengthSegments, int widthSegments) {
+        BoxGeometry geom = new BoxGeometry();
+        geom.referencePoint = referencePoint;
+        this.makeSideGeometry(terrain, altitudes, terrainConformant, lengthSegments, widthSegments, geom);
+        this.makeCapGeometry(terrain, altitudes, terrainConformant, lengthSegments, widthSegments, geom);
+        return geom;
     }
 
     private void makeSideGeometry(Terrain terrain, double[] altitudes, boolean[] terrainConformant, int lengthSegments,
@@ -12,6 +12,7 @@ import gov.nasa.worldwind.geom.Cylinder;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.globes.Globe;
 import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.terrain.Terrain;
 import gov.nasa.worldwind.util.*;
 
 import java.util.*;
@@ -476,33 +477,29 @@ public class CappedCylinder extends AbstractAirspace {
         boolean[] terrainConformant, int slices, int stacks, int orientation, Vec4 referenceCenter) {
         Geometry vertexGeom = this.createCylinderVertexGeometry(dc, center, radius, altitudes, terrainConformant,
             slices, stacks, orientation, referenceCenter);
+        if (vertexGeom == null)
+            return;
 
         Object cacheKey = new Geometry.CacheKey(this.getClass(), "Cylinder.Indices", slices, stacks, orientation);
-        Geometry indexGeom = (Geometry) AbstractAirspace.getGeometryCache().getObject(cacheKey);
-        if (indexGeom == null) {
-            indexGeom = new Geometry();
-            this.makeCylinderIndices(slices, stacks, orientation, indexGeom);
-            AbstractAirspace.getGeometryCache().add(cacheKey, indexGeom);
-        }
+        Geometry indexGeom = this.getIndexGeometry(cacheKey,
+            gb -> this.makeCylinderIndices(gb, slices, stacks, orientation));
 
-        this.drawGeometry(dc, indexGeom, vertexGeom);
+        this.drawGeometry(dc, indexGeom, vertexGeom, referenceCenter);
     }
 
     private void drawCylinderOutline(DrawContext dc, LatLon center, double radius, double[] altitudes,
         boolean[] terrainConformant, int slices, int stacks, int orientation, Vec4 referenceCenter) {
         Geometry vertexGeom = this.createCylinderVertexGeometry(dc, center, radius, altitudes, terrainConformant,
             slices, stacks, orientation, referenceCenter);
+        if (vertexGeom == null)
+            return;
 
         Object cacheKey = new Geometry.CacheKey(this.getClass(), "Cylinder.OutlineIndices", slices, stacks,
             orientation);
-        Geometry outlineIndexGeom = (Geometry) AbstractAirspace.getGeometryCache().getObject(cacheKey);
-        if (outlineIndexGeom == null) {
-            outlineIndexGeom = new Geometry();
-            this.makeCylinderOutlineIndices(slices, stacks, orientation, outlineIndexGeom);
-            AbstractAirspace.getGeometryCache().add(cacheKey, outlineIndexGeom);
-        }
+        Geometry outlineIndexGeom = this.getIndexGeometry(cacheKey,
+            gb -> this.makeCylinderOutlineIndices(gb, slices, stacks, orientation));
 
-        this.drawGeometry(dc, outlineIndexGeom, vertexGeom);
+        this.drawGeometry(dc, outlineIndexGeom, vertexGeom, referenceCenter);
     }
 
     private Geometry createCylinderVertexGeometry(DrawContext dc, LatLon center, double radius, double[] altitudes,
@@ -510,38 +507,33 @@ public class CappedCylinder extends AbstractAirspace {
         Object cacheKey = new Geometry.CacheKey(dc.getGlobe(), this.getClass(), "Cylinder.Vertices", center, radius,
             altitudes[0], altitudes[1], terrainConformant[0], terrainConformant[1], slices, stacks, orientation,
             referenceCenter);
-        Geometry vertexGeom = (Geometry) AbstractAirspace.getGeometryCache().getObject(cacheKey);
-        if (vertexGeom == null || AbstractAirspace.isExpired(dc, vertexGeom)) {
-            if (vertexGeom == null)
-                vertexGeom = new Geometry();
-            this.makeCylinder(dc, center, radius, altitudes, terrainConformant, slices, stacks, orientation,
-                referenceCenter, vertexGeom);
-            this.updateExpiryCriteria(dc, vertexGeom);
-            AbstractAirspace.getGeometryCache().add(cacheKey, vertexGeom);
-        }
+        Object tessellationKey = new Geometry.CacheKey("Cylinder.Vertices", slices, stacks, orientation);
 
-        return vertexGeom;
+        return this.getVertexGeometry(dc, cacheKey, tessellationKey, terrainConformant[0] || terrainConformant[1],
+            referenceCenter, (terrain, gb) -> this.makeCylinder(terrain, gb, center, radius, altitudes,
+                terrainConformant, slices, stacks, orientation, referenceCenter));
     }
 
-    private void makeCylinder(DrawContext dc, LatLon center, double radius, double[] altitudes,
-        boolean[] terrainConformant, int slices, int stacks, int orientation, Vec4 referenceCenter, Geometry dest) {
-        GeometryBuilder gb = this.getGeometryBuilder();
+    private Geometry makeCylinder(Terrain terrain, GeometryBuilder gb, LatLon center, double radius,
+        double[] altitudes, boolean[] terrainConformant, int slices, int stacks, int orientation,
+        Vec4 referenceCenter) {
         gb.setOrientation(orientation);
 
         int count = GeometryBuilder.getCylinderVertexCount(slices, stacks);
         float[] verts = new float[3 * count];
         float[] norms = new float[3 * count];
-        GeometryBuilder.makeCylinderVertices(dc.getTerrain(), center, radius, altitudes, terrainConformant, slices,
+        GeometryBuilder.makeCylinderVertices(terrain, center, radius, altitudes, terrainConformant, slices,
             stacks,
             referenceCenter, verts);
         gb.makeCylinderNormals(slices, stacks, norms);
 
+        Geometry dest = new Geometry();
         dest.setVertexData(count, verts);
         dest.setNormalData(count, norms);
+        return dest;
     }
 
-    private void makeCylinderIndices(int slices, int stacks, int orientation, Geometry dest) {
-        GeometryBuilder gb = this.getGeometryBuilder();
+    private Geometry makeCylinderIndices(GeometryBuilder gb, int slices, int stacks, int orientation) {
         gb.setOrientation(orientation);
 
         int mode = GeometryBuilder.getCylinderDrawMode();
@@ -549,11 +541,12 @@ public class CappedCylinder extends AbstractAirspace {
         int[] indices = new int[count];
         gb.makeCylinderIndices(slices, stacks, indices);
 
+        Geometry dest = new Geometry();
         dest.setElementData(mode, count, indices);
+        return dest;
     }
 
-    private void makeCylinderOutlineIndices(int slices, int stacks, int orientation, Geometry dest) {
-        GeometryBuilder gb = this.getGeometryBuilder();
+    private Geometry makeCylinderOutlineIndices(GeometryBuilder gb, int slices, int stacks, int orientation) {
         gb.setOrientation(orientation);
 
         int mode = GeometryBuilder.getCylinderOutlineDrawMode();
@@ -561,7 +554,9 @@ public class CappedCylinder extends AbstractAirspace {
         int[] indices = new int[count];
         GeometryBuilder.makeCylinderOutlineIndices(slices, stacks, indices);
 
+        Geometry dest = new Geometry();
         dest.setElementData(mode, count, indices);
+        return dest;
     }
 
     //**************************************************************//
@@ -573,46 +568,39 @@ public class CappedCylinder extends AbstractAirspace {
         Object cacheKey = new Geometry.CacheKey(dc.getGlobe(), this.getClass(), "Disk.Vertices",
             center, radii[0], radii[1], altitude, terrainConformant,
             slices, loops, orientation, referenceCenter);
-        Geometry vertexGeom = (Geometry) AbstractAirspace.getGeometryCache().getObject(cacheKey);
-        if (vertexGeom == null || AbstractAirspace.isExpired(dc, vertexGeom)) {
-            if (vertexGeom == null)
-                vertexGeom = new Geometry();
-            this.makeDisk(dc, center, radii, altitude, terrainConformant,
-                slices, loops, orientation, referenceCenter, vertexGeom);
-            this.updateExpiryCriteria(dc, vertexGeom);
-            AbstractAirspace.getGeometryCache().add(cacheKey, vertexGeom);
-        }
+        Object tessellationKey = new Geometry.CacheKey("Disk.Vertices", slices, loops, orientation);
+        Geometry vertexGeom = this.getVertexGeometry(dc, cacheKey, tessellationKey, terrainConformant,
+            referenceCenter, (terrain, gb) -> this.makeDisk(terrain, gb, center, radii, altitude, terrainConformant,
+                slices, loops, orientation, referenceCenter));
+        if (vertexGeom == null)
+            return;
 
         cacheKey = new Geometry.CacheKey(this.getClass(), "Disk.Indices", slices, loops, orientation);
-        Geometry indexGeom = (Geometry) AbstractAirspace.getGeometryCache().getObject(cacheKey);
-        if (indexGeom == null) {
-            indexGeom = new Geometry();
-            this.makeDiskIndices(slices, loops, orientation, indexGeom);
-            AbstractAirspace.getGeometryCache().add(cacheKey, indexGeom);
-        }
+        Geometry indexGeom = this.getIndexGeometry(cacheKey, gb -> this.makeDiskIndices(gb, slices, loops,
+            orientation));
 
-        this.drawGeometry(dc, indexGeom, vertexGeom);
+        this.drawGeometry(dc, indexGeom, vertexGeom, referenceCenter);
     }
 
-    private void makeDisk(DrawContext dc, LatLon center, double[] radii, double altitude, boolean terrainConformant,
-        int slices, int loops, int orientation, Vec4 referenceCenter, Geometry dest) {
-        GeometryBuilder gb = this.getGeometryBuilder();
+    private Geometry makeDisk(Terrain terrain, GeometryBuilder gb, LatLon center, double[] radii, double altitude,
+        boolean terrainConformant, int slices, int loops, int orientation, Vec4 referenceCenter) {
         gb.setOrientation(orientation);
 
         int count = GeometryBuilder.getDiskVertexCount(slices, loops);
         float[] verts = new float[3 * count];
         float[] norms = new float[3 * count];
-        GeometryBuilder.makeDiskVertices(dc.getTerrain(), center, radii[0], radii[1], altitude, terrainConformant,
+        GeometryBuilder.makeDiskVertices(terrain, center, radii[0], radii[1], altitude, terrainConformant,
             slices, loops,
             referenceCenter, verts);
         gb.makeDiskVertexNormals((float) radii[0], (float) radii[1], slices, loops, verts, norms);
 
+        Geometry dest = new Geometry();
         dest.setVertexData(count, verts);
         dest.setNormalData(count, norms);
+        return dest;
     }
 
-    private void makeDiskIndices(int slices, int loops, int orientation, Geometry dest) {
-        GeometryBuilder gb = this.getGeometryBuilder();
+    private Geometry makeDiskIndices(GeometryBuilder gb, int slices, int loops, int orientation) {
         gb.setOrientation(orientation);
 
         int mode = GeometryBuilder.getCylinderDrawMode();
@@ -620,7 +608,9 @@ public class CappedCylinder extends AbstractAirspace {
         int[] indices = new int[count];
         gb.makeDiskIndices(slices, loops, indices);
 
+        Geometry dest = new Geometry();
         dest.setElementData(mode, count, indices);
+        return dest;
     }
 
     //**************************************************************//
@@ -29,6 +29,7 @@ public class Geometry extends KVMap implements Cacheable {
     private final int[] glType;
     private final int[] stride;
     private final Buffer[] buffer;
+    private Object elementBufferKey;
 
     public Geometry() {
         this.mode = new int[4];
@@ -190,6 +191,28 @@ public class Geometry extends KVMap implements Cacheable {
         this.count[Geometry.NORMAL] = count;
     }
 
+    /**
+     * Indicates the key identifying this geometry's element indices in the GPU resource cache. See {@link
+     * #setElementBufferKey(Object)}.
+     *
+     * @return the element buffer key, or null if the element indices are not shared.
+     */
+    public Object getElementBufferKey() {
+        return this.elementBufferKey;
+    }
+
+    /**
+     * Specifies the key identifying this geometry's element indices in the GPU resource cache. Index geometry that
+     * depends only on its tessellation is shared by many airspaces. Giving it a key causes its indices to be stored
+     * once in a GPU buffer. The key must identify the index values uniquely, and the indices must not change after the
+     * key is set.
+     *
+     * @param elementBufferKey the element buffer key. May be null to indicate that the indices are not shared.
+     */
+    public void setElementBufferKey(Object elementBufferKey) {
+        this.elementBufferKey = elementBufferKey;
+    }
+
     public void clear(int type) {
         this.mode[type] = 0;
         this.count[type] = 0;
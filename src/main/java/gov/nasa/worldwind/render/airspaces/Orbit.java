@@ -11,6 +11,7 @@ import gov.nasa.worldwind.geom.Box;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.globes.Globe;
 import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.terrain.Terrain;
 import gov.nasa.worldwind.util.*;
 
 import java.util.*;
@@ -501,17 +502,15 @@ public class Orbit extends AbstractAirspace {
         Vec4 referenceCenter) {
         Geometry vertexGeom = this.createLongCylinderVertexGeometry(dc, center1, center2, radius, altitudes,
             terrainConformant, arcSlices, lengthSlices, stacks, orientation, referenceCenter);
+        if (vertexGeom == null)
+            return;
 
         Object cacheKey = new Geometry.CacheKey(this.getClass(), "LongCylinder.Indices", arcSlices, lengthSlices,
             stacks, orientation);
-        Geometry indexGeom = (Geometry) AbstractAirspace.getGeometryCache().getObject(cacheKey);
-        if (indexGeom == null) {
-            indexGeom = new Geometry();
-            this.makeLongCylinderIndices(arcSlices, lengthSlices, stacks, orientation, indexGeom);
-            AbstractAirspace.getGeometryCache().add(cacheKey, indexGeom);
-        }
+        Geometry indexGeom = this.getIndexGeometry(cacheKey,
+            gb -> this.makeLongCylinderIndices(gb, arcSlices, lengthSlices, stacks, orientation));
 
-        this.drawGeometry(dc, indexGeom, vertexGeom);
+        this.drawGeometry(dc, indexGeom, vertexGeom, referenceCenter);
     }
 
     //**************************************************************//
@@ -523,17 +522,15 @@ public class Orbit extends AbstractAirspace {
         Vec4 referenceCenter) {
         Geometry vertexGeom = this.createLongCylinderVertexGeometry(dc, center1, center2, radius, altitudes,
             terrainConformant, arcSlices, lengthSlices, stacks, orientation, referenceCenter);
+        if (vertexGeom == null)
+            return;
 
         Object cacheKey = new Geometry.CacheKey(this.getClass(), "LongCylinder.OutlineIndices", arcSlices, lengthSlices,
             stacks, orientation);
-        Geometry outlineIndexGeom = (Geometry) AbstractAirspace.getGeometryCache().getObject(cacheKey);
-        if (outlineIndexGeom == null) {
-            outlineIndexGeom = new Geometry();
-            this.makeLongCylinderOutlineIndices(arcSlices, lengthSlices, stacks, orientation, outlineIndexGeom);
-            AbstractAirspace.getGeometryCache().add(cacheKey, outlineIndexGeom);
-        }
+        Geometry outlineIndexGeom = this.getIndexGeometry(cacheKey,
+            gb -> this.makeLongCylinderOutlineIndices(gb, arcSlices, lengthSlices, stacks, orientation));
 
-        this.drawGeometry(dc, outlineIndexGeom, vertexGeom);
+        this.drawGeometry(dc, outlineIndexGeom, vertexGeom, referenceCenter);
     }
 
     private Geometry createLongCylinderVertexGeometry(DrawContext dc, LatLon center1, LatLon center2, double radius,
@@ -542,39 +539,35 @@ public class Orbit extends AbstractAirspace {
         Object cacheKey = new Geometry.CacheKey(dc.getGlobe(), this.getClass(), "LongCylinder.Vertices",
             center1, center2, radius, altitudes[0], altitudes[1], terrainConformant[0], terrainConformant[1], arcSlices,
             lengthSlices, stacks, orientation, referenceCenter);
-        Geometry vertexGeom = (Geometry) AbstractAirspace.getGeometryCache().getObject(cacheKey);
-        if (vertexGeom == null || AbstractAirspace.isExpired(dc, vertexGeom)) {
-            if (vertexGeom == null)
-                vertexGeom = new Geometry();
-            this.makeLongCylinder(dc, center1, center2, radius, altitudes, terrainConformant, arcSlices, lengthSlices,
-                stacks, orientation, referenceCenter, vertexGeom);
-            this.updateExpiryCriteria(dc, vertexGeom);
-            AbstractAirspace.getGeometryCache().add(cacheKey, vertexGeom);
-        }
+        Object tessellationKey = new Geometry.CacheKey("LongCylinder.Vertices", arcSlices, lengthSlices, stacks,
+            orientation);
 
-        return vertexGeom;
+        return this.getVertexGeometry(dc, cacheKey, tessellationKey, terrainConformant[0] || terrainConformant[1],
+            referenceCenter, (terrain, gb) -> this.makeLongCylinder(terrain, gb, center1, center2, radius, altitudes,
+                terrainConformant, arcSlices, lengthSlices, stacks, orientation, referenceCenter));
     }
 
-    private void makeLongCylinder(DrawContext dc, LatLon center1, LatLon center2, double radius, double[] altitudes,
-        boolean[] terrainConformant, int arcSlices, int lengthSlices, int stacks, int orientation, Vec4 referenceCenter,
-        Geometry dest) {
-        GeometryBuilder gb = this.getGeometryBuilder();
+    private Geometry makeLongCylinder(Terrain terrain, GeometryBuilder gb, LatLon center1, LatLon center2,
+        double radius, double[] altitudes, boolean[] terrainConformant, int arcSlices, int lengthSlices, int stacks,
+        int orientation, Vec4 referenceCenter) {
         gb.setOrientation(orientation);
 
         int count = GeometryBuilder.getLongCylinderVertexCount(arcSlices, lengthSlices, stacks);
         float[] verts = new float[3 * count];
         float[] norms = new float[3 * count];
-        GeometryBuilder.makeLongCylinderVertices(dc.getTerrain(), center1, center2, radius, altitudes,
+        GeometryBuilder.makeLongCylinderVertices(terrain, center1, center2, radius, altitudes,
             terrainConformant, arcSlices,
             lengthSlices, stacks, referenceCenter, verts);
         gb.makeLongCylinderNormals(arcSlices, lengthSlices, stacks, norms);
 
+        Geometry dest = new Geometry();
         dest.setVertexData(count, verts);
         dest.setNormalData(count, norms);
+        return dest;
     }
 
-    private void makeLongCylinderIndices(int arcSlices, int lengthSlices, int stacks, int orientation, Geometry dest) {
-        GeometryBuilder gb = this.getGeometryBuilder();
+    private Geometry makeLongCylinderIndices(GeometryBuilder gb, int arcSlices, int lengthSlices, int stacks,
+        int orientation) {
         gb.setOrientation(orientation);
 
         int mode = GeometryBuilder.getLongCylinderDrawMode();
@@ -582,12 +575,13 @@ public class Orbit extends AbstractAirspace {
         int[] indices = new int[count];
         gb.makeLongCylinderIndices(arcSlices, lengthSlices, stacks, indices);
 
+        Geometry dest = new Geometry();
         dest.setElementData(mode, count, indices);
+        return dest;
     }
 
-    private void makeLongCylinderOutlineIndices(int arcSlices, int lengthSlices, int stacks, int orientation,
-        Geometry dest) {
-        GeometryBuilder gb = this.getGeometryBuilder();
+    private Geometry makeLongCylinderOutlineIndices(GeometryBuilder gb, int arcSlices, int lengthSlices, int stacks,
+        int orientation) {
         gb.setOrientation(orientation);
 
         int mode = GeometryBuilder.getLongCylinderOutlineDrawMode();
@@ -595,7 +589,9 @@ public class Orbit extends AbstractAirspace {
         int[] indices = new int[count];
         GeometryBuilder.makeLongCylinderOutlineIndices(arcSlices, lengthSlices, stacks, indices);
 
+        Geometry dest = new Geometry();
         dest.setElementData(mode, count, indices);
+        return dest;
     }
 
     private void drawLongDisk(DrawContext dc, LatLon center1, LatLon center2, double[] radii, double altitude,
@@ -603,53 +599,48 @@ public class Orbit extends AbstractAirspace {
         Object cacheKey = new Geometry.CacheKey(dc.getGlobe(), this.getClass(), "LongDisk.Vertices", center1, center2,
             radii[0], radii[1], altitude, terrainConformant, arcSlices, lengthSlices, loops, orientation,
             referenceCenter);
-        Geometry vertexGeom = (Geometry) AbstractAirspace.getGeometryCache().getObject(cacheKey);
-        if (vertexGeom == null || AbstractAirspace.isExpired(dc, vertexGeom)) {
-            if (vertexGeom == null)
-                vertexGeom = new Geometry();
-            this.makeLongDisk(dc, center1, center2, radii, altitude, terrainConformant, arcSlices, lengthSlices, loops,
-                orientation, referenceCenter, vertexGeom);
-            this.updateExpiryCriteria(dc, vertexGeom);
-            AbstractAirspace.getGeometryCache().add(cacheKey, vertexGeom);
-        }
+        Object tessellationKey = new Geometry.CacheKey("LongDisk.Vertices", arcSlices, lengthSlices, loops,
+            orientation);
+        Geometry vertexGeom = this.getVertexGeometry(dc, cacheKey, tessellationKey, terrainConformant,
+            referenceCenter, (terrain, gb) -> this.makeLongDisk(terrain, gb, center1, center2, radii, altitude,
+                terrainConformant, arcSlices, lengthSlices, loops, orientation, referenceCenter));
+        if (vertexGeom == null)
+            return;
 
         cacheKey = new Geometry.CacheKey(this.getClass(), "LongDisk.Indices", arcSlices, lengthSlices, loops,
             orientation);
-        Geometry indexGeom = (Geometry) AbstractAirspace.getGeometryCache().getObject(cacheKey);
-        if (indexGeom == null) {
-            indexGeom = new Geometry();
-            this.makeLongDiskIndices(arcSlices, lengthSlices, loops, orientation, indexGeom);
-            AbstractAirspace.getGeometryCache().add(cacheKey, indexGeom);
-        }
+        Geometry indexGeom = this.getIndexGeometry(cacheKey,
+            gb -> this.makeLongDiskIndices(gb, arcSlices, lengthSlices, loops, orientation));
 
-        this.drawGeometry(dc, indexGeom, vertexGeom);
+        this.drawGeometry(dc, indexGeom, vertexGeom, referenceCenter);
     }
 
     //**************************************************************//
     //********************  Long Disk           ********************//
     //**************************************************************//
 
-    private void makeLongDisk(DrawContext dc, LatLon center1, LatLon center2, double[] radii, double altitude,
-        boolean terrainConformant, int arcSlices, int lengthSlices, int loops, int orientation, Vec4 referenceCenter,
-        Geometry dest) {
-        GeometryBuilder gb = this.getGeometryBuilder();
+    private Geometry makeLongDisk(Terrain terrain, GeometryBuilder gb, LatLon center1, LatLon center2,
+        double[] radii, double altitude, boolean terrainConformant, int arcSlices, int lengthSlices, int loops,
+        int orientation, Vec4 referenceCenter) {
         gb.setOrientation(orientation);
 
         int count = GeometryBuilder.getLongDiskVertexCount(arcSlices, lengthSlices, loops);
         float[] verts = new float[3 * count];
         float[] norms = new float[3 * count];
-        GeometryBuilder.makeLongDiskVertices(dc.getTerrain(), center1, center2, radii[0], radii[1], altitude,
+        GeometryBuilder.makeLongDiskVertices(terrain, center1, center2, radii[0], radii[1], altitude,
             terrainConformant,
             arcSlices, lengthSlices, loops, referenceCenter, verts);
         gb.makeLongDiskVertexNormals((float) radii[0], (float) radii[1], 0, arcSlices, lengthSlices, loops, verts,
             norms);
 
+        Geometry dest = new Geometry();
         dest.setVertexData(count, verts);
         dest.setNormalData(count, norms);
+        return dest;
     }
 
-    private void makeLongDiskIndices(int arcSlices, int lengthSlices, int loops, int orientation, Geometry dest) {
-        GeometryBuilder gb = this.getGeometryBuilder();
+    private Geometry makeLongDiskIndices(GeometryBuilder gb, int arcSlices, int lengthSlices, int loops,
+        int orientation) {
         gb.setOrientation(orientation);
 
         int mode = GeometryBuilder.getLongDiskDrawMode();
@@ -657,7 +648,9 @@ public class Orbit extends AbstractAirspace {
         int[] indices = new int[count];
         gb.makeLongDiskIndices(arcSlices, lengthSlices, loops, indices);
 
+        Geometry dest = new Geometry();
         dest.setElementData(mode, count, indices);
+        return dest;
     }
 
     @Override
@@ -11,6 +11,7 @@ import gov.nasa.worldwind.geom.Box;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.globes.Globe;
 import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.terrain.Terrain;
 import gov.nasa.worldwind.util.*;
 
 import java.util.*;
@@ -313,17 +314,15 @@ public class PartialCappedCylinder extends CappedCylinder {
         Vec4 referenceCenter) {
         Geometry vertexGeom = this.createPartialCylinderVertexGeometry(dc, center, radius, altitudes, terrainConformant,
             slices, stacks, orientation, start, sweep, referenceCenter);
+        if (vertexGeom == null)
+            return;
 
         Object cacheKey = new Geometry.CacheKey(this.getClass(), "PartialCylinder.Indices", slices, stacks,
             orientation);
-        Geometry indexGeom = (Geometry) AbstractAirspace.getGeometryCache().getObject(cacheKey);
-        if (indexGeom == null) {
-            indexGeom = new Geometry();
-            this.makePartialCylinderIndices(slices, stacks, orientation, indexGeom);
-            AbstractAirspace.getGeometryCache().add(cacheKey, indexGeom);
-        }
+        Geometry indexGeom = this.getIndexGeometry(cacheKey,
+            gb -> this.makePartialCylinderIndices(gb, slices, stacks, orientation));
 
-        this.drawGeometry(dc, indexGeom, vertexGeom);
+        this.drawGeometry(dc, indexGeom, vertexGeom, referenceCenter);
     }
 
     private void drawPartialCylinderOutline(DrawContext dc, LatLon center, double radius, double[] altitudes,
@@ -331,17 +330,15 @@ public class PartialCappedCylinder extends CappedCylinder {
         Vec4 referenceCenter) {
         Geometry vertexGeom = this.createPartialCylinderVertexGeometry(dc, center, radius, altitudes, terrainConformant,
             slices, stacks, orientation, start, sweep, referenceCenter);
+        if (vertexGeom == null)
+            return;
 
         Object cacheKey = new Geometry.CacheKey(this.getClass(), "PartialCylinder.OutlineIndices", slices, stacks,
             orientation);
-        Geometry outlineIndexGeom = (Geometry) AbstractAirspace.getGeometryCache().getObject(cacheKey);
-        if (outlineIndexGeom == null) {
-            outlineIndexGeom = new Geometry();
-            this.makePartialCylinderOutlineIndices(slices, stacks, orientation, outlineIndexGeom);
-            AbstractAirspace.getGeometryCache().add(cacheKey, outlineIndexGeom);
-        }
+        Geometry outlineIndexGeom = this.getIndexGeometry(cacheKey,
+            gb -> this.makePartialCylinderOutlineIndices(gb, slices, stacks, orientation));
 
-        this.drawGeometry(dc, outlineIndexGeom, vertexGeom);
+        this.drawGeometry(dc, outlineIndexGeom, vertexGeom, referenceCenter);
     }
 
     private Geometry createPartialCylinderVertexGeometry(DrawContext dc, LatLon center, double radius,
@@ -350,40 +347,34 @@ public class PartialCappedCylinder extends CappedCylinder {
         Object cacheKey = new Geometry.CacheKey(dc.getGlobe(), this.getClass(), "PartialCylinder.Vertices", center,
             radius, altitudes[0], altitudes[1], terrainConformant[0], terrainConformant[1], slices, stacks, orientation,
             start, sweep, referenceCenter);
-        Geometry vertexGeom = (Geometry) AbstractAirspace.getGeometryCache().getObject(cacheKey);
-        if (vertexGeom == null || AbstractAirspace.isExpired(dc, vertexGeom)) {
-            if (vertexGeom == null)
-                vertexGeom = new Geometry();
-            this.makePartialCylinder(dc, center, radius, altitudes, terrainConformant, slices, stacks, orientation,
-                start, sweep, referenceCenter, vertexGeom);
-            this.updateExpiryCriteria(dc, vertexGeom);
-            AbstractAirspace.getGeometryCache().add(cacheKey, vertexGeom);
-        }
+        Object tessellationKey = new Geometry.CacheKey("PartialCylinder.Vertices", slices, stacks, orientation);
 
-        return vertexGeom;
+        return this.getVertexGeometry(dc, cacheKey, tessellationKey, terrainConformant[0] || terrainConformant[1],
+            referenceCenter, (terrain, gb) -> this.makePartialCylinder(terrain, gb, center, radius, altitudes,
+                terrainConformant, slices, stacks, orientation, start, sweep, referenceCenter));
     }
 
-    private void makePartialCylinder(DrawContext dc, LatLon center, double radius, double[] altitudes,
-        boolean[] terrainConformant, int slices, int stacks, int orientation, double start, double sweep,
-        Vec4 referenceCenter, Geometry dest) {
-        GeometryBuilder gb = this.getGeometryBuilder();
+    private Geometry makePartialCylinder(Terrain terrain, GeometryBuilder gb, LatLon center, double radius,
+        double[] altitudes, boolean[] terrainConformant, int slices, int stacks, int orientation, double start,
+        double sweep, Vec4 referenceCenter) {
         gb.setOrientation(orientation);
         float height = (float) (altitudes[1] - altitudes[0]);
 
         int count = GeometryBuilder.getPartialCylinderVertexCount(slices, stacks);
         float[] verts = new float[3 * count];
         float[] norms = new float[3 * count];
-        GeometryBuilder.makePartialCylinderVertices(dc.getTerrain(), center, radius, altitudes, terrainConformant,
+        GeometryBuilder.makePartialCylinderVertices(terrain, center, radius, altitudes, terrainConformant,
             slices, stacks,
             start, sweep, referenceCenter, verts);
         gb.makePartialCylinderNormals((float) radius, height, slices, stacks, (float) start, (float) sweep, norms);
 
+        Geometry dest = new Geometry();
         dest.setVertexData(count, verts);
         dest.setNormalData(count, norms);
+        return dest;
     }
 
-    private void makePartialCylinderIndices(int slices, int stacks, int orientation, Geometry dest) {
-        GeometryBuilder gb = this.getGeometryBuilder();
+    private Geometry makePartialCylinderIndices(GeometryBuilder gb, int slices, int stacks, int orientation) {
         gb.setOrientation(orientation);
 
         int mode = GeometryBuilder.getPartialCylinderDrawMode();
@@ -391,11 +382,12 @@ public class PartialCappedCylinder extends CappedCylinder {
         int[] indices = new int[count];
         gb.makePartialCylinderIndices(slices, stacks, indices);
 
+        Geometry dest = new Geometry();
         dest.setElementData(mode, count, indices);
+        return dest;
     }
 
-    private void makePartialCylinderOutlineIndices(int slices, int stacks, int orientation, Geometry dest) {
-        GeometryBuilder gb = this.getGeometryBuilder();
+    private Geometry makePartialCylinderOutlineIndices(GeometryBuilder gb, int slices, int stacks, int orientation) {
         gb.setOrientation(orientation);
 
         int mode = GeometryBuilder.getPartialCylinderOutlineDrawMode();
@@ -403,7 +395,9 @@ public class PartialCappedCylinder extends CappedCylinder {
         int[] indices = new int[count];
         GeometryBuilder.makePartialCylinderOutlineIndices(slices, stacks, indices);
 
+        Geometry dest = new Geometry();
         dest.setElementData(mode, count, indices);
+        return dest;
     }
 
     //**************************************************************//
@@ -415,48 +409,41 @@ public class PartialCappedCylinder extends CappedCylinder {
         Vec4 referenceCenter) {
         Object cacheKey = new Geometry.CacheKey(dc.getGlobe(), this.getClass(), "PartialDisk.Vertices", center,
             radii[0], radii[1], altitude, terrainConformant, slices, loops, orientation, start, sweep, referenceCenter);
-        Geometry vertexGeom = (Geometry) AbstractAirspace.getGeometryCache().getObject(cacheKey);
-        if (vertexGeom == null || AbstractAirspace.isExpired(dc, vertexGeom)) {
-            if (vertexGeom == null)
-                vertexGeom = new Geometry();
-            this.makePartialDisk(dc, center, radii, altitude, terrainConformant, slices, loops, orientation, start,
-                sweep, referenceCenter, vertexGeom);
-            this.updateExpiryCriteria(dc, vertexGeom);
-            AbstractAirspace.getGeometryCache().add(cacheKey, vertexGeom);
-        }
+        Object tessellationKey = new Geometry.CacheKey("PartialDisk.Vertices", slices, loops, orientation);
+        Geometry vertexGeom = this.getVertexGeometry(dc, cacheKey, tessellationKey, terrainConformant,
+            referenceCenter, (terrain, gb) -> this.makePartialDisk(terrain, gb, center, radii, altitude,
+                terrainConformant, slices, loops, orientation, start, sweep, referenceCenter));
+        if (vertexGeom == null)
+            return;
 
         cacheKey = new Geometry.CacheKey(this.getClass(), "PartialDisk.Indices", slices, loops, orientation);
-        Geometry indexGeom = (Geometry) AbstractAirspace.getGeometryCache().getObject(cacheKey);
-        if (indexGeom == null) {
-            indexGeom = new Geometry();
-            this.makePartialDiskIndices(slices, loops, orientation, indexGeom);
-            AbstractAirspace.getGeometryCache().add(cacheKey, indexGeom);
-        }
+        Geometry indexGeom = this.getIndexGeometry(cacheKey,
+            gb -> this.makePartialDiskIndices(gb, slices, loops, orientation));
 
-        this.drawGeometry(dc, indexGeom, vertexGeom);
+        this.drawGeometry(dc, indexGeom, vertexGeom, referenceCenter);
     }
 
-    private void makePartialDisk(DrawContext dc, LatLon center, double[] radii, double altitude,
-        boolean terrainConformant, int slices, int loops, int orientation, double start, double sweep,
-        Vec4 referenceCenter, Geometry dest) {
-        GeometryBuilder gb = this.getGeometryBuilder();
+    private Geometry makePartialDisk(Terrain terrain, GeometryBuilder gb, LatLon center, double[] radii,
+        double altitude, boolean terrainConformant, int slices, int loops, int orientation, double start,
+        double sweep, Vec4 referenceCenter) {
         gb.setOrientation(orientation);
 
         int count = GeometryBuilder.getPartialDiskIndexCount(slices, loops);
         float[] verts = new float[3 * count];
         float[] norms = new float[3 * count];
-        GeometryBuilder.makePartialDiskVertices(dc.getTerrain(), center, radii[0], radii[1], altitude,
+        GeometryBuilder.makePartialDiskVertices(terrain, center, radii[0], radii[1], altitude,
             terrainConformant, slices,
             loops, start, sweep, referenceCenter, verts);
         gb.makePartialDiskVertexNormals((float) radii[0], (float) radii[1], slices, loops, (float) start, (float) sweep,
             verts, norms);
 
+        Geometry dest = new Geometry();
         dest.setVertexData(count, verts);
         dest.setNormalData(count, norms);
+        return dest;
     }
 
-    private void makePartialDiskIndices(int slices, int loops, int orientation, Geometry dest) {
-        GeometryBuilder gb = this.getGeometryBuilder();
+    private Geometry makePartialDiskIndices(GeometryBuilder gb, int slices, int loops, int orientation) {
         gb.setOrientation(orientation);
 
         int mode = GeometryBuilder.getPartialDiskDrawMode();
@@ -464,7 +451,9 @@ public class PartialCappedCylinder extends CappedCylinder {
         int[] indices = new int[count];
         gb.makePartialDiskIndices(slices, loops, indices);
 
+        Geometry dest = new Geometry();
         dest.setElementData(mode, count, indices);
+        return dest;
     }
 
     //**************************************************************//
@@ -475,33 +464,29 @@ public class PartialCappedCylinder extends CappedCylinder {
         boolean[] terrainConformant, int pillars, int stacks, int orientation, Vec4 referenceCenter) {
         Geometry vertexGeom = this.createRadialWallVertexGeometry(dc, center, radii, angle, altitudes,
             terrainConformant, pillars, stacks, orientation, referenceCenter);
+        if (vertexGeom == null)
+            return;
 
         Object cacheKey = new Geometry.CacheKey(this.getClass(), "RadialWall.Indices", pillars, stacks, orientation);
-        Geometry indexGeom = (Geometry) AbstractAirspace.getGeometryCache().getObject(cacheKey);
-        if (indexGeom == null) {
-            indexGeom = new Geometry();
-            this.makeRadialWallIndices(pillars, stacks, orientation, indexGeom);
-            AbstractAirspace.getGeometryCache().add(cacheKey, indexGeom);
-        }
+        Geometry indexGeom = this.getIndexGeometry(cacheKey,
+            gb -> this.makeRadialWallIndices(gb, pillars, stacks, orientation));
 
-        this.drawGeometry(dc, indexGeom, vertexGeom);
+        this.drawGeometry(dc, indexGeom, vertexGeom, referenceCenter);
     }
 
     private void drawRadialWallOutline(DrawContext dc, LatLon center, double[] radii, double angle, double[] altitudes,
         boolean[] terrainConformant, int pillars, int stacks, int orientation, Vec4 referenceCenter) {
         Geometry vertexGeom = this.createRadialWallVertexGeometry(dc, center, radii, angle, altitudes,
             terrainConformant, pillars, stacks, orientation, referenceCenter);
+        if (vertexGeom == null)
+            return;
 
         Object cacheKey = new Geometry.CacheKey(this.getClass(), "RadialWall.OutlineIndices", pillars, stacks,
             orientation);
-        Geometry outlineIndexGeom = (Geometry) AbstractAirspace.getGeometryCache().getObject(cacheKey);
-        if (outlineIndexGeom == null) {
-            outlineIndexGeom = new Geometry();
-            this.makeRadialWallOutlineIndices(pillars, stacks, orientation, outlineIndexGeom);
-            AbstractAirspace.getGeometryCache().add(cacheKey, outlineIndexGeom);
-        }
+        Geometry outlineIndexGeom = this.getIndexGeometry(cacheKey,
+            gb -> this.makeRadialWallOutlineIndices(gb, pillars, stacks, orientation));
 
-        this.drawGeometry(dc, outlineIndexGeom, vertexGeom);
+        this.drawGeometry(dc, outlineIndexGeom, vertexGeom, referenceCenter);
     }
 
     private Geometry createRadialWallVertexGeometry(DrawContext dc, LatLon center, double[] radii, double angle,
@@ -510,39 +495,34 @@ public class PartialCappedCylinder extends CappedCylinder {
         Object cacheKey = new Geometry.CacheKey(dc.getGlobe(), this.getClass(), "RadialWall.Vertices", center, radii[0],
             radii[1], angle, altitudes[0], altitudes[1], terrainConformant[0], terrainConformant[1], pillars, stacks,
             orientation, referenceCenter);
-        Geometry vertexGeom = (Geometry) AbstractAirspace.getGeometryCache().getObject(cacheKey);
-        if (vertexGeom == null || AbstractAirspace.isExpired(dc, vertexGeom)) {
-            if (vertexGeom == null)
-                vertexGeom = new Geometry();
-            this.makeRadialWall(dc, center, radii, angle, altitudes, terrainConformant, pillars, stacks, orientation,
-                referenceCenter, vertexGeom);
-            this.updateExpiryCriteria(dc, vertexGeom);
-            AbstractAirspace.getGeometryCache().add(cacheKey, vertexGeom);
-        }
+        Object tessellationKey = new Geometry.CacheKey("RadialWall.Vertices", pillars, stacks, orientation);
 
-        return vertexGeom;
+        return this.getVertexGeometry(dc, cacheKey, tessellationKey, terrainConformant[0] || terrainConformant[1],
+            referenceCenter, (terrain, gb) -> this.makeRadialWall(terrain, gb, center, radii, angle, altitudes,
+                terrainConformant, pillars, stacks, orientation, referenceCenter));
     }
 
-    private void makeRadialWall(DrawContext dc, LatLon center, double[] radii, double angle, double[] altitudes,
-        boolean[] terrainConformant, int pillars, int stacks, int orientation, Vec4 referenceCenter, Geometry dest) {
-        GeometryBuilder gb = this.getGeometryBuilder();
+    private Geometry makeRadialWall(Terrain terrain, GeometryBuilder gb, LatLon center, double[] radii, double angle,
+        double[] altitudes, boolean[] terrainConformant, int pillars, int stacks, int orientation,
+        Vec4 referenceCenter) {
         gb.setOrientation(orientation);
         float height = (float) (altitudes[1] - altitudes[0]);
 
         int count = GeometryBuilder.getRadialWallVertexCount(pillars, stacks);
         float[] verts = new float[3 * count];
         float[] norms = new float[3 * count];
-        GeometryBuilder.makeRadialWallVertices(dc.getTerrain(), center, radii[0], radii[1], angle, altitudes,
+        GeometryBuilder.makeRadialWallVertices(terrain, center, radii[0], radii[1], angle, altitudes,
             terrainConformant,
             pillars, stacks, referenceCenter, verts);
         gb.makeRadialWallNormals((float) radii[0], (float) radii[1], height, (float) angle, pillars, stacks, norms);
 
+        Geometry dest = new Geometry();
         dest.setVertexData(count, verts);
         dest.setNormalData(count, norms);
+        return dest;
     }
 
-    private void makeRadialWallIndices(int pillars, int stacks, int orientation, Geometry dest) {
-        GeometryBuilder gb = this.getGeometryBuilder();
+    private Geometry makeRadialWallIndices(GeometryBuilder gb, int pillars, int stacks, int orientation) {
         gb.setOrientation(orientation);
 
         int mode = GeometryBuilder.getRadialWallDrawMode();
@@ -550,11 +530,12 @@ public class PartialCappedCylinder extends CappedCylinder {
         int[] indices = new int[count];
         gb.makeRadialWallIndices(pillars, stacks, indices);
 
+        Geometry dest = new Geometry();
         dest.setElementData(mode, count, indices);
+        return dest;
     }
 
-    private void makeRadialWallOutlineIndices(int pillars, int stacks, int orientation, Geometry dest) {
-        GeometryBuilder gb = this.getGeometryBuilder();
+    private Geometry makeRadialWallOutlineIndices(GeometryBuilder gb, int pillars, int stacks, int orientation) {
         gb.setOrientation(orientation);
 
         int mode = GeometryBuilder.getRadialWallOutlineDrawMode();
@@ -562,7 +543,9 @@ public class PartialCappedCylinder extends CappedCylinder {
         int[] indices = new int[count];
         GeometryBuilder.makeRadialWallOutlineIndices(pillars, stacks, indices);
 
+        Geometry dest = new Geometry();
         dest.setElementData(mode, count, indices);
+        return dest;
     }
 
     //**************************************************************//
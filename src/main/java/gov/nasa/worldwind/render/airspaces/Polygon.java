@@ -14,6 +14,7 @@ import gov.nasa.worldwind.geom.Box;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.globes.Globe;
 import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.terrain.Terrain;
 import gov.nasa.worldwind.util.*;
 
 import java.util.*;
@@ -472,23 +473,18 @@ public class Polygon extends AbstractAirspace {
         Object cacheKey = new Geometry.CacheKey(dc.getGlobe(), this.getClass(), "Polygon",
             locations, edgeFlags, altitudes[0], altitudes[1], terrainConformant[0], terrainConformant[1],
             enableCaps, subdivisions, referenceCenter);
+        boolean collapsed = this.isAirspaceCollapsed();
 
         // Wrap geometry creation in a try/catch block. We do this to catch and handle OutOfMemoryErrors caused during
         // tessellation of the polygon vertices. If the polygon cannot be tessellated, we replace the polygon's
         // locations with an empty list to prevent subsequent tessellation attempts, and to avoid rendering a misleading
         // representation by omitting any part of the geometry.
         try {
-            PolygonGeometry geom = (PolygonGeometry) AbstractAirspace.getGeometryCache().getObject(cacheKey);
-            if (geom == null || AbstractAirspace.isExpired(dc, geom.getVertexGeometry())) {
-                if (geom == null)
-                    geom = new PolygonGeometry();
-                this.makePolygon(dc, locations, edgeFlags, altitudes, terrainConformant, enableCaps, subdivisions,
-                    referenceCenter, geom);
-                this.updateExpiryCriteria(dc, geom.getVertexGeometry());
-                AbstractAirspace.getGeometryCache().add(cacheKey, geom);
-            }
-
-            return geom;
+            // Polygon geometry contains its own indices, so any previous polygon geometry can stand in for it.
+            return this.getGeometry(dc, cacheKey, "Polygon", terrainConformant[0] || terrainConformant[1],
+                PolygonGeometry::getVertexGeometry,
+                (terrain, gb) -> this.makePolygon(terrain, gb, locations, edgeFlags, altitudes, terrainConformant,
+                    enableCaps, collapsed, subdivisions, referenceCenter));
         }
         catch (OutOfMemoryError e) {
             String message = Logging.getMessage("generic.ExceptionWhileTessellating", this);
@@ -521,7 +517,7 @@ public class Polygon extends AbstractAirspace {
         PolygonGeometry geom = this.getPolygonGeometry(dc, locations, edgeFlags, altitudes, terrainConformant,
             enableCaps, subdivisions, referenceCenter);
         if (geom != null)
-            this.drawGeometry(dc, geom.getFillIndexGeometry(), geom.getVertexGeometry());
+            this.drawGeometry(dc, geom.getFillIndexGeometry(), geom.getVertexGeometry(), referenceCenter);
     }
 
     private void drawPolygonOutline(DrawContext dc, List<LatLon> locations, List<Boolean> edgeFlags,
@@ -531,23 +527,22 @@ public class Polygon extends AbstractAirspace {
         PolygonGeometry geom = this.getPolygonGeometry(dc, locations, edgeFlags, altitudes, terrainConformant,
             enableCaps, subdivisions, referenceCenter);
         if (geom != null)
-            this.drawGeometry(dc, geom.getOutlineIndexGeometry(), geom.getVertexGeometry());
+            this.drawGeometry(dc, geom.getOutlineIndexGeometry(), geom.getVertexGeometry(), referenceCenter);
     }
 
-    private void makePolygon(DrawContext dc, List<LatLon> locations, List<Boolean> edgeFlags,
-        double[] altitudes, boolean[] terrainConformant,
-        boolean enableCaps, int subdivisions,
-        Vec4 referenceCenter,
-        PolygonGeometry dest) {
+    private PolygonGeometry makePolygon(Terrain terrain, GeometryBuilder gb, List<LatLon> locations,
+        List<Boolean> edgeFlags, double[] altitudes, boolean[] terrainConformant,
+        boolean enableCaps, boolean collapsed, int subdivisions,
+        Vec4 referenceCenter) {
+        PolygonGeometry dest = new PolygonGeometry();
+        dest.getVertexGeometry().set(AbstractAirspace.REFERENCE_CENTER, referenceCenter);
         if (locations.isEmpty())
-            return;
-
-        GeometryBuilder gb = this.getGeometryBuilder();
+            return dest;
 
         Vec4[] polyPoints = new Vec4[locations.size() + 1];
         Boolean[] polyEdgeFlags = new Boolean[locations.size() + 1];
         Matrix[] polyTransform = new Matrix[1];
-        int polyCount = Polygon.computeEllipsoidalPolygon(dc.getGlobe(), locations, edgeFlags, polyPoints,
+        int polyCount = Polygon.computeEllipsoidalPolygon(terrain.globe(), locations, edgeFlags, polyPoints,
             polyEdgeFlags,
             polyTransform);
 
@@ -584,7 +579,7 @@ public class Polygon extends AbstractAirspace {
             fillIndexCount += ita.getIndexCount();
             vertexCount += ita.getVertexCount();
             // Bottom cap isn't drawn if airspace is collapsed.
-            if (!this.isAirspaceCollapsed()) {
+            if (!collapsed) {
                 fillIndexCount += ita.getIndexCount();
                 vertexCount += ita.getVertexCount();
             }
@@ -599,7 +594,7 @@ public class Polygon extends AbstractAirspace {
         int outlineIndexPos = 0;
         int vertexPos = 0;
 
-        this.makeEdge(dc, polyCount, polyVertices, polyEdgeFlags, altitudes, terrainConformant, subdivisions,
+        this.makeEdge(terrain, gb, polyCount, polyVertices, polyEdgeFlags, altitudes, terrainConformant, subdivisions,
             GeometryBuilder.OUTSIDE, polyTransform[0], referenceCenter,
             fillIndexPos, fillIndices, outlineIndexPos, outlineIndices, vertexPos, vertices, normals);
         fillIndexPos += this.getEdgeFillIndexCount(polyCount, subdivisions);
@@ -607,14 +602,14 @@ public class Polygon extends AbstractAirspace {
         vertexPos += this.getEdgeVertexCount(polyCount, subdivisions);
 
         if (enableCaps) {
-            this.makeCap(dc, ita, altitudes[1], terrainConformant[1], GeometryBuilder.OUTSIDE, polyTransform[0],
-                referenceCenter, fillIndexPos, fillIndices, vertexPos, vertices, normals);
+            this.makeCap(terrain, gb, ita, altitudes[1], terrainConformant[1], GeometryBuilder.OUTSIDE,
+                polyTransform[0], referenceCenter, fillIndexPos, fillIndices, vertexPos, vertices, normals);
             fillIndexPos += ita.getIndexCount();
             vertexPos += ita.getVertexCount();
             // Bottom cap isn't drawn if airspace is collapsed.
-            if (!this.isAirspaceCollapsed()) {
-                this.makeCap(dc, ita, altitudes[0], terrainConformant[0], GeometryBuilder.INSIDE, polyTransform[0],
-                    referenceCenter, fillIndexPos, fillIndices, vertexPos, vertices, normals);
+            if (!collapsed) {
+                this.makeCap(terrain, gb, ita, altitudes[0], terrainConformant[0], GeometryBuilder.INSIDE,
+                    polyTransform[0], referenceCenter, fillIndexPos, fillIndices, vertexPos, vertices, normals);
                 fillIndexPos += ita.getIndexCount();
                 vertexPos += ita.getVertexCount();
             }
@@ -624,6 +619,7 @@ public class Polygon extends AbstractAirspace {
         dest.getOutlineIndexGeometry().setElementData(outlineDrawMode, outlineIndexCount, outlineIndices);
         dest.getVertexGeometry().setVertexData(vertexCount, vertices);
         dest.getVertexGeometry().setNormalData(vertexCount, normals);
+        return dest;
     }
 
     //**************************************************************//
@@ -668,7 +664,7 @@ public class Polygon extends AbstractAirspace {
         return 2 * GeometryBuilder.getSubdivisionPointsVertexCount(subdivisions);
     }
 
-    private void makeEdge(DrawContext dc, int count, float[] locations, Boolean[] edgeFlags,
+    private void makeEdge(Terrain terrain, GeometryBuilder gb, int count, float[] locations, Boolean[] edgeFlags,
         double[] altitudes, boolean[] terrainConformant,
         int subdivisions, int orientation,
         Matrix locationTransform,
@@ -676,7 +672,6 @@ public class Polygon extends AbstractAirspace {
         int fillIndexPos, int[] fillIndices,
         int outlineIndexPos, int[] outlineIndices,
         int vertexPos, float[] vertices, float[] normals) {
-        GeometryBuilder gb = this.getGeometryBuilder();
         gb.setOrientation(orientation);
 
         int sectionFillIndexCount = this.getSectionFillIndexCount(subdivisions);
@@ -689,7 +684,7 @@ public class Polygon extends AbstractAirspace {
             this.makeSectionFillIndices(subdivisions, vertexPos, fillIndexPos, fillIndices);
             this.makeSectionOutlineIndices(subdivisions, vertexPos, outlineIndexPos, outlineIndices,
                 beginEdgeFlag, endEdgeFlag);
-            this.makeSectionVertices(dc, i, locations, altitudes, terrainConformant, subdivisions,
+            this.makeSectionVertices(terrain, gb, i, locations, altitudes, terrainConformant, subdivisions,
                 locationTransform, referenceCenter, vertexPos, vertices);
             gb.makeIndexedTriangleArrayNormals(fillIndexPos, sectionFillIndexCount, fillIndices,
                 vertexPos, sectionVertexCount, vertices, normals);
@@ -748,16 +743,15 @@ public class Polygon extends AbstractAirspace {
         }
     }
 
-    private void makeSectionVertices(DrawContext dc, int locationPos, float[] locations,
+    private void makeSectionVertices(Terrain terrain, GeometryBuilder gb, int locationPos, float[] locations,
         double[] altitude, boolean[] terrainConformant,
         int subdivisions,
         Matrix locationTransform,
         Vec4 referenceCenter,
         int vertexPos, float[] vertices) {
-        GeometryBuilder gb = this.getGeometryBuilder();
         int numPoints = GeometryBuilder.getSubdivisionPointsVertexCount(subdivisions);
 
-        Globe globe = dc.getGlobe();
+        Globe globe = terrain.globe();
         int index1 = 3 * locationPos;
         int index2 = 3 * (locationPos + 1);
 
@@ -774,8 +768,8 @@ public class Polygon extends AbstractAirspace {
             Position pos = globe.computePositionFromEllipsoidalPoint(vec); // ellipsoidal-coordinate point and transform
 
             for (int j = 0; j < 2; j++) {
-                vec = this.computePointFromPosition(dc, pos.getLat(), pos.getLon(), altitude[j],
-                    terrainConformant[j]); // final model-coordinate point
+                // final model-coordinate point
+                vec = Polygon.computePoint(terrain, pos, altitude[j], terrainConformant[j]);
 
                 index = 2 * i + j;
                 index = 3 * (vertexPos + index);
@@ -786,19 +780,24 @@ public class Polygon extends AbstractAirspace {
         }
     }
 
+    private static Vec4 computePoint(Terrain terrain, LatLon location, double altitude, boolean terrainConformant) {
+        // Fall back to the globe's ellipsoid when the terrain has no surface geometry at the location.
+        Vec4 point = terrainConformant ? terrain.surfacePoint(location.lat, location.lon, altitude) : null;
+        return point != null ? point : terrain.globe().computePointFromPosition(location.lat, location.lon, altitude);
+    }
+
     //**************************************************************//
     //********************  Polygon Cap         ********************//
     //**************************************************************//
 
-    private void makeCap(DrawContext dc, GeometryBuilder.IndexedTriangleArray ita,
+    private void makeCap(Terrain terrain, GeometryBuilder gb, GeometryBuilder.IndexedTriangleArray ita,
         double altitude, boolean terrainConformant,
         int orientation,
         Matrix locationTransform,
         Vec4 referenceCenter,
         int indexPos, int[] indices,
         int vertexPos, float[] vertices, float[] normals) {
-        GeometryBuilder gb = this.getGeometryBuilder();
-        Globe globe = dc.getGlobe();
+        Globe globe = terrain.globe();
 
         int indexCount = ita.getIndexCount();
         int vertexCount = ita.getVertexCount();
@@ -814,8 +813,7 @@ public class Polygon extends AbstractAirspace {
             vec = vec.transformBy4(locationTransform);
 
             Position pos = globe.computePositionFromEllipsoidalPoint(vec); // ellipsoidal-coordinate point and transform
-            vec = this.computePointFromPosition(dc, pos.getLat(), pos.getLon(), altitude,
-                terrainConformant); // final model-coordinate point
+            vec = Polygon.computePoint(terrain, pos, altitude, terrainConformant); // final model-coordinate point
 
             index = 3 * (vertexPos + i);
             vertices[index] = (float) (vec.x - referenceCenter.x);
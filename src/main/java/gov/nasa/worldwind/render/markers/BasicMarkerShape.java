@@ -13,7 +13,7 @@ import gov.nasa.worldwind.Disposable;
 import gov.nasa.worldwind.cache.GpuResourceCache;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.globes.Globe;
-import gov.nasa.worldwind.render.DrawContext;
+import gov.nasa.worldwind.render.*;
 
 import java.util.*;
 
@@ -254,6 +254,35 @@ public class BasicMarkerShape {
             render(dc, marker, point, radius, true);
         }
 
+        /**
+         * Returns the unit shape drawn for markers batched with this shape, with a rotation given by {@link
+         * #computeOrientation(DrawContext, Marker, Vec4)} and a uniform scale equal to the marker radius. See {@link
+         * MarkerRenderer#setEnableBatching(boolean)}.
+         *
+         * @return the unit shape, or null if markers drawn with this shape cannot be batched.
+         */
+        protected InstanceBuffer.Mesh getUnitMesh() {
+            return null;
+        }
+
+        /**
+         * Computes the rotation this shape applies to a marker drawn at a specified point.
+         *
+         * @param dc     the current draw context.
+         * @param marker the marker.
+         * @param point  the marker's point, in model coordinates.
+         * @return the rotation, or null if the shape is not rotated.
+         */
+        protected Matrix computeOrientation(DrawContext dc, Marker marker, Vec4 point) {
+            return null;
+        }
+
+        protected void applyOrientation(DrawContext dc, Marker marker, Vec4 point) {
+            Matrix orientation = this.computeOrientation(dc, marker, point);
+            if (orientation != null)
+                dc.getGL2().glMultMatrixd(orientation.toArray(new double[16], 0, false), 0);
+        }
+
         public void render(DrawContext dc, Marker marker, Vec4 point, double radius, boolean isRelative) {
             if (!this.isInitialized)
                 this.initialize(dc);
@@ -302,6 +331,10 @@ public class BasicMarkerShape {
     }
 
     protected static class Sphere extends Shape {
+        // Batched markers are drawn a few pixels across, and each vertex is written every frame, so the batched shapes
+        // are coarser than the display lists.
+        protected static final InstanceBuffer.Mesh MESH = InstanceBuffer.Mesh.createSphere(8, 4);
+
         @Override
         protected void initialize(DrawContext dc) {
             super.initialize(dc);
@@ -312,6 +345,11 @@ public class BasicMarkerShape {
             this.isInitialized = true;
         }
 
+        @Override
+        protected InstanceBuffer.Mesh getUnitMesh() {
+            return MESH;
+        }
+
         protected void doRender(DrawContext dc, Marker marker, Vec4 point, double radius, int[] dlResource) {
             // Sphere is symmetric about all axes, so no need to apply heading, pitch, or roll.
             GL2 gl = dc.getGL2(); // GL initialization checks for GL2 compatibility.
@@ -334,6 +372,17 @@ public class BasicMarkerShape {
      * Cube marker shape. The cube can be oriented using heading, pitch, and roll.
      */
     protected static class Cube extends Shape {
+        // Vertices of a cube, 2 units on each side, with the center of the bottom face on the origin.
+        protected static final float[][] VERTICES = {{-1.0f, 1.0f, 0.0f}, {-1.0f, 1.0f, 2.0f}, {1.0f, 1.0f, 2.0f},
+            {1.0f, 1.0f, 0.0f}, {-1.0f, -1.0f, 2.0f}, {1.0f, -1.0f, 2.0f}, {1.0f, -1.0f, 0.0f}, {-1.0f, -1.0f, 0.0f}};
+        // Array to group vertices into faces
+        protected static final int[][] FACES = {{0, 1, 2, 3}, {2, 5, 6, 3}, {1, 4, 5, 2}, {0, 7, 4, 1},
+            {0, 7, 6, 3}, {4, 7, 6, 5}};
+        // Normal vectors for each face
+        protected static final float[][] NORMALS = {{0, 1, 0}, {1, 0, 0}, {0, 0, 1}, {-1, 0, 0}, {0, 0, -1},
+            {0, -1, 0}};
+        protected static final InstanceBuffer.Mesh MESH = InstanceBuffer.Mesh.createFaces(VERTICES, FACES, NORMALS);
+
         @Override
         protected void initialize(DrawContext dc) {
             super.initialize(dc);
@@ -346,15 +395,9 @@ public class BasicMarkerShape {
 
         @Override
         protected int drawShape(DrawContext dc, double radius) {
-            // Vertices of a cube, 2 units on each side, with the center of the bottom face on the origin.
-            float[][] v = {{-1.0f, 1.0f, 0.0f}, {-1.0f, 1.0f, 2.0f}, {1.0f, 1.0f, 2.0f}, {1.0f, 1.0f, 0.0f},
-                {-1.0f, -1.0f, 2.0f}, {1.0f, -1.0f, 2.0f}, {1.0f, -1.0f, 0.0f}, {-1.0f, -1.0f, 0.0f}};
-
-            // Array to group vertices into faces
-            int[][] faces = {{0, 1, 2, 3}, {2, 5, 6, 3}, {1, 4, 5, 2}, {0, 7, 4, 1}, {0, 7, 6, 3}, {4, 7, 6, 5}};
-
-            // Normal vectors for each face
-            float[][] n = {{0, 1, 0}, {1, 0, 0}, {0, 0, 1}, {-1, 0, 0}, {0, 0, -1}, {0, -1, 0}};
+            float[][] v = Cube.VERTICES;
+            int[][] faces = Cube.FACES;
+            float[][] n = Cube.NORMALS;
 
             GL2 gl = dc.getGL2(); // GL initialization checks for GL2 compatibility.
 
@@ -373,13 +416,25 @@ public class BasicMarkerShape {
             return (8 + 4) * 3 * 4; // assume 8 verts, 4 normals, all of them 3 float coords
         }
 
+        @Override
+        protected InstanceBuffer.Mesh getUnitMesh() {
+            return MESH;
+        }
+
         protected void doRender(DrawContext dc, Marker marker, Vec4 point, double size, int[] dlResource) {
+            GL2 gl = dc.getGL2(); // GL initialization checks for GL2 compatibility.
+            this.applyOrientation(dc, marker, point);
+            gl.glScaled(size, size, size);
+            gl.glCallList(dlResource[0]);
+        }
+
+        @Override
+        protected Matrix computeOrientation(DrawContext dc, Marker marker, Vec4 point) {
             Vec4 normal = dc.getGlobe().computeSurfaceNormalAtPoint(point);
+            Matrix matrix = Matrix.IDENTITY;
 
             // This performs the same operation as Vec4.axisAngle() but with a "v2" of <0, 0, 1>.
             // Compute rotation angle
-            GL2 gl = dc.getGL2(); // GL initialization checks for GL2 compatibility.
-
             if (!(normal.equals(Vec4.UNIT_Z) || normal.equals(Vec4.UNIT_NEGATIVE_Z))) {
                 Angle angle = Angle.fromRadians(Math.acos(normal.z));
                 // Compute the direction cosine factors that define the rotation axis
@@ -394,23 +449,21 @@ public class BasicMarkerShape {
                 Vec4 rotatedY = Vec4.UNIT_NEGATIVE_Y.transformBy3(Matrix.fromAxisAngle(angle, A / L, B / L, 0));
                 Angle northAngle = rotatedY.angleBetween3(north);
 
-                gl.glRotated(angle.degrees, A / L, B / L, 0);  // rotate cube normal to globe
-
-                gl.glRotated(northAngle.degrees, 0, 0, 1); // rotate to face north
+                matrix = Matrix.fromAxisAngle(angle, A / L, B / L, 0); // rotate cube normal to globe
+                matrix = matrix.multiply(Matrix.fromAxisAngle(northAngle, 0, 0, 1)); // rotate to face north
             }
 
             // Apply heading, pitch, and roll
             if (this.isApplyOrientation()) {
                 if (marker.getHeading() != null)
-                    gl.glRotated(-marker.getHeading().degrees, 0, 0, 1);
+                    matrix = matrix.multiply(Matrix.fromAxisAngle(marker.getHeading().multiply(-1), 0, 0, 1));
                 if (marker.getPitch() != null)
-                    gl.glRotated(marker.getPitch().degrees, 1, 0, 0);
+                    matrix = matrix.multiply(Matrix.fromAxisAngle(marker.getPitch(), 1, 0, 0));
                 if (marker.getRoll() != null)
-                    gl.glRotated(marker.getRoll().degrees, 0, 0, 1);
+                    matrix = matrix.multiply(Matrix.fromAxisAngle(marker.getRoll(), 0, 0, 1));
             }
 
-            gl.glScaled(size, size, size);
-            gl.glCallList(dlResource[0]);
+            return matrix;
         }
     }
 
@@ -418,6 +471,8 @@ public class BasicMarkerShape {
      * A cone marker shape. The cone can be oriented using heading and pitch.
      */
     protected static class Cone extends Shape {
+        protected static final InstanceBuffer.Mesh MESH = InstanceBuffer.Mesh.createCone(8);
+
         @Override
         protected void initialize(DrawContext dc) {
             super.initialize(dc);
@@ -427,7 +482,20 @@ public class BasicMarkerShape {
             this.isInitialized = true;
         }
 
+        @Override
+        protected InstanceBuffer.Mesh getUnitMesh() {
+            return MESH;
+        }
+
         protected void doRender(DrawContext dc, Marker marker, Vec4 point, double size, int[] dlResource) {
+            GL2 gl = dc.getGL2(); // GL initialization checks for GL2 compatibility.
+            this.applyOrientation(dc, marker, point);
+            gl.glScaled(size, size, size);                 // scale
+            gl.glCallList(dlResource[0]);
+        }
+
+        @Override
+        protected Matrix computeOrientation(DrawContext dc, Marker marker, Vec4 point) {
             // By default, the shape is normal to the globe (0 heading, 0 pitch, 0 roll)
             Vec4 orientation = dc.getGlobe().computeSurfaceNormalAtPoint(point);
 
@@ -440,8 +508,6 @@ public class BasicMarkerShape {
                     marker.getPitch());
             }
 
-            GL2 gl = dc.getGL2(); // GL initialization checks for GL2 compatibility.
-
             if (!(orientation.equals(Vec4.UNIT_Z) || orientation.equals(Vec4.UNIT_NEGATIVE_Z))) {
                 // This code performs the same operation as Vec4.axisAngle() but with a "v2" of <0, 0, 1>.
                 // Compute rotation angle
@@ -451,13 +517,12 @@ public class BasicMarkerShape {
                 double B = orientation.x;
                 double L = Math.sqrt(A * A + B * B);
 
-                gl.glRotated(angle.degrees, A / L, B / L, 0);  // rotate shape to proper heading and pitch
+                return Matrix.fromAxisAngle(angle, A / L, B / L, 0);  // rotate shape to proper heading and pitch
             } else if (orientation.equals(Vec4.UNIT_NEGATIVE_Z)) {
-                gl.glRotated(180, 1, 0, 0); // rotate to point cone away from globe's surface
+                return Matrix.fromAxisAngle(Angle.POS180, 1, 0, 0); // rotate to point cone away from globe's surface
             }
 
-            gl.glScaled(size, size, size);                 // scale
-            gl.glCallList(dlResource[0]);
+            return null;
         }
 
         @Override
@@ -478,6 +543,8 @@ public class BasicMarkerShape {
      * A cylinder marker shape. The cylinder can be oriented using heading and pitch.
      */
     protected static class Cylinder extends Shape {
+        protected static final InstanceBuffer.Mesh MESH = InstanceBuffer.Mesh.createCylinder(8);
+
         @Override
         protected void initialize(DrawContext dc) {
             super.initialize(dc);
@@ -487,7 +554,20 @@ public class BasicMarkerShape {
             this.isInitialized = true;
         }
 
+        @Override
+        protected InstanceBuffer.Mesh getUnitMesh() {
+            return MESH;
+        }
+
         protected void doRender(DrawContext dc, Marker marker, Vec4 point, double size, int[] dlResource) {
+            GL2 gl = dc.getGL2(); // GL initialization checks for GL2 compatibility.
+            this.applyOrientation(dc, marker, point);
+            gl.glScaled(size, size, size);                 // scale
+            gl.glCallList(dlResource[0]);
+        }
+
+        @Override
+        protected Matrix computeOrientation(DrawContext dc, Marker marker, Vec4 point) {
             Vec4 orientation = dc.getGlobe().computeSurfaceNormalAtPoint(point);
 
             // Heading only applies to cylinder if pitch is also specified. A heading without pitch spins the cylinder
@@ -499,8 +579,6 @@ public class BasicMarkerShape {
                     marker.getPitch());
             }
 
-            GL2 gl = dc.getGL2(); // GL initialization checks for GL2 compatibility.
-
             if (!(orientation.equals(Vec4.UNIT_Z) || orientation.equals(Vec4.UNIT_NEGATIVE_Z))) {
                 // This performs the same operation as Vec4.axisAngle() but with a "v2" of <0, 0, 1>.
                 // Compute rotation angle
@@ -510,11 +588,10 @@ public class BasicMarkerShape {
                 double B = orientation.x;
                 double L = Math.sqrt(A * A + B * B);
 
-                gl.glRotated(angle.degrees, A / L, B / L, 0);  // rotate to proper heading and pitch
+                return Matrix.fromAxisAngle(angle, A / L, B / L, 0);  // rotate to proper heading and pitch
             }
 
-            gl.glScaled(size, size, size);                 // scale
-            gl.glCallList(dlResource[0]);
+            return null;
         }
 
         @Override
@@ -18,16 +18,34 @@ import java.util.List;
 import java.util.*;
 
 /**
+ * Draws markers. When batching is enabled and markers are not kept separated, opaque markers whose shapes support it
+ * are drawn in batches, one per marker attributes. A batch holds each marker's point and orientation in an {@link
+ * InstanceBuffer} that is rebuilt only when a marker's position, attributes or orientation changes, or the globe
+ * changes. Each frame the renderer culls the batch's markers, sizes them, and adds a single ordered renderable that
+ * configures the OpenGL state once and draws every visible marker with one draw call. Picking registers a single pick
+ * color range for the batch. See {@link #setEnableBatching(boolean)}.
+ *
  * @author tag
  * @version $Id: MarkerRenderer.java 2325 2014-09-17 21:55:48Z tgaskins $
  */
 public class MarkerRenderer {
+    // The number of entries kept per marker by the batch state: the marker, its position, attributes, shape type,
+    // heading, pitch and roll, and whether it is opaque.
+    protected static final int BATCH_STATE_SIZE = 8;
+
     protected final PickSupport pickSupport = new PickSupport();
     private final ArrayList<Vec4> surfacePoints = new ArrayList<>();
     private double elevation = 10.0d;
     private boolean overrideMarkerElevation;
     private boolean keepSeparated = true;
     private boolean enablePickSizeReturn;
+    private boolean enableBatching = true;
+    // Batch state.
+    protected final List<MarkerBatch> batches = new ArrayList<>();
+    protected final List<Marker> unbatchedMarkers = new ArrayList<>();
+    protected Object[] batchState = new Object[0];
+    protected Object batchGlobeStateKey;
+    protected double batchVerticalExaggeration;
     // Rendering state.
     private long frameTimeStamp;
     private MarkerAttributes previousAttributes; // used only by drawSeparated and drawMarker
@@ -107,6 +125,29 @@ public class MarkerRenderer {
         this.enablePickSizeReturn = enablePickSizeReturn;
     }
 
+    /**
+     * Indicates whether markers are drawn in batches when they are not kept separated.
+     *
+     * @return true if batching is enabled, otherwise false.
+     */
+    public boolean isEnableBatching() {
+        return this.enableBatching;
+    }
+
+    /**
+     * Specifies whether markers are drawn in batches when they are not kept separated. Only opaque markers whose shape
+     * is a sphere, cube, cone or cylinder are batched, and only when the marker elevation is not overridden; other
+     * markers are drawn individually. A batched marker is drawn by its shape directly, so a marker implementation that
+     * overrides <code>render</code> must not be used with batching. Batched markers are drawn in arbitrary order
+     * relative to one another, and batched spheres, cones and cylinders have fewer facets than individually drawn
+     * ones. Enabled by default.
+     *
+     * @param enableBatching true to draw markers in batches, otherwise false.
+     */
+    public void setEnableBatching(boolean enableBatching) {
+        this.enableBatching = enableBatching;
+    }
+
     public void render(DrawContext dc, Iterable<Marker> markers) {
 //        if (dc == null) {
 //            String message = Logging.getMessage("nullValue.DrawContextIsNull");
@@ -120,14 +161,13 @@ public class MarkerRenderer {
 //            throw new IllegalStateException(message);
 //        }
 
-        if (this.isKeepSeparated())
-            this.drawSeparated(dc, markers);
-        else
-            this.drawAll(dc, markers);
+        this.draw(dc, markers);
     }
 
     protected void draw(DrawContext dc, Iterable<Marker> markers) {
-        if (this.isKeepSeparated())
+        if (this.mustDrawBatched())
+            this.drawBatched(dc, markers);
+        else if (this.isKeepSeparated())
             this.drawSeparated(dc, markers);
         else
             this.drawAll(dc, markers);
@@ -360,6 +400,267 @@ public class MarkerRenderer {
         return dc.getGlobe().computePointFromPosition(pos.getLat(), pos.getLon(), effectiveElevation * ve);
     }
 
+    //**************************************************************//
+    //********************  Batched Rendering  *********************//
+    //**************************************************************//
+
+    protected boolean mustDrawBatched() {
+        return this.enableBatching && !this.keepSeparated && !this.overrideMarkerElevation;
+    }
+
+    protected void drawBatched(DrawContext dc, Iterable<Marker> markers) {
+        List<Marker> markerList;
+        if (markers instanceof List) {
+            markerList = (List<Marker>) markers;
+        } else {
+            markerList = new ArrayList<>();
+            for (Marker m : markers) {
+                markerList.add(m);
+            }
+        }
+
+        if (this.mustRebuildBatches(dc, markerList))
+            this.rebuildBatches(dc, markerList);
+
+        Layer parentLayer = dc.getCurrentLayer();
+        for (MarkerBatch batch : this.batches) {
+            if (this.cullBatch(dc, batch))
+                dc.addOrderedRenderable(new OrderedMarkerBatch(batch, parentLayer, batch.nearestDistance));
+        }
+
+        if (!this.unbatchedMarkers.isEmpty())
+            this.drawAll(dc, this.unbatchedMarkers);
+    }
+
+    /**
+     * Indicates whether the batches must be rebuilt: when the globe's state key, the vertical exaggeration or the
+     * number of markers has changed, or when any marker's position, attributes, shape type, heading, pitch, roll or
+     * opacity has changed. Positions, attributes and angles are compared by identity. The state key of a continuous 2D
+     * globe includes its offset, so on such a globe the batches are rebuilt only when the markers are drawn at a
+     * different offset, as when the view spans the date line.
+     *
+     * @param dc      the current draw context.
+     * @param markers the markers to draw.
+     * @return true if the batches must be rebuilt, otherwise false.
+     */
+    protected boolean mustRebuildBatches(DrawContext dc, List<Marker> markers) {
+        if (dc.getVerticalExaggeration() != this.batchVerticalExaggeration
+            || !dc.getGlobe().getGlobeStateKey(dc).equals(this.batchGlobeStateKey)
+            || markers.size() * BATCH_STATE_SIZE != this.batchState.length)
+            return true;
+
+        Object[] state = this.batchState;
+        int i = 0;
+        for (Marker marker : markers) {
+            if (state[i] != marker)
+                return true;
+
+            if (marker != null) {
+                MarkerAttributes attrs = marker.getAttributes();
+                if (state[i + 1] != marker.getPosition() || state[i + 2] != attrs
+                    || state[i + 3] != attrs.getShapeType() || state[i + 4] != marker.getHeading()
+                    || state[i + 5] != marker.getPitch() || state[i + 6] != marker.getRoll()
+                    || state[i + 7] != Boolean.valueOf(attrs.getOpacity() >= 1))
+                    return true;
+            }
+
+            i += BATCH_STATE_SIZE;
+        }
+
+        return false;
+    }
+
+    protected void rebuildBatches(DrawContext dc, List<Marker> markers) {
+        this.batches.clear();
+        this.unbatchedMarkers.clear();
+        this.batchGlobeStateKey = dc.getGlobe().getGlobeStateKey(dc);
+        this.batchVerticalExaggeration = dc.getVerticalExaggeration();
+
+        Object[] state = new Object[markers.size() * BATCH_STATE_SIZE];
+        Map<MarkerAttributes, MarkerBatch> batchMap = new IdentityHashMap<>();
+
+        int i = 0;
+        for (Marker marker : markers) {
+            int s = i * BATCH_STATE_SIZE;
+            state[s] = marker;
+            i++;
+
+            if (marker == null)
+                continue;
+
+            MarkerAttributes attrs = marker.getAttributes();
+            MarkerShape shape = attrs.getShape(dc);
+            boolean opaque = attrs.getOpacity() >= 1;
+            state[s + 1] = marker.getPosition();
+            state[s + 2] = attrs;
+            state[s + 3] = attrs.getShapeType();
+            state[s + 4] = marker.getHeading();
+            state[s + 5] = marker.getPitch();
+            state[s + 6] = marker.getRoll();
+            state[s + 7] = opaque;
+
+            if (!opaque || !(shape instanceof BasicMarkerShape.Shape)
+                || ((BasicMarkerShape.Shape) shape).getUnitMesh() == null) {
+                this.unbatchedMarkers.add(marker);
+                continue;
+            }
+
+            MarkerBatch batch = batchMap.get(attrs);
+            if (batch == null) {
+                batch = new MarkerBatch(attrs, (BasicMarkerShape.Shape) shape);
+                batchMap.put(attrs, batch);
+                this.batches.add(batch);
+            }
+
+            Vec4 point = this.computeSurfacePoint(dc, marker.getPosition());
+            batch.add(i - 1, marker, point, batch.shape.computeOrientation(dc, marker, point));
+        }
+
+        this.batchState = state;
+        // The unbatched markers have changed; force drawAll to recompute their surface points.
+        this.frameTimeStamp = 0;
+    }
+
+    /**
+     * Determines which of a batch's markers are visible this frame, and computes their radii.
+     *
+     * @param dc    the current draw context.
+     * @param batch the batch to cull.
+     * @return true if any marker in the batch is visible, otherwise false.
+     */
+    protected boolean cullBatch(DrawContext dc, MarkerBatch batch) {
+        Vec4 eyePoint = dc.view().getEyePoint();
+        int count = 0;
+        double nearest = Double.MAX_VALUE;
+
+        for (int i = 0; i < batch.size(); i++) {
+            Vec4 point = batch.points.get(i);
+            double radius = MarkerRenderer.computeMarkerRadius(dc, point, batch.markers.get(i));
+            if (!MarkerRenderer.intersectsFrustum(dc, point, radius))
+                continue;
+
+            batch.instances.setScale(i, radius);
+            batch.visible[count++] = i;
+            nearest = Math.min(nearest, eyePoint.distanceTo3(point));
+        }
+
+        batch.visibleCount = count;
+        batch.nearestDistance = nearest;
+        return count > 0;
+    }
+
+    protected void drawBatch(DrawContext dc, MarkerBatch batch, Point pickPoint, Layer layer) {
+        int count = batch.visibleCount;
+        int pickColorCode = 0;
+        if (dc.isPickingMode()) {
+            Color pickColor = dc.getUniquePickColorRange(count);
+            if (pickColor == null)
+                return;
+
+            pickColorCode = pickColor.getRGB() & 0xFFFFFF;
+            this.pickSupport.addPickableObjectRange(pickColorCode, count,
+                new BatchPickedObjectFactory(pickColorCode, batch, Arrays.copyOf(batch.visible, count)));
+        }
+
+        this.begin(dc); // Calls pickSupport.beginPicking when in picking mode.
+        try {
+            batch.attributes.apply(dc);
+            this.previousAttributes = batch.attributes;
+            batch.instances.draw(dc, batch.visible, count, pickColorCode);
+        }
+        finally {
+            MarkerRenderer.end(dc); // Calls pickSupport.endPicking when in picking mode.
+        }
+
+        if (dc.isPickingMode())
+            this.pickSupport.resolvePick(dc, pickPoint, layer); // Also clears the pick list.
+    }
+
+    /** The markers drawn with one marker attributes, and their instance placements. */
+    protected static class MarkerBatch {
+        protected final MarkerAttributes attributes;
+        protected final BasicMarkerShape.Shape shape;
+        protected final InstanceBuffer instances;
+        protected final List<Marker> markers = new ArrayList<>();
+        protected final List<Vec4> points = new ArrayList<>();
+        // The index of each marker in the list of markers drawn.
+        protected int[] markerIndices = new int[16];
+        // The indices of the markers visible this frame, and the distance to the nearest of them.
+        protected int[] visible = new int[16];
+        protected int visibleCount;
+        protected double nearestDistance;
+
+        public MarkerBatch(MarkerAttributes attributes, BasicMarkerShape.Shape shape) {
+            this.attributes = attributes;
+            this.shape = shape;
+            this.instances = new InstanceBuffer(shape.getUnitMesh());
+        }
+
+        public int size() {
+            return this.markers.size();
+        }
+
+        public void add(int markerIndex, Marker marker, Vec4 point, Matrix orientation) {
+            int i = this.markers.size();
+            if (i == this.markerIndices.length) {
+                this.markerIndices = Arrays.copyOf(this.markerIndices, 2 * i);
+                this.visible = new int[2 * i];
+            }
+
+            this.markerIndices[i] = markerIndex;
+            this.markers.add(marker);
+            this.points.add(point);
+            this.instances.add(point, orientation);
+        }
+    }
+
+    protected class BatchPickedObjectFactory implements PickedObjectFactory {
+        protected final int firstColorCode;
+        protected final MarkerBatch batch;
+        protected final int[] indices;
+
+        public BatchPickedObjectFactory(int firstColorCode, MarkerBatch batch, int[] indices) {
+            this.firstColorCode = firstColorCode;
+            this.batch = batch;
+            this.indices = indices;
+        }
+
+        public PickedObject createPickedObject(int colorCode) {
+            int i = this.indices[colorCode - this.firstColorCode];
+            Marker marker = this.batch.markers.get(i);
+
+            PickedObject po = new PickedObject(colorCode, marker, marker.getPosition(), false);
+            po.set(Keys.PICKED_OBJECT_ID, this.batch.markerIndices[i]);
+            if (MarkerRenderer.this.enablePickSizeReturn)
+                po.set(Keys.PICKED_OBJECT_SIZE, 2 * this.batch.instances.getScale(i));
+            return po;
+        }
+    }
+
+    protected class OrderedMarkerBatch implements OrderedRenderable {
+        protected final MarkerBatch batch;
+        protected final Layer layer;
+        protected final double eyeDistance;
+
+        public OrderedMarkerBatch(MarkerBatch batch, Layer layer, double eyeDistance) {
+            this.batch = batch;
+            this.layer = layer;
+            this.eyeDistance = eyeDistance;
+        }
+
+        public double getDistanceFromEye() {
+            return this.eyeDistance;
+        }
+
+        public void pick(DrawContext dc, Point pickPoint) {
+            MarkerRenderer.this.drawBatch(dc, this.batch, pickPoint, this.layer);
+        }
+
+        public void render(DrawContext dc) {
+            MarkerRenderer.this.drawBatch(dc, this.batch, null, this.layer);
+        }
+    }
+
     //**************************************************************//
     //********************  Ordered Renderable  ********************//
     //**************************************************************//
@@ -7,6 +7,7 @@ package gov.nasa.worldwind.retrieve;
 
 import gov.nasa.worldwind.*;
 import gov.nasa.worldwind.util.Logging;
+import gov.nasa.worldwind.util.instrument.*;
 
 import javax.net.ssl.SSLHandshakeException;
 import java.net.*;
@@ -92,7 +93,9 @@ import java.util.logging.Level;
         });
         if (X == x) {
             X.retriever.setSubmitEpochNow();
+            X.submitNanos = System.nanoTime();
             executor.execute(X);
+            Instrumentation.recordRetrievalQueueDepth(this.executor.getQueue().size());
         }
         return X;
     }
@@ -133,6 +136,10 @@ import java.util.logging.Level;
         private final String name;
         private final int hash;
         private double priority; // retrieval secondary priority (primary priority is submit time)
+        // Instrumentation: when the task was queued and started, and the Flight Recorder event spanning its execution
+        private long submitNanos;
+        private long startNanos;
+        private RetrievalEvent event;
 
         private RetrievalTask(Retriever retriever, double priority) {
             super(retriever);
@@ -243,6 +250,13 @@ import java.util.logging.Level;
             thread.setPriority(Thread.MIN_PRIORITY); // Subordinate thread priority to rendering
             thread.setUncaughtExceptionHandler(BasicRetrievalService.this);
 
+            int queueDepth = this.getQueue().size();
+            Instrumentation.recordRetrievalQueueDepth(queueDepth);
+            task.startNanos = System.nanoTime();
+            task.event = new RetrievalEvent();
+            task.event.begin();
+            task.event.queueDepth = queueDepth;
+
             super.beforeExecute(thread, runnable);
 //            }
         }
@@ -260,6 +274,19 @@ import java.util.logging.Level;
             if (!removed)
                 throw new RuntimeException();
 
+            long queueNanos = task.startNanos - task.submitNanos;
+            Instrumentation.recordRetrieval(queueNanos, System.nanoTime() - task.startNanos);
+            RetrievalEvent event = task.event;
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.name = task.name;
+                    event.queueNanos = queueNanos;
+                    event.commit();
+                }
+                task.event = null;
+            }
+
             super.afterExecute(runnable, throwable);
 
             try {
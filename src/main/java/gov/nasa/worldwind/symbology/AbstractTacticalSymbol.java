@@ -51,10 +51,11 @@ public abstract class AbstractTacticalSymbol extends WWObjectImpl implements Tac
     protected static final long DEFAULT_MAX_TIME_SINCE_LAST_USED = 10000;
     /**
      * The default glyph texture atlas. This texture atlas holds all glyph images loaded by calls to
-     * <code>layoutGlyphModifier</code>. Initialized with initial dimensions of 1024x128 and maximum dimensions of
-     * 2048x2048. Configured to remove the least recently used texture elements when more space is needed.
+     * <code>layoutGlyphModifier</code>. Initialized with pages of initial dimensions 1024x128 and maximum dimensions of
+     * 2048x2048, up to 4 pages. Configured to remove the least recently used texture elements when all pages are full.
      */
-    protected static final TextureAtlas DEFAULT_GLYPH_ATLAS = new TextureAtlas(1024, 128, 2048, 2048);
+    protected static final MultiPageTextureAtlas DEFAULT_GLYPH_ATLAS = new MultiPageTextureAtlas(1024, 128, 2048,
+        2048, 4);
     /**
      * Maximum expected size of a symbol, used to estimate screen bounds for view frustum culling. This value is
      * configured a bit higher than a symbol is likely to be drawn in practice to err on the side of not culling a
@@ -197,7 +198,7 @@ public abstract class AbstractTacticalSymbol extends WWObjectImpl implements Tac
     protected boolean unresolvedGlyph;
     protected WWTexture iconTexture;
     protected WWTexture activeIconTexture;
-    protected TextureAtlas glyphAtlas;
+    protected MultiPageTextureAtlas glyphAtlas;
     /**
      * Unit format used to format location and altitude for text modifiers.
      */
@@ -221,6 +222,11 @@ public abstract class AbstractTacticalSymbol extends WWObjectImpl implements Tac
      * The LOD selector specified by the application, or null if none specified (the default).
      */
     protected LODSelector LODSelector;
+    /**
+     * Incremented each time a property affecting this symbol's placement or icon changes. Used by {@link
+     * TacticalSymbolBatchRenderer} to update its per-symbol state only for symbols that have changed. Initially 0.
+     */
+    protected long stateVersion;
 
     /**
      * Constructs a new symbol with no position.
@@ -311,6 +317,7 @@ public abstract class AbstractTacticalSymbol extends WWObjectImpl implements Tac
      */
     public void setHighlighted(boolean highlighted) {
         this.highlighted = highlighted;
+        this.stateChanged();
     }
 
     /**
@@ -335,6 +342,7 @@ public abstract class AbstractTacticalSymbol extends WWObjectImpl implements Tac
             this.formattedPosition = null;
 
         this.position = position;
+        this.stateChanged();
     }
 
     /**
@@ -349,6 +357,7 @@ public abstract class AbstractTacticalSymbol extends WWObjectImpl implements Tac
      */
     public void setAltitudeMode(int altitudeMode) {
         this.altitudeMode = altitudeMode;
+        this.stateChanged();
     }
 
     /**
@@ -455,6 +464,7 @@ public abstract class AbstractTacticalSymbol extends WWObjectImpl implements Tac
         }
 
         this.modifiers.set(modifier, value);
+        this.stateChanged();
     }
 
     /**
@@ -469,6 +479,7 @@ public abstract class AbstractTacticalSymbol extends WWObjectImpl implements Tac
      */
     public void setAttributes(TacticalSymbolAttributes normalAttrs) {
         this.normalAttrs = normalAttrs; // Null is accepted, and indicates the default attributes are used.
+        this.stateChanged();
     }
 
     /**
@@ -483,6 +494,7 @@ public abstract class AbstractTacticalSymbol extends WWObjectImpl implements Tac
      */
     public void setHighlightAttributes(TacticalSymbolAttributes highlightAttrs) {
         this.highlightAttrs = highlightAttrs; // Null is accepted, and indicates the default highlight attributes.
+        this.stateChanged();
     }
 
     /**
@@ -621,6 +633,7 @@ public abstract class AbstractTacticalSymbol extends WWObjectImpl implements Tac
      */
     public void setOffset(Offset offset) {
         this.offset = offset;
+        this.stateChanged();
     }
 
     /**
@@ -656,6 +669,19 @@ public abstract class AbstractTacticalSymbol extends WWObjectImpl implements Tac
 
     protected void setIconRetriever(IconRetriever retriever) {
         this.iconRetriever = retriever;
+        this.stateChanged();
+    }
+
+    /**
+     * Returns the identifier passed to this symbol's icon retriever. Symbols that share an icon share a single composed
+     * image through the {@link IconCompositionCache}, so subclasses should override this method to mask any fields of
+     * the identifier that do not affect the icon's appearance. The default implementation returns this symbol's
+     * identifier.
+     *
+     * @return the identifier of this symbol's icon.
+     */
+    protected String getIconSymbolId() {
+        return this.getIdentifier();
     }
 
     protected IconRetriever getModifierRetriever() {
@@ -667,11 +693,11 @@ public abstract class AbstractTacticalSymbol extends WWObjectImpl implements Tac
         this.reset();
     }
 
-    protected TextureAtlas getGlyphAtlas() {
+    protected MultiPageTextureAtlas getGlyphAtlas() {
         return this.glyphAtlas;
     }
 
-    protected void setGlyphAtlas(TextureAtlas atlas) {
+    protected void setGlyphAtlas(MultiPageTextureAtlas atlas) {
         // Note that we do not explicitly remove this symbol's glyphs from the old atlas. The modifier texture atlas
         // should be  configured to evict the oldest glyphs when the atlas is full. Leaving this symbol's glyphs in the
         // atlas does not incur any additional overhead, and has the benefit of ensuring that we do not remove glyphs
@@ -853,6 +879,24 @@ public abstract class AbstractTacticalSymbol extends WWObjectImpl implements Tac
     protected void reset() {
         this.staticScreenRect = null;
         this.staticLayoutRect = null;
+        this.stateChanged();
+    }
+
+    /**
+     * Indicates the number of times a property affecting this symbol's placement or icon has changed.
+     *
+     * @return this symbol's state version.
+     */
+    protected long getStateVersion() {
+        return this.stateVersion;
+    }
+
+    /**
+     * Marks this symbol's placement or icon as changed. Subclasses call this method when they change a property that
+     * affects either, without otherwise invalidating the symbol's layout.
+     */
+    protected void stateChanged() {
+        this.stateVersion++;
     }
 
     protected void layout(DrawContext dc, OrderedSymbol osym) {
@@ -864,7 +908,7 @@ public abstract class AbstractTacticalSymbol extends WWObjectImpl implements Tac
 
         // If the icon retrieval parameters have changed then the icon needs to be updated, which may affect layout.
         KV retrieverParams = this.assembleIconRetrieverParameters(null);
-        IconSource iconSource = new IconSource(this.getIconRetriever(), this.getIdentifier(), retrieverParams);
+        IconSource iconSource = new IconSource(this.getIconRetriever(), this.getIconSymbolId(), retrieverParams);
 
         // Compute layout of icon and static modifiers only when necessary.
         if (this.mustLayout(iconSource, modifierParams) || dc.isContinuous2DGlobe()) {
@@ -1700,12 +1744,19 @@ public abstract class AbstractTacticalSymbol extends WWObjectImpl implements Tac
         if (this.glyphAtlas == null || this.currentGlyphs.isEmpty())
             return;
 
-        if (!this.glyphAtlas.bind(dc))
-            return;
-
         GL2 gl = dc.getGL2(); // GL initialization checks for GL2 compatibility.
+        TextureAtlas boundPage = null;
 
         for (IconAtlasElement atlasElem : this.currentGlyphs) {
+            // Glyphs may reside on different pages of the glyph atlas. Bind a page only when it differs from the page
+            // bound for the previous glyph, since consecutive glyphs usually share a page.
+            TextureAtlas page = atlasElem.getTextureAtlas();
+            if (page != boundPage) {
+                if (!page.bind(dc))
+                    continue;
+                boundPage = page;
+            }
+
             Point point = atlasElem.getPoint();
             Dimension size = atlasElem.getSize();
             TextureCoords texCoords = atlasElem.getTexCoords();
@@ -1900,8 +1951,8 @@ public abstract class AbstractTacticalSymbol extends WWObjectImpl implements Tac
         protected TextureData createIconTextureData() {
             try {
                 IconSource source = (IconSource) this.getImageSource();
-                BufferedImage image = source.getRetriever().createIcon(source.getSymbolId(),
-                    source.getRetrieverParams());
+                BufferedImage image = IconCompositionCache.getInstance().getIcon(source.getRetriever(),
+                    source.getSymbolId(), source.getRetrieverParams());
 
                 if (image == null) {
                     // IconRetriever returns null if the symbol identifier is not recognized, or if the parameter list
@@ -1975,8 +2026,50 @@ public abstract class AbstractTacticalSymbol extends WWObjectImpl implements Tac
          */
         protected long lastUsed = System.currentTimeMillis();
 
-        public IconAtlasElement(TextureAtlas atlas, IconSource source) {
-            super(atlas, source);
+        /**
+         * The paged atlas holding this element's image. The page this element resides on may change if the element
+         * is evicted and loaded again, so the page is resolved on each access.
+         */
+        protected MultiPageTextureAtlas pagedAtlas;
+
+        public IconAtlasElement(MultiPageTextureAtlas atlas, IconSource source) {
+            super(atlas.getCurrentPage(), source);
+            this.pagedAtlas = atlas;
+        }
+
+        /**
+         * Returns the page of this element's paged atlas that holds this element's image, or the atlas' current page
+         * if the image has not been added.
+         *
+         * @return the texture atlas page associated with this element.
+         */
+        @Override
+        public TextureAtlas getTextureAtlas() {
+            TextureAtlas page = this.pagedAtlas.getPage(this.getImageSource());
+            return page != null ? page : this.pagedAtlas.getCurrentPage();
+        }
+
+        @Override
+        protected boolean addAtlasImage() {
+            if (this.getImage() == null) {
+                String msg = Logging.getMessage("nullValue.ImageIsNull");
+                Logging.logger().severe(msg);
+                throw new IllegalStateException(msg);
+            }
+
+            try {
+                // Place this element's image on a page with room for it, then release our reference to the image.
+                this.pagedAtlas.add(this.getImageSource(), this.getImage());
+                this.setImage(null);
+            }
+            catch (RuntimeException e) {
+                String msg = Logging.getMessage("TextureAtlas.ExceptionAddingImage", this.getImageSource().toString());
+                Logging.logger().log(Level.SEVERE, msg, e);
+                this.imageInitializationFailed = true;
+                return false;
+            }
+
+            return true;
         }
 
         public Point getPoint() {
@@ -2000,8 +2093,8 @@ public abstract class AbstractTacticalSymbol extends WWObjectImpl implements Tac
         protected BufferedImage createModifierImage() {
             try {
                 IconSource source = (IconSource) this.getImageSource();
-                BufferedImage image = source.getRetriever().createIcon(source.getSymbolId(),
-                    source.getRetrieverParams());
+                BufferedImage image = IconCompositionCache.getInstance().getIcon(source.getRetriever(),
+                    source.getSymbolId(), source.getRetrieverParams());
 
                 if (image == null) {
                     // ModifierRetriever returns null if the modifier or its value is not recognized. In either case, we
@@ -0,0 +1,352 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.symbology;
+
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.avlist.KV;
+import gov.nasa.worldwind.cache.*;
+import gov.nasa.worldwind.util.*;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.*;
+import java.io.*;
+import java.net.URL;
+import java.util.List;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+
+/**
+ * A process-wide cache of composed symbol icons. Composing a tactical symbol icon from its frame, fill and icon
+ * components is expensive relative to drawing it, and a scene with many symbols typically shows a small number of
+ * distinct icons. This cache composes each distinct icon once and shares the result among every symbol that displays
+ * it.
+ * <p>
+ * Icons are identified by their retriever, symbol identifier and retriever parameters. Callers should normalize symbol
+ * identifiers before requesting an icon, so that identifiers differing only in fields which do not affect the icon's
+ * appearance share a single entry. See {@link gov.nasa.worldwind.symbology.milstd2525.MilStd2525TacticalSymbol#getIconSymbolId()}.
+ * <p>
+ * The cache has two tiers. The first tier is a memory cache registered with the World Wind memory cache set, and is
+ * bounded by the configuration property {@link Keys#SYMBOL_ICON_CACHE_SIZE}. The second tier is the World Wind file
+ * store, where composed icons are written as PNG images so that they need not be composed again in subsequent sessions.
+ * Icons are written to the file store on task service threads.
+ * The file store tier can be disabled by calling {@link #setPersistent(boolean)}.
+ * <p>
+ * Icons returned by this cache are shared, and must not be modified.
+ */
+public class IconCompositionCache {
+    protected static final String CACHE_NAME = "Symbol Icons";
+    protected static final String CACHE_KEY = IconCompositionCache.class.getName();
+    /**
+     * The default memory capacity, in bytes, when the configuration does not specify one: 32 MB.
+     */
+    protected static final long DEFAULT_CACHE_SIZE = 32000000L;
+    /**
+     * The file store path under which composed icons are persisted.
+     */
+    protected static final String DEFAULT_CACHE_PATH = "Symbology/IconCache";
+    protected static final String ICON_SUFFIX = ".png";
+
+    protected static volatile IconCompositionCache instance;
+
+    protected final MemoryCache memoryCache;
+    protected String cachePath = IconCompositionCache.DEFAULT_CACHE_PATH;
+    protected volatile boolean persistent = true;
+
+    /**
+     * Returns the process-wide icon composition cache, creating it if necessary.
+     *
+     * @return the shared icon composition cache.
+     */
+    public static IconCompositionCache getInstance() {
+        IconCompositionCache cache = IconCompositionCache.instance;
+        if (cache == null) {
+            synchronized (IconCompositionCache.class) {
+                cache = IconCompositionCache.instance;
+                if (cache == null) {
+                    cache = new IconCompositionCache();
+                    IconCompositionCache.instance = cache;
+                }
+            }
+        }
+
+        return cache;
+    }
+
+    /**
+     * Creates an icon composition cache that shares its memory tier with any other cache created in this process. Most
+     * applications should use {@link #getInstance()} instead.
+     */
+    protected IconCompositionCache() {
+        if (!WorldWind.getMemoryCacheSet().containsCache(IconCompositionCache.CACHE_KEY)) {
+            long size = Configuration.getLongValue(Keys.SYMBOL_ICON_CACHE_SIZE,
+                IconCompositionCache.DEFAULT_CACHE_SIZE);
+            MemoryCache cache = new SoftMemoryCache(size);
+            cache.setName(IconCompositionCache.CACHE_NAME);
+            WorldWind.getMemoryCacheSet().addCache(IconCompositionCache.CACHE_KEY, cache);
+        }
+
+        this.memoryCache = WorldWind.getMemoryCacheSet().getCache(IconCompositionCache.CACHE_KEY);
+    }
+
+    /**
+     * Indicates whether composed icons are written to and read from the World Wind file store.
+     *
+     * @return <code>true</code> if icons are persisted, otherwise <code>false</code>.
+     */
+    public boolean isPersistent() {
+        return this.persistent;
+    }
+
+    /**
+     * Specifies whether composed icons are written to and read from the World Wind file store. Enabled by default.
+     *
+     * @param persistent <code>true</code> to persist icons, otherwise <code>false</code>.
+     */
+    public void setPersistent(boolean persistent) {
+        this.persistent = persistent;
+    }
+
+    /**
+     * Returns the memory cache backing this icon cache's memory tier.
+     *
+     * @return this icon cache's memory cache.
+     */
+    public MemoryCache getMemoryCache() {
+        return this.memoryCache;
+    }
+
+    /**
+     * Returns the icon for the specified symbol, composing it with the retriever only if the icon is not already in
+     * this cache's memory or file store.
+     *
+     * @param retriever the retriever that composes the icon if necessary.
+     * @param symbolId  the symbol identifier, in the retriever's symbol set.
+     * @param params    parameters that affect the icon's composition. May be <code>null</code>.
+     * @return the composed icon, or <code>null</code> if the retriever cannot compose an icon for the symbol.
+     * @throws IllegalArgumentException if the retriever or symbol identifier is <code>null</code>.
+     */
+    public BufferedImage getIcon(IconRetriever retriever, String symbolId, KV params) {
+        if (retriever == null) {
+            String msg = Logging.getMessage("nullValue.RetrieverIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (symbolId == null) {
+            String msg = Logging.getMessage("nullValue.SymbolCodeIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        String key = this.createKey(retriever, symbolId, params);
+
+        BufferedImage image = (BufferedImage) this.memoryCache.getObject(key);
+        if (image != null)
+            return image;
+
+        if (this.isPersistent())
+            image = this.readIcon(key, symbolId);
+
+        if (image == null) {
+            image = retriever.createIcon(symbolId, params);
+            if (image == null)
+                return null;
+
+            if (this.isPersistent())
+                this.requestWriteIcon(key, symbolId, image);
+        }
+
+        this.memoryCache.add(key, image, IconCompositionCache.computeSizeInBytes(image));
+        return image;
+    }
+
+    /**
+     * Indicates whether this cache's memory tier holds the icon for the specified symbol.
+     *
+     * @param retriever the retriever that composes the icon.
+     * @param symbolId  the symbol identifier.
+     * @param params    parameters that affect the icon's composition. May be <code>null</code>.
+     * @return <code>true</code> if the icon is in memory, otherwise <code>false</code>.
+     */
+    public boolean contains(IconRetriever retriever, String symbolId, KV params) {
+        return this.memoryCache.contains(this.createKey(retriever, symbolId, params));
+    }
+
+    /**
+     * Composes the icons for the specified symbols on the common fork-join pool, so that they are available in memory
+     * before the symbols are first displayed. See {@link #prewarm(IconRetriever, Iterable, KV, Executor)}.
+     *
+     * @param retriever the retriever that composes the icons.
+     * @param symbolIds the symbol identifiers to compose icons for.
+     * @param params    parameters that affect the icons' composition. May be <code>null</code>.
+     * @return a future that completes when every icon has been composed or loaded.
+     */
+    public CompletableFuture<Void> prewarm(IconRetriever retriever, Iterable<String> symbolIds, KV params) {
+        return this.prewarm(retriever, symbolIds, params, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Composes the icons for the specified symbols on the specified executor, so that they are available in memory
+     * before the symbols are first displayed. Identifiers whose icons cannot be composed are logged and skipped; they
+     * do not cause the returned future to complete exceptionally.
+     *
+     * @param retriever the retriever that composes the icons.
+     * @param symbolIds the symbol identifiers to compose icons for.
+     * @param params    parameters that affect the icons' composition. May be <code>null</code>.
+     * @param executor  the executor that composes the icons.
+     * @return a future that completes when every icon has been composed or loaded.
+     * @throws IllegalArgumentException if the retriever, symbol identifiers or executor is <code>null</code>.
+     */
+    public CompletableFuture<Void> prewarm(IconRetriever retriever, Iterable<String> symbolIds, KV params,
+        Executor executor) {
+        if (retriever == null) {
+            String msg = Logging.getMessage("nullValue.RetrieverIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (symbolIds == null) {
+            String msg = Logging.getMessage("nullValue.IterableIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (executor == null) {
+            String msg = Logging.getMessage("nullValue.ExecutorIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        // De-duplicate the identifiers so that each distinct icon is composed by exactly one task.
+        Set<String> distinctIds = new LinkedHashSet<>();
+        for (String symbolId : symbolIds) {
+            if (symbolId != null)
+                distinctIds.add(symbolId);
+        }
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(distinctIds.size());
+        for (String symbolId : distinctIds) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                try {
+                    this.getIcon(retriever, symbolId, params);
+                }
+                catch (RuntimeException e) {
+                    String msg = Logging.getMessage("Symbology.ExceptionRetrievingTacticalIcon", symbolId);
+                    Logging.logger().log(Level.WARNING, msg, e);
+                }
+            }, executor));
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Creates the key identifying an icon. The key is a string containing the retriever's identity, the symbol
+     * identifier and the retriever parameters in a canonical order, so that equal requests produce equal keys
+     * regardless of parameter insertion order.
+     *
+     * @param retriever the retriever that composes the icon.
+     * @param symbolId  the symbol identifier.
+     * @param params    parameters that affect the icon's composition. May be <code>null</code>.
+     * @return the icon's key.
+     */
+    protected String createKey(IconRetriever retriever, String symbolId, KV params) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(retriever.getClass().getName());
+        if (retriever instanceof AbstractIconRetriever)
+            sb.append('@').append(((AbstractIconRetriever) retriever).getRetrieverPath());
+        sb.append('|').append(symbolId);
+
+        if (params != null) {
+            SortedMap<String, Object> sorted = new TreeMap<>();
+            for (Map.Entry<String, Object> entry : params.getEntries()) {
+                sorted.put(entry.getKey(), entry.getValue());
+            }
+
+            for (Map.Entry<String, Object> entry : sorted.entrySet()) {
+                sb.append('|').append(entry.getKey()).append('=');
+                Object value = entry.getValue();
+                if (value instanceof Color)
+                    sb.append(String.format("#%08X", ((Color) value).getRGB()));
+                else
+                    sb.append(value);
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Returns the file store path of an icon. The path combines the symbol identifier, for readability, with a 64-bit
+     * hash of the icon's full key, which distinguishes icons for the same symbol composed with different parameters.
+     *
+     * @param key      the icon's key.
+     * @param symbolId the symbol identifier.
+     * @return the icon's path in the file store.
+     */
+    protected String createIconPath(String key, String symbolId) {
+        String name = WWIO.replaceIllegalFileNameCharacters(symbolId) + '_'
+            + String.format("%016x", WWUtil.hash64(key)) + IconCompositionCache.ICON_SUFFIX;
+        return WWIO.formPath(this.cachePath, name);
+    }
+
+    protected BufferedImage readIcon(String key, String symbolId) {
+        String path = this.createIconPath(key, symbolId);
+        URL url = Configuration.data.findFile(path, false);
+        if (url == null)
+            return null;
+
+        try {
+            return ImageIO.read(url);
+        }
+        catch (IOException | RuntimeException e) {
+            String msg = Logging.getMessage("Symbology.ExceptionReadingCachedIcon", url);
+            Logging.logger().log(Level.WARNING, msg, e);
+            Configuration.data.removeFile(url); // Discard the unreadable file so that it is written again.
+            return null;
+        }
+    }
+
+    /**
+     * Writes an icon to the file store on a task service thread, so that composing an icon on the rendering thread does
+     * not wait for the PNG encoder or the disk. An icon that is not written, because the task service is full or the
+     * write fails, is composed again in a later session.
+     *
+     * @param key      the icon's key.
+     * @param symbolId the symbol identifier.
+     * @param image    the composed icon.
+     */
+    protected void requestWriteIcon(String key, String symbolId, BufferedImage image) {
+        WorldWind.tasks().addTask(() -> this.writeIcon(key, symbolId, image));
+    }
+
+    protected void writeIcon(String key, String symbolId, BufferedImage image) {
+        String path = this.createIconPath(key, symbolId);
+        File file = Configuration.data.newFile(path);
+        if (file == null)
+            return;
+
+        // Write to a temporary file in the same directory and then rename it, so that a concurrent reader never sees a
+        // partially written icon.
+        File tmpFile = new File(file.getParentFile(), file.getName() + '.' + Thread.currentThread().getId() + ".tmp");
+        try {
+            if (ImageIO.write(image, "png", tmpFile) && !tmpFile.renameTo(file))
+                tmpFile.delete();
+        }
+        catch (IOException | RuntimeException e) {
+            String msg = Logging.getMessage("Symbology.ExceptionWritingCachedIcon", file);
+            Logging.logger().log(Level.WARNING, msg, e);
+            tmpFile.delete();
+        }
+    }
+
+    protected static long computeSizeInBytes(BufferedImage image) {
+        return 4L * image.getWidth() * image.getHeight();
+    }
+}
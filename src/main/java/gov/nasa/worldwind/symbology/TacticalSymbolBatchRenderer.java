@@ -0,0 +1,1067 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.symbology;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.*;
+import com.jogamp.opengl.util.texture.TextureCoords;
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.GlobeStateKey;
+import gov.nasa.worldwind.layers.Layer;
+import gov.nasa.worldwind.pick.*;
+import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.terrain.SectorGeometryList;
+import gov.nasa.worldwind.util.*;
+
+import java.awt.*;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.beans.*;
+import java.nio.*;
+import java.util.List;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+
+/**
+ * Draws large numbers of tactical symbols as a single batch. Each symbol is drawn as a screen-aligned textured quad
+ * whose texture is the symbol's icon, taken from a texture atlas shared by all symbols. The renderer keeps each
+ * symbol's state in parallel arrays indexed by a slot number assigned to the symbol the first time it is drawn, and
+ * recomputes a slot's icon and placement only when the symbol's state version changes, and the placement of a symbol
+ * relative to the terrain only when the terrain changes. See {@link AbstractTacticalSymbol#stateChanged()}. Slots of
+ * symbols that are no longer drawn, and icons no longer referenced by any slot, are released periodically.
+ * <p>
+ * Each frame the renderer projects every symbol to the screen, culls those outside the viewport, and writes the
+ * remaining quads to vertex arrays. It then draws each page of the icon atlas with a single call to
+ * <code>glDrawArrays</code>. Within a page, quads are drawn from the farthest symbol to the nearest. Picking draws the
+ * same quads in unique pick colors, and registers a single pick color range for all symbols.
+ * <p>
+ * Only symbol icons are drawn in a batch. Symbols that must draw graphic or text modifiers are rendered individually
+ * by calling their <code>render</code> method, unless {@link #setDrawModifiers(boolean)} is set to
+ * <code>false</code>, in which case their modifiers are not drawn. Symbols that do not extend {@link
+ * AbstractTacticalSymbol} are always rendered individually.
+ * <p>
+ * Icons are composed on the World Wind task service through the {@link IconCompositionCache}. Symbols whose icons have
+ * not been composed are not drawn until their icon is available. The renderer notifies its listener with a {@link
+ * Keys#REPAINT} property change event when an icon becomes available.
+ *
+ * @see gov.nasa.worldwind.layers.TacticalSymbolLayer
+ */
+public class TacticalSymbolBatchRenderer {
+    /**
+     * The default icon atlas. Holds the icons of all symbols drawn by any batch renderer. Initialized with pages of
+     * initial dimensions 1024x1024 and maximum dimensions 2048x2048, up to 8 pages. Configured to remove the least
+     * recently used icons when all pages are full.
+     */
+    protected static final MultiPageTextureAtlas DEFAULT_ICON_ATLAS = new MultiPageTextureAtlas(1024, 1024, 2048,
+        2048, 8);
+    /**
+     * The number of frames after which the slot of a symbol that has not been drawn is released.
+     */
+    protected static final int SLOT_EXPIRATION_FRAMES = 120;
+    protected static final int INITIAL_CAPACITY = 256;
+    /**
+     * The maximum number of symbols drawn in a single frame. Determined by the number of bits available for the symbol
+     * index in the sort keys computed by {@link #sortVisibleSlots()}.
+     */
+    protected static final int MAX_VISIBLE_SYMBOLS = 1 << 23;
+    protected static final int DEPTH_BITS = 21;
+    protected static final int INDEX_BITS = 23;
+
+    static {
+        TacticalSymbolBatchRenderer.DEFAULT_ICON_ATLAS.setEvictOldElements(true);
+    }
+
+    protected final MultiPageTextureAtlas iconAtlas;
+    protected boolean drawModifiers = true;
+    protected PropertyChangeListener listener;
+
+    // Slot assignment. Slots are assigned to symbols the first time they are drawn, and released when a symbol has not
+    // been drawn for SLOT_EXPIRATION_FRAMES frames.
+    protected final Map<AbstractTacticalSymbol, Integer> slotMap = new IdentityHashMap<>();
+    protected int[] freeSlots = new int[TacticalSymbolBatchRenderer.INITIAL_CAPACITY];
+    protected int numFreeSlots;
+    protected int numSlots;
+
+    // Per-symbol state, stored in parallel arrays indexed by slot.
+    protected AbstractTacticalSymbol[] symbols;
+    protected long[] stateVersion;
+    protected long[] lastFrame;
+    protected int[] iconIndex;
+    protected Material[] iconMaterial;
+    protected boolean[] placed;
+    protected boolean[] terrainRelative;
+    protected long[] terrainVersion;
+    protected double[] modelX;
+    protected double[] modelY;
+    protected double[] modelZ;
+    protected float[] offsetX;
+    protected float[] offsetY;
+    protected float[] screenX;
+    protected float[] screenY;
+    protected float[] screenZ;
+    protected float[] scale;
+    protected float[] opacity;
+
+    // Distinct icons referenced by the slots. Each slot refers to an icon by its index in the icons list. Icons no
+    // longer referenced by any slot are released along with expired slots, leaving a null entry whose index is reused.
+    protected final List<IconEntry> icons = new ArrayList<>();
+    protected int[] freeIcons = new int[TacticalSymbolBatchRenderer.INITIAL_CAPACITY];
+    protected int numFreeIcons;
+    protected final Map<AbstractTacticalSymbol.IconSource, Integer> iconIndexMap = new HashMap<>();
+    protected final Map<AbstractTacticalSymbol.IconSource, BufferedImage> loadedIcons = new ConcurrentHashMap<>();
+    protected final Set<AbstractTacticalSymbol.IconSource> requestedIcons = ConcurrentHashMap.newKeySet();
+    // Icons the composition cache could not compose, queued by task threads and marked failed on the rendering thread.
+    protected final Queue<AbstractTacticalSymbol.IconSource> failedIcons = new ConcurrentLinkedQueue<>();
+
+    // Per-frame state.
+    protected long frameNumber;
+    protected GlobeStateKey globeStateKey;
+    protected double verticalExaggeration;
+    // The sectors of the current terrain tiles, the time the terrain was last found to have changed, and a version
+    // number incremented on each change. Each terrain-relative slot records the version it was placed on.
+    protected final List<Sector> terrainSectors = new ArrayList<>();
+    protected long terrainChangeTime;
+    protected long currentTerrainVersion;
+    protected int[] visibleSlots = new int[TacticalSymbolBatchRenderer.INITIAL_CAPACITY];
+    protected long[] sortKeys = new long[TacticalSymbolBatchRenderer.INITIAL_CAPACITY];
+    protected int numVisible;
+    protected double nearestEyeDistance;
+    protected final double[] mvp = new double[16];
+    protected final Rectangle screenRect = new Rectangle();
+    protected FloatBuffer vertexBuffer;
+    protected FloatBuffer texCoordBuffer;
+    protected ByteBuffer colorBuffer;
+    protected final PickSupport pickSupport = new PickSupport();
+    protected final OGLStackHandler stackHandler = new OGLStackHandler();
+    protected final OrderedBatch orderedBatch = new OrderedBatch();
+    protected long lastUpdateNanos;
+    protected long lastDrawNanos;
+
+    /**
+     * Creates a batch renderer that uses the default icon atlas.
+     */
+    public TacticalSymbolBatchRenderer() {
+        this(TacticalSymbolBatchRenderer.DEFAULT_ICON_ATLAS);
+    }
+
+    /**
+     * Creates a batch renderer that places symbol icons in the specified atlas.
+     *
+     * @param iconAtlas the atlas that holds symbol icons.
+     * @throws IllegalArgumentException if the atlas is <code>null</code>.
+     */
+    public TacticalSymbolBatchRenderer(MultiPageTextureAtlas iconAtlas) {
+        if (iconAtlas == null) {
+            String msg = Logging.getMessage("nullValue.AtlasIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.iconAtlas = iconAtlas;
+        this.ensureCapacity(TacticalSymbolBatchRenderer.INITIAL_CAPACITY);
+    }
+
+    /**
+     * Indicates whether symbols that must draw modifiers are rendered individually.
+     *
+     * @return <code>true</code> if symbols with modifiers are rendered individually, and <code>false</code> if all
+     * symbols are drawn in the batch without their modifiers.
+     */
+    public boolean isDrawModifiers() {
+        return this.drawModifiers;
+    }
+
+    /**
+     * Specifies whether symbols that must draw graphic or text modifiers are rendered individually, with their
+     * modifiers, or drawn in the batch without their modifiers. Rendering symbols individually is considerably slower
+     * than drawing them in the batch. Applications displaying many thousands of symbols should either disable modifiers
+     * on their symbols or set this to <code>false</code>. <code>true</code> by default.
+     *
+     * @param drawModifiers <code>true</code> to render symbols with modifiers individually, otherwise
+     *                      <code>false</code>.
+     */
+    public void setDrawModifiers(boolean drawModifiers) {
+        this.drawModifiers = drawModifiers;
+    }
+
+    /**
+     * Specifies the listener notified when an icon becomes available, so that the scene may be redrawn. May be
+     * <code>null</code>.
+     *
+     * @param listener the listener to notify.
+     */
+    public void setListener(PropertyChangeListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Indicates the number of symbols which currently have a slot in this renderer's per-symbol state.
+     *
+     * @return the number of symbols with state in this renderer.
+     */
+    public int getNumSymbols() {
+        return this.slotMap.size();
+    }
+
+    /**
+     * Indicates the number of symbols drawn in the batch during the most recent frame.
+     *
+     * @return the number of symbols drawn in the most recent frame.
+     */
+    public int getNumVisibleSymbols() {
+        return this.numVisible;
+    }
+
+    /**
+     * Indicates the time spent during the most recent frame updating, projecting and culling symbols: the time spent in
+     * {@link #render(DrawContext, Iterable, Layer)}, including rendering the symbols that are not batched.
+     *
+     * @return the most recent frame's update time, in nanoseconds.
+     */
+    public long getLastUpdateTime() {
+        return this.lastUpdateNanos;
+    }
+
+    /**
+     * Indicates the time spent during the most recent frame sorting the visible symbols, filling the vertex arrays and
+     * drawing the batch. Zero if no symbols were visible.
+     *
+     * @return the most recent frame's draw time, in nanoseconds.
+     */
+    public long getLastDrawTime() {
+        return this.lastDrawNanos;
+    }
+
+    /**
+     * Releases all per-symbol state held by this renderer.
+     */
+    public void clear() {
+        Arrays.fill(this.symbols, 0, this.numSlots, null);
+        this.slotMap.clear();
+        this.numSlots = 0;
+        this.numFreeSlots = 0;
+        this.numVisible = 0;
+        this.icons.clear();
+        this.iconIndexMap.clear();
+        this.numFreeIcons = 0;
+        this.terrainSectors.clear();
+    }
+
+    /**
+     * Renders or picks the specified symbols. Symbols which can be drawn in the batch are culled and queued as a single
+     * ordered renderable. All other symbols are rendered individually.
+     *
+     * @param dc      the current draw context.
+     * @param symbols the symbols to render.
+     * @param layer   the layer associated with picked symbols. May be <code>null</code>.
+     * @throws IllegalArgumentException if the draw context or symbols are <code>null</code>.
+     */
+    public void render(DrawContext dc, Iterable<? extends TacticalSymbol> symbols, Layer layer) {
+        if (dc == null) {
+            String msg = Logging.getMessage("nullValue.DrawContextIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (symbols == null) {
+            String msg = Logging.getMessage("nullValue.IterableIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        long start = System.nanoTime();
+        this.frameNumber++;
+        this.numVisible = 0;
+        this.lastDrawNanos = 0;
+        this.nearestEyeDistance = Double.MAX_VALUE;
+
+        this.beginFrame(dc);
+
+        for (TacticalSymbol symbol : symbols) {
+            if (symbol == null || !symbol.isVisible())
+                continue;
+
+            if (!this.isBatchable(dc, symbol)) {
+                symbol.render(dc);
+                continue;
+            }
+
+            AbstractTacticalSymbol ats = (AbstractTacticalSymbol) symbol;
+            int slot = this.slotFor(ats);
+            this.lastFrame[slot] = this.frameNumber;
+
+            this.updateSlot(dc, slot);
+            if (this.projectSlot(dc, slot))
+                this.addVisibleSlot(slot);
+        }
+
+        this.releaseExpiredSlots();
+
+        if (this.numVisible > 0) {
+            this.orderedBatch.layer = layer;
+            dc.addOrderedRenderable(this.orderedBatch);
+        }
+
+        this.lastUpdateNanos = System.nanoTime() - start;
+    }
+
+    protected boolean isBatchable(DrawContext dc, TacticalSymbol symbol) {
+        if (!(symbol instanceof AbstractTacticalSymbol))
+            return false;
+
+        if (!this.isDrawModifiers())
+            return true;
+
+        AbstractTacticalSymbol ats = (AbstractTacticalSymbol) symbol;
+        return !ats.mustDrawGraphicModifiers(dc) && !ats.mustDrawTextModifiers(dc);
+    }
+
+    /**
+     * Prepares per-frame state shared by all symbols: incorporates icons composed or failed since the last frame,
+     * detects changes to the globe and the terrain that invalidate symbol model coordinates, and computes the
+     * model-view-projection matrix.
+     *
+     * @param dc the current draw context.
+     */
+    protected void beginFrame(DrawContext dc) {
+        // Add icons composed on other threads to the atlas. The atlas is modified only on the rendering thread.
+        if (!this.loadedIcons.isEmpty()) {
+            Iterator<Map.Entry<AbstractTacticalSymbol.IconSource, BufferedImage>> iter =
+                this.loadedIcons.entrySet().iterator();
+            while (iter.hasNext()) {
+                Map.Entry<AbstractTacticalSymbol.IconSource, BufferedImage> entry = iter.next();
+                iter.remove();
+                this.addIconToAtlas(entry.getKey(), entry.getValue());
+            }
+        }
+
+        // Mark icons that failed on other threads, so that they are not requested again. The icon list and index map
+        // are modified only on the rendering thread.
+        AbstractTacticalSymbol.IconSource failed;
+        while ((failed = this.failedIcons.poll()) != null) {
+            Integer index = this.iconIndexMap.get(failed);
+            if (index != null)
+                this.icons.get(index).failed = true;
+        }
+
+        // Model coordinates computed for absolute symbols remain valid until the globe or vertical exaggeration change.
+        GlobeStateKey gsk = dc.getGlobe().getGlobeStateKey(dc);
+        if (!gsk.equals(this.globeStateKey) || dc.getVerticalExaggeration() != this.verticalExaggeration) {
+            this.globeStateKey = gsk;
+            this.verticalExaggeration = dc.getVerticalExaggeration();
+            Arrays.fill(this.placed, 0, this.numSlots, false);
+        }
+
+        // Model coordinates computed for terrain-relative symbols remain valid until the terrain changes.
+        if (this.hasTerrainChanged(dc))
+            this.currentTerrainVersion++;
+
+        Matrix m = dc.view().getProjectionMatrix().multiply(dc.view().getModelviewMatrix());
+        m.toArray(this.mvp, 0, true);
+    }
+
+    /**
+     * Indicates whether the terrain may have changed since the previous frame: when the tessellator has selected
+     * different terrain tiles, as it does when the view moves, or when the tessellator's update
+     * interval has elapsed, after which it regenerates its tiles to incorporate newly arrived elevations. See {@link
+     * gov.nasa.worldwind.terrain.Tessellator#getUpdateFrequency()}.
+     *
+     * @param dc the current draw context.
+     * @return <code>true</code> if the terrain may have changed, otherwise <code>false</code>.
+     */
+    protected boolean hasTerrainChanged(DrawContext dc) {
+        SectorGeometryList terrain = dc.getSurfaceGeometry();
+        int n = terrain != null ? terrain.size() : 0;
+        long now = System.currentTimeMillis();
+
+        boolean changed = n != this.terrainSectors.size()
+            || now - this.terrainChangeTime >= dc.getGlobe().getTessellator().getUpdateFrequency();
+        for (int i = 0; i < n && !changed; i++) {
+            changed = !terrain.get(i).getSector().equals(this.terrainSectors.get(i));
+        }
+
+        if (changed) {
+            this.terrainSectors.clear();
+            for (int i = 0; i < n; i++) {
+                this.terrainSectors.add(terrain.get(i).getSector());
+            }
+            this.terrainChangeTime = now;
+        }
+
+        return changed;
+    }
+
+    protected int slotFor(AbstractTacticalSymbol symbol) {
+        Integer slot = this.slotMap.get(symbol);
+        if (slot != null)
+            return slot;
+
+        int s;
+        if (this.numFreeSlots > 0) {
+            s = this.freeSlots[--this.numFreeSlots];
+        } else {
+            this.ensureCapacity(this.numSlots + 1);
+            s = this.numSlots++;
+        }
+
+        this.slotMap.put(symbol, s);
+        this.symbols[s] = symbol;
+        this.stateVersion[s] = -1; // Force the slot to be updated.
+        this.iconIndex[s] = -1;
+        this.iconMaterial[s] = null;
+        this.placed[s] = false;
+
+        return s;
+    }
+
+    protected void releaseExpiredSlots() {
+        // Scan for expired slots periodically, rather than every frame.
+        if (this.frameNumber % TacticalSymbolBatchRenderer.SLOT_EXPIRATION_FRAMES != 0)
+            return;
+
+        for (int s = 0; s < this.numSlots; s++) {
+            if (this.symbols[s] == null
+                || this.frameNumber - this.lastFrame[s] < TacticalSymbolBatchRenderer.SLOT_EXPIRATION_FRAMES)
+                continue;
+
+            this.slotMap.remove(this.symbols[s]);
+            this.symbols[s] = null;
+
+            if (this.numFreeSlots == this.freeSlots.length)
+                this.freeSlots = Arrays.copyOf(this.freeSlots, 2 * this.freeSlots.length);
+            this.freeSlots[this.numFreeSlots++] = s;
+        }
+
+        this.releaseUnreferencedIcons();
+    }
+
+    /**
+     * Releases the icons not referenced by any slot, so that the icon list and index map hold only the icons of
+     * symbols still being drawn. The released icons' indices are reused for new icons. The icons' images remain in the
+     * icon atlas, which evicts them when it needs the space.
+     */
+    protected void releaseUnreferencedIcons() {
+        boolean[] referenced = new boolean[this.icons.size()];
+        for (int s = 0; s < this.numSlots; s++) {
+            if (this.symbols[s] != null && this.iconIndex[s] >= 0)
+                referenced[this.iconIndex[s]] = true;
+        }
+
+        for (int i = 0; i < referenced.length; i++) {
+            IconEntry icon = this.icons.get(i);
+            if (icon == null || referenced[i])
+                continue;
+
+            this.iconIndexMap.remove(icon.source);
+            this.icons.set(i, null);
+
+            if (this.numFreeIcons == this.freeIcons.length)
+                this.freeIcons = Arrays.copyOf(this.freeIcons, 2 * this.freeIcons.length);
+            this.freeIcons[this.numFreeIcons++] = i;
+        }
+    }
+
+    protected void ensureCapacity(int capacity) {
+        if (this.symbols != null && capacity <= this.symbols.length)
+            return;
+
+        int n = this.symbols != null ? Math.max(capacity, 2 * this.symbols.length) : capacity;
+        this.symbols = this.symbols != null ? Arrays.copyOf(this.symbols, n) : new AbstractTacticalSymbol[n];
+        this.stateVersion = this.stateVersion != null ? Arrays.copyOf(this.stateVersion, n) : new long[n];
+        this.lastFrame = this.lastFrame != null ? Arrays.copyOf(this.lastFrame, n) : new long[n];
+        this.iconIndex = this.iconIndex != null ? Arrays.copyOf(this.iconIndex, n) : new int[n];
+        this.iconMaterial = this.iconMaterial != null ? Arrays.copyOf(this.iconMaterial, n) : new Material[n];
+        this.placed = this.placed != null ? Arrays.copyOf(this.placed, n) : new boolean[n];
+        this.terrainRelative = this.terrainRelative != null ? Arrays.copyOf(this.terrainRelative, n) : new boolean[n];
+        this.terrainVersion = this.terrainVersion != null ? Arrays.copyOf(this.terrainVersion, n) : new long[n];
+        this.modelX = this.modelX != null ? Arrays.copyOf(this.modelX, n) : new double[n];
+        this.modelY = this.modelY != null ? Arrays.copyOf(this.modelY, n) : new double[n];
+        this.modelZ = this.modelZ != null ? Arrays.copyOf(this.modelZ, n) : new double[n];
+        this.offsetX = this.offsetX != null ? Arrays.copyOf(this.offsetX, n) : new float[n];
+        this.offsetY = this.offsetY != null ? Arrays.copyOf(this.offsetY, n) : new float[n];
+        this.screenX = this.screenX != null ? Arrays.copyOf(this.screenX, n) : new float[n];
+        this.screenY = this.screenY != null ? Arrays.copyOf(this.screenY, n) : new float[n];
+        this.screenZ = this.screenZ != null ? Arrays.copyOf(this.screenZ, n) : new float[n];
+        this.scale = this.scale != null ? Arrays.copyOf(this.scale, n) : new float[n];
+        this.opacity = this.opacity != null ? Arrays.copyOf(this.opacity, n) : new float[n];
+    }
+
+    /**
+     * Updates a slot's icon, placement, scale and opacity. The icon and placement are recomputed only if the symbol's
+     * state version or active interior material has changed since the slot was last updated.
+     *
+     * @param dc   the current draw context.
+     * @param slot the slot to update.
+     */
+    protected void updateSlot(DrawContext dc, int slot) {
+        AbstractTacticalSymbol symbol = this.symbols[slot];
+
+        // Compute the symbol's active attributes. This may call the symbol's reset method, and therefore change the
+        // symbol's state version, when the active scale or opacity has changed.
+        symbol.determineActiveAttributes();
+        TacticalSymbolAttributes attrs = symbol.getActiveAttributes();
+        this.scale[slot] = attrs.getScale() != null ? attrs.getScale().floatValue()
+            : (float) BasicTacticalSymbolAttributes.DEFAULT_SCALE;
+        this.opacity[slot] = attrs.getOpacity() != null ? attrs.getOpacity().floatValue()
+            : (float) BasicTacticalSymbolAttributes.DEFAULT_OPACITY;
+
+        // The interior material determines the icon's fill color. Attribute bundles may be modified in place, so we
+        // compare the material's value rather than relying on the symbol's state version.
+        Material material = attrs.getInteriorMaterial();
+        boolean materialChanged = !Objects.equals(material, this.iconMaterial[slot]);
+
+        if (symbol.getStateVersion() != this.stateVersion[slot] || materialChanged) {
+            this.stateVersion[slot] = symbol.getStateVersion();
+            this.iconMaterial[slot] = material;
+            this.placed[slot] = false;
+            this.iconIndex[slot] = this.iconIndexFor(symbol);
+            this.offsetX[slot] = Float.NaN; // Computed when the icon is available.
+        }
+
+        if (!this.placed[slot]
+            || (this.terrainRelative[slot] && this.terrainVersion[slot] != this.currentTerrainVersion))
+            this.placeSlot(dc, slot);
+    }
+
+    protected int iconIndexFor(AbstractTacticalSymbol symbol) {
+        if (symbol.getIconRetriever() == null)
+            return -1;
+
+        KV params = symbol.assembleIconRetrieverParameters(null);
+        AbstractTacticalSymbol.IconSource source = new AbstractTacticalSymbol.IconSource(symbol.getIconRetriever(),
+            symbol.getIconSymbolId(), params);
+
+        Integer index = this.iconIndexMap.get(source);
+        if (index == null) {
+            if (this.numFreeIcons > 0) {
+                index = this.freeIcons[--this.numFreeIcons];
+                this.icons.set(index, new IconEntry(source));
+            } else {
+                index = this.icons.size();
+                this.icons.add(new IconEntry(source));
+            }
+            this.iconIndexMap.put(source, index);
+        }
+
+        return index;
+    }
+
+    protected void placeSlot(DrawContext dc, int slot) {
+        AbstractTacticalSymbol symbol = this.symbols[slot];
+        Position pos = symbol.getPosition();
+        if (pos == null) {
+            this.placed[slot] = false;
+            return;
+        }
+
+        Vec4 point;
+        int altitudeMode = symbol.getAltitudeMode();
+        if (altitudeMode == WorldWind.CLAMP_TO_GROUND || dc.is2DGlobe()) {
+            point = dc.computeTerrainPoint(new Angle(pos.lat), new Angle(pos.lon), 0);
+            this.terrainRelative[slot] = true;
+        } else if (altitudeMode == WorldWind.RELATIVE_TO_GROUND) {
+            point = dc.computeTerrainPoint(new Angle(pos.lat), new Angle(pos.lon), pos.getAltitude());
+            this.terrainRelative[slot] = true;
+        } else // Default to ABSOLUTE
+        {
+            double height = pos.getElevation() * dc.getVerticalExaggeration();
+            point = dc.getGlobe().computePointFromPosition(pos, height);
+            this.terrainRelative[slot] = false;
+        }
+
+        if (point == null) {
+            this.placed[slot] = false;
+            return;
+        }
+
+        this.modelX[slot] = point.x;
+        this.modelY[slot] = point.y;
+        this.modelZ[slot] = point.z;
+        this.terrainVersion[slot] = this.currentTerrainVersion;
+        this.placed[slot] = true;
+    }
+
+    /**
+     * Computes a slot's icon offset in the same manner as {@link AbstractTacticalSymbol#layoutIcon(DrawContext,
+     * AbstractTacticalSymbol.IconSource, AbstractTacticalSymbol.OrderedSymbol)} and {@link
+     * AbstractTacticalSymbol#computeTransform(DrawContext, AbstractTacticalSymbol.OrderedSymbol)}.
+     *
+     * @param slot the slot to compute the offset for.
+     * @param icon the slot's icon.
+     */
+    protected void computeOffset(int slot, IconEntry icon) {
+        AbstractTacticalSymbol symbol = this.symbols[slot];
+        int w = icon.width;
+        int h = icon.height;
+
+        Point2D point = symbol.iconOffset != null ? symbol.iconOffset.computeOffset(w, h, null, null)
+            : new Point(0, 0);
+        Dimension size = symbol.iconSize != null ? symbol.iconSize.compute(w, h, w, h) : new Dimension(w, h);
+        Rectangle iconRect = new Rectangle((int) point.getX(), (int) point.getY(), size.width, size.height);
+
+        if (symbol.getOffset() != null) {
+            Point2D p = symbol.getOffset().computeOffset(iconRect.getWidth(), iconRect.getHeight(), null, null);
+            this.offsetX[slot] = (float) (-iconRect.getX() - p.getX());
+            this.offsetY[slot] = (float) (-iconRect.getY() - p.getY());
+        } else {
+            this.offsetX[slot] = 0;
+            this.offsetY[slot] = 0;
+        }
+    }
+
+    /**
+     * Projects a slot's model point to the screen and determines whether the slot's icon is visible.
+     *
+     * @param dc   the current draw context.
+     * @param slot the slot to project.
+     * @return <code>true</code> if the slot's icon is available and visible, otherwise <code>false</code>.
+     */
+    protected boolean projectSlot(DrawContext dc, int slot) {
+        if (!this.placed[slot])
+            return false;
+
+        int index = this.iconIndex[slot];
+        if (index < 0)
+            return false;
+
+        IconEntry icon = this.resolveIcon(index);
+        if (icon == null)
+            return false;
+
+        // Compute the icon's offset once its dimensions are known.
+        if (Float.isNaN(this.offsetX[slot]))
+            this.computeOffset(slot, icon);
+
+        double x = this.modelX[slot];
+        double y = this.modelY[slot];
+        double z = this.modelZ[slot];
+
+        // Don't draw if beyond the horizon.
+        Vec4 eye = dc.view().getEyePoint();
+        double eyeDistance = Math.sqrt((x - eye.x) * (x - eye.x) + (y - eye.y) * (y - eye.y)
+            + (z - eye.z) * (z - eye.z));
+        if (!dc.is2DGlobe() && eyeDistance > dc.view().getHorizonDistance())
+            return false;
+
+        // Project the point with the model-view-projection matrix, as gluProject does. Points behind the eye or outside
+        // the near and far clip planes are not visible.
+        double[] m = this.mvp;
+        double cw = m[12] * x + m[13] * y + m[14] * z + m[15];
+        if (cw <= 0)
+            return false;
+
+        double cx = (m[0] * x + m[1] * y + m[2] * z + m[3]) / cw;
+        double cy = (m[4] * x + m[5] * y + m[6] * z + m[7]) / cw;
+        double cz = (m[8] * x + m[9] * y + m[10] * z + m[11]) / cw;
+        if (cz < -1 || cz > 1)
+            return false;
+
+        Rectangle viewport = dc.view().getViewport();
+        float sx = (float) (viewport.x + viewport.width * (cx * 0.5 + 0.5));
+        float sy = (float) (viewport.y + viewport.height * (cy * 0.5 + 0.5));
+        float sz = (float) (cz * 0.5 + 0.5);
+
+        // Cull icons that do not intersect the viewport, or the pick frustums when picking.
+        float s = this.scale[slot];
+        int x0 = (int) (sx + s * this.offsetX[slot]);
+        int y0 = (int) (sy + s * this.offsetY[slot]);
+        this.screenRect.setBounds(x0, y0, (int) Math.ceil(s * icon.width), (int) Math.ceil(s * icon.height));
+        if (dc.isPickingMode() ? !dc.getPickFrustums().intersectsAny(this.screenRect)
+            : !viewport.intersects(this.screenRect))
+            return false;
+
+        this.screenX[slot] = sx;
+        this.screenY[slot] = sy;
+        this.screenZ[slot] = sz;
+
+        if (eyeDistance < this.nearestEyeDistance)
+            this.nearestEyeDistance = eyeDistance;
+
+        return true;
+    }
+
+    protected void addVisibleSlot(int slot) {
+        if (this.numVisible >= TacticalSymbolBatchRenderer.MAX_VISIBLE_SYMBOLS)
+            return;
+
+        if (this.numVisible == this.visibleSlots.length)
+            this.visibleSlots = Arrays.copyOf(this.visibleSlots, 2 * this.visibleSlots.length);
+
+        this.visibleSlots[this.numVisible++] = slot;
+    }
+
+    /**
+     * Returns an icon whose image is in the icon atlas, updating its page and texture coordinates once per frame. If
+     * the icon's image is not in the atlas, this requests the image and returns <code>null</code>.
+     *
+     * @param index the icon's index.
+     * @return the icon, or <code>null</code> if the icon's image is not yet available.
+     */
+    protected IconEntry resolveIcon(int index) {
+        IconEntry icon = this.icons.get(index);
+        if (icon.frameNumber == this.frameNumber)
+            return icon.page != null ? icon : null;
+
+        // The atlas may have moved or evicted the icon since the last frame, so look it up again.
+        icon.frameNumber = this.frameNumber;
+        icon.page = this.iconAtlas.getPage(icon.source);
+        if (icon.page == null) {
+            if (!icon.failed)
+                this.requestIcon(icon);
+            return null;
+        }
+
+        icon.pageIndex = this.iconAtlas.getPages().indexOf(icon.page);
+        icon.texCoords = icon.page.getTexCoords(icon.source);
+
+        // Another renderer sharing the atlas may have added the icon, in which case its dimensions are not yet known.
+        if (icon.width == 0) {
+            Dimension size = icon.page.getSize(icon.source);
+            icon.width = size.width;
+            icon.height = size.height;
+        }
+
+        return icon;
+    }
+
+    protected void requestIcon(IconEntry icon) {
+        AbstractTacticalSymbol.IconSource source = icon.source;
+
+        // Use an icon already in the composition cache's memory without waiting for a task.
+        IconCompositionCache cache = IconCompositionCache.getInstance();
+        if (cache.contains(source.getRetriever(), source.getSymbolId(), source.getRetrieverParams())) {
+            BufferedImage image = cache.getIcon(source.getRetriever(), source.getSymbolId(),
+                source.getRetrieverParams());
+            if (image != null) {
+                this.addIconToAtlas(source, image);
+                return;
+            }
+        }
+
+        if (WorldWind.tasks().isFull() || !this.requestedIcons.add(source))
+            return;
+
+        WorldWind.tasks().addTask(() -> {
+            try {
+                BufferedImage image = cache.getIcon(source.getRetriever(), source.getSymbolId(),
+                    source.getRetrieverParams());
+                if (image != null)
+                    this.loadedIcons.put(source, image);
+                else
+                    this.failedIcons.add(source);
+            }
+            catch (RuntimeException e) {
+                String msg = Logging.getMessage("Symbology.ExceptionRetrievingTacticalIcon", source);
+                Logging.logger().log(Level.SEVERE, msg, e);
+                this.failedIcons.add(source);
+            }
+            finally {
+                this.requestedIcons.remove(source);
+            }
+
+            if (this.listener != null)
+                this.listener.propertyChange(new PropertyChangeEvent(this, Keys.REPAINT, null, source));
+        });
+    }
+
+    protected void addIconToAtlas(AbstractTacticalSymbol.IconSource source, BufferedImage image) {
+        try {
+            this.iconAtlas.add(source, image);
+        }
+        catch (RuntimeException e) {
+            String msg = Logging.getMessage("TextureAtlas.ExceptionAddingImage", source.toString());
+            Logging.logger().log(Level.SEVERE, msg, e);
+            return;
+        }
+
+        Integer index = this.iconIndexMap.get(source);
+        if (index != null) {
+            IconEntry icon = this.icons.get(index);
+            icon.width = image.getWidth();
+            icon.height = image.getHeight();
+            icon.frameNumber = -1; // Resolve the icon's page and texture coordinates again.
+        }
+    }
+
+    /**
+     * Sorts the visible slots by icon atlas page, and within each page from the farthest symbol to the nearest. Each
+     * sort key packs the page index, the inverted screen depth and the slot's position in the visible list into a
+     * single long, so that the sort runs on primitives.
+     */
+    protected void sortVisibleSlots() {
+        int n = this.numVisible;
+        if (this.sortKeys.length < n)
+            this.sortKeys = new long[this.visibleSlots.length];
+
+        long maxDepth = (1L << TacticalSymbolBatchRenderer.DEPTH_BITS) - 1;
+        for (int i = 0; i < n; i++) {
+            int slot = this.visibleSlots[i];
+            long page = this.icons.get(this.iconIndex[slot]).pageIndex;
+            long depth = (long) ((1.0f - this.screenZ[slot]) * maxDepth);
+            this.sortKeys[i] = (page << (TacticalSymbolBatchRenderer.DEPTH_BITS + TacticalSymbolBatchRenderer.INDEX_BITS))
+                | (depth << TacticalSymbolBatchRenderer.INDEX_BITS) | i;
+        }
+
+        Arrays.sort(this.sortKeys, 0, n);
+
+        // Reorder the visible slots by key. The low bits of each key index the unsorted list, so copy it first.
+        int[] unsorted = Arrays.copyOf(this.visibleSlots, n);
+        long indexMask = (1L << TacticalSymbolBatchRenderer.INDEX_BITS) - 1;
+        for (int i = 0; i < n; i++) {
+            this.visibleSlots[i] = unsorted[(int) (this.sortKeys[i] & indexMask)];
+        }
+    }
+
+    protected void drawBatch(DrawContext dc, Layer layer) {
+        int n = this.numVisible;
+        if (n == 0)
+            return;
+
+        long start = System.nanoTime();
+        try {
+            this.doDrawBatch(dc, layer, n);
+        }
+        finally {
+            this.lastDrawNanos = System.nanoTime() - start;
+        }
+    }
+
+    protected void doDrawBatch(DrawContext dc, Layer layer, int n) {
+        this.sortVisibleSlots();
+        if (!this.fillBuffers(dc, n))
+            return;
+
+        GL2 gl = dc.getGL2(); // GL initialization checks for GL2 compatibility.
+        this.beginDrawing(dc);
+        try {
+            gl.glVertexPointer(3, GL.GL_FLOAT, 0, this.vertexBuffer.rewind());
+            gl.glTexCoordPointer(2, GL.GL_FLOAT, 0, this.texCoordBuffer.rewind());
+            gl.glColorPointer(4, GL.GL_UNSIGNED_BYTE, 0, this.colorBuffer.rewind());
+
+            // Draw each run of symbols sharing an atlas page with a single call.
+            int first = 0;
+            while (first < n) {
+                TextureAtlas page = this.icons.get(this.iconIndex[this.visibleSlots[first]]).page;
+                int last = first + 1;
+                while (last < n && this.icons.get(this.iconIndex[this.visibleSlots[last]]).page == page) {
+                    last++;
+                }
+
+                if (page.bind(dc))
+                    gl.glDrawArrays(GL2.GL_QUADS, 4 * first, 4 * (last - first));
+
+                first = last;
+            }
+        }
+        finally {
+            this.endDrawing(dc);
+        }
+
+        if (dc.isPickingMode())
+            this.pickSupport.resolvePick(dc, dc.getPickPoint(), layer);
+    }
+
+    /**
+     * Writes the vertices, texture coordinates and colors of the visible symbols' quads to this renderer's vertex
+     * arrays, in sorted order. When picking, this also allocates a range of pick colors for the visible symbols.
+     *
+     * @param dc the current draw context.
+     * @param n  the number of visible symbols.
+     * @return <code>true</code> if the buffers are ready to draw, or <code>false</code> if no pick colors are
+     * available.
+     */
+    protected boolean fillBuffers(DrawContext dc, int n) {
+        if (this.vertexBuffer == null || this.vertexBuffer.capacity() < 12 * n) {
+            int capacity = Math.max(n, this.visibleSlots.length);
+            this.vertexBuffer = Buffers.newDirectFloatBuffer(12 * capacity);
+            this.texCoordBuffer = Buffers.newDirectFloatBuffer(8 * capacity);
+            this.colorBuffer = Buffers.newDirectByteBuffer(16 * capacity);
+        }
+
+        FloatBuffer vb = this.vertexBuffer.clear();
+        FloatBuffer tb = this.texCoordBuffer.clear();
+        ByteBuffer cb = this.colorBuffer.clear();
+
+        int pickColorCode = 0;
+        if (dc.isPickingMode()) {
+            this.pickSupport.clearPickList();
+            Color pickColor = dc.getUniquePickColorRange(n);
+            if (pickColor == null)
+                return false;
+
+            pickColorCode = pickColor.getRGB() & 0xFFFFFF;
+            this.pickSupport.addPickableObjectRange(pickColorCode, n, new BatchPickedObjectFactory(pickColorCode,
+                Arrays.copyOf(this.visibleSlots, n)));
+        }
+
+        for (int i = 0; i < n; i++) {
+            int slot = this.visibleSlots[i];
+            IconEntry icon = this.icons.get(this.iconIndex[slot]);
+            TextureCoords tc = icon.texCoords;
+            float s = this.scale[slot];
+            float x0 = this.screenX[slot] + s * this.offsetX[slot];
+            float y0 = this.screenY[slot] + s * this.offsetY[slot];
+            float x1 = x0 + s * icon.width;
+            float y1 = y0 + s * icon.height;
+            float z = this.screenZ[slot];
+
+            // Vertices in the same order as DrawContext.drawUnitQuad.
+            vb.put(x0).put(y0).put(z).put(x1).put(y0).put(z).put(x1).put(y1).put(z).put(x0).put(y1).put(z);
+            tb.put(tc.left()).put(tc.bottom()).put(tc.right()).put(tc.bottom())
+                .put(tc.right()).put(tc.top()).put(tc.left()).put(tc.top());
+
+            byte r, g, b, a;
+            if (dc.isPickingMode()) {
+                int code = pickColorCode + i;
+                r = (byte) ((code >> 16) & 0xFF);
+                g = (byte) ((code >> 8) & 0xFF);
+                b = (byte) (code & 0xFF);
+                a = (byte) 255;
+            } else {
+                // White with the symbol's opacity, pre-multiplied by the opacity because the icon textures' RGB
+                // components are pre-multiplied by their alpha.
+                r = g = b = a = (byte) (255 * this.opacity[slot] + 0.5f);
+            }
+
+            for (int v = 0; v < 4; v++) {
+                cb.put(r).put(g).put(b).put(a);
+            }
+        }
+
+        return true;
+    }
+
+    protected void beginDrawing(DrawContext dc) {
+        GL2 gl = dc.getGL2(); // GL initialization checks for GL2 compatibility.
+
+        int attrMask = GL2.GL_DEPTH_BUFFER_BIT // for depth test enable, depth func, depth mask
+            | GL2.GL_COLOR_BUFFER_BIT // for alpha test enable, alpha func, blend enable, blend func
+            | GL2.GL_CURRENT_BIT; // for current color
+
+        Rectangle viewport = dc.view().getViewport();
+
+        this.stackHandler.clear();
+        this.stackHandler.pushAttrib(gl, attrMask);
+        this.stackHandler.pushClientAttrib(gl, GL2.GL_CLIENT_VERTEX_ARRAY_BIT);
+        this.stackHandler.pushProjectionIdentity(gl);
+        gl.glOrtho(0.0d, viewport.getWidth(), 0.0d, viewport.getHeight(), 0.0d, -1.0d);
+        this.stackHandler.pushModelviewIdentity(gl);
+
+        gl.glEnableClientState(GL2.GL_VERTEX_ARRAY);
+        gl.glEnableClientState(GL2.GL_TEXTURE_COORD_ARRAY);
+        gl.glEnableClientState(GL2.GL_COLOR_ARRAY);
+
+        // Apply the same state as AbstractTacticalSymbol.beginDrawing, so that batched and individually drawn symbols
+        // are indistinguishable.
+        gl.glEnable(GL2.GL_ALPHA_TEST);
+        gl.glAlphaFunc(GL2.GL_GREATER, 0.0f);
+
+        if (!dc.isDeepPickingEnabled())
+            gl.glEnable(GL.GL_DEPTH_TEST);
+        gl.glDepthFunc(GL.GL_LESS);
+        gl.glDepthMask(false);
+
+        gl.glEnable(GL.GL_POLYGON_OFFSET_FILL);
+        gl.glPolygonOffset(0, (float) AbstractTacticalSymbol.DEFAULT_DEPTH_OFFSET);
+
+        gl.glEnable(GL.GL_TEXTURE_2D);
+
+        if (dc.isPickingMode()) {
+            // Set up to replace the non-transparent texture colors with the per-vertex pick colors.
+            gl.glTexEnvi(GL2.GL_TEXTURE_ENV, GL2.GL_TEXTURE_ENV_MODE, GL2.GL_COMBINE);
+            gl.glTexEnvi(GL2.GL_TEXTURE_ENV, GL2.GL_SRC0_RGB, GL2.GL_PREVIOUS);
+            gl.glTexEnvi(GL2.GL_TEXTURE_ENV, GL2.GL_COMBINE_RGB, GL2.GL_REPLACE);
+        } else {
+            gl.glEnable(GL.GL_BLEND);
+            OGLUtil.applyBlending(gl, true);
+        }
+    }
+
+    protected void endDrawing(DrawContext dc) {
+        GL2 gl = dc.getGL2(); // GL initialization checks for GL2 compatibility.
+
+        gl.glDisable(GL.GL_POLYGON_OFFSET_FILL);
+        gl.glPolygonOffset(0.0f, 0.0f);
+
+        gl.glDisable(GL.GL_TEXTURE_2D);
+        gl.glBindTexture(GL.GL_TEXTURE_2D, 0);
+
+        if (dc.isPickingMode()) {
+            gl.glTexEnvi(GL2.GL_TEXTURE_ENV, GL2.GL_TEXTURE_ENV_MODE, OGLUtil.DEFAULT_TEX_ENV_MODE);
+            gl.glTexEnvi(GL2.GL_TEXTURE_ENV, GL2.GL_SRC0_RGB, OGLUtil.DEFAULT_SRC0_RGB);
+            gl.glTexEnvi(GL2.GL_TEXTURE_ENV, GL2.GL_COMBINE_RGB, OGLUtil.DEFAULT_COMBINE_RGB);
+        }
+
+        this.stackHandler.pop(gl);
+    }
+
+    /**
+     * A distinct icon referenced by one or more slots, with its location in the icon atlas.
+     */
+    protected static class IconEntry {
+        protected final AbstractTacticalSymbol.IconSource source;
+        protected int width;
+        protected int height;
+        protected TextureAtlas page;
+        protected int pageIndex;
+        protected TextureCoords texCoords;
+        protected long frameNumber = -1;
+        protected boolean failed;
+
+        public IconEntry(AbstractTacticalSymbol.IconSource source) {
+            this.source = source;
+        }
+    }
+
+    /**
+     * Creates picked objects for the symbols drawn in a single pick frame. Holds a copy of the visible slots, since
+     * pick resolution may occur after the renderer's per-frame state has been reused.
+     */
+    protected class BatchPickedObjectFactory implements PickedObjectFactory {
+        protected final int firstColorCode;
+        protected final int[] slots;
+
+        public BatchPickedObjectFactory(int firstColorCode, int[] slots) {
+            this.firstColorCode = firstColorCode;
+            this.slots = slots;
+        }
+
+        public PickedObject createPickedObject(int colorCode) {
+            int slot = this.slots[colorCode - this.firstColorCode];
+            AbstractTacticalSymbol symbol = symbols[slot];
+            if (symbol == null)
+                return null;
+
+            PickedObject po = symbol.createPickedObject(colorCode);
+            po.setPosition(symbol.getPosition());
+            return po;
+        }
+    }
+
+    /**
+     * The ordered renderable that draws all visible symbols. Its eye distance is the distance to the nearest visible
+     * symbol, so the batch is drawn after all ordered renderables behind every symbol.
+     */
+    protected class OrderedBatch implements OrderedRenderable {
+        protected Layer layer;
+
+        public double getDistanceFromEye() {
+            return nearestEyeDistance;
+        }
+
+        public void pick(DrawContext dc, Point pickPoint) {
+            drawBatch(dc, this.layer);
+        }
+
+        public void render(DrawContext dc) {
+            drawBatch(dc, this.layer);
+        }
+    }
+}
@@ -17,6 +17,7 @@ import java.awt.*;
 import java.awt.geom.*;
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Implementation of {@link TacticalSymbol} that provides support for tactical symbols from the <a
@@ -177,6 +178,73 @@ public class MilStd2525TacticalSymbol extends AbstractTacticalSymbol {
         return this.symbolCode.toString();
     }
 
+    /**
+     * Indicates the identifier of a symbol's icon. MIL-STD-2525 icons depend only on a symbol's Coding Scheme, Standard
+     * Identity, Battle Dimension, Status and Function ID. This masks out the Symbol Modifier, Country Code and Order of
+     * Battle fields and converts the result to upper case, so that symbols which display the same icon share a single
+     * entry in the {@link IconCompositionCache}. For example, the icon identifier of "sfgpuci--dusx--" is
+     * "SFGPUCI--------".
+     *
+     * @param symbolId a 15-character alphanumeric symbol identification code (SIDC).
+     * @return the identifier of the symbol's icon.
+     * @throws IllegalArgumentException if the symbolId is <code>null</code> or is not a valid SIDC.
+     */
+    public static String getIconSymbolId(String symbolId) {
+        SymbolCode iconCode = new SymbolCode(symbolId);
+        iconCode.setSymbolModifier(null);
+        iconCode.setCountryCode(null);
+        iconCode.setOrderOfBattle(null);
+
+        return iconCode.toString().toUpperCase();
+    }
+
+    /**
+     * Composes the icons for the specified symbols on the common fork-join pool using the default MIL-STD-2525 icon
+     * retriever, so that the icons are available before the symbols are first displayed. Applications that create many
+     * symbols at once can call this method while loading to avoid composing icons during the first frames that show
+     * the symbols. Symbol identifiers are normalized as in {@link #getIconSymbolId(String)}, and identifiers sharing
+     * an icon are composed once.
+     *
+     * @param symbolIds the symbol identification codes (SIDC) to compose icons for.
+     * @param params    icon retrieval parameters, such as {@link gov.nasa.worldwind.symbology.SymbologyConstants#SHOW_FILL}
+     *                  and {@link Keys#COLOR}. May be <code>null</code> to use the default icon parameters.
+     * @return a future that completes when every icon has been composed or loaded.
+     * @throws IllegalArgumentException if the symbol identifiers are <code>null</code>.
+     */
+    public static CompletableFuture<Void> prewarmIcons(Iterable<String> symbolIds, KV params) {
+        if (symbolIds == null) {
+            String msg = Logging.getMessage("nullValue.IterableIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        Collection<String> iconIds = new LinkedHashSet<>();
+        for (String symbolId : symbolIds) {
+            try {
+                iconIds.add(MilStd2525TacticalSymbol.getIconSymbolId(symbolId));
+            }
+            catch (RuntimeException e) {
+                // SymbolCode logs invalid and unrecognized identifiers; skip them here.
+            }
+        }
+
+        String iconRetrieverPath = Configuration.getStringValue(Keys.MIL_STD_2525_ICON_RETRIEVER_PATH,
+            MilStd2525Constants.DEFAULT_ICON_RETRIEVER_PATH);
+
+        return IconCompositionCache.getInstance().prewarm(new MilStd2525IconRetriever(iconRetrieverPath), iconIds,
+            params);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Overridden to return this symbol's identifier normalized by {@link #getIconSymbolId(String)}.
+     */
+    @Override
+    protected String getIconSymbolId() {
+        return MilStd2525TacticalSymbol.getIconSymbolId(this.getIdentifier());
+    }
+
     /**
      * Indicates the current value of symbol's Status/Operational Condition field.
      *
@@ -221,6 +289,7 @@ public class MilStd2525TacticalSymbol extends AbstractTacticalSymbol {
         }
 
         this.symbolCode.setStatus(value);
+        this.stateChanged();
     }
 
     /**
@@ -247,6 +316,7 @@ public class MilStd2525TacticalSymbol extends AbstractTacticalSymbol {
      */
     public void setShowFrame(boolean showFrame) {
         this.modifiers.set(SymbologyConstants.SHOW_FRAME, showFrame);
+        this.stateChanged();
     }
 
     /**
@@ -273,6 +343,7 @@ public class MilStd2525TacticalSymbol extends AbstractTacticalSymbol {
      */
     public void setShowFill(boolean showFill) {
         this.modifiers.set(SymbologyConstants.SHOW_FILL, showFill);
+        this.stateChanged();
     }
 
     /**
@@ -299,6 +370,7 @@ public class MilStd2525TacticalSymbol extends AbstractTacticalSymbol {
      */
     public void setShowIcon(boolean showIcon) {
         this.modifiers.set(SymbologyConstants.SHOW_ICON, showIcon);
+        this.stateChanged();
     }
 
     protected void initIconLayout() {
@@ -8,7 +8,7 @@ package gov.nasa.worldwind.terrain;
 
 import gov.nasa.worldwind.*;
 import gov.nasa.worldwind.cache.*;
-import gov.nasa.worldwind.exception.WWTimeoutException;
+import gov.nasa.worldwind.exception.*;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.globes.*;
 import gov.nasa.worldwind.render.*;
@@ -16,6 +16,9 @@ import gov.nasa.worldwind.util.Logging;
 import jcog.data.list.Lst;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.logging.Level;
 
 import static java.lang.Math.toRadians;
 
@@ -31,6 +34,18 @@ import static java.lang.Math.toRadians;
  */
 public class HighResTerrain extends WWObjectImpl implements Terrain {
     protected static final int DEFAULT_DENSITY = 3;
+    /**
+     * The maximum number of elevation samples along each side of the grids used for visibility computations.
+     */
+    protected static final int MAX_GRID_DIMENSION = 4096;
+    /**
+     * The number of elevation samples along each side of the blocks retrieved from the elevation model at once.
+     */
+    protected static final int SAMPLE_BLOCK_SIZE = 64;
+    /**
+     * The number of tiles loaded by each task when prefetching a pinned region.
+     */
+    protected static final int PREFETCH_BATCH_SIZE = 64;
 //    protected static final long DEFAULT_CACHE_CAPACITY = (long) 200.0e6;
 //    protected final ThreadLocal<Long> startTime = new ThreadLocal<>();
     // User-specified fields.
@@ -46,6 +61,12 @@ public class HighResTerrain extends WWObjectImpl implements Terrain {
     protected int numRows;
     protected int numCols;
     protected final MemoryCache geometryCache = new SoftMemoryCache();
+    // Tiles within pinned regions, keyed by tile sector. Their geometry is held here as well as in the geometry cache,
+    // so that it survives the cache being cleared under memory pressure.
+    protected final Map<Sector, PinnedTile> pinnedTiles = new ConcurrentHashMap<>();
+    protected final LongAdder pinnedHitCount = new LongAdder();
+    protected final LongAdder cacheHitCount = new LongAdder();
+    protected final LongAdder missCount = new LongAdder();
 //    /**
 //     * Indicates whether cached elevations are used exclusively. When this flag is true this high resolution terrain
 //     * instance uses {@link ElevationModel#getUnmappedLocalSourceElevation(Angle, Angle)} to retrieve elevations. This
@@ -300,6 +321,131 @@ public class HighResTerrain extends WWObjectImpl implements Terrain {
         this.geometryCache.setCapacity(Math.max(size, (long) 1.0e6));
     }
 
+    /**
+     * Pins the terrain tiles intersecting a sector and prefetches their geometry on the common fork-join pool. See
+     * {@link #pin(Sector, PrefetchListener, Executor)}.
+     *
+     * @param sector   the sector to pin.
+     * @param listener the listener to notify as tiles are loaded. May be null.
+     * @return the pinned region.
+     * @throws IllegalArgumentException if the sector is null.
+     */
+    public PinnedRegion pin(Sector sector, PrefetchListener listener) {
+        return this.pin(sector, listener, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Pins the terrain tiles intersecting a sector and prefetches their geometry on the specified executor. Pinned
+     * tiles are computed at this terrain's target resolution and are held until the region is unpinned, so operations
+     * within the region are not slowed by the geometry cache being cleared under memory pressure. The geometry of each
+     * tile is retained for as long as any region containing it is pinned.
+     * <p>
+     * This method returns immediately. The listener is called on the executor's threads as each tile is loaded, and
+     * the region's future completes once every tile has been attempted. Tiles that fail to load are logged and reported
+     * to the listener; they do not cause the future to complete exceptionally. Operations that reach a tile before it
+     * is prefetched compute it themselves, and the computed tile is then retained by the region.
+     * <p>
+     * Changing this terrain's density releases all pinned tiles.
+     *
+     * @param sector   the sector to pin.
+     * @param listener the listener to notify as tiles are loaded. May be null.
+     * @param executor the executor that loads the tiles.
+     * @return the pinned region.
+     * @throws IllegalArgumentException if the sector or the executor is null.
+     * @see #unpin(PinnedRegion)
+     */
+    public PinnedRegion pin(Sector sector, PrefetchListener listener, Executor executor) {
+        if (sector == null) {
+            String msg = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (executor == null) {
+            String msg = Logging.getMessage("nullValue.ExecutorIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        Sector tileSector = sector.intersection(this.sector);
+        List<RectTile> tiles = tileSector != null ? this.getIntersectingTiles(tileSector) : new ArrayList<>();
+        tiles.removeIf(Objects::isNull);
+
+        PinnedRegion region = new PinnedRegion(sector, tiles.size());
+        for (RectTile tile : tiles) {
+            this.pinnedTiles.compute(tile.sector, (key, pinned) -> {
+                if (pinned == null)
+                    pinned = new PinnedTile();
+                pinned.pinCount++;
+                return pinned;
+            });
+            region.tileSectors.add(tile.sector);
+        }
+
+        // Load the tiles in batches so that large regions do not submit a task per tile.
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < tiles.size(); i += HighResTerrain.PREFETCH_BATCH_SIZE) {
+            List<RectTile> batch = tiles.subList(i, Math.min(i + HighResTerrain.PREFETCH_BATCH_SIZE, tiles.size()));
+            futures.add(CompletableFuture.runAsync(() -> this.prefetchTiles(region, batch, listener), executor));
+        }
+        region.future = CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+
+        return region;
+    }
+
+    /**
+     * Releases a region pinned by {@link #pin(Sector, PrefetchListener, Executor)}. Tiles that are not within another
+     * pinned region return to the geometry cache, where they may be cleared under memory pressure. Tiles of the region
+     * that have not yet been prefetched are skipped. Unpinning a region more than once has no effect.
+     *
+     * @param region the region to unpin.
+     * @throws IllegalArgumentException if the region is null.
+     */
+    public void unpin(PinnedRegion region) {
+        if (region == null) {
+            String msg = Logging.getMessage("nullValue.RegionIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (!region.pinned.compareAndSet(true, false))
+            return;
+
+        for (Sector tileSector : region.tileSectors) {
+            this.pinnedTiles.computeIfPresent(tileSector, (key, pinned) -> {
+                if (--pinned.pinCount > 0)
+                    return pinned;
+
+                if (pinned.ri != null && !this.geometryCache.contains(key))
+                    this.geometryCache.add(key, pinned.ri, pinned.ri.getSizeInBytes());
+
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Returns the number of tiles currently pinned, including tiles that have not yet been loaded.
+     *
+     * @return the number of pinned tiles.
+     */
+    public int getNumPinnedTiles() {
+        return this.pinnedTiles.size();
+    }
+
+    /**
+     * Returns the number of tile lookups that have found their geometry pinned or cached, and the number that had to
+     * compute it, since this terrain was created. To measure a batch of operations, subtract the statistics taken
+     * before the batch from those taken after it using {@link CacheStatistics#since(CacheStatistics)}. Prefetching does
+     * not contribute to these statistics, although statistics taken while other batches run concurrently include those
+     * batches' lookups.
+     *
+     * @return the current cache statistics.
+     */
+    public CacheStatistics getCacheStatistics() {
+        return new CacheStatistics(this.pinnedHitCount.sum(), this.cacheHitCount.sum(), this.missCount.sum());
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -569,6 +715,10 @@ public class HighResTerrain extends WWObjectImpl implements Terrain {
 
         if (this.geometryCache != null)
             this.geometryCache.clear();
+
+        // The tile grid has changed, so pinned tiles no longer correspond to the tiles used by operations.
+        if (this.pinnedTiles != null)
+            this.pinnedTiles.clear();
     }
 
     /**
@@ -827,15 +977,77 @@ public class HighResTerrain extends WWObjectImpl implements Terrain {
      * @throws WWTimeoutException   if terrain data retrieval exceeds the current timeout.
      */
     protected void makeVerts(RectTile tile) /**/ {
-        // First see if the vertices have been previously computed and are in the cache.
-        tile.ri = (RenderInfo) this.geometryCache.getObject(tile.sector);
-        if (tile.ri != null)
+        // First see if the vertices have been previously computed and are pinned or in the cache.
+        PinnedTile pinned = this.pinnedTiles.get(tile.sector);
+        if (pinned != null && pinned.ri != null) {
+            tile.ri = pinned.ri;
+            this.pinnedHitCount.increment();
             return;
+        }
 
-        tile.ri = this.buildVerts(tile);
+        tile.ri = (RenderInfo) this.geometryCache.getObject(tile.sector);
         if (tile.ri != null) {
-            this.geometryCache.add(tile.sector, tile.ri, tile.ri.getSizeInBytes());
+            this.cacheHitCount.increment();
+        } else {
+            this.missCount.increment();
+            tile.ri = this.buildVerts(tile);
+            if (tile.ri != null) {
+                this.geometryCache.add(tile.sector, tile.ri, tile.ri.getSizeInBytes());
+            }
         }
+
+        if (pinned != null)
+            pinned.ri = tile.ri;
+    }
+
+    /**
+     * Loads the geometry of a batch of pinned tiles, notifying the listener as each tile is loaded.
+     *
+     * @param region   the region containing the tiles.
+     * @param tiles    the tiles to load.
+     * @param listener the listener to notify. May be null.
+     */
+    protected void prefetchTiles(PinnedRegion region, List<RectTile> tiles, PrefetchListener listener) {
+        for (RectTile tile : tiles) {
+            if (!region.isPinned())
+                return;
+
+            try {
+                this.loadPinnedTile(tile);
+            }
+            catch (RuntimeException e) {
+                String msg = Logging.getMessage("generic.ExceptionWhileLoadingTerrain", tile.sector);
+                Logging.logger().log(Level.WARNING, msg, e);
+                if (listener != null)
+                    listener.exception(region, e);
+                continue;
+            }
+
+            int numLoaded = region.numLoaded.incrementAndGet();
+            if (listener != null)
+                listener.progress(region, numLoaded, region.getTileCount());
+        }
+    }
+
+    /**
+     * Computes a pinned tile's geometry, or draws it from the geometry cache, unless the tile already has geometry or
+     * is no longer pinned.
+     *
+     * @param tile the tile to load.
+     */
+    protected void loadPinnedTile(RectTile tile) {
+        PinnedTile pinned = this.pinnedTiles.get(tile.sector);
+        if (pinned == null || pinned.ri != null)
+            return;
+
+        RenderInfo ri = (RenderInfo) this.geometryCache.getObject(tile.sector);
+        if (ri == null) {
+            ri = this.buildVerts(tile);
+            if (ri != null)
+                this.geometryCache.add(tile.sector, ri, ri.getSizeInBytes());
+        }
+
+        pinned.ri = ri;
     }
 
     /**
@@ -1338,6 +1550,265 @@ public class HighResTerrain extends WWObjectImpl implements Terrain {
         return this.getExtremeElevations(sector);
     }
 
+    /**
+     * Computes which locations in a regular grid are visible from an observer. Grid points span the specified sector,
+     * starting at its upper left corner and proceeding in row-first order, so the returned viewshed's values may be used
+     * directly as the values of an analytic surface over the same sector.
+     * <p>
+     * Visibility is determined against a grid of elevations sampled at this terrain's target resolution over the
+     * region containing the observer and the sector. The grid is limited to {@link #MAX_GRID_DIMENSION} samples along
+     * each side, so very large regions are analyzed at a correspondingly coarser resolution. Sight lines account for
+     * the curvature of the globe but not for atmospheric refraction. Grid points are computed in parallel.
+     *
+     * @param observer     the observer's position, with altitude relative to the terrain.
+     * @param sector       the sector spanned by the grid.
+     * @param width        the grid width, in number of grid points.
+     * @param height       the grid height, in number of grid points.
+     * @param targetHeight the height above the terrain, in meters, of each grid point.
+     * @return the grid's visibility from the observer, or null if the observer is outside this terrain's sector. Grid
+     * points outside this terrain's sector are not visible.
+     * @throws IllegalArgumentException if the observer or the sector is null, or if the width or height is less than 1.
+     * @throws WWRuntimeException       if the computation fails or is interrupted.
+     */
+    public Viewshed computeViewshed(Position observer, Sector sector, int width, int height, double targetHeight) {
+        if (observer == null) {
+            String msg = Logging.getMessage("nullValue.PositionIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (sector == null) {
+            String msg = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (width < 1) {
+            String msg = Logging.getMessage("generic.InvalidWidth", width);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (height < 1) {
+            String msg = Logging.getMessage("generic.InvalidHeight", height);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (!this.sector.contains(observer))
+            return null;
+
+        Sector region = Sector.boundingSector(Arrays.asList(observer,
+            LatLon.fromDegrees(sector.latMin, sector.lonMin), LatLon.fromDegrees(sector.latMax, sector.lonMax)));
+        ElevationGrid grid = this.createElevationGrid(region);
+
+        double oLat = observer.lat;
+        double oLon = observer.lon;
+        double oHeight = grid.elevation(oLat, oLon) + observer.getAltitude();
+        double radius = this.globe.getRadiusAt(observer);
+
+        // Divide the grid's rows among a few tasks per processor. Each task records visibility in its own bit set, since
+        // bit sets may not be modified concurrently.
+        int numTasks = Math.min(height, 4 * ForkJoinPool.getCommonPoolParallelism());
+        List<Callable<BitSet>> tasks = new ArrayList<>(numTasks);
+        for (int i = 0; i < numTasks; i++) {
+            int firstRow = i * height / numTasks;
+            int lastRow = (i + 1) * height / numTasks;
+            tasks.add(() -> {
+                BitSet bits = new BitSet();
+                for (int y = firstRow; y < lastRow; y++) {
+                    double lat = Viewshed.latitude(sector, height, y);
+                    for (int x = 0; x < width; x++) {
+                        double lon = Viewshed.longitude(sector, width, x);
+                        if (this.sector.contains(lat, lon) && grid.isVisible(oLat, oLon, oHeight, lat, lon,
+                            grid.elevation(lat, lon) + targetHeight, radius)) {
+                            bits.set(x + y * width);
+                        }
+                    }
+                }
+                return bits;
+            });
+        }
+
+        BitSet visible = new BitSet(width * height);
+        for (BitSet bits : this.invokeAll(tasks, observer)) {
+            visible.or(bits);
+        }
+
+        return new Viewshed(observer, sector, width, height, visible);
+    }
+
+    /**
+     * Determines whether each of a list of targets is visible from each of a list of observers. This is equivalent to
+     * testing each observer and target pair for a terrain intersection, but samples the terrain once for all pairs and
+     * computes the pairs in parallel. See {@link #computeViewshed(Position, Sector, int, int, double)} for a
+     * description of the terrain grid used to determine visibility.
+     *
+     * @param observers the observer positions, with altitudes relative to the terrain.
+     * @param targets   the target positions, with altitudes relative to the terrain.
+     * @return an array indexed first by observer and second by target, holding true where the target is visible from
+     * the observer. Pairs with a position outside this terrain's sector are not visible.
+     * @throws IllegalArgumentException if either list is null.
+     * @throws WWRuntimeException       if the computation fails or is interrupted.
+     */
+    public boolean[][] computeLinesOfSight(List<? extends Position> observers, List<? extends Position> targets) {
+        if (observers == null || targets == null) {
+            String msg = Logging.getMessage("nullValue.PositionsListIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        int numObservers = observers.size();
+        int numTargets = targets.size();
+        boolean[][] visible = new boolean[numObservers][numTargets];
+        if (numObservers == 0 || numTargets == 0)
+            return visible;
+
+        List<Position> positions = new ArrayList<>(numObservers + numTargets);
+        positions.addAll(observers);
+        positions.addAll(targets);
+
+        Sector region = Sector.boundingSector(positions);
+        if (region.intersection(this.sector) == null)
+            return visible;
+
+        // Gather each position's coordinates and absolute height so that the pairs below need not touch the positions.
+        ElevationGrid grid = this.createElevationGrid(region);
+        double[] coords = new double[3 * positions.size()];
+        for (int i = 0, j = 0; i < positions.size(); i++) {
+            Position position = positions.get(i);
+            double lat = position.lat;
+            double lon = position.lon;
+            coords[j++] = lat;
+            coords[j++] = lon;
+            coords[j++] = this.sector.contains(lat, lon) ? grid.elevation(lat, lon) + position.getAltitude()
+                : Double.NaN;
+        }
+
+        double radius = this.globe.getRadiusAt(region.getCentroid());
+        long numPairs = (long) numObservers * numTargets;
+        int numTasks = (int) Math.min(numPairs, 4 * ForkJoinPool.getCommonPoolParallelism());
+        List<Callable<Void>> tasks = new ArrayList<>(numTasks);
+        for (int i = 0; i < numTasks; i++) {
+            long firstPair = i * numPairs / numTasks;
+            long lastPair = (i + 1) * numPairs / numTasks;
+            tasks.add(() -> {
+                for (long pair = firstPair; pair < lastPair; pair++) {
+                    int o = (int) (pair / numTargets);
+                    int t = (int) (pair % numTargets);
+                    int a = 3 * o;
+                    int b = 3 * (numObservers + t);
+                    // NaN heights mark positions outside this terrain's sector.
+                    if (!Double.isNaN(coords[a + 2]) && !Double.isNaN(coords[b + 2])) {
+                        visible[o][t] = grid.isVisible(coords[a], coords[a + 1], coords[a + 2], coords[b],
+                            coords[b + 1], coords[b + 2], radius);
+                    }
+                }
+                return null;
+            });
+        }
+
+        this.invokeAll(tasks, region);
+
+        return visible;
+    }
+
+    /**
+     * Samples this terrain's elevations on a regular grid covering a specified region. The grid extends one sample
+     * beyond the region on each side, is limited to this terrain's sector, and has at most {@link
+     * #MAX_GRID_DIMENSION} samples along each side. Samples are retrieved from the elevation model in blocks of {@link
+     * #SAMPLE_BLOCK_SIZE} samples along each side, in parallel.
+     *
+     * @param region the region the grid must cover. Must intersect this terrain's sector.
+     * @return the elevation grid.
+     */
+    protected ElevationGrid createElevationGrid(Sector region) {
+        double spacing = Math.toDegrees(
+            Math.max(this.globe.getElevationModel().getBestResolution(null), this.targetResolution));
+        Sector gridSector = Sector.fromDegrees(region.latMin - spacing, region.latMax + spacing,
+            region.lonMin - spacing, region.lonMax + spacing).intersection(this.sector);
+
+        int width = (int) Math.min(HighResTerrain.MAX_GRID_DIMENSION, Math.ceil(gridSector.lonDelta / spacing) + 1);
+        int height = (int) Math.min(HighResTerrain.MAX_GRID_DIMENSION, Math.ceil(gridSector.latDelta / spacing) + 1);
+        ElevationGrid grid = new ElevationGrid(gridSector, Math.max(width, 2), Math.max(height, 2));
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int row = 0; row < grid.height; row += HighResTerrain.SAMPLE_BLOCK_SIZE) {
+            for (int col = 0; col < grid.width; col += HighResTerrain.SAMPLE_BLOCK_SIZE) {
+                int firstRow = row;
+                int firstCol = col;
+                tasks.add(() -> {
+                    this.sampleElevations(grid, firstRow, Math.min(firstRow + SAMPLE_BLOCK_SIZE, grid.height),
+                        firstCol, Math.min(firstCol + SAMPLE_BLOCK_SIZE, grid.width));
+                    return null;
+                });
+            }
+        }
+
+        this.invokeAll(tasks, region);
+        grid.computeBlockMaxima();
+
+        return grid;
+    }
+
+    /**
+     * Retrieves the elevations of a block of grid samples.
+     *
+     * @param grid     the grid to sample.
+     * @param firstRow the block's first row, inclusive.
+     * @param lastRow  the block's last row, exclusive.
+     * @param firstCol the block's first column, inclusive.
+     * @param lastCol  the block's last column, exclusive.
+     */
+    protected void sampleElevations(ElevationGrid grid, int firstRow, int lastRow, int firstCol, int lastCol) {
+        List<LatLon> locations = new ArrayList<>((lastRow - firstRow) * (lastCol - firstCol));
+        for (int row = firstRow; row < lastRow; row++) {
+            for (int col = firstCol; col < lastCol; col++) {
+                locations.add(LatLon.fromDegrees(grid.latitude(row), grid.longitude(col)));
+            }
+        }
+
+        Sector blockSector = Sector.fromDegrees(grid.latitude(firstRow), grid.latitude(lastRow - 1),
+            grid.longitude(firstCol), grid.longitude(lastCol - 1));
+        double[] localTargetResolution = this.globe.getElevationModel().getBestResolutions(blockSector);
+        for (int i = 0; i < localTargetResolution.length; i++) {
+            localTargetResolution[i] = Math.max(localTargetResolution[i], this.targetResolution);
+        }
+
+        double[] elevations = new double[locations.size()];
+        this.getElevations(blockSector, locations, localTargetResolution, elevations);
+
+        int i = 0;
+        for (int row = firstRow; row < lastRow; row++) {
+            for (int col = firstCol; col < lastCol; col++) {
+                grid.elevations[col + row * grid.width] = (float) (this.verticalExaggeration * elevations[i++]);
+            }
+        }
+    }
+
+    protected <T> List<T> invokeAll(List<Callable<T>> tasks, Object subject) {
+        List<T> results = new ArrayList<>(tasks.size());
+
+        try {
+            for (Future<T> future : ForkJoinPool.commonPool().invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            String msg = Logging.getMessage("generic.ExceptionWhileComputingVisibility", subject);
+            Logging.logger().log(Level.SEVERE, msg, e);
+            throw new WWRuntimeException(msg, e);
+        }
+        catch (ExecutionException e) {
+            String msg = Logging.getMessage("generic.ExceptionWhileComputingVisibility", subject);
+            Logging.logger().log(Level.SEVERE, msg, e.getCause());
+            throw new WWRuntimeException(msg, e.getCause());
+        }
+
+        return results;
+    }
+
     /**
      * Defines an interface for returning computed intersections.
      */
@@ -1360,6 +1831,166 @@ public class HighResTerrain extends WWObjectImpl implements Terrain {
         void exception(Exception exception);
     }
 
+    /**
+     * Defines an interface for reporting the progress of prefetching a pinned region.
+     */
+    public interface PrefetchListener {
+        /**
+         * Called after each tile of a pinned region is loaded.
+         *
+         * @param region    the pinned region.
+         * @param numLoaded the number of the region's tiles loaded so far.
+         * @param numTiles  the number of tiles in the region.
+         */
+        void progress(PinnedRegion region, int numLoaded, int numTiles);
+
+        /**
+         * Called if an exception occurs while loading a tile of a pinned region.
+         *
+         * @param region    the pinned region.
+         * @param exception the exception thrown.
+         */
+        void exception(PinnedRegion region, Exception exception);
+    }
+
+    /**
+     * Identifies a sector whose terrain tiles are pinned. Created by {@link #pin(Sector, PrefetchListener, Executor)}.
+     */
+    public static class PinnedRegion {
+        protected final Sector sector;
+        protected final List<Sector> tileSectors;
+        protected final AtomicInteger numLoaded = new AtomicInteger();
+        protected final AtomicBoolean pinned = new AtomicBoolean(true);
+        protected CompletableFuture<Void> future;
+
+        protected PinnedRegion(Sector sector, int numTiles) {
+            this.sector = sector;
+            this.tileSectors = new ArrayList<>(numTiles);
+        }
+
+        public Sector getSector() {
+            return this.sector;
+        }
+
+        public int getTileCount() {
+            return this.tileSectors.size();
+        }
+
+        public int getLoadedTileCount() {
+            return this.numLoaded.get();
+        }
+
+        public boolean isLoaded() {
+            return this.getLoadedTileCount() == this.getTileCount();
+        }
+
+        public boolean isPinned() {
+            return this.pinned.get();
+        }
+
+        /**
+         * Returns a future that completes when every tile of the region has been attempted, or when the region is
+         * unpinned and its remaining tiles are skipped.
+         *
+         * @return the region's prefetch future.
+         */
+        public CompletableFuture<Void> getFuture() {
+            return this.future;
+        }
+    }
+
+    /**
+     * Holds counts of tile geometry lookups. Returned by {@link #getCacheStatistics()}.
+     */
+    public static class CacheStatistics {
+        protected final long pinnedHitCount;
+        protected final long cacheHitCount;
+        protected final long missCount;
+
+        public CacheStatistics(long pinnedHitCount, long cacheHitCount, long missCount) {
+            this.pinnedHitCount = pinnedHitCount;
+            this.cacheHitCount = cacheHitCount;
+            this.missCount = missCount;
+        }
+
+        /**
+         * Returns the number of lookups that found their tile's geometry pinned.
+         *
+         * @return the number of pinned hits.
+         */
+        public long getPinnedHitCount() {
+            return this.pinnedHitCount;
+        }
+
+        /**
+         * Returns the number of lookups that found their tile's geometry in the geometry cache.
+         *
+         * @return the number of cache hits.
+         */
+        public long getCacheHitCount() {
+            return this.cacheHitCount;
+        }
+
+        /**
+         * Returns the number of lookups that computed their tile's geometry.
+         *
+         * @return the number of misses.
+         */
+        public long getMissCount() {
+            return this.missCount;
+        }
+
+        public long getHitCount() {
+            return this.pinnedHitCount + this.cacheHitCount;
+        }
+
+        public long getLookupCount() {
+            return this.getHitCount() + this.missCount;
+        }
+
+        /**
+         * Returns the fraction of lookups that found their tile's geometry pinned or cached.
+         *
+         * @return the hit rate, between 0 and 1, or 0 if there have been no lookups.
+         */
+        public double getHitRate() {
+            long lookups = this.getLookupCount();
+            return lookups > 0 ? (double) this.getHitCount() / lookups : 0;
+        }
+
+        /**
+         * Returns the lookups counted by these statistics but not by earlier statistics of the same terrain.
+         *
+         * @param earlier the statistics taken earlier.
+         * @return the difference between these statistics and the earlier ones.
+         * @throws IllegalArgumentException if the earlier statistics are null.
+         */
+        public CacheStatistics since(CacheStatistics earlier) {
+            if (earlier == null) {
+                String msg = Logging.getMessage("nullValue.StatisticsIsNull");
+                Logging.logger().severe(msg);
+                throw new IllegalArgumentException(msg);
+            }
+
+            return new CacheStatistics(this.pinnedHitCount - earlier.pinnedHitCount,
+                this.cacheHitCount - earlier.cacheHitCount, this.missCount - earlier.missCount);
+        }
+
+        @Override
+        public String toString() {
+            return "pinned hits " + this.pinnedHitCount + ", cache hits " + this.cacheHitCount + ", misses "
+                + this.missCount;
+        }
+    }
+
+    /**
+     * Holds the geometry of a pinned tile and the number of pinned regions containing it.
+     */
+    protected static class PinnedTile {
+        protected volatile RenderInfo ri;
+        protected int pinCount; // modified only within the pinned tile map's atomic compute operations
+    }
+
     /**
      * Holds a tile's geometry. It's heavyweight so cached when created to enable re-use.
      */
@@ -1402,4 +2033,174 @@ public class HighResTerrain extends WWObjectImpl implements Terrain {
             this.extent = extent;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Holds terrain elevations sampled on a regular geographic grid, along with the maximum elevation of each square
+     * block of samples. Rows start at the grid's southern edge. Sight lines are traversed through the grid one sample
+     * at a time, skipping whole blocks whose maximum elevation lies below the sight line.
+     */
+    protected static class ElevationGrid {
+        protected static final int BLOCK_SIZE = 16;
+        protected final Sector sector;
+        protected final int width;
+        protected final int height;
+        protected final double deltaLat; // degrees between rows
+        protected final double deltaLon; // degrees between columns
+        protected final float[] elevations;
+        protected final int blockColumns;
+        protected final int blockRows;
+        protected final float[] blockMaxima;
+
+        protected ElevationGrid(Sector sector, int width, int height) {
+            this.sector = sector;
+            this.width = width;
+            this.height = height;
+            this.deltaLat = sector.latDelta / (height - 1);
+            this.deltaLon = sector.lonDelta / (width - 1);
+            this.elevations = new float[width * height];
+            this.blockColumns = (width - 2) / BLOCK_SIZE + 1;
+            this.blockRows = (height - 2) / BLOCK_SIZE + 1;
+            this.blockMaxima = new float[this.blockColumns * this.blockRows];
+        }
+
+        /**
+         * Computes the great circle distance between two locations. See {@link LatLon#greatCircleDistance(LatLon,
+         * LatLon)}.
+         *
+         * @return the angular distance between the locations, in radians.
+         */
+        protected static double distance(double lat0, double lon0, double lat1, double lon1) {
+            double a = Math.sin(toRadians(lat1 - lat0) / 2.0);
+            double b = Math.sin(toRadians(lon1 - lon0) / 2.0);
+            double c = a * a + Math.cos(toRadians(lat0)) * Math.cos(toRadians(lat1)) * b * b;
+
+            return 2.0 * Math.asin(Math.min(Math.sqrt(c), 1));
+        }
+
+        protected double latitude(int row) {
+            return row < this.height - 1 ? this.sector.latMin + row * this.deltaLat : this.sector.latMax;
+        }
+
+        protected double longitude(int col) {
+            return col < this.width - 1 ? this.sector.lonMin + col * this.deltaLon : this.sector.lonMax;
+        }
+
+        protected double row(double latitude) {
+            double row = this.deltaLat > 0 ? (latitude - this.sector.latMin) / this.deltaLat : 0;
+            return Math.max(0, Math.min(row, this.height - 1));
+        }
+
+        protected double column(double longitude) {
+            double col = this.deltaLon > 0 ? (longitude - this.sector.lonMin) / this.deltaLon : 0;
+            return Math.max(0, Math.min(col, this.width - 1));
+        }
+
+        protected double elevation(double latitude, double longitude) {
+            return this.interpolate(this.row(latitude), this.column(longitude));
+        }
+
+        /**
+         * Bilinearly interpolates the elevation at fractional grid coordinates within the grid.
+         */
+        protected double interpolate(double row, double col) {
+            int r = Math.min((int) row, this.height - 2);
+            int c = Math.min((int) col, this.width - 2);
+            double s = col - c;
+            double t = row - r;
+
+            int i = c + r * this.width;
+            float[] e = this.elevations;
+            double south = e[i] + s * (e[i + 1] - e[i]);
+            double north = e[i + this.width] + s * (e[i + this.width + 1] - e[i + this.width]);
+
+            return south + t * (north - south);
+        }
+
+        protected void computeBlockMaxima() {
+            for (int br = 0; br < this.blockRows; br++) {
+                for (int bc = 0; bc < this.blockColumns; bc++) {
+                    // Blocks share their edge samples with their neighbors, since interpolating anywhere on a block's
+                    // edges or interior uses only the samples on or within those edges.
+                    float max = Float.NEGATIVE_INFINITY;
+                    int lastRow = Math.min((br + 1) * BLOCK_SIZE, this.height - 1);
+                    int lastCol = Math.min((bc + 1) * BLOCK_SIZE, this.width - 1);
+                    for (int r = br * BLOCK_SIZE; r <= lastRow; r++) {
+                        for (int c = bc * BLOCK_SIZE; c <= lastCol; c++) {
+                            max = Math.max(max, this.elevations[c + r * this.width]);
+                        }
+                    }
+                    this.blockMaxima[bc + br * this.blockColumns] = max;
+                }
+            }
+        }
+
+        /**
+         * Determines whether the sight line between two points is clear of the terrain. The sight line is the straight
+         * line between the points, so relative to the globe's surface it sags below the line between the points' heights
+         * by <code>t(1-t)d<sup>2</sup>/2R</code> at fraction t of the surface distance d between them.
+         *
+         * @param lat0    the first point's latitude, in degrees.
+         * @param lon0    the first point's longitude, in degrees.
+         * @param height0 the first point's height above the globe's ellipsoid, in meters.
+         * @param lat1    the second point's latitude, in degrees.
+         * @param lon1    the second point's longitude, in degrees.
+         * @param height1 the second point's height above the globe's ellipsoid, in meters.
+         * @param radius  the globe's radius, in meters.
+         * @return true if no terrain sample between the points lies above the sight line, otherwise false.
+         */
+        protected boolean isVisible(double lat0, double lon0, double height0, double lat1, double lon1,
+            double height1, double radius) {
+            double row0 = this.row(lat0);
+            double col0 = this.column(lon0);
+            double dRow = this.row(lat1) - row0;
+            double dCol = this.column(lon1) - col0;
+            int numSteps = (int) Math.ceil(Math.max(Math.abs(dRow), Math.abs(dCol)));
+            if (numSteps <= 1)
+                return true;
+
+            double d = radius * distance(lat0, lon0, lat1, lon1);
+            double sag = d * d / (2 * radius);
+            double dHeight = height1 - height0;
+            // The fraction at which the sight line is lowest.
+            double tLowest = sag > 0 ? (sag - dHeight) / (2 * sag) : Double.NaN;
+
+            int step = 1;
+            while (step < numSteps) {
+                double t = (double) step / numSteps;
+                double row = row0 + t * dRow;
+                double col = col0 + t * dCol;
+                double lineHeight = height0 + t * dHeight - t * (1 - t) * sag;
+
+                // Find where the sight line leaves the block containing the current sample. If the block is lower
+                // than the sight line everywhere within it, skip the remaining samples in the block.
+                int br = Math.min((int) row / BLOCK_SIZE, this.blockRows - 1);
+                int bc = Math.min((int) col / BLOCK_SIZE, this.blockColumns - 1);
+                double tExit = 1;
+                if (dRow > 0)
+                    tExit = Math.min(tExit, ((br + 1) * BLOCK_SIZE - row0) / dRow);
+                else if (dRow < 0)
+                    tExit = Math.min(tExit, (br * BLOCK_SIZE - row0) / dRow);
+                if (dCol > 0)
+                    tExit = Math.min(tExit, ((bc + 1) * BLOCK_SIZE - col0) / dCol);
+                else if (dCol < 0)
+                    tExit = Math.min(tExit, (bc * BLOCK_SIZE - col0) / dCol);
+
+                double lowest = Math.min(lineHeight, height0 + tExit * dHeight - tExit * (1 - tExit) * sag);
+                if (tLowest > t && tLowest < tExit)
+                    lowest = Math.min(lowest, height0 + tLowest * dHeight - tLowest * (1 - tLowest) * sag);
+
+                if (this.blockMaxima[bc + br * this.blockColumns] <= lowest) {
+                    step = Math.max(step + 1, (int) Math.floor(tExit * numSteps) + 1);
+                    continue;
+                }
+
+                if (this.interpolate(row, col) > lineHeight)
+                    return false;
+
+                step++;
+            }
+
+            return true;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.geom.*;
+
+import java.util.BitSet;
+
+/**
+ * Holds the visibility of a regular grid of locations from an observer, as computed by {@link
+ * HighResTerrain#computeViewshed(Position, Sector, int, int, double)}. Grid points span the viewshed's sector, starting
+ * at the sector's upper left corner and proceeding in row-first order, the same arrangement used by analytic surface
+ * grids. A grid that is one point wide or tall places that point at the sector's center longitude or latitude.
+ */
+public class Viewshed {
+    protected final Position observer;
+    protected final Sector sector;
+    protected final int width;
+    protected final int height;
+    protected final BitSet visible;
+
+    /**
+     * Constructs a viewshed with the specified grid and visibility bits.
+     *
+     * @param observer the observer position, with altitude relative to the terrain.
+     * @param sector   the sector spanned by the grid.
+     * @param width    the grid width, in number of grid points.
+     * @param height   the grid height, in number of grid points.
+     * @param visible  the visibility of each grid point, indexed in row-first order from the upper left corner.
+     */
+    public Viewshed(Position observer, Sector sector, int width, int height, BitSet visible) {
+        this.observer = observer;
+        this.sector = sector;
+        this.width = width;
+        this.height = height;
+        this.visible = visible;
+    }
+
+    public Position getObserver() {
+        return this.observer;
+    }
+
+    public Sector getSector() {
+        return this.sector;
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * Indicates whether a grid point is visible from the observer.
+     *
+     * @param x the grid point's column, with 0 at the sector's western edge.
+     * @param y the grid point's row, with 0 at the sector's northern edge.
+     * @return true if the grid point is visible, otherwise false.
+     * @throws IndexOutOfBoundsException if the column or row is outside the grid.
+     */
+    public boolean isVisible(int x, int y) {
+        if (x < 0 || x >= this.width || y < 0 || y >= this.height)
+            throw new IndexOutOfBoundsException(x + ", " + y);
+
+        return this.visible.get(x + y * this.width);
+    }
+
+    /**
+     * Returns the number of grid points that are visible from the observer.
+     *
+     * @return the number of visible grid points.
+     */
+    public int getVisibleCount() {
+        return this.visible.cardinality();
+    }
+
+    /**
+     * Returns the location of a grid point.
+     *
+     * @param x the grid point's column, with 0 at the sector's western edge.
+     * @param y the grid point's row, with 0 at the sector's northern edge.
+     * @return the grid point's location.
+     */
+    public LatLon getLocation(int x, int y) {
+        return LatLon.fromDegrees(Viewshed.latitude(this.sector, this.height, y),
+            Viewshed.longitude(this.sector, this.width, x));
+    }
+
+    /**
+     * Returns the grid's visibility as scalar values: 1 for visible grid points and 0 for hidden grid points. Values are
+     * ordered row-first from the upper left corner, and may be used directly as the values of an analytic surface with
+     * this viewshed's sector and dimensions.
+     *
+     * @return a new array of <code>width * height</code> values.
+     */
+    public double[] getValues() {
+        double[] values = new double[this.width * this.height];
+        for (int i = this.visible.nextSetBit(0); i >= 0; i = this.visible.nextSetBit(i + 1)) {
+            values[i] = 1;
+        }
+
+        return values;
+    }
+
+    protected static double latitude(Sector sector, int height, int y) {
+        return height > 1 ? sector.latMax - y * sector.latDelta / (height - 1) : 0.5 * (sector.latMin + sector.latMax);
+    }
+
+    protected static double longitude(Sector sector, int width, int x) {
+        return width > 1 ? sector.lonMin + x * sector.lonDelta / (width - 1) : 0.5 * (sector.lonMin + sector.lonMax);
+    }
+}
@@ -0,0 +1,496 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.tracks;
+
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.util.Logging;
+
+import java.time.*;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stores the positions of many tracks in columnar form, for feeds that append positions at a high rate. Each track
+ * keeps its latitudes, longitudes, altitudes and times in primitive arrays, split into fixed size chunks that are
+ * appended to and never modified. Each chunk records the time range and the sector its positions span, so a query for
+ * the positions within a time window and a sector skips the chunks outside either. While a track's times are appended
+ * in order, the chunks and the positions within a chunk are also found by binary search on time.
+ * <p>
+ * Latitudes and longitudes are in degrees, altitudes in meters, and times in milliseconds since the epoch. Tracks are
+ * identified by strings.
+ * <p>
+ * Instances are thread safe. Appends to a track are serialized, and queries run concurrently with appends without
+ * locking; a query sees every position appended before it started, and possibly some appended while it runs.
+ */
+public class TrackStore {
+    protected static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    /** Receives the positions found by a query. */
+    public interface PositionVisitor {
+        /**
+         * Called once for each position found.
+         *
+         * @param trackId   the position's track.
+         * @param latitude  the latitude, in degrees.
+         * @param longitude the longitude, in degrees.
+         * @param altitude  the altitude, in meters.
+         * @param time      the time, in milliseconds since the epoch.
+         */
+        void visit(String trackId, double latitude, double longitude, double altitude, long time);
+    }
+
+    protected final int chunkSize;
+    protected final Map<String, TrackData> tracks = new ConcurrentHashMap<>();
+    protected final AtomicInteger unnamedTrackCount = new AtomicInteger();
+
+    /** Constructs an empty store with 4096 positions per chunk. */
+    public TrackStore() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructs an empty store.
+     *
+     * @param chunkSize the number of positions per chunk.
+     * @throws IllegalArgumentException if the chunk size is less than 1.
+     */
+    public TrackStore(int chunkSize) {
+        if (chunkSize < 1) {
+            String message = Logging.getMessage("generic.SizeOutOfRange", chunkSize);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Parses a track point time. ISO-8601 date-times, such as those in GPX files, are read as instants; times without
+     * an offset are taken to be UTC. NMEA times of the form <code>hhmmss.sss</code> have no date and are read as the
+     * time since midnight.
+     *
+     * @param time the time string.
+     * @return the time in milliseconds, or {@link Long#MIN_VALUE} if the time is null, empty or not recognized.
+     */
+    public static long parseTime(String time) {
+        if (time == null || time.isEmpty())
+            return Long.MIN_VALUE;
+
+        try {
+            if (time.indexOf('T') > 0) {
+                if (time.endsWith("Z") || time.lastIndexOf('+') > 0 || time.lastIndexOf('-') > time.indexOf('T'))
+                    return OffsetDateTime.parse(time).toInstant().toEpochMilli();
+                return LocalDateTime.parse(time).toInstant(ZoneOffset.UTC).toEpochMilli();
+            }
+
+            if (time.length() >= 6 && Character.isDigit(time.charAt(0))) {
+                int hours = Integer.parseInt(time.substring(0, 2));
+                int minutes = Integer.parseInt(time.substring(2, 4));
+                double seconds = Double.parseDouble(time.substring(4));
+                return (hours * 3600L + minutes * 60L) * 1000L + Math.round(seconds * 1000);
+            }
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return Long.MIN_VALUE;
+        }
+
+        return Long.MIN_VALUE;
+    }
+
+    /**
+     * Returns the identifiers of the tracks in the store.
+     *
+     * @return a snapshot of the track identifiers.
+     */
+    public Set<String> getTrackIds() {
+        return new HashSet<>(this.tracks.keySet());
+    }
+
+    /**
+     * Returns the number of positions of a track.
+     *
+     * @param trackId the track identifier.
+     * @return the number of positions, or zero if the store has no such track.
+     */
+    public int getNumPositions(String trackId) {
+        TrackData track = trackId != null ? this.tracks.get(trackId) : null;
+        return track != null ? track.size() : 0;
+    }
+
+    /**
+     * Removes a track from the store.
+     *
+     * @param trackId the track identifier.
+     * @return true if the store had the track, otherwise false.
+     */
+    public boolean removeTrack(String trackId) {
+        return trackId != null && this.tracks.remove(trackId) != null;
+    }
+
+    /** Removes all tracks from the store. */
+    public void clear() {
+        this.tracks.clear();
+    }
+
+    /**
+     * Appends a position to a track, creating the track if the store does not have it.
+     *
+     * @param trackId   the track identifier.
+     * @param latitude  the latitude, in degrees.
+     * @param longitude the longitude, in degrees.
+     * @param altitude  the altitude, in meters.
+     * @param time      the time, in milliseconds since the epoch.
+     * @throws IllegalArgumentException if the track identifier is null.
+     */
+    public void append(String trackId, double latitude, double longitude, double altitude, long time) {
+        TrackData track = this.getOrCreateTrack(trackId);
+        synchronized (track) {
+            track.append(latitude, longitude, altitude, time);
+        }
+    }
+
+    /**
+     * Appends positions to a track, creating the track if the store does not have it.
+     *
+     * @param trackId    the track identifier.
+     * @param latitudes  the latitudes, in degrees.
+     * @param longitudes the longitudes, in degrees.
+     * @param altitudes  the altitudes, in meters. If null, the altitudes are zero.
+     * @param times      the times, in milliseconds since the epoch.
+     * @param count      the number of positions to append from the start of the arrays.
+     * @throws IllegalArgumentException if the track identifier, the latitudes, the longitudes or the times are null, or
+     *                                  if an array is shorter than the count.
+     */
+    public void append(String trackId, double[] latitudes, double[] longitudes, double[] altitudes, long[] times,
+        int count) {
+        if (latitudes == null || longitudes == null || times == null) {
+            String message = Logging.getMessage("nullValue.ArrayIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (count < 0 || latitudes.length < count || longitudes.length < count || times.length < count
+            || (altitudes != null && altitudes.length < count)) {
+            String message = Logging.getMessage("generic.ArrayInvalidLength", count);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        TrackData track = this.getOrCreateTrack(trackId);
+        synchronized (track) {
+            for (int i = 0; i < count; i++) {
+                track.append(latitudes[i], longitudes[i], altitudes != null ? altitudes[i] : 0, times[i]);
+            }
+        }
+    }
+
+    /**
+     * Appends the points of a track read from a file, such as a GPX, NMEA or CSV file. Point times are parsed with
+     * {@link #parseTime(String)}; a point whose time is missing or not recognized takes the time of the point before
+     * it.
+     *
+     * @param trackId the identifier of the track to append to.
+     * @param track   the track whose points are appended.
+     * @return the number of points appended.
+     * @throws IllegalArgumentException if the track identifier or the track is null.
+     */
+    public int addTrack(String trackId, Track track) {
+        if (track == null) {
+            String message = Logging.getMessage("nullValue.TrackIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        TrackData data = this.getOrCreateTrack(trackId);
+        int count = 0;
+        synchronized (data) {
+            long time = data.size() > 0 ? data.lastTime : 0;
+            for (TrackSegment segment : track.getSegments()) {
+                for (TrackPoint point : segment.getPoints()) {
+                    long t = TrackStore.parseTime(point.getTime());
+                    if (t != Long.MIN_VALUE)
+                        time = t;
+
+                    data.append(point.getLatitude(), point.getLongitude(), point.getElevation(), time);
+                    count++;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Appends the points of tracks read from a file, such as the tracks returned by the <code>getTracks</code> method
+     * of the GPX, NMEA and CSV readers. Each track is appended to the track identified by its name. A track without a
+     * name is added as a new track with a generated identifier, so unnamed tracks from different files are never
+     * merged.
+     *
+     * @param tracks the tracks to append.
+     * @return the number of points appended.
+     * @throws IllegalArgumentException if the list of tracks is null.
+     */
+    public int addTracks(List<Track> tracks) {
+        if (tracks == null) {
+            String message = Logging.getMessage("nullValue.TracksIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        int count = 0;
+        for (Track track : tracks) {
+            String name = track.getName();
+            count += this.addTrack(name != null ? name : this.createTrackId(), track);
+        }
+
+        return count;
+    }
+
+    /**
+     * Finds the positions of every track that are within a time window and a sector.
+     *
+     * @param startTime the start of the time window, inclusive, in milliseconds since the epoch.
+     * @param endTime   the end of the time window, inclusive, in milliseconds since the epoch.
+     * @param sector    the sector of interest. If null, positions are not filtered by location.
+     * @param visitor   the visitor to call for each position found.
+     * @return the number of positions found.
+     * @throws IllegalArgumentException if the visitor is null.
+     */
+    public int query(long startTime, long endTime, Sector sector, PositionVisitor visitor) {
+        if (visitor == null) {
+            String message = Logging.getMessage("nullValue.VisitorIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        int count = 0;
+        for (Map.Entry<String, TrackData> entry : this.tracks.entrySet()) {
+            count += entry.getValue().query(entry.getKey(), startTime, endTime, sector, visitor);
+        }
+
+        return count;
+    }
+
+    /**
+     * Finds the positions of one track that are within a time window and a sector.
+     *
+     * @param trackId   the track identifier.
+     * @param startTime the start of the time window, inclusive, in milliseconds since the epoch.
+     * @param endTime   the end of the time window, inclusive, in milliseconds since the epoch.
+     * @param sector    the sector of interest. If null, positions are not filtered by location.
+     * @param visitor   the visitor to call for each position found.
+     * @return the number of positions found.
+     * @throws IllegalArgumentException if the track identifier or the visitor is null.
+     */
+    public int query(String trackId, long startTime, long endTime, Sector sector, PositionVisitor visitor) {
+        if (trackId == null) {
+            String message = Logging.getMessage("nullValue.StringIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (visitor == null) {
+            String message = Logging.getMessage("nullValue.VisitorIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        TrackData track = this.tracks.get(trackId);
+        return track != null ? track.query(trackId, startTime, endTime, sector, visitor) : 0;
+    }
+
+    /**
+     * Creates an empty track with an identifier the store does not yet have, for a track that has no name.
+     *
+     * @return the new track's identifier.
+     */
+    protected String createTrackId() {
+        while (true) {
+            String trackId = "Track " + this.unnamedTrackCount.incrementAndGet();
+            if (this.tracks.putIfAbsent(trackId, new TrackData(this.chunkSize)) == null)
+                return trackId;
+        }
+    }
+
+    protected TrackData getOrCreateTrack(String trackId) {
+        if (trackId == null) {
+            String message = Logging.getMessage("nullValue.StringIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        return this.tracks.computeIfAbsent(trackId, id -> new TrackData(this.chunkSize));
+    }
+
+    /**
+     * The positions of one track. Appends synchronize on the instance; queries read the chunk array and each chunk's
+     * size once, and never lock. A chunk's size is written after its positions and bounds, so a query sees every
+     * position below the size it reads.
+     */
+    protected static class TrackData {
+        protected final int chunkSize;
+        protected volatile Chunk[] chunks = new Chunk[0];
+        // True while every time appended is no earlier than the time before it.
+        protected volatile boolean ordered = true;
+        protected long lastTime = Long.MIN_VALUE;
+        protected int size;
+
+        public TrackData(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public int size() {
+            Chunk[] chunks = this.chunks;
+            return chunks.length == 0 ? 0 : (chunks.length - 1) * this.chunkSize + chunks[chunks.length - 1].size;
+        }
+
+        public void append(double latitude, double longitude, double altitude, long time) {
+            Chunk[] chunks = this.chunks;
+            Chunk chunk = chunks.length > 0 ? chunks[chunks.length - 1] : null;
+            if (chunk == null || chunk.size == this.chunkSize) {
+                chunk = new Chunk(this.chunkSize);
+                Chunk[] newChunks = Arrays.copyOf(chunks, chunks.length + 1);
+                newChunks[chunks.length] = chunk;
+                this.chunks = newChunks;
+            }
+
+            if (time < this.lastTime)
+                this.ordered = false;
+            this.lastTime = time;
+
+            chunk.append(latitude, longitude, altitude, time);
+        }
+
+        public int query(String trackId, long startTime, long endTime, Sector sector, PositionVisitor visitor) {
+            Chunk[] chunks = this.chunks;
+            boolean ordered = this.ordered;
+            int count = 0;
+
+            // When the times are ordered, skip the chunks that end before the window and stop at the first chunk that
+            // starts after it.
+            int first = ordered ? TrackData.findFirstChunk(chunks, startTime) : 0;
+            for (int c = first; c < chunks.length; c++) {
+                Chunk chunk = chunks[c];
+                int size = chunk.size;
+                if (size == 0)
+                    continue;
+
+                if (chunk.minTime > endTime) {
+                    if (ordered)
+                        break;
+                    continue;
+                }
+
+                if (chunk.maxTime < startTime || (sector != null && !chunk.intersects(sector)))
+                    continue;
+
+                count += chunk.query(trackId, size, ordered, startTime, endTime, sector, visitor);
+            }
+
+            return count;
+        }
+
+        protected static int findFirstChunk(Chunk[] chunks, long startTime) {
+            int low = 0;
+            int high = chunks.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                Chunk chunk = chunks[mid];
+                // Read the volatile size before the time range, so the range written before the size is visible. An
+                // empty chunk is the last chunk and holds no positions to find.
+                if (chunk.size == 0 || chunk.maxTime < startTime)
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+
+            return low;
+        }
+    }
+
+    protected static class Chunk {
+        protected final double[] latitudes;
+        protected final double[] longitudes;
+        protected final double[] altitudes;
+        protected final long[] times;
+        protected volatile int size;
+        protected long minTime = Long.MAX_VALUE;
+        protected long maxTime = Long.MIN_VALUE;
+        protected double minLat = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE;
+        protected double minLon = Double.MAX_VALUE, maxLon = -Double.MAX_VALUE;
+
+        public Chunk(int capacity) {
+            this.latitudes = new double[capacity];
+            this.longitudes = new double[capacity];
+            this.altitudes = new double[capacity];
+            this.times = new long[capacity];
+        }
+
+        public void append(double latitude, double longitude, double altitude, long time) {
+            int i = this.size;
+            this.latitudes[i] = latitude;
+            this.longitudes[i] = longitude;
+            this.altitudes[i] = altitude;
+            this.times[i] = time;
+
+            this.minTime = Math.min(this.minTime, time);
+            this.maxTime = Math.max(this.maxTime, time);
+            this.minLat = Math.min(this.minLat, latitude);
+            this.maxLat = Math.max(this.maxLat, latitude);
+            this.minLon = Math.min(this.minLon, longitude);
+            this.maxLon = Math.max(this.maxLon, longitude);
+
+            // Publish the position last; queries read the size before anything else.
+            this.size = i + 1;
+        }
+
+        public boolean intersects(Sector sector) {
+            return this.minLat <= sector.latMax && this.maxLat >= sector.latMin
+                && this.minLon <= sector.lonMax && this.maxLon >= sector.lonMin;
+        }
+
+        public int query(String trackId, int size, boolean ordered, long startTime, long endTime, Sector sector,
+            PositionVisitor visitor) {
+            int start = 0;
+            if (ordered) {
+                start = Arrays.binarySearch(this.times, 0, size, startTime);
+                if (start < 0) {
+                    start = -start - 1;
+                } else {
+                    // Equal times may repeat; back up to the first of them.
+                    while (start > 0 && this.times[start - 1] == startTime) {
+                        start--;
+                    }
+                }
+            }
+
+            int count = 0;
+            for (int i = start; i < size; i++) {
+                long time = this.times[i];
+                if (time > endTime) {
+                    if (ordered)
+                        break;
+                    continue;
+                }
+
+                if (time < startTime)
+                    continue;
+
+                double lat = this.latitudes[i];
+                double lon = this.longitudes[i];
+                if (sector != null && (lat < sector.latMin || lat > sector.latMax || lon < sector.lonMin
+                    || lon > sector.lonMax))
+                    continue;
+
+                visitor.visit(trackId, lat, lon, this.altitudes[i], time);
+                count++;
+            }
+
+            return count;
+        }
+    }
+}
@@ -10,25 +10,41 @@ import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.terrain.SectorGeometry;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Implements a quadtree backed by a bit-set index. A bit-set provides a minimal-memory index. Each bit identifies one
- * cell in the quadtree.
+ * Implements a quadtree whose leaf cells form a regular grid over the tree's region. An item is associated with every
+ * leaf cell it intersects, and a search returns the items associated with the leaf cells intersecting the search
+ * region.
  * <p>
- * This class provides methods to add and remove items from the quadtree, and to determine the items intersecting
- * specified regions.
+ * The tree is safe for concurrent use and optimized for reading. Each populated leaf cell holds an immutable array of
+ * items, which a write replaces with a modified copy. Searches and iteration take no locks and never wait for writers;
+ * a search running concurrently with a write sees each cell either before or after the write. Writes are serialized
+ * with each other.
+ * <p>
+ * The leaf cells intersecting a region are computed arithmetically from the region's coordinates, so adding an item
+ * and searching a region cost time proportional to the number of cells involved rather than the depth of the tree.
+ * The cells covered by each item are recorded, so an item is removed without scanning the tree. Large collections are
+ * best added with {@link #addAll(List, double[], int)}, which sorts the items into their cells in one pass.
  * <p>
  * Items can be added with an associated name, and can be retrieved and removed by name.
  *
  * @author tag
  * @version $Id: BasicQuadTree.java 1938 2014-04-15 22:34:52Z tgaskins $
  */
-public class BasicQuadTree<T> extends BitSetQuadTreeFilter implements Iterable<T> {
-    protected final HashMap<String, T> nameMap = new HashMap<>(); // maps names to items
-    protected ArrayList<double[]> levelZeroCells;
-    protected Map<Integer, List<T>> items; // the tree's list of items
-    protected T currentItem; // used during add() to pass the added item to doOperation().
-    protected String currentName; // used during add() to pass the optional name of the added item to doOperation().
+public class BasicQuadTree<T> implements Iterable<T> {
+    protected static final int MAX_LEVELS = 15;
+
+    protected final Map<String, T> nameMap = new ConcurrentHashMap<>(); // maps names to items
+    protected final int numLevels;
+    // The number of leaf cells along each side of the tree's region.
+    protected final int gridSize;
+    protected final double minLat, minLon, cellHeight, cellWidth;
+    // The items of each populated leaf cell, keyed by row * gridSize + column. Cell arrays are never modified.
+    protected final Map<Integer, Object[]> cells = new ConcurrentHashMap<>();
+    // The cell ranges of each item, as minRow, maxRow, minColumn, maxColumn for each time the item was added.
+    protected final Map<T, int[]> itemCells = new ConcurrentHashMap<>();
+    protected final Object writeLock = new Object();
     protected boolean allowDuplicates = true;
 
     /**
@@ -36,72 +52,72 @@ public class BasicQuadTree<T> extends BitSetQuadTreeFilter implements Iterable<T
      * <p>
      * The number of levels in the quadtree must be specified to the constructor. The more levels there are the more
      * discriminating searches will be, but at the cost of some performance because more cells are searched. For the
-     * Earth, a level count of 8 provides leaf cells about 75 km along their meridian edges (edges of constant Earth, a
-     * level count of 8 provides leaf cells about 75 km along their meridian edges (edges of constant longitude).
-     * Additional levels successfully halve the distance, fewer levels double that distance.
+     * Earth, a level count of 8 provides leaf cells about 75 km along their meridian edges (edges of constant
+     * longitude). Additional levels successfully halve the distance, fewer levels double that distance.
      *
      * @param numLevels the number of levels in the quadtree. The more levels there are the more discriminating searches
      *                  will be, but at the cost of some performance.
-     * @param sector    the region the tree spans.
-     * @param itemMap   a {@link Map} to hold the items added to the quadtree. May be null, in which case a new map is
-     *                  created.
-     * @throws IllegalArgumentException if <code>numLevels</code> is less than 1.
+     * @param sector    the region the tree spans. May be null, in which case the tree spans the full sphere.
+     * @throws IllegalArgumentException if <code>numLevels</code> is less than 1 or greater than 15.
      */
-    public BasicQuadTree(int numLevels, Sector sector, Map<Integer, List<T>> itemMap) {
-        super(numLevels, null);
+    public BasicQuadTree(int numLevels, Sector sector) {
+        if (numLevels < 1 || numLevels > MAX_LEVELS) {
+            String message = Logging.getMessage("generic.DepthOutOfRange", numLevels);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
 
         if (sector == null) {
             sector = Sector.FULL_SPHERE;
         }
 
-        this.makeLevelZeroCells(sector);
-        this.items = itemMap != null ? itemMap : new HashMap<>();
+        this.numLevels = numLevels;
+        this.gridSize = 1 << numLevels;
+        this.minLat = sector.latMin;
+        this.minLon = sector.lonMin;
+        this.cellHeight = (sector.latMax - sector.latMin) / this.gridSize;
+        this.cellWidth = (sector.lonMax - sector.lonMin) / this.gridSize;
+    }
+
+    /**
+     * Constructs a quadtree of a specified level and spanning a specified region.
+     *
+     * @param numLevels the number of levels in the quadtree.
+     * @param sector    the region the tree spans.
+     * @param itemMap   not used. The tree manages its own storage.
+     * @throws IllegalArgumentException if <code>numLevels</code> is less than 1 or greater than 15.
+     * @see #BasicQuadTree(int, Sector)
+     */
+    public BasicQuadTree(int numLevels, Sector sector, Map<Integer, List<T>> itemMap) {
+        this(numLevels, sector);
     }
 
     /**
      * Constructs a quadtree of a specified level and spanning a specified region.
-     * <p>
-     * The number of levels in the quadtree must be specified to the constructor. The more levels there are the more
-     * discriminating searches will be, but at the cost of some performance because more cells are searched. For the
-     * Earth, a level count of 8 provides leaf cells about 75 km along their meridian edges (edges of constant Earth, a
-     * level count of 8 provides leaf cells about 75 km along their meridian edges (edges of constant longitude).
-     * Additional levels successfully halve the distance, fewer levels double that distance.
      *
      * @param numLevels       the number of levels in the quadtree. The more levels there are the more discriminating
      *                        searches will be, but at the cost of some performance.
      * @param sector          the region the tree spans.
-     * @param itemMap         a {@link Map} to hold the items added to the quadtree. May be null, in which case a new
-     *                        map is created.
-     * @param allowDuplicates Indicates whether the collection held by this quadtree may contain duplicate entries.
-     *                        Specifying <code>true</code>, which is the default, may cause an individual item to be
-     *                        associated with multiple quadtree regions if the item's coordinates fall on a region
-     *                        boundary. In this case that item will be returned multiple times from an iterator created
-     *                        by this class. Specifying <code>false</code> prevents this.
-     * @throws IllegalArgumentException if <code>numLevels</code> is less than 1.
+     * @param itemMap         not used. The tree manages its own storage.
+     * @param allowDuplicates Indicates whether an item may be associated with more than one leaf cell. Specifying
+     *                        <code>true</code>, which is the default, associates an item with every cell it
+     *                        intersects. Specifying <code>false</code> associates an item with only the cell containing
+     *                        its minimum corner, which is appropriate for point items.
+     * @throws IllegalArgumentException if <code>numLevels</code> is less than 1 or greater than 15.
      */
     public BasicQuadTree(int numLevels, Sector sector, Map<Integer, List<T>> itemMap, boolean allowDuplicates) {
-        this(numLevels, sector, itemMap);
+        this(numLevels, sector);
 
         this.allowDuplicates = allowDuplicates;
-
-        this.makeLevelZeroCells(sector);
-        this.items = itemMap != null ? itemMap : new HashMap<>();
     }
 
     /**
-     * Creates the quadtree's level-zero cells.
+     * Returns the number of levels in the tree.
      *
-     * @param sector the sector to subdivide to create the cells.
+     * @return the number of levels in the tree.
      */
-    protected void makeLevelZeroCells(Sector sector) {
-        Sector[] subSectors = sector.subdivide();
-
-        this.levelZeroCells = new ArrayList<>(4);
-
-        this.levelZeroCells.add(subSectors[0].asDegreesArray());
-        this.levelZeroCells.add(subSectors[1].asDegreesArray());
-        this.levelZeroCells.add(subSectors[3].asDegreesArray());
-        this.levelZeroCells.add(subSectors[2].asDegreesArray());
+    public int getNumLevels() {
+        return this.numLevels;
     }
 
     /**
@@ -109,8 +125,17 @@ public class BasicQuadTree<T> extends BitSetQuadTreeFilter implements Iterable<T
      *
      * @return true if the tree contains items, otherwise false.
      */
-    synchronized public boolean hasItems() {
-        return !this.items.isEmpty();
+    public boolean hasItems() {
+        return !this.itemCells.isEmpty();
+    }
+
+    /**
+     * Returns the number of distinct items in the tree.
+     *
+     * @return the number of items.
+     */
+    public int size() {
+        return this.itemCells.size();
     }
 
     /**
@@ -119,20 +144,8 @@ public class BasicQuadTree<T> extends BitSetQuadTreeFilter implements Iterable<T
      * @param item the item to check. If null, false is returned.
      * @return true if the item is in the tree, otherwise false.
      */
-    synchronized public boolean contains(T item) {
-        if (item == null)
-            return false;
-
-        for (Map.Entry<Integer, List<T>> entry : this.items.entrySet()) {
-            List<T> itemList = entry.getValue();
-            if (itemList == null)
-                continue;
-
-            if (itemList.contains(item))
-                return true;
-        }
-
-        return false;
+    public boolean contains(T item) {
+        return item != null && this.itemCells.containsKey(item);
     }
 
     /**
@@ -141,13 +154,35 @@ public class BasicQuadTree<T> extends BitSetQuadTreeFilter implements Iterable<T
      *
      * @param item       the item to add.
      * @param itemCoords an array specifying the region or location of the item. If the array's length is 2 it
-     *                   represents a location in [latitude, longitude]. If its length is 4 it represents a region, with
-     *                   the same layout as the <code>nodeRegion</code> argument.
+     *                   represents a location in [latitude, longitude]. If its length is 4 it represents a region,
+     *                   [minimum latitude, maximum latitude, minimum longitude, maximum longitude].
      * @param itemName   the item name. If null, the item is added without a name.
      * @throws IllegalArgumentException if either <code>item</code> or <code>itemCoords</code> is null.
      */
-    synchronized public void add(T item, double[] itemCoords, String itemName) {
-        this.addItem(item, itemCoords, itemName);
+    public void add(T item, double[] itemCoords, String itemName) {
+        if (item == null) {
+            String message = Logging.getMessage("nullValue.ObjectIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (itemCoords == null) {
+            String message = Logging.getMessage("nullValue.ArrayIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        synchronized (this.writeLock) {
+            int[] range = this.computeCellRange(itemCoords, 0, itemCoords.length == 4 ? 4 : 2, new int[4]);
+            if (range == null)
+                return; // The item is outside the tree's region.
+
+            this.addToCells(item, range);
+            this.itemCells.merge(item, range, BasicQuadTree::concat);
+
+            if (itemName != null)
+                this.nameMap.put(itemName, item);
+        }
     }
 
     /**
@@ -155,86 +190,134 @@ public class BasicQuadTree<T> extends BitSetQuadTreeFilter implements Iterable<T
      *
      * @param item       the item to add.
      * @param itemCoords an array specifying the region or location of the item. If the array's length is 2 it
-     *                   represents a location in [latitude, longitude]. If its length is 4 it represents a region, with
-     *                   the same layout as the <code>nodeRegion</code> argument.
+     *                   represents a location in [latitude, longitude]. If its length is 4 it represents a region,
+     *                   [minimum latitude, maximum latitude, minimum longitude, maximum longitude].
      * @throws IllegalArgumentException if either <code>item</code> or <code>itemCoords</code> is null.
      */
-    synchronized public void add(T item, double[] itemCoords) {
-        this.addItem(item, itemCoords, null);
+    public void add(T item, double[] itemCoords) {
+        this.add(item, itemCoords, null);
     }
 
-    protected void addItem(T item, double[] itemCoords, String name) {
+    /**
+     * Adds many items to the quadtree at once. The items are sorted into their cells in one pass, and each cell's item
+     * array is written once, which is much faster than adding the items individually.
+     *
+     * @param items  the items to add.
+     * @param coords the items' coordinates, packed in item order. Each item has <code>coordsPerItem</code> values with
+     *               the same layout as the <code>itemCoords</code> argument of {@link #add(Object, double[])}.
+     * @param coordsPerItem the number of coordinates per item: 2 for locations or 4 for regions.
+     * @throws IllegalArgumentException if any argument is null or invalid, or if the coordinate array is too short.
+     */
+    public void addAll(List<? extends T> items, double[] coords, int coordsPerItem) {
+        if (items == null || coords == null) {
+            String message = Logging.getMessage("nullValue.ArrayIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if ((coordsPerItem != 2 && coordsPerItem != 4) || coords.length < items.size() * coordsPerItem) {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "coordsPerItem=" + coordsPerItem);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        synchronized (this.writeLock) {
+            // Compute each item's cell range, and count the items entering each cell.
+            int numItems = items.size();
+            int[] ranges = new int[4 * numItems];
+            Map<Integer, int[]> counts = new HashMap<>();
+            int[] range = new int[4];
+            for (int i = 0; i < numItems; i++) {
+                if (this.computeCellRange(coords, i * coordsPerItem, coordsPerItem, range) == null) {
+                    ranges[4 * i] = -1;
+                    continue;
+                }
+
+                System.arraycopy(range, 0, ranges, 4 * i, 4);
+                for (int row = range[0]; row <= range[1]; row++) {
+                    for (int col = range[2]; col <= range[3]; col++) {
+                        counts.computeIfAbsent(row * this.gridSize + col, k -> new int[1])[0]++;
+                    }
+                }
+            }
+
+            // Allocate each cell's new array once, copying the cell's current items to its start.
+            Map<Integer, Object[]> newCells = new HashMap<>(2 * counts.size());
+            Map<Integer, int[]> fill = new HashMap<>(2 * counts.size());
+            for (Map.Entry<Integer, int[]> entry : counts.entrySet()) {
+                Object[] current = this.cells.getOrDefault(entry.getKey(), new Object[0]);
+                newCells.put(entry.getKey(), Arrays.copyOf(current, current.length + entry.getValue()[0]));
+                fill.put(entry.getKey(), new int[] {current.length});
+            }
 
-        this.currentItem = item;
-        this.currentName = name;
+            for (int i = 0; i < numItems; i++) {
+                if (ranges[4 * i] < 0)
+                    continue;
 
-        this.start();
+                T item = items.get(i);
+                for (int row = ranges[4 * i]; row <= ranges[4 * i + 1]; row++) {
+                    for (int col = ranges[4 * i + 2]; col <= ranges[4 * i + 3]; col++) {
+                        int key = row * this.gridSize + col;
+                        newCells.get(key)[fill.get(key)[0]++] = item;
+                    }
+                }
+                this.itemCells.merge(item, Arrays.copyOfRange(ranges, 4 * i, 4 * i + 4), BasicQuadTree::concat);
+            }
 
-        final int ls = levelZeroCells.size();
-        for (int i = 0; i < ls; i++) {
-            this.testAndDo(0, i, levelZeroCells.get(i), itemCoords);
+            this.cells.putAll(newCells);
         }
     }
 
     /**
-     * Removes an item from the tree.
-     * <p>
-     * <em>Note:</em> For large collections, this can be an expensive operation.
+     * Removes an item from the tree. Removes every association of the item, including any names referring to it.
      *
      * @param item the item to remove. If null, no item is removed.
      */
-    synchronized public void remove(T item) {
+    public void remove(T item) {
         if (item == null)
             return;
 
-        Collection<Integer> bitsToClear = new ArrayList<>();
-
-        for (Map.Entry<Integer, List<T>> entry : this.items.entrySet()) {
-            List<T> itemList = entry.getValue();
-            if (itemList == null)
-                continue;
+        synchronized (this.writeLock) {
+            int[] ranges = this.itemCells.remove(item);
+            if (ranges == null)
+                return;
 
-            itemList.remove(item);
-
-            if (itemList.isEmpty())
-                bitsToClear.add(entry.getKey());
-        }
+            for (int i = 0; i < ranges.length; i += 4) {
+                for (int row = ranges[i]; row <= ranges[i + 1]; row++) {
+                    for (int col = ranges[i + 2]; col <= ranges[i + 3]; col++) {
+                        this.removeFromCell(row * this.gridSize + col, item);
+                    }
+                }
+            }
 
-        for (Integer bitNum : bitsToClear) {
-            this.bits.clear(bitNum);
+            if (!this.nameMap.isEmpty())
+                this.nameMap.values().removeIf(value -> value.equals(item));
         }
     }
 
     /**
      * Removes an item from the tree by name.
-     * <p>
-     * <em>Note:</em> For large collections, this can be an expensive operation.
      *
      * @param name the name of the item to remove. If null, no item is removed.
      */
-    synchronized public void removeByName(String name) {
-        T item = this.getByName(name);
-
-        this.nameMap.remove(name);
-
-        if (item == null)
+    public void removeByName(String name) {
+        if (name == null)
             return;
 
-        for (Map.Entry<Integer, List<T>> entry : this.items.entrySet()) {
-            List<T> itemList = entry.getValue();
-            if (itemList == null)
-                continue;
-
-            itemList.remove(item);
+        synchronized (this.writeLock) {
+            this.remove(this.nameMap.remove(name));
         }
     }
 
     /**
      * Removes all items from the tree.
      */
-    synchronized public void clear() {
-        this.items.clear();
-        this.bits.clear();
+    public void clear() {
+        synchronized (this.writeLock) {
+            this.cells.clear();
+            this.itemCells.clear();
+            this.nameMap.clear();
+        }
     }
 
     /**
@@ -243,83 +326,20 @@ public class BasicQuadTree<T> extends BitSetQuadTreeFilter implements Iterable<T
      * @param name the item name. If null, null is returned.
      * @return the named item, or null if the item is not in the tree or the specified name is null.
      */
-    synchronized public T getByName(String name) {
+    public T getByName(String name) {
         return name != null ? this.nameMap.get(name) : null;
     }
 
     /**
-     * Returns an iterator over the items in the tree. There is no specific iteration order and the iterator may return
-     * duplicate entries.
+     * Returns an iterator over the items in the tree. Each item is returned once, in no specific order. The iterator
+     * reflects the items in the tree when it was created, and may or may not reflect later changes.
      * <p>
      * <em>Note</em> The {@link Iterator#remove()} operation is not supported.
      *
      * @return an iterator over the items in the tree.
      */
-    synchronized public Iterator<T> iterator() {
-        return new Iterator<>() {
-            // The items are stored in lists associated with each cell (each bit of the bit-set), so two internal
-            // iterators are needed: one for the map of populated cells and one for a cell's list of items.
-            private final Iterator<List<T>> mapIterator;
-            private Iterator<T> listIterator;
-            private T nextItem;
-
-            { // constructor
-                mapIterator = BasicQuadTree.this.items.values().iterator();
-            }
-
-            /**
-             * {@inheritDoc}
-             **/
-            public boolean hasNext() {
-                // This is the only method that causes the list to increment, so call it before every call to next().
-
-                if (this.nextItem != null)
-                    return true;
-
-                this.moveToNextItem();
-
-                return this.nextItem != null;
-            }
-
-            /**
-             * {@inheritDoc}
-             **/
-            public T next() {
-                if (!this.hasNext())
-                    throw new NoSuchElementException("Iteration has no more elements.");
-
-                T lastNext = this.nextItem;
-                this.nextItem = null;
-                return lastNext;
-            }
-
-            /**
-             * This operation is not supported and will produce a {@link UnsupportedOperationException} if
-             * invoked.
-             */
-            public void remove() {
-                throw new UnsupportedOperationException("The remove() operations is not supported by this Iterator.");
-            }
-
-            private void moveToNextItem() {
-                // Use the next item in a cell's item list, if there is an item list and it has a next item.
-                if (this.listIterator != null && this.listIterator.hasNext()) {
-                    this.nextItem = this.listIterator.next();
-                    return;
-                }
-
-                // Find the next map entry with a non-null item list. Use the first item in that list.
-                this.listIterator = null;
-                while (this.mapIterator.hasNext()) {
-                    this.listIterator = this.mapIterator.next().iterator();
-
-                    if (this.listIterator.hasNext()) {
-                        this.nextItem = this.listIterator.next();
-                        return;
-                    }
-                }
-            }
-        };
+    public Iterator<T> iterator() {
+        return Collections.unmodifiableSet(this.itemCells.keySet()).iterator();
     }
 
     /**
@@ -331,13 +351,15 @@ public class BasicQuadTree<T> extends BitSetQuadTreeFilter implements Iterable<T
      * a new set if that argument is null.
      * @throws IllegalArgumentException if <code>location</code> is null.
      */
-    synchronized public Set<T> getItemsAtLocation(LatLon location, Set<T> outItems) {
-
-        FindIntersectingBitsOp op = new FindIntersectingBitsOp(this);
+    public Set<T> getItemsAtLocation(LatLon location, Set<T> outItems) {
+        if (outItems == null)
+            outItems = new HashSet<>();
 
-        BitSet bitIds = op.getOnBits(this.levelZeroCells, location.asDegreesArray(), new BitSet());
+        int[] range = this.computeCellRange(location.asDegreesArray(), 0, 2, new int[4]);
+        if (range != null)
+            this.collectItems(range, outItems);
 
-        return this.buildItemSet(bitIds, outItems);
+        return outItems;
     }
 
     /**
@@ -349,17 +371,16 @@ public class BasicQuadTree<T> extends BitSetQuadTreeFilter implements Iterable<T
      * a new set if that argument is null.
      * @throws IllegalArgumentException if <code>locations</code> is null.
      */
-    synchronized public Set<T> getItemsAtLocation(Iterable<LatLon> locations, Set<T> outItems) {
-
-        FindIntersectingBitsOp op = new FindIntersectingBitsOp(this);
+    public Set<T> getItemsAtLocation(Iterable<LatLon> locations, Set<T> outItems) {
+        if (outItems == null)
+            outItems = new HashSet<>();
 
-        BitSet bitIds = new BitSet();
         for (LatLon location : locations) {
             if (location != null)
-                bitIds = op.getOnBits(this.levelZeroCells, location.asDegreesArray(), bitIds);
+                this.getItemsAtLocation(location, outItems);
         }
 
-        return this.buildItemSet(bitIds, outItems);
+        return outItems;
     }
 
     /**
@@ -371,13 +392,15 @@ public class BasicQuadTree<T> extends BitSetQuadTreeFilter implements Iterable<T
      * a new set if that argument is null.
      * @throws IllegalArgumentException if <code>testSector</code> is null.
      */
-    synchronized public Set<T> getItemsInRegion(Sector testSector, Set<T> outItems) {
-
-        FindIntersectingBitsOp op = new FindIntersectingBitsOp(this);
+    public Set<T> getItemsInRegion(Sector testSector, Set<T> outItems) {
+        if (outItems == null)
+            outItems = new HashSet<>();
 
-        BitSet bitIds = op.getOnBits(this.levelZeroCells, testSector, new BitSet());
+        int[] range = this.computeCellRange(testSector.asDegreesArray(), 0, 4, new int[4]);
+        if (range != null)
+            this.collectItems(range, outItems);
 
-        return this.buildItemSet(bitIds, outItems);
+        return outItems;
     }
 
     /**
@@ -390,81 +413,128 @@ public class BasicQuadTree<T> extends BitSetQuadTreeFilter implements Iterable<T
      * a new set if that argument is null.
      * @throws IllegalArgumentException if <code>geometryList</code> is null.
      */
-    synchronized public Set<T> getItemsInRegions(Iterable<SectorGeometry> geometryList, Set<T> outItems) {
-
-        FindIntersectingBitsOp op = new FindIntersectingBitsOp(this);
+    public Set<T> getItemsInRegions(Iterable<SectorGeometry> geometryList, Set<T> outItems) {
+        if (outItems == null)
+            outItems = new HashSet<>();
 
-        BitSet bitIds = new BitSet();
         for (SectorGeometry testSector : geometryList) {
             if (testSector != null)
-                bitIds = op.getOnBits(this.levelZeroCells, testSector.getSector(), bitIds);
+                this.getItemsInRegion(testSector.getSector(), outItems);
         }
 
-        return this.buildItemSet(bitIds, outItems);
+        return outItems;
+    }
+
+    //**************************************************************//
+    //********************  Cell Storage  **************************//
+    //**************************************************************//
+
+    protected static int[] concat(int[] a, int[] b) {
+        int[] c = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, c, a.length, b.length);
+        return c;
     }
 
     /**
-     * Adds the items identified by a list of bit IDs to the set returned by the get methods.
+     * Computes the range of leaf cells intersecting a location or region. Items on a cell boundary are associated with
+     * the cells on both sides of it.
      *
-     * @param bitIds   the bit numbers of the cells containing the items to return.
-     * @param outItems a {@link Set} in which to place the items. If null, a new set is created.
-     * @return the set of items. The value passed as the <code>outItems</code> is returned.
+     * @param coords        the coordinates array.
+     * @param offset        the index of the first coordinate.
+     * @param coordsPerItem 2 for a location [latitude, longitude], or 4 for a region [minimum latitude, maximum
+     *                      latitude, minimum longitude, maximum longitude].
+     * @param range         an array in which to return the range as minRow, maxRow, minColumn, maxColumn.
+     * @return the range, or null if the location or region is outside the tree's region.
      */
-    protected Set<T> buildItemSet(BitSet bitIds, Set<T> outItems) {
-        if (outItems == null)
-            outItems = new HashSet<>();
-
-        if (bitIds == null)
-            return outItems;
-
-        _buildItemSet(bitIds, outItems);
+    protected int[] computeCellRange(double[] coords, int offset, int coordsPerItem, int[] range) {
+        double latMin = coords[offset];
+        double latMax = (coordsPerItem == 4) ? coords[offset + 1] : latMin;
+        double lonMin = (coordsPerItem == 4) ? coords[offset + 2] : coords[offset + 1];
+        double lonMax = (coordsPerItem == 4) ? coords[offset + 3] : lonMin;
+
+        double rowMin = (latMin - this.minLat) / this.cellHeight;
+        double rowMax = (latMax - this.minLat) / this.cellHeight;
+        double colMin = (lonMin - this.minLon) / this.cellWidth;
+        double colMax = (lonMax - this.minLon) / this.cellWidth;
+
+        if (rowMax < 0 || rowMin > this.gridSize || colMax < 0 || colMin > this.gridSize)
+            return null;
+
+        // A coordinate exactly on a cell boundary intersects the cells on both sides.
+        range[0] = this.clamp((int) Math.ceil(rowMin) - 1);
+        range[1] = this.clamp((int) Math.floor(rowMax));
+        range[2] = this.clamp((int) Math.ceil(colMin) - 1);
+        range[3] = this.clamp((int) Math.floor(colMax));
+
+        if (!this.allowDuplicates) {
+            range[1] = range[0];
+            range[3] = range[2];
+        }
 
-        return outItems;
+        return range;
     }
 
-    private void _buildItemSet(BitSet bitIds, Set<T> outItems) {
-        bitIds.stream().forEach(id -> {
-            //for (Integer id : bitIds) {
-            List<T> regionItems = this.items.get(id);
-            if (regionItems != null)
-                outItems.addAll(regionItems);
-        });
+    protected int clamp(int index) {
+        return index < 0 ? 0 : Math.min(index, this.gridSize - 1);
     }
 
-    /**
-     * Performs the add operation of the quadtree.
-     *
-     * @param level      the quadtree level currently being traversed.
-     * @param position   the position of the cell in its parent cell, either 0, 1, 2, or 3. Cell positions starts with 0
-     *                   at the southwest corner of the parent cell and increment counter-clockwise: cell 1 is SE, cell
-     *                   2 is NE and cell 3 is NW.
-     * @param cellRegion an array specifying the coordinates of the cell's region. The first two entries are the minimum
-     *                   and maximum values on the Y axis (typically latitude). The last two entries are the minimum and
-     *                   maximum values on the X axis, (typically longitude).
-     * @param itemCoords an array specifying the region or location of the intersecting item. If the array's length is 2
-     *                   it represents a location in [latitude, longitude]. If its length is 4 it represents a region,
-     *                   with the same layout as the <code>nodeRegion</code> argument.
-     * @return true if traversal should continue to the cell's descendants, false if traversal should not continue to
-     * the cell's descendants.
-     */
-    protected boolean doOperation(int level, int position, double[] cellRegion, double[] itemCoords) {
-        int bitNum = this.computeBitPosition(level, position);
-
-        this.bits.set(bitNum);
+    protected void addToCells(T item, int[] range) {
+        for (int row = range[0]; row <= range[1]; row++) {
+            for (int col = range[2]; col <= range[3]; col++) {
+                Object[] current = this.cells.get(row * this.gridSize + col);
+                Object[] items = (current != null) ? Arrays.copyOf(current, current.length + 1) : new Object[1];
+                items[items.length - 1] = item;
+                this.cells.put(row * this.gridSize + col, items);
+            }
+        }
+    }
 
-        if (level < this.maxLevel)
-            return true;
+    protected void removeFromCell(int key, T item) {
+        Object[] current = this.cells.get(key);
+        if (current == null)
+            return;
 
-        List<T> regionItems = this.items.computeIfAbsent(bitNum, k -> new ArrayList<>());
+        int count = 0;
+        Object[] items = new Object[current.length];
+        for (Object o : current) {
+            if (!o.equals(item))
+                items[count++] = o;
+        }
 
-        regionItems.add(this.currentItem);
+        if (count == 0)
+            this.cells.remove(key);
+        else if (count < current.length)
+            this.cells.put(key, Arrays.copyOf(items, count));
+    }
 
-        if (this.currentName != null)
-            this.nameMap.put(this.currentName, this.currentItem);
+    @SuppressWarnings("unchecked")
+    protected void collectItems(int[] range, Set<T> outItems) {
+        long numCells = (long) (range[1] - range[0] + 1) * (range[3] - range[2] + 1);
+
+        if (numCells > this.cells.size()) {
+            // The region covers more cells than are populated, so visit the populated cells instead.
+            for (Map.Entry<Integer, Object[]> entry : this.cells.entrySet()) {
+                int row = entry.getKey() / this.gridSize;
+                int col = entry.getKey() % this.gridSize;
+                if (row >= range[0] && row <= range[1] && col >= range[2] && col <= range[3]) {
+                    for (Object o : entry.getValue()) {
+                        outItems.add((T) o);
+                    }
+                }
+            }
+            return;
+        }
 
-        if (!this.allowDuplicates)
-            this.stop();
+        for (int row = range[0]; row <= range[1]; row++) {
+            for (int col = range[2]; col <= range[3]; col++) {
+                Object[] items = this.cells.get(row * this.gridSize + col);
+                if (items == null)
+                    continue;
 
-        return false;
+                for (Object o : items) {
+                    outItems.add((T) o);
+                }
+            }
+        }
     }
 }
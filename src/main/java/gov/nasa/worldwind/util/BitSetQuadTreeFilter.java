@@ -102,8 +102,7 @@ public abstract class BitSetQuadTreeFilter {
     /**
      * A method implemented by subclasses and called during tree traversal to perform an operation on an intersecting
      * item. The method's implementation typically stores a reference to the intersecting item, or stores the cell's
-     * identity for later reference. See for example {@link BasicQuadTree} and {@link
-     * BitSetQuadTreeFilter.FindIntersectingBitsOp}.
+     * identity for later reference. See for example {@link BitSetQuadTreeFilter.FindIntersectingBitsOp}.
      *
      * @param level      the quadtree level currently being traversed.
      * @param position   the position of the cell in its parent cell, either 0, 1, 2, or 3. Cell positions starts with 0
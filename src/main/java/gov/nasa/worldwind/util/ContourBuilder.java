@@ -6,9 +6,13 @@
 
 package gov.nasa.worldwind.util;
 
+import gov.nasa.worldwind.exception.WWRuntimeException;
 import gov.nasa.worldwind.geom.*;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import java.util.logging.Level;
 
 /**
  * Generates contour lines at threshold values in a rectangular array of numeric values. ContourBuilder differs from the
@@ -29,105 +33,75 @@ import java.util.*;
  * maximum value, though the result is an empty list of contour lines. The domain of contour line coordinates is the XY
  * Cartesian space defined by the rectangular array's width and height. X coordinates range from 0 to width-1, and Y
  * coordinates range from 0 to height-1.
+ * <p>
+ * Contour lines at many threshold values are computed in parallel by {@link #buildContourLists(double[], Sector)} and
+ * {@link #buildContourLists(double[], Sector, ObjDoubleConsumer)}, the latter delivering each threshold's contour lines
+ * as soon as they're complete. The array is divided into horizontal strips of <code>STRIP_ROWS</code> rows, and the
+ * range of values in each strip is computed once; a threshold only examines the strips whose range spans it.
+ * <p>
+ * Contouring cells are held in primitive arrays sorted in row-major order. When contour lines are computed at a single
+ * threshold value, the cells of each strip are assembled in parallel. ContourBuilder does not retain any state between
+ * calls other than the strip ranges, and instances are safe for concurrent use.
  *
  * @author dcollins
  * @version $Id: ContourBuilder.java 2436 2014-11-14 23:20:50Z danm $
  */
 public class ContourBuilder {
-    protected static final Map<Direction, Direction> dirRev = new HashMap<>();
-    protected static final Map<Integer, LinkedHashMap<Direction, Direction>> dirNext
-        = new HashMap<>();
+    /**
+     * The number of rows of contouring cells in each strip.
+     */
+    protected static final int STRIP_ROWS = 128;
+    protected static final int NORTH = 0;
+    protected static final int SOUTH = 1;
+    protected static final int EAST = 2;
+    protected static final int WEST = 3;
+    /**
+     * The directions a contour may start from in a cell with each contour mask, in the order they're traversed. The
+     * directions are listed in pairs; a contour entering the cell from either direction of a pair exits it from the
+     * other.
+     */
+    protected static final int[][] START_DIRECTIONS = {
+        {},
+        {SOUTH, WEST},
+        {SOUTH, EAST},
+        {EAST, WEST},
+        {NORTH, EAST},
+        {NORTH, WEST, SOUTH, EAST},
+        {NORTH, SOUTH},
+        {NORTH, WEST},
+        {NORTH, WEST},
+        {NORTH, SOUTH},
+        {NORTH, EAST, SOUTH, WEST},
+        {NORTH, EAST},
+        {EAST, WEST},
+        {SOUTH, EAST},
+        {SOUTH, WEST},
+        {}};
+    /**
+     * The direction a contour exits a cell, indexed by <code>4 * mask + entryDirection</code>, or -1 if a contour
+     * cannot enter a cell with that mask from that direction.
+     */
+    protected static final int[] EXIT_DIRECTIONS = new int[64];
 
     static {
-        ContourBuilder.dirRev.put(Direction.NORTH, Direction.SOUTH);
-        ContourBuilder.dirRev.put(Direction.SOUTH, Direction.NORTH);
-        ContourBuilder.dirRev.put(Direction.EAST, Direction.WEST);
-        ContourBuilder.dirRev.put(Direction.WEST, Direction.EAST);
-
-        // Use LinkedHaspMap to store the maps in dirNext in order to preserve enumeration order. The method
-        // traverseContourCells requires that the directions are enumerated in the order listed here.
-        LinkedHashMap<Direction, Direction> map = new LinkedHashMap<>();
-        map.put(Direction.SOUTH, Direction.WEST);
-        map.put(Direction.WEST, Direction.SOUTH);
-        ContourBuilder.dirNext.put(1, map);
-
-        map = new LinkedHashMap<>();
-        map.put(Direction.SOUTH, Direction.EAST);
-        map.put(Direction.EAST, Direction.SOUTH);
-        ContourBuilder.dirNext.put(2, map);
-
-        map = new LinkedHashMap<>();
-        map.put(Direction.EAST, Direction.WEST);
-        map.put(Direction.WEST, Direction.EAST);
-        ContourBuilder.dirNext.put(3, map);
-
-        map = new LinkedHashMap<>();
-        map.put(Direction.NORTH, Direction.EAST);
-        map.put(Direction.EAST, Direction.NORTH);
-        ContourBuilder.dirNext.put(4, map);
-
-        map = new LinkedHashMap<>();
-        map.put(Direction.NORTH, Direction.WEST);
-        map.put(Direction.WEST, Direction.NORTH);
-        map.put(Direction.SOUTH, Direction.EAST);
-        map.put(Direction.EAST, Direction.SOUTH);
-        ContourBuilder.dirNext.put(5, map);
-
-        map = new LinkedHashMap<>();
-        map.put(Direction.NORTH, Direction.SOUTH);
-        map.put(Direction.SOUTH, Direction.NORTH);
-        ContourBuilder.dirNext.put(6, map);
-
-        map = new LinkedHashMap<>();
-        map.put(Direction.NORTH, Direction.WEST);
-        map.put(Direction.WEST, Direction.NORTH);
-        ContourBuilder.dirNext.put(7, map);
-
-        map = new LinkedHashMap<>();
-        map.put(Direction.NORTH, Direction.WEST);
-        map.put(Direction.WEST, Direction.NORTH);
-        ContourBuilder.dirNext.put(8, map);
-
-        map = new LinkedHashMap<>();
-        map.put(Direction.NORTH, Direction.SOUTH);
-        map.put(Direction.SOUTH, Direction.NORTH);
-        ContourBuilder.dirNext.put(9, map);
-
-        map = new LinkedHashMap<>();
-        map.put(Direction.NORTH, Direction.EAST);
-        map.put(Direction.EAST, Direction.NORTH);
-        map.put(Direction.SOUTH, Direction.WEST);
-        map.put(Direction.WEST, Direction.SOUTH);
-        ContourBuilder.dirNext.put(10, map);
-
-        map = new LinkedHashMap<>();
-        map.put(Direction.NORTH, Direction.EAST);
-        map.put(Direction.EAST, Direction.NORTH);
-        ContourBuilder.dirNext.put(11, map);
-
-        map = new LinkedHashMap<>();
-        map.put(Direction.EAST, Direction.WEST);
-        map.put(Direction.WEST, Direction.EAST);
-        ContourBuilder.dirNext.put(12, map);
-
-        map = new LinkedHashMap<>();
-        map.put(Direction.SOUTH, Direction.EAST);
-        map.put(Direction.EAST, Direction.SOUTH);
-        ContourBuilder.dirNext.put(13, map);
-
-        map = new LinkedHashMap<>();
-        map.put(Direction.SOUTH, Direction.WEST);
-        map.put(Direction.WEST, Direction.SOUTH);
-        ContourBuilder.dirNext.put(14, map);
+        Arrays.fill(ContourBuilder.EXIT_DIRECTIONS, -1);
+
+        for (int mask = 0; mask < ContourBuilder.START_DIRECTIONS.length; mask++) {
+            int[] dirs = ContourBuilder.START_DIRECTIONS[mask];
+            for (int i = 0; i < dirs.length; i += 2) {
+                ContourBuilder.EXIT_DIRECTIONS[4 * mask + dirs[i]] = dirs[i + 1];
+                ContourBuilder.EXIT_DIRECTIONS[4 * mask + dirs[i + 1]] = dirs[i];
+            }
+        }
     }
 
-    protected final Map<CellKey, CellInfo> contourCellMap = new HashMap<>();
-    protected final Collection<CellKey> contourCellList = new ArrayList<>();
-    protected final List<List<double[]>> contourList = new ArrayList<>();
     protected int width;
     protected int height;
     protected double[] values;
-    protected List<double[]> currentContour;
+    /**
+     * The minimum and maximum value in each strip, computed on first use by {@link #getStripRanges()}.
+     */
+    protected volatile double[] stripRanges;
 
     /**
      * Creates a new ContourBuilder with the specified rectangular array arguments. The array is understood to be
@@ -186,12 +160,16 @@ public class ContourBuilder {
      * @return a list containing the contour lines for the threshold value.
      */
     public List<List<double[]>> buildContourLines(double value) {
-        this.assembleContourCells(value);
-        this.traverseContourCells();
+        List<List<double[]>> result = new ArrayList<>();
 
-        List<List<double[]>> result = new ArrayList<>(this.contourList); // return a copy to insulate from changes
+        for (double[] coords : this.computeContours(value, true)) {
+            List<double[]> coordList = new ArrayList<>(coords.length / 2);
+            for (int i = 0; i < coords.length; i += 2) {
+                coordList.add(new double[] {coords[i], coords[i + 1]});
+            }
 
-        this.clearContourCells(); // clears contourList
+            result.add(coordList);
+        }
 
         return result;
     }
@@ -228,265 +206,622 @@ public class ContourBuilder {
             throw new IllegalArgumentException(msg);
         }
 
-        this.assembleContourCells(value);
-        this.traverseContourCells();
+        List<List<Position>> result = new ArrayList<>();
 
-        double maxLat = sector.latMax;
-        double minLon = sector.lonMin;
-        double deltaLat = sector.latDelta;
-        double deltaLon = sector.lonDelta;
+        for (double[] coords : this.computeContours(value, true)) {
+            List<Position> positionList = new ArrayList<>(coords.length / 2);
+            for (int i = 0; i < coords.length; i += 2) {
+                positionList.add(this.positionFor(coords[i], coords[i + 1], sector, altitude));
+            }
 
-        List<List<Position>> result = new ArrayList<>();
+            result.add(positionList);
+        }
 
-        for (List<double[]> coordList : this.contourList) {
-            List<Position> positionList = new ArrayList<>();
+        return result;
+    }
+
+    /**
+     * Computes the geographic contour lines at each of the specified threshold values. The threshold values are
+     * contoured in parallel. This maps contour line coordinates to geographic locations in the same manner as {@link
+     * #buildContourLines(double, Sector, double)}.
+     *
+     * @param values the threshold values (i.e. isovalues) to compute contour lines for.
+     * @param sector the sector to associate with the rectangular array.
+     * @return a list containing one contour list for each threshold value, in the order the values are specified.
+     * @throws IllegalArgumentException if the values or the sector are null.
+     * @throws WWRuntimeException       if contouring a threshold value fails.
+     */
+    public List<ContourList> buildContourLists(double[] values, Sector sector) {
+        if (values == null) {
+            String msg = Logging.getMessage("nullValue.ArrayIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (sector == null) {
+            String msg = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        ContourList[] result = new ContourList[values.length];
+        this.deliverContourLists(values, sector, (contours, index) -> result[index] = contours);
+
+        return Arrays.asList(result);
+    }
 
-            for (double[] coord : coordList) {
-                double s = coord[0] / (this.width - 1); // normalized x coordinate in the range 0 to 1
-                double t = coord[1] / (this.height - 1); // normalized y coordinate in the range 0 to 1
-                double lat = maxLat - t * deltaLat; // map y coordinate to latitude
-                double lon = minLon + s * deltaLon; // map x coordinate to longitude
-                positionList.add(Position.fromDegrees(lat, lon, altitude));
+    /**
+     * Computes the geographic contour lines at each of the specified threshold values, and delivers each threshold
+     * value's contour lines to a consumer as soon as they're complete. The threshold values are contoured in parallel,
+     * and are delivered in the order they complete. The consumer is invoked on the calling thread, and this method
+     * returns after every threshold value has been delivered. This maps contour line coordinates to geographic
+     * locations in the same manner as {@link #buildContourLines(double, Sector, double)}.
+     *
+     * @param values   the threshold values (i.e. isovalues) to compute contour lines for.
+     * @param sector   the sector to associate with the rectangular array.
+     * @param consumer the consumer that receives each threshold value's contour list along with the threshold value.
+     * @throws IllegalArgumentException if the values, the sector or the consumer are null.
+     * @throws WWRuntimeException       if contouring a threshold value fails. Threshold values that have not been
+     *                                  delivered are cancelled.
+     */
+    public void buildContourLists(double[] values, Sector sector, ObjDoubleConsumer<ContourList> consumer) {
+        if (values == null) {
+            String msg = Logging.getMessage("nullValue.ArrayIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (sector == null) {
+            String msg = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (consumer == null) {
+            String msg = Logging.getMessage("nullValue.ConsumerIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.deliverContourLists(values, sector, (contours, index) -> consumer.accept(contours, values[index]));
+    }
+
+    /**
+     * Computes the geographic contour lines at each of the specified threshold values in parallel, and delivers each
+     * threshold value's contour list to a consumer on the calling thread in the order they complete.
+     *
+     * @param values   the threshold values.
+     * @param sector   the sector to associate with the rectangular array.
+     * @param consumer the consumer that receives each contour list along with the index of its threshold value.
+     */
+    protected void deliverContourLists(double[] values, Sector sector, ObjIntConsumer<ContourList> consumer) {
+        // Compute the strip ranges before the threshold values start, so they're computed once and shared.
+        this.getStripRanges();
+
+        CompletionService<Integer> service = new ExecutorCompletionService<>(ForkJoinPool.commonPool());
+        List<Future<Integer>> futures = new ArrayList<>(values.length);
+        ContourList[] lists = new ContourList[values.length];
+
+        try {
+            for (int i = 0; i < values.length; i++) {
+                int index = i;
+                futures.add(service.submit(() -> {
+                    lists[index] = this.buildContourList(values[index], sector);
+                    return index;
+                }));
             }
 
-            result.add(positionList);
+            for (int i = 0; i < values.length; i++) {
+                int index = this.takeResult(service, values);
+                consumer.accept(lists[index], index);
+                lists[index] = null; // Release the list once it's delivered.
+            }
+        }
+        finally {
+            for (Future<Integer> future : futures) {
+                future.cancel(false);
+            }
         }
+    }
 
-        this.clearContourCells(); // clears contourList
+    protected int takeResult(CompletionService<Integer> service, double[] values) {
+        try {
+            return service.take().get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            String msg = Logging.getMessage("generic.ExceptionWhileContouring", Arrays.toString(values));
+            Logging.logger().log(Level.SEVERE, msg, e);
+            throw new WWRuntimeException(msg, e);
+        }
+        catch (ExecutionException e) {
+            String msg = Logging.getMessage("generic.ExceptionWhileContouring", Arrays.toString(values));
+            Logging.logger().log(Level.SEVERE, msg, e.getCause());
+            throw new WWRuntimeException(msg, e.getCause());
+        }
+    }
 
-        return result;
+    protected ContourList buildContourList(double value, Sector sector) {
+        ContourList contourList = new ContourList();
+
+        // Threshold values are already contoured in parallel, so each one assembles its cells on a single thread.
+        for (double[] coords : this.computeContours(value, false)) {
+            List<LatLon> locations = new ArrayList<>(coords.length / 2);
+            for (int i = 0; i < coords.length; i += 2) {
+                locations.add(this.positionFor(coords[i], coords[i + 1], sector, 0));
+            }
+
+            contourList.addContour(locations);
+        }
+
+        return contourList;
     }
 
-    protected void assembleContourCells(double value) {
+    protected Position positionFor(double x, double y, Sector sector, double altitude) {
+        double s = x / (this.width - 1); // normalized x coordinate in the range 0 to 1
+        double t = y / (this.height - 1); // normalized y coordinate in the range 0 to 1
+        double lat = sector.latMax - t * sector.latDelta; // map y coordinate to latitude
+        double lon = sector.lonMin + s * sector.lonDelta; // map x coordinate to longitude
+        return Position.fromDegrees(lat, lon, altitude);
+    }
+
+    /**
+     * Computes the contour lines at a specified threshold value. Each contour line is returned as an array of
+     * interleaved X and Y coordinates.
+     *
+     * @param value    the threshold value.
+     * @param parallel true to assemble the contouring cells of each strip in parallel.
+     * @return the contour lines.
+     */
+    protected List<double[]> computeContours(double value, boolean parallel) {
+        ContourCells cells = this.assembleContourCells(value, parallel);
+        return this.traverseContourCells(value, cells);
+    }
+
+    //**************************************************************//
+    //********************  Cell Assembly  *************************//
+    //**************************************************************//
+
+    /**
+     * Returns the minimum and maximum value of each strip as consecutive elements of an array. Values in the row below
+     * a strip belong to the strip's cells, and are included in its range. A strip containing a NaN value has an
+     * unbounded range. The ranges are computed in parallel on first use.
+     *
+     * @return the strip ranges.
+     */
+    protected double[] getStripRanges() {
+        double[] ranges = this.stripRanges;
+        if (ranges != null)
+            return ranges;
+
+        int numStrips = this.getStripCount();
+        double[] newRanges = new double[2 * numStrips];
+        List<Callable<Void>> tasks = new ArrayList<>(numStrips);
+        for (int i = 0; i < numStrips; i++) {
+            int strip = i;
+            tasks.add(() -> {
+                this.computeStripRange(strip, newRanges);
+                return null;
+            });
+        }
+
+        this.invokeAll(tasks, Double.NaN);
+        this.stripRanges = newRanges;
+
+        return newRanges;
+    }
+
+    protected void computeStripRange(int strip, double[] ranges) {
+        int firstRow = strip * ContourBuilder.STRIP_ROWS;
+        int lastRow = Math.min(firstRow + ContourBuilder.STRIP_ROWS, this.height - 1); // inclusive
+
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = firstRow * this.width, end = (lastRow + 1) * this.width; i < end; i++) {
+            double d = this.values[i];
+            if (d < min)
+                min = d;
+            if (d > max)
+                max = d;
+            if (Double.isNaN(d)) {
+                min = Double.NEGATIVE_INFINITY;
+                max = Double.POSITIVE_INFINITY;
+                break;
+            }
+        }
+
+        ranges[2 * strip] = min;
+        ranges[2 * strip + 1] = max;
+    }
+
+    protected int getStripCount() {
+        int rows = Math.max(this.height - 1, 0);
+        return Math.max((rows + ContourBuilder.STRIP_ROWS - 1) / ContourBuilder.STRIP_ROWS, 1);
+    }
+
+    /**
+     * Assembles the contouring cells at a specified threshold value. Strips whose range does not span the value are
+     * skipped, since every cell in them is entirely above or entirely below the value.
+     *
+     * @param value    the threshold value.
+     * @param parallel true to assemble the cells of each strip in parallel.
+     * @return the contouring cells, in row-major order.
+     */
+    protected ContourCells assembleContourCells(double value, boolean parallel) {
         // Divide the 2D scalar field into a grid of evenly spaced contouring cells. Every 2x2 block of field values
         // forms a cell. The contouring grid's dimensions are therefore one less than the 2D scalar field. Based on
         // the approach outlined at http://en.wikipedia.org/wiki/Marching_squares
+        int columns = this.width - 1;
+        int rows = this.height - 1;
+        ContourCells cells = new ContourCells(columns, rows);
+        if (columns < 1 || rows < 1)
+            return cells.finish();
+
+        double[] ranges = this.getStripRanges();
+        List<Integer> strips = new ArrayList<>();
+        for (int strip = 0; strip < ranges.length / 2; strip++) {
+            // A cell has a contour only if one of its corners is above the value and another is not.
+            if (ranges[2 * strip] <= value && ranges[2 * strip + 1] > value)
+                strips.add(strip);
+        }
+
+        if (!parallel || strips.size() < 2) {
+            for (int strip : strips) {
+                this.assembleContourCells(value, strip, cells);
+            }
+        } else {
+            List<Callable<ContourCells>> tasks = new ArrayList<>(strips.size());
+            for (int strip : strips) {
+                tasks.add(() -> {
+                    ContourCells stripCells = new ContourCells(columns, rows);
+                    this.assembleContourCells(value, strip, stripCells);
+                    return stripCells;
+                });
+            }
+
+            // Strips are in row order, so appending their cells keeps the cells in row-major order.
+            for (ContourCells stripCells : this.invokeAll(tasks, value)) {
+                cells.addAll(stripCells);
+            }
+        }
+
+        return cells.finish();
+    }
+
+    protected void assembleContourCells(double value, int strip, ContourCells cells) {
+        int w = this.width;
+        double[] v = this.values;
+        int firstRow = strip * ContourBuilder.STRIP_ROWS;
+        int lastRow = Math.min(firstRow + ContourBuilder.STRIP_ROWS, this.height - 1); // exclusive
 
-        this.contourCellMap.clear();
-        this.contourCellList.clear();
+        for (int y = firstRow; y < lastRow; y++) {
+            int north = y * w;
+            int south = north + w;
+            double nw = v[north];
+            double sw = v[south];
 
-        for (int y = 0; y < this.height - 1; y++) {
-            for (int x = 0; x < this.width - 1; x++) {
-                // Get the field values associated with the contouring cell's four corners.
-                double nw = this.valueFor(x, y);
-                double ne = this.valueFor(x + 1, y);
-                double se = this.valueFor(x + 1, y + 1);
-                double sw = this.valueFor(x, y + 1);
+            for (int x = 0; x < w - 1; x++) {
+                // Get the field values associated with the contouring cell's four corners. The west corners are the
+                // previous cell's east corners.
+                double ne = v[north + x + 1];
+                double se = v[south + x + 1];
 
                 // Assemble a 4-bit mask indicating whether or not the field values at the cell's corners are above or
                 // below the threshold. The mask has 1 where the field value is above the threshold, and 0 otherwise.
-                int mask = 0;
-                mask |= (nw > value) ? 1 : 0; // 1000
-                mask <<= 1;
-                mask |= (ne > value) ? 1 : 0; // 0100
-                mask <<= 1;
-                mask |= (se > value) ? 1 : 0; // 0010
-                mask <<= 1;
-                mask |= (sw > value) ? 1 : 0; // 0001
-
-                if (mask == 0 || mask == 15)
-                    continue; // no contour; all values above or below the threshold value
-
-                // Disambiguate saddle point for masks 0x0101 and 0x1010, per Wikipedia page suggestion.
-                if (mask == 5 || mask == 10) {
-                    double ctr = (nw + ne + se + sw) / 4; // sample center value as the average of four corners
-                    if (mask == 5 && ctr <= value) // center value causes change in direction; flip the mask to 10
-                        mask = 10;
-                    else if (mask == 10 && ctr <= value) // center value causes change in direction; flip the mask to 5
-                        mask = 5;
+                int mask = (nw > value ? 8 : 0) | (ne > value ? 4 : 0) | (se > value ? 2 : 0) | (sw > value ? 1 : 0);
+
+                if (mask != 0 && mask != 15) // no contour; all values above or below the threshold value
+                {
+                    // Disambiguate saddle point for masks 0x0101 and 0x1010, per Wikipedia page suggestion. Sample the
+                    // center value as the average of four corners. A center value at or below the threshold causes a
+                    // change in direction; flip the mask between 5 and 10.
+                    if ((mask == 5 || mask == 10) && (nw + ne + se + sw) / 4 <= value)
+                        mask = 15 - mask;
+
+                    cells.add(x + y * (w - 1), mask);
                 }
 
-                CellInfo cell = new CellInfo(x, y, mask);
+                nw = ne;
+                sw = se;
+            }
+        }
+    }
 
-                // Compute weights associated with edge intersections.
-                if ((ne > value) ^ (nw > value))
-                    cell.edgeWeights.put(Direction.NORTH, (value - nw) / (ne - nw));
-                if ((se > value) ^ (sw > value))
-                    cell.edgeWeights.put(Direction.SOUTH, (value - sw) / (se - sw));
-                if ((se > value) ^ (ne > value))
-                    cell.edgeWeights.put(Direction.EAST, (value - ne) / (se - ne));
-                if ((sw > value) ^ (nw > value))
-                    cell.edgeWeights.put(Direction.WEST, (value - nw) / (sw - nw));
+    protected <T> List<T> invokeAll(List<Callable<T>> tasks, double value) {
+        List<T> results = new ArrayList<>(tasks.size());
+
+        try {
+            if (tasks.size() == 1) {
+                results.add(tasks.get(0).call());
+                return results;
+            }
 
-                this.putContourCell(cell);
+            for (Future<T> future : ForkJoinPool.commonPool().invokeAll(tasks)) {
+                results.add(future.get());
             }
         }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            String msg = Logging.getMessage("generic.ExceptionWhileContouring", value);
+            Logging.logger().log(Level.SEVERE, msg, e);
+            throw new WWRuntimeException(msg, e);
+        }
+        catch (ExecutionException e) {
+            String msg = Logging.getMessage("generic.ExceptionWhileContouring", value);
+            Logging.logger().log(Level.SEVERE, msg, e.getCause());
+            throw new WWRuntimeException(msg, e.getCause());
+        }
+        catch (Exception e) {
+            String msg = Logging.getMessage("generic.ExceptionWhileContouring", value);
+            Logging.logger().log(Level.SEVERE, msg, e);
+            throw new WWRuntimeException(msg, e);
+        }
+
+        return results;
     }
 
-    protected void traverseContourCells() {
-        List<List<double[]>> contours = new ArrayList<>();
+    //**************************************************************//
+    //********************  Cell Traversal  ************************//
+    //**************************************************************//
 
-        this.contourList.clear();
+    protected List<double[]> traverseContourCells(double value, ContourCells cells) {
+        List<double[]> contours = new ArrayList<>();
+        CoordinateBuffer first = new CoordinateBuffer();
+        CoordinateBuffer second = new CoordinateBuffer();
 
-        for (CellKey key : this.contourCellList) // iterate over all possible contour starting points
+        for (int index = 0; index < cells.count; index++) // iterate over all possible contour starting points
         {
-            CellInfo cell = this.contourCellMap.get(key);
+            int numHalves = 0;
 
-            for (Direction dir : ContourBuilder.dirNext.get(cell.contourMask).keySet()) // either 2 or 4 starting directions
+            for (int dir : ContourBuilder.START_DIRECTIONS[cells.masks[index]]) // either 2 or 4 starting directions
             {
-                if (cell.visitedDirections.contains(dir)) {
+                if ((cells.visited[index] & (1 << dir)) != 0)
                     continue;
-                }
 
-                this.currentContour = new ArrayList<>();
-                this.traverseContour(cell, dir);
-                contours.add(this.currentContour);
-                this.currentContour = null;
+                CoordinateBuffer half = (numHalves == 0) ? first : second;
+                half.clear();
+                this.traverseContour(value, cells, index, dir, half);
 
-                if (contours.size() == 2) // combine each pair of starting directions into a single polyline
+                if (++numHalves == 2) // combine each pair of starting directions into a single polyline
                 {
-                    if (contours.get(0).isEmpty() && contours.get(1).isEmpty()) {
+                    if (first.isEmpty() && second.isEmpty()) {
                         String msg = Logging.getMessage("generic.UnexpectedCondition",
                             "both contours are of zero length");
                         Logging.logger().severe(msg);
                     } else {
-                        Collections.reverse(contours.get(0));
-                        contours.get(0).addAll(contours.get(1));
-                        this.contourList.add(contours.get(0));
+                        contours.add(CoordinateBuffer.join(first, second));
                     }
 
-                    contours.clear();
+                    numHalves = 0;
                 }
             }
 
-            if (!contours.isEmpty()) {
+            if (numHalves != 0) {
                 String msg = Logging.getMessage("generic.UnexpectedCondition", "non-empty contours list");
                 Logging.logger().severe(msg);
             }
         }
+
+        return contours;
     }
 
-    protected void traverseContour(CellInfo cell, Direction dir) {
-        Direction dirNext = dir;
-        Direction dirPrev = dir;  // use Prev same as Next for first iteration (i.e., for seed cell)
+    protected void traverseContour(double value, ContourCells cells, int index, int dir, CoordinateBuffer contour) {
+        int dirNext = dir;
+        int dirPrev = dir;  // use Prev same as Next for first iteration (i.e., for seed cell)
 
-        while (cell != null && !cell.visitedDirections.contains(dirNext)) {
+        while (index >= 0 && (cells.visited[index] & (1 << dirNext)) == 0) {
             // Mark the contour cell as visited.
-            cell.visitedDirections.add(dirNext);
-            cell.visitedDirections.add(dirPrev);
+            cells.visited[index] |= (byte) ((1 << dirNext) | (1 << dirPrev));
 
-            addIntersection(cell, dirNext);
+            this.addIntersection(value, cells, index, dirNext, contour);
 
             // Advance to the next cell.
-            cell = this.nextCell(cell, dirNext);
+            index = cells.nextCell(index, dirNext);
 
             // guard cell use in computing dirNext
-            if (cell != null) {
-                // Advance to the next direction.
-                dirPrev = ContourBuilder.dirRev.get(dirNext);
-                dirNext = ContourBuilder.dirNext.get(cell.contourMask).get(dirPrev);
+            if (index >= 0) {
+                // Advance to the next direction. Opposite directions differ only in their lowest bit.
+                dirPrev = dirNext ^ 1;
+                dirNext = ContourBuilder.EXIT_DIRECTIONS[4 * cells.masks[index] + dirPrev];
+
+                if (dirNext < 0) {
+                    String msg = Logging.getMessage("generic.UnexpectedDirection", dirPrev);
+                    Logging.logger().severe(msg);
+                    break;
+                }
             }
         }
     }
 
-    protected void addIntersection(CellInfo cell, Direction dir) {
+    protected void addIntersection(double value, ContourCells cells, int index, int dir, CoordinateBuffer contour) {
         // Compute the intersection of the contour cell in the next direction. The cell's xy coordinates initially
-        // indicate the cell's Southwest corner.
-        double xIntersect = cell.x;
-        double yIntersect = cell.y;
+        // indicate the cell's Northwest corner. Edge weights are computed from the field values at the edge's corners.
+        int cell = cells.cells[index];
+        int x = cell % cells.columns;
+        int y = cell / cells.columns;
+        int nw = x + y * this.width;
+        int sw = nw + this.width;
+        double[] v = this.values;
+
+        double xIntersect = x;
+        double yIntersect = y;
 
         switch (dir) {
-            case NORTH -> xIntersect += cell.edgeWeights.get(dir); // interpolate along the north edge
+            case NORTH -> xIntersect += (value - v[nw]) / (v[nw + 1] - v[nw]); // interpolate along the north edge
             case SOUTH -> {
-                xIntersect += cell.edgeWeights.get(dir); // interpolate along the south edge
+                xIntersect += (value - v[sw]) / (v[sw + 1] - v[sw]); // interpolate along the south edge
                 yIntersect += 1; // move from the north to the south
             }
             case EAST -> {
                 xIntersect += 1; // move from the west to the east
-                yIntersect += cell.edgeWeights.get(dir); // interpolate along the east edge
+                yIntersect += (value - v[nw + 1]) / (v[sw + 1] - v[nw + 1]); // interpolate along the east edge
             }
-            case WEST -> yIntersect += cell.edgeWeights.get(dir); // interpolate along the west edge
+            case WEST -> yIntersect += (value - v[nw]) / (v[sw] - v[nw]); // interpolate along the west edge
             default -> {
-                String msg = Logging.getMessage("generic.UnexpectedDirection", ContourBuilder.dirNext);
+                String msg = Logging.getMessage("generic.UnexpectedDirection", dir);
                 Logging.logger().severe(msg);
             }
         }
 
-        this.currentContour.add(new double[] {xIntersect, yIntersect});
+        contour.add(xIntersect, yIntersect);
     }
 
-    protected void clearContourCells() {
-        this.contourCellMap.clear();
-        this.contourCellList.clear();
-        this.contourList.clear();
-        this.currentContour = null;
-    }
+    /**
+     * The contouring cells at a threshold value, stored as parallel primitive arrays in row-major order. Each cell is
+     * identified by its index in the contouring grid, <code>x + y * columns</code>.
+     */
+    protected static class ContourCells {
+        public final int columns;
+        public final int rows;
+        public int[] cells = new int[64];
+        public byte[] masks = new byte[64];
+        /**
+         * Bits indicating the directions each cell has been visited from, indexed by direction.
+         */
+        public byte[] visited;
+        public int count;
+        /**
+         * The index of the first cell in each row, followed by the cell count.
+         */
+        public int[] rowStart;
+
+        public ContourCells(int columns, int rows) {
+            this.columns = columns;
+            this.rows = rows;
+        }
 
-    protected CellInfo nextCell(CellInfo cell, Direction dir) {
-        int x = cell.x;
-        int y = cell.y;
+        public void add(int cell, int mask) {
+            if (this.count == this.cells.length) {
+                this.cells = Arrays.copyOf(this.cells, 2 * this.count);
+                this.masks = Arrays.copyOf(this.masks, 2 * this.count);
+            }
 
-        switch (dir) {
-            case NORTH:
-                return this.getContourCell(x, y - 1);
-            case SOUTH:
-                return this.getContourCell(x, y + 1);
-            case EAST:
-                return this.getContourCell(x + 1, y);
-            case WEST:
-                return this.getContourCell(x - 1, y);
-            default:
-                String msg = Logging.getMessage("generic.UnexpectedDirection", ContourBuilder.dirNext);
-                Logging.logger().severe(msg);
-                return null;
+            this.cells[this.count] = cell;
+            this.masks[this.count] = (byte) mask;
+            this.count++;
         }
-    }
 
-    protected double valueFor(int x, int y) {
-        return this.values[x + y * this.width];
-    }
+        public void addAll(ContourCells that) {
+            int newCount = this.count + that.count;
+            if (newCount > this.cells.length) {
+                this.cells = Arrays.copyOf(this.cells, newCount);
+                this.masks = Arrays.copyOf(this.masks, newCount);
+            }
 
-    protected void putContourCell(CellInfo cell) {
-        CellKey key = new CellKey(cell.x, cell.y);
-        this.contourCellMap.put(key, cell);
-        this.contourCellList.add(key);
-    }
+            System.arraycopy(that.cells, 0, this.cells, this.count, that.count);
+            System.arraycopy(that.masks, 0, this.masks, this.count, that.count);
+            this.count = newCount;
+        }
 
-    protected CellInfo getContourCell(int x, int y) {
-        return this.contourCellMap.get(new CellKey(x, y));
-    }
+        /**
+         * Indexes the cells by row, and clears the visited directions. Called once the cells are assembled.
+         *
+         * @return this instance.
+         */
+        public ContourCells finish() {
+            this.visited = new byte[this.count];
+            this.rowStart = new int[Math.max(this.rows, 0) + 1];
+
+            int row = 0;
+            for (int i = 0; i < this.count; i++) {
+                int cellRow = this.cells[i] / this.columns;
+                while (row <= cellRow) {
+                    this.rowStart[row++] = i;
+                }
+            }
+            while (row < this.rowStart.length) {
+                this.rowStart[row++] = this.count;
+            }
 
-    protected enum Direction {
-        NORTH, SOUTH, EAST, WEST
-    }
+            return this;
+        }
 
-    protected static class CellInfo {
-        public final int x;
-        public final int y;
-        public final int contourMask;
-        public final Map<Direction, Double> edgeWeights = new HashMap<>();
-        public final Collection<Direction> visitedDirections = new HashSet<>(4);
+        /**
+         * Returns the index of the contouring cell at a specified grid position.
+         *
+         * @param x the cell's column.
+         * @param y the cell's row.
+         * @return the cell's index, or -1 if the grid position is outside the grid or has no contour.
+         */
+        public int indexOf(int x, int y) {
+            if (x < 0 || y < 0 || x >= this.columns || y >= this.rows)
+                return -1;
+
+            int index = Arrays.binarySearch(this.cells, this.rowStart[y], this.rowStart[y + 1], x + y * this.columns);
+            return index >= 0 ? index : -1;
+        }
 
-        public CellInfo(int x, int y, int contourMask) {
-            this.x = x;
-            this.y = y;
-            this.contourMask = contourMask;
+        /**
+         * Returns the index of the contouring cell adjacent to a specified cell.
+         *
+         * @param index the cell's index.
+         * @param dir   the direction of the adjacent cell.
+         * @return the adjacent cell's index, or -1 if it's outside the grid or has no contour.
+         */
+        public int nextCell(int index, int dir) {
+            int cell = this.cells[index];
+            int x = cell % this.columns;
+            int y = cell / this.columns;
+
+            // Cells in the same row are adjacent in the arrays, so east and west neighbors need no search.
+            switch (dir) {
+                case NORTH:
+                    return this.indexOf(x, y - 1);
+                case SOUTH:
+                    return this.indexOf(x, y + 1);
+                case EAST:
+                    return (x + 1 < this.columns && index + 1 < this.count && this.cells[index + 1] == cell + 1)
+                        ? index + 1 : -1;
+                case WEST:
+                    return (x > 0 && index > 0 && this.cells[index - 1] == cell - 1) ? index - 1 : -1;
+                default:
+                    String msg = Logging.getMessage("generic.UnexpectedDirection", dir);
+                    Logging.logger().severe(msg);
+                    return -1;
+            }
         }
     }
 
-    protected static class CellKey {
-        public final int x;
-        public final int y;
+    /**
+     * A growable array of interleaved X and Y coordinates.
+     */
+    protected static class CoordinateBuffer {
+        protected double[] coords = new double[64];
+        protected int size;
+
+        /**
+         * Returns a contour line formed by the first half in reverse order, followed by the second half.
+         *
+         * @param first  the contour line's first half, traversed from the seed cell.
+         * @param second the contour line's second half, traversed from the seed cell.
+         * @return the contour line's interleaved coordinates.
+         */
+        public static double[] join(CoordinateBuffer first, CoordinateBuffer second) {
+            double[] result = new double[first.size + second.size];
+
+            for (int i = 0, j = first.size - 2; j >= 0; i += 2, j -= 2) {
+                result[i] = first.coords[j];
+                result[i + 1] = first.coords[j + 1];
+            }
+            System.arraycopy(second.coords, 0, result, first.size, second.size);
 
-        public CellKey(int x, int y) {
-            this.x = x;
-            this.y = y;
+            return result;
         }
 
-        @Override
-        public boolean equals(Object o) {
-            if (this == o)
-                return true;
-            if (o == null || this.getClass() != o.getClass())
-                return false;
+        public void add(double x, double y) {
+            if (this.size == this.coords.length)
+                this.coords = Arrays.copyOf(this.coords, 2 * this.size);
+
+            this.coords[this.size++] = x;
+            this.coords[this.size++] = y;
+        }
 
-            CellKey that = (CellKey) o;
-            return this.x == that.x && this.y == that.y;
+        public boolean isEmpty() {
+            return this.size == 0;
         }
 
-        @Override
-        public int hashCode() {
-            return 31 * this.x + this.y;
+        public void clear() {
+            this.size = 0;
         }
     }
 }
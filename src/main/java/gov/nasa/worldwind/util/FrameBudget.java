@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.util;
+
+/**
+ * Limits the number of times an operation is performed per frame. Callers identify the current frame by the draw
+ * context's frame time stamp; the count of operations performed resets when the time stamp changes. Operations that
+ * exceed the budget are expected to be deferred to a later frame.
+ * <p>
+ * Instances are thread safe, so a single budget may be shared by objects drawn in different windows.
+ */
+public class FrameBudget {
+    protected int maxPerFrame;
+    protected long frameTimeStamp = Long.MIN_VALUE;
+    protected int count;
+
+    /**
+     * Constructs a budget allowing a specified number of operations per frame.
+     *
+     * @param maxPerFrame the maximum number of operations per frame.
+     * @throws IllegalArgumentException if the maximum is less than 1.
+     */
+    public FrameBudget(int maxPerFrame) {
+        this.setMaxPerFrame(maxPerFrame);
+    }
+
+    /**
+     * Returns the maximum number of operations allowed per frame.
+     *
+     * @return the maximum number of operations per frame.
+     */
+    synchronized public int getMaxPerFrame() {
+        return this.maxPerFrame;
+    }
+
+    /**
+     * Specifies the maximum number of operations allowed per frame.
+     *
+     * @param maxPerFrame the maximum number of operations per frame.
+     * @throws IllegalArgumentException if the maximum is less than 1.
+     */
+    synchronized public void setMaxPerFrame(int maxPerFrame) {
+        if (maxPerFrame < 1) {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "maxPerFrame < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.maxPerFrame = maxPerFrame;
+    }
+
+    /**
+     * Consumes one operation from the budget of a specified frame.
+     *
+     * @param frameTimeStamp the time stamp of the current frame.
+     * @return true if the operation may be performed this frame, false if the frame's budget is exhausted.
+     */
+    synchronized public boolean tryAcquire(long frameTimeStamp) {
+        if (frameTimeStamp != this.frameTimeStamp) {
+            this.frameTimeStamp = frameTimeStamp;
+            this.count = 0;
+        }
+
+        if (this.count >= this.maxPerFrame)
+            return false;
+
+        this.count++;
+        return true;
+    }
+}
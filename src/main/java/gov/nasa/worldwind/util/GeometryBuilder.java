@@ -56,7 +56,6 @@ public class GeometryBuilder {
      */
     protected static final int LEADER_LOCATION_LEFT = 8;
 
-    private static final float[] coord = new float[3];
     private static final int ICOSAHEDRON_INDEX_COUNT = 60;
     private static final int ICOSAHEDRON_VERTEX_COUNT = 12;
     private static final float X = 0.525731112119133606f;
@@ -4186,10 +4185,11 @@ public class GeometryBuilder {
             terrain.surfacePoint(ll.lat, ll.lon, altitude) :
             terrain.globe().computePointFromPosition(ll.lat, ll.lon, altitude);
 
-        GeometryBuilder.coord[0] = (float) (point.x - refPoint.x);
-        GeometryBuilder.coord[1] = (float) (point.y - refPoint.y);
-        GeometryBuilder.coord[2] = (float) (point.z - refPoint.z);
-        dest.put(GeometryBuilder.coord);
+        // Put each coordinate individually rather than through a shared scratch array, so that airspace geometry can
+        // be built on several threads at once.
+        dest.put((float) (point.x - refPoint.x));
+        dest.put((float) (point.y - refPoint.y));
+        dest.put((float) (point.z - refPoint.z));
     }
 
     public int getOrientation() {
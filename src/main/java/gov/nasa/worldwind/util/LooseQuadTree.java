@@ -0,0 +1,305 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import gov.nasa.worldwind.geom.Sector;
+
+import java.util.*;
+
+/**
+ * Implements a loose quadtree over latitude and longitude, for indexing items that are added, moved and removed
+ * individually. Each item is stored in exactly one cell: the deepest cell that contains the item's center and is at
+ * least as large as the item. A cell's loose bounds extend half a cell beyond its edges on every side, so the loose
+ * bounds always contain the items stored in the cell. Adding, moving and removing an item therefore touch a single cell
+ * and cost time proportional to the tree depth, unlike {@link BasicQuadTree}, which stores an item in every leaf cell
+ * it overlaps.
+ * <p>
+ * Region queries visit only the cells whose loose bounds intersect the region, and test each item's own bounds, so the
+ * items returned always intersect the region. Cells are created on demand and empty cells are pruned when items are
+ * removed.
+ * <p>
+ * Instances are thread safe; all methods synchronize on the tree.
+ */
+public class LooseQuadTree<T> implements Iterable<T> {
+    protected static final int DEFAULT_MAX_DEPTH = 12;
+
+    protected final int maxDepth;
+    protected final Node<T> root;
+    protected final Map<T, Entry<T>> entries = new HashMap<>();
+
+    /** Constructs a tree spanning the full sphere, with a maximum depth of 12. */
+    public LooseQuadTree() {
+        this(DEFAULT_MAX_DEPTH, Sector.FULL_SPHERE);
+    }
+
+    /**
+     * Constructs a tree spanning a specified region. Items outside the region are stored in the root cell.
+     *
+     * @param maxDepth the maximum depth of the tree. Cells at the maximum depth are not subdivided.
+     * @param sector   the region the tree spans.
+     * @throws IllegalArgumentException if the depth is less than zero or the sector is null.
+     */
+    public LooseQuadTree(int maxDepth, Sector sector) {
+        if (maxDepth < 0) {
+            String message = Logging.getMessage("generic.DepthOutOfRange", maxDepth);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (sector == null) {
+            String message = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.maxDepth = maxDepth;
+        this.root = new Node<>(null, sector.latMin, sector.latMax, sector.lonMin, sector.lonMax);
+    }
+
+    protected static boolean intersects(double[] a, double minLat, double maxLat, double minLon, double maxLon) {
+        return a[0] <= maxLat && a[1] >= minLat && a[2] <= maxLon && a[3] >= minLon;
+    }
+
+    /**
+     * Returns the number of items in the tree.
+     *
+     * @return the number of items.
+     */
+    synchronized public int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Indicates whether an item is in the tree.
+     *
+     * @param item the item to check.
+     * @return true if the item is in the tree, otherwise false.
+     */
+    synchronized public boolean contains(T item) {
+        return item != null && this.entries.containsKey(item);
+    }
+
+    /**
+     * Adds an item to the tree, or moves the item if it is already in the tree.
+     *
+     * @param item   the item to add.
+     * @param sector the item's region.
+     * @throws IllegalArgumentException if the item or the sector is null.
+     */
+    synchronized public void add(T item, Sector sector) {
+        if (item == null) {
+            String message = Logging.getMessage("nullValue.ObjectIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (sector == null) {
+            String message = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        double[] bounds = sector.asDegreesArray();
+        Entry<T> entry = this.entries.get(item);
+        if (entry != null) {
+            // Moving an item within the same cell only updates its bounds.
+            entry.bounds = bounds;
+            if (this.findCell(bounds) == entry.node)
+                return;
+
+            this.removeFromNode(entry);
+        } else {
+            entry = new Entry<>(item, bounds);
+            this.entries.put(item, entry);
+        }
+
+        Node<T> node = this.findCell(bounds);
+        node.entries.add(entry);
+        entry.node = node;
+        for (Node<T> n = node; n != null; n = n.parent) {
+            n.count++;
+        }
+    }
+
+    /**
+     * Removes an item from the tree.
+     *
+     * @param item the item to remove. If null or not in the tree, nothing is removed.
+     * @return true if the item was in the tree, otherwise false.
+     */
+    synchronized public boolean remove(T item) {
+        Entry<T> entry = (item != null) ? this.entries.remove(item) : null;
+        if (entry == null)
+            return false;
+
+        this.removeFromNode(entry);
+        return true;
+    }
+
+    /** Removes all items from the tree. */
+    synchronized public void clear() {
+        this.entries.clear();
+        this.root.entries.clear();
+        this.root.children = null;
+        this.root.count = 0;
+    }
+
+    /**
+     * Finds the items whose regions intersect a specified sector.
+     *
+     * @param sector   the sector of interest.
+     * @param outItems a collection in which to place the items. If null, a new list is created.
+     * @return the intersecting items. The collection passed as the <code>outItems</code> argument is returned, or a new
+     * list if that argument is null.
+     * @throws IllegalArgumentException if the sector is null.
+     */
+    synchronized public Collection<T> getItemsInRegion(Sector sector, Collection<T> outItems) {
+        if (sector == null) {
+            String message = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (outItems == null)
+            outItems = new ArrayList<>();
+
+        double[] region = sector.asDegreesArray();
+        Deque<Node<T>> stack = new ArrayDeque<>();
+        stack.push(this.root);
+
+        while (!stack.isEmpty()) {
+            Node<T> node = stack.pop();
+            for (Entry<T> entry : node.entries) {
+                if (LooseQuadTree.intersects(region, entry.bounds[0], entry.bounds[1], entry.bounds[2],
+                    entry.bounds[3]))
+                    outItems.add(entry.item);
+            }
+
+            if (node.children == null)
+                continue;
+
+            for (Node<T> child : node.children) {
+                if (child != null && child.count > 0 && child.looselyIntersects(region))
+                    stack.push(child);
+            }
+        }
+
+        return outItems;
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the items in the tree, in no particular order.
+     *
+     * @return an iterator over the items.
+     */
+    synchronized public Iterator<T> iterator() {
+        return new ArrayList<>(this.entries.keySet()).iterator();
+    }
+
+    protected Node<T> findCell(double[] bounds) {
+        double centerLat = 0.5 * (bounds[0] + bounds[1]);
+        double centerLon = 0.5 * (bounds[2] + bounds[3]);
+        double height = bounds[1] - bounds[0];
+        double width = bounds[3] - bounds[2];
+
+        Node<T> node = this.root;
+        if (!node.contains(centerLat, centerLon))
+            return node;
+
+        for (int depth = 0; depth < this.maxDepth; depth++) {
+            // Descend while the child cell is at least as large as the item; the loose bounds then contain the item.
+            if (0.5 * node.height() < height || 0.5 * node.width() < width)
+                break;
+
+            node = node.getChild(centerLat, centerLon);
+        }
+
+        return node;
+    }
+
+    protected void removeFromNode(Entry<T> entry) {
+        Node<T> node = entry.node;
+        node.entries.remove(entry);
+        entry.node = null;
+
+        for (Node<T> n = node; n != null; n = n.parent) {
+            n.count--;
+            // Prune children that no longer hold any items.
+            if (n.count == 0 && n.parent != null)
+                n.parent.children[n.quadrant] = null;
+        }
+    }
+
+    protected static class Entry<T> {
+        protected final T item;
+        protected double[] bounds;
+        protected Node<T> node;
+
+        public Entry(T item, double[] bounds) {
+            this.item = item;
+            this.bounds = bounds;
+        }
+    }
+
+    protected static class Node<T> {
+        protected final Node<T> parent;
+        protected final double minLat, maxLat, minLon, maxLon;
+        protected final List<Entry<T>> entries = new ArrayList<>(0);
+        protected Node<T>[] children;
+        protected int quadrant;
+        // The number of items in this cell and its descendants.
+        protected int count;
+
+        public Node(Node<T> parent, double minLat, double maxLat, double minLon, double maxLon) {
+            this.parent = parent;
+            this.minLat = minLat;
+            this.maxLat = maxLat;
+            this.minLon = minLon;
+            this.maxLon = maxLon;
+        }
+
+        public double height() {
+            return this.maxLat - this.minLat;
+        }
+
+        public double width() {
+            return this.maxLon - this.minLon;
+        }
+
+        public boolean contains(double lat, double lon) {
+            return lat >= this.minLat && lat <= this.maxLat && lon >= this.minLon && lon <= this.maxLon;
+        }
+
+        public boolean looselyIntersects(double[] region) {
+            double dLat = 0.5 * this.height();
+            double dLon = 0.5 * this.width();
+            return LooseQuadTree.intersects(region, this.minLat - dLat, this.maxLat + dLat, this.minLon - dLon,
+                this.maxLon + dLon);
+        }
+
+        @SuppressWarnings("unchecked")
+        public Node<T> getChild(double lat, double lon) {
+            double midLat = 0.5 * (this.minLat + this.maxLat);
+            double midLon = 0.5 * (this.minLon + this.maxLon);
+            int q = (lat >= midLat ? 2 : 0) + (lon >= midLon ? 1 : 0);
+
+            if (this.children == null)
+                this.children = (Node<T>[]) new Node<?>[4];
+
+            Node<T> child = this.children[q];
+            if (child == null) {
+                child = new Node<>(this,
+                    (q & 2) != 0 ? midLat : this.minLat, (q & 2) != 0 ? this.maxLat : midLat,
+                    (q & 1) != 0 ? midLon : this.minLon, (q & 1) != 0 ? this.maxLon : midLon);
+                child.quadrant = q;
+                this.children[q] = child;
+            }
+
+            return child;
+        }
+    }
+}
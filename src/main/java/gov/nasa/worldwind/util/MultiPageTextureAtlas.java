@@ -0,0 +1,380 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import gov.nasa.worldwind.exception.WWRuntimeException;
+
+import java.awt.*;
+import java.awt.image.*;
+import java.util.List;
+import java.util.*;
+
+/**
+ * A set of {@link TextureAtlas} pages that together hold more elements than fit in a single texture. Each page has the
+ * same initial and maximum dimensions. Elements are added to the first page with space for them; when every page is
+ * full a new page is created, up to the configured maximum number of pages. Once the maximum is reached, and if this
+ * atlas is configured to evict old elements, the page holding the least recently used element evicts its least
+ * recently used elements to make room. An element is used when it is added or when its page returns its texture
+ * coordinates or size.
+ * <p>
+ * Callers locate the page holding an element with {@link #getPage(Object)}, then bind that page and use its texture
+ * coordinates exactly as they would with a single texture atlas. Callers drawing many elements should bind a page only
+ * when the page changes from one element to the next.
+ * <p>
+ * Like {@link TextureAtlas}, this class is not thread-safe. It is intended to be used only on the rendering thread.
+ */
+public class MultiPageTextureAtlas {
+    /**
+     * The default maximum number of pages: 8.
+     */
+    protected static final int DEFAULT_MAX_PAGES = 8;
+
+    protected final int initialWidth;
+    protected final int initialHeight;
+    protected final int maxWidth;
+    protected final int maxHeight;
+    protected final int maxPages;
+    protected final boolean useMipMaps;
+    protected final boolean useAnisotropy;
+    /**
+     * The pages of this atlas, in the order they were created. Always contains at least one page.
+     */
+    protected final List<TextureAtlas> pages = new ArrayList<>();
+    /**
+     * Maps element keys to the page the element was added to. An entry may be stale if its page evicted the element;
+     * {@link #getPage(Object)} detects and removes stale entries.
+     */
+    protected final Map<Object, TextureAtlas> pageMap = new HashMap<>();
+    protected boolean evictOldElements;
+    /**
+     * Index of the page most recently used for a successful addition. New elements are first offered to this page.
+     */
+    protected int currentPage;
+
+    /**
+     * Constructs a multi-page texture atlas with the specified page dimensions and the default maximum number of
+     * pages.
+     *
+     * @param initialWidth  the initial width of each page, in pixels.
+     * @param initialHeight the initial height of each page, in pixels.
+     * @param maxWidth      the maximum width of each page, in pixels.
+     * @param maxHeight     the maximum height of each page, in pixels.
+     * @throws IllegalArgumentException if the dimensions are invalid. See {@link TextureAtlas#TextureAtlas(int, int,
+     *                                  int, int)}.
+     */
+    public MultiPageTextureAtlas(int initialWidth, int initialHeight, int maxWidth, int maxHeight) {
+        this(initialWidth, initialHeight, maxWidth, maxHeight, MultiPageTextureAtlas.DEFAULT_MAX_PAGES);
+    }
+
+    /**
+     * Constructs a multi-page texture atlas with the specified page dimensions and maximum number of pages.
+     *
+     * @param initialWidth  the initial width of each page, in pixels.
+     * @param initialHeight the initial height of each page, in pixels.
+     * @param maxWidth      the maximum width of each page, in pixels.
+     * @param maxHeight     the maximum height of each page, in pixels.
+     * @param maxPages      the maximum number of pages. Must be at least 1.
+     * @throws IllegalArgumentException if the dimensions are invalid, or if maxPages is less than 1.
+     */
+    public MultiPageTextureAtlas(int initialWidth, int initialHeight, int maxWidth, int maxHeight, int maxPages) {
+        this(initialWidth, initialHeight, maxWidth, maxHeight, maxPages, TextureAtlas.DEFAULT_USE_MIP_MAPS,
+            TextureAtlas.DEFAULT_USE_ANISOTROPY);
+    }
+
+    /**
+     * Constructs a multi-page texture atlas with the specified page dimensions, maximum number of pages, and texture
+     * filtering options.
+     *
+     * @param initialWidth  the initial width of each page, in pixels.
+     * @param initialHeight the initial height of each page, in pixels.
+     * @param maxWidth      the maximum width of each page, in pixels.
+     * @param maxHeight     the maximum height of each page, in pixels.
+     * @param maxPages      the maximum number of pages. Must be at least 1.
+     * @param useMipMaps    whether each page generates mip-maps.
+     * @param useAnisotropy whether each page applies an anisotropic filter.
+     * @throws IllegalArgumentException if the dimensions are invalid, or if maxPages is less than 1.
+     */
+    public MultiPageTextureAtlas(int initialWidth, int initialHeight, int maxWidth, int maxHeight, int maxPages,
+        boolean useMipMaps, boolean useAnisotropy) {
+        if (maxPages < 1) {
+            String msg = Logging.getMessage("generic.ArgumentOutOfRange", "maxPages=" + maxPages);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.initialWidth = initialWidth;
+        this.initialHeight = initialHeight;
+        this.maxWidth = maxWidth;
+        this.maxHeight = maxHeight;
+        this.maxPages = maxPages;
+        this.useMipMaps = useMipMaps;
+        this.useAnisotropy = useAnisotropy;
+
+        // Create the first page up front. This validates the page dimensions and guarantees that there is always a
+        // page to return from getCurrentPage.
+        this.pages.add(this.createPage());
+    }
+
+    /**
+     * Creates a new, empty page. Pages never evict elements on their own; eviction is controlled by this atlas.
+     *
+     * @return a new texture atlas page.
+     */
+    protected TextureAtlas createPage() {
+        return new TextureAtlas(this.initialWidth, this.initialHeight, this.maxWidth, this.maxHeight,
+            this.useMipMaps, this.useAnisotropy);
+    }
+
+    public int getMaxPages() {
+        return this.maxPages;
+    }
+
+    public int getNumPages() {
+        return this.pages.size();
+    }
+
+    /**
+     * Returns the pages of this atlas. The returned list is unmodifiable.
+     *
+     * @return this atlas' pages.
+     */
+    public List<TextureAtlas> getPages() {
+        return Collections.unmodifiableList(this.pages);
+    }
+
+    /**
+     * Returns the page that new elements are first offered to. Never <code>null</code>.
+     *
+     * @return the current page.
+     */
+    public TextureAtlas getCurrentPage() {
+        return this.pages.get(this.currentPage);
+    }
+
+    /**
+     * Indicates whether this atlas evicts the least recently used elements of a page when all pages are full.
+     *
+     * @return <code>true</code> if old elements are evicted, otherwise <code>false</code>.
+     */
+    public boolean isEvictOldElements() {
+        return this.evictOldElements;
+    }
+
+    /**
+     * Specifies whether this atlas evicts the least recently used elements of a page when all of its pages are full and
+     * no more pages can be created. When disabled, <code>add</code> throws an exception in that case.
+     *
+     * @param evictOldElements <code>true</code> to evict old elements, otherwise <code>false</code>.
+     */
+    public void setEvictOldElements(boolean evictOldElements) {
+        this.evictOldElements = evictOldElements;
+    }
+
+    /**
+     * Returns the number of elements in all pages of this atlas.
+     *
+     * @return the number of elements in this atlas.
+     */
+    public int getNumElements() {
+        int count = 0;
+        for (TextureAtlas page : this.pages) {
+            count += page.getNumElements();
+        }
+        return count;
+    }
+
+    /**
+     * Indicates whether any page of this atlas contains an element with the specified key.
+     *
+     * @param key the key which the element is referenced by.
+     * @return <code>true</code> if this atlas contains the element, otherwise <code>false</code>.
+     * @throws IllegalArgumentException if the key is <code>null</code>.
+     */
+    public boolean contains(Object key) {
+        return this.getPage(key) != null;
+    }
+
+    /**
+     * Returns the page that contains the element with the specified key.
+     *
+     * @param key the key which the element is referenced by.
+     * @return the page containing the element, or <code>null</code> if no page contains the element.
+     * @throws IllegalArgumentException if the key is <code>null</code>.
+     */
+    public TextureAtlas getPage(Object key) {
+        if (key == null) {
+            String msg = Logging.getMessage("nullValue.KeyIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        TextureAtlas page = this.pageMap.get(key);
+        if (page != null && !page.contains(key)) {
+            // The page evicted this element to make room for another. Forget the stale mapping.
+            this.pageMap.remove(key);
+            page = null;
+        }
+
+        return page;
+    }
+
+    /**
+     * Adds a new element with the specified key and image. If an element with the same key already exists it is
+     * replaced in the page that holds it. Otherwise the element is placed in the first page with space for it,
+     * creating a new page or evicting old elements as necessary.
+     *
+     * @param key   an object used to reference the image.
+     * @param image the image to add.
+     * @return the page the element was added to.
+     * @throws IllegalArgumentException if either the key or image is <code>null</code>, or if the image dimensions are
+     *                                  greater than the maximum page dimensions.
+     * @throws WWRuntimeException       if all pages are full, no more pages can be created, and this atlas is not
+     *                                  configured to evict old elements.
+     */
+    public TextureAtlas add(Object key, BufferedImage image) {
+        if (key == null) {
+            String msg = Logging.getMessage("nullValue.KeyIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (image == null) {
+            String msg = Logging.getMessage("nullValue.ImageIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        // Add two to account for the 1 pixel border each page adds around the image.
+        if (image.getWidth() + 2 > this.maxWidth || image.getHeight() + 2 > this.maxHeight) {
+            String msg = Logging.getMessage("TextureAtlas.ImageTooLarge", key);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        // Replace an existing element in place.
+        TextureAtlas page = this.getPage(key);
+        if (page != null) {
+            page.add(key, image);
+            return page;
+        }
+
+        // Offer the element to the current page first, since it is the page most likely to have room, then to the
+        // remaining pages in order.
+        int numPages = this.pages.size();
+        for (int i = 0; i < numPages; i++) {
+            int index = (this.currentPage + i) % numPages;
+            if (this.tryAdd(this.pages.get(index), key, image)) {
+                this.currentPage = index;
+                return this.pages.get(index);
+            }
+        }
+
+        // Every page is full. Create a new page if we can.
+        if (numPages < this.maxPages) {
+            page = this.createPage();
+            this.pages.add(page);
+            this.currentPage = this.pages.size() - 1;
+            page.add(key, image);
+            this.pageMap.put(key, page);
+            return page;
+        }
+
+        if (!this.isEvictOldElements()) {
+            String msg = Logging.getMessage("TextureAtlas.AtlasIsFull", key);
+            Logging.logger().severe(msg);
+            throw new WWRuntimeException(msg);
+        }
+
+        // Evict old elements from the page holding the least recently used element, and place the element there.
+        page = this.getLeastRecentlyUsedPage();
+        page.setEvictOldElements(true);
+        try {
+            page.add(key, image);
+        }
+        finally {
+            page.setEvictOldElements(false);
+        }
+
+        this.pageMap.put(key, page);
+        return page;
+    }
+
+    /**
+     * Returns the page holding the least recently used element of this atlas.
+     *
+     * @return the page holding the least recently used element, or the first page if this atlas is empty.
+     */
+    protected TextureAtlas getLeastRecentlyUsedPage() {
+        TextureAtlas lruPage = this.pages.get(0);
+        long lruTime = Long.MAX_VALUE;
+        for (TextureAtlas page : this.pages) {
+            for (TextureAtlas.Entry entry : page.entryMap.values()) {
+                if (entry.lastUsed < lruTime) {
+                    lruTime = entry.lastUsed;
+                    lruPage = page;
+                }
+            }
+        }
+
+        return lruPage;
+    }
+
+    /**
+     * Attempts to add an element to a page without evicting any of the page's elements.
+     *
+     * @param page  the page to add the element to.
+     * @param key   the element's key.
+     * @param image the element's image.
+     * @return <code>true</code> if the page had room for the element, otherwise <code>false</code>.
+     */
+    protected boolean tryAdd(TextureAtlas page, Object key, BufferedImage image) {
+        try {
+            // Use doAdd to avoid logging each failed attempt; a full page is the expected case here.
+            page.doAdd(key, image);
+            this.pageMap.put(key, page);
+            return true;
+        }
+        catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Removes the element with the specified key from the page that contains it.
+     *
+     * @param key the key which the element is referenced by.
+     * @return <code>true</code> if this atlas contained the element, otherwise <code>false</code>.
+     * @throws IllegalArgumentException if the key is <code>null</code>.
+     */
+    public boolean remove(Object key) {
+        TextureAtlas page = this.getPage(key);
+        this.pageMap.remove(key);
+
+        return page != null && page.remove(key);
+    }
+
+    /**
+     * Returns the image dimensions of the element with the specified key.
+     *
+     * @param key the key which the element is referenced by.
+     * @return the element's image dimensions, or <code>null</code> if this atlas does not contain the element.
+     */
+    public Dimension getSize(Object key) {
+        TextureAtlas page = this.getPage(key);
+        return page != null ? page.getSize(key) : null;
+    }
+
+    /**
+     * Removes all elements from every page, and releases all pages except the first.
+     */
+    public void clear() {
+        this.pageMap.clear();
+        this.pages.get(0).clear();
+        this.pages.subList(1, this.pages.size()).clear();
+        this.currentPage = 0;
+    }
+}
@@ -30,6 +30,9 @@ public class PerformanceStatistic implements Comparable<PerformanceStatistic> {
     public static final String JVM_HEAP = "gov.nasa.worldwind.perfstat.JvmHeap";
     public static final String JVM_HEAP_USED = "gov.nasa.worldwind.perfstat.JvmHeapUsed";
     public static final String TEXTURE_CACHE = "gov.nasa.worldwind.perfstat.TextureCache";
+    public static final String LAYER_TIME = "gov.nasa.worldwind.perfstat.LayerTime";
+    public static final String FRAME_ALLOCATION = "gov.nasa.worldwind.perfstat.FrameAllocation";
+    public static final String GPU_UPLOAD = "gov.nasa.worldwind.perfstat.GpuUpload";
 
     public static final Set<String> ALL_STATISTICS_SET = new HashSet<>(1);
 
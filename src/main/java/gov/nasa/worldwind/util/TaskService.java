@@ -63,6 +63,15 @@ public class TaskService extends WWObjectImpl implements Thread.UncaughtExceptio
             this.executor.execute(runnable);
     }
 
+    /**
+     * Indicates whether any task is queued or running.
+     *
+     * @return true if a task is queued or running, otherwise false.
+     */
+    public boolean hasActiveTasks() {
+        return !this.activeTasks.isEmpty();
+    }
+
     public boolean isFull() {
         return this.executor.getQueue().remainingCapacity() == 0;
     }
@@ -94,6 +103,7 @@ public class TaskService extends WWObjectImpl implements Thread.UncaughtExceptio
                         // Interposes logging for rejected execution
                         String message = Logging.getMessage("ThreadedTaskService.ResourceRejected", runnable);
                         Logging.logger().fine(message);
+                        activeTasks.remove(runnable); // allow the task to be added again
                         super.rejectedExecution(runnable, threadPoolExecutor);
                     }
                 });
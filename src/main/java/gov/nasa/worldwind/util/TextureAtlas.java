@@ -465,8 +465,15 @@ public class TextureAtlas {
 
         // Add the element's rectangle to the rectangle packer, expanding or rearranging the existing elements as needed
         // to incorporate the new element. This call sets the new rectangle's x and y coordinates to the rectangle's
-        // location within the backing image.
-        this.rectPacker.add(rect);
+        // location within the backing image. If the rectangle packer cannot fit the element we remove its entry so
+        // that this atlas does not report containing an element that has no place in the backing image.
+        try {
+            this.rectPacker.add(rect);
+        }
+        catch (RuntimeException e) {
+            this.entryMap.remove(key);
+            throw e;
+        }
 
         // Copy the image's pixels into the rectangle packer's backing image at point determined by the rectangle
         // packer, replacing backing store pixels with those of the image. Note that the rectangle's x and y coordinates
@@ -1061,6 +1061,22 @@ public class WWUtil {
         }
     }
 
+    /**
+     * Computes a 64-bit FNV-1a hash of a string's characters. The hash is stable across runs and platforms, so it's
+     * suitable for naming cached files.
+     *
+     * @param s the string to hash.
+     * @return the string's hash.
+     */
+    public static long hash64(CharSequence s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
     public static int sizeEstimate(Iterable x) {
         return x instanceof Collection ? ((Collection) x).size() : 8;
     }
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.util.instrument;
+
+/**
+ * A snapshot of one memory cache's cumulative counters.
+ *
+ * @see gov.nasa.worldwind.cache.AbstractMemoryCache
+ */
+public class CacheCounters {
+    protected final String name;
+    protected final long hitCount;
+    protected final long missCount;
+    protected final long evictionCount;
+    protected final int numObjects;
+    protected final long usedCapacity;
+
+    public CacheCounters(String name, long hitCount, long missCount, long evictionCount, int numObjects,
+        long usedCapacity) {
+        this.name = name;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.numObjects = numObjects;
+        this.usedCapacity = usedCapacity;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public long getHitCount() {
+        return this.hitCount;
+    }
+
+    public long getMissCount() {
+        return this.missCount;
+    }
+
+    public long getEvictionCount() {
+        return this.evictionCount;
+    }
+
+    public int getNumObjects() {
+        return this.numObjects;
+    }
+
+    public long getUsedCapacity() {
+        return this.usedCapacity;
+    }
+
+    /**
+     * Returns the fraction of lookups that found their object in the cache.
+     *
+     * @return the hit rate, from 0 to 1, or 0 if the cache has not been queried.
+     */
+    public double getHitRate() {
+        long lookups = this.hitCount + this.missCount;
+        return lookups > 0 ? (double) this.hitCount / lookups : 0;
+    }
+
+    @Override
+    public String toString() {
+        return this.name + " hits " + this.hitCount + ", misses " + this.missCount + ", evictions "
+            + this.evictionCount;
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.util.instrument;
+
+import jdk.jfr.*;
+
+/**
+ * Periodic Flight Recorder event reporting the cumulative counters of one memory cache.
+ */
+@Name("gov.nasa.worldwind.Cache")
+@Label("Memory Cache")
+@Category({"WorldWind", "Cache"})
+@Description("Cumulative hit, miss and eviction counts of a WorldWind memory cache")
+@Period("1 s")
+public class CacheEvent extends Event {
+    @Label("Cache")
+    public String name;
+
+    @Label("Hits")
+    public long hitCount;
+
+    @Label("Misses")
+    public long missCount;
+
+    @Label("Evictions")
+    public long evictionCount;
+
+    @Label("Objects")
+    public int numObjects;
+
+    @Label("Used Capacity")
+    public long usedCapacity;
+}
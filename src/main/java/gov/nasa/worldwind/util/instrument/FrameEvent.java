@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.util.instrument;
+
+import jdk.jfr.*;
+
+/**
+ * Flight Recorder event spanning one repaint of a scene controller.
+ */
+@Name("gov.nasa.worldwind.Frame")
+@Label("Frame")
+@Category({"WorldWind", "Rendering"})
+@Description("One repaint of a WorldWind scene controller")
+public class FrameEvent extends Event {
+    @Label("Frame Number")
+    public long frameNumber;
+
+    @Label("Layer Count")
+    public int layerCount;
+
+    @Label("Allocated")
+    @Description("Bytes allocated by the rendering thread during the frame")
+    @DataAmount
+    public long allocatedBytes;
+
+    @Label("GPU Upload")
+    @Description("Bytes of textures and buffers added to the GPU resource cache during the frame")
+    @DataAmount
+    public long gpuUploadBytes;
+}
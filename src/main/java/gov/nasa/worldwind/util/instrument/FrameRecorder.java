@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.util.instrument;
+
+import gov.nasa.worldwind.layers.Layer;
+
+import java.util.*;
+
+/**
+ * Records the time each layer spends pre-rendering, rendering and picking during a frame, along with the frame's
+ * duration, the bytes its rendering thread allocates and the bytes it uploads to the GPU. Scene controllers call {@link
+ * #beginFrame()} and {@link #endFrame()} around each repaint, and bracket each layer call with {@link #start()} and
+ * {@link #record(Layer, Phase, long)}:
+ * <pre>
+ * long start = recorder.start();
+ * layer.render(dc);
+ * recorder.record(layer, FrameRecorder.Phase.RENDER, start);
+ * </pre>
+ * <p>
+ * Ending a frame publishes its {@link FrameSnapshot} through {@link Instrumentation#getLastFrame()} and commits the
+ * frame's Flight Recorder events. When instrumentation is disabled the recorder does nothing. A recorder belongs to one
+ * scene controller and must only be used on that controller's rendering thread.
+ */
+public class FrameRecorder {
+    /**
+     * The phases of a frame in which layers are timed.
+     */
+    public enum Phase {
+        PRE_RENDER, RENDER, PICK
+    }
+
+    protected final Map<Layer, long[]> layerNanos = new LinkedHashMap<>();
+    protected boolean recording;
+    protected long frameNumber;
+    protected long frameStart;
+    protected long allocatedStart;
+    protected long gpuUploadStart;
+    protected FrameEvent frameEvent;
+
+    public FrameRecorder() {
+    }
+
+    /**
+     * Starts recording a frame, discarding the layer times of the previous frame.
+     */
+    public void beginFrame() {
+        this.layerNanos.clear();
+        this.recording = Instrumentation.isEnabled();
+        if (!this.recording)
+            return;
+
+        this.frameNumber = Instrumentation.nextFrameNumber();
+        this.frameEvent = new FrameEvent();
+        this.frameEvent.begin();
+        this.allocatedStart = Instrumentation.getCurrentThreadAllocatedBytes();
+        this.gpuUploadStart = Instrumentation.getTotalGpuUploadBytes();
+        this.frameStart = System.nanoTime();
+    }
+
+    public boolean isRecording() {
+        return this.recording;
+    }
+
+    /**
+     * Returns the start time to pass to {@link #record(Layer, Phase, long)}.
+     *
+     * @return the current time in nanoseconds, or 0 if the recorder is not recording a frame.
+     */
+    public long start() {
+        return this.recording ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Adds the time elapsed since a start time to a layer's time in a phase of the current frame.
+     *
+     * @param layer      the layer.
+     * @param phase      the phase the layer ran.
+     * @param startNanos the start time returned by {@link #start()}.
+     */
+    public void record(Layer layer, Phase phase, long startNanos) {
+        if (!this.recording || layer == null)
+            return;
+
+        long elapsed = System.nanoTime() - startNanos;
+        this.layerNanos.computeIfAbsent(layer, k -> new long[Phase.values().length])[phase.ordinal()] += elapsed;
+    }
+
+    /**
+     * Finishes recording the current frame, publishes its snapshot and commits its Flight Recorder events.
+     *
+     * @return the frame's snapshot, or null if the recorder is not recording a frame.
+     */
+    public FrameSnapshot endFrame() {
+        if (!this.recording)
+            return null;
+
+        this.recording = false;
+        long frameNanos = System.nanoTime() - this.frameStart;
+        long allocated = Instrumentation.getCurrentThreadAllocatedBytes();
+        long allocatedBytes = allocated >= 0 && this.allocatedStart >= 0 ? allocated - this.allocatedStart : -1;
+        long gpuUploadBytes = Instrumentation.getTotalGpuUploadBytes() - this.gpuUploadStart;
+
+        List<LayerTiming> timings = new ArrayList<>(this.layerNanos.size());
+        for (Map.Entry<Layer, long[]> entry : this.layerNanos.entrySet()) {
+            long[] nanos = entry.getValue();
+            timings.add(new LayerTiming(entry.getKey().name(), nanos[Phase.PRE_RENDER.ordinal()],
+                nanos[Phase.RENDER.ordinal()], nanos[Phase.PICK.ordinal()]));
+        }
+
+        FrameSnapshot snapshot = new FrameSnapshot(this.frameNumber, frameNanos, allocatedBytes, gpuUploadBytes,
+            timings);
+        Instrumentation.setLastFrame(snapshot);
+        this.commitEvents(snapshot);
+        this.frameEvent = null;
+
+        return snapshot;
+    }
+
+    protected void commitEvents(FrameSnapshot snapshot) {
+        FrameEvent event = this.frameEvent;
+        event.end();
+        if (event.shouldCommit()) {
+            event.frameNumber = snapshot.getFrameNumber();
+            event.layerCount = snapshot.getLayerTimings().size();
+            event.allocatedBytes = snapshot.getAllocatedBytes();
+            event.gpuUploadBytes = snapshot.getGpuUploadBytes();
+            event.commit();
+        }
+
+        if (!new LayerEvent().isEnabled())
+            return;
+
+        for (LayerTiming timing : snapshot.getLayerTimings()) {
+            FrameRecorder.commitLayerEvent(snapshot, timing.getLayerName(), Phase.PRE_RENDER,
+                timing.getPreRenderNanos());
+            FrameRecorder.commitLayerEvent(snapshot, timing.getLayerName(), Phase.RENDER, timing.getRenderNanos());
+            FrameRecorder.commitLayerEvent(snapshot, timing.getLayerName(), Phase.PICK, timing.getPickNanos());
+        }
+    }
+
+    protected static void commitLayerEvent(FrameSnapshot snapshot, String layerName, Phase phase, long nanos) {
+        if (nanos <= 0)
+            return;
+
+        LayerEvent event = new LayerEvent();
+        event.frameNumber = snapshot.getFrameNumber();
+        event.layerName = layerName;
+        event.phase = phase.name();
+        event.nanos = nanos;
+        event.commit();
+    }
+}
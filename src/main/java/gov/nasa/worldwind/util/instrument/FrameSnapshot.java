@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.util.instrument;
+
+import java.util.*;
+
+/**
+ * The measurements of one frame recorded by a {@link FrameRecorder}.
+ */
+public class FrameSnapshot {
+    protected final long frameNumber;
+    protected final long frameNanos;
+    protected final long allocatedBytes;
+    protected final long gpuUploadBytes;
+    protected final List<LayerTiming> layerTimings;
+
+    /**
+     * Constructs a frame snapshot.
+     *
+     * @param frameNumber    the frame's number, counted across all scene controllers.
+     * @param frameNanos     the frame's duration, in nanoseconds.
+     * @param allocatedBytes the bytes allocated by the rendering thread during the frame, or -1 if the JVM does not
+     *                       measure thread allocation.
+     * @param gpuUploadBytes the bytes added to GPU resource caches during the frame.
+     * @param layerTimings   the time each layer spent in each phase of the frame, in layer order.
+     */
+    public FrameSnapshot(long frameNumber, long frameNanos, long allocatedBytes, long gpuUploadBytes,
+        List<LayerTiming> layerTimings) {
+        this.frameNumber = frameNumber;
+        this.frameNanos = frameNanos;
+        this.allocatedBytes = allocatedBytes;
+        this.gpuUploadBytes = gpuUploadBytes;
+        this.layerTimings = Collections.unmodifiableList(layerTimings);
+    }
+
+    public long getFrameNumber() {
+        return this.frameNumber;
+    }
+
+    public long getFrameNanos() {
+        return this.frameNanos;
+    }
+
+    public long getAllocatedBytes() {
+        return this.allocatedBytes;
+    }
+
+    public long getGpuUploadBytes() {
+        return this.gpuUploadBytes;
+    }
+
+    public List<LayerTiming> getLayerTimings() {
+        return this.layerTimings;
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.util.instrument;
+
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.cache.*;
+import gov.nasa.worldwind.util.Logging;
+import jdk.jfr.FlightRecorder;
+
+import javax.management.*;
+import java.lang.management.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.logging.Level;
+
+/**
+ * Collects WorldWind's runtime instrumentation: per-frame layer timings recorded by scene controllers' {@link
+ * FrameRecorder}s, memory cache hit, miss and eviction counters, retrieval queue depth and latency histograms, and the
+ * bytes uploaded to GPU resource caches. The measurements are emitted as JDK Flight Recorder events in the
+ * <code>WorldWind</code> category, and exposed through JMX by an {@link InstrumentationMXBean} registered under {@link
+ * #MBEAN_NAME}, so production sessions can be profiled by starting a recording or connecting a JMX console.
+ * <p>
+ * Instrumentation is enabled unless the configuration sets {@link Keys#INSTRUMENTATION_ENABLED} to false, and the
+ * management bean is registered unless it sets {@link Keys#INSTRUMENTATION_MBEAN_ENABLED} to false. Cache counters are
+ * always maintained since they cost no more than the lookups they count.
+ */
+public final class Instrumentation {
+    public static final String MBEAN_NAME = "gov.nasa.worldwind:type=Instrumentation";
+
+    private static final LongAdder gpuUploadBytes = new LongAdder();
+    private static final AtomicLong frameCount = new AtomicLong();
+    private static final LatencyHistogram retrievalLatency = new LatencyHistogram();
+    private static final LatencyHistogram retrievalQueueLatency = new LatencyHistogram();
+    private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private static volatile boolean enabled = Configuration.getBooleanValue(Keys.INSTRUMENTATION_ENABLED, true);
+    private static volatile int retrievalQueueDepth;
+    private static volatile FrameSnapshot lastFrame;
+
+    static {
+        FlightRecorder.addPeriodicEvent(CacheEvent.class, Instrumentation::commitCacheEvents);
+
+        if (Configuration.getBooleanValue(Keys.INSTRUMENTATION_MBEAN_ENABLED, true))
+            Instrumentation.registerMBean();
+    }
+
+    private Instrumentation() {
+    }
+
+    public static boolean isEnabled() {
+        return Instrumentation.enabled;
+    }
+
+    /**
+     * Specifies whether scene controllers record frames and the retrieval service records latencies. Disabling
+     * instrumentation stops new measurements; previously recorded values remain available.
+     *
+     * @param enabled true to record measurements, otherwise false.
+     */
+    public static void setEnabled(boolean enabled) {
+        Instrumentation.enabled = enabled;
+    }
+
+    /**
+     * Registers the instrumentation management bean with the platform MBean server, if it is not already registered.
+     * Failures are logged and otherwise ignored.
+     */
+    public static synchronized void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(Instrumentation.MBEAN_NAME);
+            if (!server.isRegistered(name))
+                server.registerMBean(new Bean(), name);
+        }
+        catch (JMException | SecurityException e) {
+            Logging.logger().log(Level.WARNING,
+                Logging.getMessage("generic.ExceptionWhileRegisteringMBean", Instrumentation.MBEAN_NAME), e);
+        }
+    }
+
+    /**
+     * Returns the measurements of the most recently recorded frame. When several scene controllers are rendering, this
+     * is the frame that ended last.
+     *
+     * @return the last frame's snapshot, or null if no frame has been recorded.
+     */
+    public static FrameSnapshot getLastFrame() {
+        return Instrumentation.lastFrame;
+    }
+
+    static void setLastFrame(FrameSnapshot snapshot) {
+        Instrumentation.lastFrame = snapshot;
+    }
+
+    static long nextFrameNumber() {
+        return Instrumentation.frameCount.incrementAndGet();
+    }
+
+    public static long getFrameCount() {
+        return Instrumentation.frameCount.get();
+    }
+
+    /**
+     * Adds to the number of bytes uploaded to the GPU. GPU resource caches call this when a texture or buffer is added.
+     *
+     * @param bytes the number of bytes uploaded.
+     */
+    public static void recordGpuUpload(long bytes) {
+        if (bytes > 0)
+            Instrumentation.gpuUploadBytes.add(bytes);
+    }
+
+    public static long getTotalGpuUploadBytes() {
+        return Instrumentation.gpuUploadBytes.sum();
+    }
+
+    /**
+     * Records the retrieval queue's depth. The retrieval service calls this when a retrieval is queued or started.
+     *
+     * @param depth the number of retrievals waiting on the queue.
+     */
+    public static void recordRetrievalQueueDepth(int depth) {
+        Instrumentation.retrievalQueueDepth = depth;
+    }
+
+    public static int getRetrievalQueueDepth() {
+        return Instrumentation.retrievalQueueDepth;
+    }
+
+    /**
+     * Records the latencies of a completed retrieval.
+     *
+     * @param queueNanos     the time the retrieval waited on the queue, in nanoseconds.
+     * @param retrievalNanos the time the retrieval ran, in nanoseconds.
+     */
+    public static void recordRetrieval(long queueNanos, long retrievalNanos) {
+        if (!Instrumentation.enabled)
+            return;
+
+        Instrumentation.retrievalQueueLatency.record(queueNanos);
+        Instrumentation.retrievalLatency.record(retrievalNanos);
+    }
+
+    public static LatencyHistogram getRetrievalLatency() {
+        return Instrumentation.retrievalLatency;
+    }
+
+    public static LatencyHistogram getRetrievalQueueLatency() {
+        return Instrumentation.retrievalQueueLatency;
+    }
+
+    /**
+     * Returns the cumulative counters of each cache in WorldWind's memory cache set that maintains them.
+     *
+     * @return the cache counters, ordered by cache name.
+     */
+    public static List<CacheCounters> getCacheCounters() {
+        List<CacheCounters> counters = new ArrayList<>();
+        for (MemoryCache cache : WorldWind.getMemoryCacheSet().getAllCaches().values()) {
+            if (cache instanceof AbstractMemoryCache) {
+                counters.add(((AbstractMemoryCache) cache).getCounters());
+            }
+        }
+
+        counters.sort(Comparator.comparing(CacheCounters::getName));
+        return counters;
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread since it started.
+     *
+     * @return the bytes allocated by the current thread, or -1 if the JVM does not measure thread allocation.
+     */
+    public static long getCurrentThreadAllocatedBytes() {
+        if (Instrumentation.threadBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) Instrumentation.threadBean;
+            if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled())
+                return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+
+        return -1;
+    }
+
+    private static void commitCacheEvents() {
+        for (CacheCounters counters : Instrumentation.getCacheCounters()) {
+            CacheEvent event = new CacheEvent();
+            event.name = counters.getName();
+            event.hitCount = counters.getHitCount();
+            event.missCount = counters.getMissCount();
+            event.evictionCount = counters.getEvictionCount();
+            event.numObjects = counters.getNumObjects();
+            event.usedCapacity = counters.getUsedCapacity();
+            event.commit();
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1.0e6;
+    }
+
+    /**
+     * The management bean exposing the instrumentation through JMX.
+     */
+    private static class Bean implements InstrumentationMXBean {
+        public boolean isEnabled() {
+            return Instrumentation.isEnabled();
+        }
+
+        public void setEnabled(boolean enabled) {
+            Instrumentation.setEnabled(enabled);
+        }
+
+        public long getFrameCount() {
+            return Instrumentation.getFrameCount();
+        }
+
+        public long getLastFrameNanos() {
+            FrameSnapshot frame = Instrumentation.lastFrame;
+            return frame != null ? frame.getFrameNanos() : 0;
+        }
+
+        public long getLastFrameAllocatedBytes() {
+            FrameSnapshot frame = Instrumentation.lastFrame;
+            return frame != null ? frame.getAllocatedBytes() : 0;
+        }
+
+        public long getLastFrameGpuUploadBytes() {
+            FrameSnapshot frame = Instrumentation.lastFrame;
+            return frame != null ? frame.getGpuUploadBytes() : 0;
+        }
+
+        public List<LayerTiming> getLastFrameLayerTimings() {
+            FrameSnapshot frame = Instrumentation.lastFrame;
+            return frame != null ? frame.getLayerTimings() : Collections.emptyList();
+        }
+
+        public long getTotalGpuUploadBytes() {
+            return Instrumentation.getTotalGpuUploadBytes();
+        }
+
+        public List<CacheCounters> getCacheCounters() {
+            return Instrumentation.getCacheCounters();
+        }
+
+        public int getRetrievalQueueDepth() {
+            return Instrumentation.getRetrievalQueueDepth();
+        }
+
+        public long getRetrievalCount() {
+            return Instrumentation.retrievalLatency.getCount();
+        }
+
+        public double getRetrievalMeanMillis() {
+            return Instrumentation.retrievalLatency.getMeanNanos() / 1.0e6;
+        }
+
+        public double getRetrievalP50Millis() {
+            return Instrumentation.millis(Instrumentation.retrievalLatency.getPercentileNanos(50));
+        }
+
+        public double getRetrievalP95Millis() {
+            return Instrumentation.millis(Instrumentation.retrievalLatency.getPercentileNanos(95));
+        }
+
+        public double getRetrievalP99Millis() {
+            return Instrumentation.millis(Instrumentation.retrievalLatency.getPercentileNanos(99));
+        }
+
+        public double getRetrievalMaxMillis() {
+            return Instrumentation.millis(Instrumentation.retrievalLatency.getMaxNanos());
+        }
+
+        public double getRetrievalQueueMeanMillis() {
+            return Instrumentation.retrievalQueueLatency.getMeanNanos() / 1.0e6;
+        }
+
+        public double getRetrievalQueueP95Millis() {
+            return Instrumentation.millis(Instrumentation.retrievalQueueLatency.getPercentileNanos(95));
+        }
+
+        public long[] getRetrievalLatencyBuckets() {
+            return Instrumentation.retrievalLatency.getBucketCounts();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.util.instrument;
+
+import java.util.List;
+
+/**
+ * Management interface exposing WorldWind's rendering, cache and retrieval instrumentation through JMX. The bean is
+ * registered with the platform MBean server under {@link Instrumentation#MBEAN_NAME}.
+ */
+public interface InstrumentationMXBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    /**
+     * @return the number of frames recorded by all scene controllers.
+     */
+    long getFrameCount();
+
+    /**
+     * @return the duration of the most recently recorded frame, in nanoseconds.
+     */
+    long getLastFrameNanos();
+
+    /**
+     * @return the bytes allocated by the rendering thread during the most recently recorded frame, or -1 if the JVM
+     * does not measure thread allocation.
+     */
+    long getLastFrameAllocatedBytes();
+
+    /**
+     * @return the bytes added to GPU resource caches during the most recently recorded frame.
+     */
+    long getLastFrameGpuUploadBytes();
+
+    /**
+     * @return the time each layer spent in each phase of the most recently recorded frame.
+     */
+    List<LayerTiming> getLastFrameLayerTimings();
+
+    /**
+     * @return the bytes added to GPU resource caches since the application started.
+     */
+    long getTotalGpuUploadBytes();
+
+    /**
+     * @return the cumulative counters of each cache in WorldWind's memory cache set.
+     */
+    List<CacheCounters> getCacheCounters();
+
+    /**
+     * @return the number of retrievals waiting on the retrieval queue when the last retrieval was queued or started.
+     */
+    int getRetrievalQueueDepth();
+
+    /**
+     * @return the number of retrievals executed.
+     */
+    long getRetrievalCount();
+
+    double getRetrievalMeanMillis();
+
+    double getRetrievalP50Millis();
+
+    double getRetrievalP95Millis();
+
+    double getRetrievalP99Millis();
+
+    double getRetrievalMaxMillis();
+
+    double getRetrievalQueueMeanMillis();
+
+    double getRetrievalQueueP95Millis();
+
+    /**
+     * @return the retrieval latency histogram's bucket counts. See {@link LatencyHistogram}.
+     */
+    long[] getRetrievalLatencyBuckets();
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.util.instrument;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * Counts durations in power of two nanosecond buckets: bucket <code>i</code> holds durations of at least
+ * <code>2^i</code> and less than <code>2^(i+1)</code> nanoseconds, with bucket 0 also holding zero durations.
+ * Recording is lock free and may be performed concurrently by any number of threads.
+ */
+public class LatencyHistogram {
+    public static final int NUM_BUCKETS = 64;
+
+    protected final AtomicLongArray buckets = new AtomicLongArray(LatencyHistogram.NUM_BUCKETS);
+    protected final LongAdder count = new LongAdder();
+    protected final LongAdder totalNanos = new LongAdder();
+    protected final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records a duration. Negative durations are recorded as zero.
+     *
+     * @param nanos the duration, in nanoseconds.
+     */
+    public void record(long nanos) {
+        nanos = Math.max(0, nanos);
+        this.buckets.incrementAndGet(LatencyHistogram.bucketOf(nanos));
+        this.count.increment();
+        this.totalNanos.add(nanos);
+        this.maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    public long getTotalNanos() {
+        return this.totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return this.maxNanos.get();
+    }
+
+    public double getMeanNanos() {
+        long n = this.count.sum();
+        return n > 0 ? (double) this.totalNanos.sum() / n : 0;
+    }
+
+    /**
+     * Returns an upper bound on the specified percentile of the recorded durations: the upper edge of the bucket holding
+     * that percentile, limited to the longest recorded duration.
+     *
+     * @param percentile the percentile, from 0 to 100.
+     * @return the percentile's upper bound, in nanoseconds, or 0 if no durations have been recorded.
+     */
+    public long getPercentileNanos(double percentile) {
+        long[] counts = this.getBucketCounts();
+        long total = 0;
+        for (long c : counts) {
+            total += c;
+        }
+        if (total == 0)
+            return 0;
+
+        long rank = (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * total);
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= rank && counts[i] > 0)
+                return Math.min(LatencyHistogram.bucketUpperBound(i), this.getMaxNanos());
+        }
+
+        return this.getMaxNanos();
+    }
+
+    /**
+     * Returns a copy of the bucket counts.
+     *
+     * @return the number of durations recorded in each bucket, indexed by bucket.
+     */
+    public long[] getBucketCounts() {
+        long[] counts = new long[LatencyHistogram.NUM_BUCKETS];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = this.buckets.get(i);
+        }
+        return counts;
+    }
+
+    protected static int bucketOf(long nanos) {
+        return nanos > 0 ? 63 - Long.numberOfLeadingZeros(nanos) : 0;
+    }
+
+    protected static long bucketUpperBound(int bucket) {
+        return bucket < 62 ? (2L << bucket) - 1 : Long.MAX_VALUE;
+    }
+}
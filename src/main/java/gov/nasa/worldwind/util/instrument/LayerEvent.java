@@ -0,0 +1,31 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.util.instrument;
+
+import jdk.jfr.*;
+
+/**
+ * Flight Recorder event reporting the time a layer spent in one phase of a frame. Layers that run a phase more than
+ * once per frame, for example during deep picking or 2D contiguous rendering, report the sum of their times.
+ */
+@Name("gov.nasa.worldwind.Layer")
+@Label("Layer Phase")
+@Category({"WorldWind", "Rendering"})
+@Description("Time a layer spent pre-rendering, rendering or picking during one frame")
+public class LayerEvent extends Event {
+    @Label("Frame Number")
+    public long frameNumber;
+
+    @Label("Layer")
+    public String layerName;
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long nanos;
+}
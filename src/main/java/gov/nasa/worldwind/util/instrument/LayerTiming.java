@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.util.instrument;
+
+/**
+ * The time one layer spent in each phase of a frame.
+ *
+ * @see FrameSnapshot
+ */
+public class LayerTiming {
+    protected final String layerName;
+    protected final long preRenderNanos;
+    protected final long renderNanos;
+    protected final long pickNanos;
+
+    public LayerTiming(String layerName, long preRenderNanos, long renderNanos, long pickNanos) {
+        this.layerName = layerName;
+        this.preRenderNanos = preRenderNanos;
+        this.renderNanos = renderNanos;
+        this.pickNanos = pickNanos;
+    }
+
+    public String getLayerName() {
+        return this.layerName;
+    }
+
+    public long getPreRenderNanos() {
+        return this.preRenderNanos;
+    }
+
+    public long getRenderNanos() {
+        return this.renderNanos;
+    }
+
+    public long getPickNanos() {
+        return this.pickNanos;
+    }
+
+    public long getTotalNanos() {
+        return this.preRenderNanos + this.renderNanos + this.pickNanos;
+    }
+
+    @Override
+    public String toString() {
+        return this.layerName + " preRender " + this.preRenderNanos + " ns, render " + this.renderNanos
+            + " ns, pick " + this.pickNanos + " ns";
+    }
+}
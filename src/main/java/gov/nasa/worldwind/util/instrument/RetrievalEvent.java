@@ -0,0 +1,29 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.util.instrument;
+
+import jdk.jfr.*;
+
+/**
+ * Flight Recorder event spanning the execution of one retrieval by the retrieval service.
+ */
+@Name("gov.nasa.worldwind.Retrieval")
+@Label("Retrieval")
+@Category({"WorldWind", "Retrieval"})
+@Description("One retrieval executed by the retrieval service")
+public class RetrievalEvent extends Event {
+    @Label("Resource")
+    public String name;
+
+    @Label("Queue Time")
+    @Description("Time the retrieval waited on the queue before it started")
+    @Timespan(Timespan.NANOSECONDS)
+    public long queueNanos;
+
+    @Label("Queue Depth")
+    @Description("Retrievals waiting on the queue when the retrieval started")
+    public int queueDepth;
+}
@@ -10,7 +10,9 @@ import gov.nasa.worldwind.globes.Globe;
 import gov.nasa.worldwind.render.Polyline;
 import gov.nasa.worldwind.util.*;
 
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.DoubleConsumer;
 
 import static java.lang.Math.toRadians;
 
@@ -29,7 +31,12 @@ import static java.lang.Math.toRadians;
  * Projected or non terrain following area is computed in a sinusoidal projection which is equivalent or equal area.
  * Surface or terrain following area is approximated by sampling the path bounding sector with square cells along a
  * grid. Cells which center is inside the path have their area estimated and summed according to the overall slope at
- * the cell south-west corner.</p>
+ * the cell south-west corner. The grid's corner elevations are retrieved by batch elevation queries, and rows of cells
+ * and groups of triangles are summed in parallel on the common fork-join pool.</p>
+ *
+ * <p>
+ * {@link #computeAreaAsync(Globe, DoubleConsumer, Executor)} computes the area on a background thread, reporting
+ * estimates from progressively finer sampling grids as they become available.</p>
  *
  * @author Patrick Murris
  * @version $Id: AreaMeasurer.java 1171 2013-02-11 21:45:02Z dcollins $
@@ -39,11 +46,25 @@ import static java.lang.Math.toRadians;
 public class AreaMeasurer extends LengthMeasurer implements MeasurableArea {
 
     private static final double DEFAULT_AREA_SAMPLING_STEPS = 32; // sampling grid max rows or cols
+    /**
+     * The sampling grid steps of the first estimate reported by an asynchronous area computation.
+     */
+    protected static final double PROGRESSIVE_SAMPLING_STEPS = 8;
+    /**
+     * The number of tessellated triangles summed by each parallel task.
+     */
+    protected static final int TRIANGLE_BATCH_SIZE = 4096;
+    /**
+     * The number of sampling grid cells summed by each parallel task, rounded to whole rows.
+     */
+    protected static final int CELL_BATCH_SIZE = 4096;
     protected double surfaceArea = -1;
     protected double projectedArea = -1;
     private List<? extends Position> subdividedPositions;
-    private Cell[][] sectorCells;
-    private Double[][] sectorElevations;
+    // Sampling grid corner elevations, row-major from the south-west corner.
+    private double[] sectorElevations;
+    private int sectorElevationRows;
+    private int sectorElevationColumns;
     private double areaTerrainSamplingSteps = AreaMeasurer.DEFAULT_AREA_SAMPLING_STEPS;
 
     public AreaMeasurer() {
@@ -85,7 +106,6 @@ public class AreaMeasurer extends LengthMeasurer implements MeasurableArea {
         Sector newSector = getBoundingSector();
 
         if (newSector == null || !newSector.equals(oldSector)) {
-            this.sectorCells = null;
             this.sectorElevations = null;
         }
     }
@@ -117,7 +137,6 @@ public class AreaMeasurer extends LengthMeasurer implements MeasurableArea {
             this.surfaceArea = -1;
             this.projectedArea = -1;
             // Invalidate cached data
-            this.sectorCells = null;
             this.sectorElevations = null;
         }
     }
@@ -157,6 +176,88 @@ public class AreaMeasurer extends LengthMeasurer implements MeasurableArea {
         return this.projectedArea;
     }
 
+    /**
+     * Computes the area of the current path or shape on a background thread. When the measurer is set to follow terrain,
+     * the area is estimated from progressively finer sampling grids, up to the current area terrain sampling steps, and
+     * each estimate is passed to the listener as soon as it is available. Otherwise the projected area is computed once.
+     * Cancelling the returned future stops the computation after the estimate in progress.
+     *
+     * <p>
+     * The listener is called on the thread computing the area. The measurer must not be modified until the returned
+     * future completes.</p>
+     *
+     * @param globe    the globe to draw terrain information from.
+     * @param listener the listener to receive each area estimate. May be null.
+     * @return a future that completes with the final area, or -1 if the position list does not describe a closed path or
+     * is too short.
+     * @throws IllegalArgumentException if globe is <code>null</code>.
+     */
+    public CompletableFuture<Double> computeAreaAsync(Globe globe, DoubleConsumer listener) {
+        return this.computeAreaAsync(globe, listener, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes the area of the current path or shape on a background thread. See {@link #computeAreaAsync(Globe,
+     * DoubleConsumer)}.
+     *
+     * @param globe    the globe to draw terrain information from.
+     * @param listener the listener to receive each area estimate. May be null.
+     * @param executor the executor to compute the area on.
+     * @return a future that completes with the final area, or -1 if the position list does not describe a closed path or
+     * is too short.
+     * @throws IllegalArgumentException if globe or executor is <code>null</code>.
+     */
+    public CompletableFuture<Double> computeAreaAsync(Globe globe, DoubleConsumer listener, Executor executor) {
+        if (globe == null) {
+            String message = Logging.getMessage("nullValue.GlobeIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (executor == null) {
+            String message = Logging.getMessage("nullValue.ExecutorIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        CompletableFuture<Double> future = new CompletableFuture<>();
+        CompletableFuture.runAsync(() -> {
+            try {
+                future.complete(this.computeAreaProgressively(globe, listener, future));
+            }
+            catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }, executor);
+
+        return future;
+    }
+
+    protected double computeAreaProgressively(Globe globe, DoubleConsumer listener, Future<?> future) {
+        if (!this.isFollowTerrain()) {
+            double area = this.getProjectedArea(globe);
+            if (listener != null && area >= 0)
+                listener.accept(area);
+            return area;
+        }
+
+        double maxSteps = this.areaTerrainSamplingSteps;
+        double area = -1;
+        for (double steps = Math.min(AreaMeasurer.PROGRESSIVE_SAMPLING_STEPS, maxSteps); !future.isDone();
+            steps = Math.min(2 * steps, maxSteps)) {
+            // The final estimate is the one getSurfaceArea caches.
+            area = steps < maxSteps ? this.computeSurfaceAreaSampling(globe, steps) : this.getSurfaceArea(globe);
+            if (area < 0)
+                break;
+            if (listener != null && !future.isDone())
+                listener.accept(area);
+            if (steps >= maxSteps)
+                break;
+        }
+
+        return area;
+    }
+
     @Override
     public double getPerimeter(Globe globe) {
         return getLength(globe);
@@ -211,15 +312,18 @@ public class AreaMeasurer extends LengthMeasurer implements MeasurableArea {
             GeometryBuilder gb = new GeometryBuilder();
             GeometryBuilder.IndexedTriangleArray ita = gb.tessellatePolygon2(0, verticesCount, verts);
             // Second: sum triangles area
-            double area = 0;
-            int[] indices = ita.getIndices();
+            final int[] indices = ita.getIndices();
+            final float[] triangleVerts = ita.getVertices();
             int triangleCount = ita.getIndexCount() / 3;
-            for (int i = 0; i < triangleCount; i++) {
-                idx = i * 3;
-                area += AreaMeasurer.computeTriangleProjectedArea(globe, ita.getVertices(), indices[idx] * 3,
-                    indices[idx + 1] * 3, indices[idx + 2] * 3);
-            }
-            return area;
+            return LengthMeasurer.sumRanges(triangleCount, AreaMeasurer.TRIANGLE_BATCH_SIZE, (start, end) -> {
+                double area = 0;
+                for (int i = start; i < end; i++) {
+                    int index = i * 3;
+                    area += AreaMeasurer.computeTriangleProjectedArea(globe, triangleVerts, indices[index] * 3,
+                        indices[index + 1] * 3, indices[index + 2] * 3);
+                }
+                return area;
+            });
         }
         return -1;
     }
@@ -238,90 +342,139 @@ public class AreaMeasurer extends LengthMeasurer implements MeasurableArea {
 
             // Sample the bounding sector with cells about the same length in side - squares
             double stepRadians = Math.max(toRadians(sector.latDelta) / steps, toRadians(sector.lonDelta) / steps);
-            int latSteps = (int) Math.round(toRadians(sector.latDelta) / stepRadians);
+            final int latSteps = Math.max(1, (int) Math.round(toRadians(sector.latDelta) / stepRadians));
             final LatLon sectorCentroid = sector.getCentroid();
-            int lonSteps = (int) Math.round(toRadians(sector.lonDelta) / stepRadians
-                * Math.cos(sectorCentroid.getLat().radians()));
-            double latStepRadians = toRadians(sector.latDelta) / latSteps;
-            double lonStepRadians = toRadians(sector.lonDelta) / lonSteps;
-
-            if (this.sectorCells == null) {
-                this.sectorCells = new Cell[latSteps][lonSteps];
-            }
-            if (this.sectorElevations == null) {
-                this.sectorElevations = new Double[latSteps + 1][lonSteps + 1];
-            }
+            final int lonSteps = Math.max(1, (int) Math.round(toRadians(sector.lonDelta) / stepRadians
+                * Math.cos(toRadians(sectorCentroid.lat))));
+            final double latStepRadians = toRadians(sector.latDelta) / latSteps;
+            final double lonStepRadians = toRadians(sector.lonDelta) / lonSteps;
 
             final double sectorLatMinRadians = sector.latMin().radians();
             final double sectorLonMinRadians = sector.lonMin().radians();
             final Angle sectorCentroidLon = sectorCentroid.getLon();
 
-            double area = 0;
-            for (int i = 0; i < latSteps; i++) {
-                double lat = sectorLatMinRadians + latStepRadians * i;
-                // Compute this latitude row cells area
-                double radius = globe.getRadiusAt(Angle.fromRadians(lat + latStepRadians / 2),
-                    sectorCentroidLon);
-                double cellWidth = lonStepRadians * radius * Math.cos(lat + latStepRadians / 2);
-                double cellHeight = latStepRadians * radius;
-                double cellArea = cellWidth * cellHeight;
-
-                final Angle latAngle = Angle.fromRadians(lat);
-                final Cell[] sectorI = this.sectorCells[i];
-                final Double[] sectorEleI = sectorElevations[i];
-
-                for (int j = 0; j < lonSteps; j++) {
-                    double lon = sectorLonMinRadians + lonStepRadians * j;
-                    Sector cellSector = Sector.fromRadians(lat, lat + latStepRadians, lon, lon + lonStepRadians);
-                    // Select cells which center is inside the shape
-                    if (WWMath.isLocationInside(cellSector.getCentroid(), this.subdividedPositions)) {
-                        Cell cell = sectorI[j];
-                        if (cell == null || cell.surfaceArea == -1) {
-                            // Compute surface area using terrain normal in SW corner
-                            // Corners elevation
-                            double eleSW = sectorEleI[j] != null ? sectorEleI[j]
-                                : globe.elevation(latAngle, Angle.fromRadians(lon));
-                            double eleSE = sectorEleI[j + 1] != null ? sectorEleI[j + 1]
-                                : globe.elevation(latAngle, Angle.fromRadians(lon + lonStepRadians));
-                            double eleNW = sectorElevations[i + 1][j] != null ? sectorElevations[i + 1][j]
-                                : globe.elevation(Angle.fromRadians(lat + latStepRadians), Angle.fromRadians(lon));
-                            // Cache elevations
-                            sectorEleI[j] = eleSW;
-                            sectorEleI[j + 1] = eleSE;
-                            sectorElevations[i + 1][j] = eleNW;
-                            // Compute normal
-                            Vec4 vx = new Vec4(cellWidth, 0, eleSE - eleSW).normalize3();
-                            Vec4 vy = new Vec4(0, cellHeight, eleNW - eleSW).normalize3();
-                            Vec4 normalSW = vx.cross3(vy).normalize3(); // point toward positive Z
-                            // Compute slope factor
-                            double tan = Math.tan(Vec4.UNIT_Z.angleBetween3(normalSW).radians());
-                            double slopeFactor = Math.sqrt(1 + tan * tan);
-                            // Create and cache cell
-                            cell = new Cell(cellSector, cellArea, cellArea * slopeFactor);
-                            sectorI[j] = cell;
+            // Corner elevations, row-major from the south-west corner
+            final double[] elevations = this.getSectorElevations(globe, sector, latSteps, lonSteps, latStepRadians,
+                lonStepRadians);
+            final int columns = lonSteps + 1;
+
+            // Path vertices as latitude and longitude pairs, in degrees
+            final int vertexCount = this.subdividedPositions.size();
+            final double[] vertices = new double[2 * vertexCount];
+            for (int i = 0; i < vertexCount; i++) {
+                LatLon location = this.subdividedPositions.get(i);
+                vertices[2 * i] = location.lat;
+                vertices[2 * i + 1] = location.lon;
+            }
+
+            int rowsPerTask = Math.max(1, AreaMeasurer.CELL_BATCH_SIZE / lonSteps);
+            return LengthMeasurer.sumRanges(latSteps, rowsPerTask, (startRow, endRow) -> {
+                double area = 0;
+                double[] crossings = new double[vertexCount];
+                for (int i = startRow; i < endRow; i++) {
+                    double lat = sectorLatMinRadians + latStepRadians * i;
+                    // Compute this latitude row cells area
+                    double radius = globe.getRadiusAt(Angle.fromRadians(lat + latStepRadians / 2),
+                        sectorCentroidLon);
+                    double cellWidth = lonStepRadians * radius * Math.cos(lat + latStepRadians / 2);
+                    double cellHeight = latStepRadians * radius;
+                    double cellArea = cellWidth * cellHeight;
+
+                    // Select cells which center is inside the shape: a cell center is inside when an odd number of
+                    // path edges cross this row's center latitude east of it, as in WWMath.isLocationInside.
+                    int crossingCount = AreaMeasurer.computeCrossings(vertices, Math.toDegrees(lat + latStepRadians / 2),
+                        crossings);
+                    Arrays.sort(crossings, 0, crossingCount);
+                    int crossingsWest = 0;
+                    for (int j = 0; j < lonSteps; j++) {
+                        double lon = Math.toDegrees(sectorLonMinRadians + lonStepRadians * j + lonStepRadians / 2);
+                        while (crossingsWest < crossingCount && crossings[crossingsWest] <= lon) {
+                            crossingsWest++;
                         }
-                        // Add cell area
-                        area += cell.surfaceArea;
+                        if (((crossingCount - crossingsWest) & 1) == 0)
+                            continue;
+
+                        // Compute surface area using terrain normal in SW corner
+                        double eleSW = elevations[j + i * columns];
+                        double dzx = (elevations[j + 1 + i * columns] - eleSW) / cellWidth;
+                        double dzy = (elevations[j + (i + 1) * columns] - eleSW) / cellHeight;
+                        // The slope factor is the secant of the angle between the normal and the vertical
+                        area += cellArea * Math.sqrt(1 + dzx * dzx + dzy * dzy);
                     }
                 }
-            }
-            return area;
+                return area;
+            });
         }
         return -1;
     }
 
-    // *** Computing area ******************************************************************
-    protected static class Cell {
-
-        final Sector sector;
-        final double projectedArea;
-        final double surfaceArea;
+    /**
+     * Returns the elevations at the corners of the sampling grid, retrieving them from the globe by batch elevation
+     * queries if they are not cached for the specified grid dimensions.
+     *
+     * @param globe          the globe to draw elevations from.
+     * @param sector         the sector covered by the grid.
+     * @param latSteps       the number of grid rows.
+     * @param lonSteps       the number of grid columns.
+     * @param latStepRadians the grid row height, in radians.
+     * @param lonStepRadians the grid column width, in radians.
+     * @return the grid corner elevations, ordered row-major from the grid's south-west corner.
+     */
+    protected double[] getSectorElevations(Globe globe, Sector sector, int latSteps, int lonSteps,
+        double latStepRadians, double lonStepRadians) {
+        int rows = latSteps + 1;
+        int columns = lonSteps + 1;
+        double[] elevations = this.sectorElevations;
+        if (elevations != null && this.sectorElevationRows == rows && this.sectorElevationColumns == columns)
+            return elevations;
+
+        final double[] grid = new double[rows * columns];
+        final double latMin = toRadians(sector.latMin);
+        final double lonMin = toRadians(sector.lonMin);
+        int rowsPerBatch = Math.max(1, LengthMeasurer.ELEVATION_BATCH_SIZE / columns);
+        LengthMeasurer.sumRanges(rows, rowsPerBatch, (startRow, endRow) -> {
+            List<LatLon> locations = new ArrayList<>((endRow - startRow) * columns);
+            for (int i = startRow; i < endRow; i++) {
+                double lat = latMin + latStepRadians * i;
+                for (int j = 0; j < columns; j++) {
+                    locations.add(LatLon.fromRadians(lat, lonMin + lonStepRadians * j));
+                }
+            }
+            double[] buffer = new double[locations.size()];
+            globe.getElevations(Sector.boundingSector(locations), locations, Math.min(latStepRadians, lonStepRadians),
+                buffer);
+            System.arraycopy(buffer, 0, grid, startRow * columns, buffer.length);
+            return 0;
+        });
+
+        this.sectorElevations = grid;
+        this.sectorElevationRows = rows;
+        this.sectorElevationColumns = columns;
+        return grid;
+    }
 
-        public Cell(Sector sector, double projected, double surface) {
-            this.sector = sector;
-            this.projectedArea = projected;
-            this.surfaceArea = surface;
+    /**
+     * Computes the longitudes at which a closed path crosses a latitude, counting edges the same way as {@link
+     * WWMath#isLocationInside(LatLon, Iterable)}.
+     *
+     * @param vertices  the path vertices as latitude and longitude pairs, in degrees. The last vertex equals the first.
+     * @param latitude  the latitude, in degrees.
+     * @param crossings the array to receive the crossing longitudes, in degrees.
+     * @return the number of crossings.
+     */
+    protected static int computeCrossings(double[] vertices, double latitude, double[] crossings) {
+        int count = 0;
+        double lat1 = vertices[0];
+        double lon1 = vertices[1];
+        for (int i = 2; i < vertices.length; i += 2) {
+            double lat2 = vertices[i];
+            double lon2 = vertices[i + 1];
+            if ((lat2 <= latitude && latitude < lat1) || (lat1 <= latitude && latitude < lat2))
+                crossings[count++] = (lon1 - lon2) * (latitude - lat2) / (lat1 - lat2) + lon2;
+            lat1 = lat2;
+            lon1 = lon2;
         }
+        return count;
     }
 
 // Below code is an attempt at computing the surface area using geometry.
@@ -6,12 +6,15 @@
 package gov.nasa.worldwind.util.measure;
 
 import gov.nasa.worldwind.Keys;
+import gov.nasa.worldwind.exception.WWRuntimeException;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.globes.Globe;
 import gov.nasa.worldwind.render.Polyline;
 import gov.nasa.worldwind.util.Logging;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
 
 import static gov.nasa.worldwind.util.WWUtil.sizeEstimate;
 
@@ -28,7 +31,8 @@ import static gov.nasa.worldwind.util.WWUtil.sizeEstimate;
  * <p>
  * When following terrain the measurer will sample terrain elevations at regular intervals along the path. The minimum
  * number of samples used for the whole length can be set with setLengthTerrainSamplingSteps(). However, the minimum
- * sampling interval is 30 meters.
+ * sampling interval is 30 meters. Elevations are retrieved from the globe in batches, and long paths are measured in
+ * parallel chunks of segments on the common fork-join pool.
  *
  * @author Patrick Murris
  * @version $Id: LengthMeasurer.java 2261 2014-08-23 00:31:54Z tgaskins $
@@ -39,6 +43,14 @@ public class LengthMeasurer implements MeasurableLength {
     private static final double DEFAULT_TERRAIN_SAMPLING_STEPS = 128; // number of samples when following terrain
     private static final double DEFAULT_MAX_SEGMENT_LENGTH = 100.0e3; // size above which segments are subdivided
     private static final double DEFAULT_MIN_SEGMENT_LENGTH = 30; // minimum length of a terrain following subdivision
+    /**
+     * The number of locations whose elevations are retrieved from the globe by each batch elevation query.
+     */
+    protected static final int ELEVATION_BATCH_SIZE = 1024;
+    /**
+     * The number of path segments measured by each parallel task.
+     */
+    protected static final int SEGMENT_BATCH_SIZE = 4096;
     protected double length = -1;
     private List<? extends Position> positions;
     private List<? extends Position> subdividedPositions;
@@ -102,11 +114,13 @@ public class LengthMeasurer implements MeasurableLength {
             return positions;
         }
 
+        // When following terrain, positions are first added at elevation zero, then given terrain elevations by batch
+        // elevation queries once the whole path has been subdivided.
         ArrayList<Position> newPositions = new ArrayList<>();
         // Add first position
         Position pos1 = positions.get(start);
         if (followTerrain) {
-            newPositions.add(new Position(pos1, globe.elevation(pos1.getLat(), pos1.getLon())));
+            newPositions.add(new Position(pos1, 0));
         } else {
             newPositions.add(pos1);
         }
@@ -149,7 +163,7 @@ public class LengthMeasurer implements MeasurableLength {
                     // Set elevation
                     double elevation;
                     if (followTerrain) {
-                        elevation = globe.elevation(destLatLon.getLat(), destLatLon.getLon());
+                        elevation = 0;
                     } else {
                         elevation = pos1.getElevation() * (1 - s) + pos2.getElevation() * s;
                     }
@@ -159,16 +173,92 @@ public class LengthMeasurer implements MeasurableLength {
             }
             // Finally add the segment end position
             if (followTerrain) {
-                newPositions.add(new Position(pos2, globe.elevation(pos2.getLat(), pos2.getLon())));
+                newPositions.add(new Position(pos2, 0));
             } else {
                 newPositions.add(pos2);
             }
             // Prepare for next segment
             pos1 = pos2;
         }
+
+        if (followTerrain) {
+            // Sample the terrain no finer than the subdivided segments.
+            double[] elevations = LengthMeasurer.computeElevations(globe, newPositions, maxLength / globe.getRadius());
+            for (int i = 0; i < elevations.length; i++) {
+                newPositions.set(i, new Position(newPositions.get(i), elevations[i]));
+            }
+        }
+
         return newPositions;
     }
 
+    /**
+     * Retrieves the terrain elevations of a list of locations by batch elevation queries, running the batches in
+     * parallel when there is more than one.
+     *
+     * @param globe            the globe to draw elevations from.
+     * @param locations        the locations.
+     * @param targetResolution the desired elevation resolution, in radians.
+     * @return the elevation of each location, in meters.
+     */
+    protected static double[] computeElevations(Globe globe, List<? extends LatLon> locations,
+        double targetResolution) {
+        double[] elevations = new double[locations.size()];
+
+        LengthMeasurer.sumRanges(locations.size(), LengthMeasurer.ELEVATION_BATCH_SIZE, (start, end) -> {
+            List<? extends LatLon> batch = locations.subList(start, end);
+            double[] buffer = new double[batch.size()];
+            globe.getElevations(Sector.boundingSector(batch), batch, targetResolution, buffer);
+            System.arraycopy(buffer, 0, elevations, start, buffer.length);
+            return 0;
+        });
+
+        return elevations;
+    }
+
+    /**
+     * Splits the range [0, count) into consecutive ranges of at most rangeSize elements, applies a function to each,
+     * and returns the sum of the function's results. Ranges are computed in parallel on the common fork-join pool when
+     * there is more than one, and their results are summed in range order.
+     *
+     * @param count     the number of elements.
+     * @param rangeSize the maximum number of elements in each range.
+     * @param function  the function computing each range's value.
+     * @return the sum of the ranges' values.
+     * @throws WWRuntimeException if a range's computation fails or is interrupted.
+     */
+    protected static double sumRanges(int count, int rangeSize, RangeFunction function) {
+        if (count <= rangeSize)
+            return count > 0 ? function.apply(0, count) : 0;
+
+        List<Callable<Double>> tasks = new ArrayList<>(count / rangeSize + 1);
+        for (int start = 0; start < count; start += rangeSize) {
+            int rangeStart = start;
+            int rangeEnd = Math.min(start + rangeSize, count);
+            tasks.add(() -> function.apply(rangeStart, rangeEnd));
+        }
+
+        double sum = 0;
+        try {
+            for (Future<Double> future : ForkJoinPool.commonPool().invokeAll(tasks)) {
+                sum += future.get();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            String msg = Logging.getMessage("generic.ExceptionWhileMeasuring", count);
+            Logging.logger().log(Level.SEVERE, msg, e);
+            throw new WWRuntimeException(msg, e);
+        }
+        catch (ExecutionException e) {
+            String msg = Logging.getMessage("generic.ExceptionWhileMeasuring", count);
+            Logging.logger().log(Level.SEVERE, msg, e.getCause());
+            throw new WWRuntimeException(msg, e.getCause());
+        }
+
+        return sum;
+    }
+
     protected void clearCachedValues() {
         this.subdividedPositions = null;
         this.length = -1;
@@ -426,15 +516,30 @@ public class LengthMeasurer implements MeasurableLength {
         }
 
         // Sum each segment length
-        double length = 0;
-        Vec4 p1 = globe.computeEllipsoidalPointFromPosition(this.subdividedPositions.get(0));
-        final int sps = subdividedPositions.size();
-        for (int i = 1; i < sps; i++) {
-            Vec4 p2 = globe.computeEllipsoidalPointFromPosition(this.subdividedPositions.get(i));
-            length += p1.distanceTo3(p2);
-            p1 = p2;
-        }
+        final List<? extends Position> positions = this.subdividedPositions;
+        return LengthMeasurer.sumRanges(positions.size() - 1, LengthMeasurer.SEGMENT_BATCH_SIZE, (start, end) -> {
+            double length = 0;
+            Vec4 p1 = globe.computeEllipsoidalPointFromPosition(positions.get(start));
+            for (int i = start + 1; i <= end; i++) {
+                Vec4 p2 = globe.computeEllipsoidalPointFromPosition(positions.get(i));
+                length += p1.distanceTo3(p2);
+                p1 = p2;
+            }
+            return length;
+        });
+    }
 
-        return length;
+    /**
+     * Computes a value for a range of elements. See {@link #sumRanges(int, int, RangeFunction)}.
+     */
+    protected interface RangeFunction {
+        /**
+         * Computes the value of a range of elements.
+         *
+         * @param start the range's first element, inclusive.
+         * @param end   the range's last element, exclusive.
+         * @return the range's value.
+         */
+        double apply(int start, int end);
     }
 }
\ No newline at end of file
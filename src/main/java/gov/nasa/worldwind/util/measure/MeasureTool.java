@@ -16,6 +16,8 @@ import gov.nasa.worldwind.util.*;
 import java.awt.*;
 import java.awt.geom.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
 
 /**
  * A utility class to interactively draw shapes and measure distance and area across the terrain. When armed, the class
@@ -66,6 +68,14 @@ import java.util.*;
  * The application can read the measured length or area by calling the <code>MeasureTool</code> {@link #getLength()} or
  * {@link #getArea()} method. These methods will return -1 when no value is available.</p>
  * <p>
+ * When the tool follows terrain, the area is computed on a background thread by default, so {@link #getArea()}
+ * returns immediately with the most recent estimate, or -1 while the first estimate is computed ({@link
+ * #isComputingArea()} distinguishes the two cases). The annotation shows the {@link #COMPUTING_LABEL} text until then,
+ * and listeners receive an {@link #EVENT_METRIC_CHANGED} event as each finer estimate arrives. Applications that read
+ * the area right after changing the shape and need the final value should call {@link
+ * #setMeasureAsynchronously(boolean)} with false, which restores the earlier behavior of computing the area on the
+ * calling thread.</p>
+ * <p>
  * Regular shapes are defined by a center position, a width a height and a heading angle. Those attributes can be
  * accessed by calling the {@link #getCenterPosition()}, {@link #getWidth()}, {@link #getHeight()} and {@link
  * #getOrientation()} methods.</p>
@@ -119,6 +129,7 @@ public class MeasureTool extends KVMap implements Disposable {
     public static final String HEADING_LABEL = "MeasureTool.HeadingLabel";
     public static final String CENTER_LATITUDE_LABEL = "MeasureTool.CenterLatitudeLabel";
     public static final String CENTER_LONGITUDE_LABEL = "MeasureTool.CenterLongitudeLabel";
+    public static final String COMPUTING_LABEL = "MeasureTool.ComputingLabel";
     public static final String LATITUDE_LABEL = "MeasureTool.LatitudeLabel";
     public static final String LONGITUDE_LABEL = "MeasureTool.LongitudeLabel";
     public static final String ACCUMULATED_LABEL = "MeasureTool.AccumulatedLabel";
@@ -166,6 +177,8 @@ public class MeasureTool extends KVMap implements Disposable {
     protected boolean followTerrain;
     protected boolean showControlPoints = true;
     protected boolean showAnnotation = true;
+    protected boolean measureAsynchronously = true;
+    protected AreaMeasurement areaMeasurement;
     protected UnitsFormat unitsFormat = new UnitsFormat();
     // Rectangle enclosed regular shapes attributes
     protected Rectangle2D.Double shapeRectangle;
@@ -445,6 +458,7 @@ public class MeasureTool extends KVMap implements Disposable {
         this.setLabel(MeasureTool.AREA_LABEL, Logging.getMessage(MeasureTool.AREA_LABEL));
         this.setLabel(MeasureTool.CENTER_LATITUDE_LABEL, Logging.getMessage(MeasureTool.CENTER_LATITUDE_LABEL));
         this.setLabel(MeasureTool.CENTER_LONGITUDE_LABEL, Logging.getMessage(MeasureTool.CENTER_LONGITUDE_LABEL));
+        this.setLabel(MeasureTool.COMPUTING_LABEL, Logging.getMessage(MeasureTool.COMPUTING_LABEL));
         this.setLabel(MeasureTool.HEADING_LABEL, Logging.getMessage(MeasureTool.HEADING_LABEL));
         this.setLabel(MeasureTool.HEIGHT_LABEL, Logging.getMessage(MeasureTool.HEIGHT_LABEL));
         this.setLabel(MeasureTool.LATITUDE_LABEL, Logging.getMessage(MeasureTool.LATITUDE_LABEL));
@@ -802,6 +816,7 @@ public class MeasureTool extends KVMap implements Disposable {
         this.shapeCenterPosition = null;
         this.shapeOrientation = null;
         this.shapeRectangle = null;
+        this.cancelAreaMeasurement();
     }
 
     public boolean isMeasureShape(Object o) {
@@ -1045,16 +1060,131 @@ public class MeasureTool extends KVMap implements Disposable {
         return -1;
     }
 
+    /**
+     * Returns the area of the measure shape. When the tool follows terrain and measures asynchronously, which it does
+     * by default, the terrain following area is computed on a background thread and this returns its most recent
+     * estimate, or -1 until the first estimate is available; see {@link #isComputingArea()}. The annotation is
+     * refreshed as finer estimates arrive. Earlier versions always computed the area on the calling thread, which
+     * {@link #setMeasureAsynchronously(boolean)} restores.
+     *
+     * @return the area of the measure shape, in square meters, or -1 if no value is available.
+     * @see #setMeasureAsynchronously(boolean)
+     */
     public double getArea() {
         Globe globe = this.wwd.model().globe();
 
         if (this.surfaceShape != null) {
+            if (this.followTerrain && this.measureAsynchronously) {
+                return this.getTerrainArea(globe);
+            }
+
             return this.surfaceShape.getArea(globe, this.followTerrain);
         }
 
         return -1;
     }
 
+    public boolean isMeasureAsynchronously() {
+        return this.measureAsynchronously;
+    }
+
+    /**
+     * Specifies whether the terrain following area is computed on a background thread. When enabled, {@link #getArea()}
+     * returns progressively refined estimates rather than blocking until terrain sampling completes. The default is
+     * true.
+     *
+     * @param measureAsynchronously true to compute the terrain following area on a background thread, false to compute
+     *                              it on the calling thread.
+     */
+    public void setMeasureAsynchronously(boolean measureAsynchronously) {
+        this.measureAsynchronously = measureAsynchronously;
+        if (!measureAsynchronously) {
+            this.cancelAreaMeasurement();
+        }
+    }
+
+    /**
+     * Indicates whether the terrain following area of the measure shape is being computed on a background thread.
+     *
+     * @return true if a background area computation is in progress, otherwise false.
+     * @see #getArea()
+     */
+    public boolean isComputingArea() {
+        AreaMeasurement measurement = this.areaMeasurement;
+        return measurement != null && measurement.future != null && !measurement.future.isDone();
+    }
+
+    protected double getTerrainArea(Globe globe) {
+        ArrayList<LatLon> locations = new ArrayList<>();
+        Iterable<? extends LatLon> shapeLocations = this.surfaceShape.getLocations(globe);
+        if (shapeLocations != null) {
+            for (LatLon ll : shapeLocations) {
+                locations.add(ll);
+            }
+        }
+
+        int n = locations.size();
+        if (n > 1 && !locations.get(0).equals(locations.get(n - 1))) {
+            locations.add(locations.get(0));
+        }
+
+        // Start a new measurement when the shape has changed since the current one started.
+        AreaMeasurement measurement = this.areaMeasurement;
+        if (measurement == null || measurement.globe != globe || !measurement.locations.equals(locations)) {
+            this.cancelAreaMeasurement();
+            measurement = new AreaMeasurement(globe, locations);
+            this.areaMeasurement = measurement;
+            this.startAreaMeasurement(measurement);
+        }
+
+        return measurement.area;
+    }
+
+    protected void startAreaMeasurement(AreaMeasurement measurement) {
+        AreaMeasurer measurer = new AreaMeasurer();
+        measurer.setPositions(measurement.locations, 0);
+        // Surface shapes follow the terrain by definition.
+        measurer.setFollowTerrain(true);
+
+        measurement.future = measurer.computeAreaAsync(measurement.globe, area -> {
+            measurement.area = area;
+            EventQueue.invokeLater(() -> this.onAreaEstimate(measurement));
+        });
+        measurement.future.whenComplete((area, e) -> {
+            if (e != null && !measurement.future.isCancelled()) {
+                Logging.logger().log(Level.WARNING, Logging.getMessage("generic.ExceptionWhileMeasuring",
+                    measurement.locations.size()), e);
+            }
+        });
+    }
+
+    /**
+     * Called on the event dispatch thread when an asynchronous area measurement produces a new estimate. Refreshes the
+     * annotation and notifies listeners that the metrics changed.
+     *
+     * @param measurement the measurement that produced the estimate.
+     */
+    protected void onAreaEstimate(AreaMeasurement measurement) {
+        if (measurement != this.areaMeasurement) {
+            return;
+        }
+
+        if (this.annotation.getAttributes().isVisible()) {
+            this.updateAnnotation(this.annotation.getPosition());
+        }
+
+        this.emit(MeasureTool.EVENT_METRIC_CHANGED, null, null);
+        this.wwd.redraw();
+    }
+
+    protected void cancelAreaMeasurement() {
+        AreaMeasurement measurement = this.areaMeasurement;
+        this.areaMeasurement = null;
+        if (measurement != null && measurement.future != null) {
+            measurement.future.cancel(false);
+        }
+    }
+
     public double getWidth() {
         if (this.shapeRectangle != null) {
             return this.shapeRectangle.width;
@@ -1866,6 +1996,7 @@ public class MeasureTool extends KVMap implements Disposable {
         this.layer.clear();
         this.shapeLayer.clear();
         this.controlPoints.clear();
+        this.cancelAreaMeasurement();
     }
 
     protected void addControlPoint(Position position, String key, Object value) {
@@ -1928,10 +2059,25 @@ public class MeasureTool extends KVMap implements Disposable {
         return displayString;
     }
 
+    /**
+     * Formats the area line of the annotation. While the first estimate of a terrain following area is computed on a
+     * background thread, the line shows the {@link #COMPUTING_LABEL} text instead of a value.
+     *
+     * @return the formatted area, followed by a new line.
+     */
+    protected String formatAreaNL() {
+        double area = this.getArea();
+        if (area < 0 && this.isComputingArea()) {
+            return this.getLabel(MeasureTool.AREA_LABEL) + ' ' + this.getLabel(MeasureTool.COMPUTING_LABEL) + '\n';
+        }
+
+        return this.unitsFormat.areaNL(this.getLabel(MeasureTool.AREA_LABEL), area);
+    }
+
     protected String formatCircleMeasurements(Position pos) {
         StringBuilder sb = new StringBuilder();
 
-        sb.append(this.unitsFormat.areaNL(this.getLabel(MeasureTool.AREA_LABEL), this.getArea()));
+        sb.append(this.formatAreaNL());
         sb.append(this.unitsFormat.lengthNL(this.getLabel(MeasureTool.PERIMETER_LABEL), this.getLength()));
 
         if (this.shapeRectangle != null) {
@@ -1956,7 +2102,7 @@ public class MeasureTool extends KVMap implements Disposable {
     protected String formatEllipseMeasurements(Position pos) {
         StringBuilder sb = new StringBuilder();
 
-        sb.append(this.unitsFormat.areaNL(this.getLabel(MeasureTool.AREA_LABEL), this.getArea()));
+        sb.append(this.formatAreaNL());
         sb.append(this.unitsFormat.lengthNL(this.getLabel(MeasureTool.PERIMETER_LABEL), this.getLength()));
 
         if (this.shapeRectangle != null) {
@@ -1986,7 +2132,7 @@ public class MeasureTool extends KVMap implements Disposable {
     protected String formatSquareMeasurements(Position pos) {
         StringBuilder sb = new StringBuilder();
 
-        sb.append(this.unitsFormat.areaNL(this.getLabel(MeasureTool.AREA_LABEL), this.getArea()));
+        sb.append(this.formatAreaNL());
         sb.append(this.unitsFormat.lengthNL(this.getLabel(MeasureTool.PERIMETER_LABEL), this.getLength()));
 
         if (this.shapeRectangle != null) {
@@ -2015,7 +2161,7 @@ public class MeasureTool extends KVMap implements Disposable {
     protected String formatQuadMeasurements(Position pos) {
         StringBuilder sb = new StringBuilder();
 
-        sb.append(this.unitsFormat.areaNL(this.getLabel(MeasureTool.AREA_LABEL), this.getArea()));
+        sb.append(this.formatAreaNL());
         sb.append(this.unitsFormat.lengthNL(this.getLabel(MeasureTool.PERIMETER_LABEL), this.getLength()));
 
         if (this.shapeRectangle != null) {
@@ -2045,7 +2191,7 @@ public class MeasureTool extends KVMap implements Disposable {
     protected String formatPolygonMeasurements(Position pos) {
         StringBuilder sb = new StringBuilder();
 
-        sb.append(this.unitsFormat.areaNL(this.getLabel(MeasureTool.AREA_LABEL), this.getArea()));
+        sb.append(this.formatAreaNL());
         sb.append(this.unitsFormat.lengthNL(this.getLabel(MeasureTool.PERIMETER_LABEL), this.getLength()));
 
         if (this.getCenterPosition() != null && areLocationsRedundant(this.getCenterPosition(), pos)) {
@@ -2232,4 +2378,20 @@ public class MeasureTool extends KVMap implements Disposable {
             this.leaderLine.setLocations(Arrays.asList(begin, end));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * A terrain following area computed on a background thread for a set of shape locations.
+     */
+    protected static class AreaMeasurement {
+
+        protected final Globe globe;
+        protected final ArrayList<LatLon> locations;
+        protected volatile double area = -1;
+        protected CompletableFuture<Double> future;
+
+        public AreaMeasurement(Globe globe, ArrayList<LatLon> locations) {
+            this.globe = globe;
+            this.locations = locations;
+        }
+    }
+}
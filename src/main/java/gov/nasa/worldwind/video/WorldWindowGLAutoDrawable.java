@@ -132,7 +132,9 @@ public class WorldWindowGLAutoDrawable extends WWObjectImpl implements WorldWind
 
         g.addGLEventListener(this);
 
-        WorldWindow.configureIdentityPixelScale((ScalableSurface) g);
+        // Offscreen drawables have no window system surface to scale.
+        if (g instanceof ScalableSurface)
+            WorldWindow.configureIdentityPixelScale((ScalableSurface) g);
 
         WorldWindow.createView(w);
     }
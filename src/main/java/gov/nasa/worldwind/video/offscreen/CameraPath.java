@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.video.offscreen;
+
+import gov.nasa.worldwind.View;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.util.*;
+
+import java.util.*;
+
+/**
+ * A scripted camera path through a sequence of keyframes, each an eye position, heading and pitch. Positions between
+ * keyframes follow the great circle between their locations, with altitude interpolated geometrically so zooming in
+ * and out proceeds at a constant rate. Headings and pitches are interpolated along the shortest arc. A path depends
+ * only on its keyframes, so frames rendered along it are the same from run to run.
+ */
+public class CameraPath {
+    /**
+     * An eye position, heading and pitch on a camera path.
+     */
+    public static class Keyframe {
+        protected final Position eyePosition;
+        protected final Angle heading;
+        protected final Angle pitch;
+
+        public Keyframe(Position eyePosition, Angle heading, Angle pitch) {
+            if (eyePosition == null) {
+                String msg = Logging.getMessage("nullValue.PositionIsNull");
+                Logging.logger().severe(msg);
+                throw new IllegalArgumentException(msg);
+            }
+
+            if (heading == null || pitch == null) {
+                String msg = Logging.getMessage("nullValue.AngleIsNull");
+                Logging.logger().severe(msg);
+                throw new IllegalArgumentException(msg);
+            }
+
+            this.eyePosition = eyePosition;
+            this.heading = heading;
+            this.pitch = pitch;
+        }
+
+        public Position getEyePosition() {
+            return this.eyePosition;
+        }
+
+        public Angle getHeading() {
+            return this.heading;
+        }
+
+        public Angle getPitch() {
+            return this.pitch;
+        }
+    }
+
+    protected final List<Keyframe> keyframes = new ArrayList<>();
+
+    public CameraPath() {
+    }
+
+    /**
+     * Creates a path circling a location at a fixed altitude and pitch, looking toward the location.
+     *
+     * @param center       the location to circle.
+     * @param radius       the circle's radius, as an angular distance.
+     * @param altitude     the eye's altitude, in meters.
+     * @param pitch        the eye's pitch.
+     * @param numKeyframes the number of keyframes around the circle.
+     * @return the orbit path, beginning and ending at the circle's southernmost point.
+     * @throws IllegalArgumentException if any argument is null or the number of keyframes is less than 3.
+     */
+    public static CameraPath orbit(LatLon center, Angle radius, double altitude, Angle pitch, int numKeyframes) {
+        if (center == null) {
+            String msg = Logging.getMessage("nullValue.LatLonIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (radius == null || pitch == null) {
+            String msg = Logging.getMessage("nullValue.AngleIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (numKeyframes < 3) {
+            String msg = Logging.getMessage("generic.ArgumentOutOfRange", "numKeyframes < 3");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        CameraPath path = new CameraPath();
+        for (int i = 0; i <= numKeyframes; i++) {
+            Angle bearing = new Angle(180 + 360.0 * i / numKeyframes); // from the center to the eye
+            LatLon eye = LatLon.greatCircleEndPosition(center, bearing, radius);
+            path.add(new Position(eye, altitude), LatLon.greatCircleAzimuth(eye, center), pitch);
+        }
+
+        return path;
+    }
+
+    /**
+     * Adds a keyframe to the end of the path.
+     *
+     * @param eyePosition the eye's position.
+     * @param heading     the eye's heading.
+     * @param pitch       the eye's pitch.
+     * @return this path.
+     * @throws IllegalArgumentException if any argument is null.
+     */
+    public CameraPath add(Position eyePosition, Angle heading, Angle pitch) {
+        this.keyframes.add(new Keyframe(eyePosition, heading, pitch));
+        return this;
+    }
+
+    public List<Keyframe> getKeyframes() {
+        return Collections.unmodifiableList(this.keyframes);
+    }
+
+    /**
+     * Computes the camera at a point along the path. Each segment between adjacent keyframes covers an equal share of
+     * the path.
+     *
+     * @param amount the point along the path, from 0 at the first keyframe to 1 at the last. Values outside that range
+     *               are clamped.
+     * @return the camera at the point.
+     * @throws IllegalStateException if the path has no keyframes.
+     */
+    public Keyframe interpolate(double amount) {
+        if (this.keyframes.isEmpty()) {
+            String msg = Logging.getMessage("generic.ListIsEmpty");
+            Logging.logger().severe(msg);
+            throw new IllegalStateException(msg);
+        }
+
+        int segments = this.keyframes.size() - 1;
+        double t = WWMath.clamp(amount, 0, 1) * segments;
+        int index = Math.min((int) t, segments);
+        if (index == segments)
+            return this.keyframes.get(segments);
+
+        Keyframe k0 = this.keyframes.get(index);
+        Keyframe k1 = this.keyframes.get(index + 1);
+        double a = t - index;
+
+        Position p0 = k0.eyePosition;
+        Position p1 = k1.eyePosition;
+        LatLon location = LatLon.interpolateGreatCircle(a, p0, p1);
+        double altitude = p0.elevation > 0 && p1.elevation > 0
+            ? Math.exp(WWMath.mix(a, Math.log(p0.elevation), Math.log(p1.elevation)))
+            : WWMath.mix(a, p0.elevation, p1.elevation);
+
+        return new Keyframe(new Position(location, altitude), Angle.mix(a, k0.heading, k1.heading),
+            Angle.mix(a, k0.pitch, k1.pitch));
+    }
+
+    /**
+     * Moves a view to a point along the path, stopping any animation or movement the view is performing.
+     *
+     * @param view   the view to move.
+     * @param amount the point along the path, from 0 at the first keyframe to 1 at the last.
+     * @throws IllegalArgumentException if the view is null.
+     * @throws IllegalStateException    if the path has no keyframes.
+     */
+    public void apply(View view, double amount) {
+        if (view == null) {
+            String msg = Logging.getMessage("nullValue.ViewIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        Keyframe keyframe = this.interpolate(amount);
+        view.stopAnimations();
+        view.stopMovement();
+        view.setEyePosition(keyframe.eyePosition);
+        view.setHeading(keyframe.heading);
+        view.setPitch(keyframe.pitch);
+    }
+}
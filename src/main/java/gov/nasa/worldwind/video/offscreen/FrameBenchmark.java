@@ -0,0 +1,502 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.video.offscreen;
+
+import com.fasterxml.jackson.core.*;
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.util.Logging;
+import gov.nasa.worldwind.util.instrument.*;
+
+import javax.imageio.ImageIO;
+import java.io.*;
+import java.util.*;
+
+/**
+ * Renders frames along a {@link CameraPath} in a {@link WorldWindowOffscreen} and records each frame's time, layer
+ * timings and memory use. Before each measured frame the benchmark moves the view to the frame's point on the path and
+ * renders until the scene settles: until no redraw is requested and the retrieval and task services are idle. The
+ * measured frame therefore draws the same data on every run, and with {@link #setOfflineMode(boolean)} that data comes
+ * only from the local file store. Settling is bounded by {@link #setSettleTimeout(long)} and {@link
+ * #setSettleFrameLimit(int)} so that layers which never stop requesting redraws cannot stall a run.
+ * <p>
+ * Layer timings, allocation and GPU uploads come from the scene controller's {@link FrameRecorder}, so the benchmark
+ * enables {@link Instrumentation} while it runs.
+ */
+public class FrameBenchmark {
+    /**
+     * The measurements of one frame.
+     */
+    public static class FrameSample {
+        protected final int index;
+        protected final double pathAmount;
+        protected final int settleFrames;
+        protected final boolean settled;
+        protected final long frameNanos;
+        protected final long heapUsedBytes;
+        protected final FrameSnapshot snapshot;
+
+        public FrameSample(int index, double pathAmount, int settleFrames, boolean settled, long frameNanos,
+            long heapUsedBytes, FrameSnapshot snapshot) {
+            this.index = index;
+            this.pathAmount = pathAmount;
+            this.settleFrames = settleFrames;
+            this.settled = settled;
+            this.frameNanos = frameNanos;
+            this.heapUsedBytes = heapUsedBytes;
+            this.snapshot = snapshot;
+        }
+
+        public int getIndex() {
+            return this.index;
+        }
+
+        public double getPathAmount() {
+            return this.pathAmount;
+        }
+
+        /**
+         * @return the number of frames rendered to settle the scene before this frame.
+         */
+        public int getSettleFrames() {
+            return this.settleFrames;
+        }
+
+        /**
+         * @return true if the scene settled before this frame, false if settling reached its time or frame limit.
+         */
+        public boolean isSettled() {
+            return this.settled;
+        }
+
+        /**
+         * @return the frame's duration including the GPU's work, in nanoseconds.
+         */
+        public long getFrameNanos() {
+            return this.frameNanos;
+        }
+
+        public long getHeapUsedBytes() {
+            return this.heapUsedBytes;
+        }
+
+        /**
+         * @return the scene controller's measurements of the frame, or null if it recorded none.
+         */
+        public FrameSnapshot getSnapshot() {
+            return this.snapshot;
+        }
+
+        public long getAllocatedBytes() {
+            return this.snapshot != null ? this.snapshot.getAllocatedBytes() : -1;
+        }
+
+        public long getGpuUploadBytes() {
+            return this.snapshot != null ? this.snapshot.getGpuUploadBytes() : -1;
+        }
+
+        public List<LayerTiming> getLayerTimings() {
+            return this.snapshot != null ? this.snapshot.getLayerTimings() : Collections.emptyList();
+        }
+    }
+
+    /**
+     * The samples of one benchmark run, with summary statistics.
+     */
+    public static class Result {
+        protected final String name;
+        protected final int width;
+        protected final int height;
+        protected final List<FrameSample> samples;
+
+        public Result(String name, int width, int height, List<FrameSample> samples) {
+            this.name = name;
+            this.width = width;
+            this.height = height;
+            this.samples = Collections.unmodifiableList(samples);
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public List<FrameSample> getSamples() {
+            return this.samples;
+        }
+
+        public long[] getFrameNanos() {
+            return this.samples.stream().mapToLong(FrameSample::getFrameNanos).toArray();
+        }
+
+        /**
+         * Returns a percentile of a set of values, using the nearest rank.
+         *
+         * @param values     the values.
+         * @param percentile the percentile, from 0 to 100.
+         * @return the value at the percentile, or 0 if there are no values.
+         */
+        public static long percentile(long[] values, double percentile) {
+            if (values.length == 0)
+                return 0;
+
+            long[] sorted = values.clone();
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+            return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+        }
+
+        /**
+         * Writes the result as a JSON object holding the run's summary statistics, the mean time of each layer and the
+         * measurements of every frame.
+         *
+         * @param out the stream to write to. The stream is not closed.
+         * @throws IOException if writing fails.
+         */
+        public void writeJSON(OutputStream out) throws IOException {
+            JsonGenerator gen = new JsonFactory().createGenerator(out, JsonEncoding.UTF8);
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            gen.useDefaultPrettyPrinter();
+
+            gen.writeStartObject();
+            gen.writeStringField("name", this.name);
+            gen.writeNumberField("width", this.width);
+            gen.writeNumberField("height", this.height);
+            gen.writeNumberField("frames", this.samples.size());
+            gen.writeNumberField("unsettledFrames", this.samples.stream().filter(s -> !s.isSettled()).count());
+            Result.writeSummary(gen, "frameNanos", this.getFrameNanos());
+            Result.writeSummary(gen, "allocatedBytes",
+                this.samples.stream().mapToLong(FrameSample::getAllocatedBytes).toArray());
+            Result.writeSummary(gen, "gpuUploadBytes",
+                this.samples.stream().mapToLong(FrameSample::getGpuUploadBytes).toArray());
+            Result.writeSummary(gen, "heapUsedBytes",
+                this.samples.stream().mapToLong(FrameSample::getHeapUsedBytes).toArray());
+
+            gen.writeObjectFieldStart("meanLayerNanos");
+            for (Map.Entry<String, Long> entry : this.getMeanLayerNanos().entrySet()) {
+                gen.writeNumberField(entry.getKey(), entry.getValue());
+            }
+            gen.writeEndObject();
+
+            gen.writeArrayFieldStart("samples");
+            for (FrameSample sample : this.samples) {
+                gen.writeStartObject();
+                gen.writeNumberField("index", sample.index);
+                gen.writeNumberField("pathAmount", sample.pathAmount);
+                gen.writeNumberField("settleFrames", sample.settleFrames);
+                gen.writeBooleanField("settled", sample.settled);
+                gen.writeNumberField("frameNanos", sample.frameNanos);
+                gen.writeNumberField("allocatedBytes", sample.getAllocatedBytes());
+                gen.writeNumberField("gpuUploadBytes", sample.getGpuUploadBytes());
+                gen.writeNumberField("heapUsedBytes", sample.heapUsedBytes);
+                gen.writeArrayFieldStart("layers");
+                for (LayerTiming timing : sample.getLayerTimings()) {
+                    gen.writeStartObject();
+                    gen.writeStringField("name", timing.getLayerName());
+                    gen.writeNumberField("preRenderNanos", timing.getPreRenderNanos());
+                    gen.writeNumberField("renderNanos", timing.getRenderNanos());
+                    gen.writeNumberField("pickNanos", timing.getPickNanos());
+                    gen.writeEndObject();
+                }
+                gen.writeEndArray();
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+
+            gen.writeEndObject();
+            gen.flush();
+        }
+
+        /**
+         * Returns the mean total time of each layer over the frames in which the layer was timed.
+         *
+         * @return the mean time of each layer, in nanoseconds, in the order the layers first appear.
+         */
+        public Map<String, Long> getMeanLayerNanos() {
+            Map<String, long[]> totals = new LinkedHashMap<>();
+            for (FrameSample sample : this.samples) {
+                for (LayerTiming timing : sample.getLayerTimings()) {
+                    long[] total = totals.computeIfAbsent(timing.getLayerName(), k -> new long[2]);
+                    total[0] += timing.getTotalNanos();
+                    total[1]++;
+                }
+            }
+
+            Map<String, Long> means = new LinkedHashMap<>();
+            for (Map.Entry<String, long[]> entry : totals.entrySet()) {
+                means.put(entry.getKey(), entry.getValue()[0] / entry.getValue()[1]);
+            }
+            return means;
+        }
+
+        protected static void writeSummary(JsonGenerator gen, String name, long[] values) throws IOException {
+            gen.writeObjectFieldStart(name);
+            gen.writeNumberField("mean", Arrays.stream(values).average().orElse(0));
+            gen.writeNumberField("p50", Result.percentile(values, 50));
+            gen.writeNumberField("p95", Result.percentile(values, 95));
+            gen.writeNumberField("max", Arrays.stream(values).max().orElse(0));
+            gen.writeEndObject();
+        }
+
+        @Override
+        public String toString() {
+            long[] nanos = this.getFrameNanos();
+            return String.format("%s: %d frames, mean %.2f ms, p50 %.2f ms, p95 %.2f ms, max %.2f ms", this.name,
+                nanos.length, Arrays.stream(nanos).average().orElse(0) / 1.0e6, Result.percentile(nanos, 50) / 1.0e6,
+                Result.percentile(nanos, 95) / 1.0e6, Arrays.stream(nanos).max().orElse(0) / 1.0e6);
+        }
+    }
+
+    /**
+     * The number of consecutive idle frames after which the scene is considered settled.
+     */
+    protected static final int SETTLED_FRAME_COUNT = 2;
+
+    protected final WorldWindowOffscreen window;
+    protected final CameraPath path;
+    protected int frameCount = 60;
+    protected int warmupFrameCount = 5;
+    protected boolean settle = true;
+    protected long settleTimeout = 30000;
+    protected int settleFrameLimit = 1000;
+    protected long settleInterval = 10;
+    protected boolean offlineMode;
+    protected File snapshotDirectory;
+    protected int snapshotInterval = 1;
+
+    /**
+     * Constructs a benchmark rendering frames along a path.
+     *
+     * @param window the window to render.
+     * @param path   the camera path.
+     * @throws IllegalArgumentException if either argument is null or the path has no keyframes.
+     */
+    public FrameBenchmark(WorldWindowOffscreen window, CameraPath path) {
+        if (window == null) {
+            String msg = Logging.getMessage("nullValue.WorldWindow");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (path == null || path.getKeyframes().isEmpty()) {
+            String msg = Logging.getMessage("generic.ListIsEmpty");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.window = window;
+        this.path = path;
+    }
+
+    public int getFrameCount() {
+        return this.frameCount;
+    }
+
+    /**
+     * Specifies the number of measured frames, spaced evenly along the path from its first keyframe to its last.
+     *
+     * @param frameCount the number of frames.
+     * @throws IllegalArgumentException if the count is less than 1.
+     */
+    public void setFrameCount(int frameCount) {
+        if (frameCount < 1) {
+            String msg = Logging.getMessage("generic.ArgumentOutOfRange", "frameCount < 1");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.frameCount = frameCount;
+    }
+
+    public int getWarmupFrameCount() {
+        return this.warmupFrameCount;
+    }
+
+    /**
+     * Specifies the number of frames rendered at the start of the path before measurement begins, to load classes and
+     * compile the rendering code.
+     *
+     * @param warmupFrameCount the number of frames.
+     */
+    public void setWarmupFrameCount(int warmupFrameCount) {
+        this.warmupFrameCount = Math.max(0, warmupFrameCount);
+    }
+
+    public boolean isSettle() {
+        return this.settle;
+    }
+
+    /**
+     * Specifies whether the scene settles before each measured frame. When false, frames are measured while data is
+     * still arriving, which shows rendering under load but does not repeat from run to run.
+     *
+     * @param settle true to settle before each frame.
+     */
+    public void setSettle(boolean settle) {
+        this.settle = settle;
+    }
+
+    public long getSettleTimeout() {
+        return this.settleTimeout;
+    }
+
+    /**
+     * @param settleTimeout the longest time to wait for the scene to settle before a frame, in milliseconds.
+     */
+    public void setSettleTimeout(long settleTimeout) {
+        this.settleTimeout = settleTimeout;
+    }
+
+    public int getSettleFrameLimit() {
+        return this.settleFrameLimit;
+    }
+
+    /**
+     * @param settleFrameLimit the most frames to render while waiting for the scene to settle before a frame.
+     */
+    public void setSettleFrameLimit(int settleFrameLimit) {
+        this.settleFrameLimit = settleFrameLimit;
+    }
+
+    public boolean isOfflineMode() {
+        return this.offlineMode;
+    }
+
+    /**
+     * Specifies whether the benchmark puts WorldWind in offline mode while it runs, so that frames draw only data in
+     * the local file store.
+     *
+     * @param offlineMode true to run offline.
+     * @see WorldWind#setOfflineMode(boolean)
+     */
+    public void setOfflineMode(boolean offlineMode) {
+        this.offlineMode = offlineMode;
+    }
+
+    public File getSnapshotDirectory() {
+        return this.snapshotDirectory;
+    }
+
+    /**
+     * Specifies a directory in which to save measured frames as PNG images named after the run and the frame index.
+     *
+     * @param snapshotDirectory the directory, or null to save no images.
+     * @param snapshotInterval  the number of measured frames between saved images.
+     */
+    public void setSnapshotDirectory(File snapshotDirectory, int snapshotInterval) {
+        this.snapshotDirectory = snapshotDirectory;
+        this.snapshotInterval = Math.max(1, snapshotInterval);
+    }
+
+    /**
+     * Renders the warmup frames and then the measured frames along the path.
+     *
+     * @param name the run's name, used in the result and in snapshot file names.
+     * @return the run's measurements.
+     * @throws IOException          if a snapshot cannot be saved.
+     * @throws InterruptedException if the thread is interrupted while the scene settles.
+     */
+    public Result run(String name) throws IOException, InterruptedException {
+        boolean wasInstrumented = Instrumentation.isEnabled();
+        boolean wasOffline = WorldWind.isOfflineMode();
+        Instrumentation.setEnabled(true);
+        if (this.offlineMode)
+            WorldWind.setOfflineMode(true);
+
+        try {
+            for (int i = 0; i < this.warmupFrameCount; i++) {
+                this.path.apply(this.window.view(), this.pathAmount(i % this.frameCount));
+                if (this.settle)
+                    this.settle();
+                this.window.renderFrame();
+            }
+
+            List<FrameSample> samples = new ArrayList<>(this.frameCount);
+            for (int i = 0; i < this.frameCount; i++) {
+                double amount = this.pathAmount(i);
+                this.path.apply(this.window.view(), amount);
+                int settleFrames = this.settle ? this.settle() : 0;
+                samples.add(this.measureFrame(i, amount, settleFrames));
+
+                if (this.snapshotDirectory != null && i % this.snapshotInterval == 0)
+                    this.saveSnapshot(name, i);
+            }
+
+            return new Result(name, this.window.getWidth(), this.window.getHeight(), samples);
+        }
+        finally {
+            Instrumentation.setEnabled(wasInstrumented);
+            WorldWind.setOfflineMode(wasOffline);
+        }
+    }
+
+    protected double pathAmount(int frameIndex) {
+        return this.frameCount > 1 ? frameIndex / (double) (this.frameCount - 1) : 0;
+    }
+
+    /**
+     * Renders frames until the scene has been idle for {@link #SETTLED_FRAME_COUNT} consecutive frames, or until the
+     * settle time or frame limit is reached.
+     *
+     * @return the number of frames rendered, negated if the scene did not settle.
+     * @throws InterruptedException if the thread is interrupted while waiting for data.
+     */
+    protected int settle() throws InterruptedException {
+        long deadline = System.nanoTime() + this.settleTimeout * 1000000;
+        int frames = 0;
+        int idleFrames = 0;
+
+        while (frames < this.settleFrameLimit && System.nanoTime() < deadline) {
+            this.window.renderFrame();
+            frames++;
+
+            idleFrames = this.isIdle() ? idleFrames + 1 : 0;
+            if (idleFrames >= SETTLED_FRAME_COUNT)
+                return frames;
+
+            Thread.sleep(this.settleInterval);
+        }
+
+        Logging.logger().warning(Logging.getMessage("FrameBenchmark.SceneDidNotSettle", frames));
+        return -frames;
+    }
+
+    /**
+     * Indicates whether the last frame requested no redraw and no data is being loaded.
+     *
+     * @return true if another frame would draw the same scene, otherwise false.
+     */
+    protected boolean isIdle() {
+        return !this.window.isRedrawNecessary()
+            && !WorldWind.retrieveRemote().hasActiveTasks()
+            && !WorldWind.retrieveLocal().hasActiveTasks()
+            && !WorldWind.tasks().hasActiveTasks();
+    }
+
+    protected FrameSample measureFrame(int index, double amount, int settleFrames) {
+        long start = System.nanoTime();
+        this.window.renderFrame();
+        long frameNanos = System.nanoTime() - start;
+
+        Runtime runtime = Runtime.getRuntime();
+        long heapUsed = runtime.totalMemory() - runtime.freeMemory();
+
+        SceneController sc = this.window.sceneControl();
+        FrameSnapshot snapshot = sc instanceof AbstractSceneController
+            ? ((AbstractSceneController) sc).getLastFrame() : Instrumentation.getLastFrame();
+
+        return new FrameSample(index, amount, Math.abs(settleFrames), !this.settle || settleFrames > 0, frameNanos,
+            heapUsed, snapshot);
+    }
+
+    protected void saveSnapshot(String name, int frameIndex) throws IOException {
+        if (!this.snapshotDirectory.exists() && !this.snapshotDirectory.mkdirs()) {
+            String msg = Logging.getMessage("generic.CannotCreateFile", this.snapshotDirectory);
+            throw new IOException(msg);
+        }
+
+        File file = new File(this.snapshotDirectory, String.format("%s-%04d.png", name, frameIndex));
+        ImageIO.write(this.window.captureImage(), "png", file);
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.video.offscreen;
+
+import com.jogamp.opengl.*;
+import com.jogamp.opengl.util.awt.AWTGLReadBufferUtil;
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.util.*;
+import gov.nasa.worldwind.video.WorldWindowGLAutoDrawable;
+
+import java.awt.image.BufferedImage;
+import java.beans.*;
+
+/**
+ * A {@link WorldWindow} that renders into an offscreen OpenGL drawable rather than a window, for rendering map images
+ * on servers and for benchmarks that need repeatable frames. JOGL backs the drawable with a framebuffer object when
+ * the OpenGL implementation supports them, and otherwise with a pbuffer. No window or input device is required, but
+ * the OpenGL implementation still needs a display connection on Linux; a headless machine can run a virtual X server
+ * such as Xvfb with Mesa's software renderer:
+ * <pre>
+ * LIBGL_ALWAYS_SOFTWARE=1 xvfb-run -s "-screen 0 1024x768x24" java -Djava.awt.headless=true ...
+ * </pre>
+ * <p>
+ * Frames are rendered only when {@link #renderFrame()} is called, on the calling thread, which must be the same thread
+ * for every call. {@link #redraw()} only records that the scene has changed; callers poll {@link #isRedrawNecessary()}
+ * to decide whether to render another frame. Each frame ends with <code>glFinish</code>, so the time spent in {@link
+ * #renderFrame()} includes the GPU's work.
+ */
+public class WorldWindowOffscreen implements WorldWindow, GLEventListener {
+    protected final WorldWindowGLAutoDrawable wwd;
+    protected final GLOffscreenAutoDrawable drawable;
+
+    /**
+     * Constructs an offscreen window displaying a model.
+     *
+     * @param model  the model to display. May be null.
+     * @param width  the width of the window's frames, in pixels.
+     * @param height the height of the window's frames, in pixels.
+     * @throws IllegalArgumentException if the width or height is less than 1.
+     * @throws GLException              if the OpenGL implementation cannot create an offscreen drawable.
+     */
+    public WorldWindowOffscreen(Model model, int width, int height) {
+        if (width < 1 || height < 1) {
+            String msg = Logging.getMessage("generic.SizeOutOfRange", width + "x" + height);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        GLCapabilities caps = WorldWindowOffscreen.createCapabilities();
+        this.drawable = GLDrawableFactory.getFactory(caps.getGLProfile()).createOffscreenAutoDrawable(null, caps,
+            new BasicGLCapabilitiesChooser(), width, height);
+
+        this.wwd = (WorldWindowGLAutoDrawable) WorldWind.createConfigurationComponent(Keys.WORLD_WINDOW_CLASS_NAME);
+        this.wwd.initDrawable(this.drawable, this);
+        this.drawable.addGLEventListener(this);
+        this.setModel(model);
+    }
+
+    /**
+     * Returns the capabilities of the offscreen drawable: those WorldWind requires, single buffered so that the pixels
+     * of the last frame remain readable, and without stereo.
+     *
+     * @return a new capabilities instance.
+     */
+    protected static GLCapabilities createCapabilities() {
+        GLCapabilities caps = JOGLVersionInfo.getRequiredGLCapabilities();
+        caps.setOnscreen(false);
+        caps.setFBO(true);
+        caps.setPBuffer(true);
+        caps.setDoubleBuffered(false);
+        caps.setStereo(false);
+        return caps;
+    }
+
+    @Override
+    public WorldWindowGLAutoDrawable wwd() {
+        return this.wwd;
+    }
+
+    public GLOffscreenAutoDrawable getDrawable() {
+        return this.drawable;
+    }
+
+    public int getWidth() {
+        return this.drawable.getSurfaceWidth();
+    }
+
+    public int getHeight() {
+        return this.drawable.getSurfaceHeight();
+    }
+
+    /**
+     * Changes the size of subsequent frames.
+     *
+     * @param width  the width, in pixels.
+     * @param height the height, in pixels.
+     * @throws IllegalArgumentException if the width or height is less than 1.
+     */
+    public void setSize(int width, int height) {
+        if (width < 1 || height < 1) {
+            String msg = Logging.getMessage("generic.SizeOutOfRange", width + "x" + height);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.drawable.setSurfaceSize(width, height);
+        this.redraw();
+    }
+
+    /**
+     * Renders a frame of the model from the current view.
+     */
+    public void renderFrame() {
+        this.drawable.display();
+    }
+
+    /**
+     * Reads the pixels of the most recently rendered frame.
+     *
+     * @return the frame's pixels, with the top row first.
+     */
+    public BufferedImage captureImage() {
+        GLContext context = this.drawable.getContext();
+        context.makeCurrent();
+        try {
+            AWTGLReadBufferUtil reader = new AWTGLReadBufferUtil(this.drawable.getGLProfile(), true);
+            return reader.readPixelsToBufferedImage(context.getGL(), true);
+        }
+        finally {
+            context.release();
+        }
+    }
+
+    /**
+     * Renders a frame of the model from the current view and reads its pixels.
+     *
+     * @return the frame's pixels, with the top row first.
+     */
+    public BufferedImage renderImage() {
+        this.renderFrame();
+        return this.captureImage();
+    }
+
+    /**
+     * Indicates whether the scene has changed since the last frame, either because the view or model changed or
+     * because data requested during the last frame has arrived.
+     *
+     * @return true if another frame would differ from the last one, otherwise false.
+     */
+    public boolean isRedrawNecessary() {
+        return this.wwd.redrawNecessary.get();
+    }
+
+    @Override
+    public void redraw() {
+        this.wwd.redraw();
+    }
+
+    @Override
+    public void propertyChange(PropertyChangeEvent evt) {
+        // This window's listeners are registered with its WorldWindowGLAutoDrawable, so its events need no forwarding.
+        //noinspection StringEquality
+        if (evt.getPropertyName() == WorldWind.SHUTDOWN_EVENT)
+            this.shutdown();
+    }
+
+    @Override
+    public void shutdown() {
+        WorldWindow.super.shutdown();
+        Configuration.data.removePropertyChangeListener(this.wwd);
+        this.drawable.destroy();
+    }
+
+    @Override
+    public void init(GLAutoDrawable glAutoDrawable) {
+    }
+
+    @Override
+    public void dispose(GLAutoDrawable glAutoDrawable) {
+    }
+
+    @Override
+    public void display(GLAutoDrawable glAutoDrawable) {
+        this.wwd.render(glAutoDrawable);
+        glAutoDrawable.getGL().glFinish();
+    }
+
+    @Override
+    public void reshape(GLAutoDrawable glAutoDrawable, int x, int y, int width, int height) {
+    }
+
+    @Override
+    public void addPropertyChangeListener(String propertyName, PropertyChangeListener listener) {
+        this.wwd.addPropertyChangeListener(propertyName, listener);
+    }
+
+    @Override
+    public void removePropertyChangeListener(String propertyName, PropertyChangeListener listener) {
+        this.wwd.removePropertyChangeListener(propertyName, listener);
+    }
+
+    @Override
+    public void addPropertyChangeListener(PropertyChangeListener listener) {
+        this.wwd.addPropertyChangeListener(listener);
+    }
+
+    @Override
+    public void removePropertyChangeListener(PropertyChangeListener listener) {
+        this.wwd.removePropertyChangeListener(listener);
+    }
+
+    @Override
+    public void emit(String propertyName, Object oldValue, Object newValue) {
+        this.wwd.emit(propertyName, oldValue, newValue);
+    }
+}
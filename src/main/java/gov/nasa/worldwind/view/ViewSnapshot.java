@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.view;
+
+import gov.nasa.worldwind.View;
+import gov.nasa.worldwind.animation.Animator;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.Globe;
+import gov.nasa.worldwind.render.DrawContext;
+import gov.nasa.worldwind.util.Logging;
+import gov.nasa.worldwind.video.awt.ViewInputHandler;
+
+/**
+ * An immutable copy of a view's state as of its most recent {@link View#apply(DrawContext)}. A snapshot answers the
+ * same queries as the view it copies - the eye position and orientation, the modelview and projection matrices, the
+ * viewport and the frustum - but never changes, so it may be read from a worker thread while the original view moves
+ * on. Every value a view computes lazily is computed when the snapshot is constructed. Methods that would change the
+ * view throw {@link UnsupportedOperationException}.
+ */
+public class ViewSnapshot extends BasicView {
+    /**
+     * Constructs a snapshot of a view's current state.
+     *
+     * @param view the view to copy.
+     * @throws IllegalArgumentException if the view is null.
+     */
+    public ViewSnapshot(View view) {
+        if (view == null) {
+            String msg = Logging.getMessage("nullValue.ViewIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.globe = view.getGlobe();
+        this.fieldOfView = view.getFieldOfView();
+        this.nearClipDistance = view.getNearClipDistance();
+        this.farClipDistance = view.getFarClipDistance();
+        this.modelview = view.getModelviewMatrix();
+        this.modelviewInv = this.modelview.getInverse();
+        this.projection = view.getProjectionMatrix();
+        this.viewport = view.getViewport(); // Views return a copy of their viewport.
+        this.frustum = view.getFrustum();
+        this.lastFrustumInModelCoords = view.getFrustumInModelCoordinates();
+        this.eyePosition = view.getEyePosition();
+        this.lastEyePosition = view.getEyePosition();
+        this.heading = view.getHeading();
+        this.pitch = view.getPitch();
+        this.roll = view.getRoll();
+        this.lastEyePoint = view.getEyePoint();
+        this.lastUpVector = view.getUpVector();
+        this.lastForwardVector = view.getForwardVector();
+        this.horizonDistance = view.getHorizonDistance();
+        this.viewLimits = view.getViewPropertyLimits();
+        this.viewStateID.set(view.getViewStateID());
+    }
+
+    protected static UnsupportedOperationException unsupported(String operation) {
+        String msg = Logging.getMessage("generic.UnsupportedOperation", operation);
+        Logging.logger().severe(msg);
+        return new UnsupportedOperationException(msg);
+    }
+
+    @Override
+    public void setGlobe(Globe globe) {
+        throw ViewSnapshot.unsupported("setGlobe");
+    }
+
+    @Override
+    public void setViewInputHandler(ViewInputHandler viewInputHandler) {
+        throw ViewSnapshot.unsupported("setViewInputHandler");
+    }
+
+    @Override
+    public void copyViewState(View view) {
+        throw ViewSnapshot.unsupported("copyViewState");
+    }
+
+    @Override
+    public void apply(DrawContext dc) {
+        throw ViewSnapshot.unsupported("apply");
+    }
+
+    @Override
+    public void setFieldOfView(Angle fieldOfView) {
+        throw ViewSnapshot.unsupported("setFieldOfView");
+    }
+
+    @Override
+    public void setEyePosition(Position eyePosition) {
+        throw ViewSnapshot.unsupported("setEyePosition");
+    }
+
+    @Override
+    public void setHeading(Angle heading) {
+        throw ViewSnapshot.unsupported("setHeading");
+    }
+
+    @Override
+    public void setPitch(Angle pitch) {
+        throw ViewSnapshot.unsupported("setPitch");
+    }
+
+    @Override
+    public void setRoll(Angle roll) {
+        throw ViewSnapshot.unsupported("setRoll");
+    }
+
+    @Override
+    public void setOrientation(Position eyePosition, Position centerPosition) {
+        throw ViewSnapshot.unsupported("setOrientation");
+    }
+
+    @Override
+    public void stopAnimations() {
+        throw ViewSnapshot.unsupported("stopAnimations");
+    }
+
+    @Override
+    public boolean isAnimating() {
+        return false;
+    }
+
+    @Override
+    public void goTo(Position position, double distance) {
+        throw ViewSnapshot.unsupported("goTo");
+    }
+
+    @Override
+    public void addAnimator(Animator animator) {
+        throw ViewSnapshot.unsupported("addAnimator");
+    }
+
+    @Override
+    public void restoreState(String stateInXml) {
+        throw ViewSnapshot.unsupported("restoreState");
+    }
+
+    @Override
+    public Matrix pushReferenceCenter(DrawContext dc, Vec4 referenceCenter) {
+        throw ViewSnapshot.unsupported("pushReferenceCenter");
+    }
+
+    @Override
+    public Matrix setReferenceCenter(DrawContext dc, Vec4 referenceCenter) {
+        throw ViewSnapshot.unsupported("setReferenceCenter");
+    }
+
+    @Override
+    public void popReferenceCenter(DrawContext dc) {
+        throw ViewSnapshot.unsupported("popReferenceCenter");
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.cache;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class SoftMemoryCacheTest
+{
+    @Test
+    public void testAddReplacesExistingEntry()
+    {
+        SoftMemoryCache cache = new SoftMemoryCache(100);
+        cache.add("key", "first", 10);
+        cache.add("key", "second", 20);
+
+        assertEquals("second", cache.getObject("key"));
+        assertEquals(1, cache.getNumObjects());
+        assertEquals(20, cache.getUsedCapacity());
+    }
+
+    @Test
+    public void testListenersAreNotifiedOfReplacedEntries()
+    {
+        SoftMemoryCache cache = new SoftMemoryCache(100);
+        List<Object> removed = new ArrayList<>();
+        cache.addCacheListener(new MemoryCache.CacheListener()
+        {
+            public void entryRemoved(Object key, Object clientObject)
+            {
+                removed.add(clientObject);
+            }
+
+            public void removalException(Throwable exception, Object key, Object clientObject)
+            {
+            }
+        });
+
+        cache.add("key", "first", 10);
+        cache.add("key", "second", 10);
+        assertEquals(Collections.singletonList("first"), removed);
+
+        // Adding an object again under its own key doesn't remove it.
+        cache.add("key", "second", 15);
+        assertEquals(Collections.singletonList("first"), removed);
+        assertEquals("second", cache.getObject("key"));
+    }
+
+    @Test
+    public void testStrongCacheNotifiesListenersOfEvictedEntries()
+    {
+        SoftMemoryCache cache = new SoftMemoryCache(100, false);
+        List<Object> removed = new ArrayList<>();
+        cache.addCacheListener(new MemoryCache.CacheListener()
+        {
+            public void entryRemoved(Object key, Object clientObject)
+            {
+                removed.add(clientObject);
+            }
+
+            public void removalException(Throwable exception, Object key, Object clientObject)
+            {
+            }
+        });
+
+        for (int i = 0; i < 20; i++)
+        {
+            cache.add(i, "value" + i, 10);
+        }
+        cache.cache.cleanUp();
+
+        assertTrue(cache.getUsedCapacity() <= 100);
+        assertEquals(20, cache.getNumObjects() + removed.size());
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.examples.symbology;
+
+import com.jogamp.opengl.*;
+import com.jogamp.opengl.util.FPSAnimator;
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.event.*;
+import gov.nasa.worldwind.examples.ApplicationTemplate;
+import gov.nasa.worldwind.geom.Position;
+import gov.nasa.worldwind.layers.*;
+import gov.nasa.worldwind.symbology.*;
+import gov.nasa.worldwind.symbology.milstd2525.MilStd2525TacticalSymbol;
+import gov.nasa.worldwind.util.Logging;
+
+import java.util.*;
+
+/**
+ * Measures frame times when displaying many thousands of MIL-STD-2525 tactical symbols, either batched with a {@link
+ * TacticalSymbolLayer} or drawn individually with a {@link RenderableLayer}. The symbol counts and the layer type are
+ * specified with the system properties <code>gov.nasa.worldwind.examples.symbolCount</code>, a comma separated list of
+ * counts (default 10000,50000,200000), and <code>gov.nasa.worldwind.examples.batchSymbols</code> (default true). The
+ * example redraws continuously and measures each count in turn. For each count it discards the first report interval,
+ * while icons are composed and the scene settles, then logs the mean and maximum frame time over the next 120 frames.
+ * When symbols are batched it also logs the batch renderer's mean update and draw times. After the last count it keeps
+ * logging the last count's times.
+ */
+public class TacticalSymbolBatching extends ApplicationTemplate {
+    protected static final String SYMBOL_COUNT_PROPERTY = "gov.nasa.worldwind.examples.symbolCount";
+    protected static final String BATCH_SYMBOLS_PROPERTY = "gov.nasa.worldwind.examples.batchSymbols";
+    protected static final String DEFAULT_SYMBOL_COUNTS = "10000,50000,200000";
+    protected static final int FRAMES_PER_REPORT = 120;
+    protected static final String[] SYMBOL_IDS = {
+        "SFGPUCI----D---", "SHGPUCI----D---", "SNGPUCI----D---", "SUGPUCI----D---",
+        "SFGPUCA----D---", "SHGPUCA----D---", "SFAPMFQM-------", "SHAPMFQM-------",
+        "SFGPEWRH-------", "SHGPEWRH-------", "SFSPCLFF-------", "SHSPCLFF-------"};
+
+    public static void main(String[] args) {
+        Configuration.setValue(Keys.INITIAL_LATITUDE, 35);
+        Configuration.setValue(Keys.INITIAL_LONGITUDE, -100);
+        Configuration.setValue(Keys.INITIAL_ALTITUDE, 8.0e6);
+
+        start("WorldWind Tactical Symbol Batching", AppFrame.class);
+    }
+
+    public static class AppFrame extends ApplicationTemplate.AppFrame implements RenderingListener {
+        protected final GLAnimatorControl animator;
+        protected final int[] symbolCounts;
+        protected final boolean batch;
+        protected int countIndex;
+        protected boolean warmedUp;
+        protected Layer layer;
+        protected long frameStart;
+        protected long totalNanos;
+        protected long maxNanos;
+        protected long totalUpdateNanos;
+        protected long totalDrawNanos;
+        protected int numFrames;
+
+        public AppFrame() {
+            this.symbolCounts = Arrays.stream(System.getProperty(TacticalSymbolBatching.SYMBOL_COUNT_PROPERTY,
+                TacticalSymbolBatching.DEFAULT_SYMBOL_COUNTS).split(",")).mapToInt(
+                count -> Integer.parseInt(count.trim())).toArray();
+            this.batch = Boolean.parseBoolean(System.getProperty(TacticalSymbolBatching.BATCH_SYMBOLS_PROPERTY,
+                "true"));
+
+            this.showSymbols(this.symbolCounts[0]);
+
+            // Redraw continuously so that the frame time reflects the cost of drawing the symbols.
+            this.wwd().addRenderingListener(this);
+            this.animator = new FPSAnimator((GLAutoDrawable) this.wwd(), 60);
+            this.animator.start();
+        }
+
+        protected void showSymbols(int count) {
+            if (this.layer != null)
+                this.wwd().model().layers().remove(this.layer);
+
+            List<TacticalSymbol> symbols = createSymbols(count);
+            if (this.batch) {
+                this.layer = new TacticalSymbolLayer(symbols);
+            } else {
+                RenderableLayer renderableLayer = new RenderableLayer();
+                renderableLayer.addAll(symbols);
+                this.layer = renderableLayer;
+            }
+
+            this.layer.setName("Tactical Symbols (" + count + ")");
+            this.wwd().model().layers().add(this.layer);
+        }
+
+        protected static List<TacticalSymbol> createSymbols(int count) {
+            // Use a fixed seed so that successive runs draw the same scene.
+            Random random = new Random(2525);
+            TacticalSymbolAttributes attrs = new BasicTacticalSymbolAttributes();
+            attrs.setScale(0.5);
+
+            List<TacticalSymbol> symbols = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String symbolId = TacticalSymbolBatching.SYMBOL_IDS[random.nextInt(
+                    TacticalSymbolBatching.SYMBOL_IDS.length)];
+                Position position = Position.fromDegrees(25 + 24 * random.nextDouble(),
+                    -125 + 58 * random.nextDouble(), 0);
+
+                MilStd2525TacticalSymbol symbol = new MilStd2525TacticalSymbol(symbolId, position);
+                symbol.setAltitudeMode(WorldWind.CLAMP_TO_GROUND);
+                symbol.setAttributes(attrs);
+                symbol.setShowGraphicModifiers(false);
+                symbol.setShowTextModifiers(false);
+                symbols.add(symbol);
+            }
+
+            return symbols;
+        }
+
+        @Override
+        public void stageChanged(RenderingEvent event) {
+            if (RenderingEvent.BEFORE_RENDERING.equals(event.getStage())) {
+                this.frameStart = System.nanoTime();
+            } else if (RenderingEvent.AFTER_BUFFER_SWAP.equals(event.getStage()) && this.frameStart != 0) {
+                long elapsed = System.nanoTime() - this.frameStart;
+                this.totalNanos += elapsed;
+                this.maxNanos = Math.max(this.maxNanos, elapsed);
+                if (this.layer instanceof TacticalSymbolLayer) {
+                    TacticalSymbolBatchRenderer renderer = ((TacticalSymbolLayer) this.layer).getSymbolRenderer();
+                    this.totalUpdateNanos += renderer.getLastUpdateTime();
+                    this.totalDrawNanos += renderer.getLastDrawTime();
+                }
+
+                if (++this.numFrames == TacticalSymbolBatching.FRAMES_PER_REPORT) {
+                    this.report();
+                    this.numFrames = 0;
+                    this.totalNanos = 0;
+                    this.maxNanos = 0;
+                    this.totalUpdateNanos = 0;
+                    this.totalDrawNanos = 0;
+                }
+            }
+        }
+
+        protected void report() {
+            // The first interval of each count includes composing icons and retrieving terrain, so it is not reported.
+            if (!this.warmedUp) {
+                this.warmedUp = true;
+                return;
+            }
+
+            int count = this.symbolCounts[this.countIndex];
+            if (this.batch) {
+                Logging.logger().info(String.format(
+                    "Batched %d symbols: mean frame time %.2f ms, max %.2f ms, mean update %.2f ms, mean draw %.2f ms",
+                    count, this.totalNanos / 1.0e6 / this.numFrames, this.maxNanos / 1.0e6,
+                    this.totalUpdateNanos / 1.0e6 / this.numFrames, this.totalDrawNanos / 1.0e6 / this.numFrames));
+            } else {
+                Logging.logger().info(String.format("Individual %d symbols: mean frame time %.2f ms, max %.2f ms",
+                    count, this.totalNanos / 1.0e6 / this.numFrames, this.maxNanos / 1.0e6));
+            }
+
+            if (this.countIndex + 1 < this.symbolCounts.length) {
+                this.countIndex++;
+                this.warmedUp = false;
+                this.showSymbols(this.symbolCounts[this.countIndex]);
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.formats.geojson;
+
+import gov.nasa.worldwind.geom.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class GeoJSONStreamReaderTest
+{
+    protected static ByteArrayInputStream stream(String text)
+    {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testFeatureCollection()
+    {
+        String text = "{\"type\": \"FeatureCollection\", \"features\": ["
+            + "{\"type\": \"Feature\", \"properties\": {\"name\": \"a\", \"tags\": [1, 2]},"
+            + " \"geometry\": {\"type\": \"Point\", \"coordinates\": [10, 20, 5]}},"
+            + "{\"type\": \"Feature\", \"geometry\": {\"type\": \"MultiLineString\","
+            + " \"coordinates\": [[[0, 0], [1, 1]], [[2, 2], [3, 3], [4, 4]]]}},"
+            + "{\"type\": \"Feature\", \"geometry\": {\"type\": \"MultiPolygon\", \"coordinates\": ["
+            + "[[[0, 0], [10, 0], [10, 10], [0, 0]], [[1, 1], [2, 1], [2, 2], [1, 1]]],"
+            + "[[[20, 20], [30, 20], [30, 30], [20, 20]]]]}}]}";
+
+        GeoJSONBatch batch = new GeoJSONStreamReader().read(stream(text));
+
+        assertEquals("Point count", 1, batch.getPoints().size());
+        assertEquals("Point location", LatLon.fromDegrees(20, 10), batch.getPoints().subBuffer(0).getLocation(0));
+        assertEquals("Line count", 2, batch.getLines().size());
+        assertEquals("Line length", 3, batch.getLines().subBufferSize(1));
+        assertEquals("Ring count", 3, batch.getPolygons().size());
+        assertTrue("Ring groups", Arrays.equals(new int[] {0, 2}, batch.getPolygonRingGroups()));
+        assertEquals("Polygon sector", Sector.fromDegrees(0, 30, 0, 30), batch.getPolygonSector());
+        assertEquals("Shape count", 5, batch.getShapeCount());
+    }
+
+    @Test
+    public void testTypeAfterCoordinates()
+    {
+        String text = "{\"coordinates\": [[[0, 0], [1, 0], [1, 1], [0, 0]]], \"type\": \"MultiLineString\"}";
+
+        GeoJSONBatch batch = new GeoJSONStreamReader().read(stream(text));
+
+        assertEquals("Line count", 1, batch.getLines().size());
+        assertEquals("Ring count", 0, batch.getPolygons().size());
+    }
+
+    @Test
+    public void testNewlineDelimited()
+    {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; i++)
+        {
+            sb.append("{\"type\": \"Feature\", \"geometry\": {\"type\": \"LineString\", \"coordinates\": [[");
+            sb.append(i).append(", 0], [").append(i).append(", 1]]}}\n");
+        }
+
+        GeoJSONStreamReader reader = new GeoJSONStreamReader();
+        reader.setChunkSize(500);
+        List<GeoJSONBatch> batches = reader.readLines(stream(sb.toString()));
+
+        assertTrue("Chunked", batches.size() > 1);
+        int count = 0;
+        for (GeoJSONBatch batch : batches)
+        {
+            for (int i = 0; i < batch.getLines().size(); i++)
+            {
+                // Batches are in source order, so line N starts at longitude N.
+                assertEquals("Line order", count++, batch.getLines().subBuffer(i).getLocation(0).lon,
+                    0);
+            }
+        }
+        assertEquals("Line count", 100, count);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.formats.rpf;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class RPFCrawlerTest
+{
+    private File root;
+    private Set<File> frameFiles;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.root = Files.createTempDirectory("RPFCrawlerTest").toFile();
+        this.frameFiles = new HashSet<>();
+        for (int i = 0; i < 4; i++)
+        {
+            File dir = new File(this.root, "rpf/dir" + i + "/sub");
+            assertTrue(dir.mkdirs());
+            for (int j = 1; j <= 3; j++)
+            {
+                File file = new File(dir, "000000" + i + j + ".CA1");
+                assertTrue(file.createNewFile());
+                this.frameFiles.add(file);
+            }
+            assertTrue(new File(dir, "A.TOC").createNewFile());
+        }
+        assertTrue(new File(this.root, "readme.txt").createNewFile());
+    }
+
+    @After
+    public void tearDown()
+    {
+        delete(this.root);
+    }
+
+    private static void delete(File file)
+    {
+        File[] children = file.listFiles();
+        if (children != null)
+        {
+            for (File child : children)
+            {
+                delete(child);
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    @Test
+    public void testCrawlFindsFrameFiles()
+    {
+        List<File> files = new RPFCrawler(3).crawl(this.root);
+
+        assertEquals(this.frameFiles.size(), files.size());
+        assertEquals(this.frameFiles, new HashSet<>(files));
+    }
+
+    @Test
+    public void testReadHeadersSkipsUnreadableFrames()
+    {
+        RPFCrawler crawler = new RPFCrawler();
+        crawler.setReadHeaders(true);
+
+        // The frame files are empty, so none has a NITF header.
+        assertTrue(crawler.crawl(this.root).isEmpty());
+    }
+
+    @Test
+    public void testStopBeforeCrawlThreadRuns() throws InterruptedException
+    {
+        CountDownLatch release = new CountDownLatch(1);
+        RPFCrawler crawler = new RPFCrawler()
+        {
+            @Override
+            protected void doCrawl(File directory, RPFCrawlerListener listener)
+            {
+                try
+                {
+                    release.await();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                super.doCrawl(directory, listener);
+            }
+        };
+
+        Queue<File> found = new ConcurrentLinkedQueue<>();
+        CountDownLatch finished = new CountDownLatch(1);
+        crawler.start(this.root, new RPFCrawler.RPFCrawlerListener()
+        {
+            public void fileFound(File rpfFile, RPFFrameFilename filename)
+            {
+                found.add(rpfFile);
+            }
+
+            public void finished()
+            {
+                finished.countDown();
+            }
+        });
+        crawler.stop();
+        release.countDown();
+
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        assertTrue(found.isEmpty());
+    }
+}
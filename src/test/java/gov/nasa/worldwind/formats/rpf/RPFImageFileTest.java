@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.formats.rpf;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class RPFImageFileTest
+{
+    @Before
+    public void setUp()
+    {
+        RPFImageFile.imagePool.clear();
+    }
+
+    @After
+    public void tearDown()
+    {
+        RPFImageFile.imagePool.clear();
+    }
+
+    @Test
+    public void testReleasedImageIsReused()
+    {
+        BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+        RPFImageFile.releaseBufferedImage(image);
+
+        assertSame(image, RPFImageFile.takePooledImage());
+        assertNull(RPFImageFile.takePooledImage());
+    }
+
+    @Test
+    public void testIgnoresOtherImageTypes()
+    {
+        RPFImageFile.releaseBufferedImage(new BufferedImage(16, 16, BufferedImage.TYPE_4BYTE_ABGR));
+        RPFImageFile.releaseBufferedImage(null);
+
+        assertNull(RPFImageFile.takePooledImage());
+    }
+
+    @Test
+    public void testPoolIsBounded()
+    {
+        for (int i = 0; i < RPFImageFile.MAX_POOLED_IMAGES + 3; i++)
+        {
+            RPFImageFile.releaseBufferedImage(new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB));
+        }
+
+        assertEquals(RPFImageFile.MAX_POOLED_IMAGES, RPFImageFile.imagePool.size());
+    }
+}
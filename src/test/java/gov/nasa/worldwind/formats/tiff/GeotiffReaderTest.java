@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.formats.tiff;
+
+import gov.nasa.worldwind.Keys;
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.data.*;
+import gov.nasa.worldwind.geom.Sector;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.*;
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class GeotiffReaderTest
+{
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 48;
+
+    private File file;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        KV params = new KVMap();
+        params.set(Keys.PIXEL_FORMAT, Keys.ELEVATION);
+        params.set(Keys.DATA_TYPE, Keys.INT16);
+        params.set(Keys.COORDINATE_SYSTEM, Keys.COORDINATE_SYSTEM_GEOGRAPHIC);
+        params.set(Keys.PROJECTION_EPSG_CODE, 4326);
+
+        ByteBufferRaster raster = new ByteBufferRaster(WIDTH, HEIGHT, Sector.fromDegrees(30, 42, 10, 26), params);
+        for (int y = 0; y < HEIGHT; y++)
+        {
+            for (int x = 0; x < WIDTH; x++)
+            {
+                raster.setDoubleAtPosition(y, x, expectedValue(x, y));
+            }
+        }
+
+        this.file = File.createTempFile("GeotiffReaderTest", ".tif");
+        GeotiffWriter writer = new GeotiffWriter(this.file);
+        try
+        {
+            writer.write(raster);
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.file.delete();
+    }
+
+    private static double expectedValue(int x, int y)
+    {
+        return 1 + x + 100 * y;
+    }
+
+    /** Tests that a sub-sampled window contains the window's samples, and describes the window's sector. */
+    @Test
+    public void testReadWindow() throws Exception
+    {
+        GeotiffReader reader = new GeotiffReader(this.file);
+        try
+        {
+            ByteBufferRaster raster = (ByteBufferRaster) reader.readDataRaster(0, new Rectangle(10, 5, 20, 12), 3);
+
+            assertEquals("Width incorrect", 7, raster.getWidth());
+            assertEquals("Height incorrect", 4, raster.getHeight());
+            for (int j = 0; j < raster.getHeight(); j++)
+            {
+                for (int i = 0; i < raster.getWidth(); i++)
+                {
+                    assertEquals("Sample incorrect", expectedValue(10 + 3 * i, 5 + 3 * j),
+                        raster.getDoubleAtPosition(j, i), 0);
+                }
+            }
+
+            // Pixels are 0.25 degrees square. The raster's 7x4 pixels each cover 3x3 image pixels.
+            assertEquals("Sector incorrect", Sector.fromDegrees(37.75, 40.75, 12.5, 17.75), raster.getSector());
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    /** Tests that a sector is read as the whole pixels it covers, and that a window is clipped to the image. */
+    @Test
+    public void testReadSector() throws Exception
+    {
+        GeotiffReader reader = new GeotiffReader(this.file);
+        try
+        {
+            DataRaster raster = reader.readDataRaster(0, Sector.fromDegrees(41.1, 50, 25.1, 30), 1);
+            assertEquals("Width incorrect", 4, raster.getWidth());
+            assertEquals("Height incorrect", 4, raster.getHeight());
+            assertEquals("Sample incorrect", expectedValue(60, 0),
+                ((ByteBufferRaster) raster).getDoubleAtPosition(0, 0), 0);
+
+            assertNull("Disjoint sector read", reader.readDataRaster(0, Sector.fromDegrees(0, 1, 0, 1), 1));
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.formats.tiff;
+
+import gov.nasa.worldwind.Keys;
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.data.*;
+import gov.nasa.worldwind.geom.Sector;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class GeotiffWriterTest
+{
+    private File file;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        this.file = File.createTempFile("GeotiffWriterTest", ".tif");
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.file.delete();
+    }
+
+    /** Tests that a tiled, deflate compressed elevation raster and its overviews are read back unchanged. */
+    @Test
+    public void testTiledElevations() throws Exception
+    {
+        KV params = new KVMap();
+        params.set(Keys.PIXEL_FORMAT, Keys.ELEVATION);
+        params.set(Keys.DATA_TYPE, Keys.INT16);
+        params.set(Keys.COORDINATE_SYSTEM, Keys.COORDINATE_SYSTEM_GEOGRAPHIC);
+        params.set(Keys.PROJECTION_EPSG_CODE, 4326);
+
+        ByteBufferRaster raster = new ByteBufferRaster(300, 200, Sector.fromDegrees(30, 40, 10, 25), params);
+        for (int y = 0; y < 200; y++)
+        {
+            for (int x = 0; x < 300; x++)
+            {
+                raster.setDoubleAtPosition(y, x, x - 7 * y);
+            }
+        }
+
+        GeotiffWriter writer = new GeotiffWriter(this.file);
+        try
+        {
+            writer.setTileSize(64);
+            writer.setCompression(Tiff.Compression.ADOBE_DEFLATE);
+            writer.write(raster);
+        }
+        finally
+        {
+            writer.close();
+        }
+
+        GeotiffReader reader = new GeotiffReader(this.file);
+        try
+        {
+            // The image is followed by 150x100, 75x50 and 38x25 overviews.
+            assertEquals("Image count incorrect", 4, reader.getNumImages());
+
+            DataRaster[] rasters = reader.readDataRaster();
+            assertEquals("Overviews read as images", 1, rasters.length);
+            ByteBufferRaster full = (ByteBufferRaster) rasters[0];
+            assertEquals("Sector incorrect", raster.getSector(), full.getSector());
+            for (int y = 0; y < 200; y++)
+            {
+                for (int x = 0; x < 300; x++)
+                {
+                    assertEquals("Sample incorrect", x - 7 * y, full.getDoubleAtPosition(y, x), 0);
+                }
+            }
+
+            // Elevation overviews hold the upper left sample of each block.
+            ByteBufferRaster reduced = (ByteBufferRaster) reader.readDataRaster(0, new Rectangle(0, 0, 300, 200), 4);
+            assertEquals("Width incorrect", 75, reduced.getWidth());
+            assertEquals("Height incorrect", 50, reduced.getHeight());
+            assertEquals("Sample incorrect", 4 * 9 - 7 * 4 * 5, reduced.getDoubleAtPosition(5, 9), 0);
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    /** Tests that a tiled, LZW compressed grayscale image is read back unchanged. */
+    @Test
+    public void testTiledImage() throws Exception
+    {
+        BufferedImage image = new BufferedImage(100, 70, BufferedImage.TYPE_BYTE_GRAY);
+        for (int y = 0; y < 70; y++)
+        {
+            for (int x = 0; x < 100; x++)
+            {
+                image.getRaster().setSample(x, y, 0, (x * y) % 256);
+            }
+        }
+
+        GeotiffWriter writer = new GeotiffWriter(this.file);
+        try
+        {
+            writer.setTileSize(32);
+            writer.setCompression(Tiff.Compression.LZW);
+            writer.write(image);
+        }
+        finally
+        {
+            writer.close();
+        }
+
+        GeotiffReader reader = new GeotiffReader(this.file);
+        try
+        {
+            BufferedImage result = ((BufferedImageRaster) reader.readDataRaster(0)).getBufferedImage();
+            for (int y = 0; y < 70; y++)
+            {
+                for (int x = 0; x < 100; x++)
+                {
+                    assertEquals("Pixel incorrect", (x * y) % 256, result.getRaster().getSample(x, y, 0));
+                }
+            }
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    /** Tests that tile sizes that are not multiples of 16 are rejected. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidTileSize() throws Exception
+    {
+        new GeotiffWriter(this.file).setTileSize(100);
+    }
+}
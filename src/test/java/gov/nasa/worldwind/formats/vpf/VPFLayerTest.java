@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.formats.vpf;
+
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.cache.MemoryCache;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class VPFLayerTest
+{
+    private File root;
+    private VPFCoverage coverage;
+    private VPFTile tile;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.root = Files.createTempDirectory("VPFLayerTest").toFile();
+
+        VPFDatabase database = new VPFDatabase(this.root.getPath());
+        VPFLibrary library = new VPFLibrary(database);
+        library.set(Keys.DISPLAY_NAME, "lib");
+        this.coverage = new VPFCoverage(library);
+        this.coverage.set(Keys.DISPLAY_NAME, "cov");
+        this.tile = new VPFTile(1, "tile1", new VPFBoundingBox(0, 0, 1, 1));
+
+        File tileDir = new File(this.coverage.getFilePath(), this.tile.getName());
+        assertTrue(tileDir.mkdirs());
+        writeFile(new File(tileDir, "edg"), 1000);
+        writeFile(new File(tileDir, "fac"), 500);
+    }
+
+    @After
+    public void tearDown()
+    {
+        delete(this.root);
+    }
+
+    private static void writeFile(File file, int length) throws IOException
+    {
+        try (OutputStream out = new FileOutputStream(file))
+        {
+            out.write(new byte[length]);
+        }
+    }
+
+    private static void delete(File file)
+    {
+        File[] children = file.listFiles();
+        if (children != null)
+        {
+            for (File child : children)
+            {
+                delete(child);
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    @Test
+    public void testTileCacheIsRegisteredAndShared()
+    {
+        VPFLayer layer1 = new VPFLayer();
+        VPFLayer layer2 = new VPFLayer();
+
+        MemoryCache cache = WorldWind.getMemoryCacheSet().getCache(VPFLayer.class.getName());
+        assertNotNull(cache);
+        assertSame(cache, layer1.tileCache);
+        assertSame(cache, layer2.tileCache);
+    }
+
+    @Test
+    public void testTableCacheIsNamedAfterFactory()
+    {
+        assertEquals(VPFBasicFeatureFactory.class.getName(), VPFBasicFeatureFactory.TABLE_CACHE_NAME);
+        assertTrue(WorldWind.getMemoryCacheSet().containsCache(VPFBasicFeatureFactory.class.getName()));
+    }
+
+    @Test
+    public void testTileSizeIsListedOnce() throws IOException
+    {
+        VPFLayer layer = new VPFLayer();
+        VPFLayer.VPFSymbolCollection symbols = new VPFLayer.VPFSymbolCollection(Collections.emptyList());
+
+        long size = layer.estimateTileSize(this.coverage, this.tile, symbols);
+        assertEquals(VPFLayer.SYMBOL_SIZE_ESTIMATE + 1500, size);
+
+        // A file added after the first estimate is not listed again.
+        writeFile(new File(new File(this.coverage.getFilePath(), this.tile.getName()), "txt"), 700);
+        assertEquals(size, layer.estimateTileSize(this.coverage, this.tile, symbols));
+    }
+
+    @Test
+    public void testUntiledCoverageSize()
+    {
+        VPFLayer layer = new VPFLayer();
+        VPFLayer.VPFSymbolCollection symbols = new VPFLayer.VPFSymbolCollection(Collections.emptyList());
+
+        assertEquals(VPFLayer.SYMBOL_SIZE_ESTIMATE, layer.estimateTileSize(this.coverage, null, symbols));
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.layers.ogc.collada.impl;
+
+import com.jogamp.opengl.GL;
+import gov.nasa.worldwind.cache.MemoryCache;
+import gov.nasa.worldwind.geom.Box;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.nio.FloatBuffer;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ColladaMeshDataTest
+{
+    private static final float[] TRIANGLE = {0, 0, 0, 2, 0, 0, 0, 4, 6};
+
+    /** Tests that meshes with identical content have equal keys, and that any difference produces a different key. */
+    @Test
+    public void testMeshKey()
+    {
+        ColladaMeshData.MeshKey key = new ColladaMeshData.MeshKey(GL.GL_TRIANGLES, new int[] {3},
+            FloatBuffer.wrap(TRIANGLE.clone()));
+        ColladaMeshData.MeshKey same = new ColladaMeshData.MeshKey(GL.GL_TRIANGLES, new int[] {3},
+            FloatBuffer.wrap(TRIANGLE.clone()));
+
+        assertEquals("Identical meshes have different keys", key, same);
+        assertEquals("Identical meshes have different hash codes", key.hashCode(), same.hashCode());
+
+        float[] moved = TRIANGLE.clone();
+        moved[8] = 7;
+        assertFalse("Different vertices have equal keys", key.equals(
+            new ColladaMeshData.MeshKey(GL.GL_TRIANGLES, new int[] {3}, FloatBuffer.wrap(moved))));
+        assertFalse("Different element types have equal keys", key.equals(
+            new ColladaMeshData.MeshKey(GL.GL_LINES, new int[] {3}, FloatBuffer.wrap(TRIANGLE.clone()))));
+    }
+
+    /** Tests that the local bounds include only vertex coordinates, not the normals that follow them. */
+    @Test
+    public void testLocalBounds()
+    {
+        FloatBuffer buffer = FloatBuffer.allocate(18);
+        buffer.put(TRIANGLE);
+        buffer.put(new float[] {0, 0, 100, 0, 0, 100, 0, 0, 100});
+        buffer.rewind();
+
+        ColladaMeshData data = new ColladaMeshData(buffer, 9, -1, new int[] {0});
+        Box bounds = data.getLocalBounds();
+
+        assertNotNull(bounds);
+        // The triangle's vertices are within 8 meters of each other. The normals would extend the bounds to 100 meters.
+        double maxLength = Math.max(bounds.getRLength(), Math.max(bounds.getSLength(), bounds.getTLength()));
+        assertTrue("Bounds include normals", maxLength < 8);
+        assertNotNull(data.getNormalBuffer());
+        assertNull(data.getTexCoordBuffer());
+        assertEquals("Normal count incorrect", 9, data.getNormalBuffer().remaining());
+    }
+
+    /** Tests that mesh data known by a disk cache key is counted once toward the mesh cache's used capacity. */
+    @Test
+    public void testFileKeyCountsMeshOnce()
+    {
+        float[] vertices = TRIANGLE.clone();
+        vertices[0] = -1; // Differ from the meshes of other tests.
+        FloatBuffer buffer = FloatBuffer.wrap(vertices);
+        ColladaMeshData data = new ColladaMeshData(buffer, -1, -1, new int[] {0});
+        ColladaMeshData.MeshKey key = new ColladaMeshData.MeshKey(GL.GL_TRIANGLES, new int[] {3}, buffer);
+        String fileKey = "testFileKeyCountsMeshOnce#geometry";
+
+        MemoryCache cache = ColladaMeshShape.getMeshCache();
+        long used = cache.getUsedCapacity();
+        cache.add(key, data);
+        ColladaMeshShape.addMeshDataFileKey(fileKey, data);
+
+        assertSame("Mesh not found by file key", data, ColladaMeshShape.getMeshDataByFileKey(fileKey));
+        assertEquals("Mesh counted more than once", data.getSizeInBytes() + 2L * fileKey.length(),
+            cache.getUsedCapacity() - used);
+        assertNull(ColladaMeshShape.getMeshDataByFileKey("testFileKeyCountsMeshOnce#missing"));
+
+        cache.remove(key);
+        cache.remove(fileKey);
+    }
+}
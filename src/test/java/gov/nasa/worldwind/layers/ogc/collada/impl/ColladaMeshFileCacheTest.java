@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.layers.ogc.collada.impl;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.nio.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ColladaMeshFileCacheTest
+{
+    private static final String KEY = "/data/model.dae@1589241600000@2048#geometry#4";
+
+    /** Tests that encoded mesh data decodes to the same vertex data, partitioning and buffer positions. */
+    @Test
+    public void testEncodeDecode()
+    {
+        float[] coords = {0, 0, 0, 1, 0, 0, 0, 1, 0, 0, 0, 1, 0, 0, 1, 0, 0, 1, 0, 0, 1, 0, 1, 1};
+        ColladaMeshData data = new ColladaMeshData(FloatBuffer.wrap(coords), 9, 18, new int[] {0, 2});
+
+        ColladaMeshData decoded = ColladaMeshFileCache.decode(ColladaMeshFileCache.encode(data, KEY), KEY);
+
+        assertNotNull(decoded);
+        assertEquals("Normal position incorrect", 9, decoded.getNormalBufferPosition());
+        assertEquals("Texture coordinate position incorrect", 18, decoded.getTexCoordBufferPosition());
+        assertEquals("Offset incorrect", 2, decoded.getOffset(1));
+        assertEquals("Vertex data incorrect", FloatBuffer.wrap(coords), decoded.getCoordBuffer());
+    }
+
+    /** Tests that data that is not an encoded mesh, or is truncated, is rejected. */
+    @Test
+    public void testDecodeInvalid()
+    {
+        ColladaMeshData data = new ColladaMeshData(FloatBuffer.wrap(new float[9]), -1, -1, new int[] {0});
+        ByteBuffer encoded = ColladaMeshFileCache.encode(data, KEY);
+
+        ByteBuffer truncated = encoded.duplicate();
+        truncated.limit(truncated.limit() - 4);
+        assertNull("Truncated mesh accepted", ColladaMeshFileCache.decode(truncated, KEY));
+
+        ByteBuffer corrupt = ByteBuffer.allocate(encoded.capacity());
+        corrupt.putInt(0, 42);
+        assertNull("Invalid mesh accepted", ColladaMeshFileCache.decode(corrupt, KEY));
+    }
+
+    /** Tests that a mesh written with a different key, such as a colliding or stale mesh, is rejected. */
+    @Test
+    public void testDecodeDifferentKey()
+    {
+        ColladaMeshData data = new ColladaMeshData(FloatBuffer.wrap(new float[9]), -1, -1, new int[] {0});
+        ByteBuffer encoded = ColladaMeshFileCache.encode(data, KEY);
+
+        assertNull("Mesh with different key accepted",
+            ColladaMeshFileCache.decode(encoded.duplicate(), "/data/model.dae@1589241600001@2048#geometry#4"));
+        assertNotNull("Mesh with same key rejected", ColladaMeshFileCache.decode(encoded.duplicate(), KEY));
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.layers.rpf;
+
+import gov.nasa.worldwind.geom.Sector;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class RPFFileIndexTest
+{
+    private static RPFFileIndex createIndex()
+    {
+        RPFFileIndex index = new RPFFileIndex();
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++)
+        {
+            RPFFileIndex.RPFFileRecord record = (RPFFileIndex.RPFFileRecord) index.createRPFFileRecord(
+                new File("/rpf/dir" + (i % 10), "0000000" + (i % 10) + ".CA" + (i % 5)));
+            double lat = -80 + 160 * random.nextDouble();
+            double lon = -170 + 340 * random.nextDouble();
+            // Leave some records without a sector.
+            if (i % 100 != 0)
+                record.setSector(Sector.fromDegrees(lat, lat + random.nextDouble(), lon, lon + random.nextDouble()));
+        }
+        index.updateBoundingSector();
+        return index;
+    }
+
+    private static List<Long> scan(RPFFileIndex index, Sector sector)
+    {
+        List<Long> keys = new ArrayList<>();
+        for (RPFFileIndex.Record record : index.getRPFFileTable().getRecords())
+        {
+            Sector s = ((RPFFileIndex.RPFFileRecord) record).getSector();
+            if (s != null && s.intersects(sector))
+                keys.add(record.getKey());
+        }
+        return keys;
+    }
+
+    private static List<Long> find(RPFFileIndex index, Sector sector)
+    {
+        List<Long> keys = new ArrayList<>();
+        for (RPFFileIndex.RPFFileRecord record : index.findRPFFileRecords(sector))
+        {
+            keys.add(record.getKey());
+        }
+        return keys;
+    }
+
+    /** Tests that the spatial index finds the same records, in the same order, as a scan of the file table. */
+    @Test
+    public void testFindRecords()
+    {
+        RPFFileIndex index = createIndex();
+        Sector[] sectors = {Sector.fromDegrees(10, 20, 30, 45), Sector.fromDegrees(-90, 90, -180, 180),
+            Sector.fromDegrees(-1, 1, -1, 1), Sector.fromDegrees(85, 90, 175, 180)};
+
+        for (Sector sector : sectors)
+        {
+            assertEquals("Records incorrect for " + sector, scan(index, sector), find(index, sector));
+        }
+    }
+
+    /** Tests that a saved index loads with its records, directories and spatial index. */
+    @Test
+    public void testSaveLoad() throws Exception
+    {
+        RPFFileIndex index = createIndex();
+        ByteBuffer buffer = index.save();
+
+        RPFFileIndex loaded = new RPFFileIndex();
+        loaded.load(buffer);
+
+        assertEquals("Record count incorrect", 2000, loaded.getRPFFileTable().getRecords().size());
+        assertEquals("Directory count incorrect", 10, loaded.getDirectoryTable().getRecords().size());
+        assertEquals("File incorrect", index.getRPFFile(15), loaded.getRPFFile(15));
+
+        Sector sector = Sector.fromDegrees(-30, 10, -60, 20);
+        assertEquals("Records incorrect", scan(index, sector), find(loaded, sector));
+    }
+}
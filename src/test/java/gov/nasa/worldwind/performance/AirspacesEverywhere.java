@@ -23,6 +23,61 @@ public class AirspacesEverywhere extends ApplicationTemplate {
         ApplicationTemplate.start("WorldWind Very Many Airspaces", AppFrame.class);
     }
 
+    /**
+     * Creates the layer this scene draws, so that offscreen benchmarks can draw the same scene.
+     *
+     * @return a new layer.
+     */
+    public static RenderableLayer makeLayer() {
+        double minLat = -50, maxLat = 50, minLon = -140, maxLon = -10;
+        double delta = 5;
+        double intervals = 100;
+        double dLat = 1 / intervals;
+        double dLon = 1 / intervals;
+
+        ArrayList<LatLon> positions = new ArrayList<>();
+
+        RenderableLayer layer = new RenderableLayer();
+
+        int count = 0;
+        for (double lat = minLat; lat <= maxLat; lat += delta) {
+            for (double lon = minLon; lon <= maxLon; lon += delta) {
+                positions.clear();
+                double innerLat = lat;
+                double innerLon = lon;
+
+                for (int i = 0; i <= intervals; i++) {
+                    innerLon += dLon;
+                    positions.add(LatLon.fromDegrees(innerLat, innerLon));
+                }
+
+                for (int i = 0; i <= intervals; i++) {
+                    innerLat += dLat;
+                    positions.add(LatLon.fromDegrees(innerLat, innerLon));
+                }
+
+                for (int i = 0; i <= intervals; i++) {
+                    innerLon -= dLon;
+                    positions.add(LatLon.fromDegrees(innerLat, innerLon));
+                }
+
+                for (int i = 0; i <= intervals; i++) {
+                    innerLat -= dLat;
+                    positions.add(LatLon.fromDegrees(innerLat, innerLon));
+                }
+
+                Airspace pgon = new Polygon(positions);
+                pgon.setAltitudes(1.0e3, 1.0e4);
+                pgon.setAltitudeDatum(Keys.ABOVE_MEAN_SEA_LEVEL, Keys.ABOVE_MEAN_SEA_LEVEL);
+                layer.add(pgon);
+                ++count;
+            }
+        }
+        System.out.printf("%d Polygons, %d positions\n", count, positions.size());
+
+        return layer;
+    }
+
     public static class AppFrame extends ApplicationTemplate.AppFrame {
         public AppFrame() {
             super(true, true, false);
@@ -31,53 +86,7 @@ public class AirspacesEverywhere extends ApplicationTemplate {
         }
 
         protected void makeMany() {
-            double minLat = -50, maxLat = 50, minLon = -140, maxLon = -10;
-            double delta = 5;
-            double intervals = 100;
-            double dLat = 1 / intervals;
-            double dLon = 1 / intervals;
-
-            ArrayList<LatLon> positions = new ArrayList<>();
-
-            RenderableLayer layer = new RenderableLayer();
-
-            int count = 0;
-            for (double lat = minLat; lat <= maxLat; lat += delta) {
-                for (double lon = minLon; lon <= maxLon; lon += delta) {
-                    positions.clear();
-                    double innerLat = lat;
-                    double innerLon = lon;
-
-                    for (int i = 0; i <= intervals; i++) {
-                        innerLon += dLon;
-                        positions.add(LatLon.fromDegrees(innerLat, innerLon));
-                    }
-
-                    for (int i = 0; i <= intervals; i++) {
-                        innerLat += dLat;
-                        positions.add(LatLon.fromDegrees(innerLat, innerLon));
-                    }
-
-                    for (int i = 0; i <= intervals; i++) {
-                        innerLon -= dLon;
-                        positions.add(LatLon.fromDegrees(innerLat, innerLon));
-                    }
-
-                    for (int i = 0; i <= intervals; i++) {
-                        innerLat -= dLat;
-                        positions.add(LatLon.fromDegrees(innerLat, innerLon));
-                    }
-
-                    Airspace pgon = new Polygon(positions);
-                    pgon.setAltitudes(1.0e3, 1.0e4);
-                    pgon.setAltitudeDatum(Keys.ABOVE_MEAN_SEA_LEVEL, Keys.ABOVE_MEAN_SEA_LEVEL);
-                    layer.add(pgon);
-                    ++count;
-                }
-            }
-            System.out.printf("%d Polygons, %d positions\n", count, positions.size());
-
-            WorldWindow.insertBeforeCompass(wwd(), layer);
+            WorldWindow.insertBeforeCompass(wwd(), makeLayer());
         }
     }
 }
\ No newline at end of file
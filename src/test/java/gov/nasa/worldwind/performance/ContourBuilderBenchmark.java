@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.performance;
+
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.util.*;
+
+import java.util.*;
+
+/**
+ * Times {@link ContourBuilder} on a synthetic elevation grid: a single threshold value, then many threshold values
+ * contoured in parallel. The grid size and level count may be specified as arguments, and default to a 4000 x 4000
+ * grid contoured at 50 levels.
+ */
+public class ContourBuilderBenchmark {
+    protected static final int DEFAULT_GRID_SIZE = 4000;
+    protected static final int DEFAULT_NUM_LEVELS = 50;
+    protected static final int NUM_ITERATIONS = 5;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_GRID_SIZE;
+        int numLevels = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_NUM_LEVELS;
+
+        double[] values = ContourBuilderBenchmark.makeTerrain(size, size);
+        double[] levels = new double[numLevels];
+        for (int i = 0; i < numLevels; i++) {
+            levels[i] = -1000 + (i + 0.5) * 2000 / numLevels;
+        }
+
+        System.out.printf("%d x %d grid, %d levels, %d processors\n", size, size, numLevels,
+            Runtime.getRuntime().availableProcessors());
+
+        for (int i = 0; i < NUM_ITERATIONS; i++) {
+            ContourBuilder builder = new ContourBuilder(size, size, values);
+
+            long start = System.nanoTime();
+            int numLines = builder.buildContourLines(0).size();
+            long single = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int numPolylines = 0;
+            for (ContourList list : builder.buildContourLists(levels, Sector.fromDegrees(0, 1, 0, 1))) {
+                numPolylines += list.getContourCount();
+            }
+            long multiple = System.nanoTime() - start;
+
+            System.out.printf("single level: %d ms, %d lines; %d levels: %d ms, %d lines\n", single / 1000000,
+                numLines, numLevels, multiple / 1000000, numPolylines);
+        }
+    }
+
+    /**
+     * Returns a grid of smooth hills with small ripples, ranging roughly from -1000 to 1000.
+     *
+     * @param width  the grid width.
+     * @param height the grid height.
+     * @return the grid values in row-major order.
+     */
+    protected static double[] makeTerrain(int width, int height) {
+        double[] values = new double[width * height];
+        Random random = new Random(1);
+        double phase = random.nextDouble();
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                double s = (double) x / width;
+                double t = (double) y / height;
+                values[x + y * width] = 900 * Math.sin(6 * s + phase) * Math.cos(5 * t)
+                    + 90 * Math.sin(60 * s + 45 * t);
+            }
+        }
+
+        return values;
+    }
+}
@@ -89,6 +89,63 @@ public class EllipsoidsEverywhere extends ApplicationTemplate {
         ApplicationTemplate.start("WorldWind Very Many Shapes", AppFrame.class);
     }
 
+    /**
+     * Creates the layer this scene draws, so that offscreen benchmarks can draw the same scene.
+     *
+     * @param shapeType the shapes' type: "Ellipsoid", "Box", "Pyramid", "Cylinder", "Cone" or "Wedge".
+     * @return a new layer.
+     */
+    public static RenderableLayer makeLayer(String shapeType) {
+        RenderableLayer layer = new RenderableLayer();
+        EllipsoidsEverywhere.addShapes(layer, shapeType);
+        return layer;
+    }
+
+    protected static void addShapes(RenderableLayer layer, String shapeType) {
+        int altitudeMode = WorldWind.ABSOLUTE;
+        RigidShape shape;
+
+        double minLat = -50, maxLat = 50, minLon = -140, maxLon = -10;
+        double delta = 1.5;
+        double intervals = 5;
+        double dLat = 1 / intervals;
+        double dLon = 1 / intervals;
+
+        Position position;
+
+        int count = 0;
+        for (double lat = minLat; lat <= maxLat; lat += delta) {
+            for (double lon = minLon; lon <= maxLon; lon += delta) {
+                position = new Position(Angle.fromDegreesLatitude(lat),
+                    Angle.fromDegreesLongitude(lon), 5.0e4);
+
+                if (shapeType.equalsIgnoreCase("ellipsoid"))
+                    shape = new Ellipsoid(position, 50000, 10000, 50000);
+                else if (shapeType.equalsIgnoreCase("box"))
+                    shape = new Box(position, 50000, 10000, 50000);
+                else if (shapeType.equalsIgnoreCase("pyramid"))
+                    shape = new Pyramid(position, 50000, 10000, 50000);
+                else if (shapeType.equalsIgnoreCase("cylinder"))
+                    shape = new Cylinder(position, 50000, 10000, 50000);
+                else if (shapeType.equalsIgnoreCase("cone"))
+                    shape = new Cone(position, 50000, 10000, 50000);
+                else
+                    shape = new Wedge(position, new Angle(227), 50000, 10000, 50000);
+
+                shape.setAltitudeMode(altitudeMode);
+                ShapeAttributes attrs = new BasicShapeAttributes();
+                attrs.setDrawOutline(false);
+                attrs.setInteriorMaterial(Material.RED);
+                attrs.setEnableLighting(true);
+                shape.setAttributes(attrs);
+                layer.add(shape);
+                ++count;
+            }
+        }
+        System.out.printf("%d %s, Altitude mode = %s\n", count, shapeType,
+            "ABSOLUTE");
+    }
+
     @SuppressWarnings("unchecked")
     public static class AppFrame extends ApplicationTemplate.AppFrame {
         String shapeType = "Ellipsoid";
@@ -105,49 +162,7 @@ public class EllipsoidsEverywhere extends ApplicationTemplate {
         }
 
         protected void makeMany() {
-            int altitudeMode = WorldWind.ABSOLUTE;
-            RigidShape shape;
-
-            double minLat = -50, maxLat = 50, minLon = -140, maxLon = -10;
-            double delta = 1.5;
-            double intervals = 5;
-            double dLat = 1 / intervals;
-            double dLon = 1 / intervals;
-
-            Position position;
-            RenderableLayer layer = getLayer();
-
-            int count = 0;
-            for (double lat = minLat; lat <= maxLat; lat += delta) {
-                for (double lon = minLon; lon <= maxLon; lon += delta) {
-                    position = new Position(Angle.fromDegreesLatitude(lat),
-                        Angle.fromDegreesLongitude(lon), 5.0e4);
-
-                    if (shapeType.equalsIgnoreCase("ellipsoid"))
-                        shape = new Ellipsoid(position, 50000, 10000, 50000);
-                    else if (shapeType.equalsIgnoreCase("box"))
-                        shape = new Box(position, 50000, 10000, 50000);
-                    else if (shapeType.equalsIgnoreCase("pyramid"))
-                        shape = new Pyramid(position, 50000, 10000, 50000);
-                    else if (shapeType.equalsIgnoreCase("cylinder"))
-                        shape = new Cylinder(position, 50000, 10000, 50000);
-                    else if (shapeType.equalsIgnoreCase("cone"))
-                        shape = new Cone(position, 50000, 10000, 50000);
-                    else
-                        shape = new Wedge(position, new Angle(227), 50000, 10000, 50000);
-
-                    shape.setAltitudeMode(altitudeMode);
-                    ShapeAttributes attrs = new BasicShapeAttributes();
-                    attrs.setDrawOutline(false);
-                    attrs.setInteriorMaterial(Material.RED);
-                    attrs.setEnableLighting(true);
-                    shape.setAttributes(attrs);
-                    layer.add(shape);
-                    ++count;
-                }
-            }
-            System.out.printf("%d %s, Altitude mode = %s\n", count, shapeType,
-                "ABSOLUTE");
+            EllipsoidsEverywhere.addShapes(getLayer(), shapeType);
         }
 
         protected JPanel makeShapesControlPanel() {
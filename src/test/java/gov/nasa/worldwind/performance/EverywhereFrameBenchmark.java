@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.performance;
+
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.layers.*;
+import gov.nasa.worldwind.render.markers.BasicMarkerShape;
+import gov.nasa.worldwind.terrain.ZeroElevationModel;
+import gov.nasa.worldwind.video.LayerList;
+import gov.nasa.worldwind.video.offscreen.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Renders the <code>*Everywhere</code> scenes offscreen along a fixed camera path and writes each scene's frame times,
+ * layer timings and memory use to a JSON file, so the scenes can be compared from build to build. Arguments are scene
+ * names followed by options; with no scene names every scene runs:
+ * <pre>
+ * -frames N        the number of measured frames, 60 by default
+ * -size WxH        the frame size, 1024x768 by default
+ * -out DIR         the directory for results and snapshots, "frame-benchmarks" by default
+ * -snapshots N     saves every Nth measured frame as a PNG image
+ * -earth           draws the configured model, the Earth with its WMS elevations and configured layers
+ * -online          allows data to be retrieved from the network, which is otherwise disabled
+ * </pre>
+ * By default the scene's layer is drawn on an ellipsoidal globe whose elevations are computed by a {@link
+ * SyntheticElevationModel}, so runs are repeatable and need neither the network nor an elevation cache. With
+ * <code>-earth</code> the globe's elevations depend on what has been retrieved and cached, and creating the globe
+ * retrieves the elevation server's capabilities, so that option needs network access. On a headless Linux machine run
+ * this under Xvfb, for example with <code>xvfb-run</code>, as described in {@link WorldWindowOffscreen}.
+ */
+public class EverywhereFrameBenchmark {
+    protected static final Map<String, Supplier<Layer>> SCENES = new LinkedHashMap<>();
+
+    static {
+        SCENES.put("Airspaces", AirspacesEverywhere::makeLayer);
+        SCENES.put("Ellipsoids", () -> EllipsoidsEverywhere.makeLayer("Ellipsoid"));
+        SCENES.put("ExtrudedPolygons", ExtrudedPolygonsEverywhere::makeLayer);
+        SCENES.put("Markers", () -> MarkersEverywhere.makeLayer(BasicMarkerShape.SPHERE));
+        SCENES.put("MarkersUnbatched", () -> {
+            MarkerLayer layer = MarkersEverywhere.makeLayer(BasicMarkerShape.SPHERE);
+            layer.setEnableBatching(false);
+            return layer;
+        });
+        SCENES.put("PointPlacemarks", PointPlacemarksEverywhere::makeLayer);
+        SCENES.put("Polygons", PolygonsEverywhere::makeLayer);
+        SCENES.put("SurfacePolygons", SurfacePolygonsEverywhere::makeLayer);
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> scenes = new ArrayList<>();
+        int frames = 60;
+        int width = 1024, height = 768;
+        File outDir = new File("frame-benchmarks");
+        int snapshotInterval = 0;
+        boolean earth = false;
+        boolean online = false;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-frames" -> frames = Integer.parseInt(args[++i]);
+                case "-size" -> {
+                    String[] size = args[++i].split("x");
+                    width = Integer.parseInt(size[0]);
+                    height = Integer.parseInt(size[1]);
+                }
+                case "-out" -> outDir = new File(args[++i]);
+                case "-snapshots" -> snapshotInterval = Integer.parseInt(args[++i]);
+                case "-earth" -> earth = true;
+                case "-online" -> online = true;
+                default -> {
+                    if (!SCENES.containsKey(args[i]))
+                        throw new IllegalArgumentException("Unknown scene " + args[i] + ", expected one of "
+                            + SCENES.keySet());
+                    scenes.add(args[i]);
+                }
+            }
+        }
+
+        if (scenes.isEmpty())
+            scenes.addAll(SCENES.keySet());
+
+        if (!outDir.exists() && !outDir.mkdirs())
+            throw new IOException("Cannot create " + outDir);
+
+        for (String scene : scenes) {
+            Model model = earth ? (Model) WorldWind.createConfigurationComponent(Keys.MODEL_CLASS_NAME)
+                : new BasicModel(new EllipsoidalGlobe(Earth.WGS84_EQUATORIAL_RADIUS, Earth.WGS84_POLAR_RADIUS,
+                    Earth.WGS84_ES, new SyntheticElevationModel()), new LayerList());
+
+            WorldWindowOffscreen window = new WorldWindowOffscreen(model, width, height);
+            try {
+                WorldWindow.insertBeforeCompass(window, SCENES.get(scene).get());
+
+                FrameBenchmark benchmark = new FrameBenchmark(window, EverywhereFrameBenchmark.makePath());
+                benchmark.setFrameCount(frames);
+                benchmark.setOfflineMode(!online);
+                if (snapshotInterval > 0)
+                    benchmark.setSnapshotDirectory(outDir, snapshotInterval);
+
+                FrameBenchmark.Result result = benchmark.run(scene);
+                try (OutputStream out = new FileOutputStream(new File(outDir, scene + ".json"))) {
+                    result.writeJSON(out);
+                }
+                System.out.println(result);
+            }
+            finally {
+                window.shutdown();
+            }
+        }
+
+        WorldWind.shutDown();
+    }
+
+    /**
+     * Returns a path that descends from a view of the whole hemisphere the scenes cover to a tilted view of a few
+     * shapes, then turns and climbs across the scenes' region.
+     *
+     * @return the camera path.
+     */
+    protected static CameraPath makePath() {
+        return new CameraPath()
+            .add(Position.fromDegrees(0, -75, 2.0e7), Angle.ZERO, Angle.ZERO)
+            .add(Position.fromDegrees(-15, -75, 5.0e6), Angle.ZERO, new Angle(30))
+            .add(Position.fromDegrees(5, -60, 8.0e5), new Angle(45), new Angle(65))
+            .add(Position.fromDegrees(30, -100, 2.0e6), new Angle(-60), new Angle(45));
+    }
+
+    /**
+     * Rolling terrain up to a few kilometers high, computed from a sum of sinusoids, so frames are rendered over the
+     * same terrain from run to run.
+     */
+    protected static class SyntheticElevationModel extends ZeroElevationModel {
+        protected static final double AMPLITUDE = 1500;
+
+        protected static double elevation(double latRadians, double lonRadians) {
+            return AMPLITUDE * (1 + Math.sin(40 * latRadians) * Math.cos(60 * lonRadians));
+        }
+
+        @Override
+        public double getMaxElevation() {
+            return 2 * AMPLITUDE;
+        }
+
+        @Override
+        public double getMinElevation() {
+            return 0;
+        }
+
+        @Override
+        public double[] getExtremeElevations(Angle latitude, Angle longitude) {
+            return new double[] {this.getMinElevation(), this.getMaxElevation()};
+        }
+
+        @Override
+        public double[] getExtremeElevations(Sector sector) {
+            return new double[] {this.getMinElevation(), this.getMaxElevation()};
+        }
+
+        @Override
+        public double getUnmappedElevation(Angle latitude, Angle longitude) {
+            return SyntheticElevationModel.elevation(latitude.radians(), longitude.radians());
+        }
+
+        @Override
+        public double getElevations(Sector sector, List<? extends LatLon> latlons, double targetResolution,
+            double[] buffer) {
+            for (int i = 0; i < latlons.size(); i++) {
+                LatLon ll = latlons.get(i);
+                buffer[i] = SyntheticElevationModel.elevation(Math.toRadians(ll.lat), Math.toRadians(ll.lon));
+            }
+
+            return targetResolution;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.performance;
+
+import gov.nasa.worldwind.WorldWindow;
+import gov.nasa.worldwind.examples.ApplicationTemplate;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.layers.MarkerLayer;
+import gov.nasa.worldwind.render.Material;
+import gov.nasa.worldwind.render.markers.*;
+
+import javax.swing.*;
+import javax.swing.border.*;
+import java.awt.*;
+import java.util.ArrayList;
+
+/**
+ * Draws 173,520 markers, one every half degree between 60 degrees south and 60 degrees north, to compare the frame
+ * rate of batched and individually drawn markers. Compare the frame rates shown in the statistics panel with batching
+ * enabled and disabled, at the default view and zoomed in.
+ */
+public class MarkersEverywhere extends ApplicationTemplate {
+    public static void main(String[] args) {
+        ApplicationTemplate.start("WorldWind Very Many Markers", AppFrame.class);
+    }
+
+    /**
+     * Creates the layer this scene draws, so that offscreen benchmarks can draw the same scene.
+     *
+     * @param shapeType the markers' shape.
+     * @return a new layer.
+     */
+    public static MarkerLayer makeLayer(String shapeType) {
+        MarkerLayer layer = new MarkerLayer(MarkersEverywhere.makeMarkers(shapeType));
+        layer.setKeepSeparated(false);
+        layer.setOverrideMarkerElevation(false);
+        return layer;
+    }
+
+    protected static ArrayList<Marker> makeMarkers(String shapeType) {
+        double minLat = -60, maxLat = 60, minLon = -180, maxLon = 180;
+        double delta = 0.5;
+
+        MarkerAttributes[] attrs = {
+            new BasicMarkerAttributes(Material.RED, shapeType, 1),
+            new BasicMarkerAttributes(Material.GREEN, shapeType, 1),
+            new BasicMarkerAttributes(Material.BLUE, shapeType, 1)};
+
+        ArrayList<Marker> markers = new ArrayList<>();
+        for (double lat = minLat; lat <= maxLat; lat += delta) {
+            for (double lon = minLon; lon < maxLon; lon += delta) {
+                markers.add(new BasicMarker(Position.fromDegrees(lat, lon, 1.0e4), attrs[markers.size() % 3]));
+            }
+        }
+        return markers;
+    }
+
+    public static class AppFrame extends ApplicationTemplate.AppFrame {
+        protected final MarkerLayer layer = new MarkerLayer();
+        protected String shapeType = BasicMarkerShape.SPHERE;
+
+        public AppFrame() {
+            super(true, true, true);
+
+            this.layer.setKeepSeparated(false);
+            this.layer.setOverrideMarkerElevation(false);
+            WorldWindow.insertBeforeCompass(wwd(), this.layer);
+
+            this.getControlPanel().add(this.makeControlPanel(), BorderLayout.SOUTH);
+            this.makeMany();
+        }
+
+        protected void makeMany() {
+            ArrayList<Marker> markers = MarkersEverywhere.makeMarkers(this.shapeType);
+            System.out.printf("%d %s markers, batching = %b\n", markers.size(), this.shapeType,
+                this.layer.isEnableBatching());
+
+            this.layer.setMarkers(markers);
+        }
+
+        protected JPanel makeControlPanel() {
+            JPanel panel = new JPanel(new GridLayout(2, 1, 0, 5));
+            panel.setBorder(new CompoundBorder(BorderFactory.createEmptyBorder(9, 9, 9, 9),
+                new TitledBorder("Markers")));
+
+            JCheckBox batchingCheckBox = new JCheckBox("Batching", this.layer.isEnableBatching());
+            batchingCheckBox.addActionListener(e -> {
+                this.layer.setEnableBatching(((AbstractButton) e.getSource()).isSelected());
+                wwd().redraw();
+            });
+            panel.add(batchingCheckBox);
+
+            String[] shapeTypes = {BasicMarkerShape.SPHERE, BasicMarkerShape.CUBE, BasicMarkerShape.CONE,
+                BasicMarkerShape.CYLINDER};
+            JComboBox<String> shapeList = new JComboBox<>(shapeTypes);
+            shapeList.addActionListener(e -> {
+                this.shapeType = (String) shapeList.getSelectedItem();
+                this.makeMany();
+                wwd().redraw();
+            });
+            panel.add(shapeList);
+
+            return panel;
+        }
+    }
+}
@@ -23,38 +23,47 @@ public class PointPlacemarksEverywhere extends ApplicationTemplate {
         ApplicationTemplate.start("WorldWind Very Many Point Placemarks", AppFrame.class);
     }
 
-    public static class AppFrame extends ApplicationTemplate.AppFrame {
-        public AppFrame() {
-            super(true, true, false);
+    /**
+     * Creates the layer this scene draws, so that offscreen benchmarks can draw the same scene.
+     *
+     * @return a new layer.
+     */
+    public static RenderableLayer makeLayer() {
+        int altitudeMode = WorldWind.RELATIVE_TO_GROUND;
 
-            makeMany();
-        }
+        double minLat = -50, maxLat = 50, minLon = -140, maxLon = -10;
+        double delta = 1.5;
+        double intervals = 5;
 
-        protected void makeMany() {
-            int altitudeMode = WorldWind.RELATIVE_TO_GROUND;
+        ArrayList<Position> positions = new ArrayList<>();
 
-            double minLat = -50, maxLat = 50, minLon = -140, maxLon = -10;
-            double delta = 1.5;
-            double intervals = 5;
+        RenderableLayer layer = new RenderableLayer();
 
-            ArrayList<Position> positions = new ArrayList<>();
+        int count = 0;
+        for (double lat = minLat; lat <= maxLat; lat += delta) {
+            for (double lon = minLon; lon <= maxLon; lon += delta) {
 
-            RenderableLayer layer = new RenderableLayer();
+                PointPlacemark pm = new PointPlacemark(Position.fromDegrees(lat, lon, 5.0e4));
+                pm.setAltitudeMode(altitudeMode);
+                layer.add(pm);
+                ++count;
+            }
+        }
+        System.out.printf("%d Placemarks, Altitude mode = %s\n", count, positions.size(),
+            "RELATIVE_TO_GROUND");
 
-            int count = 0;
-            for (double lat = minLat; lat <= maxLat; lat += delta) {
-                for (double lon = minLon; lon <= maxLon; lon += delta) {
+        return layer;
+    }
 
-                    PointPlacemark pm = new PointPlacemark(Position.fromDegrees(lat, lon, 5.0e4));
-                    pm.setAltitudeMode(altitudeMode);
-                    layer.add(pm);
-                    ++count;
-                }
-            }
-            System.out.printf("%d Placemarks, Altitude mode = %s\n", count, positions.size(),
-                "RELATIVE_TO_GROUND");
+    public static class AppFrame extends ApplicationTemplate.AppFrame {
+        public AppFrame() {
+            super(true, true, false);
 
-            WorldWindow.insertBeforeCompass(wwd(), layer);
+            makeMany();
+        }
+
+        protected void makeMany() {
+            WorldWindow.insertBeforeCompass(wwd(), makeLayer());
         }
     }
 }
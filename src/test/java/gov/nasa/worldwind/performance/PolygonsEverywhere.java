@@ -23,6 +23,69 @@ public class PolygonsEverywhere extends ApplicationTemplate {
         ApplicationTemplate.start("WorldWind Very Many Polygons", AppFrame.class);
     }
 
+    /**
+     * Creates the layer this scene draws, so that offscreen benchmarks can draw the same scene.
+     *
+     * @return a new layer.
+     */
+    public static RenderableLayer makeLayer() {
+        int altitudeMode = WorldWind.ABSOLUTE;
+
+        double minLat = -50, maxLat = 50, minLon = -140, maxLon = -10;
+        double delta = 1.5;
+        double intervals = 5;
+        double dLat = 1 / intervals;
+        double dLon = 1 / intervals;
+
+        ArrayList<Position> positions = new ArrayList<>();
+
+        RenderableLayer layer = new RenderableLayer();
+        layer.setPickEnabled(false);
+
+        int count = 0;
+        for (double lat = minLat; lat <= maxLat; lat += delta) {
+            for (double lon = minLon; lon <= maxLon; lon += delta) {
+                positions.clear();
+                double innerLat = lat;
+                double innerLon = lon;
+
+                for (int i = 0; i <= intervals; i++) {
+                    innerLon += dLon;
+                    positions.add(Position.fromDegrees(innerLat, innerLon, 5.0e4));
+                }
+
+                for (int i = 0; i <= intervals; i++) {
+                    innerLat += dLat;
+                    positions.add(Position.fromDegrees(innerLat, innerLon, 5.0e4));
+                }
+
+                for (int i = 0; i <= intervals; i++) {
+                    innerLon -= dLon;
+                    positions.add(Position.fromDegrees(innerLat, innerLon, 5.0e4));
+                }
+
+                for (int i = 0; i <= intervals; i++) {
+                    innerLat -= dLat;
+                    positions.add(Position.fromDegrees(innerLat, innerLon, 5.0e4));
+                }
+
+                Polygon pgon = new Polygon(positions);
+                pgon.setAltitudeMode(altitudeMode);
+                ShapeAttributes attrs = new BasicShapeAttributes();
+                attrs.setDrawOutline(false);
+                attrs.setInteriorMaterial(Material.RED);
+                attrs.setEnableLighting(true);
+                pgon.setAttributes(attrs);
+                layer.add(pgon);
+                ++count;
+            }
+        }
+        System.out.printf("%d Polygons, %d positions each, Altitude mode = %s\n", count, positions.size(),
+            "ABSOLUTE");
+
+        return layer;
+    }
+
     public static class AppFrame extends ApplicationTemplate.AppFrame {
         public AppFrame() {
             super(true, true, false);
@@ -31,61 +94,7 @@ public class PolygonsEverywhere extends ApplicationTemplate {
         }
 
         protected void makeMany() {
-            int altitudeMode = WorldWind.ABSOLUTE;
-
-            double minLat = -50, maxLat = 50, minLon = -140, maxLon = -10;
-            double delta = 1.5;
-            double intervals = 5;
-            double dLat = 1 / intervals;
-            double dLon = 1 / intervals;
-
-            ArrayList<Position> positions = new ArrayList<>();
-
-            RenderableLayer layer = new RenderableLayer();
-            layer.setPickEnabled(false);
-
-            int count = 0;
-            for (double lat = minLat; lat <= maxLat; lat += delta) {
-                for (double lon = minLon; lon <= maxLon; lon += delta) {
-                    positions.clear();
-                    double innerLat = lat;
-                    double innerLon = lon;
-
-                    for (int i = 0; i <= intervals; i++) {
-                        innerLon += dLon;
-                        positions.add(Position.fromDegrees(innerLat, innerLon, 5.0e4));
-                    }
-
-                    for (int i = 0; i <= intervals; i++) {
-                        innerLat += dLat;
-                        positions.add(Position.fromDegrees(innerLat, innerLon, 5.0e4));
-                    }
-
-                    for (int i = 0; i <= intervals; i++) {
-                        innerLon -= dLon;
-                        positions.add(Position.fromDegrees(innerLat, innerLon, 5.0e4));
-                    }
-
-                    for (int i = 0; i <= intervals; i++) {
-                        innerLat -= dLat;
-                        positions.add(Position.fromDegrees(innerLat, innerLon, 5.0e4));
-                    }
-
-                    Polygon pgon = new Polygon(positions);
-                    pgon.setAltitudeMode(altitudeMode);
-                    ShapeAttributes attrs = new BasicShapeAttributes();
-                    attrs.setDrawOutline(false);
-                    attrs.setInteriorMaterial(Material.RED);
-                    attrs.setEnableLighting(true);
-                    pgon.setAttributes(attrs);
-                    layer.add(pgon);
-                    ++count;
-                }
-            }
-            System.out.printf("%d Polygons, %d positions each, Altitude mode = %s\n", count, positions.size(),
-                "ABSOLUTE");
-
-            WorldWindow.insertBeforeCompass(wwd(), layer);
+            WorldWindow.insertBeforeCompass(wwd(), makeLayer());
         }
     }
 }
@@ -23,6 +23,65 @@ public class SurfacePolygonsEverywhere extends ApplicationTemplate {
         ApplicationTemplate.start("WorldWind Very Many Surface Polygons", AppFrame.class);
     }
 
+    /**
+     * Creates the layer this scene draws, so that offscreen benchmarks can draw the same scene.
+     *
+     * @return a new layer.
+     */
+    public static RenderableLayer makeLayer() {
+        double minLat = -50, maxLat = 50, minLon = -140, maxLon = -10;
+        double delta = 1.5;
+        double intervals = 5;
+        double dLat = 1 / intervals;
+        double dLon = 1 / intervals;
+
+        ArrayList<LatLon> positions = null;
+
+        RenderableLayer layer = new RenderableLayer();
+        layer.setPickEnabled(false);
+
+        int count = 0;
+        for (double lat = minLat; lat <= maxLat; lat += delta) {
+            for (double lon = minLon; lon <= maxLon; lon += delta) {
+                positions = new ArrayList<>();
+                double innerLat = lat;
+                double innerLon = lon;
+
+                for (int i = 0; i <= intervals; i++) {
+                    innerLon += dLon;
+                    positions.add(LatLon.fromDegrees(innerLat, innerLon));
+                }
+
+                for (int i = 0; i <= intervals; i++) {
+                    innerLat += dLat;
+                    positions.add(LatLon.fromDegrees(innerLat, innerLon));
+                }
+
+                for (int i = 0; i <= intervals; i++) {
+                    innerLon -= dLon;
+                    positions.add(LatLon.fromDegrees(innerLat, innerLon));
+                }
+
+                for (int i = 0; i <= intervals; i++) {
+                    innerLat -= dLat;
+                    positions.add(LatLon.fromDegrees(innerLat, innerLon));
+                }
+
+                SurfaceShape pgon = new SurfacePolygon(positions);
+                ShapeAttributes attrs = new BasicShapeAttributes();
+                attrs.setDrawOutline(true);
+                attrs.setInteriorMaterial(Material.RED);
+                attrs.setEnableLighting(true);
+                pgon.setAttributes(attrs);
+                layer.add(pgon);
+                ++count;
+            }
+        }
+        System.out.printf("%d Polygons, %d positions each\n", count, positions.size());
+
+        return layer;
+    }
+
     public static class AppFrame extends ApplicationTemplate.AppFrame {
         public AppFrame() {
             super(true, true, false);
@@ -31,57 +90,7 @@ public class SurfacePolygonsEverywhere extends ApplicationTemplate {
         }
 
         protected void makeMany() {
-            double minLat = -50, maxLat = 50, minLon = -140, maxLon = -10;
-            double delta = 1.5;
-            double intervals = 5;
-            double dLat = 1 / intervals;
-            double dLon = 1 / intervals;
-
-            ArrayList<LatLon> positions = null;
-
-            RenderableLayer layer = new RenderableLayer();
-            layer.setPickEnabled(false);
-
-            int count = 0;
-            for (double lat = minLat; lat <= maxLat; lat += delta) {
-                for (double lon = minLon; lon <= maxLon; lon += delta) {
-                    positions = new ArrayList<>();
-                    double innerLat = lat;
-                    double innerLon = lon;
-
-                    for (int i = 0; i <= intervals; i++) {
-                        innerLon += dLon;
-                        positions.add(LatLon.fromDegrees(innerLat, innerLon));
-                    }
-
-                    for (int i = 0; i <= intervals; i++) {
-                        innerLat += dLat;
-                        positions.add(LatLon.fromDegrees(innerLat, innerLon));
-                    }
-
-                    for (int i = 0; i <= intervals; i++) {
-                        innerLon -= dLon;
-                        positions.add(LatLon.fromDegrees(innerLat, innerLon));
-                    }
-
-                    for (int i = 0; i <= intervals; i++) {
-                        innerLat -= dLat;
-                        positions.add(LatLon.fromDegrees(innerLat, innerLon));
-                    }
-
-                    SurfaceShape pgon = new SurfacePolygon(positions);
-                    ShapeAttributes attrs = new BasicShapeAttributes();
-                    attrs.setDrawOutline(true);
-                    attrs.setInteriorMaterial(Material.RED);
-                    attrs.setEnableLighting(true);
-                    pgon.setAttributes(attrs);
-                    layer.add(pgon);
-                    ++count;
-                }
-            }
-            System.out.printf("%d Polygons, %d positions each\n", count, positions.size());
-
-            WorldWindow.insertBeforeCompass(wwd(), layer);
+            WorldWindow.insertBeforeCompass(wwd(), makeLayer());
         }
     }
 }
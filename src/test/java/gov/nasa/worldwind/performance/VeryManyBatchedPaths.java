@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.performance;
+
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.examples.ApplicationTemplate;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.layers.RenderableLayer;
+import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.util.WWUtil;
+
+import javax.swing.Timer;
+import java.util.List;
+import java.util.*;
+
+/**
+ * Draws the paths of {@link VeryManyPaths} in a single {@link BatchedShapeCollection}, along with a wedge polygon at
+ * every tenth path, and changes a few paths ten times a second to exercise incremental regeneration.
+ */
+public class VeryManyBatchedPaths extends ApplicationTemplate {
+    protected static final int NUM_PATHS = 2000;
+    protected static final int NUM_POSITIONS = 300;
+    protected static final int NUM_ATTRIBUTES = 16;
+    protected static final int NUM_MOVED_PER_TICK = 20;
+    protected static final Angle PATH_LENGTH = new Angle(5);
+    protected static final double PATH_HEIGHT = 1.0e3;
+    protected static final LatLon START_LOCATION = LatLon.fromDegrees(48.86, 2.33);
+
+    public static void main(String[] args) {
+        ApplicationTemplate.start("WorldWind Batched Paths", AppFrame.class);
+    }
+
+    public static class AppFrame extends ApplicationTemplate.AppFrame {
+        protected final BatchedShapeCollection shapes = new BatchedShapeCollection();
+        protected final int[] pathIds = new int[NUM_PATHS];
+        protected final Random random = new Random();
+
+        public AppFrame() {
+            super(true, true, false);
+
+            // The generated positions are already closely spaced.
+            this.shapes.setNumSubsegments(1);
+
+            ShapeAttributes[] attributes = new ShapeAttributes[NUM_ATTRIBUTES];
+            for (int i = 0; i < NUM_ATTRIBUTES; i++) {
+                attributes[i] = new BasicShapeAttributes();
+                attributes[i].setOutlineMaterial(new Material(WWUtil.makeRandomColor(null)));
+                attributes[i].setInteriorMaterial(attributes[i].getOutlineMaterial());
+                attributes[i].setInteriorOpacity(0.5);
+            }
+
+            Position origin = new Position(START_LOCATION, PATH_HEIGHT);
+            double dAngle = 360.0d / NUM_PATHS;
+            for (int i = 0; i < NUM_PATHS; i++) {
+                List<Position> positions = AppFrame.makePositions(origin, new Angle(i * dAngle), PATH_LENGTH);
+                this.pathIds[i] = this.shapes.addPath(positions, attributes[i % NUM_ATTRIBUTES]);
+
+                // Add a thin wedge polygon at every tenth heading.
+                if (i % 10 == 0) {
+                    List<Position> wedge = new ArrayList<>();
+                    wedge.add(origin);
+                    wedge.add(new Position(Position.greatCircleEndPosition(origin, new Angle(i * dAngle),
+                        PATH_LENGTH), PATH_HEIGHT));
+                    wedge.add(new Position(Position.greatCircleEndPosition(origin, new Angle((i + 5) * dAngle),
+                        PATH_LENGTH), PATH_HEIGHT));
+                    this.shapes.addPolygon(wedge, attributes[i % NUM_ATTRIBUTES]);
+                }
+            }
+
+            System.out.printf("%d batched paths, each with %d positions\n", NUM_PATHS, NUM_POSITIONS);
+
+            RenderableLayer layer = new RenderableLayer();
+            layer.add(this.shapes);
+            WorldWindow.insertBeforeCompass(wwd(), layer);
+            this.wwd().view().setEyePosition(new Position(START_LOCATION, 3.0e6));
+
+            // Lengthen or shorten a few random paths on each tick; only those paths are re-tessellated.
+            new Timer(100, e -> {
+                for (int i = 0; i < NUM_MOVED_PER_TICK; i++) {
+                    int index = this.random.nextInt(NUM_PATHS);
+                    Angle length = PATH_LENGTH.multiply(0.5 + this.random.nextDouble());
+                    this.shapes.setPositions(this.pathIds[index],
+                        AppFrame.makePositions(origin, new Angle(index * dAngle), length));
+                }
+                this.wwd().redraw();
+            }).start();
+        }
+
+        protected static List<Position> makePositions(Position startPosition, Angle heading, Angle length) {
+            double dLength = length.radians() / (NUM_POSITIONS - 1);
+            List<Position> positions = new ArrayList<>(NUM_POSITIONS);
+
+            for (int i = 0; i < NUM_POSITIONS; i++) {
+                LatLon ll = Position.greatCircleEndPosition(startPosition, heading, Angle.fromRadians(i * dLength));
+                positions.add(new Position(ll, PATH_HEIGHT));
+            }
+
+            return positions;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.render;
+
+import gov.nasa.worldwind.BasicModel;
+import gov.nasa.worldwind.geom.Position;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.video.LayerList;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class BatchedShapeCollectionTest
+{
+    private DrawContext dc;
+    private BatchedShapeCollection collection;
+    private ShapeAttributes attrs;
+
+    @Before
+    public void setUp()
+    {
+        this.dc = new DrawContextImpl();
+        // A globe without an elevation model; shapes at absolute altitudes need no elevations.
+        Globe globe = new EllipsoidalGlobe(Earth.WGS84_EQUATORIAL_RADIUS, Earth.WGS84_POLAR_RADIUS, Earth.WGS84_ES,
+            null);
+        this.dc.setModel(new BasicModel(globe, new LayerList()));
+
+        this.collection = new BatchedShapeCollection();
+        this.collection.setNumSubsegments(2);
+        this.attrs = new BasicShapeAttributes();
+    }
+
+    private static List<Position> line(double lat, int numPositions)
+    {
+        List<Position> positions = new ArrayList<>();
+        for (int i = 0; i < numPositions; i++)
+        {
+            positions.add(Position.fromDegrees(lat, i, 1000));
+        }
+        return positions;
+    }
+
+    private int vertexCount(int id)
+    {
+        return this.collection.outlineCount[id] + this.collection.interiorCount[id];
+    }
+
+    private float[] vertices(int id)
+    {
+        float[] array = new float[BatchedShapeCollection.VERTEX_STRIDE * this.vertexCount(id)];
+        for (int i = 0; i < array.length; i++)
+        {
+            array[i] = this.collection.vertices.get(BatchedShapeCollection.VERTEX_STRIDE
+                * this.collection.rangeFirst[id] + i);
+        }
+        return array;
+    }
+
+    private void assertNoOverlap(int a, int b)
+    {
+        int aFirst = this.collection.rangeFirst[a], bFirst = this.collection.rangeFirst[b];
+        assertTrue(aFirst + this.vertexCount(a) <= bFirst || bFirst + this.vertexCount(b) <= aFirst);
+    }
+
+    @Test
+    public void testAllocateAfterRemove()
+    {
+        int a = this.collection.addPath(line(0, 3), this.attrs);
+        int b = this.collection.addPath(line(1, 3), this.attrs);
+        this.collection.tessellate(this.dc);
+        float[] bVertices = this.vertices(b);
+
+        this.collection.remove(a);
+        int c = this.collection.addPath(line(2, 6), this.attrs);
+        assertEquals(a, c); // the removed shape's id is reused
+        this.collection.tessellate(this.dc);
+
+        // The new shape is larger than the removed shape's range, so it is appended rather than written over b.
+        assertEquals(11, this.vertexCount(c));
+        assertNoOverlap(b, c);
+        assertTrue(this.collection.rangeFirst[c] + this.vertexCount(c) <= this.collection.vertexCount);
+        assertArrayEquals(bVertices, this.vertices(b), 0f);
+        assertEquals(2, this.collection.getShapeCount());
+    }
+
+    @Test
+    public void testCompactionMovesRanges()
+    {
+        int a = this.collection.addPath(line(0, 6), this.attrs);
+        int b = this.collection.addPath(line(1, 6), this.attrs);
+        int c = this.collection.addPath(line(2, 3), this.attrs);
+        this.collection.tessellate(this.dc);
+        float[] cVertices = this.vertices(c);
+        assertTrue(this.collection.rangeFirst[c] > 0);
+
+        // Removing a and b leaves more than half of the buffer unused, so the next tessellation compacts it.
+        this.collection.remove(a);
+        this.collection.remove(b);
+        int d = this.collection.addPath(line(3, 2), this.attrs);
+        this.collection.tessellate(this.dc);
+
+        assertEquals(0, this.collection.unusedVertexCount);
+        assertEquals(this.vertexCount(c) + this.vertexCount(d), this.collection.vertexCount);
+        assertNoOverlap(c, d);
+        assertArrayEquals(cVertices, this.vertices(c), 0f);
+        assertEquals(0, this.collection.uploadFirst);
+        assertEquals(this.collection.vertexCount, this.collection.uploadLast);
+    }
+
+    @Test
+    public void testClearThenAdd()
+    {
+        this.collection.addPath(line(0, 6), this.attrs);
+        this.collection.addPath(line(1, 6), this.attrs);
+        this.collection.tessellate(this.dc);
+        assertEquals(22, this.collection.uploadLast);
+
+        this.collection.clear();
+        assertEquals(0, this.collection.getShapeCount());
+        assertEquals(Integer.MAX_VALUE, this.collection.uploadFirst);
+        assertEquals(-1, this.collection.uploadLast);
+
+        int id = this.collection.addPath(line(2, 3), this.attrs);
+        assertEquals(0, id);
+        this.collection.tessellate(this.dc);
+
+        assertEquals(0, this.collection.rangeFirst[id]);
+        assertEquals(5, this.collection.vertexCount);
+        assertEquals(0, this.collection.uploadFirst);
+        assertEquals(5, this.collection.uploadLast);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.render;
+
+import gov.nasa.worldwind.geom.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.nio.FloatBuffer;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class InstanceBufferTest
+{
+    @Test
+    public void testMeshesFaceOutward()
+    {
+        assertFacesOutward(InstanceBuffer.Mesh.createSphere(8, 4), new Vec4(0, 0, 0));
+        assertFacesOutward(InstanceBuffer.Mesh.createCone(8), new Vec4(0, 0, 0.5));
+        assertFacesOutward(InstanceBuffer.Mesh.createCylinder(8), new Vec4(0, 0, 1));
+    }
+
+    @Test
+    public void testMeshSizes()
+    {
+        InstanceBuffer.Mesh sphere = InstanceBuffer.Mesh.createSphere(8, 4);
+        assertEquals(45, sphere.getVertexCount());
+        assertEquals(48, sphere.getTriangleCount());
+
+        InstanceBuffer.Mesh cylinder = InstanceBuffer.Mesh.createCylinder(8);
+        assertEquals(36, cylinder.getVertexCount());
+        assertEquals(32, cylinder.getTriangleCount());
+    }
+
+    @Test
+    public void testFillBuffersScalesRotatesAndTranslatesRelativeToEye()
+    {
+        InstanceBuffer.Mesh mesh = InstanceBuffer.Mesh.createCone(8);
+        InstanceBuffer instances = new InstanceBuffer(mesh);
+        Matrix rotation = Matrix.fromAxisAngle(new Angle(90), 1, 0, 0);
+        instances.add(new Vec4(1.0e6, 2.0e6, 3.0e6), null);
+        instances.add(new Vec4(1.0e6 + 100, 2.0e6, 3.0e6), rotation);
+        instances.setScale(0, 2);
+        instances.setScale(1, 3);
+
+        Vec4 eye = new Vec4(1.0e6, 2.0e6, 3.0e6 + 50);
+        // Draw the second instance first.
+        instances.fillBuffers(new DrawContextImpl(), eye, new int[] {1, 0}, 2, 0);
+
+        FloatBuffer vb = instances.vertexBuffer;
+        FloatBuffer nb = instances.normalBuffer;
+        int n = mesh.getVertexCount();
+        for (int i = 0; i < n; i++)
+        {
+            Vec4 v = new Vec4(mesh.vertices[3 * i], mesh.vertices[3 * i + 1], mesh.vertices[3 * i + 2]);
+            Vec4 normal = new Vec4(mesh.normals[3 * i], mesh.normals[3 * i + 1], mesh.normals[3 * i + 2]);
+
+            Vec4 expected = new Vec4(100, 0, -50).add3(v.transformBy3(rotation).multiply3(3));
+            assertVertexEquals(expected, vb, i);
+            assertVertexEquals(normal.transformBy3(rotation), nb, i);
+
+            expected = new Vec4(0, 0, -50).add3(v.multiply3(2));
+            assertVertexEquals(expected, vb, n + i);
+            assertVertexEquals(normal, nb, n + i);
+        }
+
+        // The index buffer repeats the mesh's indices for each drawn instance.
+        assertEquals(mesh.indices[0] + n, instances.indexBuffer.get(mesh.indices.length));
+    }
+
+    @Test
+    public void testSetMeshClearsInstances()
+    {
+        InstanceBuffer instances = new InstanceBuffer();
+        instances.add(new Vec4(1, 2, 3), null);
+
+        InstanceBuffer.Mesh mesh = InstanceBuffer.Mesh.createSphere(8, 4);
+        instances.setMesh(mesh);
+        assertEquals(0, instances.size());
+
+        instances.add(new Vec4(1, 2, 3), null);
+        instances.setMesh(mesh);
+        assertEquals(1, instances.size());
+    }
+
+    private static void assertFacesOutward(InstanceBuffer.Mesh mesh, Vec4 center)
+    {
+        int vertexCount = mesh.getVertexCount();
+        for (int t = 0; t < mesh.indices.length; t += 3)
+        {
+            Vec4[] v = new Vec4[3];
+            Vec4 normal = Vec4.ZERO;
+            for (int k = 0; k < 3; k++)
+            {
+                int i = mesh.indices[t + k];
+                assertTrue(i >= 0 && i < vertexCount);
+                v[k] = new Vec4(mesh.vertices[3 * i], mesh.vertices[3 * i + 1], mesh.vertices[3 * i + 2]);
+                normal = normal.add3(new Vec4(mesh.normals[3 * i], mesh.normals[3 * i + 1], mesh.normals[3 * i + 2]));
+            }
+
+            Vec4 faceNormal = v[1].subtract3(v[0]).cross3(v[2].subtract3(v[0]));
+            Vec4 outward = v[0].add3(v[1]).add3(v[2]).divide3(3).subtract3(center);
+            assertTrue("triangle " + t / 3 + " winds inward", faceNormal.dot3(outward) > 0);
+            assertTrue("triangle " + t / 3 + " has inward normals", normal.dot3(outward) > 0);
+        }
+    }
+
+    private static void assertVertexEquals(Vec4 expected, FloatBuffer buffer, int vertex)
+    {
+        assertEquals(expected.x, buffer.get(3 * vertex), 1.0e-3);
+        assertEquals(expected.y, buffer.get(3 * vertex + 1), 1.0e-3);
+        assertEquals(expected.z, buffer.get(3 * vertex + 2), 1.0e-3);
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.render;
+
+import gov.nasa.worldwind.BasicModel;
+import gov.nasa.worldwind.cache.BasicGpuResourceCache;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.terrain.SectorGeometryList;
+import gov.nasa.worldwind.video.LayerList;
+import gov.nasa.worldwind.view.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.*;
+import java.util.List;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class PathRegenerationTest
+{
+    private static final long TIMEOUT = 10000L;
+
+    private DrawContext dc;
+    private TestPath path;
+
+    @Before
+    public void setUp()
+    {
+        // A globe without an elevation model; paths at absolute altitudes need no elevations.
+        Globe globe = new EllipsoidalGlobe(Earth.WGS84_EQUATORIAL_RADIUS, Earth.WGS84_POLAR_RADIUS, Earth.WGS84_ES,
+            null);
+
+        this.dc = new DrawContextImpl();
+        this.dc.setModel(new BasicModel(globe, new LayerList()));
+        this.dc.setView(new TestView(globe, Position.fromDegrees(0, 0.5, 1.0e6)));
+        this.dc.setSurfaceGeometry(new SectorGeometryList());
+        this.dc.setGpuCache(new BasicGpuResourceCache());
+
+        this.path = new TestPath(line(0));
+    }
+
+    private static List<Position> line(double lat)
+    {
+        return Arrays.asList(Position.fromDegrees(lat, 0, 1000), Position.fromDegrees(lat, 1, 1000));
+    }
+
+    private void render(long frameTimeStamp)
+    {
+        this.dc.setFrameTimeStamp(frameTimeStamp);
+        this.path.render(this.dc);
+    }
+
+    private void awaitRegeneration() throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (this.path.regenerating || this.path.regeneratedData == null)
+        {
+            assertTrue("Regeneration timed out", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testRegeneratedDataIsSwappedIn() throws InterruptedException
+    {
+        this.render(1);
+        AbstractShape.AbstractShapeData original = this.path.getCurrentData();
+        assertTrue(original.hasGeometry);
+
+        original.setExpired(true);
+        this.render(2);
+        assertEquals(1, this.path.copies);
+        assertSame(original, this.path.getCurrentData());
+
+        this.awaitRegeneration();
+        this.render(3);
+        assertNotSame(original, this.path.getCurrentData());
+        assertTrue(this.path.getCurrentData().hasGeometry);
+        assertFalse(this.path.getCurrentData().isExpired(this.dc));
+        assertNull(this.path.regeneratedData);
+        assertEquals(1, this.path.copies);
+    }
+
+    @Test
+    public void testRequestsAreCoalesced() throws InterruptedException
+    {
+        this.path.release = new CountDownLatch(1);
+        this.render(1);
+
+        this.path.getCurrentData().setExpired(true);
+        this.render(2);
+        this.render(3);
+        assertTrue(this.path.requestRegeneration(this.dc));
+        assertEquals(1, this.path.copies);
+
+        this.path.release.countDown();
+        this.awaitRegeneration();
+        assertTrue(this.path.requestRegeneration(this.dc));
+        assertEquals(1, this.path.copies);
+    }
+
+    @Test
+    public void testRegeneratedDataIsDiscardedAfterReset() throws InterruptedException
+    {
+        this.path.release = new CountDownLatch(1);
+        this.render(1);
+
+        this.path.getCurrentData().setExpired(true);
+        this.render(2);
+        this.path.setPositions(line(1));
+
+        this.path.release.countDown();
+        this.awaitRegeneration();
+        this.render(3);
+        assertNull(this.path.regeneratedData);
+
+        // The geometry was regenerated on the rendering thread from the new positions.
+        Path.PathData data = this.path.getCurrentPathData();
+        assertTrue(data.hasGeometry);
+        assertEquals(1, data.getTessellatedPositions().get(0).lat, 1e-9);
+    }
+
+    @Test
+    public void testExhaustedBudgetDefersSwap() throws InterruptedException
+    {
+        this.render(1);
+        AbstractShape.AbstractShapeData original = this.path.getCurrentData();
+
+        original.setExpired(true);
+        this.render(2);
+        this.awaitRegeneration();
+
+        //noinspection StatementWithEmptyBody
+        while (AbstractShape.regenerationBudget.tryAcquire(3))
+        {
+        }
+        this.render(3);
+        assertSame(original, this.path.getCurrentData());
+        assertNotNull(this.path.regeneratedData);
+
+        this.render(4);
+        assertNotSame(original, this.path.getCurrentData());
+        assertNull(this.path.regeneratedData);
+    }
+
+    @Test
+    public void testFailedRegenerationFallsBackToRenderingThread() throws InterruptedException
+    {
+        this.render(1);
+        AbstractShape.AbstractShapeData original = this.path.getCurrentData();
+
+        this.path.fail = true;
+        original.setExpired(true);
+        this.render(2);
+        this.awaitRegeneration();
+
+        this.render(3);
+        assertNull(this.path.regeneratedData);
+        assertSame(original, this.path.getCurrentData());
+        assertTrue(original.hasGeometry);
+        assertFalse(original.isExpired(this.dc));
+        assertEquals(1, this.path.copies);
+    }
+
+    /**
+     * A path that counts the copies made for regeneration, and whose copies block on a latch or fail when regenerating
+     * on a worker thread.
+     */
+    private static class TestPath extends Path
+    {
+        private int copies;
+        private volatile CountDownLatch release = new CountDownLatch(0);
+        private volatile boolean fail;
+
+        public TestPath(List<Position> positions)
+        {
+            super(positions);
+        }
+
+        public TestPath(TestPath source)
+        {
+            super(source);
+            this.release = source.release;
+            this.fail = source.fail;
+        }
+
+        @Override
+        protected boolean isAsyncRegenerationSupported()
+        {
+            return true;
+        }
+
+        @Override
+        protected AbstractShape createRegenerationCopy()
+        {
+            this.copies++;
+            return new TestPath(this);
+        }
+
+        @Override
+        protected boolean doMakeOrderedRenderable(DrawContext dc)
+        {
+            if (AbstractShape.regenerationData.get() != null)
+            {
+                try
+                {
+                    this.release.await();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+
+                if (this.fail)
+                    throw new IllegalStateException("Regeneration failed");
+            }
+
+            return super.doMakeOrderedRenderable(dc);
+        }
+    }
+
+    /**
+     * A view looking straight down from a fixed eye position, which needs no OpenGL context to apply.
+     */
+    private static class TestView extends BasicView
+    {
+        public TestView(Globe globe, Position eyePosition)
+        {
+            Rectangle viewport = new Rectangle(800, 600);
+            this.globe = globe;
+            this.eyePosition = eyePosition;
+            this.lastEyePosition = eyePosition;
+            this.modelview = ViewUtil.computeTransformMatrix(globe, eyePosition, Angle.ZERO, Angle.ZERO, Angle.ZERO);
+            this.modelviewInv = this.modelview.getInverse();
+            this.viewport = viewport;
+            this.nearClipDistance = 100;
+            this.farClipDistance = 1.0e7;
+            this.projection = Matrix.fromPerspective(this.fieldOfView, viewport.width, viewport.height,
+                this.nearClipDistance, this.farClipDistance);
+            this.frustum = Frustum.fromPerspective(this.fieldOfView, viewport.width, viewport.height,
+                this.nearClipDistance, this.farClipDistance);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.render;
+
+import gov.nasa.worldwind.BasicModel;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.util.*;
+import gov.nasa.worldwind.video.LayerList;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class SurfaceObjectTileBuilderTest
+{
+    private DrawContext dc;
+    private SurfaceObjectTileBuilder builder;
+    private Level level;
+
+    @Before
+    public void setUp()
+    {
+        this.dc = new DrawContextImpl();
+        // A globe without an elevation model; the tile builder's index only needs the globe's state key.
+        Globe globe = new EllipsoidalGlobe(Earth.WGS84_EQUATORIAL_RADIUS, Earth.WGS84_POLAR_RADIUS, Earth.WGS84_ES,
+            null);
+        this.dc.setModel(new BasicModel(globe, new LayerList()));
+
+        LevelSet levelSet = SurfaceObjectTileBuilder.getLevelSet(512, 512);
+        this.level = levelSet.getFirstLevel();
+        this.builder = new SurfaceObjectTileBuilder();
+        this.builder.currentInfo = new SurfaceObjectTileBuilder.TileInfo(levelSet, this.builder.uniqueCacheName(),
+            512, 512);
+    }
+
+    @Test
+    public void testChangeInvalidatesOnlyIntersectingTiles()
+    {
+        TestRenderable a = new TestRenderable(Sector.fromDegrees(10, 11, 10, 11));
+        TestRenderable b = new TestRenderable(Sector.fromDegrees(-20, -19, 100, 101));
+        SurfaceObjectTileBuilder.SurfaceObjectTile tileA = this.createTile(Sector.fromDegrees(0, 36, 0, 36), 2, 5);
+        SurfaceObjectTileBuilder.SurfaceObjectTile tileB = this.createTile(Sector.fromDegrees(-36, 0, 72, 108), 1, 7);
+
+        this.update(a, b);
+        this.builder.assembleTileContents(tileA);
+        this.builder.assembleTileContents(tileB);
+        assertEquals(Collections.singletonList(a), tileA.getObjectList());
+        assertEquals(Collections.singletonList(b), tileB.getObjectList());
+
+        // Nothing changed.
+        this.update(a, b);
+        assertTrue(this.builder.isTileContentsCurrent(this.builder.currentInfo, tileA));
+        assertTrue(this.builder.isTileContentsCurrent(this.builder.currentInfo, tileB));
+
+        // Moving a marks its old and new sectors as changed.
+        a.sector = Sector.fromDegrees(12, 13, 12, 13);
+        a.stateKey++;
+        this.update(a, b);
+        assertFalse(this.builder.isTileContentsCurrent(this.builder.currentInfo, tileA));
+        assertTrue(this.builder.isTileContentsCurrent(this.builder.currentInfo, tileB));
+
+        // Removing b marks its sector as changed.
+        this.update(a);
+        assertFalse(this.builder.isTileContentsCurrent(this.builder.currentInfo, tileB));
+        this.builder.assembleTileContents(tileB);
+        assertFalse(tileB.hasObjects());
+    }
+
+    @Test
+    public void testContentsFollowSpecifiedOrder()
+    {
+        TestRenderable a = new TestRenderable(Sector.fromDegrees(10, 11, 10, 11));
+        TestRenderable b = new TestRenderable(Sector.fromDegrees(10, 12, 10, 12));
+        SurfaceObjectTileBuilder.SurfaceObjectTile tile = this.createTile(Sector.fromDegrees(0, 36, 0, 36), 2, 5);
+
+        this.update(a, b);
+        this.builder.assembleTileContents(tile);
+        assertEquals(Arrays.asList(a, b), tile.getObjectList());
+
+        // Swapping the order changes the tile's contents even though neither state key changed.
+        this.update(b, a);
+        assertFalse(this.builder.isTileContentsCurrent(this.builder.currentInfo, tile));
+        this.builder.assembleTileContents(tile);
+        assertEquals(Arrays.asList(b, a), tile.getObjectList());
+    }
+
+    private SurfaceObjectTileBuilder.SurfaceObjectTile createTile(Sector sector, int row, int column)
+    {
+        return SurfaceObjectTileBuilder.createTile(sector, this.level, row, column,
+            this.builder.currentInfo.cacheName);
+    }
+
+    private void update(SurfaceRenderable... renderables)
+    {
+        this.builder.currentSurfaceObjects.clear();
+        this.builder.currentSurfaceObjects.addAll(Arrays.asList(renderables));
+        this.builder.updateObjectIndex(this.dc);
+    }
+
+    private static class TestRenderable implements SurfaceRenderable
+    {
+        private Sector sector;
+        private int stateKey;
+
+        public TestRenderable(Sector sector)
+        {
+            this.sector = sector;
+        }
+
+        public List<Sector> getSectors(DrawContext dc)
+        {
+            return Collections.singletonList(this.sector);
+        }
+
+        public Object getStateKey(DrawContext dc)
+        {
+            return Arrays.asList(this, this.stateKey);
+        }
+
+        public void render(DrawContext dc)
+        {
+        }
+    }
+}
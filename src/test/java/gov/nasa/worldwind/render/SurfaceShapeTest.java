@@ -6,8 +6,10 @@
 
 package gov.nasa.worldwind.render;
 
-import gov.nasa.worldwind.Keys;
+import gov.nasa.worldwind.*;
 import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.video.LayerList;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -223,6 +225,28 @@ public class SurfaceShapeTest
         assertSurfaceShapeEquals(shape, shape2);
     }
 
+    @Test
+    public void testFailedGeometryIsNotRequestedUntilRetryDelay()
+    {
+        DrawContext dc = new DrawContextImpl();
+        dc.setModel(new BasicModel(new EllipsoidalGlobe(Earth.WGS84_EQUATORIAL_RADIUS, Earth.WGS84_POLAR_RADIUS,
+            Earth.WGS84_ES, null), new LayerList()));
+        SurfacePolygon shape = new SurfacePolygon(sampleLocations);
+        AbstractSurfaceShape.GeometryKey failedKey = new AbstractSurfaceShape.GeometryKey(dc, 4);
+        AbstractSurfaceShape.GeometryKey otherKey = new AbstractSurfaceShape.GeometryKey(dc, 8);
+
+        shape.regeneratedGeometry = new AbstractSurfaceShape.RegeneratedGeometry(failedKey, null,
+            shape.lastModifiedTime);
+        shape.swapRegeneratedGeometry(dc);
+        assertNull(shape.regeneratedGeometry);
+        assertTrue(shape.isGeometryRetryPending(failedKey));
+        assertFalse(shape.isGeometryRetryPending(otherKey));
+
+        // Changing the shape allows the geometry to be requested again.
+        shape.setLocations(sampleLocations2);
+        assertFalse(shape.isGeometryRetryPending(failedKey));
+    }
+
     //////////////////////////////////////////////////////////
     // Helper Methods
     //////////////////////////////////////////////////////////
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.render.airspaces;
+
+import gov.nasa.worldwind.BasicModel;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.terrain.ZeroElevationModel;
+import gov.nasa.worldwind.video.LayerList;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class AirspaceGeometryCacheTest
+{
+    private static final long TIMEOUT = 10000L;
+
+    private DrawContext dc;
+    private SphereAirspace airspace;
+    private Object cacheKey;
+    private int builds;
+
+    @Before
+    public void setUp()
+    {
+        Globe globe = new EllipsoidalGlobe(Earth.WGS84_EQUATORIAL_RADIUS, Earth.WGS84_POLAR_RADIUS, Earth.WGS84_ES,
+            new ZeroElevationModel());
+        this.dc = new DrawContextImpl();
+        this.dc.setModel(new BasicModel(globe, new LayerList()));
+        this.airspace = new SphereAirspace();
+        this.cacheKey = new Object();
+        AbstractAirspace.getGeometryCache().remove(this.cacheKey);
+    }
+
+    private Geometry getGeometry()
+    {
+        return this.airspace.getGeometry(this.dc, this.cacheKey, "test", false, geom -> geom,
+            (terrain, gb) -> {
+                this.builds++;
+                return new Geometry();
+            });
+    }
+
+    @Test
+    public void testExpiredGeometryIsReplaced()
+    {
+        this.airspace.setEnableAsyncGeometry(false);
+        this.airspace.setExpiryTime(100);
+        this.dc.setFrameTimeStamp(1);
+        Geometry first = this.getGeometry();
+        assertSame(first, this.getGeometry());
+        assertEquals(1, this.builds);
+
+        // The geometry expires; the rebuilt geometry replaces it in the cache.
+        this.airspace.setExpiryTime(1000);
+        this.dc.setFrameTimeStamp(200);
+        Geometry second = this.getGeometry();
+        assertNotSame(first, second);
+        assertSame(second, AbstractAirspace.getGeometryCache().getObject(this.cacheKey));
+        assertSame(second, this.getGeometry());
+        assertEquals(2, this.builds);
+    }
+
+    @Test
+    public void testExpiredGeometryIsReplacedByWorker() throws InterruptedException
+    {
+        this.airspace.setEnableAsyncGeometry(true);
+        this.airspace.setExpiryTime(100);
+        this.dc.setFrameTimeStamp(1);
+        this.getGeometry();
+        Geometry first = this.awaitGeometry();
+        assertEquals(1, this.builds);
+
+        // The expired geometry is drawn until the worker's geometry replaces it.
+        this.airspace.setExpiryTime(1000);
+        this.dc.setFrameTimeStamp(200);
+        assertSame(first, this.getGeometry());
+        Geometry second = this.awaitGeometry();
+        assertNotSame(first, second);
+
+        // No further builds are requested once the replacement is cached.
+        assertSame(second, this.getGeometry());
+        assertSame(second, this.getGeometry());
+        assertEquals(2, this.builds);
+    }
+
+    private Geometry awaitGeometry() throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (AbstractAirspace.pendingGeometry.contains(this.cacheKey))
+        {
+            assertTrue("Geometry build timed out", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+
+        Geometry geom = (Geometry) AbstractAirspace.getGeometryCache().getObject(this.cacheKey);
+        assertNotNull(geom);
+        return geom;
+    }
+}
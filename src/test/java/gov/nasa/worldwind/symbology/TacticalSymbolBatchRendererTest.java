@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.symbology;
+
+import gov.nasa.worldwind.geom.Position;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class TacticalSymbolBatchRendererTest
+{
+    private static final IconRetriever RETRIEVER = (symbolId, params) -> null;
+
+    @Test
+    public void testUnreferencedIconsAreReleased()
+    {
+        TacticalSymbolBatchRenderer renderer = new TacticalSymbolBatchRenderer();
+        TestSymbol a = new TestSymbol("A");
+        TestSymbol b = new TestSymbol("B");
+        drawFrame(renderer, a, b);
+        assertEquals(2, renderer.iconIndexMap.size());
+
+        // Stop drawing symbol A until its slot expires. Expired slots are released periodically, so wait for two
+        // expiration periods.
+        for (int i = 0; i < 2 * TacticalSymbolBatchRenderer.SLOT_EXPIRATION_FRAMES; i++)
+        {
+            drawFrame(renderer, b);
+        }
+
+        assertEquals(1, renderer.getNumSymbols());
+        assertEquals(1, renderer.iconIndexMap.size());
+        assertNotNull(renderer.icons.get(renderer.iconIndexMap.values().iterator().next()));
+
+        // A new icon reuses the released icon's index rather than growing the icon list.
+        drawFrame(renderer, new TestSymbol("C"), b);
+        assertEquals(2, renderer.iconIndexMap.size());
+        assertEquals(2, renderer.icons.size());
+    }
+
+    @Test
+    public void testIconSharedByLiveSlotIsKept()
+    {
+        TacticalSymbolBatchRenderer renderer = new TacticalSymbolBatchRenderer();
+        TestSymbol a = new TestSymbol("A");
+        TestSymbol b = new TestSymbol("A");
+        drawFrame(renderer, a, b);
+        assertEquals(1, renderer.iconIndexMap.size());
+
+        // Symbol A's slot expires, but symbol B still uses the same icon.
+        for (int i = 0; i < 2 * TacticalSymbolBatchRenderer.SLOT_EXPIRATION_FRAMES; i++)
+        {
+            drawFrame(renderer, b);
+        }
+
+        assertEquals(1, renderer.getNumSymbols());
+        assertEquals(1, renderer.iconIndexMap.size());
+    }
+
+    @Test
+    public void testChangedIconIsReleased()
+    {
+        TacticalSymbolBatchRenderer renderer = new TacticalSymbolBatchRenderer();
+        TestSymbol a = new TestSymbol("A");
+        drawFrame(renderer, a);
+
+        a.identifier = "B";
+        for (int i = 0; i < 2 * TacticalSymbolBatchRenderer.SLOT_EXPIRATION_FRAMES; i++)
+        {
+            drawFrame(renderer, a);
+        }
+
+        assertEquals(1, renderer.iconIndexMap.size());
+        assertEquals("B", renderer.iconIndexMap.keySet().iterator().next().getSymbolId());
+    }
+
+    /** Assigns each symbol a slot and an icon, as a frame drawing the symbols does, then releases expired state. */
+    private static void drawFrame(TacticalSymbolBatchRenderer renderer, TestSymbol... symbols)
+    {
+        renderer.frameNumber++;
+        for (TestSymbol symbol : symbols)
+        {
+            int slot = renderer.slotFor(symbol);
+            renderer.lastFrame[slot] = renderer.frameNumber;
+            renderer.iconIndex[slot] = renderer.iconIndexFor(symbol);
+        }
+        renderer.releaseExpiredSlots();
+    }
+
+    private static class TestSymbol extends AbstractTacticalSymbol
+    {
+        private String identifier;
+
+        public TestSymbol(String identifier)
+        {
+            super(Position.ZERO);
+            this.identifier = identifier;
+            this.setIconRetriever(RETRIEVER);
+        }
+
+        @Override
+        public String getIdentifier()
+        {
+            return this.identifier;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class HighResTerrainPinTest
+{
+    private HighResTerrain terrain;
+
+    @Before
+    public void setUp()
+    {
+        Globe globe = new EllipsoidalGlobe(Earth.WGS84_EQUATORIAL_RADIUS, Earth.WGS84_POLAR_RADIUS, Earth.WGS84_ES,
+            new ZeroElevationModel());
+        this.terrain = new HighResTerrain(globe, Sector.fromDegrees(0, 0.1, 0, 0.1), 20.0, null);
+    }
+
+    @Test
+    public void testPinnedTilesSurviveCacheClear() throws Exception
+    {
+        AtomicInteger numProgressCalls = new AtomicInteger();
+        HighResTerrain.PinnedRegion region = this.terrain.pin(Sector.fromDegrees(0.01, 0.02, 0.01, 0.02),
+            new HighResTerrain.PrefetchListener()
+            {
+                public void progress(HighResTerrain.PinnedRegion region, int numLoaded, int numTiles)
+                {
+                    numProgressCalls.incrementAndGet();
+                }
+
+                public void exception(HighResTerrain.PinnedRegion region, Exception exception)
+                {
+                    fail(exception.toString());
+                }
+            });
+        region.getFuture().get();
+
+        assertTrue(region.getTileCount() > 0);
+        assertTrue(region.isLoaded());
+        assertEquals(region.getTileCount(), numProgressCalls.get());
+        assertEquals(region.getTileCount(), this.terrain.getNumPinnedTiles());
+
+        // Simulate the soft cache being cleared under memory pressure.
+        this.terrain.geometryCache.clear();
+
+        HighResTerrain.CacheStatistics before = this.terrain.getCacheStatistics();
+        assertNotNull(this.terrain.surfacePoint(Position.fromDegrees(0.015, 0.015, 0)));
+        assertNotNull(this.terrain.surfacePoint(Position.fromDegrees(0.05, 0.05, 0)));
+        HighResTerrain.CacheStatistics batch = this.terrain.getCacheStatistics().since(before);
+
+        assertEquals(1, batch.getPinnedHitCount());
+        assertEquals(0, batch.getCacheHitCount());
+        assertEquals(1, batch.getMissCount());
+
+        // Unpinning returns the pinned tiles to the geometry cache.
+        this.terrain.unpin(region);
+        assertFalse(region.isPinned());
+        assertEquals(0, this.terrain.getNumPinnedTiles());
+
+        before = this.terrain.getCacheStatistics();
+        this.terrain.surfacePoint(Position.fromDegrees(0.015, 0.015, 0));
+        assertEquals(1, this.terrain.getCacheStatistics().since(before).getCacheHitCount());
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.tracks;
+
+import gov.nasa.worldwind.formats.csv.CSVReader;
+import gov.nasa.worldwind.geom.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class TrackStoreTest
+{
+    protected static int bruteForce(double[] lats, double[] lons, long[] times, long t0, long t1, Sector sector)
+    {
+        int count = 0;
+        for (int i = 0; i < times.length; i++)
+        {
+            if (times[i] >= t0 && times[i] <= t1 && sector.contains(LatLon.fromDegrees(lats[i], lons[i])))
+                count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void testQueryMatchesBruteForce()
+    {
+        Random random = new Random(7);
+        int n = 10000;
+        double[] lats = new double[n];
+        double[] lons = new double[n];
+        long[] times = new long[n];
+        for (int i = 0; i < n; i++)
+        {
+            lats[i] = -10 + 20 * random.nextDouble();
+            lons[i] = -10 + 20 * random.nextDouble();
+            times[i] = 1000L * i + random.nextInt(2) * 500;
+        }
+
+        TrackStore store = new TrackStore(64);
+        store.append("ordered", lats, lons, null, times, n);
+
+        long[] shuffled = times.clone();
+        for (int i = n - 1; i > 0; i--)
+        {
+            int j = random.nextInt(i + 1);
+            long t = shuffled[i];
+            shuffled[i] = shuffled[j];
+            shuffled[j] = t;
+        }
+        store.append("unordered", lats, lons, null, shuffled, n);
+        assertEquals(n, store.getNumPositions("ordered"));
+
+        for (int q = 0; q < 50; q++)
+        {
+            long t0 = (long) (random.nextDouble() * 1000L * n);
+            long t1 = t0 + (long) (random.nextDouble() * 1000L * n / 4);
+            double lat = -10 + 15 * random.nextDouble();
+            double lon = -10 + 15 * random.nextDouble();
+            Sector sector = Sector.fromDegrees(lat, lat + 5, lon, lon + 5);
+
+            assertEquals(bruteForce(lats, lons, times, t0, t1, sector),
+                store.query("ordered", t0, t1, sector, (id, la, lo, alt, t) -> {}));
+            assertEquals(bruteForce(lats, lons, shuffled, t0, t1, sector),
+                store.query("unordered", t0, t1, sector, (id, la, lo, alt, t) -> {}));
+        }
+    }
+
+    @Test
+    public void testParseTime()
+    {
+        assertEquals(0L, TrackStore.parseTime("1970-01-01T00:00:00Z"));
+        assertEquals(3600000L, TrackStore.parseTime("1970-01-01T02:00:00+01:00"));
+        assertEquals(1500L, TrackStore.parseTime("1970-01-01T00:00:01.5"));
+        assertEquals((12 * 3600 + 35 * 60 + 19) * 1000L, TrackStore.parseTime("123519"));
+        assertEquals(Long.MIN_VALUE, TrackStore.parseTime(""));
+        assertEquals(Long.MIN_VALUE, TrackStore.parseTime("yesterday"));
+    }
+
+    @Test
+    public void testUnnamedTracksAreNotMerged()
+    {
+        TrackStore store = new TrackStore();
+        store.append("Track 1", 0, 0, 0, 0);
+        store.addTracks(Collections.singletonList(new TestTrack(null, 2)));
+        store.addTracks(Collections.singletonList(new TestTrack(null, 3)));
+
+        assertEquals(3, store.getTrackIds().size());
+        assertEquals(1, store.getNumPositions("Track 1"));
+        Set<Integer> sizes = new HashSet<>();
+        for (String id : store.getTrackIds())
+        {
+            sizes.add(store.getNumPositions(id));
+        }
+        assertEquals(new HashSet<>(Arrays.asList(1, 2, 3)), sizes);
+    }
+
+    @Test
+    public void testQueryStartsAtFirstChunkInWindow()
+    {
+        TrackStore store = new TrackStore(4);
+        for (int i = 0; i < 18; i++)
+        {
+            store.append("a", i, i, 0, i * 10L);
+        }
+
+        List<Long> times = new ArrayList<>();
+        store.query("a", 95, 125, null, (id, lat, lon, alt, t) -> times.add(t));
+        assertEquals(Arrays.asList(100L, 110L, 120L), times);
+
+        times.clear();
+        store.query("a", 175, 1000, null, (id, lat, lon, alt, t) -> times.add(t));
+        assertTrue(times.isEmpty());
+    }
+
+    private static class TestTrack implements Track, TrackSegment
+    {
+        private final String name;
+        private final List<TrackPoint> points = new ArrayList<>();
+
+        public TestTrack(String name, int numPoints)
+        {
+            this.name = name;
+            for (int i = 0; i < numPoints; i++)
+            {
+                this.points.add(new TrackPointImpl(Position.fromDegrees(i, i, 0)));
+            }
+        }
+
+        public List<TrackSegment> getSegments()
+        {
+            return Collections.singletonList(this);
+        }
+
+        public String getName()
+        {
+            return this.name;
+        }
+
+        public int getNumPoints()
+        {
+            return this.points.size();
+        }
+
+        public List<TrackPoint> getPoints()
+        {
+            return this.points;
+        }
+    }
+
+    @Test
+    public void testLoadFromReader()
+    {
+        String csv = "1,10.0,20.0,100\n2,11.0,21.0,200\n3,12.0,22.0,300\n";
+        CSVReader reader = new CSVReader();
+        reader.readStream(new ByteArrayInputStream(csv.getBytes(StandardCharsets.US_ASCII)), "feed");
+
+        TrackStore store = new TrackStore();
+        assertEquals(3, store.addTracks(reader.getTracks()));
+        assertEquals(Collections.singleton("feed"), store.getTrackIds());
+
+        List<Double> lats = new ArrayList<>();
+        store.query(Long.MIN_VALUE, Long.MAX_VALUE, Sector.fromDegrees(10.5, 12.5, 20.5, 22.5),
+            (id, lat, lon, alt, t) -> lats.add(lat));
+        assertEquals(Arrays.asList(11.0, 12.0), lats);
+    }
+}
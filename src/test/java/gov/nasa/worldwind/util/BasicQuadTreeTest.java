@@ -60,6 +60,85 @@ public class BasicQuadTreeTest
         }
     }
 
+    /** Tests that bulk loading produces the same search results as adding items individually. */
+    @Test
+    public void testBulkLoad()
+    {
+        int numItems = 10000;
+        Random random = new Random(3);
+        List<Integer> items = new ArrayList<>();
+        double[] coords = new double[2 * numItems];
+        BasicQuadTree<Integer> incremental = new BasicQuadTree<>(8, Sector.FULL_SPHERE);
+
+        for (int i = 0; i < numItems; i++)
+        {
+            items.add(i);
+            coords[2 * i] = -90 + 180 * random.nextDouble();
+            coords[2 * i + 1] = -180 + 360 * random.nextDouble();
+            incremental.add(i, new double[] {coords[2 * i], coords[2 * i + 1]});
+        }
+
+        BasicQuadTree<Integer> bulk = new BasicQuadTree<>(8, Sector.FULL_SPHERE);
+        bulk.addAll(items, coords, 2);
+        assertEquals("Item count incorrect ", numItems, bulk.size());
+
+        for (int i = 0; i < 100; i++)
+        {
+            double lat = -90 + 170 * random.nextDouble();
+            double lon = -180 + 350 * random.nextDouble();
+            Sector region = Sector.fromDegrees(lat, lat + 10 * random.nextDouble(), lon, lon + 10 * random.nextDouble());
+            assertEquals("Search results differ ", incremental.getItemsInRegion(region, null),
+                bulk.getItemsInRegion(region, null));
+        }
+
+        for (int i = 0; i < numItems; i += 2)
+        {
+            bulk.remove(i);
+        }
+        assertEquals("Item count incorrect after removal ", numItems / 2, countItemsInTree(bulk));
+    }
+
+    /** Tests that searches running concurrently with writes always see complete items. */
+    @Test
+    public void testConcurrentSearch() throws Exception
+    {
+        BasicQuadTree<Integer> tree = new BasicQuadTree<>(6, Sector.FULL_SPHERE);
+        // Even items are permanent; odd items are added and removed by the writer.
+        for (int i = 0; i < 1000; i += 2)
+        {
+            tree.add(i, new double[] {0, 0, -180 + 0.36 * i, -180 + 0.36 * i});
+        }
+
+        Thread writer = new Thread(() ->
+        {
+            for (int n = 0; n < 200; n++)
+            {
+                for (int i = 1; i < 1000; i += 2)
+                {
+                    tree.add(i, new double[] {0, 0, -180 + 0.36 * i, -180 + 0.36 * i});
+                }
+                for (int i = 1; i < 1000; i += 2)
+                {
+                    tree.remove(i);
+                }
+            }
+        });
+        writer.start();
+
+        Sector band = Sector.fromDegrees(-1, 1, -180, 180);
+        while (writer.isAlive())
+        {
+            Set<Integer> found = tree.getItemsInRegion(band, null);
+            for (int i = 0; i < 1000; i += 2)
+            {
+                assertTrue("Permanent item missing ", found.contains(i));
+            }
+        }
+        writer.join();
+
+        assertEquals("Item count incorrect ", 500, tree.size());
+    }
+
     private static int countItemsInTree(BasicQuadTree<Integer> tree)
     {
         // Counts only unique items.
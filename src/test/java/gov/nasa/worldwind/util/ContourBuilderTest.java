@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import gov.nasa.worldwind.geom.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ContourBuilderTest
+{
+    @Test
+    public void testClosedContourAroundPeak()
+    {
+        double[] values = {
+            0, 0, 0,
+            0, 2, 0,
+            0, 0, 0};
+
+        List<List<double[]>> lines = new ContourBuilder(3, 3, values).buildContourLines(1);
+
+        assertEquals(1, lines.size());
+        List<double[]> line = lines.get(0);
+        assertArrayEquals(line.get(0), line.get(line.size() - 1), 0);
+
+        // The contour crosses each edge from the peak halfway between the peak and its neighbor.
+        Set<String> points = new HashSet<>();
+        for (double[] point : line)
+        {
+            points.add(point[0] + "," + point[1]);
+        }
+        assertEquals(new HashSet<>(Arrays.asList("1.0,0.5", "1.5,1.0", "1.0,1.5", "0.5,1.0")), points);
+    }
+
+    @Test
+    public void testValueOutsideRangeHasNoContours()
+    {
+        double[] values = {1, 2, 3, 4};
+
+        ContourBuilder builder = new ContourBuilder(2, 2, values);
+        assertTrue(builder.buildContourLines(0).isEmpty());
+        assertTrue(builder.buildContourLines(4).isEmpty());
+    }
+
+    @Test
+    public void testContourListsMatchSingleLevels()
+    {
+        // A grid tall enough to span several strips.
+        int width = 50;
+        int height = 3 * ContourBuilder.STRIP_ROWS + 7;
+        double[] values = new double[width * height];
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                values[x + y * width] = Math.sin(0.3 * x) + Math.cos(0.05 * y);
+            }
+        }
+
+        Sector sector = Sector.fromDegrees(10, 20, 30, 40);
+        double[] levels = {-1.5, -0.5, 0, 0.5, 1.5, 5};
+        ContourBuilder builder = new ContourBuilder(width, height, values);
+        List<ContourList> lists = builder.buildContourLists(levels, sector);
+
+        assertEquals(levels.length, lists.size());
+        for (int i = 0; i < levels.length; i++)
+        {
+            List<List<Position>> expected = builder.buildContourLines(levels[i], sector, 0);
+            ContourList actual = lists.get(i);
+            assertEquals(expected.size(), actual.getContourCount());
+
+            for (int j = 0; j < expected.size(); j++)
+            {
+                List<LatLon> locations = new ArrayList<>();
+                actual.getContour(j).forEach(locations::add);
+                assertEquals(expected.get(j), locations);
+            }
+        }
+    }
+}
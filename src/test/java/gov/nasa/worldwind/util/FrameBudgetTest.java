@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class FrameBudgetTest
+{
+    @Test
+    public void testBudgetResetsEachFrame()
+    {
+        FrameBudget budget = new FrameBudget(2);
+
+        assertTrue(budget.tryAcquire(100));
+        assertTrue(budget.tryAcquire(100));
+        assertFalse(budget.tryAcquire(100));
+
+        assertTrue(budget.tryAcquire(116));
+        assertTrue(budget.tryAcquire(116));
+        assertFalse(budget.tryAcquire(116));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsEmptyBudget()
+    {
+        new FrameBudget(0);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.terrain.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class HighResolutionTerrainViewshedTest
+{
+    private static final Sector SECTOR = Sector.fromDegrees(0, 0.1, 0, 0.1);
+
+    private HighResTerrain terrain;
+
+    @Before
+    public void setUp()
+    {
+        Globe globe = new EllipsoidalGlobe(Earth.WGS84_EQUATORIAL_RADIUS, Earth.WGS84_POLAR_RADIUS, Earth.WGS84_ES,
+            new RidgeElevationModel());
+        this.terrain = new HighResTerrain(globe, SECTOR, 20.0, null);
+    }
+
+    @Test
+    public void testRidgeBlocksLinesOfSight()
+    {
+        List<Position> observers = Arrays.asList(
+            Position.fromDegrees(0.05, 0.01, 2),
+            Position.fromDegrees(0.05, 0.01, 5000));
+        List<Position> targets = Arrays.asList(
+            Position.fromDegrees(0.06, 0.04, 2),  // before the ridge
+            Position.fromDegrees(0.04, 0.09, 2),  // behind the ridge
+            Position.fromDegrees(0.05, 0.5, 2));  // outside the terrain's sector
+
+        boolean[][] visible = this.terrain.computeLinesOfSight(observers, targets);
+
+        assertEquals("[true, false, false]", Arrays.toString(visible[0]));
+        assertEquals("[true, true, false]", Arrays.toString(visible[1]));
+    }
+
+    @Test
+    public void testViewshedMatchesLinesOfSight()
+    {
+        Position observer = Position.fromDegrees(0.03, 0.02, 10);
+        Viewshed viewshed = this.terrain.computeViewshed(observer, SECTOR, 21, 11, 2);
+
+        List<Position> targets = new ArrayList<>();
+        for (int y = 0; y < viewshed.getHeight(); y++)
+        {
+            for (int x = 0; x < viewshed.getWidth(); x++)
+            {
+                targets.add(new Position(viewshed.getLocation(x, y), 2));
+            }
+        }
+        boolean[] visible = this.terrain.computeLinesOfSight(Collections.singletonList(observer), targets)[0];
+
+        double[] values = viewshed.getValues();
+        for (int i = 0; i < visible.length; i++)
+        {
+            assertEquals(visible[i], viewshed.isVisible(i % viewshed.getWidth(), i / viewshed.getWidth()));
+            assertEquals(visible[i] ? 1 : 0, values[i], 0);
+        }
+
+        // The grid's upper left corner is northwest of the observer with a clear view; the ridge hides its east edge.
+        assertTrue(viewshed.isVisible(0, 0));
+        for (int y = 0; y < viewshed.getHeight(); y++)
+        {
+            assertFalse(viewshed.isVisible(viewshed.getWidth() - 1, y));
+        }
+    }
+
+    /**
+     * A flat plain with a 500 meter ridge running north-south along longitude 0.06.
+     */
+    private static class RidgeElevationModel extends ZeroElevationModel
+    {
+        @Override
+        public double getElevations(Sector sector, List<? extends LatLon> latlons, double targetResolution,
+            double[] buffer)
+        {
+            for (int i = 0; i < latlons.size(); i++)
+            {
+                double d = (latlons.get(i).lon - 0.06) / 0.005;
+                buffer[i] = 500 * Math.exp(-d * d);
+            }
+
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import gov.nasa.worldwind.geom.Sector;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class LooseQuadTreeTest
+{
+    protected static Sector randomSector(Random random)
+    {
+        double lat = -90 + 170 * random.nextDouble();
+        double lon = -180 + 350 * random.nextDouble();
+        double size = random.nextInt(10) == 0 ? 10 * random.nextDouble() : 0.1 * random.nextDouble();
+        return Sector.fromDegrees(lat, Math.min(90, lat + size), lon, Math.min(180, lon + size));
+    }
+
+    protected static Set<Integer> bruteForce(Map<Integer, Sector> sectors, Sector region)
+    {
+        Set<Integer> result = new HashSet<>();
+        for (Map.Entry<Integer, Sector> entry : sectors.entrySet())
+        {
+            if (entry.getValue().intersects(region))
+                result.add(entry.getKey());
+        }
+        return result;
+    }
+
+    /** Tests that region queries match a linear scan as items are added, moved and removed. */
+    @Test
+    public void testQueriesMatchScan()
+    {
+        Random random = new Random(7);
+        LooseQuadTree<Integer> tree = new LooseQuadTree<>();
+        Map<Integer, Sector> sectors = new HashMap<>();
+
+        for (int i = 0; i < 2000; i++)
+        {
+            Sector sector = randomSector(random);
+            tree.add(i, sector);
+            sectors.put(i, sector);
+        }
+
+        for (int i = 0; i < 500; i++)
+        {
+            Sector sector = randomSector(random);
+            tree.add(i, sector); // Moves the item.
+            sectors.put(i, sector);
+        }
+
+        for (int i = 1500; i < 2000; i++)
+        {
+            assertTrue("Item not removed", tree.remove(i));
+            sectors.remove(i);
+        }
+
+        assertEquals("Item count", sectors.size(), tree.size());
+
+        for (int i = 0; i < 100; i++)
+        {
+            Sector region = randomSector(random);
+            Set<Integer> found = new HashSet<>(tree.getItemsInRegion(region, null));
+            assertEquals("Query result", bruteForce(sectors, region), found);
+        }
+    }
+
+    /** Tests that removing every item empties the tree. */
+    @Test
+    public void testFullRemoval()
+    {
+        Random random = new Random(11);
+        LooseQuadTree<Integer> tree = new LooseQuadTree<>();
+
+        for (int i = 0; i < 1000; i++)
+        {
+            tree.add(i, randomSector(random));
+        }
+
+        for (int i = 0; i < 1000; i++)
+        {
+            tree.remove(i);
+        }
+
+        assertEquals("Item count", 0, tree.size());
+        assertTrue("Tree not empty", tree.getItemsInRegion(Sector.FULL_SPHERE, null).isEmpty());
+        assertEquals("Root count", 0, tree.root.count);
+    }
+}
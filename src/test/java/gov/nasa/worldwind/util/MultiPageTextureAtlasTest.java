@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import gov.nasa.worldwind.exception.WWRuntimeException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.image.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class MultiPageTextureAtlasTest
+{
+    /** Tests that elements which do not fit on the first page are placed on a new page. */
+    @Test
+    public void testAddCreatesPages()
+    {
+        // Each 62x62 image occupies 64x64 pixels including its border, so a 64x64 page holds exactly one image.
+        MultiPageTextureAtlas atlas = new MultiPageTextureAtlas(64, 64, 64, 64, 3);
+
+        TextureAtlas page1 = atlas.add("a", createImage(62, 62));
+        TextureAtlas page2 = atlas.add("b", createImage(62, 62));
+
+        assertEquals("Page count incorrect", 2, atlas.getNumPages());
+        assertNotSame("Elements share a page", page1, page2);
+        assertSame("Page lookup incorrect", page1, atlas.getPage("a"));
+        assertSame("Page lookup incorrect", page2, atlas.getPage("b"));
+        assertTrue(atlas.contains("a"));
+        assertTrue(atlas.contains("b"));
+        assertEquals("Element count incorrect", 2, atlas.getNumElements());
+    }
+
+    /** Tests that a full atlas evicts old elements when configured to, and fails otherwise. */
+    @Test
+    public void testFullAtlas()
+    {
+        MultiPageTextureAtlas atlas = new MultiPageTextureAtlas(64, 64, 64, 64, 2);
+        atlas.add("a", createImage(62, 62));
+        atlas.add("b", createImage(62, 62));
+
+        try
+        {
+            atlas.add("c", createImage(62, 62));
+            fail("Expected the full atlas to reject the element");
+        }
+        catch (WWRuntimeException e)
+        {
+            // Expected.
+        }
+        assertFalse("Rejected element is reported as present", atlas.contains("c"));
+
+        atlas.setEvictOldElements(true);
+        atlas.add("c", createImage(62, 62));
+
+        assertEquals("Page count incorrect", 2, atlas.getNumPages());
+        assertTrue(atlas.contains("c"));
+        assertEquals("Element count incorrect", 2, atlas.getNumElements());
+    }
+
+    /** Tests that a full atlas evicts from the page holding the least recently used element. */
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws InterruptedException
+    {
+        MultiPageTextureAtlas atlas = new MultiPageTextureAtlas(64, 64, 64, 64, 2);
+        atlas.setEvictOldElements(true);
+        atlas.add("a", createImage(62, 62));
+        atlas.add("b", createImage(62, 62));
+
+        // Use "a" after "b" was added, so that "b" is the least recently used element.
+        Thread.sleep(1);
+        assertNotNull(atlas.getPage("a").getTexCoords("a"));
+
+        atlas.add("c", createImage(62, 62));
+        assertTrue("Recently used element was evicted", atlas.contains("a"));
+        assertFalse("Least recently used element was not evicted", atlas.contains("b"));
+        assertTrue(atlas.contains("c"));
+
+        atlas.add("d", createImage(62, 62));
+        assertFalse("Least recently used element was not evicted", atlas.contains("a"));
+        assertTrue(atlas.contains("c"));
+        assertTrue(atlas.contains("d"));
+    }
+
+    /** Tests removal of elements and clearing the atlas. */
+    @Test
+    public void testRemoveAndClear()
+    {
+        MultiPageTextureAtlas atlas = new MultiPageTextureAtlas(64, 64, 64, 64, 3);
+        atlas.add("a", createImage(62, 62));
+        atlas.add("b", createImage(62, 62));
+
+        assertTrue(atlas.remove("a"));
+        assertFalse(atlas.contains("a"));
+        assertFalse(atlas.remove("a"));
+
+        atlas.clear();
+        assertEquals("Page count incorrect", 1, atlas.getNumPages());
+        assertEquals("Element count incorrect", 0, atlas.getNumElements());
+    }
+
+    private static BufferedImage createImage(int width, int height)
+    {
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    }
+}
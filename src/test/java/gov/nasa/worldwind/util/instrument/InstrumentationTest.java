@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util.instrument;
+
+import gov.nasa.worldwind.layers.*;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import javax.management.*;
+import javax.management.openmbean.CompositeData;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class InstrumentationTest
+{
+    @Test
+    public void testHistogramPercentiles()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++)
+        {
+            histogram.record(1000); // bucket [512, 1024)
+        }
+        histogram.record(1000000);
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(1023, histogram.getPercentileNanos(50));
+        assertEquals(1023, histogram.getPercentileNanos(99));
+        assertEquals(1000000, histogram.getPercentileNanos(100));
+        assertEquals(1000000, histogram.getMaxNanos());
+        assertEquals(0, new LatencyHistogram().getPercentileNanos(50));
+    }
+
+    @Test
+    public void testFrameRecorderEmitsSnapshotAndEvents() throws Exception
+    {
+        Layer layer = new RenderableLayer();
+        layer.setName("Test Layer");
+        FrameRecorder recorder = new FrameRecorder();
+
+        FrameSnapshot snapshot;
+        File file = File.createTempFile("instrumentation", ".jfr");
+        try (Recording recording = new Recording())
+        {
+            recording.enable(FrameEvent.class);
+            recording.enable(LayerEvent.class);
+            recording.start();
+
+            recorder.beginFrame();
+            long start = recorder.start();
+            Thread.sleep(2);
+            recorder.record(layer, FrameRecorder.Phase.RENDER, start);
+            recorder.record(layer, FrameRecorder.Phase.PICK, recorder.start());
+            snapshot = recorder.endFrame();
+
+            recording.stop();
+            recording.dump(file.toPath());
+        }
+
+        assertSame(snapshot, Instrumentation.getLastFrame());
+        assertEquals(1, snapshot.getLayerTimings().size());
+        LayerTiming timing = snapshot.getLayerTimings().get(0);
+        assertEquals("Test Layer", timing.getLayerName());
+        assertEquals(0, timing.getPreRenderNanos());
+        assertTrue(timing.getRenderNanos() >= 2000000);
+        assertTrue(snapshot.getFrameNanos() >= timing.getTotalNanos());
+
+        List<String> layerPhases = new ArrayList<>();
+        int numFrames = 0;
+        for (RecordedEvent event : RecordingFile.readAllEvents(file.toPath()))
+        {
+            if (event.getEventType().getName().equals("gov.nasa.worldwind.Frame")
+                && event.getLong("frameNumber") == snapshot.getFrameNumber())
+                numFrames++;
+            else if (event.getEventType().getName().equals("gov.nasa.worldwind.Layer"))
+                layerPhases.add(event.getString("layerName") + " " + event.getString("phase"));
+        }
+        file.delete();
+
+        assertEquals(1, numFrames);
+        assertTrue(layerPhases.contains("Test Layer RENDER"));
+        assertFalse(layerPhases.contains("Test Layer PRE_RENDER"));
+    }
+
+    @Test
+    public void testMBeanExposesLastFrame() throws Exception
+    {
+        Instrumentation.registerMBean();
+        FrameRecorder recorder = new FrameRecorder();
+        Layer layer = new RenderableLayer();
+        layer.setName("JMX Layer");
+        recorder.beginFrame();
+        recorder.record(layer, FrameRecorder.Phase.PRE_RENDER, recorder.start());
+        recorder.endFrame();
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(Instrumentation.MBEAN_NAME);
+        assertTrue((Long) server.getAttribute(name, "FrameCount") > 0);
+
+        CompositeData[] timings = (CompositeData[]) server.getAttribute(name, "LastFrameLayerTimings");
+        assertEquals(1, timings.length);
+        assertEquals("JMX Layer", timings[0].get("layerName"));
+    }
+}
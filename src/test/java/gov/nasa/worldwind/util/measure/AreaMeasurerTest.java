@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util.measure;
+
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.terrain.ZeroElevationModel;
+import gov.nasa.worldwind.util.WWMath;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class AreaMeasurerTest
+{
+    private static final List<Position> SQUARE = Arrays.asList(
+        Position.fromDegrees(0, 0, 0),
+        Position.fromDegrees(0, 0.1, 0),
+        Position.fromDegrees(0.1, 0.1, 0),
+        Position.fromDegrees(0.1, 0, 0),
+        Position.fromDegrees(0, 0, 0));
+
+    @Test
+    public void testSurfaceAreaAccountsForSlope()
+    {
+        AreaMeasurer flat = createMeasurer();
+        AreaMeasurer sloped = createMeasurer();
+
+        double flatArea = flat.getArea(createGlobe(0));
+        double slopedArea = sloped.getArea(createGlobe(1));
+
+        // The square is roughly 11 km on a side.
+        assertEquals(1.23e8, flatArea, 0.02e8);
+        // Terrain rising one meter per meter eastward makes the surface area root two times larger.
+        assertEquals(Math.sqrt(2), slopedArea / flatArea, 1e-5);
+    }
+
+    @Test
+    public void testAsynchronousAreaIsRefinedProgressively() throws Exception
+    {
+        Globe globe = createGlobe(1);
+        AreaMeasurer measurer = createMeasurer();
+        List<Double> estimates = Collections.synchronizedList(new ArrayList<>());
+
+        double area = measurer.computeAreaAsync(globe, estimates::add).get();
+
+        // Estimates from 8, 16 and 32 step grids, the last of which is the final area.
+        assertEquals(3, estimates.size());
+        assertEquals(area, estimates.get(2), 0);
+        assertEquals(measurer.getArea(globe), area, 0);
+    }
+
+    @Test
+    public void testSurfaceAreaMatchesPerCellMeasurement()
+    {
+        // A concave outline, so that some grid rows are crossed by more than two edges.
+        List<Position> outline = Arrays.asList(
+            Position.fromDegrees(0, 0, 0),
+            Position.fromDegrees(0, 1.2, 0),
+            Position.fromDegrees(0.9, 1.1, 0),
+            Position.fromDegrees(0.4, 0.6, 0),
+            Position.fromDegrees(1.0, 0.1, 0),
+            Position.fromDegrees(0, 0, 0));
+        Globe globe = LengthMeasurerTest.createGlobe();
+        double steps = 200;
+        AreaMeasurer measurer = new AreaMeasurer(outline);
+        measurer.setFollowTerrain(true);
+        measurer.setAreaTerrainSamplingSteps(steps);
+
+        double area = measurer.getArea(globe);
+        double expected = computePerCellArea(globe, measurer, steps);
+        assertEquals(expected, area, expected * 1e-9);
+    }
+
+    /**
+     * Measures a terrain following area the way AreaMeasurer did before it retrieved elevations in batches, selected
+     * cells by scanline crossings and summed rows in parallel: a point-in-polygon test and elevation queries per cell,
+     * and one sequential sum.
+     */
+    private static double computePerCellArea(Globe globe, AreaMeasurer measurer, double steps)
+    {
+        Sector sector = measurer.getBoundingSector();
+        List<? extends Position> outline = LengthMeasurer.subdividePositions(globe, measurer.getPositions(),
+            measurer.getMaxSegmentLength(), true, measurer.getAVKeyPathType());
+
+        double stepRadians = Math.max(Math.toRadians(sector.latDelta) / steps, Math.toRadians(sector.lonDelta) / steps);
+        int latSteps = Math.max(1, (int) Math.round(Math.toRadians(sector.latDelta) / stepRadians));
+        LatLon centroid = sector.getCentroid();
+        int lonSteps = Math.max(1, (int) Math.round(Math.toRadians(sector.lonDelta) / stepRadians
+            * Math.cos(Math.toRadians(centroid.lat))));
+        double latStepRadians = Math.toRadians(sector.latDelta) / latSteps;
+        double lonStepRadians = Math.toRadians(sector.lonDelta) / lonSteps;
+        // Enough cells to be summed in several parallel chunks.
+        assertTrue(latSteps * lonSteps > 2 * AreaMeasurer.CELL_BATCH_SIZE);
+
+        double area = 0;
+        for (int i = 0; i < latSteps; i++)
+        {
+            double lat = Math.toRadians(sector.latMin) + latStepRadians * i;
+            double radius = globe.getRadiusAt(Angle.fromRadians(lat + latStepRadians / 2), new Angle(centroid.lon));
+            double cellWidth = lonStepRadians * radius * Math.cos(lat + latStepRadians / 2);
+            double cellHeight = latStepRadians * radius;
+
+            for (int j = 0; j < lonSteps; j++)
+            {
+                double lon = Math.toRadians(sector.lonMin) + lonStepRadians * j;
+                Sector cell = Sector.fromRadians(lat, lat + latStepRadians, lon, lon + lonStepRadians);
+                if (!WWMath.isLocationInside(cell.getCentroid(), outline))
+                    continue;
+
+                double eleSW = globe.elevation(Angle.fromRadians(lat), Angle.fromRadians(lon));
+                double eleSE = globe.elevation(Angle.fromRadians(lat), Angle.fromRadians(lon + lonStepRadians));
+                double eleNW = globe.elevation(Angle.fromRadians(lat + latStepRadians), Angle.fromRadians(lon));
+                Vec4 vx = new Vec4(cellWidth, 0, eleSE - eleSW).normalize3();
+                Vec4 vy = new Vec4(0, cellHeight, eleNW - eleSW).normalize3();
+                Vec4 normal = vx.cross3(vy).normalize3();
+                double tan = Math.tan(Vec4.UNIT_Z.angleBetween3(normal).radians());
+                area += cellWidth * cellHeight * Math.sqrt(1 + tan * tan);
+            }
+        }
+
+        return area;
+    }
+
+    private static AreaMeasurer createMeasurer()
+    {
+        AreaMeasurer measurer = new AreaMeasurer(SQUARE);
+        measurer.setFollowTerrain(true);
+        return measurer;
+    }
+
+    private static Globe createGlobe(double slope)
+    {
+        return new EllipsoidalGlobe(Earth.WGS84_EQUATORIAL_RADIUS, Earth.WGS84_POLAR_RADIUS, Earth.WGS84_ES,
+            new SlopeElevationModel(slope));
+    }
+
+    /**
+     * A plane rising eastward at a constant slope.
+     */
+    private static class SlopeElevationModel extends ZeroElevationModel
+    {
+        private final double slope;
+
+        public SlopeElevationModel(double slope)
+        {
+            this.slope = slope;
+        }
+
+        @Override
+        public double getUnmappedElevation(Angle latitude, Angle longitude)
+        {
+            return this.slope * longitude.radians() * Earth.WGS84_EQUATORIAL_RADIUS;
+        }
+
+        @Override
+        public double getElevations(Sector sector, List<? extends LatLon> latlons, double targetResolution,
+            double[] buffer)
+        {
+            for (int i = 0; i < latlons.size(); i++)
+            {
+                buffer[i] = this.getUnmappedElevation(new Angle(latlons.get(i).lat), new Angle(latlons.get(i).lon));
+            }
+
+            return 0;
+        }
+    }
+}
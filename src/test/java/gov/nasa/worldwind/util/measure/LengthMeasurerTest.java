@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util.measure;
+
+import gov.nasa.worldwind.Keys;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.terrain.ZeroElevationModel;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class LengthMeasurerTest
+{
+    private static final List<Position> ZIGZAG = Arrays.asList(
+        Position.fromDegrees(0, 0, 0),
+        Position.fromDegrees(0.5, 0.8, 0),
+        Position.fromDegrees(1.0, 0.2, 0),
+        Position.fromDegrees(1.5, 1.5, 0));
+
+    @Test
+    public void testLengthWithoutTerrain()
+    {
+        Globe globe = createGlobe();
+        LengthMeasurer measurer = new LengthMeasurer(Arrays.asList(
+            Position.fromDegrees(0, 0, 0), Position.fromDegrees(0, 1, 0)));
+
+        // One degree along the equator, measured as two chords slightly shorter than the arc.
+        double arc = Math.toRadians(1) * Earth.WGS84_EQUATORIAL_RADIUS;
+        assertEquals(arc, measurer.getLength(globe), 0.5);
+        assertTrue(measurer.getLength(globe) < arc);
+    }
+
+    @Test
+    public void testTerrainFollowingLengthMatchesPerPointMeasurement()
+    {
+        Globe globe = createGlobe();
+        double steps = 20000;
+        LengthMeasurer measurer = new LengthMeasurer(ZIGZAG);
+        measurer.setFollowTerrain(true);
+        measurer.setLengthTerrainSamplingSteps(steps);
+
+        double length = measurer.getLength(globe);
+        double expected = computePerPointLength(globe, ZIGZAG, steps, measurer.getMaxSegmentLength());
+        assertEquals(expected, length, expected * 1e-12);
+        assertTrue(length > new LengthMeasurer(ZIGZAG).getLength(globe));
+    }
+
+    @Test
+    public void testSumRanges()
+    {
+        assertEquals(0, LengthMeasurer.sumRanges(0, 10, (start, end) -> 1), 0);
+        assertEquals(1, LengthMeasurer.sumRanges(5, 10, (start, end) -> 1), 0);
+        // Ranges cover every element exactly once.
+        assertEquals(10001, LengthMeasurer.sumRanges(10001, 1000, (start, end) -> end - start), 0);
+        assertEquals(11, LengthMeasurer.sumRanges(10001, 1000, (start, end) -> 1), 0);
+    }
+
+    /**
+     * Measures a terrain following path the way LengthMeasurer did before it retrieved elevations in batches and
+     * summed segments in parallel: one elevation query per subdivided position, and one sequential sum.
+     */
+    private static double computePerPointLength(Globe globe, List<Position> positions, double steps,
+        double maxSegmentLength)
+    {
+        double pathLength = new LengthMeasurer(positions).getLength(globe);
+        double maxLength = Math.min(Math.max(pathLength / steps, 30), maxSegmentLength);
+        List<? extends Position> subdivided = LengthMeasurer.subdividePositions(globe, positions, maxLength, false,
+            Keys.GREAT_CIRCLE);
+        // Enough segments to be measured in several parallel chunks.
+        assertTrue(subdivided.size() > 2 * LengthMeasurer.SEGMENT_BATCH_SIZE);
+
+        double length = 0;
+        Vec4 p1 = null;
+        for (Position position : subdivided)
+        {
+            double elevation = globe.elevation(new Angle(position.lat), new Angle(position.lon));
+            Vec4 p2 = globe.computeEllipsoidalPointFromPosition(new Position(position, elevation));
+            if (p1 != null)
+                length += p1.distanceTo3(p2);
+            p1 = p2;
+        }
+
+        return length;
+    }
+
+    static Globe createGlobe()
+    {
+        return new EllipsoidalGlobe(Earth.WGS84_EQUATORIAL_RADIUS, Earth.WGS84_POLAR_RADIUS, Earth.WGS84_ES,
+            new HillsElevationModel());
+    }
+
+    /**
+     * Rolling hills a few hundred meters high, about a third of a degree across.
+     */
+    static class HillsElevationModel extends ZeroElevationModel
+    {
+        @Override
+        public double getUnmappedElevation(Angle latitude, Angle longitude)
+        {
+            return elevation(latitude.degrees, longitude.degrees);
+        }
+
+        @Override
+        public double getElevations(Sector sector, List<? extends LatLon> latlons, double targetResolution,
+            double[] buffer)
+        {
+            for (int i = 0; i < latlons.size(); i++)
+            {
+                buffer[i] = elevation(latlons.get(i).lat, latlons.get(i).lon);
+            }
+
+            return 0;
+        }
+
+        private static double elevation(double latitude, double longitude)
+        {
+            return 300 + 250 * Math.sin(20 * latitude) * Math.cos(15 * longitude);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.video.offscreen;
+
+import gov.nasa.worldwind.geom.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class CameraPathTest
+{
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void testInterpolate_keyframes()
+    {
+        CameraPath path = new CameraPath()
+            .add(Position.fromDegrees(0, 0, 1.0e7), Angle.ZERO, Angle.ZERO)
+            .add(Position.fromDegrees(10, 20, 1.0e5), new Angle(90), new Angle(60))
+            .add(Position.fromDegrees(20, 40, 1.0e6), new Angle(180), new Angle(30));
+
+        CameraPath.Keyframe middle = path.interpolate(0.5);
+        assertEquals(10, middle.getEyePosition().lat, DELTA);
+        assertEquals(20, middle.getEyePosition().lon, DELTA);
+        assertEquals(1.0e5, middle.getEyePosition().getElevation(), 1e-6);
+        assertEquals(90, middle.getHeading().degrees, DELTA);
+
+        CameraPath.Keyframe last = path.interpolate(2);
+        assertEquals(1.0e6, last.getEyePosition().getElevation(), DELTA);
+        assertEquals(30, last.getPitch().degrees, DELTA);
+    }
+
+    @Test
+    public void testInterpolate_altitudeIsGeometric()
+    {
+        CameraPath path = new CameraPath()
+            .add(Position.fromDegrees(0, 0, 1.0e7), Angle.ZERO, Angle.ZERO)
+            .add(Position.fromDegrees(0, 0, 1.0e5), Angle.ZERO, new Angle(40));
+
+        CameraPath.Keyframe middle = path.interpolate(0.5);
+        assertEquals(1.0e6, middle.getEyePosition().getElevation(), 1e-3);
+        assertEquals(20, middle.getPitch().degrees, 1e-6);
+    }
+
+    @Test
+    public void testOrbit_looksTowardCenter()
+    {
+        LatLon center = LatLon.fromDegrees(30, -100);
+        CameraPath path = CameraPath.orbit(center, new Angle(5), 1.0e6, new Angle(45), 8);
+
+        assertEquals(9, path.getKeyframes().size());
+        for (CameraPath.Keyframe keyframe : path.getKeyframes())
+        {
+            Angle azimuth = LatLon.greatCircleAzimuth(keyframe.getEyePosition(), center);
+            assertEquals(0, Angle.normalizedAngle(azimuth.sub(keyframe.getHeading())).degrees, 1e-6);
+            assertEquals(5, LatLon.greatCircleDistance(keyframe.getEyePosition(), center).degrees, 1e-6);
+        }
+    }
+
+    @Test
+    public void testPercentile()
+    {
+        long[] values = {5, 1, 4, 2, 3, 10, 9, 8, 7, 6};
+        assertEquals(5, FrameBenchmark.Result.percentile(values, 50));
+        assertEquals(10, FrameBenchmark.Result.percentile(values, 95));
+        assertEquals(1, FrameBenchmark.Result.percentile(values, 0));
+        assertEquals(0, FrameBenchmark.Result.percentile(new long[0], 50));
+    }
+}
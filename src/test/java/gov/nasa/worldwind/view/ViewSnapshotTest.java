@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2020 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.view;
+
+import gov.nasa.worldwind.geom.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ViewSnapshotTest
+{
+    @Test
+    public void testSnapshotCopiesViewState()
+    {
+        BasicView view = new BasicView();
+        view.setFieldOfView(new Angle(60));
+        view.setHeading(new Angle(30));
+
+        ViewSnapshot snapshot = new ViewSnapshot(view);
+        assertEquals(60, snapshot.getFieldOfView().degrees, 0);
+        assertEquals(30, snapshot.getHeading().degrees, 0);
+        assertEquals(view.getModelviewMatrix(), snapshot.getModelviewMatrix());
+        assertEquals(view.getViewport(), snapshot.getViewport());
+        assertEquals(view.getEyePoint(), snapshot.getEyePoint());
+        assertEquals(view.getViewStateID(), snapshot.getViewStateID());
+    }
+
+    @Test
+    public void testSnapshotIsUnaffectedByViewChanges()
+    {
+        BasicView view = new BasicView();
+        view.setHeading(new Angle(30));
+        ViewSnapshot snapshot = new ViewSnapshot(view);
+        long viewStateID = snapshot.getViewStateID();
+
+        view.setHeading(new Angle(90));
+        view.setFieldOfView(new Angle(20));
+        assertEquals(30, snapshot.getHeading().degrees, 0);
+        assertEquals(45, snapshot.getFieldOfView().degrees, 0);
+        assertEquals(viewStateID, snapshot.getViewStateID());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSnapshotCannotBeChanged()
+    {
+        new ViewSnapshot(new BasicView()).setHeading(new Angle(10));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullView()
+    {
+        new ViewSnapshot(null);
+    }
+}